@@ -123,6 +123,10 @@ public class AV3DExample extends JFrame implements WindowListener {
 		controller = new ValidatingBufferedCommandController();
 		controller.setErrorReporter(errorReporter);
 		
+		// only apply the latest transient change of each entity per frame
+		((ValidatingBufferedCommandController)controller).
+			setCoalesceTransientCommands(true);
+		
 		////////////////////////////////////////////////////////////
 		// Create the initial entity data model
 		model = new DefaultWorldModel(controller);
@@ -195,7 +195,14 @@ public abstract class BaseExample
             case ViewFactory.TOP_3D_VIEW:
             default:
 
-                controller = new ValidatingBufferedCommandController();
+                ValidatingBufferedCommandController buffered =
+                    new ValidatingBufferedCommandController();
+
+                // only apply the latest transient change of each entity
+                // per frame
+                buffered.setCoalesceTransientCommands(true);
+
+                controller = buffered;
                 controller.setErrorReporter(errorReporter);
 
                 break;
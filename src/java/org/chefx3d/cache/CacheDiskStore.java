@@ -13,10 +13,14 @@ package org.chefx3d.cache;
 
 // External imports
 import java.io.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.net.MalformedURLException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import org.chefx3d.util.DefaultErrorReporter;
@@ -24,14 +28,35 @@ import org.chefx3d.util.ErrorReporter;
 import java.security.AccessController;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivilegedAction;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 // local imports
 import org.chefx3d.util.ApplicationParams;
 
 /**
  * This is a disk-backed implementation of a key-value cache.
- *
- * TODO Switch to filechannels so that file locking can be carried out
+ * <p>
+ * Access is guarded by a set of read/write locks striped over the keys,
+ * so different assets can be read and written in parallel. Assets are
+ * written to a temporary file in the same directory and renamed into
+ * place once complete, so a reader never sees a partially written asset.
+ * Large assets are memory mapped when read rather than copied onto the
+ * heap.
+ * <p>
+ * The assets are listed in a CacheIndex kept in the cache root, so
+ * checking whether an asset exists, or asking its size or modification
+ * time, is answered from memory without touching the disk. Assets removed
+ * from the disk by something other than this class stay in the index
+ * until a read finds them missing.
+ * <p>
+ * The total size of the cache is capped. When a store takes it over the
+ * cap, the least recently used assets are deleted on a background thread
+ * until the cache is back under nine tenths of the cap. The cap is read
+ * in megabytes from the chefx3d.cache.maxSize system property, and a cap
+ * of 0 leaves the cache unbounded.
  *
  * @author Daniel Joyce
  * @version $Revision: 1.22 $
@@ -44,6 +69,30 @@ public class CacheDiskStore implements CacheStoreInterface {
     /** Default name for the cache directory, if given nothing else */
     private static final String DEFAULT_CACHE_NAME = "chefx3dCache";
 
+    /** The number of locks the keys are striped over, a power of 2 */
+    private static final int LOCK_STRIPES = 32;
+
+    /** Assets larger than this are memory mapped rather than read */
+    private static final int MAP_THRESHOLD = 64 * 1024;
+
+    /** Suffix of assets that are still being written */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** System property setting the size cap in megabytes */
+    public static final String MAX_SIZE_PROPERTY = "chefx3d.cache.maxSize";
+
+    /** The default size cap in megabytes */
+    private static final int DEFAULT_MAX_SIZE_MB = 1024;
+
+    /** The number of storage files remembered by key */
+    private static final int FILE_MEMO_SIZE = 2048;
+
+    /** Digits used for the directory names */
+    private static final String HEX_DIGITS = "0123456789abcdef";
+
+    /** The locks guarding the assets, selected by key */
+    private final ReadWriteLock[] locks = createLocks();
+
     /**The number of directories to hash over */
     private int numDirectories;
 
@@ -62,6 +111,24 @@ public class CacheDiskStore implements CacheStoreInterface {
     /** Regex Pattern to remove from urls, null means none */
     private Pattern urlFilter;
 
+    /** The assets in the cache */
+    private volatile CacheIndex index;
+
+    /** The size cap in bytes, 0 for none */
+    private volatile long maxSize = readMaxSize();
+
+    /** Is an eviction pass queued or running */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /** Storage files by key, saves hashing the key on every lookup */
+    @SuppressWarnings("serial")
+    private final Map<String, File> fileMemo = Collections.synchronizedMap(
+        new LinkedHashMap<String, File>(64, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, File> eldest) {
+                return size() > FILE_MEMO_SIZE;
+            }
+        });
+
     // Uses user home directory as root of disk store
     public CacheDiskStore() {
         initialize(0);
@@ -89,6 +156,7 @@ public class CacheDiskStore implements CacheStoreInterface {
 
     public void setNumberOfDirectories(int numDir) {
         this.numDirectories = numDir;
+        fileMemo.clear();
     }
 
     public int getNumberOfDirectories() {
@@ -97,6 +165,36 @@ public class CacheDiskStore implements CacheStoreInterface {
 
     public void setDirectoryDepth(int dirDepth) {
         this.dirDepth = dirDepth;
+        fileMemo.clear();
+    }
+
+    /**
+     * Set the size cap of the cache, evicting assets if the cache is now
+     * over it.
+     *
+     * @param bytes The size cap in bytes, 0 for none
+     */
+    public void setMaxSize(long bytes) {
+        maxSize = Math.max(0, bytes);
+        checkSize();
+    }
+
+    /**
+     * Get the size cap of the cache.
+     *
+     * @return The size cap in bytes, 0 for none
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the total size of the assets in the cache.
+     *
+     * @return The size in bytes
+     */
+    public long getCacheSize() {
+        return index.getTotalSize();
     }
 
     public int getDirectoryDepth() {
@@ -204,6 +302,16 @@ System.out.println("cacheRoot: " + cacheRoot);
             }
         }
 
+        fileMemo.clear();
+
+        synchronized (this) {
+            if (index != null) {
+                index.close();
+            }
+            index = new CacheIndex(cacheRoot);
+        }
+        checkSize();
+
     }
 
     /**
@@ -212,21 +320,30 @@ System.out.println("cacheRoot: " + cacheRoot);
      * @param key
      * @return a boolean indicating whether the deletion succedded.
      */
-    public synchronized boolean removeAsset(String key) throws IOException {
+    public boolean removeAsset(String key) throws IOException {
         File storageFile = getStorageFileForKey(key);
-        // We wait to create the file till storeAsset is called.
-        if (storageFile.exists()) {
-            storageFile.delete();
-            return true;
+        Lock lock = getLock(storageFile).writeLock();
+        lock.lock();
+        try {
+            // We wait to create the file till storeAsset is called.
+            index.remove(storageFile.getName());
+            if (storageFile.exists()) {
+                storageFile.delete();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
         }
-        return false;
     }
 
-    public synchronized long getAssetSize(String key) {
+    public long getAssetSize(String key) {
         long size = -1;
         try {
-            File storageFile = getStorageFileForKey(key);
-            size = storageFile.length();
+            CacheIndex.Entry entry = getEntry(key);
+            if (entry != null) {
+                size = entry.size;
+            }
         } catch (Exception ex) {
         }
         return size;
@@ -244,6 +361,23 @@ System.out.println("cacheRoot: " + cacheRoot);
             key = "";
         }
 
+        File storageFile = fileMemo.get(key);
+        if (storageFile == null) {
+            storageFile = computeStorageFile(key);
+            if (storageFile != null) {
+                fileMemo.put(key, storageFile);
+            }
+        }
+        return storageFile;
+    }
+
+    /**
+     * Hash a key to its storage file.
+     *
+     * @param key The key to store the asset under
+     * @return The file containing the asset
+     */
+    private File computeStorageFile(String key) {
         if (urlFilter != null) {
             Matcher m = urlFilter.matcher(key);
             key = m.replaceAll("");
@@ -274,8 +408,7 @@ System.out.println("cacheRoot: " + cacheRoot);
                 long dirInt = d % numDirectories;
                 d -= dirInt;
                 d = d / numDirectories;
-//            path.append(String.format("%04x",Math.abs(dirInt)));
-                fpath.append(String.format("%04x", dirInt));
+                appendHex(fpath, dirInt);
                 //
                 if (i < dirDepth - 1) {
                     fpath.append(FileSep);
@@ -293,81 +426,95 @@ System.out.println("cacheRoot: " + cacheRoot);
         return storageFile;
     }
 
-    public synchronized void storeAsset(String key, InputStream is) throws IOException {
+    public void storeAsset(String key, InputStream is) throws IOException {
 
         File storageFile = getStorageFileForKey(key);
 
-        if (!storageFile.exists()) {
-            storageFile.getParentFile().mkdirs();
-            storageFile.createNewFile();
-        }
+        // write outside of the lock, the stream may be slow
+        File tempFile = createTempFile(storageFile);
+
         int buffSize = 4 * 1024;
         int bytesRead = 0;
         byte[] buffer = new byte[buffSize];
         OutputStream os = null;
+        boolean written = false;
         try {
-            os = new FileOutputStream(storageFile);
+            os = new FileOutputStream(tempFile);
             while ((bytesRead = is.read(buffer)) != -1) {
                 os.write(buffer, 0, bytesRead);
             }
+            written = true;
         } finally {
             try {
                 os.close();
             } catch (Exception ex) {
                 //noop;
             }
+            if (!written) {
+                tempFile.delete();
+            }
         }
+
+        commit(tempFile, storageFile);
     //return new URL("cache:"+ext, null, -1, url.getPath());
     }
 
-    public synchronized OutputStream storeAsset(String key) throws IOException {
+    /**
+     * Returns a stream that writes to a temporary file. The asset is
+     * replaced when the stream is closed.
+     */
+    public OutputStream storeAsset(String key) throws IOException {
 
         File storageFile = getStorageFileForKey(key);
-        if (!storageFile.exists()) {
-            storageFile.getParentFile().mkdirs();
-            storageFile.createNewFile();
-        }
-        return new FileOutputStream(storageFile);
-    }
-
-    public synchronized InputStream retrieveAsset(String key) throws IOException {
-        /*
-         * There is a potential race condition here, given this method
-         * returns immeadiately.
-         *
-         * The fileInputStream may then be reading from a file that
-         * is being modified by a storeAsset call, leading to a corrupted
-         * view of the cache.
-         *
-         * In the interim, we will return a stream wrapping a byte array,
-         * but the performance may not be very good if file sizes
-         * are large.
-         *
-         * In the future, will use some of work queue to order reads/writes
-         * and a custom inputStream impl, or perhaps copy files to a new
-         *
-         * Another possibility is to copy the file to a temp file before returning
-         * a inputstream, and using some kind of phatomreferences + a queue
-         * to manage cleanup of temp files. Advantage is higher throughput
-         *
-         * Or selective locking/sleeping with file channel writes/reads.
-         */
-        //return new FileInputStream(getStorageFileForKey(key));
-        byte[] buffer = null;
+        File tempFile = createTempFile(storageFile);
+
+        return new CommitOutputStream(tempFile, storageFile);
+    }
+
+    /**
+     * Returns a stream over the asset. Small assets are read into memory
+     * and large ones are memory mapped, either way the file itself is
+     * closed before returning. The read lock is only held while the file
+     * is open, as assets are replaced by renaming a new file over them
+     * the stream always sees a complete asset.
+     */
+    public InputStream retrieveAsset(String key) throws IOException {
+
+        File storageFile = getStorageFileForKey(key);
+        Lock lock = getLock(storageFile).readLock();
+
+        ByteBuffer bBuffer = null;
         FileChannel fChan = null;
         FileInputStream fIn = null;
         boolean loaded = false;
 
+        lock.lock();
         try {
-            fIn = new FileInputStream(getStorageFileForKey(key));
+            fIn = new FileInputStream(storageFile);
             fChan = fIn.getChannel();
             long fSize = fChan.size();
-            ByteBuffer bBuffer = ByteBuffer.allocate((int) fSize);
-            fChan.read(bBuffer);
-            bBuffer.rewind();
-            buffer = bBuffer.array();
+            if (fSize > MAP_THRESHOLD) {
+                MappedByteBuffer mapped =
+                    fChan.map(FileChannel.MapMode.READ_ONLY, 0, fSize);
+                bBuffer = mapped;
+            } else {
+                bBuffer = ByteBuffer.allocate((int) fSize);
+                while (bBuffer.hasRemaining()) {
+                    if (fChan.read(bBuffer) < 0) {
+                        break;
+                    }
+                }
+                bBuffer.flip();
+            }
             loaded = true;
+            index.touch(storageFile.getName());
+        } catch (FileNotFoundException fnfe) {
+            // deleted behind our back
+            index.remove(storageFile.getName());
+            throw fnfe;
         } finally {
+            lock.unlock();
+
             if (!loaded) {
                 System.out.println("Could not load: " + key);
             }
@@ -384,20 +531,63 @@ System.out.println("cacheRoot: " + cacheRoot);
             }
 
         }
-        return new ByteArrayInputStream(buffer);
+
+        if (bBuffer.hasArray()) {
+            return new ByteArrayInputStream(
+                bBuffer.array(),
+                bBuffer.arrayOffset() + bBuffer.position(),
+                bBuffer.remaining());
+        }
+        return new ByteBufferInputStream(bBuffer);
     }
 
-    public synchronized boolean doesAssetExist(String key) {
+    public boolean doesAssetExist(String key) {
         boolean exists = false;
         try {
-            File storageFile = getStorageFileForKey(key);
-            exists = storageFile.exists();
+            exists = (getEntry(key) != null);
         } catch (Exception ex) {
             // todo logging
         }
         return exists;
     }
 
+    /**
+     * Returns the ETag the server sent with the asset pointed to by key.
+     *
+     * @param key
+     * @return the ETag, or null if there is none or the asset is not cached
+     */
+    public String getETag(String key) {
+        String etag = null;
+        try {
+            CacheIndex.Entry entry = getEntry(key);
+            if (entry != null) {
+                etag = entry.etag;
+            }
+        } catch (Exception ex) {
+            // todo logging
+        }
+        return etag;
+    }
+
+    /**
+     * Records the validators the server sent with the asset pointed to by
+     * key, for revalidating it later.
+     *
+     * @param key
+     * @param etag the ETag, or null if there was none
+     * @param lastModified the Last-Modified time in millis since epoch, or
+     * 0 to keep the time the asset was stored
+     */
+    public void setValidators(String key, String etag, long lastModified) {
+        try {
+            File storageFile = getStorageFileForKey(key);
+            index.setValidators(storageFile.getName(), etag, lastModified);
+        } catch (Exception ex) {
+            // todo logging
+        }
+    }
+
     protected String convertToBase36(int i) {
         long l = i;
         // done to handle sign-extension.
@@ -421,8 +611,18 @@ System.out.println("cacheRoot: " + cacheRoot);
         return true;
     }
 
-    public synchronized boolean clearCache() {
-        return deleteDirectory(cacheRoot);
+    public boolean clearCache() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i].writeLock().lock();
+        }
+        try {
+            index.clear();
+            return deleteDirectory(cacheRoot);
+        } finally {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].writeLock().unlock();
+            }
+        }
     }
 
     private boolean deleteDirectory(File path) {
@@ -442,7 +642,9 @@ System.out.println("cacheRoot: " + cacheRoot);
 
     /**
      * Returns the Last Modified time for the asset pointed to by key, or 0
-     * if it can't be determined. Uses File.lastModified.
+     * if it can't be determined. This is the time the asset was stored,
+     * unless the server's Last-Modified time has been recorded with
+     * setValidators.
      *
      * @param key
      * @return the last modified time in millis since epoch, or 0 if it
@@ -451,9 +653,10 @@ System.out.println("cacheRoot: " + cacheRoot);
     public long getLastModified(String key) {
         long lastMod = 0;
         try {
-            File f = getStorageFileForKey(key);
-            lastMod =
-                    f.lastModified();
+            CacheIndex.Entry entry = getEntry(key);
+            if (entry != null) {
+                lastMod = entry.lastModified;
+            }
         } catch (Exception ex) {
             log.errorReport("Error getting last modified date for " + key + ", returning " + lastMod, ex);
         }
@@ -469,5 +672,377 @@ System.out.println("cacheRoot: " + cacheRoot);
      */
     public void setURLFilter(String pattern) {
         urlFilter = Pattern.compile(pattern);
+        fileMemo.clear();
+    }
+
+    /**
+     * Create the lock stripes.
+     *
+     * @return The locks
+     */
+    private static ReadWriteLock[] createLocks() {
+        ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        return locks;
+    }
+
+    /**
+     * Get the lock guarding an asset. Keys that filter to the same
+     * storage file share a lock.
+     *
+     * @param storageFile The file holding the asset
+     * @return The lock
+     */
+    private ReadWriteLock getLock(File storageFile) {
+        int hash = storageFile.getName().hashCode();
+        hash ^= (hash >>> 16);
+        return locks[hash & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Create a temporary file next to the storage file, so that it can
+     * be renamed into place.
+     *
+     * @param storageFile The file that will hold the asset
+     * @return The temporary file
+     * @throws IOException
+     */
+    private File createTempFile(File storageFile) throws IOException {
+        File dir = storageFile.getParentFile();
+        dir.mkdirs();
+        return File.createTempFile(storageFile.getName(), TEMP_SUFFIX, dir);
+    }
+
+    /**
+     * Replace the asset with a completely written temporary file.
+     *
+     * @param tempFile The new content of the asset
+     * @param storageFile The file that holds the asset
+     * @throws IOException if the asset could not be replaced
+     */
+    private void commit(File tempFile, File storageFile) throws IOException {
+        Lock lock = getLock(storageFile).writeLock();
+        lock.lock();
+        try {
+            if (!tempFile.renameTo(storageFile)) {
+                // some platforms will not rename over an existing file,
+                // move the old asset aside so that it can be put back if
+                // the new one still cannot be renamed into place
+                File oldFile = new File(
+                    storageFile.getPath() + TEMP_SUFFIX);
+                oldFile.delete();
+                boolean moved = storageFile.renameTo(oldFile);
+
+                if (!tempFile.renameTo(storageFile)) {
+                    tempFile.delete();
+                    if (moved) {
+                        oldFile.renameTo(storageFile);
+                    }
+                    if (!storageFile.exists()) {
+                        index.remove(storageFile.getName());
+                    }
+                    throw new IOException(
+                        "Unable to store cache file " + storageFile);
+                }
+                oldFile.delete();
+            }
+            index.put(
+                storageFile.getName(),
+                getRelativeDirectory(storageFile),
+                storageFile.length());
+        } finally {
+            lock.unlock();
+        }
+
+        checkSize();
+    }
+
+    /**
+     * Get the index entry of an asset.
+     *
+     * @param key The key of the asset
+     * @return The entry, or null if the asset is not cached
+     */
+    private CacheIndex.Entry getEntry(String key) throws IOException {
+        return index.get(getStorageFileForKey(key).getName());
+    }
+
+    /**
+     * Get the directory of a storage file relative to the cache root.
+     *
+     * @param storageFile The file that holds the asset
+     * @return The relative path of its directory
+     */
+    private String getRelativeDirectory(File storageFile) {
+        String dir = storageFile.getParent();
+        String root = cacheRoot.getPath();
+        if (dir.startsWith(root) && dir.length() > root.length()) {
+            return dir.substring(root.length() + 1);
+        }
+        return dir;
+    }
+
+    /**
+     * Append a number as at least 4 hex digits, the same as
+     * String.format("%04x") without parsing the format on every call.
+     *
+     * @param buf The buffer to append to
+     * @param value The number, not negative
+     */
+    private static void appendHex(StringBuilder buf, long value) {
+        int start = buf.length();
+        do {
+            buf.insert(start, HEX_DIGITS.charAt((int)(value & 0xF)));
+            value >>>= 4;
+        } while (value != 0);
+
+        while (buf.length() - start < 4) {
+            buf.insert(start, '0');
+        }
+    }
+
+    /**
+     * Read the size cap from the system property.
+     *
+     * @return The size cap in bytes
+     */
+    private static long readMaxSize() {
+        int size = DEFAULT_MAX_SIZE_MB;
+        try {
+            String prop = System.getProperty(MAX_SIZE_PROPERTY);
+            if (prop != null) {
+                size = Math.max(0, Integer.parseInt(prop));
+            }
+        } catch (NumberFormatException nfe) {
+            // keep the default
+        } catch (SecurityException se) {
+            // keep the default
+        }
+        return size * 1024L * 1024L;
+    }
+
+    /**
+     * Start an eviction pass on a background thread if the cache is over
+     * its size cap and no pass is already running.
+     */
+    private void checkSize() {
+        long cap = maxSize;
+        if (cap <= 0 || index.getTotalSize() <= cap) {
+            return;
+        }
+
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                boolean removed = false;
+                try {
+                    removed = evict();
+                } finally {
+                    evicting.set(false);
+                }
+
+                // stores made during the pass may have filled it again,
+                // unless nothing could be deleted
+                if (removed) {
+                    checkSize();
+                }
+            }
+        }, "CacheDiskStore-evict");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Delete the least recently used assets until the cache is under nine
+     * tenths of its size cap. An asset that is read or written after the
+     * candidates are chosen is kept, as is one whose file can't be deleted.
+     *
+     * @return true if any asset was removed
+     */
+    boolean evict() {
+        long cap = maxSize;
+        if (cap <= 0) {
+            return false;
+        }
+        long target = cap - cap / 10;
+
+        boolean removed = false;
+        CacheIndex.Entry[] entries = index.getEvictionOrder();
+        for (int i = 0; i < entries.length; i++) {
+            if (index.getTotalSize() <= target) {
+                break;
+            }
+
+            CacheIndex.Entry entry = entries[i];
+            File storageFile = new File(
+                cacheRoot,
+                entry.dir + File.separator + entry.name);
+
+            Lock lock = getLock(storageFile).writeLock();
+            lock.lock();
+            try {
+                // reads and writes hold the lock, so the asset can't be
+                // used between the check and the delete
+                if (index.isUnused(entry.name, entry.lastAccess) &&
+                    (storageFile.delete() || !storageFile.exists())) {
+
+                    index.remove(entry.name);
+                    removed = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Writes to a temporary file and commits it to the cache when closed.
+     * Nothing is committed if a write failed or the stream was aborted,
+     * the asset keeps its previous content.
+     */
+    public class CommitOutputStream extends FileOutputStream {
+
+        /** The new content of the asset */
+        private File tempFile;
+
+        /** The file that holds the asset */
+        private File storageFile;
+
+        /** Has the stream been closed */
+        private boolean closed;
+
+        /** Should the content be discarded on close */
+        private boolean aborted;
+
+        CommitOutputStream(File tempFile, File storageFile)
+            throws IOException {
+
+            super(tempFile);
+            this.tempFile = tempFile;
+            this.storageFile = storageFile;
+        }
+
+        public void write(int b) throws IOException {
+            try {
+                super.write(b);
+            } catch (IOException ioe) {
+                aborted = true;
+                throw ioe;
+            }
+        }
+
+        public void write(byte[] b) throws IOException {
+            try {
+                super.write(b);
+            } catch (IOException ioe) {
+                aborted = true;
+                throw ioe;
+            }
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                super.write(b, off, len);
+            } catch (IOException ioe) {
+                aborted = true;
+                throw ioe;
+            }
+        }
+
+        /**
+         * Discard what has been written. The temporary file is deleted
+         * when the stream is closed, instead of replacing the asset.
+         */
+        public void abort() {
+            aborted = true;
+        }
+
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                super.close();
+            } catch (IOException ioe) {
+                tempFile.delete();
+                throw ioe;
+            }
+
+            if (aborted) {
+                tempFile.delete();
+                return;
+            }
+            commit(tempFile, storageFile);
+        }
+    }
+
+    /**
+     * Reads from a buffer, used for memory mapped assets.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        /** The content */
+        private ByteBuffer buffer;
+
+        /** The marked position */
+        private int markPosition;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            int skipped = (int) Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        public int available() {
+            return buffer.remaining();
+        }
+
+        public boolean markSupported() {
+            return true;
+        }
+
+        public void mark(int readlimit) {
+            markPosition = buffer.position();
+        }
+
+        public void reset() {
+            buffer.position(markPosition);
+        }
     }
 }
@@ -0,0 +1,638 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+package org.chefx3d.cache;
+
+// External imports
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+// local imports
+// None
+
+/**
+ * In memory index of the assets held by a CacheDiskStore, backed by an
+ * append only log in the root of the cache.
+ * <p>
+ * Each asset is known by the name of its storage file, and the index
+ * holds its directory, size, last access time, last modified time and
+ * ETag. The log is replayed when the index is opened. If there is no log,
+ * the index is rebuilt once by scanning the cache directories. A record
+ * cut short by a crash ends the replay, and the log is then rewritten.
+ * The log is also rewritten when it has grown to hold many more records
+ * than there are assets.
+ * <p>
+ * Access times are held in memory and written to the log at most once a
+ * second, with one record for each asset read since the last write, so a
+ * crash may lose the most recent ones. That only affects the order assets
+ * are evicted in.
+ *
+ * @author Daniel Joyce
+ * @version $Revision: 1.1 $
+ */
+class CacheIndex {
+
+    /** The name of the log file in the cache root */
+    static final String INDEX_FILE_NAME = "cache.idx";
+
+    /** Identifies the log, "CXIX" */
+    private static final int MAGIC = 0x43584958;
+
+    /** The version of the log format */
+    private static final int VERSION = 1;
+
+    /** Record types */
+    private static final byte PUT = 1;
+    private static final byte TOUCH = 2;
+    private static final byte REMOVE = 3;
+    private static final byte VALIDATORS = 4;
+
+    /** The log is rewritten when it has this many more records than entries */
+    private static final int COMPACT_SLACK = 1024;
+
+    /** The longest access times are held before being written, in ms */
+    private static final long TOUCH_FLUSH_INTERVAL = 1000;
+
+    /**
+     * An asset in the cache.
+     */
+    static class Entry {
+
+        /** The name of the storage file */
+        final String name;
+
+        /** The directory of the storage file, relative to the cache root */
+        final String dir;
+
+        /** The size in bytes */
+        long size;
+
+        /** When the asset was last read or written */
+        long lastAccess;
+
+        /** When the asset was last modified */
+        long lastModified;
+
+        /** The ETag the server sent with the asset, or null */
+        String etag;
+
+        Entry(String name, String dir) {
+            this.name = name;
+            this.dir = dir;
+        }
+    }
+
+    /** The root of the cache */
+    private File cacheRoot;
+
+    /** The log file */
+    private File indexFile;
+
+    /** The entries by storage file name */
+    private HashMap<String, Entry> entries;
+
+    /** The total size of the assets */
+    private long totalSize;
+
+    /** The stream appending to the log, opened on first use */
+    private DataOutputStream log;
+
+    /** The number of records in the log */
+    private int numRecords;
+
+    /** The entries read since their access time was last written */
+    private HashSet<Entry> touched;
+
+    /** When the access times were last written */
+    private long lastFlush;
+
+    /**
+     * Open the index of a cache.
+     *
+     * @param cacheRoot The root directory of the cache
+     */
+    CacheIndex(File cacheRoot) {
+        this.cacheRoot = cacheRoot;
+        indexFile = new File(cacheRoot, INDEX_FILE_NAME);
+        entries = new HashMap<String, Entry>();
+        touched = new HashSet<Entry>();
+
+        if (indexFile.exists()) {
+            if (!replay()) {
+                compact();
+            }
+        } else {
+            scan(cacheRoot, "");
+            compact();
+        }
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Get the entry of an asset.
+     *
+     * @param name The name of the storage file
+     * @return The entry, or null if the asset is not cached. The entry
+     * must not be changed.
+     */
+    synchronized Entry get(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Record that an asset has been stored.
+     *
+     * @param name The name of the storage file
+     * @param dir The directory of the storage file, relative to the root
+     * @param size The size in bytes
+     */
+    synchronized void put(String name, String dir, long size) {
+
+        long now = System.currentTimeMillis();
+
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            entry = new Entry(name, dir);
+            entries.put(name, entry);
+        } else {
+            totalSize -= entry.size;
+        }
+
+        entry.size = size;
+        entry.lastAccess = now;
+        entry.lastModified = now;
+        entry.etag = null;
+        totalSize += size;
+
+        try {
+            DataOutputStream out = getLog();
+            writePut(out, entry);
+            out.flush();
+            numRecords++;
+        } catch (IOException ioe) {
+            closeLog();
+        }
+
+        compactIfNeeded();
+    }
+
+    /**
+     * Record that an asset has been read.
+     *
+     * @param name The name of the storage file
+     */
+    synchronized void touch(String name) {
+
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            return;
+        }
+
+        entry.lastAccess = System.currentTimeMillis();
+        touched.add(entry);
+
+        if (entry.lastAccess - lastFlush > TOUCH_FLUSH_INTERVAL) {
+            writeTouches();
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Record the validators a server sent with an asset.
+     *
+     * @param name The name of the storage file
+     * @param etag The ETag, or null
+     * @param lastModified The last modified time, or 0 to keep the time
+     * the asset was stored
+     */
+    synchronized void setValidators(String name, String etag, long lastModified) {
+
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            return;
+        }
+
+        entry.etag = etag;
+        if (lastModified > 0) {
+            entry.lastModified = lastModified;
+        }
+
+        try {
+            DataOutputStream out = getLog();
+            out.writeByte(VALIDATORS);
+            out.writeUTF(name);
+            out.writeLong(entry.lastModified);
+            writeString(out, etag);
+            out.flush();
+            numRecords++;
+        } catch (IOException ioe) {
+            closeLog();
+        }
+    }
+
+    /**
+     * Record that an asset has been removed.
+     *
+     * @param name The name of the storage file
+     */
+    synchronized void remove(String name) {
+
+        Entry entry = entries.remove(name);
+        if (entry == null) {
+            return;
+        }
+
+        totalSize -= entry.size;
+        touched.remove(entry);
+
+        try {
+            DataOutputStream out = getLog();
+            out.writeByte(REMOVE);
+            out.writeUTF(name);
+            out.flush();
+            numRecords++;
+        } catch (IOException ioe) {
+            closeLog();
+        }
+
+        compactIfNeeded();
+    }
+
+    /**
+     * Check that an asset chosen for eviction has not been used since it
+     * was chosen.
+     *
+     * @param name The name of the storage file
+     * @param lastAccess The last access time when the asset was chosen
+     * @return true if the asset is still cached and has not been used
+     */
+    synchronized boolean isUnused(String name, long lastAccess) {
+        Entry entry = entries.get(name);
+        return (entry != null && entry.lastAccess == lastAccess);
+    }
+
+    /**
+     * Forget all assets and delete the log. Called when the cache is
+     * cleared.
+     */
+    synchronized void clear() {
+        closeLog();
+        indexFile.delete();
+        entries.clear();
+        touched.clear();
+        totalSize = 0;
+        numRecords = 0;
+    }
+
+    /**
+     * Get the total size of the assets.
+     *
+     * @return The size in bytes
+     */
+    synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Get the assets in the order they should be evicted, least recently
+     * used first.
+     *
+     * @return Copies of the entries
+     */
+    synchronized Entry[] getEvictionOrder() {
+
+        Entry[] list = new Entry[entries.size()];
+        int i = 0;
+        for (Iterator<Entry> itr = entries.values().iterator(); itr.hasNext(); ) {
+            Entry entry = itr.next();
+            Entry copy = new Entry(entry.name, entry.dir);
+            copy.size = entry.size;
+            copy.lastAccess = entry.lastAccess;
+            list[i++] = copy;
+        }
+
+        Arrays.sort(list, new Comparator<Entry>() {
+            public int compare(Entry a, Entry b) {
+                if (a.lastAccess < b.lastAccess) {
+                    return -1;
+                }
+                return (a.lastAccess > b.lastAccess) ? 1 : 0;
+            }
+        });
+
+        return list;
+    }
+
+    /**
+     * Write the access times to the log and close it.
+     */
+    synchronized void close() {
+        writeTouches();
+        closeLog();
+    }
+
+    /**
+     * Read the log into the entries.
+     *
+     * @return true if the whole log was read, false if it was damaged
+     */
+    private boolean replay() {
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)));
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                entries.clear();
+                scan(cacheRoot, "");
+                return false;
+            }
+
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    return true;
+                }
+
+                String name = in.readUTF();
+                Entry entry;
+
+                switch (type) {
+                    case PUT:
+                        entry = new Entry(name, in.readUTF());
+                        entry.size = in.readLong();
+                        entry.lastAccess = in.readLong();
+                        entry.lastModified = in.readLong();
+                        entry.etag = readString(in);
+
+                        Entry old = entries.put(name, entry);
+                        if (old != null) {
+                            totalSize -= old.size;
+                        }
+                        totalSize += entry.size;
+                        break;
+
+                    case TOUCH:
+                        long time = in.readLong();
+                        entry = entries.get(name);
+                        if (entry != null) {
+                            entry.lastAccess = time;
+                        }
+                        break;
+
+                    case REMOVE:
+                        entry = entries.remove(name);
+                        if (entry != null) {
+                            totalSize -= entry.size;
+                        }
+                        break;
+
+                    case VALIDATORS:
+                        long modified = in.readLong();
+                        String etag = readString(in);
+                        entry = entries.get(name);
+                        if (entry != null) {
+                            entry.lastModified = modified;
+                            entry.etag = etag;
+                        }
+                        break;
+
+                    default:
+                        return false;
+                }
+
+                numRecords++;
+            }
+
+        } catch (IOException ioe) {
+            // cut short, keep what was read
+            return false;
+
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ioe) {
+                    // noop
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the assets found in a directory of the cache, deleting any
+     * temporary files left by an interrupted write.
+     *
+     * @param dir The directory
+     * @param relDir The path of the directory relative to the root
+     */
+    private void scan(File dir, String relDir) {
+
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (int i = 0; i < files.length; i++) {
+            File file = files[i];
+            String name = file.getName();
+
+            if (file.isDirectory()) {
+                String path = (relDir.length() == 0) ?
+                    name : relDir + File.separator + name;
+                scan(file, path);
+
+            } else if (name.endsWith(".tmp")) {
+                file.delete();
+
+            } else if (relDir.length() > 0) {
+                Entry entry = new Entry(name, relDir);
+                entry.size = file.length();
+                entry.lastModified = file.lastModified();
+                entry.lastAccess = entry.lastModified;
+
+                entries.put(name, entry);
+                totalSize += entry.size;
+            }
+        }
+    }
+
+    /**
+     * Rewrite the log once it holds too many stale records.
+     */
+    private void compactIfNeeded() {
+        if (numRecords > entries.size() * 2 + COMPACT_SLACK) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrite the log with a single record per asset.
+     */
+    private void compact() {
+
+        closeLog();
+
+        // the records written hold the access times
+        touched.clear();
+
+        File tempFile = new File(cacheRoot, INDEX_FILE_NAME + ".tmp");
+        DataOutputStream out = null;
+        try {
+            cacheRoot.mkdirs();
+            out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)));
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            ArrayList<Entry> list = new ArrayList<Entry>(entries.values());
+            for (int i = 0; i < list.size(); i++) {
+                writePut(out, list.get(i));
+            }
+            out.close();
+            out = null;
+
+            if (!tempFile.renameTo(indexFile)) {
+                indexFile.delete();
+                if (!tempFile.renameTo(indexFile)) {
+                    tempFile.delete();
+                    return;
+                }
+            }
+            numRecords = entries.size();
+
+        } catch (IOException ioe) {
+            tempFile.delete();
+
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ioe) {
+                    // noop
+                }
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Write a TOUCH record for each asset read since the last time the
+     * access times were written.
+     */
+    private void writeTouches() {
+
+        lastFlush = System.currentTimeMillis();
+        if (touched.isEmpty()) {
+            return;
+        }
+
+        try {
+            DataOutputStream out = getLog();
+            for (Iterator<Entry> itr = touched.iterator(); itr.hasNext(); ) {
+                Entry entry = itr.next();
+                out.writeByte(TOUCH);
+                out.writeUTF(entry.name);
+                out.writeLong(entry.lastAccess);
+                numRecords++;
+            }
+            out.flush();
+        } catch (IOException ioe) {
+            closeLog();
+        }
+
+        touched.clear();
+    }
+
+    /**
+     * Get the stream appending to the log, opening it if needed.
+     *
+     * @return The stream
+     */
+    private DataOutputStream getLog() throws IOException {
+
+        if (log == null) {
+            boolean exists = indexFile.exists();
+            cacheRoot.mkdirs();
+            log = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(indexFile, true)));
+
+            if (!exists) {
+                log.writeInt(MAGIC);
+                log.writeInt(VERSION);
+                numRecords = 0;
+            }
+        }
+
+        return log;
+    }
+
+    /**
+     * Close the log, flushing any records not yet written.
+     */
+    private void closeLog() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException ioe) {
+                // noop
+            }
+            log = null;
+        }
+    }
+
+    /**
+     * Write a PUT record.
+     *
+     * @param out The stream to write to
+     * @param entry The entry to write
+     */
+    private static void writePut(DataOutputStream out, Entry entry)
+        throws IOException {
+
+        out.writeByte(PUT);
+        out.writeUTF(entry.name);
+        out.writeUTF(entry.dir);
+        out.writeLong(entry.size);
+        out.writeLong(entry.lastAccess);
+        out.writeLong(entry.lastModified);
+        writeString(out, entry.etag);
+    }
+
+    /**
+     * Write a string that may be null.
+     */
+    private static void writeString(DataOutputStream out, String str)
+        throws IOException {
+
+        out.writeBoolean(str != null);
+        if (str != null) {
+            out.writeUTF(str);
+        }
+    }
+
+    /**
+     * Read a string that may be null.
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -60,7 +60,8 @@ public interface CacheStoreInterface {
      *
      * @param key the key to store it under
      * @return A Outputstream to write the asset to. Caller is responsible for
-     * closing the outputstream.
+     * closing the outputstream. The content is only stored if every write
+     * succeeded, see CacheDiskStore.CommitOutputStream for discarding it.
      * @throws IOException
      */
     public OutputStream storeAsset(String key) throws IOException;
@@ -101,6 +102,25 @@ public interface CacheStoreInterface {
      */
     public long getLastModified(String key);
 
+    /**
+     * Returns the ETag the server sent with the asset in the cache.
+     *
+     * @param key
+     * @return the ETag, or null if there is none or the asset is not cached
+     */
+    public String getETag(String key);
+
+    /**
+     * Records the validators the server sent with the asset in the cache,
+     * so it can be revalidated with a conditional request.
+     *
+     * @param key
+     * @param etag the ETag, or null if there was none
+     * @param lastModified the Last-Modified time in millis since epoch, or
+     * 0 to keep the time the asset was stored
+     */
+    public void setValidators(String key, String etag, long lastModified);
+
     /**
      * Computes a storage location for a asset given the key
      *
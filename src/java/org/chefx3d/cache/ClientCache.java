@@ -79,6 +79,14 @@ public class ClientCache implements CacheStoreInterface {
         return cacheStore.getLastModified(key);
     }
 
+    public String getETag(String key) {
+        return cacheStore.getETag(key);
+    }
+
+    public void setValidators(String key, String etag, long lastModified) {
+        cacheStore.setValidators(key, etag, lastModified);
+    }
+
     public boolean isCheckFreshness() {
         return checkFreshness;
     }
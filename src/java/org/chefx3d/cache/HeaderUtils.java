@@ -4,13 +4,14 @@
  */
 package org.chefx3d.cache;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,11 @@ import org.ietf.uri.URI;
  * The cache is a string-oriented data-store, and these utilities provide
  * a consistent way to retrieve headers and data from the cache.
  *
+ * Headers are kept in a sidecar entry next to the asset, under the asset
+ * key with the "header:" prefix. The sidecar holds the header names and
+ * values as a list of pairs, so names and values may contain any text.
+ * Sidecars written in the older "@@@" separated form are still read.
+ *
  * @author djoyce
  */
 public class HeaderUtils{
@@ -48,6 +54,12 @@ public class HeaderUtils{
     /** String to seperate headers in the saved files */
     private static final String headerSep = "@@@";
 
+    /** Identifies a structured header sidecar, "CXHD" */
+    private static final int HEADER_MAGIC = 0x43584844;
+
+    /** The version of the header sidecar format */
+    private static final int HEADER_VERSION = 1;
+
     //--------------------------------------------------------------------------
     // Local Methods
     //--------------------------------------------------------------------------
@@ -57,7 +69,17 @@ public class HeaderUtils{
         InputStream is = null;
         BufferedReader br = null;
         try {
-            is = ClientCache.getInstance().retrieveAsset(key);
+            is = new BufferedInputStream(
+                ClientCache.getInstance().retrieveAsset(key));
+
+            is.mark(4);
+            DataInputStream dis = new DataInputStream(is);
+            if (dis.readInt() == HEADER_MAGIC) {
+                readHeaders(dis);
+                return;
+            }
+            is.reset();
+
             br = new BufferedReader(new InputStreamReader(is));
             String headerLine = br.readLine();
             String valueLine = br.readLine();
@@ -71,13 +93,36 @@ public class HeaderUtils{
             // TODO Logging
         } finally {
             try {
-                br.close();
+                is.close();
             } catch (Exception ex) {
                 // noop
             }
         }
     }
 
+    /**
+     * Read the headers of a structured sidecar, after its magic number.
+     *
+     * @param dis The stream to read from
+     * @throws IOException
+     */
+    private void readHeaders(DataInputStream dis) throws IOException {
+        if (dis.readInt() != HEADER_VERSION) {
+            return;
+        }
+
+        // the key the headers were stored under
+        dis.readUTF();
+
+        int count = dis.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = dis.readBoolean() ? dis.readUTF() : null;
+            String value = dis.readBoolean() ? dis.readUTF() : null;
+            cachedHeaderKeys.add(name);
+            cachedHeaders.put(name, value);
+        }
+    }
+
     /**
      * Tries to look a header for the given URI in the cache
      *
@@ -200,38 +245,42 @@ public class HeaderUtils{
 
     private void storeHeadersInCache(String storageKey, List<String> keys, Map<String, String> headers) throws IOException {
         OutputStream os = null;
-        StringBuilder headerBuilder = new StringBuilder();
-        StringBuilder valueBuilder = new StringBuilder();
+        boolean written = false;
         cachedHeaderKeys = new ArrayList<String>();
         cachedHeaders = new HashMap<String, String>();
         try {
             os = ClientCache.getInstance().storeAsset(storageKey);
-            PrintWriter pw = new PrintWriter(new OutputStreamWriter(os));
-            int i = 0;
-            int size = keys.size();
+            DataOutputStream dos = new DataOutputStream(os);
+            dos.writeInt(HEADER_MAGIC);
+            dos.writeInt(HEADER_VERSION);
+            dos.writeUTF(storageKey);
+            dos.writeInt(keys.size());
             for (String key : keys) {
-                cachedHeaders.put(key, headers.get(key));
+                String value = headers.get(key);
+                cachedHeaders.put(key, value);
                 cachedHeaderKeys.add(key);
-                headerBuilder.append(key);
-                valueBuilder.append(headers.get(key));
-                if (i < size - 1) {
-                    headerBuilder.append(headerSep);
-                    valueBuilder.append(headerSep);
+
+                dos.writeBoolean(key != null);
+                if (key != null) {
+                    dos.writeUTF(key);
+                }
+                dos.writeBoolean(value != null);
+                if (value != null) {
+                    dos.writeUTF(value);
                 }
-                i++;
             }
-            pw.println(headerBuilder.toString());
-            //System.err.println(headerBuilder.toString());
-            pw.println(valueBuilder.toString());
-            //System.err.println(valueBuilder.toString());
-            pw.println(storageKey);
-            pw.println();
-            pw.flush();
-            pw.close();
+            dos.flush();
+            written = true;
         } catch (IOException ioex) {
             // TODO Logging
             ioex.printStackTrace();
         } finally {
+            // don't replace the headers with a partial file, whatever
+            // stopped the write
+            if (!written && os instanceof CacheDiskStore.CommitOutputStream) {
+                ((CacheDiskStore.CommitOutputStream)os).abort();
+            }
+
             try {
                 os.close();
             } catch (Exception ex) {
@@ -6,29 +6,54 @@ package org.chefx3d.cache;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import javax.swing.SwingUtilities;
 import org.chefx3d.cache.event.CacheStatusChangeEvent;
 import org.chefx3d.cache.event.CacheStatusListener;
 import org.ietf.uri.URI;
 
 /**
+ * Downloads assets that are currently being served from a proxy, so the
+ * real asset is in the cache the next time it is asked for.
+ * <p>
+ * Downloads run on a pool of threads, and only a few run against any one
+ * host at a time. Scheduling an asset that is already queued or being
+ * downloaded does nothing. The pool size and the per host limit are read
+ * from the chefx3d.cache.downloadThreads and
+ * chefx3d.cache.downloadsPerHost system properties.
  *
  * @author djoyce
  */
 public class ProxiedItemDownloadService {
 
+    /** System property setting the number of download threads */
+    public static final String THREAD_COUNT_PROPERTY =
+        "chefx3d.cache.downloadThreads";
+
+    /** System property setting the downloads allowed per host */
+    public static final String HOST_LIMIT_PROPERTY =
+        "chefx3d.cache.downloadsPerHost";
+
+    /** The default number of download threads */
+    private static final int DEFAULT_THREAD_COUNT = 4;
+
+    /** The default number of downloads allowed per host */
+    private static final int DEFAULT_HOST_LIMIT = 2;
+
     private enum MessageType {
 
         PROXIED, DOWNLOADED, REMOVED
@@ -37,7 +62,17 @@ public class ProxiedItemDownloadService {
     /**
      * Executor for downloading models/icons currently otherwise proxied
      */
-    Executor proxiedItemDownloader = Executors.newFixedThreadPool(1);
+    ThreadPoolExecutor proxiedItemDownloader;
+
+    /** The assets queued or being downloaded, by uri string */
+    private final Set<String> pendingDownloads = new HashSet<String>();
+
+    /** The downloads of each host, guarded by pendingDownloads */
+    private final Map<String, HostQueue> hostQueues =
+        new HashMap<String, HostQueue>();
+
+    /** The number of downloads allowed to run against one host */
+    private int maxDownloadsPerHost;
 
     //BlockingQueue<ProxiedItemDownloaderRunnable> proxiedItemsToDownload = new LinkedBlockingQueue<ProxiedItemDownloaderRunnable>(50);
 
@@ -47,8 +82,20 @@ public class ProxiedItemDownloadService {
     /** Set for storing listeners */
     private final Map<String, Set<Reference<CacheStatusListener>>> cacheStatusListeners = Collections.synchronizedMap(new HashMap<String, Set<Reference<CacheStatusListener>>>());
 
-    /** This is a singleton */
-    private ProxiedItemDownloadService() {
+    /** This is a singleton, package private for the tests */
+    ProxiedItemDownloadService() {
+        int threads = readProperty(THREAD_COUNT_PROPERTY, DEFAULT_THREAD_COUNT);
+        maxDownloadsPerHost =
+            readProperty(HOST_LIMIT_PROPERTY, DEFAULT_HOST_LIMIT);
+
+        proxiedItemDownloader = new ThreadPoolExecutor(
+            threads,
+            threads,
+            30,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new DownloaderThreadFactory());
+        proxiedItemDownloader.allowCoreThreadTimeOut(true);
     }
 
     //---------------------------------------------------------------------
@@ -56,11 +103,154 @@ public class ProxiedItemDownloadService {
     //---------------------------------------------------------------------
 
     public void scheduleProxiedItemForDownload(URL url){
-        proxiedItemDownloader.execute(new ProxiedItemDownloaderRunnable(url.toExternalForm()));
+        scheduleDownload(url.toExternalForm());
     }
 
     public void scheduleProxiedItemForDownload(URI uri){
-        proxiedItemDownloader.execute(new ProxiedItemDownloaderRunnable(uri.toExternalForm()));
+        scheduleDownload(uri.toExternalForm());
+    }
+
+    /**
+     * Set the number of threads downloading assets.
+     *
+     * @param count The number of threads, at least 1
+     */
+    public void setDownloadThreadCount(int count) {
+        count = Math.max(1, count);
+        if (count > proxiedItemDownloader.getMaximumPoolSize()) {
+            proxiedItemDownloader.setMaximumPoolSize(count);
+            proxiedItemDownloader.setCorePoolSize(count);
+        } else {
+            proxiedItemDownloader.setCorePoolSize(count);
+            proxiedItemDownloader.setMaximumPoolSize(count);
+        }
+    }
+
+    /**
+     * Get the number of threads downloading assets.
+     *
+     * @return The number of threads
+     */
+    public int getDownloadThreadCount() {
+        return proxiedItemDownloader.getMaximumPoolSize();
+    }
+
+    /**
+     * Set the number of downloads allowed to run against one host at a
+     * time. Downloads already running are not affected.
+     *
+     * @param count The number of downloads, at least 1
+     */
+    public void setMaxDownloadsPerHost(int count) {
+        synchronized (pendingDownloads) {
+            maxDownloadsPerHost = Math.max(1, count);
+        }
+    }
+
+    /**
+     * Get the number of downloads allowed to run against one host at a
+     * time.
+     *
+     * @return The number of downloads
+     */
+    public int getMaxDownloadsPerHost() {
+        synchronized (pendingDownloads) {
+            return maxDownloadsPerHost;
+        }
+    }
+
+    /**
+     * Queue the download of an asset, unless it is already queued. The
+     * download starts once its host is below the per host limit.
+     *
+     * @param uriString The asset to download
+     */
+    private void scheduleDownload(String uriString) {
+
+        String host;
+        try {
+            host = new URL(uriString).getHost();
+        } catch (MalformedURLException mue) {
+            host = "";
+        }
+
+        synchronized (pendingDownloads) {
+            if (!pendingDownloads.add(uriString)) {
+                return;
+            }
+
+            HostQueue queue = hostQueues.get(host);
+            if (queue == null) {
+                queue = new HostQueue();
+                hostQueues.put(host, queue);
+            }
+
+            DownloadTask task = new DownloadTask(uriString, host);
+            if (queue.active < maxDownloadsPerHost) {
+                queue.active++;
+                proxiedItemDownloader.execute(task);
+            } else {
+                queue.waiting.add(task);
+            }
+        }
+    }
+
+    /**
+     * Release a finished download's place, starting the next download
+     * waiting on the same host.
+     *
+     * @param task The finished download
+     */
+    private void downloadFinished(DownloadTask task) {
+
+        synchronized (pendingDownloads) {
+            pendingDownloads.remove(task.uriString);
+
+            HostQueue queue = hostQueues.get(task.host);
+            if (queue.active <= maxDownloadsPerHost &&
+                !queue.waiting.isEmpty()) {
+
+                proxiedItemDownloader.execute(queue.waiting.removeFirst());
+
+            } else {
+                queue.active--;
+                if (queue.active == 0 && queue.waiting.isEmpty()) {
+                    hostQueues.remove(task.host);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the runnable that downloads an asset.
+     *
+     * @param uriString The asset to download
+     * @return The downloader
+     */
+    Runnable createDownloader(String uriString) {
+        return new ProxiedItemDownloaderRunnable(uriString);
+    }
+
+    /**
+     * Read a positive integer system property.
+     *
+     * @param name The name of the property
+     * @param def The value to use if the property is not set
+     * @return The value
+     */
+    private static int readProperty(String name, int def) {
+        int value = def;
+        try {
+            String prop = System.getProperty(name);
+            if (prop != null) {
+                value = Math.max(1, Integer.parseInt(prop));
+            }
+        } catch (NumberFormatException nfe) {
+            // keep the default
+        } catch (SecurityException se) {
+            // keep the default
+        }
+        return value;
     }
 
     /**
@@ -109,6 +299,64 @@ public class ProxiedItemDownloadService {
         SwingUtilities.invokeLater(new FireStatusChangeEventsRunnable(cacheStatusChangeEvents));
     }
 
+    //---------------------------------------------------------------------
+    // Download scheduling
+    //---------------------------------------------------------------------
+
+    /**
+     * The downloads of one host.
+     */
+    private static class HostQueue {
+
+        /** The number of downloads running or queued on the executor */
+        int active;
+
+        /** Downloads waiting for the host to drop below the limit */
+        LinkedList<DownloadTask> waiting = new LinkedList<DownloadTask>();
+    }
+
+    /**
+     * Downloads an asset and releases its place when done.
+     */
+    private class DownloadTask implements Runnable {
+
+        /** The asset to download */
+        final String uriString;
+
+        /** The host the asset is on */
+        final String host;
+
+        DownloadTask(String uriString, String host) {
+            this.uriString = uriString;
+            this.host = host;
+        }
+
+        public void run() {
+            try {
+                createDownloader(uriString).run();
+            } finally {
+                downloadFinished(this);
+            }
+        }
+    }
+
+    /**
+     * Creates daemon download threads, so pending downloads do not keep
+     * the application alive.
+     */
+    private static class DownloaderThreadFactory implements ThreadFactory {
+
+        /** The number of threads created */
+        private int count;
+
+        public synchronized Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ProxiedItemDownloader-" + (++count));
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+
     //---------------------------------------------------------------------
     // Runnable Utility class for firing events
     //---------------------------------------------------------------------
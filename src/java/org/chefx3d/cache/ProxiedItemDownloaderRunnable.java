@@ -17,6 +17,11 @@ import sun.net.www.protocol.http.HttpURLConnection;
  * This runnable downloads a currently proxied asset, and stores it and its
  * headers in the client cache.
  *
+ * An asset that is already cached is left alone, unless the cache is
+ * checking freshness. Then it is revalidated with a conditional request
+ * using the ETag and Last-Modified time stored with it, and only
+ * downloaded again if the server has a newer copy.
+ *
  * @author djoyce
  */
 class ProxiedItemDownloaderRunnable implements Runnable {
@@ -38,32 +43,69 @@ class ProxiedItemDownloaderRunnable implements Runnable {
      * Starts the runnable to download the asset
      *
      * TODO Support proxy settings.
-     * TODO Support cache headers.
      */
     public void run() {
         // Always catch all exceptions/errors in the runnable, else the
         // running thread will get stuck, potentially jamming the threadpool.
         try {
-            if (!clientCache.doesAssetExist(uriString)) {
-                HttpURLConnection httpConnection = new HttpURLConnection(new URL(uriString), null);
-                InputStream is = httpConnection.getInputStream();
+            boolean cached = clientCache.doesAssetExist(uriString);
+            if (cached && !clientCache.isCheckFreshness()) {
+                return;
+            }
+
+            HttpURLConnection httpConnection = new HttpURLConnection(new URL(uriString), null);
+            if (cached) {
+                addValidators(httpConnection);
+            }
+
+            int responseCode = httpConnection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                // HTTP_NOT_MODIFIED leaves the cached copy in place
+                httpConnection.disconnect();
+                return;
+            }
+
+            InputStream is = httpConnection.getInputStream();
+            try {
                 clientCache.storeAsset(uriString, is);
-                storeHeaders(httpConnection);
+            } finally {
                 is.close();
             }
+            storeHeaders(httpConnection);
+            clientCache.setValidators(
+                uriString,
+                httpConnection.getHeaderField("ETag"),
+                httpConnection.getLastModified());
         } catch (Exception ex) {
             // TODO logging
         }
     }
 
+    /**
+     * Make the request conditional on the cached copy being out of date.
+     *
+     * @param httpConnection The connection to set up
+     */
+    private void addValidators(HttpURLConnection httpConnection) {
+        String etag = clientCache.getETag(uriString);
+        if (etag != null) {
+            httpConnection.setRequestProperty("If-None-Match", etag);
+        }
+
+        long lastModified = clientCache.getLastModified(uriString);
+        if (lastModified > 0) {
+            httpConnection.setIfModifiedSince(lastModified);
+        }
+    }
+
     private void storeHeaders(HttpURLConnection httpConnection) {
-        Map<String, List<Object>> rawHeaders = httpConnection.getHeaderFields();
+        Map<String, List<String>> rawHeaders = httpConnection.getHeaderFields();
         Map<String, String> headers = new HashMap<String, String>();
         List<String> keys = new ArrayList<String>();
         for (int i = 0; i < rawHeaders.size(); i++) {
             keys.add(httpConnection.getHeaderFieldKey(i));
             //System.out.println("Added Header "+httpConnection.getHeaderFieldKey(i));
-            List<Object> rawHeaderValues = rawHeaders.get(httpConnection.getHeaderFieldKey(i));
+            List<String> rawHeaderValues = rawHeaders.get(httpConnection.getHeaderFieldKey(i));
             String headerValue = "";
             for (int j = 0; j < rawHeaderValues.size(); j++) {
                 headerValue += rawHeaderValues.get(j);
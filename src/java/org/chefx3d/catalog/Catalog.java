@@ -69,6 +69,9 @@ public class Catalog {
     /** The tool groups mapped by name */
     private HashMap<String, ToolGroup> toolGroupsByID;
 
+    /** Every tool and group in the catalog by ID and name */
+    private CatalogIndex index;
+
     /** The unique catalog name */
     private final String name;
 
@@ -99,6 +102,7 @@ public class Catalog {
 
         tools = new ArrayList<ToolGroup>();
         toolGroupsByID = new HashMap<String, ToolGroup>();
+        index = new CatalogIndex();
 
         errorReporter = DefaultErrorReporter.getDefaultReporter();
     }
@@ -186,6 +190,7 @@ public class Catalog {
         } else {
             tools.add(group);
             toolGroupsByID.put(group.getGroupID(), group);
+            index.addGroup(null, group);
             fireToolGroupAdded(name, group);
         }
     }
@@ -207,6 +212,7 @@ public class Catalog {
         } else {
             tools.remove(group);
             toolGroupsByID.remove(groupID);
+            index.removeGroup(null, group);
 
             fireToolGroupRemoved(name, group);
         }
@@ -245,6 +251,7 @@ public class Catalog {
                 errorReporter.errorReport(msg, null);
             } else {
                 toolGroupsByID.remove(groupID);
+                index.removeGroup(null, grp);
                 removed.add(grp);
             }
         }
@@ -309,95 +316,63 @@ public class Catalog {
     }
 
     /**
-     * Search all of the available catalogs to find the named tool. Assumes
-     * that tools are uniquely IDed across all catalogs. If they are not, then
-     * the first tool found will be returned. The definition of first is
-     * undefined and may return different values each time.
+     * Search the catalog to find the identified tool. Assumes that tools
+     * are uniquely IDed across the catalog. If they are not, then the first
+     * tool found will be returned. The definition of first is undefined and
+     * may return different values each time.
      * <p>
-     * <b>Warning:</b> Implementation could be extremely slow depending on
-     * the nature of the catalogs created and needing to be searched.
+     * Tools are looked up in an index kept up to date as the catalog
+     * changes, so the catalog is not searched.
      *
      * @return The tool or null if not found
      */
     public Tool findTool(String toolID) {
-        List<ToolGroup> groups = getAllGroupsFlattened();
-        for(int j = 0; j < groups.size(); j++) {
-            ToolGroup tg = groups.get(j);
-            Tool tool = tg.getTool(toolID);
-
-            if(tool != null)
-                return tool;
-        }
-
-        return null;
+        return index.getTool(toolID);
     }
     
     /**
-     * Search all of the available catalogs to find the named tool. Assumes
-     * that tools are uniquely IDed across all catalogs. If they are not, then
-     * the first tool found will be returned. The definition of first is
-     * undefined and may return different values each time.
+     * Search the catalog to find the named tool. Assumes that tools are
+     * uniquely named across the catalog. If they are not, then the first
+     * tool found will be returned. The definition of first is undefined and
+     * may return different values each time.
      * <p>
-     * <b>Warning:</b> Implementation could be extremely slow depending on
-     * the nature of the catalogs created and needing to be searched.
+     * Tools are looked up in an index kept up to date as the catalog
+     * changes, so the catalog is not searched.
      *
      * @return The tool or null if not found
      */
     public Tool findToolByName(String toolName) {
-        List<ToolGroup> groups = getAllGroupsFlattened();
-        for(int j = 0; j < groups.size(); j++) {
-            ToolGroup tg = groups.get(j);
-            Tool tool = tg.getToolByName(toolName);
-
-            if(tool != null)
-                return tool;
-        }
-
-        return null;
+        return index.getToolByName(toolName);
     }
     
     /**
-     * Search all of the available catalogs to find the named tool. Assumes
-     * that tools are uniquely named across all catalogs. If they are not, then
-     * the first tool found will be returned. The definition of first is
-     * undefined and may return different values each time.
+     * Search the catalog to find the identified tool group, at any depth.
+     * Assumes that groups are uniquely IDed across the catalog. If they are
+     * not, then the first group found will be returned. The definition of
+     * first is undefined and may return different values each time.
      * <p>
-     * <b>Warning:</b> Implementation could be extremely slow depending on
-     * the nature of the catalogs created and needing to be searched.
+     * Groups are looked up in an index kept up to date as the catalog
+     * changes, so the catalog is not searched.
      *
-     * @return The tool or null if not found
+     * @return The group or null if not found
      */
     public ToolGroup findToolGroup(String groupID) {
-        List<ToolGroup> groups = getAllGroupsFlattened();
-        for(int j = 0; j < groups.size(); j++) {
-            ToolGroup tg = groups.get(j);
-            if(tg.getGroupID().equals(groupID))
-                return tg;
-        }
-
-        return null;
+        return index.getToolGroup(groupID);
     }
 
     /**
-     * Search all of the available catalogs to find the named tool. Assumes
-     * that tools are uniquely named across all catalogs. If they are not, then
-     * the first tool found will be returned. The definition of first is
-     * undefined and may return different values each time.
+     * Search the catalog to find the named tool group, at any depth.
+     * Assumes that groups are uniquely named across the catalog. If they
+     * are not, then the first group found will be returned. The definition
+     * of first is undefined and may return different values each time.
      * <p>
-     * <b>Warning:</b> Implementation could be extremely slow depending on
-     * the nature of the catalogs created and needing to be searched.
+     * Groups are looked up in an index kept up to date as the catalog
+     * changes, so the catalog is not searched.
      *
-     * @return The tool or null if not found
+     * @return The group or null if not found
      */
     public ToolGroup findToolGroupByName(String groupName) {
-        List<ToolGroup> groups = getAllGroupsFlattened();
-        for(int j = 0; j < groups.size(); j++) {
-            ToolGroup tg = groups.get(j);
-            if(tg.getName().equals(groupName))
-                return tg;
-        }
-
-        return null;
+        return index.getToolGroupByName(groupName);
     } 
     
     /**
@@ -0,0 +1,410 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.catalog;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+// Local imports
+import org.chefx3d.tool.ToolGroup;
+import org.chefx3d.tool.ToolGroupChild;
+import org.chefx3d.tool.ToolGroupEvent;
+import org.chefx3d.tool.ToolGroupListener;
+
+/**
+ * Index of the tools and tool groups of one or more catalogs by ID and by
+ * name.
+ * <p>
+ * Groups are added with addGroup(), or through the CatalogListener
+ * callbacks when the index listens to a catalog. The index then listens
+ * to every group below them and follows tools and groups as they are
+ * added, replaced and removed, so lookups never walk the catalog.
+ * <p>
+ * The same ID or name may be held more than once, by different groups or
+ * catalogs. A lookup returns the one indexed first.
+ *
+ * @author Alan Hudson
+ * @version $Revision 1.1 $
+ */
+class CatalogIndex implements CatalogListener, ToolGroupListener {
+
+    /**
+     * A tool or group and the group holding it.
+     */
+    private static class Entry {
+
+        /** The group holding the item, null for a catalog's top level */
+        final ToolGroup owner;
+
+        /** The tool or group */
+        final ToolGroupChild item;
+
+        Entry(ToolGroup owner, ToolGroupChild item) {
+            this.owner = owner;
+            this.item = item;
+        }
+    }
+
+    /** Tools by ID */
+    private HashMap<String, List<Entry>> toolsByID;
+
+    /** Tools by name */
+    private HashMap<String, List<Entry>> toolsByName;
+
+    /** Groups by ID */
+    private HashMap<String, List<Entry>> groupsByID;
+
+    /** Groups by name */
+    private HashMap<String, List<Entry>> groupsByName;
+
+    /** The number of times each group listened to is indexed */
+    private IdentityHashMap<ToolGroup, int[]> groupCounts;
+
+    /**
+     * Construct an empty index.
+     */
+    CatalogIndex() {
+        toolsByID = new HashMap<String, List<Entry>>();
+        toolsByName = new HashMap<String, List<Entry>>();
+        groupsByID = new HashMap<String, List<Entry>>();
+        groupsByName = new HashMap<String, List<Entry>>();
+        groupCounts = new IdentityHashMap<ToolGroup, int[]>();
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by CatalogListener
+    //----------------------------------------------------------
+
+    /**
+     * A tool group has been added to a catalog.
+     *
+     * @param name The catalog name
+     * @param group The group added
+     */
+    public void toolGroupAdded(String name, ToolGroup group) {
+        addGroup(null, group);
+    }
+
+    /**
+     * Tool groups have been added to a catalog.
+     *
+     * @param name The catalog name
+     * @param groups The groups added
+     */
+    public void toolGroupsAdded(String name, List<ToolGroup> groups) {
+        for(int i = 0; i < groups.size(); i++)
+            addGroup(null, groups.get(i));
+    }
+
+    /**
+     * A tool group has been removed from a catalog.
+     *
+     * @param name The catalog name
+     * @param group The group removed
+     */
+    public void toolGroupRemoved(String name, ToolGroup group) {
+        removeGroup(null, group);
+    }
+
+    /**
+     * Tool groups have been removed from a catalog.
+     *
+     * @param name The catalog name
+     * @param groups The groups removed
+     */
+    public void toolGroupsRemoved(String name, List<ToolGroup> groups) {
+        for(int i = 0; i < groups.size(); i++)
+            removeGroup(null, groups.get(i));
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by ToolGroupListener
+    //----------------------------------------------------------
+
+    /**
+     * A tool has been added to a group.
+     *
+     * @param evt The event that caused this method to be called
+     */
+    public synchronized void toolAdded(ToolGroupEvent evt) {
+        ToolGroup owner = (ToolGroup)evt.getSource();
+        addTool(owner, evt.getChild());
+    }
+
+    /**
+     * A tool group has been added to a group.
+     *
+     * @param evt The event that caused this method to be called
+     */
+    public void toolGroupAdded(ToolGroupEvent evt) {
+        ToolGroup owner = (ToolGroup)evt.getSource();
+        addGroup(owner, (ToolGroup)evt.getChild());
+    }
+
+    /**
+     * A tool has been removed from a group.
+     *
+     * @param evt The event that caused this method to be called
+     */
+    public synchronized void toolRemoved(ToolGroupEvent evt) {
+        ToolGroup owner = (ToolGroup)evt.getSource();
+        ToolGroupChild tool = evt.getChild();
+
+        remove(toolsByID, tool.getToolID(), owner, tool);
+        remove(toolsByName, tool.getName(), owner, tool);
+    }
+
+    /**
+     * A tool group has been removed from a group.
+     *
+     * @param evt The event that caused this method to be called
+     */
+    public void toolGroupRemoved(ToolGroupEvent evt) {
+        ToolGroup owner = (ToolGroup)evt.getSource();
+        removeGroup(owner, (ToolGroup)evt.getChild());
+    }
+
+    /**
+     * A tool has been replaced by another with the same ID.
+     *
+     * @param evt The event that caused this method to be called
+     */
+    public synchronized void toolUpdated(ToolGroupEvent evt) {
+        ToolGroup owner = (ToolGroup)evt.getSource();
+        ToolGroupChild tool = evt.getChild();
+
+        Entry old = find(toolsByID, tool.getToolID(), owner);
+        if (old != null) {
+            remove(toolsByID, tool.getToolID(), owner, old.item);
+            remove(toolsByName, old.item.getName(), owner, old.item);
+        }
+
+        addTool(owner, tool);
+    }
+
+    /**
+     * A tool group has been replaced by another with the same ID.
+     *
+     * @param evt The event that caused this method to be called
+     */
+    public synchronized void toolGroupUpdated(ToolGroupEvent evt) {
+        ToolGroup owner = (ToolGroup)evt.getSource();
+        ToolGroup group = (ToolGroup)evt.getChild();
+
+        Entry old = find(groupsByID, group.getGroupID(), owner);
+        if (old != null) {
+            removeGroup(owner, (ToolGroup)old.item);
+        }
+
+        addGroup(owner, group);
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Index a group, its tools and all the groups below it.
+     *
+     * @param owner The group holding it, null for a catalog's top level
+     * @param group The group to index
+     */
+    synchronized void addGroup(ToolGroup owner, ToolGroup group) {
+
+        add(groupsByID, group.getGroupID(), owner, group);
+        add(groupsByName, group.getName(), owner, group);
+
+        int[] count = groupCounts.get(group);
+        if (count == null) {
+            groupCounts.put(group, new int[] {1});
+            group.addToolGroupListener(this);
+        } else {
+            count[0]++;
+        }
+
+        List<ToolGroupChild> tools = group.getTools();
+        for(int i = 0; i < tools.size(); i++)
+            addTool(group, tools.get(i));
+
+        List<ToolGroup> groups = group.getToolGroups();
+        for(int i = 0; i < groups.size(); i++)
+            addGroup(group, groups.get(i));
+    }
+
+    /**
+     * Remove a group, its tools and all the groups below it.
+     *
+     * @param owner The group holding it, null for a catalog's top level
+     * @param group The group to remove
+     */
+    synchronized void removeGroup(ToolGroup owner, ToolGroup group) {
+
+        if (!remove(groupsByID, group.getGroupID(), owner, group))
+            return;
+
+        remove(groupsByName, group.getName(), owner, group);
+
+        int[] count = groupCounts.get(group);
+        if (count != null && --count[0] == 0) {
+            groupCounts.remove(group);
+            group.removeToolGroupListener(this);
+        }
+
+        List<ToolGroupChild> tools = group.getTools();
+        for(int i = 0; i < tools.size(); i++) {
+            ToolGroupChild tool = tools.get(i);
+            remove(toolsByID, tool.getToolID(), group, tool);
+            remove(toolsByName, tool.getName(), group, tool);
+        }
+
+        List<ToolGroup> groups = group.getToolGroups();
+        for(int i = 0; i < groups.size(); i++)
+            removeGroup(group, groups.get(i));
+    }
+
+    /**
+     * Get the first tool indexed with an ID.
+     *
+     * @param toolID The ID to look for
+     * @return The tool, or null if there is none
+     */
+    synchronized ToolGroupChild getTool(String toolID) {
+        return first(toolsByID, toolID);
+    }
+
+    /**
+     * Get the first tool indexed with a name.
+     *
+     * @param toolName The name to look for
+     * @return The tool, or null if there is none
+     */
+    synchronized ToolGroupChild getToolByName(String toolName) {
+        return first(toolsByName, toolName);
+    }
+
+    /**
+     * Get the first group indexed with an ID.
+     *
+     * @param groupID The ID to look for
+     * @return The group, or null if there is none
+     */
+    synchronized ToolGroup getToolGroup(String groupID) {
+        return (ToolGroup)first(groupsByID, groupID);
+    }
+
+    /**
+     * Get the first group indexed with a name.
+     *
+     * @param groupName The name to look for
+     * @return The group, or null if there is none
+     */
+    synchronized ToolGroup getToolGroupByName(String groupName) {
+        return (ToolGroup)first(groupsByName, groupName);
+    }
+
+    /**
+     * Index a tool.
+     *
+     * @param owner The group holding the tool
+     * @param tool The tool
+     */
+    private void addTool(ToolGroup owner, ToolGroupChild tool) {
+        add(toolsByID, tool.getToolID(), owner, tool);
+        add(toolsByName, tool.getName(), owner, tool);
+    }
+
+    /**
+     * Add an entry to a map.
+     */
+    private static void add(
+        HashMap<String, List<Entry>> map,
+        String key,
+        ToolGroup owner,
+        ToolGroupChild item) {
+
+        List<Entry> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<Entry>(1);
+            map.put(key, list);
+        }
+        list.add(new Entry(owner, item));
+    }
+
+    /**
+     * Remove an entry from a map.
+     *
+     * @return true if the entry was found
+     */
+    private static boolean remove(
+        HashMap<String, List<Entry>> map,
+        String key,
+        ToolGroup owner,
+        ToolGroupChild item) {
+
+        List<Entry> list = map.get(key);
+        if (list == null)
+            return false;
+
+        for(int i = 0; i < list.size(); i++) {
+            Entry entry = list.get(i);
+            if (entry.owner == owner && entry.item == item) {
+                list.remove(i);
+                if (list.isEmpty())
+                    map.remove(key);
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Find the entry of a map held by a group.
+     *
+     * @return The entry, or null if there is none
+     */
+    private static Entry find(
+        HashMap<String, List<Entry>> map,
+        String key,
+        ToolGroup owner) {
+
+        List<Entry> list = map.get(key);
+        if (list == null)
+            return null;
+
+        for(int i = 0; i < list.size(); i++) {
+            Entry entry = list.get(i);
+            if (entry.owner == owner)
+                return entry;
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the first item of a map with a key.
+     *
+     * @return The item, or null if there is none
+     */
+    private static ToolGroupChild first(
+        HashMap<String, List<Entry>> map,
+        String key) {
+
+        List<Entry> list = map.get(key);
+        return (list == null) ? null : list.get(0).item;
+    }
+}
@@ -47,112 +47,121 @@ public class DefaultCatalogManager extends CatalogManager {
         return catalogManager;
     }
 
+    /** Every tool and group in every catalog by ID and name */
+    private CatalogIndex index;
+
+    /**
+     * Construct a manager with no catalogs. Use getCatalogManager() for
+     * the shared instance.
+     */
+    public DefaultCatalogManager() {
+        index = new CatalogIndex();
+    }
+
     //----------------------------------------------------------
-    // Local methods
+    // Methods defined by CatalogManager
     //----------------------------------------------------------
 
+    /**
+     * Add a catalog to the system. If it is already added, this will silently
+     * ignore the request.
+     *
+     * @param catalog The catalog to add
+     */
+    public void addCatalog(Catalog catalog) {
+
+        if(catalogsByNameMap.containsKey(catalog.getName()))
+            return;
+
+        List<ToolGroup> groups = catalog.getToolGroups();
+        for(int i = 0; i < groups.size(); i++)
+            index.addGroup(null, groups.get(i));
+
+        catalog.addCatalogListener(index);
+
+        super.addCatalog(catalog);
+    }
+
+    /**
+     * Remove a catalog from the system. If it is not currently registered
+     * silently ignore the request.
+     *
+     * @param name The catalog name to remove
+     */
+    public void removeCatalog(String name) {
+
+        Catalog catalog = catalogsByNameMap.get(name);
+        if(catalog == null)
+            return;
+
+        catalog.removeCatalogListener(index);
+
+        List<ToolGroup> groups = catalog.getToolGroups();
+        for(int i = 0; i < groups.size(); i++)
+            index.removeGroup(null, groups.get(i));
+
+        super.removeCatalog(name);
+    }
+
     /**
      * Search all of the available catalogs to find the named tool. Assumes
      * that tools are uniquely IDed across all catalogs. If they are not, then
      * the first tool found will be returned. The definition of first is
      * undefined and may return different values each time.
      * <p>
-     * <b>Warning:</b> Implementation could be extremely slow depending on
-     * the nature of the catalogs created and needing to be searched.
+     * Tools are looked up in an index kept up to date as the catalogs
+     * change, so the catalogs are not searched.
      *
      * @return The tool or null if not found
      */
     public Tool findTool(String toolID) {
-        for(int i = 0; i < catalogs.size(); i++) {
-            Catalog cat = catalogs.get(i);
-            List<ToolGroup> groups = cat.getAllGroupsFlattened();
-            for(int j = 0; j < groups.size(); j++) {
-                ToolGroup tg = groups.get(j);
-                Tool tool = tg.getTool(toolID);
-
-                if(tool != null)
-                    return tool;
-            }
-        }
-
-        return null;
+        return index.getTool(toolID);
     }
-    
+
     /**
      * Search all of the available catalogs to find the named tool. Assumes
      * that tools are uniquely IDed across all catalogs. If they are not, then
      * the first tool found will be returned. The definition of first is
      * undefined and may return different values each time.
      * <p>
-     * <b>Warning:</b> Implementation could be extremely slow depending on
-     * the nature of the catalogs created and needing to be searched.
+     * Tools are looked up in an index kept up to date as the catalogs
+     * change, so the catalogs are not searched.
      *
      * @return The tool or null if not found
      */
     public Tool findToolByName(String toolName) {
-        for(int i = 0; i < catalogs.size(); i++) {
-            Catalog cat = catalogs.get(i);
-            List<ToolGroup> groups = cat.getAllGroupsFlattened();
-            for(int j = 0; j < groups.size(); j++) {
-                ToolGroup tg = groups.get(j);
-                Tool tool = tg.getToolByName(toolName);
-
-                if(tool != null)
-                    return tool;
-            }
-        }
-
-        return null;
+        return index.getToolByName(toolName);
     }
-    
+
     /**
-     * Search all of the available catalogs to find the named tool. Assumes
-     * that tools are uniquely named across all catalogs. If they are not, then
-     * the first tool found will be returned. The definition of first is
-     * undefined and may return different values each time.
+     * Search all of the available catalogs to find the identified tool
+     * group. Assumes that groups are uniquely IDed across all catalogs. If
+     * they are not, then the first group found will be returned. The
+     * definition of first is undefined and may return different values each
+     * time.
      * <p>
-     * <b>Warning:</b> Implementation could be extremely slow depending on
-     * the nature of the catalogs created and needing to be searched.
+     * Groups are looked up in an index kept up to date as the catalogs
+     * change, so the catalogs are not searched.
      *
-     * @return The tool or null if not found
+     * @return The group or null if not found
      */
     public ToolGroup findToolGroup(String groupID) {
-        for(int i = 0; i < catalogs.size(); i++) {
-            Catalog cat = catalogs.get(i);
-            List<ToolGroup> groups = cat.getAllGroupsFlattened();
-            for(int j = 0; j < groups.size(); j++) {
-                ToolGroup tg = groups.get(j);
-                if(tg.getGroupID().equals(groupID))
-                    return tg;
-            }
-        }
-
-        return null;
+        return index.getToolGroup(groupID);
     }
 
     /**
-     * Search all of the available catalogs to find the named tool. Assumes
-     * that tools are uniquely named across all catalogs. If they are not, then
-     * the first tool found will be returned. The definition of first is
-     * undefined and may return different values each time.
+     * Search all of the available catalogs to find the named tool group.
+     * Assumes that groups are uniquely named across all catalogs. If they
+     * are not, then the first group found will be returned. The definition
+     * of first is undefined and may return different values each time.
      * <p>
-     * <b>Warning:</b> Implementation could be extremely slow depending on
-     * the nature of the catalogs created and needing to be searched.
+     * Groups are looked up in an index kept up to date as the catalogs
+     * change, so the catalogs are not searched.
      *
-     * @return The tool or null if not found
+     * @return The group or null if not found
      */
     public ToolGroup findToolGroupByName(String groupName) {
-        for(int i = 0; i < catalogs.size(); i++) {
-            Catalog cat = catalogs.get(i);
-            List<ToolGroup> groups = cat.getAllGroupsFlattened();
-            for(int j = 0; j < groups.size(); j++) {
-                ToolGroup tg = groups.get(j);
-                if(tg.getName().equals(groupName))
-                    return tg;
-            }
-        }
-
-        return null;
+        return index.getToolGroupByName(groupName);
     }
 
 }
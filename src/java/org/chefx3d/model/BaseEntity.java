@@ -107,16 +107,16 @@ public abstract class BaseEntity implements Entity, Cloneable {
         errorReporter = DefaultErrorReporter.getDefaultReporter();
 
         // set the properties
-        properties = new HashMap<String, Map<String, Object>>();
+        properties = new PropertySheetMap();
         params = new HashMap<String, Object>();
 
         if (toolProperties == null)
             return;
 
-        // clone the tool parameters
-        params = PropertyUtilities.clone(toolProperties.get(Entity.ENTITY_PARAMS));
+        // share the tool parameters, copying on write
+        params = OverlayPropertySheet.copySheet(toolProperties.get(Entity.ENTITY_PARAMS));
 
-        // clone the other properties
+        // share the other properties, copying on write
         Iterator<Map.Entry<String, Map<String, Object>>> index =
             toolProperties.entrySet().iterator();
 
@@ -136,7 +136,7 @@ public abstract class BaseEntity implements Entity, Cloneable {
             if (sheetProperties == null) {
                 clonedProperties = new HashMap<String, Object>();
             } else {
-                clonedProperties = PropertyUtilities.clone(sheetProperties);
+                clonedProperties = OverlayPropertySheet.copySheet(sheetProperties);
             }
 
             properties.put(sheetName, clonedProperties);
@@ -166,7 +166,7 @@ public abstract class BaseEntity implements Entity, Cloneable {
 
         this(entityID, propertySheetName, toolProperties);
 
-        params = PropertyUtilities.clone(toolParams);
+        params = OverlayPropertySheet.copySheet(toolParams);
         params.put(Entity.SELECTED_PARAM, false);
 
     }
@@ -735,6 +735,26 @@ public abstract class BaseEntity implements Entity, Cloneable {
         }
     }
 
+    /**
+     * DO NOT USE - Use Commands
+     * Set a specific property by key.
+     *
+     * @param key The sheet and name of the property to set
+     * @param propValue The property value
+     * @param ongoing Is this an ongoing change or the final value?
+     */
+    public void setProperty(PropertyKey key, Object propValue, boolean ongoing) {
+
+        Map<String, Object> sheetProperties = getPropertySheet(key);
+
+        if (sheetProperties != null) {
+
+            sheetProperties.put(key.getName(), propValue);
+
+            propertyListenerHandler.propertyUpdated(entityID, key, ongoing);
+        }
+    }
+
     /**
      * Set multiple properties.
      *
@@ -774,6 +794,24 @@ public abstract class BaseEntity implements Entity, Cloneable {
 
     }
 
+    /**
+     * Get a specific property by key.
+     *
+     * @param key The sheet and name of the property
+     * @return The property value
+     */
+    public Object getProperty(PropertyKey key) {
+
+        Map<String, Object> sheetProperties = getPropertySheet(key);
+
+        if (sheetProperties == null) {
+            return null;
+        }
+
+        return sheetProperties.get(key.getName());
+
+    }
+
     /**
      * Get all the properties for a sheet.  If the property sheet does not
      * exist then this will return null.
@@ -949,6 +987,21 @@ public abstract class BaseEntity implements Entity, Cloneable {
         properties.remove(propSheet);
     }
 
+    /**
+     * Get the sheet holding a keyed property, using the sheet ID of the
+     * key when the sheets are indexed.
+     *
+     * @param key The property key
+     * @return The sheet, or null if it does not exist
+     */
+    protected Map<String, Object> getPropertySheet(PropertyKey key) {
+
+        if (properties instanceof PropertySheetMap)
+            return ((PropertySheetMap)properties).getSheet(key.getSheetID());
+
+        return properties.get(key.getSheet());
+    }
+
     //
     // helper methods to access properties
     //
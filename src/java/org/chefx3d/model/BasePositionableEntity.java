@@ -30,6 +30,11 @@ public abstract class BasePositionableEntity extends BaseEntity implements
 
     protected String positionPropertySheet;
 
+    /** The keys of the transform properties in the position sheet */
+    protected PropertyKey positionKey;
+    protected PropertyKey rotationKey;
+    protected PropertyKey scaleKey;
+
     /** Last known good position */
     protected double[] fixedPosition = new double[3];
 
@@ -39,6 +44,9 @@ public abstract class BasePositionableEntity extends BaseEntity implements
     /** Last known good scale */
     protected float[] fixedScale = new float[3];
 
+    /** The position sheet when it is backed by the TransformStore */
+    private TransformPropertySheet transformSheet;
+
     /**
      * Construct with default position and param sheet names.
      *
@@ -94,6 +102,12 @@ public abstract class BasePositionableEntity extends BaseEntity implements
             properties.get(positionPropertySheet).remove(SCALE_PROP);
         }
         this.positionPropertySheet = positionPropertySheet;
+
+        positionKey = PropertyKey.get(positionPropertySheet, POSITION_PROP);
+        rotationKey = PropertyKey.get(positionPropertySheet, ROTATION_PROP);
+        scaleKey = PropertyKey.get(positionPropertySheet, SCALE_PROP);
+
+        packTransform();
     }
 
     /**
@@ -125,6 +139,11 @@ public abstract class BasePositionableEntity extends BaseEntity implements
         }
         this.positionPropertySheet = positionPropertySheet;
 
+        positionKey = PropertyKey.get(positionPropertySheet, POSITION_PROP);
+        rotationKey = PropertyKey.get(positionPropertySheet, ROTATION_PROP);
+        scaleKey = PropertyKey.get(positionPropertySheet, SCALE_PROP);
+
+        packTransform();
     }
 
     /**
@@ -157,8 +176,16 @@ public abstract class BasePositionableEntity extends BaseEntity implements
      */
     public void getPosition(double[] pos) {
 
-        double[] currentPos = (double[]) getProperty(positionPropertySheet,
-                POSITION_PROP);
+        if (transformSheet != null) {
+            if (!transformSheet.getPosition(pos)) {
+                pos[0] = 0;
+                pos[1] = 0;
+                pos[2] = 0;
+            }
+            return;
+        }
+
+        double[] currentPos = (double[]) getProperty(positionKey);
 
         if (currentPos == null) {
             pos[0] = 0;
@@ -181,12 +208,19 @@ public abstract class BasePositionableEntity extends BaseEntity implements
      *            Is this an ongoing change or the final value?
      */
     public void setPosition(double[] pos, boolean ongoing) {
+
+        if (transformSheet != null) {
+            transformSheet.setPosition(pos);
+            propertyListenerHandler.propertyUpdated(entityID, positionKey, ongoing);
+            return;
+        }
+
         double[] currentPos = new double[3];
         currentPos[0] = pos[0];
         currentPos[1] = pos[1];
         currentPos[2] = pos[2];
 
-        setProperty(positionPropertySheet, POSITION_PROP, currentPos, ongoing);
+        setProperty(positionKey, currentPos, ongoing);
 
     }
 
@@ -198,8 +232,17 @@ public abstract class BasePositionableEntity extends BaseEntity implements
      */
     public void getRotation(float[] rot) {
 
-        float[] currentRot = (float[]) getProperty(positionPropertySheet,
-                ROTATION_PROP);
+        if (transformSheet != null) {
+            if (!transformSheet.getRotation(rot)) {
+                rot[0] = 0;
+                rot[1] = 0;
+                rot[2] = 1;
+                rot[3] = 0;
+            }
+            return;
+        }
+
+        float[] currentRot = (float[]) getProperty(rotationKey);
 
         if (currentRot == null) {
             rot[0] = 0;
@@ -225,13 +268,19 @@ public abstract class BasePositionableEntity extends BaseEntity implements
      */
     public void setRotation(float[] rot, boolean ongoing) {
 
+        if (transformSheet != null) {
+            transformSheet.setRotation(rot);
+            propertyListenerHandler.propertyUpdated(entityID, rotationKey, ongoing);
+            return;
+        }
+
         float[] currentRot = new float[4];
         currentRot[0] = rot[0];
         currentRot[1] = rot[1];
         currentRot[2] = rot[2];
         currentRot[3] = rot[3];
 
-        setProperty(positionPropertySheet, ROTATION_PROP, currentRot, ongoing);
+        setProperty(rotationKey, currentRot, ongoing);
 
     }
 
@@ -270,9 +319,15 @@ public abstract class BasePositionableEntity extends BaseEntity implements
 
         if (isFixedSize()) {
             currentScale = (float[]) params.get(SCALE_PROP);
+        } else if (transformSheet != null) {
+            if (!transformSheet.getScale(scale)) {
+                scale[0] = 1;
+                scale[1] = 1;
+                scale[2] = 1;
+            }
+            return;
         } else {
-            currentScale = (float[]) getProperty(positionPropertySheet,
-                    SCALE_PROP);
+            currentScale = (float[]) getProperty(scaleKey);
         }
 
         if (currentScale == null) {
@@ -544,12 +599,18 @@ public abstract class BasePositionableEntity extends BaseEntity implements
      */
     public void setScale(float[] scale) {
 
+        if (transformSheet != null) {
+            transformSheet.setScale(scale);
+            propertyListenerHandler.propertyUpdated(entityID, scaleKey, false);
+            return;
+        }
+
         float[] currentScale = new float[3];
         currentScale[0] = scale[0];
         currentScale[1] = scale[1];
         currentScale[2] = scale[2];
 
-        setProperty(positionPropertySheet, SCALE_PROP, currentScale, false);
+        setProperty(scaleKey, currentScale, false);
 
     }
 
@@ -749,15 +810,13 @@ public abstract class BasePositionableEntity extends BaseEntity implements
      * @return The positionable info
      */
     public PositionableData getPositionableData() {
-        double[] currentPos = (double[]) getProperty(positionPropertySheet,
-                POSITION_PROP);
+        double[] currentPos = (double[]) getProperty(positionKey);
 
         if (currentPos == null) {
             currentPos = new double[3];
         }
 
-        float[] currentRot = (float[]) getProperty(positionPropertySheet,
-                ROTATION_PROP);
+        float[] currentRot = (float[]) getProperty(rotationKey);
 
         if (currentRot == null) {
             currentRot = new float[] {0,0,1,0};
@@ -782,4 +841,65 @@ public abstract class BasePositionableEntity extends BaseEntity implements
         setScale(data.scale);
         setRotation(data.rot, false);
     }
+
+    // ---------------------------------------------------------------
+    // Methods overridden from BaseEntity
+    // ---------------------------------------------------------------
+
+    /**
+     * Add a new sheet to the list of property sheets.  The add should be
+     * ignored if the sheet already exists
+     *
+     * @param sheetName - The name of the sheet
+     * @param sheetProperties - The map of property name to value
+     */
+    public void addPropertySheet(String sheetName, Map<String, Object> sheetProperties) {
+
+        super.addPropertySheet(sheetName, sheetProperties);
+
+        if (sheetName.equals(positionPropertySheet)) {
+            packTransform();
+        }
+    }
+
+    /**
+     * Remove a property sheet, will do nothing if the sheet doesn't exist
+     *
+     * @param propSheet The name of the sheet
+     */
+    public void removePropertySheet(String propSheet) {
+
+        super.removePropertySheet(propSheet);
+
+        if (propSheet.equals(positionPropertySheet)) {
+            transformSheet = null;
+        }
+    }
+
+    // ---------------------------------------------------------------
+    // Local Methods
+    // ---------------------------------------------------------------
+
+    /**
+     * Move the position, rotation and scale of the entity into the
+     * TransformStore, replacing the position sheet with a view onto it.
+     * Does nothing if the store is disabled.
+     */
+    private void packTransform() {
+
+        if (!TransformStore.getInstance().isEnabled()) {
+            return;
+        }
+
+        Map<String, Object> sheet = properties.get(positionPropertySheet);
+
+        if (sheet == null) {
+            transformSheet = null;
+        } else if (sheet instanceof TransformPropertySheet) {
+            transformSheet = (TransformPropertySheet)sheet;
+        } else {
+            transformSheet = new TransformPropertySheet(sheet);
+            properties.put(positionPropertySheet, transformSheet);
+        }
+    }
 }
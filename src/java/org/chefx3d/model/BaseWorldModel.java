@@ -53,8 +53,11 @@ abstract class BaseWorldModel implements WorldModel {
     /** The ErrorReporter for messages */
     private ErrorReporter errorReporter;
 
-    /** EntityID to Entity map for children entities */
-    private HashMap<Integer, Entity> childrenMap;
+    /** EntityID to Entity index of every entity in the hierarchy */
+    private EntityIndex entityIndex;
+
+    /** Cache of local to scene transforms */
+    private WorldTransformCache transformCache;
 
     public BaseWorldModel() {
 
@@ -69,7 +72,8 @@ abstract class BaseWorldModel implements WorldModel {
         masterRot = new float[4];
 
         errorReporter = DefaultErrorReporter.getDefaultReporter();
-        childrenMap = new HashMap<Integer, Entity>();
+        entityIndex = new EntityIndex();
+        transformCache = new WorldTransformCache(this);
     }
 
     // ----------------------------------------------------------
@@ -254,6 +258,9 @@ abstract class BaseWorldModel implements WorldModel {
      * @param listener The model listener to inform or null for all
      */
     public void clear(boolean local, ModelListener listener) {
+        transformCache.clear();
+        entityIndex.clear();
+
         int len = entities.length;
         for (int i = 0; i < len; i++) {
             if (entities[i] != null) {
@@ -307,7 +314,7 @@ abstract class BaseWorldModel implements WorldModel {
 
         entities[entityID] = entity;
 
-        addChildrenToMap(entity);
+        entityIndex.add(entity);
 
         //lastEntityIndex = Math.max( lastEntityIndex, entityID );
 
@@ -338,7 +345,7 @@ abstract class BaseWorldModel implements WorldModel {
             //    check = entities[i];
             //}
 
-            removeChildrenFromMap(entity);
+            entityIndex.remove(entity);
 
             // now, remove the entity
             entities[entity.getEntityID()] = null;
@@ -420,45 +427,29 @@ abstract class BaseWorldModel implements WorldModel {
      * @return The entity or null if not found
      */
     public Entity getEntity(int entityID) {
-        if ( ( entityID >= 0 ) && ( entityID < entities.length ) ) {
+        if (entityID < 0) {
+            return null;
+        }
+
+        if (entityID < entities.length) {
             Entity entity = entities[entityID];
 
             if (entity != null)
                 return entity;
-
-            // Check for children
-            Entity root = null;
-            int len = entities.length;
-            for (int i = 0; i < len; i++) {
-                root = entities[i];
-                if (root != null && root instanceof SceneEntity) {
-                    break;
-                }
-            }
-
-            if (root != null)
-                entity = findEntityId(root.getChildren(), entityID);
-
-            return entity;
-        } else if (( entityID >= 0 ) && ( entityID <= this.lastEntityIndex )) {
-            Entity entity = null;
-            Entity root = null;
-            int len = entities.length;
-            for (int i = 0; i < len; i++) {
-                root = entities[i];
-                if (root != null && root instanceof SceneEntity) {
-                    break;
-                }
-            }
-
-            if (root != null)
-                entity = findEntityId(root.getChildren(), entityID);
-
-            return entity;
-        }else {
-            return null;
         }
 
+        // Check for children
+        return entityIndex.get(entityID);
+    }
+
+    /**
+     * Get the cache of local to scene transforms of the entities
+     * in the model.
+     *
+     * @return The transform cache
+     */
+    public WorldTransformCache getWorldTransformCache() {
+        return transformCache;
     }
 
     /**
@@ -514,84 +505,58 @@ abstract class BaseWorldModel implements WorldModel {
             Entity entity = data[i];
             int index = entity.getEntityID( );
             entities[index] = entity;
+            entityIndex.add(entity);
         }
 
         reissueEvents(null);
     }
 
     /**
-     * Register an error reporter with the command instance
-     * so that any errors generated can be reported in a nice manner.
+     * Add a batch of entities to the model. The entity storage is grown
+     * once for the batch and the entityAdded notifications are sent after
+     * all of them are stored.
      *
-     * @param reporter The new ErrorReporter to use.
+     * @param data The entities to add
+     * @param count The number of entries of data to add
      */
-    public void setErrorReporter(ErrorReporter reporter) {
-        errorReporter = reporter;
+    protected void addModelData(Entity[] data, int count) {
 
-        if(errorReporter == null)
-            errorReporter = DefaultErrorReporter.getDefaultReporter();
-    }
+        int max_id = lastEntityIndex;
+        for (int i = 0; i < count; i++) {
+            max_id = Math.max( max_id, data[i].getEntityID( ) );
+        }
 
-    /**
-     * Add an entities children to the children map.  Add's all sub-children
-     * as well.
-     *
-     * @param entity The entity to process
-     */
-    private void addChildrenToMap(Entity entity) {
-        
-        if (entity.getChildCount() > 0) {
-            ArrayList children = entity.getChildren();
+        int len = entities.length;
+        if (len <= max_id) {
+            Entity[] newValues = new Entity[max_id + 50];
+            System.arraycopy(entities, 0, newValues, 0, len);
+            entities = newValues;
+        }
 
-            int len = children.size();
+        lastEntityIndex = max_id;
 
-            for(int i=0; i < len; i++) {
-                addChildrenToMap((Entity)children.get(i));
-            }
+        for (int i = 0; i < count; i++) {
+            Entity entity = data[i];
+            entities[entity.getEntityID( )] = entity;
+            entityIndex.add(entity);
+        }
 
-        } else {
-            childrenMap.put(new Integer(entity.getEntityID()), entity);
+        for (int i = 0; i < count; i++) {
+            modelListenerHandler.entityAdded(false, data[i]);
         }
     }
 
     /**
-     * Remove an entities children from the children map.  Removes's all
-     * sub-children as well.
+     * Register an error reporter with the command instance
+     * so that any errors generated can be reported in a nice manner.
      *
-     * @param entity The entity to process
+     * @param reporter The new ErrorReporter to use.
      */
-    private void removeChildrenFromMap(Entity entity) {
-        if (entity.getChildCount() > 0) {
-            ArrayList children = entity.getChildren();
-
-            int len = children.size();
-
-            for(int i=0; i < len; i++) {
-                removeChildrenFromMap((Entity)children.get(i));
-            }
+    public void setErrorReporter(ErrorReporter reporter) {
+        errorReporter = reporter;
 
-        } 
-        childrenMap.remove(new Integer(entity.getEntityID()));
-    }
-    
-    private Entity findEntityId(ArrayList<Entity> childrenList, int entityId){
-        Entity returnEntity = null;
-        
-        int len = childrenList.size();
-        for(int i = 0; i < len; i++){
-            
-            Entity entity = childrenList.get(i);
-            if(entity.getEntityID() == entityId){
-                returnEntity = entity;
-            } else if(entity.hasChildren()){
-                returnEntity = findEntityId(entity.getChildren(), entityId);
-            }
-            if(returnEntity != null)
-                break;    			
-            
-        }
-            
-        return returnEntity;
+        if(errorReporter == null)
+            errorReporter = DefaultErrorReporter.getDefaultReporter();
     }
-    
+
 }
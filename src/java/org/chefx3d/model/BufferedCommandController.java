@@ -33,6 +33,9 @@ public class BufferedCommandController implements CommandController {
 
     private static final int DEFAULT_SIZE = 200;
 
+    /** The maximum number of execute wrappers held for reuse */
+    private static final int MAX_WRAPPER_POOL_SIZE = 32;
+
     /** Message that a command cannot be redone */
     protected static final String CANNOT_REDO_COMMAND_MSG =
         "org.chefx3d.model.BufferedCommandController.cannotRedoMsg";
@@ -71,6 +74,19 @@ public class BufferedCommandController implements CommandController {
     protected boolean isProcessing = false;
     protected boolean isChained = false;
 
+    /** Should superseded transient commands be dropped before processing */
+    protected boolean coalesceTransients = false;
+
+    /** Scratch keys of the transient commands seen while coalescing */
+    private long[] coalesceKeys = new long[16];
+
+    /** Execute wrappers available for reuse */
+    private ExecuteCommand[] wrapperPool =
+        new ExecuteCommand[MAX_WRAPPER_POOL_SIZE];
+
+    /** The number of wrappers in the pool */
+    private int wrapperPoolSize;
+
     /**
      * Create a commandHistory object. Set the maximum size to
      * <code>DEFAULT_SIZE</code> and create the data structure to store the
@@ -117,9 +133,15 @@ public class BufferedCommandController implements CommandController {
 
             saveUpToDate = false;
 
+            if (coalesceTransients) {
+                coalesceTransientCommands(bufferedCommands);
+            }
+
             for (int i = 0; i < bufferedCommands.size(); i++) {
                 cmd = bufferedCommands.get(i);
                 cmd.process();
+
+                releaseCommand(cmd);
             }
 
             bufferedCommands.clear();
@@ -141,13 +163,7 @@ public class BufferedCommandController implements CommandController {
     	isProcessing = true;
 
         // Create the command wrapper
-        ExecuteCommand cmd = new ExecuteCommand(
-                command,
-                maxSize,
-                undoCommands,
-                redoCommands,
-                commandListeners,
-                errorReporter);
+        ExecuteCommand cmd = obtainExecuteCommand(command);
 
         // Add the wrapper to the list of buffered commands
         bufferedCommands.add(cmd);
@@ -172,15 +188,11 @@ public class BufferedCommandController implements CommandController {
      */
     public void forceExecution(Command command) {
     	
-    	ExecuteCommand cmd = new ExecuteCommand(
-    			command, 
-    			maxSize, 
-    			undoCommands, 
-    			redoCommands, 
-    			commandListeners, 
-    			errorReporter);
+    	ExecuteCommand cmd = obtainExecuteCommand(command);
     	
     	cmd.process();
+    	
+    	releaseCommand(cmd);
     }
 
     /**
@@ -397,4 +409,194 @@ System.out.println("");
     	this.isChained = isChained;
     }
     
+    /**
+     * Enable or disable coalescing of transient commands. When enabled,
+     * a transient move, rotate or scale of an entity that is followed by
+     * another of the same kind for the same entity is dropped before the
+     * buffered commands are processed, so only the latest state of a drag
+     * is applied each frame. Commands are never dropped across a command
+     * that is not one of those, so ordering against everything else is
+     * kept.
+     *
+     * @param coalesce True to coalesce, false to process every command
+     */
+    public void setCoalesceTransientCommands(boolean coalesce) {
+        coalesceTransients = coalesce;
+    }
+
+    /**
+     * Are transient commands coalesced before processing.
+     *
+     * @return True if coalescing, false otherwise
+     */
+    public boolean isCoalescingTransientCommands() {
+        return coalesceTransients;
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Remove the transient commands that are superseded by a later
+     * command of the same kind for the same entity. Removed commands
+     * are released, and the remaining commands are compacted in place.
+     *
+     * @param commands The buffered commands, in execution order
+     */
+    protected void coalesceTransientCommands(
+        ArrayList<CommandWrapper> commands) {
+
+        int numKeys = 0;
+        int numDropped = 0;
+
+        // walk backwards so the latest of each kind is kept
+        for (int i = commands.size() - 1; i >= 0; i--) {
+
+            CommandWrapper wrapper = commands.get(i);
+
+            long key = getCoalesceKey(wrapper);
+            if (key < 0) {
+                // a barrier, nothing before it may be dropped
+                numKeys = 0;
+                continue;
+            }
+
+            boolean superseded = false;
+            for (int j = 0; j < numKeys; j++) {
+                if (coalesceKeys[j] == key) {
+                    superseded = true;
+                    break;
+                }
+            }
+
+            if (superseded) {
+                commands.set(i, null);
+                releaseCommand(wrapper);
+                numDropped++;
+            } else {
+                if (numKeys == coalesceKeys.length) {
+                    long[] tmp = new long[numKeys * 2];
+                    System.arraycopy(coalesceKeys, 0, tmp, 0, numKeys);
+                    coalesceKeys = tmp;
+                }
+                coalesceKeys[numKeys++] = key;
+            }
+        }
+
+        if (numDropped == 0) {
+            return;
+        }
+
+        // close the gaps left by the dropped commands
+        int size = commands.size();
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            CommandWrapper wrapper = commands.get(i);
+            if (wrapper != null) {
+                commands.set(next++, wrapper);
+            }
+        }
+        commands.subList(next, size).clear();
+    }
+
+    /**
+     * Get an execute wrapper for the command, reusing one that has been
+     * released if possible.
+     *
+     * @param command The command to wrap
+     * @return The wrapper
+     */
+    protected ExecuteCommand obtainExecuteCommand(Command command) {
+
+        ExecuteCommand cmd = null;
+        synchronized(wrapperPool) {
+            if (wrapperPoolSize > 0) {
+                cmd = wrapperPool[--wrapperPoolSize];
+                wrapperPool[wrapperPoolSize] = null;
+            }
+        }
+
+        if (cmd == null) {
+            cmd = new ExecuteCommand(
+                    command,
+                    maxSize,
+                    undoCommands,
+                    redoCommands,
+                    commandListeners,
+                    errorReporter);
+        } else {
+            cmd.init(
+                    command,
+                    maxSize,
+                    undoCommands,
+                    redoCommands,
+                    commandListeners,
+                    errorReporter);
+        }
+
+        return cmd;
+    }
+
+    /**
+     * Finish with a buffered command once it has been processed, rejected
+     * or dropped. The wrapped command is recycled, and an execute wrapper
+     * is kept for reuse. The wrapper must not be used after this call.
+     *
+     * @param wrapper The buffered command
+     */
+    protected void releaseCommand(CommandWrapper wrapper) {
+
+        if (!(wrapper instanceof ExecuteCommand)) {
+            return;
+        }
+
+        ExecuteCommand cmd = (ExecuteCommand)wrapper;
+        cmd.recycle();
+
+        if (cmd.getClass() != ExecuteCommand.class) {
+            return;
+        }
+
+        cmd.init(null, 0, null, null, null, null);
+        synchronized(wrapperPool) {
+            if (wrapperPoolSize < wrapperPool.length) {
+                wrapperPool[wrapperPoolSize++] = cmd;
+            }
+        }
+    }
+
+    /**
+     * Get the key identifying the entity and kind of a command that
+     * may be coalesced.
+     *
+     * @param wrapper The buffered command
+     * @return The key, or -1 if the command must not be coalesced
+     */
+    private long getCoalesceKey(CommandWrapper wrapper) {
+
+        if (!(wrapper instanceof ExecuteCommand)) {
+            return -1;
+        }
+
+        Command command = ((ExecuteCommand)wrapper).command;
+
+        long kind;
+        if (command instanceof MoveEntityTransientCommand) {
+            kind = 1;
+        } else if (command instanceof RotateEntityTransientCommand) {
+            kind = 2;
+        } else if (command instanceof ScaleEntityTransientCommand) {
+            kind = 3;
+        } else {
+            return -1;
+        }
+
+        Entity entity = ((RuleDataAccessor)command).getEntity();
+        if (entity == null) {
+            return -1;
+        }
+
+        return (kind << 32) | (entity.getEntityID() & 0xFFFFFFFFL);
+    }
 }
@@ -162,13 +162,13 @@ public class DefaultBuildingEntity
         selected = false;
         highlighted = false;
 
-        // clone the tool parameters
-        params = PropertyUtilities.clone(toolProperties.get(Entity.ENTITY_PARAMS));
+        // share the tool parameters, copying on write
+        params = OverlayPropertySheet.copySheet(toolProperties.get(Entity.ENTITY_PARAMS));
 
         // set the properties
-        properties = new HashMap<String, Map<String, Object>>();
+        properties = new PropertySheetMap();
 
-        // clone the other properties
+        // share the other properties, copying on write
         Iterator<Map.Entry<String, Map<String, Object>>> index =
             toolProperties.entrySet().iterator();
 
@@ -188,7 +188,7 @@ public class DefaultBuildingEntity
             if (sheetProperties == null) {
                 clonedProperties = new HashMap<String, Object>();
             } else {
-                clonedProperties = PropertyUtilities.clone(sheetProperties);
+                clonedProperties = OverlayPropertySheet.copySheet(sheetProperties);
             }
 
             properties.put(sheetName, clonedProperties);
@@ -640,6 +640,37 @@ public class DefaultBuildingEntity
 
     }
 
+    /**
+     * Set a specific property by key.
+     *
+     * @param key The sheet and name of the property to set
+     * @param propValue The property value
+     * @param ongoing Is this an ongoing change or the final value?
+     */
+    public void setProperty(PropertyKey key, Object propValue, boolean ongoing) {
+
+        Map<String, Object> sheetProperties =
+            ((PropertySheetMap)properties).getSheet(key.getSheetID());
+
+        if (sheetProperties != null) {
+            sheetProperties.put(key.getName(), propValue);
+
+            Iterator<EntityPropertyListener> i = propertyListeners.iterator();
+            while(i.hasNext()) {
+                EntityPropertyListener l = i.next();
+                if (l instanceof KeyedEntityPropertyListener) {
+                    ((KeyedEntityPropertyListener)l).propertyUpdated(
+                            entityID, key, ongoing);
+                } else {
+                    l.propertyUpdated(
+                            entityID, key.getSheet(), key.getName(), ongoing);
+                }
+            }
+
+        }
+
+    }
+
     /**
      * Set multiple properties.
      *
@@ -677,6 +708,25 @@ public class DefaultBuildingEntity
 
     }
 
+    /**
+     * Get a specific property by key.
+     *
+     * @param key The sheet and name of the property
+     * @return The property value
+     */
+    public Object getProperty(PropertyKey key) {
+
+        Map<String, Object> sheetProperties =
+            ((PropertySheetMap)properties).getSheet(key.getSheetID());
+
+        if (sheetProperties == null) {
+            return null;
+        }
+
+        return sheetProperties.get(key.getName());
+
+    }
+
     /**
      * Get all the properties for a sheet.  If the property sheet does not
      * exist then this will return null.
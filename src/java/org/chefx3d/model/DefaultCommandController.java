@@ -104,11 +104,8 @@ public class DefaultCommandController
             redoCommands.clear();
           
             // finally, notify listeners of the change
-            CommandListener l;
-            for (Iterator<CommandListener> i = 
-                commandListeners.iterator(); i.hasNext();) {
-                
-                l = i.next();
+            for (int i = 0; i < commandListeners.size(); i++) {
+                CommandListener l = commandListeners.get(i);
                 l.commandExecuted(command);
             }                   
 
@@ -116,6 +113,10 @@ public class DefaultCommandController
             errorReporter.errorReport("Execution of " + command.getDescription() + " command failed.", e);            
         }
 
+        if (command instanceof RecyclableCommand) {
+            ((RecyclableCommand)command).recycle();
+        }
+
     }
     
     /**
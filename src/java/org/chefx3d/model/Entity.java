@@ -369,6 +369,16 @@ public interface Entity {
      */
     public void setProperty(String propSheet, String propName, Object propValue, boolean ongoing);
 
+    /**
+     * Set a specific property by key.  If no property sheet exists then no
+     * update will occur and no call back will be issued.
+     *
+     * @param key The sheet and name of the property to set
+     * @param propValue The value of the property to set
+     * @param ongoing Is this an ongoing change or the final value?
+     */
+    public void setProperty(PropertyKey key, Object propValue, boolean ongoing);
+
     /**
      * Set multiple properties.
      *
@@ -395,6 +405,15 @@ public interface Entity {
      */
     public Object getProperty(String propGroup, String propName);
 
+    /**
+     * Get a specific property by key.  If no property exists then this
+     * will return null.
+     *
+     * @param key The sheet and name of the property
+     * @return The property value
+     */
+    public Object getProperty(PropertyKey key);
+
     /**
      * Get all the properties for a sheet.  If the property sheet does not
      * exist then this will return null.
@@ -0,0 +1,164 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External imports
+// None
+
+// Local imports
+import org.chefx3d.util.IntHashMap;
+
+/**
+ * Index of entity ID to entity for every entity in the hierarchies
+ * registered with the world model.
+ * <p>
+ * The index listens to the children of each indexed entity, so entities
+ * added to or removed from the hierarchy by commands that only touch the
+ * parent are picked up without going through the model.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+class EntityIndex implements EntityChildListener {
+
+	/** Map of entity ID to entity */
+	private IntHashMap entityMap;
+
+	/**
+	 * Constructor
+	 */
+	EntityIndex() {
+		entityMap = new IntHashMap(256);
+	}
+
+	//----------------------------------------------------------
+	// Methods defined by EntityChildListener
+	//----------------------------------------------------------
+
+	/**
+	 * A child was added.
+	 *
+	 * @param parentID The entity ID of the parent
+	 * @param childID The entity ID of the child
+	 */
+	public synchronized void childAdded(int parentID, int childID) {
+
+		Entity parent = (Entity)entityMap.get(parentID);
+		if (parent == null) {
+			return;
+		}
+		int index = parent.getChildIndex(childID);
+		if (index >= 0) {
+			add(parent.getChildAt(index));
+		}
+	}
+
+	/**
+	 * A child was removed.
+	 *
+	 * @param parentID The entity ID of the parent
+	 * @param childID The entity ID of the child
+	 */
+	public synchronized void childRemoved(int parentID, int childID) {
+
+		Entity child = (Entity)entityMap.get(childID);
+		if (child == null) {
+			return;
+		}
+		Entity current = (Entity)entityMap.get(child.getParentEntityID());
+		if ((current != null) && (current.getChildIndex(childID) >= 0)) {
+			// already placed with a new parent
+			return;
+		}
+		remove(child);
+	}
+
+	/**
+	 * A child was inserted.
+	 *
+	 * @param parentID The entity ID of the parent
+	 * @param childID The entity ID of the child
+	 * @param index The index the child was placed at
+	 */
+	public void childInsertedAt(int parentID, int childID, int index) {
+		childAdded(parentID, childID);
+	}
+
+	//----------------------------------------------------------
+	// Local Methods
+	//----------------------------------------------------------
+
+	/**
+	 * Return the indexed entity with the argument ID.
+	 *
+	 * @param entityID The ID of the entity
+	 * @return The entity, or null if it is not indexed
+	 */
+	synchronized Entity get(int entityID) {
+		return((Entity)entityMap.get(entityID));
+	}
+
+	/**
+	 * Index the entity and its descendants, and start listening
+	 * for changes to their children.
+	 *
+	 * @param entity The entity to index
+	 */
+	synchronized void add(Entity entity) {
+
+		Entity previous = (Entity)entityMap.put(entity.getEntityID(), entity);
+		if ((previous != null) && (previous != entity)) {
+			// the id has been reissued
+			previous.removeEntityChildListener(this);
+		}
+		entity.addEntityChildListener(this);
+
+		int len = entity.getChildCount();
+		for (int i = 0; i < len; i++) {
+			add(entity.getChildAt(i));
+		}
+	}
+
+	/**
+	 * Remove the entity and its descendants from the index, and stop
+	 * listening for changes to their children.
+	 *
+	 * @param entity The entity to remove
+	 */
+	synchronized void remove(Entity entity) {
+
+		int id = entity.getEntityID();
+		if (entityMap.get(id) == entity) {
+			entityMap.remove(id);
+		}
+		entity.removeEntityChildListener(this);
+
+		int len = entity.getChildCount();
+		for (int i = 0; i < len; i++) {
+			remove(entity.getChildAt(i));
+		}
+	}
+
+	/**
+	 * Remove all entities from the index and stop listening to them.
+	 */
+	synchronized void clear() {
+
+		int[] keys = entityMap.keySet();
+		for (int i = 0; i < keys.length; i++) {
+			Entity entity = (Entity)entityMap.get(keys[i]);
+			entity.removeEntityChildListener(this);
+		}
+		entityMap.clear();
+	}
+}
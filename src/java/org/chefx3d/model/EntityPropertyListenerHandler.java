@@ -21,11 +21,14 @@ import java.util.List;
 
 /**
  * A handler to service EntityPropertyListener(s) in a thread-safe manner.
+ * <p>
+ * Updates are passed to KeyedEntityPropertyListener(s) through the keyed
+ * call only, whichever form the update was fired in.
  *
  * @author Rex Melton
  * @version $Revision: 1.2 $
  */
-class EntityPropertyListenerHandler implements EntityPropertyListener {
+class EntityPropertyListenerHandler implements KeyedEntityPropertyListener {
 	
 	/** Initial null array of listener's */
 	private final static EntityPropertyListener[] NULL_LISTENER_ARRAY = 
@@ -34,6 +37,9 @@ class EntityPropertyListenerHandler implements EntityPropertyListener {
 	/** The working array of listeners */
 	private EntityPropertyListener[] listenerArray;
 	
+	/** Does the listener array hold any keyed listeners */
+	private boolean hasKeyedListeners;
+	
 	/** 
 	 * Constructor 
 	 */
@@ -91,8 +97,22 @@ class EntityPropertyListenerHandler implements EntityPropertyListener {
         
 		EntityPropertyListener[] listeners = listenerArray;
 		int length = listeners.length;
-		for (int i = 0; i < length; i++) {
-			listeners[i].propertyUpdated(entityID, propertySheet, propertyName, ongoing);
+		if (hasKeyedListeners) {
+			PropertyKey key = null;
+			for (int i = 0; i < length; i++) {
+				if (listeners[i] instanceof KeyedEntityPropertyListener) {
+					if (key == null)
+						key = PropertyKey.get(propertySheet, propertyName);
+					((KeyedEntityPropertyListener)listeners[i]).propertyUpdated(
+						entityID, key, ongoing);
+				} else {
+					listeners[i].propertyUpdated(entityID, propertySheet, propertyName, ongoing);
+				}
+			}
+		} else {
+			for (int i = 0; i < length; i++) {
+				listeners[i].propertyUpdated(entityID, propertySheet, propertyName, ongoing);
+			}
 		}
     }
 
@@ -112,6 +132,33 @@ class EntityPropertyListenerHandler implements EntityPropertyListener {
 		}
     }
 
+    //----------------------------------------------------------
+    // Methods defined by KeyedEntityPropertyListener
+    //----------------------------------------------------------
+
+    /**
+     * A property was updated.
+     *
+     * @param entityID The entity which changed
+     * @param key The key of the property
+     * @param ongoing Is this property update an ongoing change 
+	 * like a transient position or the final value
+     */
+    public void propertyUpdated(int entityID, PropertyKey key, boolean ongoing) {
+        
+		EntityPropertyListener[] listeners = listenerArray;
+		int length = listeners.length;
+		for (int i = 0; i < length; i++) {
+			if (listeners[i] instanceof KeyedEntityPropertyListener) {
+				((KeyedEntityPropertyListener)listeners[i]).propertyUpdated(
+					entityID, key, ongoing);
+			} else {
+				listeners[i].propertyUpdated(
+					entityID, key.getSheet(), key.getName(), ongoing);
+			}
+		}
+    }
+
     //----------------------------------------------------------
     // Local Methods
     //----------------------------------------------------------
@@ -142,6 +189,9 @@ class EntityPropertyListenerHandler implements EntityPropertyListener {
 						listenerArray = tmp;
 					}
 				}
+				if (listener instanceof KeyedEntityPropertyListener) {
+					hasKeyedListeners = true;
+				}
 			}
 		}
 	}
@@ -175,6 +225,13 @@ class EntityPropertyListenerHandler implements EntityPropertyListener {
 						}
 						listenerArray = tmp;
 					}
+					hasKeyedListeners = false;
+					for (int i = listenerArray.length - 1; i >= 0; i--) {
+						if (listenerArray[i] instanceof KeyedEntityPropertyListener) {
+							hasKeyedListeners = true;
+							break;
+						}
+					}
 				}
 			}
 		}
@@ -187,6 +244,7 @@ class EntityPropertyListenerHandler implements EntityPropertyListener {
 		if (listenerArray != NULL_LISTENER_ARRAY) {
 			synchronized(this) {
 				listenerArray = NULL_LISTENER_ARRAY;
+				hasKeyedListeners = false;
 			}
 		}
 	}
@@ -67,14 +67,13 @@ public class ExecuteCommand
             ArrayList<CommandListener> commandListeners,
             ErrorReporter errorReporter) {
 
-        this.command = command;
-        this.maxSize = maxSize;
-        this.undoCommands = undoCommands;
-        this.redoCommands = redoCommands;
-        this.commandListeners = commandListeners;
-        this.errorReporter = errorReporter;
-        
-        origCommand = command;
+        init(
+            command,
+            maxSize,
+            undoCommands,
+            redoCommands,
+            commandListeners,
+            errorReporter);
 
     }
 
@@ -152,5 +151,46 @@ public class ExecuteCommand
     public void setValidatedCommand(Command command) {
         this.command = command;
     }
+
+    /**
+     * Hand the original command back to its pool, if it came from one.
+     * Called by the controller once the command has been processed or
+     * rejected.
+     */
+    public void recycle() {
+        if (origCommand instanceof RecyclableCommand) {
+            ((RecyclableCommand)origCommand).recycle();
+        }
+    }
+
+    /**
+     * Set the command and the controller state it acts on. Used by the
+     * constructor, and by the controller to reuse a wrapper once the
+     * previous command has been processed and recycled.
+     *
+     * @param command The command to wrap, null to release the previous one
+     * @param maxSize The size of the undo stack
+     * @param undoCommands The list of commands to undo
+     * @param redoCommands The list of commands to redo
+     * @param commandListeners The list of listeners to notify
+     * @param errorReporter The ErrorReporter for messages
+     */
+    void init(
+            Command command,
+            int maxSize,
+            Stack<Command> undoCommands,
+            Stack<Command> redoCommands,
+            ArrayList<CommandListener> commandListeners,
+            ErrorReporter errorReporter) {
+
+        this.command = command;
+        this.maxSize = maxSize;
+        this.undoCommands = undoCommands;
+        this.redoCommands = redoCommands;
+        this.commandListeners = commandListeners;
+        this.errorReporter = errorReporter;
+        
+        origCommand = command;
+    }
      
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+// None
+
+// Internal Imports
+// None
+
+/**
+ * Notification of changes in the property values of an entity, with
+ * updates identified by an interned PropertyKey.
+ * <p>
+ * Entities tell listeners of this type of updates through
+ * propertyUpdated(int, PropertyKey, boolean) only. The String version of
+ * propertyUpdated is still called by anything that fires events directly
+ * rather than through an entity.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public interface KeyedEntityPropertyListener extends EntityPropertyListener {
+
+    /**
+     * A property was updated.
+     *
+     * @param entityID The entity which changed
+     * @param key The key of the property, use getID() to switch on it
+     * @param ongoing Is this property update an ongoing change like a transient position or the final value
+     */
+    public void propertyUpdated(int entityID, PropertyKey key, boolean ongoing);
+
+}
@@ -25,13 +25,29 @@ import org.chefx3d.util.ErrorReporter;
 
 /**
  * A command for moving an entity.
+ * <p>
+ * Views that issue a move per mouse event should use obtain() rather than
+ * a constructor. Those commands are handed back to a small pool by the
+ * command controller once processed, so a drag reuses a handful of
+ * instances instead of creating one per event.
  *
  * @author Alan Hudson
  * @version $Revision: 1.23 $
  */
 public class MoveEntityTransientCommand implements 
-	Command, DeadReckonedCommand, RuleDataAccessor, RuleBypassFlag {
+	Command, DeadReckonedCommand, RuleDataAccessor, RuleBypassFlag,
+	RecyclableCommand {
 	
+    /** The maximum number of commands held for reuse */
+    private static final int MAX_POOL_SIZE = 16;
+
+    /** Commands available for reuse */
+    private static final MoveEntityTransientCommand[] pool =
+        new MoveEntityTransientCommand[MAX_POOL_SIZE];
+
+    /** The number of commands in the pool */
+    private static int poolSize;
+
     /** The model */
     private BaseWorldModel model;
 
@@ -59,6 +75,10 @@ public class MoveEntityTransientCommand implements
     /** The description of the <code>Command</code> */
     private String description;
 
+    /** The generated description, and the entity it was generated for */
+    private String defaultDescription;
+    private int defaultDescriptionID;
+
     /** The flag to indicate transient status */
     private boolean transientState;
 
@@ -77,6 +97,9 @@ public class MoveEntityTransientCommand implements
     /** The rule bypass flag, default is false */
     private boolean ruleBypassFlag;
 
+    /** Was the command taken from the pool by obtain() */
+    private boolean pooled;
+
     /**
      * Add an entity.
      *
@@ -96,23 +119,10 @@ public class MoveEntityTransientCommand implements
 
         // Cast to package definition to access protected methods
         this.model = (BaseWorldModel) model;
-        this.entityID = entityID;
-        this.transactionID = transactionID;
         this.pos = new double[3];
-        this.pos[0] = position[0];
-        this.pos[1] = position[1];
-        this.pos[2] = position[2];
         linearVelocity = new float[3];
-        linearVelocity[0] = velocity[0];
-        linearVelocity[1] = velocity[1];
-        linearVelocity[2] = velocity[2];
-
-        description = "MoveEntityTransientCommand -> "+entityID;
-        
-        local = true;
 
-        entity = (PositionableEntity)model.getEntity(entityID);
-        ruleBypassFlag = false;
+        setTarget(transactionID, entityID, position, velocity);
         
         init();
     }
@@ -153,6 +163,57 @@ public class MoveEntityTransientCommand implements
         init();
     }
 
+    /**
+     * Get a command from the pool, or create one if the pool is empty.
+     * The controller returns the command to the pool once it has been
+     * processed, so the caller must not keep a reference to it after
+     * handing it to CommandController.execute().
+     *
+     * @param model The model to change
+     * @param transactionID The transaction id
+     * @param entityID The entity id of the entity to update
+     * @param position The position in world coordinates (meters, Y-UP, X3D
+     *  System)
+     * @param velocity The velocity vector
+     * @param pickParent The first entity returned from the pick parents,
+     *  may be null
+     * @return The command
+     */
+    public static MoveEntityTransientCommand obtain(
+            WorldModel model,
+            int transactionID,
+            int entityID,
+            double[] position,
+            float[] velocity,
+            Entity pickParent) {
+
+        MoveEntityTransientCommand cmd = null;
+        synchronized(pool) {
+            if (poolSize > 0) {
+                cmd = pool[--poolSize];
+                pool[poolSize] = null;
+            }
+        }
+
+        if (cmd == null) {
+            cmd = new MoveEntityTransientCommand(
+                    model,
+                    transactionID,
+                    entityID,
+                    position,
+                    velocity,
+                    pickParent);
+        } else {
+            cmd.model = (BaseWorldModel) model;
+            cmd.setTarget(transactionID, entityID, position, velocity);
+            cmd.pickEntity = pickParent;
+            cmd.init();
+        }
+
+        cmd.pooled = true;
+        return cmd;
+    }
+
     /**
      * Common initialization method.
      */
@@ -163,6 +224,46 @@ public class MoveEntityTransientCommand implements
         undoableState = false;
     }
 
+    /**
+     * Set the entity and the position it is moved to, and clear any state
+     * left over from a previous use of the command.
+     *
+     * @param transactionID The transaction id
+     * @param entityID The entity id of the entity to update
+     * @param position The position in world coordinates
+     * @param velocity The velocity vector
+     */
+    private void setTarget(
+            int transactionID,
+            int entityID,
+            double[] position,
+            float[] velocity) {
+
+        // a drag moves the same entity, keep the generated description
+        // if we can, discarding any that was set on a previous use
+        if (defaultDescription == null || entityID != defaultDescriptionID) {
+            defaultDescription = "MoveEntityTransientCommand -> "+entityID;
+            defaultDescriptionID = entityID;
+        }
+        description = defaultDescription;
+
+        this.entityID = entityID;
+        this.transactionID = transactionID;
+        pos[0] = position[0];
+        pos[1] = position[1];
+        pos[2] = position[2];
+        linearVelocity[0] = velocity[0];
+        linearVelocity[1] = velocity[1];
+        linearVelocity[2] = velocity[2];
+
+        local = true;
+
+        entity = (PositionableEntity)model.getEntity(entityID);
+        ruleBypassFlag = false;
+        shouldDie = false;
+        ignoreRuleList = null;
+    }
+
     // ----------------------------------------------------------
     // Methods required by DeadReckonedCommand
     // ----------------------------------------------------------
@@ -494,9 +595,8 @@ public class MoveEntityTransientCommand implements
 				
 			}
 			
-			double[] position = new double[3];
-			((MoveEntityTransientCommand)externalCommand).getPosition(
-					position);
+			double[] position = 
+				((MoveEntityTransientCommand)externalCommand).pos;
 			
 			if (((MoveEntityTransientCommand)externalCommand).getEntity() != 
 				entity) {
@@ -555,4 +655,31 @@ public class MoveEntityTransientCommand implements
     public boolean bypassRules() {
         return ruleBypassFlag;
     }
+
+    //--------------------------------------------------------------------
+    // Routines required by RecyclableCommand
+    //--------------------------------------------------------------------
+
+    /**
+     * Return the command to the pool if it was taken from there by
+     * obtain(). Commands created with a constructor are left alone.
+     */
+    public void recycle() {
+
+        if (!pooled) {
+            return;
+        }
+        pooled = false;
+
+        // don't hold on to the scene while waiting in the pool
+        entity = null;
+        pickEntity = null;
+        ignoreRuleList = null;
+
+        synchronized(pool) {
+            if (poolSize < MAX_POOL_SIZE) {
+                pool[poolSize++] = this;
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,635 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.awt.Color;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+// Internal Imports
+import org.chefx3d.util.PropertyUtilities;
+
+/**
+ * A copy-on-write property sheet of an entity. The values come from a
+ * snapshot of the tool sheet the entity was created from, which is shared
+ * by every entity created from that sheet. Only the properties the entity
+ * changes or removes are held by the entity itself.
+ * <p>
+ * Reading a value never changes the sheet. Values not held by the entity,
+ * including mutable ones such as arrays, are returned straight from the
+ * snapshot and must be treated as read only: changing one in place would
+ * change it for every entity sharing the snapshot. A value to be changed
+ * in place is got with getForUpdate(), which gives the entity its own
+ * copy first, or is replaced with put().
+ * <p>
+ * The methods of the sheet synchronize on it, so threads may read and
+ * change the same sheet at once, but, as with a HashMap, iterating a sheet
+ * while another thread changes it is not safe.
+ * <p>
+ * The snapshot of a tool sheet is reused while the tool sheet holds the
+ * same values. Replacing a value, or changing the contents of an array
+ * value, causes a new snapshot to be taken for the entities created after
+ * it. Changes made inside other mutable values, such as a Document, are
+ * not seen by the check.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+class OverlayPropertySheet extends AbstractMap<String, Object> {
+
+    /** The shared values */
+    private Defaults defaults;
+
+    /** The values set on this sheet, created on first use */
+    private LinkedHashMap<String, Object> overrides;
+
+    /** The shared values removed from this sheet, created on first use */
+    private HashSet<String> removed;
+
+    /** The entry set view, created on first use */
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * Create a sheet over a set of shared values.
+     *
+     * @param defaults The shared values
+     */
+    private OverlayPropertySheet(Defaults defaults) {
+        this.defaults = defaults;
+    }
+
+    /**
+     * Create a copy of another overlay, sharing its shared values.
+     *
+     * @param sheet The sheet to copy
+     */
+    private OverlayPropertySheet(OverlayPropertySheet sheet) {
+
+        synchronized (sheet) {
+            defaults = sheet.defaults;
+
+            if (sheet.overrides != null) {
+                Iterator<Map.Entry<String, Object>> index =
+                    sheet.overrides.entrySet().iterator();
+
+                while (index.hasNext()) {
+                    Map.Entry<String, Object> mapEntry = index.next();
+                    Object copy = PropertyUtilities.cloneValue(mapEntry.getValue());
+
+                    if (copy != null) {
+                        overrides().put(mapEntry.getKey(), copy);
+                    } else if (defaults.values.containsKey(mapEntry.getKey())) {
+                        removed().add(mapEntry.getKey());
+                    }
+                }
+            }
+
+            if (sheet.removed != null) {
+                removed().addAll(sheet.removed);
+            }
+        }
+    }
+
+    /**
+     * Copy a property sheet for a new entity. The copy holds the same
+     * values as PropertyUtilities.clone() would give.
+     *
+     * @param sheet The sheet to copy, may be null
+     * @return The copy, or null if the sheet is null
+     */
+    static Map<String, Object> copySheet(Map<String, Object> sheet) {
+
+        if (sheet == null) {
+            return null;
+
+        } else if (sheet instanceof OverlayPropertySheet) {
+            return new OverlayPropertySheet((OverlayPropertySheet)sheet);
+
+        } else if (sheet instanceof TransformPropertySheet) {
+
+            TransformPropertySheet transformSheet = (TransformPropertySheet)sheet;
+            Map<String, Object> copy = copySheet(transformSheet.getBacking());
+
+            for (int i = 0; i < TransformPropertySheet.TRANSFORM_KEYS.length; i++) {
+                String key = TransformPropertySheet.TRANSFORM_KEYS[i];
+
+                if (transformSheet.isStored(key)) {
+                    copy.put(key, transformSheet.get(key));
+                }
+            }
+
+            return copy;
+        }
+
+        return new OverlayPropertySheet(Defaults.forSheet(sheet));
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by Map
+    //---------------------------------------------------------------
+
+    /**
+     * Get a value. A value not set on this sheet is shared with the other
+     * entities created from the same tool sheet and must not be changed in
+     * place, use getForUpdate() for that.
+     */
+    public synchronized Object get(Object key) {
+        return peek(key);
+    }
+
+    public synchronized Object put(String key, Object value) {
+
+        Object previous = peek(key);
+
+        overrides().put(key, value);
+
+        if (removed != null) {
+            removed.remove(key);
+        }
+
+        return previous;
+    }
+
+    public synchronized Object remove(Object key) {
+
+        if (!containsKey(key)) {
+            return null;
+        }
+
+        Object previous = peek(key);
+
+        if (overrides != null) {
+            overrides.remove(key);
+        }
+
+        if (defaults.values.containsKey(key)) {
+            removed().add((String)key);
+        }
+
+        return previous;
+    }
+
+    public synchronized boolean containsKey(Object key) {
+
+        if (overrides != null && overrides.containsKey(key)) {
+            return true;
+        }
+
+        return defaults.values.containsKey(key) &&
+            (removed == null || !removed.contains(key));
+    }
+
+    public synchronized int size() {
+
+        int size = defaults.values.size();
+
+        if (removed != null) {
+            size -= removed.size();
+        }
+
+        if (overrides != null) {
+            Iterator<String> index = overrides.keySet().iterator();
+            while (index.hasNext()) {
+                if (!defaults.values.containsKey(index.next())) {
+                    size++;
+                }
+            }
+        }
+
+        return size;
+    }
+
+    public synchronized void clear() {
+        defaults = Defaults.EMPTY;
+        overrides = null;
+        removed = null;
+    }
+
+    public Set<Map.Entry<String, Object>> entrySet() {
+
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                public int size() {
+                    return OverlayPropertySheet.this.size();
+                }
+            };
+        }
+
+        return entrySet;
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Get the number of values this sheet holds itself rather than
+     * sharing.
+     *
+     * @return The number of values set or copied on this sheet
+     */
+    synchronized int getOverrideCount() {
+        return (overrides == null) ? 0 : overrides.size();
+    }
+
+    /**
+     * Get a value that may be changed in place. A shared mutable value is
+     * first copied into this sheet, so the change is seen by this sheet
+     * alone.
+     *
+     * @param key The name of the value
+     * @return The value held by this sheet, or null if there is none
+     */
+    synchronized Object getForUpdate(String key) {
+
+        if ((overrides != null && overrides.containsKey(key)) ||
+                (removed != null && removed.contains(key))) {
+            return peek(key);
+        }
+
+        Object value = defaults.values.get(key);
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+
+        Object copy = PropertyUtilities.cloneValue(value);
+        overrides().put(key, copy);
+
+        return copy;
+    }
+
+    /**
+     * Get a value, shared or held by this sheet.
+     */
+    private Object peek(Object key) {
+
+        if (overrides != null && overrides.containsKey(key)) {
+            return overrides.get(key);
+        }
+
+        if (removed != null && removed.contains(key)) {
+            return null;
+        }
+
+        return defaults.values.get(key);
+    }
+
+    /**
+     * Get the overrides, creating them if needed.
+     */
+    private LinkedHashMap<String, Object> overrides() {
+        if (overrides == null) {
+            overrides = new LinkedHashMap<String, Object>();
+        }
+        return overrides;
+    }
+
+    /**
+     * Get the removed keys, creating them if needed.
+     */
+    private HashSet<String> removed() {
+        if (removed == null) {
+            removed = new HashSet<String>();
+        }
+        return removed;
+    }
+
+    /**
+     * Check if a value can be shared between entities.
+     *
+     * @param value The value, not null
+     * @return True if it can't be changed in place
+     */
+    private static boolean isImmutable(Object value) {
+        return value instanceof String ||
+            value instanceof Number ||
+            value instanceof Boolean ||
+            value instanceof Character ||
+            value instanceof Enum ||
+            value instanceof Color;
+    }
+
+    /**
+     * Iterates over the shared values in order and then the values only
+     * this sheet holds.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+        /** Iterator over the shared keys */
+        private Iterator<String> defaultIterator;
+
+        /** The keys only this sheet holds, once the shared keys are done */
+        private Object[] overrideKeys;
+
+        /** Index of the next of the overrideKeys to check */
+        private int overrideIndex;
+
+        /** The next key, null when there is none */
+        private String next;
+
+        /** The key last returned */
+        private String last;
+
+        EntryIterator() {
+            defaultIterator = defaults.values.keySet().iterator();
+            findNext();
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Map.Entry<String, Object> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+
+            last = next;
+            findNext();
+
+            return new SheetEntry(last);
+        }
+
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+
+            OverlayPropertySheet.this.remove(last);
+            last = null;
+        }
+
+        /**
+         * Move to the next key present in the sheet.
+         */
+        private void findNext() {
+
+            next = null;
+
+            synchronized (OverlayPropertySheet.this) {
+                if (overrideKeys == null) {
+                    while (defaultIterator.hasNext()) {
+                        String key = defaultIterator.next();
+                        if (removed == null || !removed.contains(key)) {
+                            next = key;
+                            return;
+                        }
+                    }
+
+                    // removing an entry through the iterator changes the
+                    // overrides, so walk a copy of their keys
+                    overrideKeys = (overrides == null) ?
+                        new Object[0] : overrides.keySet().toArray();
+                }
+
+                while (overrideIndex < overrideKeys.length) {
+                    String key = (String)overrideKeys[overrideIndex++];
+                    if (!defaults.values.containsKey(key) && containsKey(key)) {
+                        next = key;
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An entry reading and writing through the sheet.
+     */
+    private class SheetEntry implements Map.Entry<String, Object> {
+
+        /** The key of the entry */
+        private String key;
+
+        SheetEntry(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Object getValue() {
+            return get(key);
+        }
+
+        public Object setValue(Object value) {
+            return put(key, value);
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+            Object value = getValue();
+
+            return key.equals(e.getKey()) &&
+                (value == null ? e.getValue() == null : value.equals(e.getValue()));
+        }
+
+        public int hashCode() {
+            Object value = getValue();
+            return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+    }
+
+    /**
+     * A snapshot of a tool sheet, shared by the entities created from it.
+     */
+    private static class Defaults {
+
+        /** A snapshot of no values */
+        static final Defaults EMPTY = new Defaults();
+
+        /** The snapshots by tool sheet */
+        private static HashMap<SheetKey, Defaults> snapshots =
+            new HashMap<SheetKey, Defaults>();
+
+        /** The tool sheets that have been collected */
+        private static ReferenceQueue<Map<String, Object>> collected =
+            new ReferenceQueue<Map<String, Object>>();
+
+        /** The copied values, never changed */
+        final Map<String, Object> values;
+
+        /** The keys of the tool sheet when copied, in iteration order */
+        private Object[] sourceKeys;
+
+        /** The values of the tool sheet when copied, in iteration order */
+        private Object[] sourceValues;
+
+        /**
+         * Create an empty snapshot.
+         */
+        private Defaults() {
+            values = Collections.emptyMap();
+            sourceKeys = new Object[0];
+            sourceValues = sourceKeys;
+        }
+
+        /**
+         * Copy the values of a tool sheet.
+         *
+         * @param sheet The tool sheet
+         */
+        private Defaults(Map<String, Object> sheet) {
+
+            values = PropertyUtilities.clone(sheet);
+
+            int size = sheet.size();
+            sourceKeys = new Object[size];
+            sourceValues = new Object[size];
+
+            Iterator<Map.Entry<String, Object>> index =
+                sheet.entrySet().iterator();
+
+            for (int i = 0; i < size && index.hasNext(); i++) {
+                Map.Entry<String, Object> mapEntry = index.next();
+                sourceKeys[i] = mapEntry.getKey();
+                sourceValues[i] = mapEntry.getValue();
+            }
+        }
+
+        /**
+         * Get the snapshot of a tool sheet, taking a new one if the sheet
+         * has changed since the last.
+         *
+         * @param sheet The tool sheet
+         * @return The snapshot
+         */
+        static synchronized Defaults forSheet(Map<String, Object> sheet) {
+
+            Object ref;
+            while ((ref = collected.poll()) != null) {
+                snapshots.remove(ref);
+            }
+
+            if (sheet.isEmpty()) {
+                return EMPTY;
+            }
+
+            SheetKey key = new SheetKey(sheet, null);
+            Defaults snapshot = snapshots.get(key);
+
+            if (snapshot == null || !snapshot.matches(sheet)) {
+                snapshot = new Defaults(sheet);
+                snapshots.put(new SheetKey(sheet, collected), snapshot);
+            }
+
+            return snapshot;
+        }
+
+        /**
+         * Check if a tool sheet still holds the values copied.
+         *
+         * @param sheet The tool sheet
+         * @return True if the snapshot is current
+         */
+        private boolean matches(Map<String, Object> sheet) {
+
+            if (sheet.size() != sourceKeys.length) {
+                return false;
+            }
+
+            Iterator<Map.Entry<String, Object>> index =
+                sheet.entrySet().iterator();
+
+            for (int i = 0; index.hasNext(); i++) {
+                Map.Entry<String, Object> mapEntry = index.next();
+                Object value = mapEntry.getValue();
+
+                if (mapEntry.getKey() != sourceKeys[i] ||
+                        value != sourceValues[i]) {
+                    return false;
+                }
+
+                if (value != null && !isImmutable(value) &&
+                        !sameContents(value, values.get(mapEntry.getKey()))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Check if a mutable tool value still holds what was copied from it.
+         */
+        private static boolean sameContents(Object value, Object copy) {
+
+            if (value instanceof float[]) {
+                return copy instanceof float[] &&
+                    Arrays.equals((float[])value, (float[])copy);
+            } else if (value instanceof double[]) {
+                return copy instanceof double[] &&
+                    Arrays.equals((double[])value, (double[])copy);
+            } else if (value instanceof int[]) {
+                return copy instanceof int[] &&
+                    Arrays.equals((int[])value, (int[])copy);
+            } else if (value instanceof boolean[]) {
+                return copy instanceof boolean[] &&
+                    Arrays.equals((boolean[])value, (boolean[])copy);
+            } else if (value instanceof Object[]) {
+                return copy instanceof Object[] &&
+                    Arrays.equals((Object[])value, (Object[])copy);
+            } else if (value instanceof ArrayList || value instanceof HashMap) {
+                return value.equals(copy);
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * A weak reference to a tool sheet compared by identity.
+     */
+    private static class SheetKey extends WeakReference<Map<String, Object>> {
+
+        /** The identity hash of the sheet */
+        private int hash;
+
+        SheetKey(
+                Map<String, Object> sheet,
+                ReferenceQueue<Map<String, Object>> queue) {
+
+            super(sheet, queue);
+            hash = System.identityHashCode(sheet);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+
+            if (!(o instanceof SheetKey)) {
+                return false;
+            }
+
+            Object sheet = get();
+            return sheet != null && sheet == ((SheetKey)o).get();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.util.concurrent.ConcurrentHashMap;
+
+// Internal Imports
+// None
+
+/**
+ * An interned property sheet and name pair with a small integer ID.
+ * <p>
+ * There is one key per sheet and name, so keys can be compared with ==
+ * and their IDs used as array indices or in a switch. IDs are given out
+ * in the order keys are first asked for, starting from 0, and are only
+ * stable for the life of the JVM. The transform properties of the default
+ * sheet are registered first and have constant IDs.
+ * <p>
+ * Each sheet name also has an ID, used by entities to find a sheet with
+ * an array lookup.
+ * <p>
+ * Looking up a key or sheet that is already registered takes no lock,
+ * only registering a new one does.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public final class PropertyKey {
+
+    /** The ID of the POSITION key */
+    public static final int POSITION_ID = 0;
+
+    /** The ID of the ROTATION key */
+    public static final int ROTATION_ID = 1;
+
+    /** The ID of the SCALE key */
+    public static final int SCALE_ID = 2;
+
+    /** The keys by sheet, then name */
+    private static ConcurrentHashMap<String, ConcurrentHashMap<String, PropertyKey>> keys =
+        new ConcurrentHashMap<String, ConcurrentHashMap<String, PropertyKey>>();
+
+    /** The sheet IDs by name */
+    private static ConcurrentHashMap<String, Integer> sheetIDs =
+        new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * The keys by ID. A key is stored before keyCount counts it, and the
+     * array is replaced rather than changed when it grows.
+     */
+    private static volatile PropertyKey[] keysByID = new PropertyKey[64];
+
+    /** The number of keys */
+    private static volatile int keyCount;
+
+    /** The number of sheets */
+    private static volatile int sheetCount;
+
+    /** The position in the default sheet */
+    public static final PropertyKey POSITION = get(
+        Entity.DEFAULT_ENTITY_PROPERTIES, PositionableEntity.POSITION_PROP);
+
+    /** The rotation in the default sheet */
+    public static final PropertyKey ROTATION = get(
+        Entity.DEFAULT_ENTITY_PROPERTIES, PositionableEntity.ROTATION_PROP);
+
+    /** The scale in the default sheet */
+    public static final PropertyKey SCALE = get(
+        Entity.DEFAULT_ENTITY_PROPERTIES, PositionableEntity.SCALE_PROP);
+
+    /** The sheet name */
+    private final String sheet;
+
+    /** The property name */
+    private final String name;
+
+    /** The key ID */
+    private final int id;
+
+    /** The sheet ID */
+    private final int sheetID;
+
+    /**
+     * Create a key. Use get() to obtain one.
+     */
+    private PropertyKey(String sheet, String name, int id, int sheetID) {
+        this.sheet = sheet;
+        this.name = name;
+        this.id = id;
+        this.sheetID = sheetID;
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by Object
+    //----------------------------------------------------------
+
+    /**
+     * Print a String representation of the key
+     */
+    public String toString() {
+        return "PropertyKey [" + id + ": " + sheet + " " + name + "]";
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Get the key of a property, registering it if it is new.
+     *
+     * @param sheet The sheet name
+     * @param name The property name
+     * @return The key
+     */
+    public static PropertyKey get(String sheet, String name) {
+
+        ConcurrentHashMap<String, PropertyKey> sheetKeys = keys.get(sheet);
+        if (sheetKeys != null) {
+            PropertyKey key = sheetKeys.get(name);
+            if (key != null) {
+                return key;
+            }
+        }
+
+        return register(sheet, name);
+    }
+
+    /**
+     * Get a key by ID.
+     *
+     * @param id The key ID
+     * @return The key, or null if there is none with that ID
+     */
+    public static PropertyKey get(int id) {
+        // read the count first, the array holds at least that many keys
+        int count = keyCount;
+        return (id < 0 || id >= count) ? null : keysByID[id];
+    }
+
+    /**
+     * Get the ID of a sheet, registering it if it is new.
+     *
+     * @param sheet The sheet name
+     * @return The sheet ID
+     */
+    public static int getSheetID(String sheet) {
+
+        Integer id = sheetIDs.get(sheet);
+        if (id != null) {
+            return id;
+        }
+
+        return registerSheet(sheet);
+    }
+
+    /**
+     * Get the number of keys registered. All key IDs are less than this.
+     *
+     * @return The number of keys
+     */
+    public static int getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Get the number of sheets registered. All sheet IDs are less than
+     * this.
+     *
+     * @return The number of sheets
+     */
+    public static int getSheetCount() {
+        return sheetCount;
+    }
+
+    /**
+     * Register a key, unless another thread registered it first.
+     *
+     * @param sheet The sheet name
+     * @param name The property name
+     * @return The key
+     */
+    private static synchronized PropertyKey register(String sheet, String name) {
+
+        ConcurrentHashMap<String, PropertyKey> sheetKeys = keys.get(sheet);
+        if (sheetKeys == null) {
+            sheetKeys = new ConcurrentHashMap<String, PropertyKey>();
+            keys.put(sheet, sheetKeys);
+        }
+
+        PropertyKey key = sheetKeys.get(name);
+        if (key == null) {
+            int count = keyCount;
+            PropertyKey[] byID = keysByID;
+            if (count == byID.length) {
+                PropertyKey[] tmp = new PropertyKey[count * 2];
+                System.arraycopy(byID, 0, tmp, 0, count);
+                byID = tmp;
+            }
+
+            key = new PropertyKey(sheet, name, count, getSheetID(sheet));
+            byID[count] = key;
+            keysByID = byID;
+            keyCount = count + 1;
+
+            sheetKeys.put(name, key);
+        }
+
+        return key;
+    }
+
+    /**
+     * Register a sheet, unless another thread registered it first.
+     *
+     * @param sheet The sheet name
+     * @return The sheet ID
+     */
+    private static synchronized int registerSheet(String sheet) {
+
+        Integer id = sheetIDs.get(sheet);
+        if (id == null) {
+            // count it before it can be seen, as with the keys
+            id = sheetCount;
+            sheetCount = id + 1;
+            sheetIDs.put(sheet, id);
+        }
+
+        return id;
+    }
+
+    /**
+     * Get the sheet name.
+     *
+     * @return The sheet name
+     */
+    public String getSheet() {
+        return sheet;
+    }
+
+    /**
+     * Get the property name.
+     *
+     * @return The property name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the key ID.
+     *
+     * @return The ID
+     */
+    public int getID() {
+        return id;
+    }
+
+    /**
+     * Get the ID of the sheet. Keys of the same sheet share it.
+     *
+     * @return The sheet ID
+     */
+    public int getSheetID() {
+        return sheetID;
+    }
+}
@@ -0,0 +1,175 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Internal Imports
+// None
+
+/**
+ * The property sheets of an entity, sheet name -> sheet, which can also
+ * find a sheet by the sheet ID of a PropertyKey.
+ * <p>
+ * The sheets are mirrored into an array indexed by sheet ID as they are
+ * put and removed. Sheets removed through the key, value or entry views
+ * are noticed by the change in size and the array rebuilt. Replacing a
+ * sheet with Map.Entry.setValue() is not seen.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+@SuppressWarnings("serial")
+class PropertySheetMap extends HashMap<String, Map<String, Object>> {
+
+    /** The sheets by sheet ID */
+    private Object[] sheets;
+
+    /** The size of the map when the array was last updated */
+    private int indexedSize;
+
+    /**
+     * Create an empty map.
+     */
+    PropertySheetMap() {
+        sheets = new Object[8];
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by Map
+    //----------------------------------------------------------
+
+    public Map<String, Object> put(String sheetName, Map<String, Object> sheet) {
+
+        checkIndex();
+
+        Map<String, Object> old = super.put(sheetName, sheet);
+        index(sheetName, sheet);
+
+        indexedSize = size();
+
+        return old;
+    }
+
+    public void putAll(Map<? extends String, ? extends Map<String, Object>> map) {
+
+        Iterator<? extends Map.Entry<? extends String, ? extends Map<String, Object>>> itr =
+            map.entrySet().iterator();
+
+        while (itr.hasNext()) {
+            Map.Entry<? extends String, ? extends Map<String, Object>> entry =
+                itr.next();
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public Map<String, Object> remove(Object sheetName) {
+
+        checkIndex();
+
+        Map<String, Object> old = super.remove(sheetName);
+        if (sheetName instanceof String)
+            index((String)sheetName, null);
+
+        indexedSize = size();
+
+        return old;
+    }
+
+    public void clear() {
+        super.clear();
+        sheets = new Object[sheets.length];
+        indexedSize = 0;
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by Object
+    //----------------------------------------------------------
+
+    public Object clone() {
+        PropertySheetMap map = (PropertySheetMap)super.clone();
+        map.sheets = sheets.clone();
+        return map;
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Get a sheet by sheet ID.
+     *
+     * @param sheetID The sheet ID from PropertyKey.getSheetID()
+     * @return The sheet, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, Object> getSheet(int sheetID) {
+
+        checkIndex();
+
+        Object[] array = sheets;
+        if (sheetID >= array.length)
+            return null;
+
+        return (Map<String, Object>)array[sheetID];
+    }
+
+    /**
+     * Store a sheet in the array.
+     *
+     * @param sheetName The sheet name
+     * @param sheet The sheet, or null to clear it
+     */
+    private void index(String sheetName, Map<String, Object> sheet) {
+
+        if (sheetName == null)
+            return;
+
+        int id = PropertyKey.getSheetID(sheetName);
+
+        if (id >= sheets.length) {
+            if (sheet == null)
+                return;
+
+            Object[] tmp = new Object[Math.max(id + 1, sheets.length * 2)];
+            System.arraycopy(sheets, 0, tmp, 0, sheets.length);
+            sheets = tmp;
+        }
+
+        sheets[id] = sheet;
+    }
+
+    /**
+     * Rebuild the array if sheets were removed through one of the views.
+     */
+    private void checkIndex() {
+
+        if (indexedSize == size())
+            return;
+
+        sheets = new Object[sheets.length];
+
+        Iterator<Map.Entry<String, Map<String, Object>>> itr =
+            entrySet().iterator();
+
+        while (itr.hasNext()) {
+            Map.Entry<String, Map<String, Object>> entry = itr.next();
+            index(entry.getKey(), entry.getValue());
+        }
+
+        indexedSize = size();
+    }
+}
@@ -0,0 +1,39 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+//External Imports
+
+//Internal Imports
+
+/**
+ * A command that can be handed back to a pool once the command controller
+ * has finished with it. Used by commands issued at mouse rate so that a
+ * drag does not create a new command per event.
+ * <p>
+ * Controllers call recycle() after the command has been processed or
+ * rejected and the listeners have been notified. The command must not be
+ * used by anyone after that point.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public interface RecyclableCommand {
+
+	/**
+	 * Return the command to its pool. Commands that were not taken from
+	 * a pool ignore the request.
+	 */
+	public void recycle();
+
+}
@@ -13,7 +13,9 @@ package org.chefx3d.model;
 
 // External Imports
 import java.io.*;
+import java.util.*;
 import org.w3c.dom.*;
+import javax.xml.parsers.*;
 import javax.xml.transform.*;
 import javax.xml.transform.stream.*;
 import javax.xml.transform.dom.DOMSource;
@@ -31,6 +33,15 @@ import javax.xml.transform.dom.DOMSource;
  */
 public class SMALExporter extends AbstractExporter implements Exporter {
 
+    /** The builder of the entity documents, created on first use */
+    private DocumentBuilder builder;
+
+    /** Scratch position */
+    private double[] entityPos = new double[3];
+
+    /** Scratch rotation */
+    private float[] entityRot = new float[4];
+
     /**
      * Save the current world to the specified file as a SMAL file.
      *
@@ -160,7 +171,7 @@ public class SMALExporter extends AbstractExporter implements Exporter {
         sw.write(td.getEntityID() + " -->\n");
 
         try {
-            Document combined_props = combinePropertySheets(td);
+            Document combined_props = createEntityDocument(td);
             DOMSource ds = new DOMSource(combined_props);
             trans.transform(ds, result);
 
@@ -178,6 +189,114 @@ public class SMALExporter extends AbstractExporter implements Exporter {
         sw.close();
     }
 
+    /**
+     * Create the ChefX3D document of an entity and its children.
+     *
+     * @param td The entity
+     * @return The document
+     */
+    private Document createEntityDocument(Entity td)
+        throws ParserConfigurationException {
+
+        if (builder == null) {
+            DocumentBuilderFactory builderFactory =
+                DocumentBuilderFactory.newInstance();
+            builder = builderFactory.newDocumentBuilder();
+        }
+
+        Document doc = builder.newDocument();
+        doc.appendChild(createEntityElement(doc, td));
+
+        return doc;
+    }
+
+    /**
+     * Create the ChefX3D element of an entity and its children.
+     *
+     * @param doc The document to create it in
+     * @param td The entity
+     * @return The element
+     */
+    private Element createEntityElement(Document doc, Entity td) {
+
+        Element root = doc.createElement(SMALFormat.ENTITY_ELEMENT);
+
+        Element toolParams = doc.createElement(SMALFormat.TOOL_PARAMS_ELEMENT);
+        if (td.getName() != null)
+            toolParams.setAttribute(SMALFormat.NAME_ATTR, td.getName());
+        toolParams.setAttribute(
+            SMALFormat.ENTITY_ID_ATTR,
+            Integer.toString(td.getEntityID()));
+        if (td.getParamSheetName() != null)
+            toolParams.setAttribute(
+                SMALFormat.PARAM_SHEET_ATTR,
+                td.getParamSheetName());
+        root.appendChild(toolParams);
+
+        if (td instanceof PositionableEntity) {
+            ((PositionableEntity)td).getPosition(entityPos);
+            ((PositionableEntity)td).getRotation(entityRot);
+
+            Element transform = doc.createElement(SMALFormat.TRANSFORM_ELEMENT);
+            transform.setAttribute(
+                SMALFormat.TRANSLATION_ATTR,
+                SMALFormat.encodeDoubles(entityPos));
+            transform.setAttribute(
+                SMALFormat.ROTATION_ATTR,
+                SMALFormat.encodeFloats(entityRot));
+            root.appendChild(transform);
+        }
+
+        Element entityParams = doc.createElement(SMALFormat.ENTITY_PARAMS_ELEMENT);
+        root.appendChild(entityParams);
+
+        Map<String, Map<String, Object>> sheets = SMALFormat.getSheets(td);
+        Iterator<Map.Entry<String, Map<String, Object>>> itr =
+            sheets.entrySet().iterator();
+
+        while (itr.hasNext()) {
+            Map.Entry<String, Map<String, Object>> sheetEntry = itr.next();
+
+            Element sheet = doc.createElement(SMALFormat.SHEET_ELEMENT);
+            sheet.setAttribute(SMALFormat.NAME_ATTR, sheetEntry.getKey());
+            entityParams.appendChild(sheet);
+
+            if (sheetEntry.getValue() == null)
+                continue;
+
+            Iterator<Map.Entry<String, Object>> propItr =
+                sheetEntry.getValue().entrySet().iterator();
+
+            while (propItr.hasNext()) {
+                Map.Entry<String, Object> propEntry = propItr.next();
+                Object value = propEntry.getValue();
+                String type = SMALFormat.getValueType(value);
+
+                if (type == null)
+                    continue;
+
+                Element prop = doc.createElement(SMALFormat.PROPERTY_ELEMENT);
+                prop.setAttribute(SMALFormat.NAME_ATTR, propEntry.getKey());
+                prop.setAttribute(SMALFormat.TYPE_ATTR, type);
+                prop.setAttribute(
+                    SMALFormat.VALUE_ATTR,
+                    SMALFormat.encodeValue(value));
+                sheet.appendChild(prop);
+            }
+        }
+
+        List<Entity> children = td.getChildren();
+        if (children != null && children.size() > 0) {
+            Element childList = doc.createElement(SMALFormat.CHILDREN_ELEMENT);
+            root.appendChild(childList);
+
+            for (int i = 0; i < children.size(); i++)
+                childList.appendChild(createEntityElement(doc, children.get(i)));
+        }
+
+        return root;
+    }
+
     /**
      * Output a specific entity to the specified file.
      *
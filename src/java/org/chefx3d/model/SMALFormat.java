@@ -0,0 +1,371 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+// Local imports
+// none
+
+/**
+ * Element names and value encoding shared by the SMAL importers and
+ * exporters.
+ * <p>
+ * A SMAL file holds one ChefX3D element per top level entity:
+ *
+ * <pre>
+ * &lt;SMAL&gt;
+ *   &lt;ChefX3D&gt;
+ *     &lt;ToolParams name="..." entityID="..." paramSheet="..."/&gt;
+ *     &lt;Transform translation="x y z" rotation="x y z a"/&gt;
+ *     &lt;EntityParams&gt;
+ *       &lt;Sheet name="..."&gt;
+ *         &lt;Property name="..." type="..." value="..."/&gt;
+ *       &lt;/Sheet&gt;
+ *     &lt;/EntityParams&gt;
+ *     &lt;Children&gt; ChefX3D elements of the children &lt;/Children&gt;
+ *   &lt;/ChefX3D&gt;
+ * &lt;/SMAL&gt;
+ * </pre>
+ *
+ * The entity params are written as the sheet named Entity.ENTITY_PARAMS.
+ *
+ * @author Alan Hudson
+ * @version $Revision: 1.1 $
+ */
+final class SMALFormat {
+
+    /** The root element */
+    static final String SMAL_ELEMENT = "SMAL";
+
+    /** The element holding one entity */
+    static final String ENTITY_ELEMENT = "ChefX3D";
+
+    /** The element holding the entity ID and name */
+    static final String TOOL_PARAMS_ELEMENT = "ToolParams";
+
+    /** The element holding the entity position and rotation */
+    static final String TRANSFORM_ELEMENT = "Transform";
+
+    /** The element holding the property sheets */
+    static final String ENTITY_PARAMS_ELEMENT = "EntityParams";
+
+    /** The element holding one property sheet */
+    static final String SHEET_ELEMENT = "Sheet";
+
+    /** The element holding one property */
+    static final String PROPERTY_ELEMENT = "Property";
+
+    /** The element holding the children of an entity */
+    static final String CHILDREN_ELEMENT = "Children";
+
+    /** Attribute names */
+    static final String NAME_ATTR = "name";
+    static final String ENTITY_ID_ATTR = "entityID";
+    static final String PARAM_SHEET_ATTR = "paramSheet";
+    static final String TRANSLATION_ATTR = "translation";
+    static final String ROTATION_ATTR = "rotation";
+    static final String TYPE_ATTR = "type";
+    static final String VALUE_ATTR = "value";
+
+    /** Value types */
+    private static final String NULL_TYPE = "null";
+    private static final String STRING_TYPE = "String";
+    private static final String BOOLEAN_TYPE = "Boolean";
+    private static final String INTEGER_TYPE = "Integer";
+    private static final String LONG_TYPE = "Long";
+    private static final String FLOAT_TYPE = "Float";
+    private static final String DOUBLE_TYPE = "Double";
+    private static final String INT_ARRAY_TYPE = "int[]";
+    private static final String FLOAT_ARRAY_TYPE = "float[]";
+    private static final String DOUBLE_ARRAY_TYPE = "double[]";
+    private static final String ENUM_TYPE_PREFIX = "enum:";
+
+    /**
+     * Static methods only.
+     */
+    private SMALFormat() {
+    }
+
+    /**
+     * Get the property sheets of an entity to write, with the entity params
+     * as the sheet named Entity.ENTITY_PARAMS.
+     *
+     * @param entity The entity
+     * @return The sheets by name
+     */
+    static Map<String, Map<String, Object>> getSheets(Entity entity) {
+
+        Map<String, Map<String, Object>> sheets =
+            new LinkedHashMap<String, Map<String, Object>>();
+
+        if (entity instanceof BaseEntity) {
+            List<EntityProperty> params = ((BaseEntity)entity).getParams();
+            if (params != null) {
+                Map<String, Object> paramSheet = new LinkedHashMap<String, Object>();
+                for (int i = 0; i < params.size(); i++) {
+                    EntityProperty param = params.get(i);
+                    paramSheet.put(param.propertyName, param.propertyValue);
+                }
+                sheets.put(Entity.ENTITY_PARAMS, paramSheet);
+            }
+        }
+
+        Map<String, Map<String, Object>> props = entity.getPropertiesMap();
+        if (props != null)
+            sheets.putAll(props);
+
+        return sheets;
+    }
+
+    /**
+     * Get the type name a value is written with.
+     *
+     * @param value The value
+     * @return The type name, or null if the value can't be written
+     */
+    static String getValueType(Object value) {
+
+        if (value == null)
+            return NULL_TYPE;
+        else if (value instanceof String)
+            return STRING_TYPE;
+        else if (value instanceof Boolean)
+            return BOOLEAN_TYPE;
+        else if (value instanceof Integer)
+            return INTEGER_TYPE;
+        else if (value instanceof Long)
+            return LONG_TYPE;
+        else if (value instanceof Float)
+            return FLOAT_TYPE;
+        else if (value instanceof Double)
+            return DOUBLE_TYPE;
+        else if (value instanceof int[])
+            return INT_ARRAY_TYPE;
+        else if (value instanceof float[])
+            return FLOAT_ARRAY_TYPE;
+        else if (value instanceof double[])
+            return DOUBLE_ARRAY_TYPE;
+        else if (value instanceof Enum)
+            return ENUM_TYPE_PREFIX +
+                ((Enum<?>)value).getDeclaringClass().getName();
+
+        return null;
+    }
+
+    /**
+     * Encode a value as text. The value type must be one getValueType()
+     * accepts.
+     *
+     * @param value The value
+     * @return The text
+     */
+    static String encodeValue(Object value) {
+
+        if (value == null)
+            return "";
+        else if (value instanceof int[])
+            return encodeInts((int[])value);
+        else if (value instanceof float[])
+            return encodeFloats((float[])value);
+        else if (value instanceof double[])
+            return encodeDoubles((double[])value);
+        else if (value instanceof Enum)
+            return ((Enum<?>)value).name();
+
+        return value.toString();
+    }
+
+    /**
+     * Decode a value written by encodeValue().
+     *
+     * @param type The type name
+     * @param text The text
+     * @return The value
+     * @throws IllegalArgumentException The type is unknown or the text
+     *   does not hold a value of it
+     */
+    @SuppressWarnings("unchecked")
+    static Object decodeValue(String type, String text) {
+
+        if (NULL_TYPE.equals(type))
+            return null;
+        else if (STRING_TYPE.equals(type))
+            return text;
+        else if (BOOLEAN_TYPE.equals(type))
+            return Boolean.valueOf(text);
+        else if (INTEGER_TYPE.equals(type))
+            return Integer.valueOf(text);
+        else if (LONG_TYPE.equals(type))
+            return Long.valueOf(text);
+        else if (FLOAT_TYPE.equals(type))
+            return Float.valueOf(text);
+        else if (DOUBLE_TYPE.equals(type))
+            return Double.valueOf(text);
+        else if (INT_ARRAY_TYPE.equals(type))
+            return decodeInts(text);
+        else if (FLOAT_ARRAY_TYPE.equals(type))
+            return decodeFloats(text);
+        else if (DOUBLE_ARRAY_TYPE.equals(type))
+            return decodeDoubles(text);
+        else if (type != null && type.startsWith(ENUM_TYPE_PREFIX)) {
+            String className = type.substring(ENUM_TYPE_PREFIX.length());
+            Class<?> cls;
+            try {
+                cls = Class.forName(className);
+            } catch (ClassNotFoundException cnfe) {
+                throw new IllegalArgumentException(
+                    "Unknown enum type: " + className);
+            }
+
+            Object[] constants = cls.getEnumConstants();
+            if (constants == null)
+                throw new IllegalArgumentException(
+                    "Not an enum type: " + className);
+
+            for (int i = 0; i < constants.length; i++) {
+                if (((Enum<?>) constants[i]).name().equals(text))
+                    return constants[i];
+            }
+
+            throw new IllegalArgumentException(
+                "Unknown " + className + " constant: " + text);
+        }
+
+        throw new IllegalArgumentException("Unknown property type: " + type);
+    }
+
+    /**
+     * Create an entity from the values read for it.
+     *
+     * @param entityID The entity ID
+     * @param paramSheet The param sheet name, null for the default
+     * @param pos The position, null to use the one in the sheets
+     * @param rot The rotation, null to use the one in the sheets
+     * @param sheets The sheets read, including the entity params
+     * @return The entity
+     */
+    static Entity createEntity(
+            int entityID,
+            String paramSheet,
+            double[] pos,
+            float[] rot,
+            Map<String, Map<String, Object>> sheets) {
+
+        if (paramSheet == null || paramSheet.length() == 0)
+            paramSheet = Entity.DEFAULT_ENTITY_PROPERTIES;
+
+        Map<String, Object> positionSheet =
+            sheets.get(Entity.DEFAULT_ENTITY_PROPERTIES);
+        if (positionSheet == null) {
+            positionSheet = new HashMap<String, Object>();
+            sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, positionSheet);
+        }
+
+        if (pos != null)
+            positionSheet.put(PositionableEntity.POSITION_PROP, pos);
+
+        if (rot != null)
+            positionSheet.put(PositionableEntity.ROTATION_PROP, rot);
+
+        // fixed size entities keep their scale in the params
+        Map<String, Object> params = sheets.get(Entity.ENTITY_PARAMS);
+        if (params != null &&
+            !positionSheet.containsKey(PositionableEntity.SCALE_PROP) &&
+            params.containsKey(PositionableEntity.SCALE_PROP)) {
+
+            positionSheet.put(
+                PositionableEntity.SCALE_PROP,
+                params.get(PositionableEntity.SCALE_PROP));
+        }
+
+        return new DefaultEntity(entityID, paramSheet, sheets);
+    }
+
+    /**
+     * Encode ints as a space separated list.
+     */
+    static String encodeInts(int[] val) {
+        StringBuilder buf = new StringBuilder(val.length * 4);
+        for (int i = 0; i < val.length; i++) {
+            if (i > 0)
+                buf.append(' ');
+            buf.append(val[i]);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Encode floats as a space separated list.
+     */
+    static String encodeFloats(float[] val) {
+        StringBuilder buf = new StringBuilder(val.length * 8);
+        for (int i = 0; i < val.length; i++) {
+            if (i > 0)
+                buf.append(' ');
+            buf.append(val[i]);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Encode doubles as a space separated list.
+     */
+    static String encodeDoubles(double[] val) {
+        StringBuilder buf = new StringBuilder(val.length * 12);
+        for (int i = 0; i < val.length; i++) {
+            if (i > 0)
+                buf.append(' ');
+            buf.append(val[i]);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Decode a space separated list of ints.
+     */
+    static int[] decodeInts(String text) {
+        StringTokenizer st = new StringTokenizer(text);
+        int[] val = new int[st.countTokens()];
+        for (int i = 0; i < val.length; i++)
+            val[i] = Integer.parseInt(st.nextToken());
+        return val;
+    }
+
+    /**
+     * Decode a space separated list of floats.
+     */
+    static float[] decodeFloats(String text) {
+        StringTokenizer st = new StringTokenizer(text);
+        float[] val = new float[st.countTokens()];
+        for (int i = 0; i < val.length; i++)
+            val[i] = Float.parseFloat(st.nextToken());
+        return val;
+    }
+
+    /**
+     * Decode a space separated list of doubles.
+     */
+    static double[] decodeDoubles(String text) {
+        StringTokenizer st = new StringTokenizer(text);
+        double[] val = new double[st.countTokens()];
+        for (int i = 0; i < val.length; i++)
+            val[i] = Double.parseDouble(st.nextToken());
+        return val;
+    }
+}
@@ -18,8 +18,6 @@ import org.w3c.dom.*;
 import org.xml.sax.InputSource;
 import javax.xml.parsers.*;
 
-import com.sun.org.apache.xerces.internal.dom.DOMImplementationImpl;
-
 // Internal Imports
 //import org.chefx3d.catalog.CatalogManager;
 //import org.chefx3d.tool.*;
@@ -58,11 +56,20 @@ public class SMALImporter implements Importer {
      * @param rdr The file reader
      */
     public void importModel(WorldModel wmodel, FileReader rdr) throws LoadToolException {
+        importModel(wmodel, (Reader) rdr);
+    }
+
+    /**
+     * Import a SMAL stream into the provided model.
+     *
+     * @param wmodel The world model
+     * @param rdr The stream to read from
+     */
+    public void importModel(WorldModel wmodel, Reader rdr) throws LoadToolException {
         BaseWorldModel model = (BaseWorldModel) wmodel;
 
         DocumentBuilderFactory builderFactory;
         DocumentBuilder builder;
-        Node n;
 
         try {
             builderFactory = DocumentBuilderFactory.newInstance();
@@ -89,16 +96,9 @@ public class SMALImporter implements Importer {
         ClearModelCommand clearCmd = new ClearModelCommand(model);
         model.applyCommand(clearCmd);
 
-        int entityID;
-        double[] pos = new double[3];
-        double[] trans = new double[3];
-        float[] rot = new float[4];
-        String toolName;
-        //Tool tool;
-
-        NodeList entityList = document.getElementsByTagName("SMAL");
+        NodeList entityList = document.getElementsByTagName(SMALFormat.SMAL_ELEMENT);
 
-        if (entityList.getLength() < 0) {
+        if (entityList.getLength() <= 0) {
             errorReporter.messageReport("No SMAL tag in file");
             return;
         }
@@ -106,308 +106,189 @@ public class SMALImporter implements Importer {
         entityList = ((Element) entityList.item(0)).getChildNodes();
 
         int len = entityList.getLength();
-        int entityCount = 0;
+        ArrayList<Entity> toolValues = new ArrayList<Entity>(len);
 
         for (int i = 0; i < len; i++) {
-            n = entityList.item(i);
-            if (n instanceof Element) {
-                entityCount++;
-            }
-        }
-        //errorReporter.messageReport("Got entities: " + entityCount);
+            Node n = entityList.item(i);
 
-        NodeList list;
-        NodeList toolParamsList;
-        NodeList transformList;
-        NodeList segmentList;
-        NodeList associationList;
-        Element entity;
-        Element toolParams;
-        Element transform;
-        Entity[] toolValues = new DefaultEntity[entityCount];
+            if (!(n instanceof Element))
+                continue;
 
-        entityCount = 0;
+            Entity newEntity = readEntity((Element) n);
 
-        //CatalogManager catalogManager = CatalogManager.getCatalogManager();
+            if (newEntity != null)
+                toolValues.add(newEntity);
+        }
 
-        for (int i = 0; i < len; i++) {
-            n = entityList.item(i);
+        model.setModelData(toolValues.toArray(new Entity[toolValues.size()]));
+    }
 
-            if (!(n instanceof Element))
-                continue;
+    /**
+     * Create an entity and its children from a ChefX3D element.
+     *
+     * @param entity The entity element
+     * @return The entity, or null if it could not be read
+     */
+    private Entity readEntity(Element entity) {
 
-            entity = (Element) n;
+        if (!SMALFormat.ENTITY_ELEMENT.equals(entity.getTagName()))
+            return null;
 
-//System.out.println("***Loading entity: " + entity);
+        Element toolParams = getChildElement(entity, SMALFormat.TOOL_PARAMS_ELEMENT);
 
-            transformList = entity.getElementsByTagName("Transform");
+        if (toolParams == null) {
+            errorReporter.messageReport("No ToolParams found for entity, skipping");
+            return null;
+        }
 
-            if (transformList.getLength() <= 0) {
-                errorReporter.messageReport("No Transform found for entity, skipping");
-                continue;
-            }
+        double[] trans = null;
+        float[] rot = null;
 
-            transform = (Element) transformList.item(0);
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
 
-            String posString = transform.getAttribute("translation");
-            if (posString == null) {
-                errorReporter.messageReport("Invalid translation");
-                continue;
-            }
-            parseDoublesString(posString, trans);
+        Entity newEntity;
 
-            String rotString = transform.getAttribute("rotation");
-            if (rotString == null) {
-                errorReporter.messageReport("Invalid rotation");
-                continue;
-            }
-            parseFloatsString(rotString, rot);
+        try {
+            Element transform = getChildElement(entity, SMALFormat.TRANSFORM_ELEMENT);
 
-            toolParamsList = entity.getElementsByTagName("ToolParams");
+            if (transform != null) {
+                String posString = transform.getAttribute(SMALFormat.TRANSLATION_ATTR);
+                if (posString.length() > 0)
+                    trans = SMALFormat.decodeDoubles(posString);
 
-            if (toolParamsList.getLength() <= 0) {
-                errorReporter.messageReport("No ToolParams found for entity, skipping");
-                continue;
+                String rotString = transform.getAttribute(SMALFormat.ROTATION_ATTR);
+                if (rotString.length() > 0)
+                    rot = SMALFormat.decodeFloats(rotString);
             }
 
-            toolParams = (Element) toolParamsList.item(0);
+            Element entityParams =
+                getChildElement(entity, SMALFormat.ENTITY_PARAMS_ELEMENT);
+
+            if (entityParams != null)
+                readSheets(entityParams, sheets);
+
+            int entityID = Integer.parseInt(
+                toolParams.getAttribute(SMALFormat.ENTITY_ID_ATTR));
+
+            newEntity = SMALFormat.createEntity(
+                entityID,
+                toolParams.getAttribute(SMALFormat.PARAM_SHEET_ATTR),
+                trans,
+                rot,
+                sheets);
+        } catch (RuntimeException re) {
+            errorReporter.errorReport("Invalid entity: " +
+                toolParams.getAttribute(SMALFormat.ENTITY_ID_ATTR), re);
+            return null;
+        }
 
-            toolName = toolParams.getAttribute("name");
-            //tool = catalogManager.findTool(toolName);
+        Element children = getChildElement(entity, SMALFormat.CHILDREN_ELEMENT);
 
-            //if (tool == null) {
-            //    System.out.println("Cannot find tool: " + toolName);
-            //    throw new LoadToolException("Cannot find tool: " + toolName);
-            //}
+        if (children != null) {
+            NodeList list = children.getChildNodes();
 
-            entityID = Integer.parseInt(toolParams.getAttribute("entityID"));
-            //errorReporter.messageReport("Find tool: " + toolName + " tool: " + tool);
+            for (int i = 0; i < list.getLength(); i++) {
+                Node n = list.item(i);
 
-            //errorReporter.messageReport("translation: " + Arrays.toString(trans));
-            //errorReporter.messageReport("rotation: " + Arrays.toString(rot));
+                if (!(n instanceof Element))
+                    continue;
 
-            if (toolParamsList.getLength() <= 0) {
-                errorReporter.messageReport("No ToolParams found for entity, skipping");
-                continue;
+                Entity child = readEntity((Element) n);
+
+                if (child != null)
+                    newEntity.addChild(child);
             }
+        }
 
-            toolParams = (Element) toolParamsList.item(0);
-
-            Document doc = builder.getDOMImplementation().createDocument("",
-                    "ChefX3D", null);
-            NodeList children = entity.getChildNodes();
-            Element root = doc.getDocumentElement();
-
-            // Remove property sheets which aren't the first
-            Element entityParams = DOMUtils.getSingleElement("EntityParams", entity,
-                true, null, errorReporter);
-
-            Element[] other_sheets = null;
-            DOMImplementation dom_impl = null;
-
-            if (entityParams != null) {
-                NodeList sheets = entityParams.getElementsByTagName("Sheet");
-                int slen = sheets.getLength();
-
-/*
-System.out.println("***Available sheets");
-for(int j=0; j < slen; j++) {
-    String sname = ((Element)sheets.item(j)).getAttribute("name");
-    System.out.println(sname);
-}
-*/
-
-                if (slen > 1) {
-                    int os_idx = 0;
-                    other_sheets = new Element[slen - 1];
-
-                    // Remove other sheets
-//                    System.out.println("*** Sheets: " + sheets.getLength() + " slen: " + slen);
-                    for(int j=1; j < slen; j++) {
-                        Node node = sheets.item(1);
-                        String name = ((Element)node).getAttribute("name");
-
-//                        System.out.println("node: " + node.hashCode() + " name: " + name);
-                        other_sheets[os_idx++] = (Element) node.getParentNode().removeChild(node);
-//                        System.out.println("Saved sheet: " + other_sheets[os_idx-1]);
-//                        System.out.println("Sheet name: " + ((Element)other_sheets[os_idx-1]).getAttribute("name"));
-//System.out.println("Get item: " + j + " slen: " + slen + " sheets len: " + sheets.getLength());
-                    }
-
-                    try {
-                        dom_impl = new DOMImplementationImpl();
-                    } catch ( Exception e ) {
-                        e.printStackTrace();
-                    }
+        return newEntity;
+    }
 
-                }
-            }
+    /**
+     * Read the property sheets of an EntityParams element.
+     *
+     * @param entityParams The EntityParams element
+     * @param sheets The map to put the sheets in
+     */
+    private void readSheets(
+            Element entityParams,
+            Map<String, Map<String, Object>> sheets) {
+
+        NodeList sheetList = entityParams.getChildNodes();
+
+        for (int i = 0; i < sheetList.getLength(); i++) {
+            Node n = sheetList.item(i);
+
+            if (!(n instanceof Element) ||
+                !SMALFormat.SHEET_ELEMENT.equals(((Element) n).getTagName()))
+                continue;
 
-            for (int j = 0; j < children.getLength(); j++) {
-                n = doc.importNode(children.item(j), true);
-                root.appendChild(n);
+            Element sheetElement = (Element) n;
+            String sheetName = sheetElement.getAttribute(SMALFormat.NAME_ATTR);
+
+            Map<String, Object> sheet = sheets.get(sheetName);
+            if (sheet == null) {
+                sheet = new HashMap<String, Object>();
+                sheets.put(sheetName, sheet);
             }
-            // TODO: Not sure why this has to be done after the import.
-            // Shouldn't.
-            addDataEditors(doc, "SMAL");
 
-            // DOMUtils.print(doc);
+            NodeList propList = sheetElement.getChildNodes();
 
-//System.out.println("***Creating SMAL dom");
-            // TODO: How to get the right propertySheet name for this?
-            HashMap<String, Document> props = new HashMap<String, Document>();
-            props.put("SMAL", doc);
+            for (int j = 0; j < propList.getLength(); j++) {
+                n = propList.item(j);
 
-            if (other_sheets != null) {
-//System.out.println("***Other sheets: name: " + toolName + " sheets: " + other_sheets.length);
-                for(int k=0; k < other_sheets.length; k++) {
-                    // Need to wrap the sheets with ChefX3D/EntityParams
-                    Document ps_doc = dom_impl.createDocument(null, "ChefX3D", null);
-                    Node ps_root = ps_doc.getDocumentElement();
-                    Element e = ps_doc.createElement("EntityParams");
-                    ps_root.appendChild(e);
-//System.out.println("Other sheet: " + other_sheets[k]);
-                    Node node = ps_doc.importNode(other_sheets[k], true);
+                if (!(n instanceof Element))
+                    continue;
 
-                    e.appendChild(node);
+                Element prop = (Element) n;
 
-                    String sheet_name = other_sheets[k].getAttribute("name");
+                if (!SMALFormat.PROPERTY_ELEMENT.equals(prop.getTagName()))
+                    continue;
 
-                    //System.out.println("Adding sheet: " + sheet_name);
-                    addDataEditors(ps_doc, sheet_name);
+                String name = prop.getAttribute(SMALFormat.NAME_ATTR);
 
-                    props.put(sheet_name, ps_doc);
-                }
-            }
-            
-//            EntityBuilder entityBuilder = EntityBuilder.getEntityBuilder();
-//            Entity newEntity = entityBuilder.createEntity(model, entityID, trans, rot, tool);
-//            
-//            AddEntityCommand cmd = new AddEntityCommand(model, newEntity);
-//            model.applyCommand(cmd);
-//
-//            toolValues[entityCount++] = newEntity;
-//
-//            // Handle Segments
-//            if (newEntity instanceof SegmentableEntity) {
-//                
-//                segmentList = toolParams.getElementsByTagName("Segment");
-//
-//                if (segmentList.getLength() > 0) {
-//
-//                    int startVertexID;
-//                    int endVertexID;
-//                    Element segment;
-//                    for (int j = 0; j < segmentList.getLength(); j++) {
-//                        segment = (Element) segmentList.item(j);
-//                        startVertexID = Integer.parseInt(segment.getAttribute("startId"));
-//
-//                        if (j == 0) {
-//                            posString = segment.getAttribute("start");
-//                            parseDoublesString(posString, pos);
-//                            ((SegmentableEntity)newEntity).addVertex(startVertexID, pos, j, null);
-//                        }
-//                        endVertexID = Integer.parseInt(segment.getAttribute("endId"));
-//                        posString = segment.getAttribute("end");
-//
-//                        parseDoublesString(posString, pos);
-//
-//                        ((SegmentableEntity)newEntity).addVertex(endVertexID, pos, j, null);
-//                        ((SegmentableEntity)newEntity).addSegment(j, startVertexID, endVertexID, false, null);
-//                    }
-//                }
-//                
-//            }
-
-            // Handle associations
-            /*
-            if (newEntity instanceof AssociatableEntity) {
-                     
-                associationList = entity.getElementsByTagName("Associate");
-    
-                //errorReporter.messageReport("association list: " + associationList.getLength());
-                if (associationList.getLength() > 0) {
-                    Element association;
-                    int childID;
-    
-                    for (int j = 0; j < associationList.getLength(); j++) {
-                        association = (Element) associationList.item(j);
-                        list = association.getElementsByTagName("ToolParams");
-    
-                        if (list.getLength() <= 0) {
-                            continue;
-                        }
-                        toolParams = (Element) list.item(0);
-    
-                        childID = Integer.parseInt(toolParams
-                                .getAttribute("entityID"));
-                        ((AssociatableEntity)newEntity).addAssociation(childID);
-                    }
+                try {
+                    sheet.put(name, SMALFormat.decodeValue(
+                        prop.getAttribute(SMALFormat.TYPE_ATTR),
+                        prop.getAttribute(SMALFormat.VALUE_ATTR)));
+                } catch (IllegalArgumentException iae) {
+                    errorReporter.messageReport(
+                        "Invalid property " + name + ": " + iae.getMessage());
                 }
             }
-            */
-            //org.chefx3d.util.DOMUtils.print(td.getProperties("SMAL"));
-            //System.out.println("");
         }
-
-        model.setModelData(toolValues);
     }
 
     /**
-     * A hook for user code to add data editors. Should be unneeded when schema
-     * processing is added for property editors.
+     * Get the first child element of an element with a tag name.
      *
-     * @param dom The dom
-     * @param sheet The sheet name the properties are from
+     * @param parent The element to search
+     * @param name The tag name
+     * @return The child, or null if there is none
      */
-    public void addDataEditors(Document dom, String sheet) {
-        // no-op
-    }
+    private Element getChildElement(Element parent, String name) {
 
-    /**
-     * Parses a String of float data seperated by spaces. Put the results in the
-     * preallocated value array.
-     *
-     * @param f The float string
-     * @param val The preallocated array
-     */
-    private void parseFloatsString(String f, float[] val) {
-        if (f == null)
-            return;
-
-        StringTokenizer st = new StringTokenizer(f);
-
-        String fstr;
-
-        int i = 0;
-
-        while (st.hasMoreTokens()) {
-            fstr = st.nextToken();
-            val[i++] = Float.parseFloat(fstr);
+        for (Node n = parent.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n instanceof Element && name.equals(((Element) n).getTagName()))
+                return (Element) n;
         }
+
+        return null;
     }
 
     /**
-     * Parses a String of double data seperated by spaces. Put the results in
-     * the preallocated value array.
+     * A hook for user code to add data editors. Should be unneeded when schema
+     * processing is added for property editors.
      *
-     * @param f The float string
-     * @param val The preallocated array
+     * @param dom The dom
+     * @param sheet The sheet name the properties are from
+     * @deprecated The importer no longer builds a document for each
+     *   property sheet of an entity, so this hook is never called. Data
+     *   editors should come from the tool definitions.
      */
-    private void parseDoublesString(String f, double[] val) {
-        if (f == null)
-            return;
-
-        StringTokenizer st = new StringTokenizer(f);
-
-        String fstr;
-
-        int i = 0;
-
-        while (st.hasMoreTokens()) {
-            fstr = st.nextToken();
-            val[i++] = Double.parseDouble(fstr);
-        }
+    @Deprecated
+    public void addDataEditors(Document dom, String sheet) {
+        // no-op
     }
 
     /**
@@ -0,0 +1,298 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+// Local imports
+// none
+
+/**
+ * Export a world model into the SMAL format, writing each entity straight
+ * to the stream.
+ * <p>
+ * Writes the same document as SMALExporter without building a DOM of
+ * each entity, so memory use does not grow with the size of the model.
+ * Property values of types the format can't hold are skipped and
+ * reported once per type.
+ *
+ * @author Alan Hudson
+ * @version $Revision: 1.1 $
+ */
+public class SMALStreamExporter extends AbstractExporter implements Exporter {
+
+    /** The value types already reported as skipped */
+    private HashSet<String> skippedTypes;
+
+    /** Scratch position */
+    private double[] pos;
+
+    /** Scratch rotation */
+    private float[] rot;
+
+    /**
+     * A new streaming SMAL exporter.
+     */
+    public SMALStreamExporter() {
+        skippedTypes = new HashSet<String>();
+        pos = new double[3];
+        rot = new float[4];
+    }
+
+    /**
+     * Save the current world to the specified stream as a SMAL file.
+     *
+     * @param model The world model
+     * @param fw The writer stream
+     */
+    public void export(WorldModel model, Writer fw) {
+
+        Entity[] toolValues = ((BaseWorldModel) model).getModelData();
+
+        try {
+            XMLStreamWriter out = startDocument(fw);
+
+            for (int i = 0; i < toolValues.length; i++) {
+                Entity td = toolValues[i];
+
+                if (td == null)
+                    continue;
+
+                writeEntity(out, td, 1);
+            }
+
+            endDocument(out);
+            fw.close();
+        } catch (XMLStreamException xse) {
+            errorReporter.errorReport("SMAL Export Error!", xse);
+        } catch (IOException ioe) {
+            errorReporter.errorReport("SMAL Export Error!", ioe);
+        }
+    }
+
+    /**
+     * Output a specific entity to the specified stream.
+     *
+     * @param model The world model to export
+     * @param entityID The entity to export
+     * @param fw The stream to write to
+     */
+    public void export(WorldModel model, int entityID, Writer fw) {
+
+        Entity td = model.getEntity(entityID);
+
+        try {
+            XMLStreamWriter out = startDocument(fw);
+
+            if (td != null)
+                writeEntity(out, td, 1);
+
+            endDocument(out);
+            fw.close();
+        } catch (XMLStreamException xse) {
+            errorReporter.errorReport("SMAL Export Error!", xse);
+        } catch (IOException ioe) {
+            errorReporter.errorReport("SMAL Export Error!", ioe);
+        }
+    }
+
+    /**
+     * Output a specific entity to the specified file.
+     *
+     * @param model The world model to export
+     * @param name The entity to export
+     * @param file - The file to write to
+     */
+    public void export(WorldModel model, String name, File file) {
+        // not implemented
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Write the XML declaration and open the SMAL element.
+     *
+     * @param fw The stream to write to
+     * @return The XML writer
+     */
+    private XMLStreamWriter startDocument(Writer fw)
+        throws XMLStreamException {
+
+        XMLOutputFactory factory = XMLOutputFactory.newInstance();
+        XMLStreamWriter out = factory.createXMLStreamWriter(fw);
+
+        out.writeStartDocument("UTF-8", "1.0");
+        out.writeCharacters("\n");
+        out.writeStartElement(SMALFormat.SMAL_ELEMENT);
+
+        return out;
+    }
+
+    /**
+     * Close the SMAL element and flush the document.
+     *
+     * @param out The XML writer
+     */
+    private void endDocument(XMLStreamWriter out) throws XMLStreamException {
+        out.writeCharacters("\n");
+        out.writeEndElement();
+        out.writeCharacters("\n");
+        out.writeEndDocument();
+        out.flush();
+    }
+
+    /**
+     * Write an entity and its children.
+     *
+     * @param out The XML writer
+     * @param entity The entity
+     * @param depth The nesting depth of the entity element
+     */
+    private void writeEntity(XMLStreamWriter out, Entity entity, int depth)
+        throws XMLStreamException {
+
+        indent(out, depth);
+        out.writeStartElement(SMALFormat.ENTITY_ELEMENT);
+
+        indent(out, depth + 1);
+        out.writeEmptyElement(SMALFormat.TOOL_PARAMS_ELEMENT);
+        String name = entity.getName();
+        if (name != null)
+            out.writeAttribute(SMALFormat.NAME_ATTR, name);
+        out.writeAttribute(
+            SMALFormat.ENTITY_ID_ATTR,
+            Integer.toString(entity.getEntityID()));
+        String paramSheet = entity.getParamSheetName();
+        if (paramSheet != null)
+            out.writeAttribute(SMALFormat.PARAM_SHEET_ATTR, paramSheet);
+
+        if (entity instanceof PositionableEntity) {
+            ((PositionableEntity)entity).getPosition(pos);
+            ((PositionableEntity)entity).getRotation(rot);
+
+            indent(out, depth + 1);
+            out.writeEmptyElement(SMALFormat.TRANSFORM_ELEMENT);
+            out.writeAttribute(
+                SMALFormat.TRANSLATION_ATTR,
+                SMALFormat.encodeDoubles(pos));
+            out.writeAttribute(
+                SMALFormat.ROTATION_ATTR,
+                SMALFormat.encodeFloats(rot));
+        }
+
+        indent(out, depth + 1);
+        out.writeStartElement(SMALFormat.ENTITY_PARAMS_ELEMENT);
+
+        Map<String, Map<String, Object>> sheets = SMALFormat.getSheets(entity);
+        Iterator<Map.Entry<String, Map<String, Object>>> itr =
+            sheets.entrySet().iterator();
+
+        while (itr.hasNext()) {
+            Map.Entry<String, Map<String, Object>> sheet = itr.next();
+            writeSheet(out, sheet.getKey(), sheet.getValue(), depth + 2);
+        }
+
+        indent(out, depth + 1);
+        out.writeEndElement();
+
+        List<Entity> children = entity.getChildren();
+        if (children != null && children.size() > 0) {
+            indent(out, depth + 1);
+            out.writeStartElement(SMALFormat.CHILDREN_ELEMENT);
+
+            for (int i = 0; i < children.size(); i++)
+                writeEntity(out, children.get(i), depth + 2);
+
+            indent(out, depth + 1);
+            out.writeEndElement();
+        }
+
+        indent(out, depth);
+        out.writeEndElement();
+    }
+
+    /**
+     * Write a property sheet.
+     *
+     * @param out The XML writer
+     * @param sheetName The sheet name
+     * @param sheet The properties, may be null
+     * @param depth The nesting depth of the sheet element
+     */
+    private void writeSheet(
+            XMLStreamWriter out,
+            String sheetName,
+            Map<String, Object> sheet,
+            int depth) throws XMLStreamException {
+
+        indent(out, depth);
+        out.writeStartElement(SMALFormat.SHEET_ELEMENT);
+        out.writeAttribute(SMALFormat.NAME_ATTR, sheetName);
+
+        if (sheet != null) {
+            Iterator<Map.Entry<String, Object>> itr =
+                sheet.entrySet().iterator();
+
+            while (itr.hasNext()) {
+                Map.Entry<String, Object> prop = itr.next();
+                Object value = prop.getValue();
+                String type = SMALFormat.getValueType(value);
+
+                if (type == null) {
+                    String className = value.getClass().getName();
+                    if (skippedTypes.add(className)) {
+                        errorReporter.messageReport(
+                            "SMAL export skipping properties of type: " +
+                            className);
+                    }
+                    continue;
+                }
+
+                indent(out, depth + 1);
+                out.writeEmptyElement(SMALFormat.PROPERTY_ELEMENT);
+                out.writeAttribute(SMALFormat.NAME_ATTR, prop.getKey());
+                out.writeAttribute(SMALFormat.TYPE_ATTR, type);
+                out.writeAttribute(
+                    SMALFormat.VALUE_ATTR,
+                    SMALFormat.encodeValue(value));
+            }
+        }
+
+        indent(out, depth);
+        out.writeEndElement();
+    }
+
+    /**
+     * Start a new line indented to a nesting depth.
+     */
+    private void indent(XMLStreamWriter out, int depth)
+        throws XMLStreamException {
+
+        out.writeCharacters("\n");
+        for (int i = 0; i < depth; i++)
+            out.writeCharacters("  ");
+    }
+}
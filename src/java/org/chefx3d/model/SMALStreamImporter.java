@@ -0,0 +1,331 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+// Local imports
+import org.chefx3d.util.DefaultErrorReporter;
+import org.chefx3d.util.ErrorReporter;
+
+/**
+ * Import a world model from the SMAL format, reading the stream one
+ * entity at a time.
+ * <p>
+ * Reads the same document as SMALImporter without building a DOM of the
+ * file. Entities are added to the model in batches, each batch being
+ * stored and then announced to the model listeners in one burst.
+ *
+ * @author Alan Hudson
+ * @version $Revision: 1.1 $
+ */
+public class SMALStreamImporter implements Importer {
+
+    /** The default number of entities added to the model at a time */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /** The ErrorReporter for messages */
+    private ErrorReporter errorReporter;
+
+    /** The number of entities added to the model at a time */
+    private int batchSize;
+
+    /**
+     * A new streaming SMAL importer.
+     */
+    public SMALStreamImporter() {
+        errorReporter = DefaultErrorReporter.getDefaultReporter();
+        batchSize = DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Import the file into the provided model.
+     *
+     * @param wmodel The world model
+     * @param rdr The file reader
+     */
+    public void importModel(WorldModel wmodel, FileReader rdr)
+        throws LoadToolException {
+
+        importModel(wmodel, (Reader)rdr);
+    }
+
+    /**
+     * Import a SMAL stream into the provided model. The model is cleared
+     * first.
+     *
+     * @param wmodel The world model
+     * @param rdr The stream to read from
+     */
+    public void importModel(WorldModel wmodel, Reader rdr)
+        throws LoadToolException {
+
+        BaseWorldModel model = (BaseWorldModel) wmodel;
+
+        XMLStreamReader in;
+
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            in = factory.createXMLStreamReader(rdr);
+        } catch (Exception e) {
+            errorReporter.errorReport("SMAL Import Error!", e);
+            return;
+        }
+
+        // Clear the current model
+        ClearModelCommand clearCmd = new ClearModelCommand(model);
+        model.applyCommand(clearCmd);
+
+        Entity[] batch = new Entity[batchSize];
+        int count = 0;
+
+        try {
+            if (in.nextTag() != XMLStreamConstants.START_ELEMENT ||
+                !SMALFormat.SMAL_ELEMENT.equals(in.getLocalName())) {
+
+                errorReporter.messageReport("No SMAL tag in file");
+                return;
+            }
+
+            while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                Entity entity = readEntity(in);
+
+                if (entity == null)
+                    continue;
+
+                batch[count++] = entity;
+
+                if (count == batch.length) {
+                    model.addModelData(batch, count);
+                    count = 0;
+                }
+            }
+        } catch (XMLStreamException xse) {
+            errorReporter.errorReport("Can't parse saved file", xse);
+        } finally {
+            if (count > 0)
+                model.addModelData(batch, count);
+
+            try {
+                in.close();
+            } catch (XMLStreamException xse) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Set the number of entities added to the model at a time.
+     *
+     * @param size The batch size, at least 1
+     */
+    public void setBatchSize(int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("Batch size must be > 0");
+
+        batchSize = size;
+    }
+
+    /**
+     * Get the number of entities added to the model at a time.
+     *
+     * @return The batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Register an error reporter with the importer instance
+     * so that any errors generated can be reported in a nice manner.
+     *
+     * @param reporter The new ErrorReporter to use.
+     */
+    public void setErrorReporter(ErrorReporter reporter) {
+        errorReporter = reporter;
+
+        if(errorReporter == null)
+            errorReporter = DefaultErrorReporter.getDefaultReporter();
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Read an entity and its children. The reader is at the start of the
+     * entity element and is left at its end.
+     *
+     * @param in The XML reader
+     * @return The entity, or null if it could not be read
+     */
+    private Entity readEntity(XMLStreamReader in) throws XMLStreamException {
+
+        if (!SMALFormat.ENTITY_ELEMENT.equals(in.getLocalName())) {
+            skipElement(in);
+            return null;
+        }
+
+        String entityID = null;
+        String paramSheet = null;
+        String posString = null;
+        String rotString = null;
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        ArrayList<Entity> children = null;
+
+        while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = in.getLocalName();
+
+            if (SMALFormat.TOOL_PARAMS_ELEMENT.equals(name)) {
+                entityID = in.getAttributeValue(null, SMALFormat.ENTITY_ID_ATTR);
+                paramSheet =
+                    in.getAttributeValue(null, SMALFormat.PARAM_SHEET_ATTR);
+                skipElement(in);
+
+            } else if (SMALFormat.TRANSFORM_ELEMENT.equals(name)) {
+                posString =
+                    in.getAttributeValue(null, SMALFormat.TRANSLATION_ATTR);
+                rotString =
+                    in.getAttributeValue(null, SMALFormat.ROTATION_ATTR);
+                skipElement(in);
+
+            } else if (SMALFormat.ENTITY_PARAMS_ELEMENT.equals(name)) {
+                while (in.nextTag() == XMLStreamConstants.START_ELEMENT)
+                    readSheet(in, sheets);
+
+            } else if (SMALFormat.CHILDREN_ELEMENT.equals(name)) {
+                while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    Entity child = readEntity(in);
+
+                    if (child == null)
+                        continue;
+
+                    if (children == null)
+                        children = new ArrayList<Entity>();
+
+                    children.add(child);
+                }
+
+            } else {
+                skipElement(in);
+            }
+        }
+
+        if (entityID == null) {
+            errorReporter.messageReport("No ToolParams found for entity, skipping");
+            return null;
+        }
+
+        Entity entity;
+
+        try {
+            double[] trans = null;
+            if (posString != null)
+                trans = SMALFormat.decodeDoubles(posString);
+
+            float[] rot = null;
+            if (rotString != null)
+                rot = SMALFormat.decodeFloats(rotString);
+
+            entity = SMALFormat.createEntity(
+                Integer.parseInt(entityID), paramSheet, trans, rot, sheets);
+        } catch (RuntimeException re) {
+            errorReporter.errorReport("Invalid entity: " + entityID, re);
+            return null;
+        }
+
+        if (children != null) {
+            for (int i = 0; i < children.size(); i++)
+                entity.addChild(children.get(i));
+        }
+
+        return entity;
+    }
+
+    /**
+     * Read a property sheet. The reader is at the start of the sheet
+     * element and is left at its end.
+     *
+     * @param in The XML reader
+     * @param sheets The sheets to add it to
+     */
+    private void readSheet(
+            XMLStreamReader in,
+            Map<String, Map<String, Object>> sheets)
+        throws XMLStreamException {
+
+        String sheetName = in.getAttributeValue(null, SMALFormat.NAME_ATTR);
+
+        if (!SMALFormat.SHEET_ELEMENT.equals(in.getLocalName()) ||
+            sheetName == null) {
+
+            skipElement(in);
+            return;
+        }
+
+        Map<String, Object> sheet = sheets.get(sheetName);
+        if (sheet == null) {
+            sheet = new HashMap<String, Object>();
+            sheets.put(sheetName, sheet);
+        }
+
+        while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (SMALFormat.PROPERTY_ELEMENT.equals(in.getLocalName())) {
+                String name = in.getAttributeValue(null, SMALFormat.NAME_ATTR);
+                String type = in.getAttributeValue(null, SMALFormat.TYPE_ATTR);
+                String value = in.getAttributeValue(null, SMALFormat.VALUE_ATTR);
+                if (value == null)
+                    value = "";
+
+                try {
+                    sheet.put(name, SMALFormat.decodeValue(type, value));
+                } catch (IllegalArgumentException iae) {
+                    errorReporter.messageReport(
+                        "Invalid property " + name + ": " + iae.getMessage());
+                }
+            }
+
+            skipElement(in);
+        }
+    }
+
+    /**
+     * Skip the rest of the current element, including any children. The
+     * reader is left at its end.
+     *
+     * @param in The XML reader
+     */
+    private void skipElement(XMLStreamReader in) throws XMLStreamException {
+        int depth = 1;
+
+        while (depth > 0) {
+            int event = in.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.util.*;
+
+// Internal Imports
+// None
+
+/**
+ * The property sheet of a positionable entity that holds its position,
+ * rotation and scale. Those three values live in the TransformStore, all
+ * other properties live in a backing map.
+ * <p>
+ * The sheet is still a complete Map so existing callers and serializers
+ * see no difference. Reads of a transform property through the Map
+ * interface return a new array, changing it does not change the entity.
+ * Writes copy the array into the store. BasePositionableEntity uses the
+ * direct accessors, which neither allocate nor hash.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+class TransformPropertySheet extends AbstractMap<String, Object> {
+
+    /** The properties held in the store, in iteration order */
+    static final String[] TRANSFORM_KEYS = new String[] {
+        PositionableEntity.POSITION_PROP,
+        PositionableEntity.ROTATION_PROP,
+        PositionableEntity.SCALE_PROP
+    };
+
+    /** The store flag of each of the TRANSFORM_KEYS */
+    private static final int[] TRANSFORM_FLAGS = new int[] {
+        TransformStore.POSITION,
+        TransformStore.ROTATION,
+        TransformStore.SCALE
+    };
+
+    /** The store holding the transform */
+    private TransformStore store;
+
+    /** The slot allocated to this sheet */
+    private int slot;
+
+    /** All the other properties */
+    private Map<String, Object> backing;
+
+    /** The entry set view, created on first use */
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * Create a sheet holding the properties of an existing sheet. The
+     * transform properties are moved into the store. A copy-on-write
+     * sheet is used as is for the other properties, any other sheet is
+     * copied.
+     *
+     * @param sheet The properties to hold
+     */
+    TransformPropertySheet(Map<String, Object> sheet) {
+
+        store = TransformStore.getInstance();
+        slot = store.allocate(this);
+
+        if (sheet instanceof OverlayPropertySheet) {
+            backing = sheet;
+
+            for (int i = 0; i < TRANSFORM_KEYS.length; i++) {
+                if (backing.containsKey(TRANSFORM_KEYS[i])) {
+                    put(TRANSFORM_KEYS[i], backing.get(TRANSFORM_KEYS[i]));
+                }
+            }
+            return;
+        }
+
+        backing = new LinkedHashMap<String, Object>();
+
+        Iterator<Map.Entry<String, Object>> index =
+            sheet.entrySet().iterator();
+
+        while (index.hasNext()) {
+            Map.Entry<String, Object> mapEntry = index.next();
+            put(mapEntry.getKey(), mapEntry.getValue());
+        }
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by Map
+    //---------------------------------------------------------------
+
+    public Object get(Object key) {
+
+        int i = transformIndex(key);
+        if (i < 0 || !store.isSet(slot, TRANSFORM_FLAGS[i])) {
+            return backing.get(key);
+        }
+
+        switch (i) {
+            case 0:
+                double[] pos = new double[3];
+                store.getPosition(slot, pos);
+                return pos;
+
+            case 1:
+                float[] rot = new float[4];
+                store.getRotation(slot, rot);
+                return rot;
+
+            default:
+                float[] scale = new float[3];
+                store.getScale(slot, scale);
+                return scale;
+        }
+    }
+
+    /**
+     * Set a property. Returns null rather than the previous value when a
+     * transform property is stored, to avoid allocating a copy that is
+     * never used.
+     */
+    public Object put(String key, Object value) {
+
+        int i = transformIndex(key);
+        if (i < 0) {
+            return backing.put(key, value);
+        }
+
+        boolean stored = store.isSet(slot, TRANSFORM_FLAGS[i]);
+
+        if (i == 0 && value instanceof double[] &&
+                ((double[])value).length >= 3) {
+
+            store.setPosition(slot, (double[])value);
+
+        } else if (i == 1 && value instanceof float[] &&
+                ((float[])value).length >= 4) {
+
+            store.setRotation(slot, (float[])value);
+
+        } else if (i == 2 && value instanceof float[] &&
+                ((float[])value).length >= 3) {
+
+            store.setScale(slot, (float[])value);
+
+        } else {
+
+            // not something the store can hold
+            store.clear(slot, TRANSFORM_FLAGS[i]);
+            return backing.put(key, value);
+        }
+
+        if (!stored) {
+            backing.remove(key);
+        }
+        return null;
+    }
+
+    public Object remove(Object key) {
+
+        int i = transformIndex(key);
+        if (i >= 0 && store.isSet(slot, TRANSFORM_FLAGS[i])) {
+            Object value = get(key);
+            store.clear(slot, TRANSFORM_FLAGS[i]);
+            return value;
+        }
+
+        return backing.remove(key);
+    }
+
+    public boolean containsKey(Object key) {
+
+        int i = transformIndex(key);
+        if (i >= 0 && store.isSet(slot, TRANSFORM_FLAGS[i])) {
+            return true;
+        }
+
+        return backing.containsKey(key);
+    }
+
+    public int size() {
+
+        int size = backing.size();
+        for (int i = 0; i < TRANSFORM_FLAGS.length; i++) {
+            if (store.isSet(slot, TRANSFORM_FLAGS[i])) {
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    public void clear() {
+
+        for (int i = 0; i < TRANSFORM_FLAGS.length; i++) {
+            store.clear(slot, TRANSFORM_FLAGS[i]);
+        }
+        backing.clear();
+    }
+
+    public Set<Map.Entry<String, Object>> entrySet() {
+
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                public int size() {
+                    return TransformPropertySheet.this.size();
+                }
+            };
+        }
+
+        return entrySet;
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Get the properties not held in the store.
+     *
+     * @return The other properties
+     */
+    Map<String, Object> getBacking() {
+        return backing;
+    }
+
+    /**
+     * Check if a transform property is held in the store.
+     *
+     * @param key The property name
+     * @return True if the store holds a value for it
+     */
+    boolean isStored(String key) {
+        int i = transformIndex(key);
+        return i >= 0 && store.isSet(slot, TRANSFORM_FLAGS[i]);
+    }
+
+    /**
+     * Get the position.
+     *
+     * @param pos The array to copy the position into
+     * @return True if a position is set, false otherwise
+     */
+    boolean getPosition(double[] pos) {
+        return store.getPosition(slot, pos);
+    }
+
+    /**
+     * Set the position.
+     *
+     * @param pos The position to copy
+     */
+    void setPosition(double[] pos) {
+        if (!store.isSet(slot, TransformStore.POSITION)) {
+            backing.remove(PositionableEntity.POSITION_PROP);
+        }
+        store.setPosition(slot, pos);
+    }
+
+    /**
+     * Get the rotation.
+     *
+     * @param rot The array to copy the rotation into
+     * @return True if a rotation is set, false otherwise
+     */
+    boolean getRotation(float[] rot) {
+        return store.getRotation(slot, rot);
+    }
+
+    /**
+     * Set the rotation.
+     *
+     * @param rot The rotation to copy
+     */
+    void setRotation(float[] rot) {
+        if (!store.isSet(slot, TransformStore.ROTATION)) {
+            backing.remove(PositionableEntity.ROTATION_PROP);
+        }
+        store.setRotation(slot, rot);
+    }
+
+    /**
+     * Get the scale.
+     *
+     * @param scale The array to copy the scale into
+     * @return True if a scale is set, false otherwise
+     */
+    boolean getScale(float[] scale) {
+        return store.getScale(slot, scale);
+    }
+
+    /**
+     * Set the scale.
+     *
+     * @param scale The scale to copy
+     */
+    void setScale(float[] scale) {
+        if (!store.isSet(slot, TransformStore.SCALE)) {
+            backing.remove(PositionableEntity.SCALE_PROP);
+        }
+        store.setScale(slot, scale);
+    }
+
+    /**
+     * Find which transform property a key names.
+     *
+     * @param key The property name
+     * @return The index in TRANSFORM_KEYS, or -1 if it is not one
+     */
+    private static int transformIndex(Object key) {
+
+        for (int i = 0; i < TRANSFORM_KEYS.length; i++) {
+            if (TRANSFORM_KEYS[i] == key) {
+                return i;
+            }
+        }
+
+        for (int i = 0; i < TRANSFORM_KEYS.length; i++) {
+            if (TRANSFORM_KEYS[i].equals(key)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Iterates over the set transform properties and then the others.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+        /** Index of the next set transform property */
+        private int next;
+
+        /** Index of the last transform property returned, -2 for a
+         *  backing entry, -1 for none */
+        private int last;
+
+        /** Iterator over the other properties */
+        private Iterator<Map.Entry<String, Object>> backingIterator;
+
+        EntryIterator() {
+            next = findNext(0);
+            last = -1;
+            backingIterator = backing.entrySet().iterator();
+        }
+
+        public boolean hasNext() {
+            return next < TRANSFORM_KEYS.length || backingIterator.hasNext();
+        }
+
+        public Map.Entry<String, Object> next() {
+
+            if (next < TRANSFORM_KEYS.length) {
+                last = next;
+                next = findNext(next + 1);
+                return new TransformEntry(TRANSFORM_KEYS[last]);
+            }
+
+            Map.Entry<String, Object> mapEntry = backingIterator.next();
+            last = -2;
+
+            return mapEntry;
+        }
+
+        public void remove() {
+
+            if (last >= 0) {
+                store.clear(slot, TRANSFORM_FLAGS[last]);
+            } else if (last == -2) {
+                backingIterator.remove();
+            } else {
+                throw new IllegalStateException();
+            }
+
+            last = -1;
+        }
+
+        /**
+         * Find the next set transform property.
+         *
+         * @param from The index to start looking at
+         * @return The index, or TRANSFORM_KEYS.length if there are no more
+         */
+        private int findNext(int from) {
+
+            while (from < TRANSFORM_KEYS.length &&
+                    !store.isSet(slot, TRANSFORM_FLAGS[from])) {
+                from++;
+            }
+
+            return from;
+        }
+    }
+
+    /**
+     * Entry for a transform property, reading and writing through the
+     * sheet.
+     */
+    private class TransformEntry implements Map.Entry<String, Object> {
+
+        /** The property name */
+        private String key;
+
+        TransformEntry(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Object getValue() {
+            return get(key);
+        }
+
+        public Object setValue(Object value) {
+            Object previous = get(key);
+            put(key, value);
+            return previous;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+
+// Internal Imports
+// None
+
+/**
+ * Packed storage for the position, rotation and scale of positionable
+ * entities. Values are held in primitive arrays indexed by a dense slot
+ * number, three doubles of position, four floats of rotation and three
+ * floats of scale per slot.
+ * <p>
+ * Slots are grouped into fixed size pages so that growing the store never
+ * moves existing values, finding the page of a slot does not require a
+ * lock. Only slot allocation is synchronized on the store. The values of
+ * a slot are read and written while holding the lock of its page, so a
+ * reader never sees a partially written position, rotation or scale. A
+ * slot is returned to the store once the object that allocated it has
+ * been garbage collected.
+ * <p>
+ * The store is used unless the system property
+ * chefx3d.model.packedTransforms is set to false.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+class TransformStore {
+
+    /** System property used to disable the store at startup */
+    static final String PACKED_PROPERTY = "chefx3d.model.packedTransforms";
+
+    /** Flag set when a slot holds a position */
+    static final int POSITION = 0x01;
+
+    /** Flag set when a slot holds a rotation */
+    static final int ROTATION = 0x02;
+
+    /** Flag set when a slot holds a scale */
+    static final int SCALE = 0x04;
+
+    /** log2 of the number of slots in a page */
+    private static final int PAGE_BITS = 10;
+
+    /** The number of slots in a page */
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /** Mask to get the index of a slot within its page */
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /** The singleton instance */
+    private static TransformStore transformStore = new TransformStore();
+
+    /** Is the store in use */
+    private final boolean enabled;
+
+    /** The pages of values, replaced only when it grows */
+    private volatile Page[] pages;
+
+    /** The next never allocated slot */
+    private int nextSlot;
+
+    /** Slots returned to the store */
+    private int[] freeSlots;
+
+    /** The number of valid entries in freeSlots */
+    private int numFree;
+
+    /** The reference to the owner of each allocated slot */
+    private SlotReference[] owners;
+
+    /** Queue of owners that have been collected */
+    private ReferenceQueue<Object> ownerQueue;
+
+    /**
+     * A page of slots.
+     */
+    private static class Page {
+
+        /** x, y, z per slot */
+        final double[] positions = new double[PAGE_SIZE * 3];
+
+        /** x, y, z, angle per slot */
+        final float[] rotations = new float[PAGE_SIZE * 4];
+
+        /** x, y, z per slot */
+        final float[] scales = new float[PAGE_SIZE * 3];
+
+        /** Which values each slot holds */
+        final byte[] flags = new byte[PAGE_SIZE];
+    }
+
+    /**
+     * Tracks when the owner of a slot has been collected.
+     */
+    private static class SlotReference extends PhantomReference<Object> {
+
+        /** The slot allocated by the owner */
+        final int slot;
+
+        SlotReference(Object owner, int slot, ReferenceQueue<Object> queue) {
+            super(owner, queue);
+            this.slot = slot;
+        }
+    }
+
+    /** Private constructor */
+    private TransformStore() {
+
+        enabled = !"false".equals(System.getProperty(PACKED_PROPERTY));
+
+        pages = new Page[0];
+        freeSlots = new int[64];
+        owners = new SlotReference[PAGE_SIZE];
+        ownerQueue = new ReferenceQueue<Object>();
+    }
+
+    /**
+     * Get the singleton TransformStore.
+     *
+     * @return TransformStore
+     */
+    static TransformStore getInstance() {
+        return transformStore;
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Check if positionable entities should keep their transforms in the
+     * store.
+     *
+     * @return True if the store is in use, false otherwise
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Allocate a slot. The slot starts out empty and is reclaimed once the
+     * owner has been garbage collected.
+     *
+     * @param owner The object the slot belongs to
+     * @return The slot
+     */
+    synchronized int allocate(Object owner) {
+
+        reclaim();
+
+        int slot;
+        if (numFree > 0) {
+            slot = freeSlots[--numFree];
+        } else {
+            slot = nextSlot++;
+
+            int page = slot >> PAGE_BITS;
+            if (page >= pages.length) {
+                Page[] tmp = new Page[page + 1];
+                System.arraycopy(pages, 0, tmp, 0, pages.length);
+                tmp[page] = new Page();
+                pages = tmp;
+            }
+
+            if (slot >= owners.length) {
+                SlotReference[] tmp = new SlotReference[owners.length * 2];
+                System.arraycopy(owners, 0, tmp, 0, owners.length);
+                owners = tmp;
+            }
+        }
+
+        Page page = pages[slot >> PAGE_BITS];
+        synchronized (page) {
+            page.flags[slot & PAGE_MASK] = 0;
+        }
+        owners[slot] = new SlotReference(owner, slot, ownerQueue);
+
+        return slot;
+    }
+
+    /**
+     * Check which values a slot holds.
+     *
+     * @param slot The slot
+     * @param flag One of POSITION, ROTATION or SCALE
+     * @return True if the value is set, false otherwise
+     */
+    boolean isSet(int slot, int flag) {
+
+        Page page = pages[slot >> PAGE_BITS];
+        synchronized (page) {
+            return (page.flags[slot & PAGE_MASK] & flag) != 0;
+        }
+    }
+
+    /**
+     * Mark a value of a slot as no longer set.
+     *
+     * @param slot The slot
+     * @param flag One of POSITION, ROTATION or SCALE
+     */
+    void clear(int slot, int flag) {
+
+        Page page = pages[slot >> PAGE_BITS];
+        synchronized (page) {
+            page.flags[slot & PAGE_MASK] &= ~flag;
+        }
+    }
+
+    /**
+     * Get the position held by a slot.
+     *
+     * @param slot The slot
+     * @param pos The array to copy the position into
+     * @return True if the position is set, false otherwise
+     */
+    boolean getPosition(int slot, double[] pos) {
+
+        Page page = pages[slot >> PAGE_BITS];
+        int index = slot & PAGE_MASK;
+
+        synchronized (page) {
+            if ((page.flags[index] & POSITION) == 0) {
+                return false;
+            }
+
+            int offset = index * 3;
+            pos[0] = page.positions[offset];
+            pos[1] = page.positions[offset + 1];
+            pos[2] = page.positions[offset + 2];
+
+            return true;
+        }
+    }
+
+    /**
+     * Set the position held by a slot.
+     *
+     * @param slot The slot
+     * @param pos The position to copy
+     */
+    void setPosition(int slot, double[] pos) {
+
+        Page page = pages[slot >> PAGE_BITS];
+        int index = slot & PAGE_MASK;
+
+        synchronized (page) {
+            int offset = index * 3;
+            page.positions[offset] = pos[0];
+            page.positions[offset + 1] = pos[1];
+            page.positions[offset + 2] = pos[2];
+
+            page.flags[index] |= POSITION;
+        }
+    }
+
+    /**
+     * Get the rotation held by a slot.
+     *
+     * @param slot The slot
+     * @param rot The array to copy the rotation into
+     * @return True if the rotation is set, false otherwise
+     */
+    boolean getRotation(int slot, float[] rot) {
+
+        Page page = pages[slot >> PAGE_BITS];
+        int index = slot & PAGE_MASK;
+
+        synchronized (page) {
+            if ((page.flags[index] & ROTATION) == 0) {
+                return false;
+            }
+
+            int offset = index * 4;
+            rot[0] = page.rotations[offset];
+            rot[1] = page.rotations[offset + 1];
+            rot[2] = page.rotations[offset + 2];
+            rot[3] = page.rotations[offset + 3];
+
+            return true;
+        }
+    }
+
+    /**
+     * Set the rotation held by a slot.
+     *
+     * @param slot The slot
+     * @param rot The rotation to copy
+     */
+    void setRotation(int slot, float[] rot) {
+
+        Page page = pages[slot >> PAGE_BITS];
+        int index = slot & PAGE_MASK;
+
+        synchronized (page) {
+            int offset = index * 4;
+            page.rotations[offset] = rot[0];
+            page.rotations[offset + 1] = rot[1];
+            page.rotations[offset + 2] = rot[2];
+            page.rotations[offset + 3] = rot[3];
+
+            page.flags[index] |= ROTATION;
+        }
+    }
+
+    /**
+     * Get the scale held by a slot.
+     *
+     * @param slot The slot
+     * @param scale The array to copy the scale into
+     * @return True if the scale is set, false otherwise
+     */
+    boolean getScale(int slot, float[] scale) {
+
+        Page page = pages[slot >> PAGE_BITS];
+        int index = slot & PAGE_MASK;
+
+        synchronized (page) {
+            if ((page.flags[index] & SCALE) == 0) {
+                return false;
+            }
+
+            int offset = index * 3;
+            scale[0] = page.scales[offset];
+            scale[1] = page.scales[offset + 1];
+            scale[2] = page.scales[offset + 2];
+
+            return true;
+        }
+    }
+
+    /**
+     * Set the scale held by a slot.
+     *
+     * @param slot The slot
+     * @param scale The scale to copy
+     */
+    void setScale(int slot, float[] scale) {
+
+        Page page = pages[slot >> PAGE_BITS];
+        int index = slot & PAGE_MASK;
+
+        synchronized (page) {
+            int offset = index * 3;
+            page.scales[offset] = scale[0];
+            page.scales[offset + 1] = scale[1];
+            page.scales[offset + 2] = scale[2];
+
+            page.flags[index] |= SCALE;
+        }
+    }
+
+    /**
+     * Return the slots of collected owners to the free list.
+     */
+    private void reclaim() {
+
+        SlotReference ref;
+        while ((ref = (SlotReference)ownerQueue.poll()) != null) {
+
+            int slot = ref.slot;
+            if (owners[slot] != ref) {
+                continue;
+            }
+            owners[slot] = null;
+
+            if (numFree == freeSlots.length) {
+                int[] tmp = new int[numFree * 2];
+                System.arraycopy(freeSlots, 0, tmp, 0, numFree);
+                freeSlots = tmp;
+            }
+            freeSlots[numFree++] = slot;
+        }
+    }
+}
@@ -78,6 +78,10 @@ public class ValidatingBufferedCommandController extends BufferedCommandControll
 	            CommandWrapper cmd = null;
 	            synchronized(bufferedCommands) {
 	            	
+	            	if (coalesceTransients) {
+	            		coalesceTransientCommands(bufferedCommands);
+	            	}
+	            	
 	            	cmd = bufferedCommands.get(0);
 	            	bufferedCommands.remove(0);
 	            }
@@ -98,10 +102,15 @@ public class ValidatingBufferedCommandController extends BufferedCommandControll
 	                cmd.reject();
 	            }
 	            
+	            releaseCommand(cmd);
+	            
             } else {
  
 	            int num;
 	            synchronized(bufferedCommands) {
+	                if (coalesceTransients) {
+	                    coalesceTransientCommands(bufferedCommands);
+	                }
 	                num = bufferedCommands.size();
 	                resize(num);
 	                bufferedCommands.toArray(cmd);
@@ -132,6 +141,7 @@ public class ValidatingBufferedCommandController extends BufferedCommandControll
 			                					commandNext);
 			                		
 			                		if (areEqual) {
+			                			releaseCommand(cmd[i]);
 			                			cmd[i] = null;
 			                			continue;
 			                		}
@@ -161,6 +171,8 @@ public class ValidatingBufferedCommandController extends BufferedCommandControll
 	                    cmd[i].reject();
 	                }
 
+	                releaseCommand(cmd[i]);
+
 	                cmd[i] = null;
 	            }
             }
@@ -179,13 +191,7 @@ public class ValidatingBufferedCommandController extends BufferedCommandControll
         
         synchronized(bufferedCommands) {
             // Create the command wrapper
-            ExecuteCommand cmd = new ExecuteCommand(
-                command,
-                maxSize,
-                undoCommands,
-                redoCommands,
-                commandListeners,
-                errorReporter);
+            ExecuteCommand cmd = obtainExecuteCommand(command);
             
             // Add the wrapper to the list of buffered commands
             bufferedCommands.add(cmd);
@@ -169,6 +169,14 @@ public interface WorldModel extends IdIssuer {
      */
     public Entity[] getModelData();
 
+    /**
+     * Get the cache of local to scene transforms of the entities
+     * in the model.
+     *
+     * @return The transform cache
+     */
+    public WorldTransformCache getWorldTransformCache();
+
     /**
      * Sets the ErrorReporter to use to display messages
      *
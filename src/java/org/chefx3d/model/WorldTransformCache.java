@@ -0,0 +1,521 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import javax.vecmath.AxisAngle4f;
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Vector3f;
+
+// Internal Imports
+// None
+
+/**
+ * Cache of the local to scene transforms of the entities in a WorldModel,
+ * keyed by entity ID. The transforms represent the committed state of the
+ * model, the position and rotation of each entity in the path from the
+ * entity to the content root, exclusive of the content root.
+ * <p>
+ * Transforms are calculated on demand. The cache listens to the entities
+ * that it has calculated transforms for, and invalidates the transform of
+ * an entity and all of its descendants when the position or rotation of
+ * the entity changes, or the entity is reparented. Only the invalidated
+ * subtree is recalculated on the next request.
+ * <p>
+ * The transform of a segment is determined by its vertices, changes to a
+ * vertex invalidate the segments of the segmentable entity that contains
+ * the vertex.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class WorldTransformCache implements
+	EntityPropertyListener, EntityChildListener {
+
+	/** The fixed rotation between a segmentable entity and its parent */
+	private static final AxisAngle4f SEGMENTABLE_ROTATION =
+		new AxisAngle4f(1, 0, 0, (float)Math.PI/2);
+
+	/** The model containing the entities */
+	private WorldModel model;
+
+	/** Map of entity ID to cached transform */
+	private HashMap<Integer, TransformEntry> entryMap;
+
+	/** Map of entity ID to the vertex entities that determine
+	 *  the transforms of cached segments */
+	private HashMap<Integer, VertexEntity> vertexMap;
+
+	/** Scratch local transform */
+	private Matrix4f local_mtx;
+
+	/** Scratch variables for initializing the local transform */
+	private double[] pos_array;
+	private float[] rot_array;
+	private AxisAngle4f rotation;
+	private Vector3f translation;
+
+	/**
+	 * The cached data of an entity
+	 */
+	private static class TransformEntry {
+
+		/** The entity */
+		Entity entity;
+
+		/** The entry of the entity's parent, null for the root */
+		TransformEntry parent;
+
+		/** The local to scene transform */
+		Matrix4f matrix;
+
+		/** Flag indicating that the transform is current */
+		boolean valid;
+
+		/** For segment entities, the IDs of the vertices
+		 *  that the transform was calculated from */
+		int startVertexID;
+		int endVertexID;
+
+		/**
+		 * Constructor
+		 *
+		 * @param entity The entity
+		 */
+		TransformEntry(Entity entity) {
+			this.entity = entity;
+			matrix = new Matrix4f();
+			startVertexID = -1;
+			endVertexID = -1;
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param model The model containing the entities
+	 */
+	public WorldTransformCache(WorldModel model) {
+
+		this.model = model;
+
+		entryMap = new HashMap<Integer, TransformEntry>();
+		vertexMap = new HashMap<Integer, VertexEntity>();
+
+		local_mtx = new Matrix4f();
+		pos_array = new double[3];
+		rot_array = new float[4];
+		rotation = new AxisAngle4f();
+		translation = new Vector3f();
+	}
+
+	//----------------------------------------------------------
+	// Methods defined by EntityPropertyListener
+	//----------------------------------------------------------
+
+	/**
+	 * Ignored.
+	 */
+	public void propertyAdded(int entityID,
+		String propertySheet, String propertyName) {
+	}
+
+	/**
+	 * Ignored.
+	 */
+	public void propertyRemoved(int entityID,
+		String propertySheet, String propertyName) {
+	}
+
+	/**
+	 * A property was updated.
+	 *
+	 * @param entityID The entity which changed
+	 * @param propertySheet The sheet that holds the property
+	 * @param propertyName The name of the property
+	 * @param ongoing Is this property update an ongoing change like a
+	 * transient position or the final value
+	 */
+	public void propertyUpdated(int entityID,
+		String propertySheet, String propertyName, boolean ongoing) {
+
+		if (isTransformProperty(propertyName)) {
+			transformChanged(entityID);
+		}
+	}
+
+	/**
+	 * Multiple properties were updated.
+	 *
+	 * @param properties The list of updates
+	 */
+	public void propertiesUpdated(List<EntityProperty> properties) {
+
+		for (int i = 0; i < properties.size(); i++) {
+			EntityProperty prop = properties.get(i);
+			if (isTransformProperty(prop.propertyName)) {
+				transformChanged(prop.entityID);
+			}
+		}
+	}
+
+	//----------------------------------------------------------
+	// Methods defined by EntityChildListener
+	//----------------------------------------------------------
+
+	/**
+	 * A child was added.
+	 *
+	 * @param parentID The entity ID of the parent
+	 * @param childID The entity ID of the child
+	 */
+	public synchronized void childAdded(int parentID, int childID) {
+		// the child should not have an entry, unless it has been
+		// placed without being removed from a previous parent
+		invalidate(entryMap.get(childID));
+		invalidateSegments(parentID, childID);
+	}
+
+	/**
+	 * A child was removed.
+	 *
+	 * @param parentID The entity ID of the parent
+	 * @param childID The entity ID of the child
+	 */
+	public synchronized void childRemoved(int parentID, int childID) {
+
+		TransformEntry entry = entryMap.get(childID);
+		Entity child = (entry != null) ? entry.entity : vertexMap.get(childID);
+		if (child != null) {
+			release(child);
+		}
+		invalidateSegments(parentID, childID);
+	}
+
+	/**
+	 * A child was inserted.
+	 *
+	 * @param parentID The entity ID of the parent
+	 * @param childID The entity ID of the child
+	 * @param index The index the child was placed at
+	 */
+	public void childInsertedAt(int parentID, int childID, int index) {
+		childAdded(parentID, childID);
+	}
+
+	//----------------------------------------------------------
+	// Local Methods
+	//----------------------------------------------------------
+
+	/**
+	 * Initialize the argument matrix with the local to scene transform
+	 * of the entity.
+	 *
+	 * @param entity The entity
+	 * @param mtx The matrix to initialize
+	 * @return true if the matrix has been initialized, false if the
+	 * entity does not have a path to the content root in the model.
+	 */
+	public synchronized boolean getTransform(Entity entity, Matrix4f mtx) {
+
+		TransformEntry entry = getEntry(entity);
+		if (entry != null) {
+			mtx.set(entry.matrix);
+			return(true);
+		}
+		return(false);
+	}
+
+	/**
+	 * Initialize the argument matrix with the local to scene transform
+	 * of the entity, unless the transform is dependent on any of the
+	 * entities identified in the argument set. This includes the entity,
+	 * its ancestors, and the vertices of any segments in the path to
+	 * the content root.
+	 *
+	 * @param entity The entity
+	 * @param mtx The matrix to initialize
+	 * @param ids The set of entity IDs to exclude
+	 * @return true if the matrix has been initialized, false if the
+	 * transform is dependent on any of the identified entities, or if
+	 * the entity does not have a path to the content root in the model.
+	 */
+	public synchronized boolean getTransform(
+		Entity entity,
+		Matrix4f mtx,
+		Set<Integer> ids) {
+
+		TransformEntry entry = getEntry(entity);
+		if (entry == null) {
+			return(false);
+		}
+		if (!ids.isEmpty()) {
+			for (TransformEntry e = entry; e != null; e = e.parent) {
+				if (ids.contains(e.entity.getEntityID()) ||
+					ids.contains(e.startVertexID) ||
+					ids.contains(e.endVertexID)) {
+					return(false);
+				}
+			}
+		}
+		mtx.set(entry.matrix);
+		return(true);
+	}
+
+	/**
+	 * Invalidate the transform of the entity, and its descendants
+	 *
+	 * @param entityID The id of the entity
+	 */
+	public synchronized void invalidate(int entityID) {
+		invalidate(entryMap.get(entityID));
+	}
+
+	/**
+	 * Remove all entries and stop listening to the entities
+	 */
+	public synchronized void clear() {
+
+		for (Iterator<TransformEntry> i = entryMap.values().iterator();
+			i.hasNext();) {
+
+			Entity entity = i.next().entity;
+			entity.removeEntityPropertyListener(this);
+			entity.removeEntityChildListener(this);
+		}
+		for (Iterator<VertexEntity> i = vertexMap.values().iterator();
+			i.hasNext();) {
+
+			i.next().removeEntityPropertyListener(this);
+		}
+		entryMap.clear();
+		vertexMap.clear();
+	}
+
+	/**
+	 * Return the valid entry for the entity, calculating the transforms
+	 * of the entity and its ancestors as necessary.
+	 *
+	 * @param entity The entity
+	 * @return The entry, or null if the entity does not have a path
+	 * to the content root in the model.
+	 */
+	private TransformEntry getEntry(Entity entity) {
+
+		int id = entity.getEntityID();
+		TransformEntry entry = entryMap.get(id);
+		if ((entry != null) && (entry.entity == entity) && entry.valid) {
+			return(entry);
+		}
+		if (model.getEntity(id) != entity) {
+			// not in the model, or not yet committed
+			return(null);
+		}
+		if ((entry != null) && (entry.entity != entity)) {
+			// the id has been reissued
+			release(entry.entity);
+			entry = null;
+		}
+		TransformEntry parent = null;
+		if (entity.getType() != Entity.TYPE_CONTENT_ROOT) {
+			Entity parentEntity = model.getEntity(entity.getParentEntityID());
+			if (parentEntity == null) {
+				return(null);
+			}
+			parent = getEntry(parentEntity);
+			if (parent == null) {
+				return(null);
+			}
+		}
+
+		if (entry == null) {
+			entry = new TransformEntry(entity);
+			entryMap.put(id, entry);
+			entity.addEntityPropertyListener(this);
+			entity.addEntityChildListener(this);
+		}
+		entry.parent = parent;
+
+		if (parent == null) {
+			entry.matrix.setIdentity();
+		} else {
+			initLocalMatrix(entry);
+			entry.matrix.mul(parent.matrix, local_mtx);
+		}
+		entry.valid = true;
+
+		return(entry);
+	}
+
+	/**
+	 * Initialize the local transform of the entry's entity
+	 *
+	 * @param entry The entry to calculate the local transform for
+	 */
+	private void initLocalMatrix(TransformEntry entry) {
+
+		Entity entity = entry.entity;
+		local_mtx.setIdentity();
+
+		if (entity instanceof PositionableEntity) {
+
+			PositionableEntity pe = (PositionableEntity)entity;
+			pe.getPosition(pos_array);
+			pe.getRotation(rot_array);
+
+			rotation.set(rot_array);
+			translation.set(
+				(float)pos_array[0],
+				(float)pos_array[1],
+				(float)pos_array[2]);
+
+			local_mtx.setRotation(rotation);
+			local_mtx.setTranslation(translation);
+
+			if (entity instanceof SegmentEntity) {
+				SegmentEntity se = (SegmentEntity)entity;
+				entry.startVertexID = trackVertex(se.getStartVertexEntity());
+				entry.endVertexID = trackVertex(se.getEndVertexEntity());
+			}
+		} else if (entity instanceof SegmentableEntity) {
+			// rem: hard coded, relationship between the walls and the floor
+			local_mtx.setRotation(SEGMENTABLE_ROTATION);
+		}
+	}
+
+	/**
+	 * Begin listening to a vertex that determines a segment transform
+	 *
+	 * @param ve The vertex entity
+	 * @return The id of the vertex, or -1 if it is null
+	 */
+	private int trackVertex(VertexEntity ve) {
+		if (ve == null) {
+			return(-1);
+		}
+		int id = ve.getEntityID();
+		if (!vertexMap.containsKey(id)) {
+			vertexMap.put(id, ve);
+			ve.addEntityPropertyListener(this);
+		}
+		return(id);
+	}
+
+	/**
+	 * Handle a change to the transform of an entity
+	 *
+	 * @param entityID The id of the entity that has changed
+	 */
+	private synchronized void transformChanged(int entityID) {
+
+		invalidate(entryMap.get(entityID));
+
+		VertexEntity ve = vertexMap.get(entityID);
+		if (ve != null) {
+			invalidate(entryMap.get(ve.getParentEntityID()));
+		}
+	}
+
+	/**
+	 * A vertex or segment added to, or removed from, a segmentable
+	 * entity may change the transforms of its segments.
+	 *
+	 * @param parentID The entity ID of the parent
+	 * @param childID The entity ID of the child
+	 */
+	private void invalidateSegments(int parentID, int childID) {
+		TransformEntry entry = entryMap.get(parentID);
+		if ((entry != null) && (entry.entity instanceof SegmentableEntity)) {
+			invalidate(entry);
+		}
+	}
+
+	/**
+	 * Invalidate the entry and the entries of the entity's descendants.
+	 * The descendants of an entry that is already invalid are invalid,
+	 * as are the descendants of an entity that has no entry.
+	 *
+	 * @param entry The entry to invalidate
+	 */
+	private void invalidate(TransformEntry entry) {
+
+		if ((entry == null) || !entry.valid) {
+			return;
+		}
+		entry.valid = false;
+
+		Entity entity = entry.entity;
+		if (entity.hasChildren()) {
+			ArrayList<Entity> children = entity.getChildren();
+			for (int i = 0; i < children.size(); i++) {
+				TransformEntry child_entry =
+					entryMap.get(children.get(i).getEntityID());
+				if ((child_entry != null) &&
+					(child_entry.entity == children.get(i))) {
+					invalidate(child_entry);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove the entries of the entity and its descendants, including
+	 * any tracked vertices, and stop listening to them.
+	 *
+	 * @param entity The entity to release
+	 */
+	private void release(Entity entity) {
+
+		Integer id = entity.getEntityID();
+		boolean tracked = false;
+
+		TransformEntry entry = entryMap.get(id);
+		if ((entry != null) && (entry.entity == entity)) {
+			entryMap.remove(id);
+			entity.removeEntityChildListener(this);
+			tracked = true;
+		}
+		if (vertexMap.get(id) == entity) {
+			vertexMap.remove(id);
+			tracked = true;
+		}
+		if (!tracked) {
+			return;
+		}
+		entity.removeEntityPropertyListener(this);
+
+		if (entity.hasChildren()) {
+			ArrayList<Entity> children = entity.getChildren();
+			for (int i = 0; i < children.size(); i++) {
+				release(children.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Return whether the named property contributes to the transform
+	 *
+	 * @param propertyName The name of the property
+	 * @return true if the property contributes to the transform
+	 */
+	private boolean isTransformProperty(String propertyName) {
+		return(PositionableEntity.POSITION_PROP.equals(propertyName) ||
+			PositionableEntity.ROTATION_PROP.equals(propertyName));
+	}
+}
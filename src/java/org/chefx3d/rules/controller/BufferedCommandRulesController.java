@@ -78,13 +78,7 @@ public class BufferedCommandRulesController extends BufferedCommandController {
     	}
     	
         // Create the command wrapper
-        ExecuteCommand cmd = new ExecuteCommand(
-                command,
-                maxSize,
-                undoCommands,
-                redoCommands,
-                commandListeners,
-                errorReporter);
+        ExecuteCommand cmd = obtainExecuteCommand(command);
 
         // Add the wrapper to the list of buffered commands
         bufferedCommands.add(cmd);
@@ -137,7 +137,7 @@ public class AddAutoAddRule extends BaseRule {
         		entityBuilder)) {
         	
         	String msg = intl_mgr.getString(POP_UP_NO_ADD);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
             
             // Clear out the surrogate added for the purpose of these checks
             SceneManagementUtility.removeTempSurrogate(
@@ -158,7 +158,7 @@ public class AddAutoAddRule extends BaseRule {
         		entityBuilder)) {
         	
         	String msg = intl_mgr.getString(POP_UP_NO_ADD);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
             
             // Clear out the surrogate added for the purpose of these checks
             SceneManagementUtility.removeTempSurrogate(
@@ -177,7 +177,7 @@ public class AddAutoAddRule extends BaseRule {
         		entityBuilder)) {
         	
         	String msg = intl_mgr.getString(POP_UP_NO_ADD);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
         	
             // Clear out the surrogate added for the purpose of these checks
             SceneManagementUtility.removeTempSurrogate(
@@ -200,7 +200,7 @@ public class AddAutoAddRule extends BaseRule {
                		collisionChecker, (PositionableEntity) entity);
         	
         	String msg = intl_mgr.getString(POP_UP_NO_ADD);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
         	
         	result.setResult(false);
         	result.setApproved(false);
@@ -156,7 +156,7 @@ public class AddEntityCheckForCollisionsRule extends BaseRule {
 		    }
 
 			String illegalCol = intl_mgr.getString(MISSING_COL_PROP);
-			popUpMessage.showMessage(illegalCol);
+			showPopUpMessage(illegalCol);
 
             result.setResult(false);
             result.setApproved(false);
@@ -174,7 +174,7 @@ public class AddEntityCheckForCollisionsRule extends BaseRule {
 
 		    // If we did not find a legal collision then provide response
 	        String illegalCol = intl_mgr.getString(ILLEGAL_COL_PROP);
-	        popUpMessage.showMessage(illegalCol);
+	        showPopUpMessage(illegalCol);
 
             result.setResult(false);
             result.setApproved(false);
@@ -131,7 +131,7 @@ public class AddPermanentParentRule extends BaseRule  {
 
         if (orig_parent != parent) {
             String illegalCol = intl_mgr.getString(ILLEGAL_REPARENT_PROP);
-            popUpMessage.showMessage(illegalCol);
+            showPopUpMessage(illegalCol);
 
             result.setApproved(false);
             result.setResult(false);
@@ -133,7 +133,7 @@ public class AddRestrictedParentRule extends BaseRule  {
             return(result);
         } else {
             String illegalCol = intl_mgr.getString(ILLEGAL_PARENT_PROP);
-            popUpMessage.showMessage(illegalCol);
+            showPopUpMessage(illegalCol);
 
             result.setApproved(false);
             result.setResult(false);
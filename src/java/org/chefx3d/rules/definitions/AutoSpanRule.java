@@ -291,7 +291,7 @@ public class AutoSpanRule extends BaseRule  {
                 // issue a transient scale command to ensure it has been 
                 // reset correctly
                 resetToStartingScale((PositionableEntity)entity);                
-                popUpMessage.showMessage(msg);               
+                showPopUpMessage(msg);               
             }
             return false;            
         }
@@ -313,7 +313,7 @@ public class AutoSpanRule extends BaseRule  {
                 // issue a transient scale command to ensure it has been 
                 // reset correctly
                 resetToStartingScale((PositionableEntity)entity);                
-                popUpMessage.showMessage(msg);               
+                showPopUpMessage(msg);               
             }
             return false;            
         }
@@ -785,7 +785,7 @@ public class AutoSpanRule extends BaseRule  {
             	result.setStatusValue(ELEVATION_LEVEL.SEVERE);
                 statusBar.setMessage(msg); 
             } else {
-                popUpMessage.showMessage(msg);
+                showPopUpMessage(msg);
 
             }
             return false;
@@ -815,7 +815,7 @@ public class AutoSpanRule extends BaseRule  {
 					resetToStartingScale(entity);
 					
                     String msg = intl_mgr.getString(POP_UP_MSG_SPACE_TOO_LARGE);
-                    popUpMessage.showMessage(msg);
+                    showPopUpMessage(msg);
 
                 }               
                 return false;
@@ -846,7 +846,7 @@ public class AutoSpanRule extends BaseRule  {
 					resetToStartingScale(entity);
             	   
                     String msg = intl_mgr.getString(POP_UP_MSG_SPACE_TOO_SMALL);
-                    popUpMessage.showMessage(msg);
+                    showPopUpMessage(msg);
                     
                 }                
                 return false;
@@ -896,7 +896,7 @@ public class AutoSpanRule extends BaseRule  {
 					resetToStartingScale(entity);
                     
                     String msg = intl_mgr.getString(STATUS_MSG_INVALID_POS);
-                    popUpMessage.showMessage(msg);                    
+                    showPopUpMessage(msg);                    
 
                 }
                 return false;
@@ -937,7 +937,7 @@ public class AutoSpanRule extends BaseRule  {
 					resetToStartingScale(entity);
                     
                     String msg = intl_mgr.getString(STATUS_MSG_INVALID_POS);
-                    popUpMessage.showMessage(msg);
+                    showPopUpMessage(msg);
                     
                 }
                 return false;
@@ -13,6 +13,8 @@
 package org.chefx3d.rules.definitions;
 
 //External Imports
+import java.awt.GraphicsEnvironment;
+
 import java.util.*;
 
 import java.util.prefs.Preferences;
@@ -31,6 +33,9 @@ import org.chefx3d.preferences.PersistentPreferenceConstants;
 
 import org.chefx3d.rules.rule.RuleEvaluationResult;
 import org.chefx3d.rules.rule.Rule;
+import org.chefx3d.rules.rule.RuleFilter;
+
+import org.chefx3d.rules.properties.accessors.RulePropertyAccessor;
 
 import org.chefx3d.rules.util.CommandSequencer;
 import org.chefx3d.rules.util.RuleCollisionHandler;
@@ -54,7 +59,7 @@ import org.chefx3d.util.ApplicationParams;
  * @author Ben Yarger
  * @version $Revision: 1.21 $
  */
-public abstract class BaseRule implements Rule {
+public abstract class BaseRule implements Rule, RuleFilter {
 	
     /** Should we log failures reasons for rules */
     protected static boolean logFailures = false;
@@ -86,11 +91,11 @@ public abstract class BaseRule implements Rule {
     /** StatusBar messenger */
     protected StatusBar statusBar;
 
-    /** Displays a pop up message */
-    protected PopUpMessage popUpMessage;
+    /** Displays a pop up message, created on first use */
+    private PopUpMessage popUpMessage;
 
-    /** Displays a pop up confirm message */
-    protected PopUpConfirm popUpConfirm;
+    /** Displays a pop up confirm message, created on first use */
+    private PopUpConfirm popUpConfirm;
 
     /** Translation utility */
     protected I18nManager intl_mgr;
@@ -103,6 +108,21 @@ public abstract class BaseRule implements Rule {
 	
     /** The current state of the process list */
     protected RuleEvaluationResult result;
+
+    /** Command classes the rule acts on, null for all */
+    private Class<?>[] applicableCommands;
+
+    /** Does the rule act on transient commands */
+    private boolean applicableToTransient;
+
+    /** Entity class the rule acts on, null for all */
+    private Class<? extends Entity> applicableEntity;
+
+    /** Does the rule only act on model entities */
+    private boolean modelsOnly;
+
+    /** Rule properties of which at least one must be set, null for none */
+    private String[] requiredProperties;
     
 	/**
 	 * Constructor
@@ -124,10 +144,11 @@ public abstract class BaseRule implements Rule {
 		collisionChecker = view.getRuleCollisionChecker();
 	    
 		statusBar = StatusBar.getStatusBar();
-		popUpMessage = PopUpMessage.getInstance();
-		popUpConfirm = PopUpConfirm.getInstance();
 		intl_mgr = I18nManager.getManager();
 		sequencer = CommandSequencer.getInstance();
+
+		applicableToTransient = true;
+		modelsOnly = false;
 	}
 	
     //---------------------------------------------------------------
@@ -212,6 +233,74 @@ public abstract class BaseRule implements Rule {
         }
     }
 
+    //-------------------------------------------------------------------------
+    // RuleFilter methods
+    //-------------------------------------------------------------------------
+
+    /**
+     * Check if the rule can act on commands of the given class. The answer
+     * must depend only on the arguments so engines are free to cache it.
+     *
+     * @param commandClass The class of the command being evaluated
+     * @param isTransient The transient state of the command
+     * @return True if the rule needs to be run, false otherwise
+     */
+    public boolean canApply(
+            Class<? extends Command> commandClass,
+            boolean isTransient) {
+
+        if (isTransient && !applicableToTransient) {
+            return false;
+        }
+
+        if (applicableCommands == null) {
+            return true;
+        }
+
+        for (int i = 0; i < applicableCommands.length; i++) {
+            if (applicableCommands[i].isAssignableFrom(commandClass)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Check if the rule can act on the entity of the command being
+     * evaluated. Called immediately before the rule would be run.
+     *
+     * @param entity The entity the command operates on
+     * @return True if the rule needs to be run, false otherwise
+     */
+    public boolean canApply(Entity entity) {
+
+        if (modelsOnly && !entity.isModel()) {
+            return false;
+        }
+
+        if (applicableEntity != null &&
+                !applicableEntity.isInstance(entity)) {
+            return false;
+        }
+
+        if (requiredProperties == null) {
+            return true;
+        }
+
+        for (int i = 0; i < requiredProperties.length; i++) {
+
+            Object value = RulePropertyAccessor.getRulePropertyValue(
+                    entity,
+                    requiredProperties[i]);
+
+            if (value != null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
 
     //-------------------------------------------------------------------------
     // Abstract method definitions
@@ -248,6 +337,91 @@ public abstract class BaseRule implements Rule {
     // Protected methods
     //-------------------------------------------------------------------------
 
+    /**
+     * Show a message in the pop up message dialog. The dialog is created
+     * the first time a rule shows a message. Without a display the message
+     * goes to the error reporter instead, so rules can run headless.
+     *
+     * @param msg The message to show
+     */
+    protected void showPopUpMessage(String msg) {
+        
+        if (GraphicsEnvironment.isHeadless()) {
+            errorReporter.messageReport(msg);
+            return;
+        }
+        
+        if (popUpMessage == null) {
+            popUpMessage = PopUpMessage.getInstance();
+        }
+        
+        popUpMessage.showMessage(msg);
+    }
+
+    /**
+     * Get the pop up confirm dialog. The dialog is created the first time
+     * a rule needs it, so rules can be built without a display.
+     *
+     * @return The pop up confirm dialog
+     */
+    protected PopUpConfirm getPopUpConfirm() {
+        
+        if (popUpConfirm == null) {
+            popUpConfirm = PopUpConfirm.getInstance();
+        }
+        
+        return popUpConfirm;
+    }
+
+    /**
+     * Limit the rule to the given command classes, or any subclass of them.
+     * Only call this if performCheck() passes every other command through
+     * untouched with a true result.
+     *
+     * @param commandClasses The command classes the rule acts on
+     */
+    protected void setApplicableCommands(Class<?>... commandClasses) {
+        applicableCommands = commandClasses;
+    }
+
+    /**
+     * Set whether the rule acts on transient commands. Only clear this if
+     * performCheck() passes transient commands through untouched with a
+     * true result.
+     *
+     * @param state False if transient commands can skip the rule
+     */
+    protected void setApplicableToTransient(boolean state) {
+        applicableToTransient = state;
+    }
+
+    /**
+     * Limit the rule to entities of the given class. Only call this if
+     * performCheck() passes every other entity through untouched with a
+     * true result.
+     *
+     * @param entityClass The entity class the rule acts on, null for any
+     * @param modelsOnly True if only model entities need to be checked
+     */
+    protected void setApplicableEntity(
+            Class<? extends Entity> entityClass,
+            boolean modelsOnly) {
+
+        applicableEntity = entityClass;
+        this.modelsOnly = modelsOnly;
+    }
+
+    /**
+     * Limit the rule to entities that have at least one of the given rule
+     * properties set. Only call this if performCheck() passes entities
+     * without any of them through untouched with a true result.
+     *
+     * @param properties The rule properties the rule depends on
+     */
+    protected void setRequiredProperties(String... properties) {
+        requiredProperties = properties;
+    }
+
     /**
      * Set the result object 
      * 
@@ -99,7 +99,7 @@ public class CanDeleteRule extends BaseRule  {
 			if(!canDelete && !isShadow){
 
 				String msg = intl_mgr.getString(POP_UP_MSG);
-				popUpMessage.showMessage(msg);
+				showPopUpMessage(msg);
 				result.setApproved(false);
 				result.setNotApprovedAction(
 						NOT_APPROVED_ACTION.RESET_TO_START_ALL_COMMANDS);
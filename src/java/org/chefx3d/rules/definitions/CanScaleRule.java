@@ -89,7 +89,7 @@ public class CanScaleRule extends BaseRule {
 		}
 
 		String notScalable = intl_mgr.getString(NOT_SCALABLE_PROP);
-		popUpMessage.showMessage(notScalable);
+		showPopUpMessage(notScalable);
 		statusBar.setMessage(notScalable);
 
         result.setResult(false);
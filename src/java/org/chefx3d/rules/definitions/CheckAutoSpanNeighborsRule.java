@@ -729,7 +729,7 @@ public class CheckAutoSpanNeighborsRule extends BaseRule  {
 
             String msg = intl_mgr.getString(POP_UP_DELETE_REMOVE);
 
-            if(popUpConfirm.showMessage(msg)){
+            if(getPopUpConfirm().showMessage(msg)){
 
                 for(int i = 0; i < autoSpanEntities.size(); i++){
 
@@ -174,7 +174,7 @@ public class ChildrenCollisionCheckRule extends BaseRule  {
         	if(command instanceof MoveEntityCommand) {
 
                 msg = intl_mgr.getString(NOT_ABLE_TO_MOVE + ".move");
-                popUpMessage.showMessage(msg);
+                showPopUpMessage(msg);
 
             } else if (command instanceof MoveEntityTransientCommand) {
 
@@ -204,7 +204,7 @@ public class ChildrenCollisionCheckRule extends BaseRule  {
             	scaleCmd.setNewScale(startScale);
             	
                 msg = intl_mgr.getString(NOT_ABLE_TO_MOVE + ".scale");
-                popUpMessage.showMessage(msg);
+                showPopUpMessage(msg);
 
             } else if (command instanceof ScaleEntityTransientCommand) {
 
@@ -226,7 +226,7 @@ public class ChildrenCollisionCheckRule extends BaseRule  {
             } else if (command instanceof RotateEntityCommand) {
 
                 msg = intl_mgr.getString(NOT_ABLE_TO_MOVE + "rotate");
-                popUpMessage.showMessage(msg);
+                showPopUpMessage(msg);
 
             } else if (command instanceof RotateEntityTransientCommand) {
 
@@ -252,12 +252,12 @@ public class ChildrenCollisionCheckRule extends BaseRule  {
                     statusBar.setMessage(msg);
                 } else {
                     msg = intl_mgr.getString(NOT_ABLE_TO_MOVE + ".move");
-                    popUpMessage.showMessage(msg);
+                    showPopUpMessage(msg);
                 }
 
             } else if(command instanceof RemoveEntityChildCommand) {
                 msg = intl_mgr.getString(NOT_ABLE_TO_MOVE + ".delete");
-                popUpMessage.showMessage(msg);
+                showPopUpMessage(msg);
             }
 
             result.setStatusValue(ELEVATION_LEVEL.SEVERE);
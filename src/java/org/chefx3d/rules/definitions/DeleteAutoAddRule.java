@@ -150,7 +150,7 @@ public class DeleteAutoAddRule extends BaseRule {
 		if (!autoAddRemoveCheck(model, entity)) {
 
 			String msg = intl_mgr.getString(ILLEGAL_DEL);
-			popUpMessage.showMessage(msg);
+			showPopUpMessage(msg);
 
 			result.setNotApprovedAction(NOT_APPROVED_ACTION.CLEAR_ALL_COMMANDS);
 			result.setApproved(false);
@@ -111,15 +111,15 @@ public class DeleteKitRule extends BaseRule  {
 
         // make sure the user wants to do this.
         String msg = intl_mgr.getString(POP_UP_DELETE_REMOVE);
-        if (!popUpConfirm.showMessage(msg)) {
+        if (!getPopUpConfirm().showMessage(msg)) {
             result.setApproved(false);
             result.setResult(false);
             return(result);
         }
 
         // suppress any other messages
-        popUpConfirm.setDisplayPopUp(false);
-        popUpConfirm.setConfirmedFlag(true);
+        getPopUpConfirm().setDisplayPopUp(false);
+        getPopUpConfirm().setConfirmedFlag(true);
 
 	    // get the list of entities to delete
 	    ArrayList<Entity> deleteList = new ArrayList<Entity>();
@@ -54,6 +54,8 @@ public class GlobalDepthOffsetRule extends BaseRule  {
         super(errorReporter, model, view);
 
         ruleType = RULE_TYPE.INVIOLABLE;
+
+        setRequiredProperties(ChefX3DRuleProperties.GLOBAL_DEPTH_OFFSET);
     }
 
     //-----------------------------------------------------------
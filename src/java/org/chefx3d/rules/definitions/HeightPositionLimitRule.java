@@ -65,6 +65,8 @@ public class HeightPositionLimitRule extends BaseRule  {
         super(errorReporter, model, view);
 
         ruleType = RULE_TYPE.STANDARD;
+
+        setApplicableEntity(PositionableEntity.class, true);
     }
 
     //-----------------------------------------------------------
@@ -550,7 +552,7 @@ public class HeightPositionLimitRule extends BaseRule  {
         } else {
 
             String msg = intl_mgr.getString(POP_UP_MSG);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
 
             result.setNotApprovedAction(
             		RuleEvaluationResult.NOT_APPROVED_ACTION.CLEAR_ALL_COMMANDS);
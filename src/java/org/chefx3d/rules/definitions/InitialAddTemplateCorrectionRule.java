@@ -120,8 +120,7 @@ public class InitialAddTemplateCorrectionRule extends
 	            return(result);
 			}
 
-			HashMap<String, Object> parentDefaultEntityProperties =
-				(HashMap<String, Object>)
+			Map<String, Object> parentDefaultEntityProperties =
 				parentPropertyMap.get(Entity.DEFAULT_ENTITY_PROPERTIES);
 
 			if (parentDefaultEntityProperties == null) {
@@ -201,7 +200,7 @@ public class InitialAddTemplateCorrectionRule extends
 	//-------------------------------------------------------------------------
 
 	private void processTemplateOrKitMovementRestriction(
-			HashMap<String, Object> parentDefaultEntityProperties,
+			Map<String, Object> parentDefaultEntityProperties,
 			Entity entity) {
 
 		ChefX3DRuleProperties.MOVEMENT_PLANE_RESTRICTION_VALUES
@@ -54,6 +54,8 @@ public class InitialMovePositionCorrectionRule extends
 
         ruleType = RULE_TYPE.INVIOLABLE;
 
+        setApplicableEntity(PositionableEntity.class, true);
+
     }
 
     //-----------------------------------------------------------
@@ -191,7 +191,7 @@ public class InstallPositionMultiZoneRequirementRule extends BaseRule  {
                         command instanceof TransitionEntityChildCommand) {
 
                 		String msg = intl_mgr.getString(FIXED_TARGET_NOTE);
-                        popUpMessage.showMessage(msg);
+                        showPopUpMessage(msg);
                         
                 		result.setApproved(false);
                 		result.setNotApprovedAction(
@@ -257,7 +257,7 @@ public class InstallPositionMultiZoneRequirementRule extends BaseRule  {
             if(!command.isTransient()) {
                 result.setApproved(false);
                 String msg = intl_mgr.getString(POP_UP_BOUNDS_EXCEEDED);
-                popUpMessage.showMessage(msg);
+                showPopUpMessage(msg);
             } else {
             	result.setStatusMessage(statusBarMessage);
             }
@@ -343,7 +343,7 @@ public class InstallPositionMultiZoneRequirementRule extends BaseRule  {
 
         if (legalIndex < 0) {
             String msg = intl_mgr.getString(POP_UP_BOUNDS_EXCEEDED);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
 			
             return false;
         }
@@ -398,7 +398,7 @@ public class InstallPositionMultiZoneRequirementRule extends BaseRule  {
                 targetAdjustmentAxis == null){
 
             String msg = intl_mgr.getString(POP_UP_MISSING_DATA);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
 			
             return false;
         }
@@ -685,7 +685,7 @@ public class InstallPositionMultiZoneRequirementRule extends BaseRule  {
 		} else {
         	if (!isTransient) {
 	            String msg = intl_mgr.getString(POP_UP_BOUNDS_EXCEEDED);
-	            popUpMessage.showMessage(msg);
+	            showPopUpMessage(msg);
         	}
 			entity_adjustment = null;
 		}
@@ -37,6 +37,7 @@ import org.chefx3d.rules.util.TransformUtils;
 import org.chefx3d.rules.util.RuleUtils;
 
 import org.chefx3d.rules.util.AutoAddUtility;
+import org.chefx3d.rules.util.ChildrenMatches;
 
 import org.chefx3d.util.ErrorReporter;
 import org.chefx3d.util.CheckStatusReportElevation.ELEVATION_LEVEL;
@@ -312,7 +313,8 @@ public class InstallPositionRequirementRule extends BaseRule  {
         // Retrieve the legal classification index. If -1 stop execution
         int legalIndex =
             rch.hasLegalCollisions(
-            		collisionResults.getEntityMatchCountMap(),
+            		collisionResults,
+            		ChildrenMatches.ENTITY_MATCHES,
                     classRelationship,
                     relationshipAmount,
                     relModifier);
@@ -321,7 +323,8 @@ public class InstallPositionRequirementRule extends BaseRule  {
 
             legalIndex =
                 rch.hasLegalCollisions(
-                		collisionResults.getWallMatchCountMap(),
+                		collisionResults,
+                		ChildrenMatches.WALL_MATCHES,
                         classRelationship,
                         relationshipAmount,
                         relModifier);
@@ -336,7 +339,7 @@ public class InstallPositionRequirementRule extends BaseRule  {
 
                 if (legalIndex < 0) {
                     String msg = intl_mgr.getString(POP_UP_BOUNDS_EXCEEDED);
-                    popUpMessage.showMessage(msg);
+                    showPopUpMessage(msg);
                     return false;
                 }
             }
@@ -393,7 +396,7 @@ public class InstallPositionRequirementRule extends BaseRule  {
                 targetAdjustmentAxis == null){
 
             String msg = intl_mgr.getString(POP_UP_MISSING_DATA);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
 
             return false;
         }
@@ -562,7 +565,7 @@ public class InstallPositionRequirementRule extends BaseRule  {
         // Make sure we got position collision data
         if(posColData == null){
             String msg = intl_mgr.getString(POP_UP_BOUNDS_EXCEEDED);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
             return false;
         }
 
@@ -594,7 +597,7 @@ public class InstallPositionRequirementRule extends BaseRule  {
                     } else {
 
                         String msg = intl_mgr.getString(POP_UP_TWO_FIXED_TARGETS);
-                        popUpMessage.showMessage(msg);
+                        showPopUpMessage(msg);
                         return false;
                     }
 
@@ -620,7 +623,7 @@ public class InstallPositionRequirementRule extends BaseRule  {
         if(cmdList == null){
 
             String msg = intl_mgr.getString(POP_UP_TWO_FIXED_TARGETS);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
             return false;
         }
 
@@ -798,7 +801,7 @@ public class InstallPositionRequirementRule extends BaseRule  {
                         return true;
                     } else {
                         String msg = intl_mgr.getString(POP_UP_TWO_FIXED_TARGETS);
-                        popUpMessage.showMessage(msg);
+                        showPopUpMessage(msg);
                         return false;
                     }
 
@@ -824,7 +827,7 @@ public class InstallPositionRequirementRule extends BaseRule  {
         if(cmdList == null){
 
             String msg = intl_mgr.getString(POP_UP_TWO_FIXED_TARGETS);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
             return false;
         }
 
@@ -1140,7 +1143,7 @@ public class InstallPositionRequirementRule extends BaseRule  {
                         return true;
                     } else {
                         String msg = intl_mgr.getString(POP_UP_TWO_FIXED_TARGETS);
-                        popUpMessage.showMessage(msg);
+                        showPopUpMessage(msg);
                         return false;
                     }
 
@@ -1168,7 +1171,7 @@ public class InstallPositionRequirementRule extends BaseRule  {
 	        if(cmdList == null){
 
 	            String msg = intl_mgr.getString(POP_UP_TWO_FIXED_TARGETS);
-	            popUpMessage.showMessage(msg);
+	            showPopUpMessage(msg);
 	            return false;
 	        }
 
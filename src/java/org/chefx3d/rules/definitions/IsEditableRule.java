@@ -91,7 +91,7 @@ public class IsEditableRule extends BaseRule {
 		}
 
 		String notEditable = intl_mgr.getString(NOT_EDITABLE_PROP);
-		popUpMessage.showMessage(notEditable);
+		showPopUpMessage(notEditable);
 		statusBar.setMessage(notEditable);
 
         result.setResult(false);
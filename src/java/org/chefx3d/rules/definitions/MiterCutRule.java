@@ -554,7 +554,7 @@ public class MiterCutRule extends BaseRule {
                 
                 // pop up a failed message
                 String failedMsg = intl_mgr.getString(CANNOT_ADD_MSG);
-                popUpMessage.showMessage(failedMsg);
+                showPopUpMessage(failedMsg);
                 statusBar.setMessage(failedMsg);
                 
                 // set the failed result
@@ -1397,7 +1397,7 @@ public class MiterCutRule extends BaseRule {
 		            	
 		            	if (sideToProcess == null) {
 		            		
-		            		doMitreCut = popUpConfirm.showMessage(CONFIRM_MSG);
+		            		doMitreCut = getPopUpConfirm().showMessage(CONFIRM_MSG);
 		            		
 		            	} else {
 		            		
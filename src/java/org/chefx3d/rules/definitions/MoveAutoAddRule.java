@@ -176,7 +176,7 @@ public class MoveAutoAddRule extends BaseRule {
 			//((RuleDataAccessor)command).resetToStart();
 
            	String msg = intl_mgr.getString(POP_UP_NO_MOVE);
-           	popUpMessage.showMessage(msg);
+           	showPopUpMessage(msg);
 
            	result.setNotApprovedAction(NOT_APPROVED_ACTION.CLEAR_ALL_COMMANDS);
             result.setApproved(false);
@@ -202,7 +202,7 @@ public class MoveAutoAddRule extends BaseRule {
 			//((RuleDataAccessor)command).resetToStart();
 
            	String msg = intl_mgr.getString(POP_UP_NO_MOVE);
-           	popUpMessage.showMessage(msg);
+           	showPopUpMessage(msg);
 
            	result.setNotApprovedAction(NOT_APPROVED_ACTION.CLEAR_ALL_COMMANDS);
             result.setApproved(false);
@@ -227,7 +227,7 @@ public class MoveAutoAddRule extends BaseRule {
 			//((RuleDataAccessor)command).resetToStart();
 
            	String msg = intl_mgr.getString(POP_UP_NO_MOVE);
-           	popUpMessage.showMessage(msg);
+           	showPopUpMessage(msg);
 
            	result.setNotApprovedAction(NOT_APPROVED_ACTION.CLEAR_ALL_COMMANDS);
             result.setApproved(false);
@@ -252,7 +252,7 @@ public class MoveAutoAddRule extends BaseRule {
 			//((RuleDataAccessor)command).resetToStart();
 
            	String msg = intl_mgr.getString(POP_UP_NO_MOVE);
-           	popUpMessage.showMessage(msg);
+           	showPopUpMessage(msg);
 
            	result.setNotApprovedAction(NOT_APPROVED_ACTION.CLEAR_ALL_COMMANDS);
             result.setApproved(false);
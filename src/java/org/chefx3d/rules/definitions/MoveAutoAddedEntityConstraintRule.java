@@ -351,7 +351,7 @@ public class MoveAutoAddedEntityConstraintRule extends BaseRule {
 						//((RuleDataAccessor)command).resetToStart();
 
 						String msg = intl_mgr.getString(POP_UP_MSG_PROP);
-						popUpMessage.showMessage(msg);
+						showPopUpMessage(msg);
 
 			            result.setStatusValue(ELEVATION_LEVEL.SEVERE);
 
@@ -407,7 +407,7 @@ public class MoveAutoAddedEntityConstraintRule extends BaseRule {
 			//((RuleDataAccessor)command).resetToStart();
 
 			String msg = intl_mgr.getString(POP_UP_MSG_PROP);
-			popUpMessage.showMessage(msg);
+			showPopUpMessage(msg);
 
             result.setStatusValue(ELEVATION_LEVEL.SEVERE);
 
@@ -456,7 +456,7 @@ public class MoveAutoAddedEntityConstraintRule extends BaseRule {
                		collisionChecker, (PositionableEntity) entity);
         	
         	String msg = intl_mgr.getString(POP_UP_MSG_PROP);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
         	
         	result.setResult(false);
         	result.setApproved(false);
@@ -273,7 +273,7 @@ public class MovementHasObjectCollisionsRule extends BaseRule {
         if(command instanceof MoveEntityCommand){
 
             String msg = intl_mgr.getString(MV_PLACE_COL_PROP);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
 
             result.setApproved(false);
             result.setNotApprovedAction(
@@ -285,7 +285,7 @@ public class MovementHasObjectCollisionsRule extends BaseRule {
                 !command.isTransient()){
 
             String msg = intl_mgr.getString(MV_PLACE_COL_PROP);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
 
             result.setApproved(false);
             result.setResult(false);
@@ -106,13 +106,13 @@ class MovementNoCollisionRule extends BaseRule {
 			if(command instanceof MoveEntityCommand){
 
 				String illegalMove = intl_mgr.getString(ILLEGAL_MOVE_PROP);
-				popUpMessage.showMessage(illegalMove);
+				showPopUpMessage(illegalMove);
 
 			} else if (command instanceof TransitionEntityChildCommand &&
 					command.isTransient() == false){
 
 				String illegalMove = intl_mgr.getString(ILLEGAL_MOVE_PROP);
-				popUpMessage.showMessage(illegalMove);
+				showPopUpMessage(illegalMove);
 
 			} else {
 
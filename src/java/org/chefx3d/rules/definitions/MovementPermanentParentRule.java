@@ -130,7 +130,7 @@ public class MovementPermanentParentRule extends BaseRule  {
 
             if (start != end) {
                 String illegalCol = intl_mgr.getString(ILLEGAL_REPARENT_PROP);
-                popUpMessage.showMessage(illegalCol);
+                showPopUpMessage(illegalCol);
             }
 
             result.setResult(true);
@@ -64,6 +64,11 @@ public class MovementScalesAttachedChildrenRule extends BaseRule {
 
         ruleType = RULE_TYPE.STANDARD;
 
+        setApplicableCommands(
+                MoveEntityCommand.class,
+                MoveEntityTransientCommand.class,
+                TransitionEntityChildCommand.class);
+
     }
 
     //-----------------------------------------------------------
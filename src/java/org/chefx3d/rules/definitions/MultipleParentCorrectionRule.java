@@ -59,6 +59,8 @@ public class MultipleParentCorrectionRule extends BaseRule {
         super(errorReporter, model, view);
 
         ruleType = RULE_TYPE.INVIOLABLE;
+
+        setApplicableToTransient(false);
     }
 
     //-----------------------------------------------------------
@@ -213,7 +213,7 @@ public class OverhangLimitRule extends BaseRule {
                     	this.intl_mgr.getString(ADD_FAIL_PROP);
                 }
                 
-                popUpMessage.showMessage(failInfo);
+                showPopUpMessage(failInfo);
 
                 return false;
 
@@ -255,7 +255,7 @@ public class OverhangLimitRule extends BaseRule {
        if (command instanceof ScaleEntityCommand) {
 
            result.setApproved(false);
-           popUpMessage.showMessage(failInfo);
+           showPopUpMessage(failInfo);
 
        } else if (command instanceof ScaleEntityTransientCommand) {
 
@@ -276,7 +276,7 @@ public class OverhangLimitRule extends BaseRule {
        if (command instanceof MoveEntityCommand) {
 
            result.setApproved(false);
-           popUpMessage.showMessage(failInfo);
+           showPopUpMessage(failInfo);
 
        } else if (command instanceof MoveEntityTransientCommand) {
 
@@ -298,7 +298,7 @@ public class OverhangLimitRule extends BaseRule {
                !command.isTransient()) {
 
            result.setApproved(false);
-           popUpMessage.showMessage(failInfo);
+           showPopUpMessage(failInfo);
 
        } else {
 
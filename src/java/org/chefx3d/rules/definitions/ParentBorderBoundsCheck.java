@@ -114,7 +114,7 @@ public class ParentBorderBoundsCheck extends BaseRule  {
 
 				// Set pop up message
 				String msg = intl_mgr.getString(POP_UP_MSG);
-				popUpMessage.showMessage(msg);
+				showPopUpMessage(msg);
 
 				result.setStatusValue(ELEVATION_LEVEL.SEVERE);
 				result.setApproved(false);
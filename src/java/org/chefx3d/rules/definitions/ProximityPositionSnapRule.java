@@ -107,6 +107,8 @@ public class ProximityPositionSnapRule extends BaseRule  {
         	SessionPreferenceConstants.DEFAULT_MEASUREMENT_DIRECTION;
 
         ruleType = RULE_TYPE.INVIOLABLE;
+
+        setRequiredProperties(ChefX3DRuleProperties.SNAP_TO_CLASS_PROP);
     }
 
     //-----------------------------------------------------------
@@ -198,7 +198,7 @@ public class ReparentHiddenProductsRule extends BaseRule {
 				if (num > 0) {
 					
 					String msg = intl_mgr.getString(REMOVE_HIDDEN_PRODUCTS_MSG);
-					boolean removeAll = popUpConfirm.showMessage(msg);
+					boolean removeAll = getPopUpConfirm().showMessage(msg);
 					if (!removeAll) {
 						
 						SceneManagementUtility.addTempSurrogate(
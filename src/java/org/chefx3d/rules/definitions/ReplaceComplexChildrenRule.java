@@ -201,7 +201,7 @@ public class ReplaceComplexChildrenRule extends BaseRule {
                     globalUpdate = true;
                 } else {
                     // first check to see if this is singular or global
-                    globalUpdate = popUpConfirm.showMessage(confirmMsg);
+                    globalUpdate = getPopUpConfirm().showMessage(confirmMsg);
                 }
 
 	            // the list of complex products to swap
@@ -962,7 +962,7 @@ public class ReplaceComplexChildrenRule extends BaseRule {
 
         		    // If we did not find a legal collision then provide response
         	        String illegalCol = intl_mgr.getString(ILLEGAL_COL_PROP);
-        	        popUpMessage.showMessage(illegalCol);
+        	        showPopUpMessage(illegalCol);
 
                     result.setResult(false);
                     result.setApproved(false);
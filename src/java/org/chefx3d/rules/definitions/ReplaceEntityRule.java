@@ -187,7 +187,7 @@ public class ReplaceEntityRule extends BaseRule  {
 
 				String msg = intl_mgr.getString(POP_UP_MSG);
 
-				if(popUpConfirm.showMessage(msg)){
+				if(getPopUpConfirm().showMessage(msg)){
 
 					// Issue all of the new remove commands resulting from the
 					// replace operation
@@ -108,7 +108,7 @@ public class RotationHasObjectCollisionsRule extends BaseRule {
 						(PositionableEntity)entity);
 
 				String msg = intl_mgr.getString(ROTATE_COL_PROP);
-				popUpMessage.showMessage(msg);
+				showPopUpMessage(msg);
 
 	            result.setResult(false);
 	            return(result);
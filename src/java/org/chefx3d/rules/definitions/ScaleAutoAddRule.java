@@ -118,7 +118,7 @@ public class ScaleAutoAddRule extends BaseRule {
         		model, (PositionableEntity) entity, command)) {
 
             String msg = intl_mgr.getString(POP_UP_NO_SCALE);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
             result.setApproved(false);
             result.setResult(true);
             return(result);
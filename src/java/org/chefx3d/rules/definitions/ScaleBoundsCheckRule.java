@@ -113,7 +113,7 @@ public class ScaleBoundsCheckRule extends BaseRule  {
 					((ScaleEntityCommand)command).setNewScale(startScale);
 // Use Rules's wall bounds check pop up instead for the time being.
 //					String msg = intl_mgr.getString(BOUNDS_PROP);
-//					popUpMessage.showMessage(msg);
+//					showPopUpMessage(msg);
 
 
 				}
@@ -72,6 +72,8 @@ public class ScaleChangeModelRule extends BaseRule  {
         super(errorReporter, model, view);
 
         ruleType = RULE_TYPE.STANDARD;
+
+        setApplicableCommands(ScaleEntityCommand.class);
     }
 
     //-----------------------------------------------------------
@@ -120,7 +122,7 @@ public class ScaleChangeModelRule extends BaseRule  {
             pEntity = (PositionableEntity)entity;
         } else {
             String msg = intl_mgr.getString(CHILD_COLLISION_FAILURE);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
             result.setResult(false);
             return(result);
         }
@@ -267,7 +269,7 @@ public class ScaleChangeModelRule extends BaseRule  {
 
         if (tool == null) {
             String msg = intl_mgr.getString(CHILD_COLLISION_FAILURE);
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
 
             return false;
         }
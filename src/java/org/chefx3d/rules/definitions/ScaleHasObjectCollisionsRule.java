@@ -135,7 +135,7 @@ public class ScaleHasObjectCollisionsRule extends BaseRule {
             if(command instanceof ScaleEntityCommand){
 
                 String msg = intl_mgr.getString(SCALE_COL_PROP);
-                popUpMessage.showMessage(msg);
+                showPopUpMessage(msg);
 
                 result.setApproved(false);
                 result.setNotApprovedAction(
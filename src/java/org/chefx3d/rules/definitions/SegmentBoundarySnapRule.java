@@ -321,7 +321,7 @@ public class SegmentBoundarySnapRule extends BaseRule  {
 
 								if (!rot1.epsilonEquals(rot0, 0.0001f)) {
 									String msg = intl_mgr.getString(ALIGN_PRODUCT_WITH_WALL_MSG);
-									doAlignment = popUpConfirm.showMessage(msg);
+									doAlignment = getPopUpConfirm().showMessage(msg);
 								}
 							}
 						}
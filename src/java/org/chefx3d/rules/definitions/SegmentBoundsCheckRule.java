@@ -192,7 +192,7 @@ public class SegmentBoundsCheckRule extends BaseRule  {
 			} else if(command instanceof RotateEntityCommand){
 
 				String msg = intl_mgr.getString(BOUNDS_PROP);
-				popUpMessage.showMessage(msg);
+				showPopUpMessage(msg);
 
 				result.setStatusValue(ELEVATION_LEVEL.SEVERE);
 				result.setApproved(false);
@@ -204,7 +204,7 @@ public class SegmentBoundsCheckRule extends BaseRule  {
 			} else if(command instanceof MoveEntityCommand){
 
 				String msg = intl_mgr.getString(BOUNDS_PROP);
-				popUpMessage.showMessage(msg);
+				showPopUpMessage(msg);
 
                 result.setStatusValue(ELEVATION_LEVEL.SEVERE);
 				result.setApproved(false);
@@ -217,7 +217,7 @@ public class SegmentBoundsCheckRule extends BaseRule  {
 					command.isTransient() == false){
 
 				String msg = intl_mgr.getString(BOUNDS_PROP);
-				popUpMessage.showMessage(msg);
+				showPopUpMessage(msg);
 
 				result.setStatusValue(ELEVATION_LEVEL.SEVERE);
 				result.setApproved(false);
@@ -229,7 +229,7 @@ public class SegmentBoundsCheckRule extends BaseRule  {
 			} else if (command instanceof ScaleEntityCommand) {
 
 				String msg = intl_mgr.getString(BOUNDS_PROP);
-				popUpMessage.showMessage(msg);
+				showPopUpMessage(msg);
 
 				result.setStatusValue(ELEVATION_LEVEL.SEVERE);
 				result.setApproved(false);
@@ -242,7 +242,7 @@ public class SegmentBoundsCheckRule extends BaseRule  {
 
 				// Handles add cases
 				String msg = intl_mgr.getString(BOUNDS_PROP);
-				popUpMessage.showMessage(msg);
+				showPopUpMessage(msg);
 
 				result.setApproved(false);
 				result.setNotApprovedAction(
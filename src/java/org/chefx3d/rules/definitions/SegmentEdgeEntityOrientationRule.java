@@ -207,7 +207,7 @@ public class SegmentEdgeEntityOrientationRule extends BaseRule  {
       
             // display the error message        
             String msg = intl_mgr.getString(POP_UP_MSG);         
-            popUpMessage.showMessage(msg);
+            showPopUpMessage(msg);
             result.setStatusValue(ELEVATION_LEVEL.SEVERE);
             result.setApproved(false);
             result.setResult(false);          
@@ -765,7 +765,7 @@ public class SegmentEdgeEntityOrientationRule extends BaseRule  {
         
         // display the error message        
         String msg = intl_mgr.getString(POP_UP_MSG);         
-        popUpMessage.showMessage(msg);
+        showPopUpMessage(msg);
         
         result.setStatusValue(ELEVATION_LEVEL.SEVERE);
         result.setApproved(false);
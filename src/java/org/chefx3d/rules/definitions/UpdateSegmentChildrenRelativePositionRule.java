@@ -167,9 +167,9 @@ public class UpdateSegmentChildrenRelativePositionRule extends BaseRule  {
 			    if (hasDeletes) {
 
 		            String msg = intl_mgr.getString(CONFIRM_MSG);
-		            if (!(popUpConfirm.showMessage(msg))) {
+		            if (!(getPopUpConfirm().showMessage(msg))) {
 
-		                popUpConfirm.setDisplayPopUp(false);
+		                getPopUpConfirm().setDisplayPopUp(false);
 
 	                    /*
 	                     * If the user cancels the move vertex operation
@@ -359,7 +359,7 @@ public class UpdateSegmentChildrenRelativePositionRule extends BaseRule  {
 	            if (hasDeletes) {
 
 	                String msg = intl_mgr.getString(CONFIRM_MSG);
-	                if(!(popUpConfirm.showMessage(msg))){
+	                if(!(getPopUpConfirm().showMessage(msg))){
 	                    /*
 	                     * If the user cancels the move vertex operation
 	                     * because they do not want to remove any products
@@ -438,7 +438,7 @@ public class UpdateSegmentChildrenRelativePositionRule extends BaseRule  {
                         return(result);
                     }
 
-                    popUpConfirm.setDisplayPopUp(false);
+                    getPopUpConfirm().setDisplayPopUp(false);
 
                 }
 			}
@@ -172,18 +172,18 @@ public class VertexHeightPropertyChangeRule extends BaseRule  {
 				 * value.
 				 */
 
-				if(!( popUpConfirm.showMessage(msg))){
+				if(!( getPopUpConfirm().showMessage(msg))){
 				    Float initialHeight =
 						(Float) ((ChangePropertyCommand)command).getOriginalValue();
 
 					((ChangePropertyCommand)command).setNewValue(initialHeight);
-					popUpConfirm.setDisplayPopUp(false);
+					getPopUpConfirm().setDisplayPopUp(false);
                     result.setResult(false);
                     return(result);
 				} else {
 					addNewlyIssuedCommand(cmdList);
 
-					popUpConfirm.setDisplayPopUp(false);
+					getPopUpConfirm().setDisplayPopUp(false);
                     result.setResult(true);
                     return(result);
 				}
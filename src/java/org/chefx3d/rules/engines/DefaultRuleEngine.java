@@ -23,6 +23,7 @@ import org.chefx3d.model.RuleDataAccessor;
 // Internal imports
 import org.chefx3d.rules.rule.Rule;
 import org.chefx3d.rules.rule.RuleEvaluationResult;
+import org.chefx3d.rules.rule.RuleFilter;
 
 import org.chefx3d.util.CheckStatusReportElevation;
 import org.chefx3d.util.ErrorReporter;
@@ -47,6 +48,35 @@ public class DefaultRuleEngine extends BaseRuleEngine {
     /** Use this flag to display the position of a product after each run evaluation */
     private boolean showPositionChange;
     
+    /** The rule names, in processing order */
+    private String[] ruleNames;
+    
+    /** The rules, in processing order */
+    private Rule[] rules;
+    
+    /** Pruned rule chains for non-transient commands, by command class */
+    private HashMap<Class<? extends Command>, RuleChain> chainMap;
+    
+    /** Pruned rule chains for transient commands, by command class */
+    private HashMap<Class<? extends Command>, RuleChain> transientChainMap;
+    
+    /** Collects rule timings when profiling is enabled */
+    private RuleProfiler profiler;
+    
+    /**
+     * The rules that can apply to a single command class. The skipped flags
+     * record if any rules were pruned ahead of the matching entry, with the
+     * last flag covering the rules pruned from the end of the list.
+     */
+    private static class RuleChain {
+        
+        /** Indices of the rules to process */
+        int[] indices;
+        
+        /** Were rules pruned ahead of each index */
+        boolean[] skipped;
+    }
+    
     /**
      * The default constructor
      * 
@@ -65,6 +95,20 @@ public class DefaultRuleEngine extends BaseRuleEngine {
 		super(errorReporter, view, statusManager, ruleList);
 		
 		showPositionChange = false;
+		
+		// the rule list is fixed, so flatten it once up front
+		ruleNames = new String[ruleList.size()];
+		ruleList.keySet().toArray(ruleNames);
+		
+		rules = new Rule[ruleNames.length];
+		for (int i = 0; i < ruleNames.length; i++) {
+		    rules[i] = ruleList.get(ruleNames[i]);
+		}
+		
+		chainMap = new HashMap<Class<? extends Command>, RuleChain>();
+		transientChainMap = new HashMap<Class<? extends Command>, RuleChain>();
+		
+		profiler = RuleProfiler.getInstance();
 	}
 
     //---------------------------------------------------------------
@@ -73,7 +117,8 @@ public class DefaultRuleEngine extends BaseRuleEngine {
     
 	/**
 	 * Takes the command and runs it through all of the rules specified in the 
-	 * rules list provided.
+	 * rules list provided. Rules that declare they cannot apply to the 
+	 * command are treated as passed without being run.
 	 *
 	 * @param command The Command to process
 	 * @param result The object to initialize with the evaluation result
@@ -83,19 +128,50 @@ public class DefaultRuleEngine extends BaseRuleEngine {
 	        Command command,
 	        RuleEvaluationResult result) {
 	    	    	    
-	    // get the list of names to process
-	    String[] names = new String[ruleList.size()];
-	    ruleList.keySet().toArray(names);
+	    // get the list of rules that can apply to this command
+	    RuleChain chain = getRuleChain(command);
 	    
-	    int len = names.length;
+	    int[] indices = chain.indices;
+	    boolean[] skipped = chain.skipped;
+	    
+	    boolean profiling = profiler.isEnabled();
+	    
+	    int len = indices.length;
 	    for (int i = 0; i < len; i++) {
 	        
-	        String ruleName = names[i];
-	        Rule rule = ruleList.get(ruleName);
+	        String ruleName = ruleNames[indices[i]];
+	        Rule rule = rules[indices[i]];
 	        
-	        errorReporter.messageReport("Processing rule " + ruleName);
-	        	        
-	        result = rule.processRule(command, result);
+	        if (skipped[i]) {
+	            result.setResult(true);
+	        }
+	        
+	        if (canApply(rule, command)) {
+	            
+	            errorReporter.messageReport("Processing rule " + ruleName);
+	            
+	            if (profiling) {
+	                
+	                long start = System.nanoTime();
+	                
+	                result = rule.processRule(command, result);
+	                
+	                profiler.record(
+	                        rule, 
+	                        command, 
+	                        result.getResult(), 
+	                        result.isApproved(), 
+	                        System.nanoTime() - start);
+	                
+	            } else {
+	                
+	                result = rule.processRule(command, result);
+	            }
+	            
+	        } else {
+	            
+	            result.setResult(true);
+	        }
 	        
 	        if (!result.getResult()) {
 	            result.addFailedRule(rule);
@@ -123,11 +199,92 @@ public class DefaultRuleEngine extends BaseRuleEngine {
 	        // if the isApproved is false then stop processing 
 	        // the list since we have reached an invalid state
 	        if (!result.isApproved())
-	            break;
+	            return result;
 
 	    }
 	    
+	    // rules pruned from the end of the list pass as well
+	    if (skipped[len]) {
+	        result.setResult(true);
+	        statusManager.setElevationLevel(result.getStatusValue());
+	    }
+	    
 	    // we are done, return the current state
 		return result;
 	}
+	
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+    
+	/**
+	 * Get the rules that can apply to the command, building and caching the
+	 * chain the first time a command class is seen.
+	 *
+	 * @param command The Command to process
+	 * @return The pruned rule chain
+	 */
+	private RuleChain getRuleChain(Command command) {
+	    
+	    Class<? extends Command> commandClass = command.getClass();
+	    boolean isTransient = command.isTransient();
+	    
+	    HashMap<Class<? extends Command>, RuleChain> map = 
+	        isTransient ? transientChainMap : chainMap;
+	    
+	    RuleChain chain = map.get(commandClass);
+	    if (chain != null) {
+	        return chain;
+	    }
+	    
+	    int[] indices = new int[rules.length];
+	    boolean[] skipped = new boolean[rules.length + 1];
+	    
+	    int count = 0;
+	    for (int i = 0; i < rules.length; i++) {
+	        
+	        if (rules[i] instanceof RuleFilter && 
+	                !((RuleFilter)rules[i]).canApply(commandClass, isTransient)) {
+	            
+	            skipped[count] = true;
+	            continue;
+	        }
+	        
+	        indices[count++] = i;
+	    }
+	    
+	    chain = new RuleChain();
+	    chain.indices = new int[count];
+	    chain.skipped = new boolean[count + 1];
+	    
+	    System.arraycopy(indices, 0, chain.indices, 0, count);
+	    System.arraycopy(skipped, 0, chain.skipped, 0, count + 1);
+	    
+	    map.put(commandClass, chain);
+	    
+	    return chain;
+	}
+	
+	/**
+	 * Check the entity level filter of a rule against the command.
+	 *
+	 * @param rule The rule to check
+	 * @param command The Command to process
+	 * @return True if the rule needs to be run, false otherwise
+	 */
+	private boolean canApply(Rule rule, Command command) {
+	    
+	    if (!(rule instanceof RuleFilter) || 
+	            !(command instanceof RuleDataAccessor)) {
+	        return true;
+	    }
+	    
+	    // leave null entities to the rule to report
+	    Entity entity = ((RuleDataAccessor)command).getEntity();
+	    if (entity == null) {
+	        return true;
+	    }
+	    
+	    return ((RuleFilter)rule).canApply(entity);
+	}
 }
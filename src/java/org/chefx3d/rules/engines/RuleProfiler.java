@@ -0,0 +1,255 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2006 - 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.rules.engines;
+
+// External Imports
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import java.util.*;
+
+// Internal Imports
+import org.chefx3d.model.Command;
+
+import org.chefx3d.rules.rule.Rule;
+
+/**
+ * Singleton that collects per rule execution statistics, broken down by
+ * the class of the command being evaluated.
+ *
+ * Profiling is off by default. It can be switched on at startup with the
+ * system property chefx3d.rules.profile=true or at any time through
+ * setEnabled(). While disabled the rule engines only pay for a single
+ * boolean check per rule. While enabled recording does not allocate once
+ * every rule and command combination has been seen.
+ *
+ * The dump() output has one sorted line per rule and command combination,
+ * so dumps taken from different builds under the same workload can be
+ * compared with a plain diff.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class RuleProfiler {
+
+    /** System property used to enable profiling at startup */
+    public static final String PROFILE_PROPERTY = "chefx3d.rules.profile";
+
+    /** The singleton instance */
+    private static RuleProfiler ruleProfiler = new RuleProfiler();
+
+    /** Is profiling enabled */
+    private volatile boolean enabled;
+
+    /** Statistics by rule class, then command class */
+    private HashMap<Class<?>, HashMap<Class<?>, RuleStatistics>> statsMap;
+
+    /** Private constructor */
+    private RuleProfiler() {
+
+        statsMap = new HashMap<Class<?>, HashMap<Class<?>, RuleStatistics>>();
+
+        enabled = Boolean.getBoolean(PROFILE_PROPERTY);
+    }
+
+    /**
+     * Get the singleton RuleProfiler.
+     *
+     * @return RuleProfiler
+     */
+    public static RuleProfiler getInstance() {
+        return ruleProfiler;
+    }
+
+    /** Prevent cloning */
+    public Object clone() throws CloneNotSupportedException {
+        throw new CloneNotSupportedException(
+                "RuleProfiler is a singleton.");
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Check if rule runs should be recorded.
+     *
+     * @return True if profiling is enabled, false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turn profiling on or off. Data already recorded is kept.
+     *
+     * @param enabled True to record rule runs, false otherwise
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Record a single rule run.
+     *
+     * @param rule The rule that was run
+     * @param command The command it evaluated
+     * @param passed The result the rule returned
+     * @param approved The approval state the rule left the command in
+     * @param time The time taken, in nanoseconds
+     */
+    public synchronized void record(
+            Rule rule,
+            Command command,
+            boolean passed,
+            boolean approved,
+            long time) {
+
+        Class<?> ruleClass = rule.getClass();
+        Class<?> commandClass = command.getClass();
+
+        HashMap<Class<?>, RuleStatistics> commandMap = statsMap.get(ruleClass);
+
+        if (commandMap == null) {
+            commandMap = new HashMap<Class<?>, RuleStatistics>();
+            statsMap.put(ruleClass, commandMap);
+        }
+
+        RuleStatistics stats = commandMap.get(commandClass);
+
+        if (stats == null) {
+            stats = new RuleStatistics(
+                    ruleClass.getSimpleName(),
+                    commandClass.getSimpleName());
+            commandMap.put(commandClass, stats);
+        }
+
+        stats.record(passed, approved, time);
+    }
+
+    /**
+     * Get a copy of the statistics recorded so far, sorted by rule name and
+     * then command name.
+     *
+     * @return The statistics
+     */
+    public synchronized List<RuleStatistics> snapshot() {
+
+        ArrayList<RuleStatistics> list = new ArrayList<RuleStatistics>();
+
+        for (HashMap<Class<?>, RuleStatistics> commandMap : statsMap.values()) {
+            for (RuleStatistics stats : commandMap.values()) {
+                list.add(stats.copy());
+            }
+        }
+
+        Collections.sort(list, new Comparator<RuleStatistics>() {
+            public int compare(RuleStatistics a, RuleStatistics b) {
+
+                int diff = a.getRuleName().compareTo(b.getRuleName());
+
+                if (diff == 0) {
+                    diff = a.getCommandName().compareTo(b.getCommandName());
+                }
+
+                return diff;
+            }
+        });
+
+        return list;
+    }
+
+    /**
+     * Clear all the statistics recorded so far.
+     */
+    public synchronized void reset() {
+
+        for (HashMap<Class<?>, RuleStatistics> commandMap : statsMap.values()) {
+            for (RuleStatistics stats : commandMap.values()) {
+                stats.reset();
+            }
+        }
+    }
+
+    /**
+     * Write the statistics recorded so far as tab separated lines, one per
+     * rule and command combination. Times are in microseconds.
+     *
+     * @param writer The writer to print to
+     */
+    public void dump(PrintWriter writer) {
+
+        List<RuleStatistics> list = snapshot();
+
+        writer.println(
+                "# rule\tcommand\tcount\tfailed\trejected" +
+                "\tmean_us\tp50_us\tp90_us\tp99_us\tmax_us");
+
+        for (RuleStatistics stats : list) {
+
+            long count = stats.getCount();
+
+            if (count == 0) {
+                continue;
+            }
+
+            writer.print(stats.getRuleName());
+            writer.print('\t');
+            writer.print(stats.getCommandName());
+            writer.print('\t');
+            writer.print(count);
+            writer.print('\t');
+            writer.print(stats.getFailedCount());
+            writer.print('\t');
+            writer.print(stats.getRejectedCount());
+            writer.print('\t');
+            writer.print(toMicros(stats.getTotalTime() / count));
+            writer.print('\t');
+            writer.print(toMicros(stats.getPercentile(50)));
+            writer.print('\t');
+            writer.print(toMicros(stats.getPercentile(90)));
+            writer.print('\t');
+            writer.print(toMicros(stats.getPercentile(99)));
+            writer.print('\t');
+            writer.println(toMicros(stats.getMaxTime()));
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Get the statistics recorded so far in the dump format.
+     *
+     * @return The formatted statistics
+     */
+    public String dump() {
+
+        StringWriter out = new StringWriter();
+        dump(new PrintWriter(out));
+
+        return out.toString();
+    }
+
+    /**
+     * Convert nanoseconds to microseconds, to one decimal place.
+     *
+     * @param time The time in nanoseconds
+     * @return The formatted time
+     */
+    private static String toMicros(long time) {
+
+        long tenths = (time + 50) / 100;
+
+        return (tenths / 10) + "." + (tenths % 10);
+    }
+}
@@ -0,0 +1,266 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2006 - 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.rules.engines;
+
+// External Imports
+// none
+
+// Internal Imports
+// none
+
+/**
+ * Execution statistics for a single rule class evaluating a single command
+ * class. Latencies are kept in a fixed size log-linear histogram, each power
+ * of two range split into 16 linear buckets, so values are recorded to within
+ * 6.25% without any allocation.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class RuleStatistics {
+
+    /** Number of bits used for the linear buckets of each range */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** Number of linear buckets in each power of two range */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Total number of buckets, enough to cover any positive long */
+    private static final int BUCKET_COUNT =
+        (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    /** Simple class name of the rule */
+    private String ruleName;
+
+    /** Simple class name of the command */
+    private String commandName;
+
+    /** Number of times the rule was run */
+    private long count;
+
+    /** Number of times the rule returned a failed result */
+    private long failed;
+
+    /** Number of times the rule left the command not approved */
+    private long rejected;
+
+    /** Sum of all the latencies, in nanoseconds */
+    private long totalTime;
+
+    /** The largest latency, in nanoseconds */
+    private long maxTime;
+
+    /** Latency counts per bucket */
+    private long[] buckets;
+
+    /**
+     * Constructor
+     *
+     * @param ruleName Simple class name of the rule
+     * @param commandName Simple class name of the command
+     */
+    public RuleStatistics(String ruleName, String commandName) {
+
+        this.ruleName = ruleName;
+        this.commandName = commandName;
+
+        buckets = new long[BUCKET_COUNT];
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Record a single run of the rule.
+     *
+     * @param passed The result the rule returned
+     * @param approved The approval state the rule left the command in
+     * @param time The time taken, in nanoseconds
+     */
+    public void record(boolean passed, boolean approved, long time) {
+
+        if (time < 0) {
+            time = 0;
+        }
+
+        count++;
+        totalTime += time;
+
+        if (time > maxTime) {
+            maxTime = time;
+        }
+
+        if (!passed) {
+            failed++;
+        }
+
+        if (!approved) {
+            rejected++;
+        }
+
+        buckets[getBucketIndex(time)]++;
+    }
+
+    /**
+     * Create an independent copy of the current state.
+     *
+     * @return The copy
+     */
+    public RuleStatistics copy() {
+
+        RuleStatistics stats = new RuleStatistics(ruleName, commandName);
+
+        stats.count = count;
+        stats.failed = failed;
+        stats.rejected = rejected;
+        stats.totalTime = totalTime;
+        stats.maxTime = maxTime;
+
+        System.arraycopy(buckets, 0, stats.buckets, 0, BUCKET_COUNT);
+
+        return stats;
+    }
+
+    /**
+     * Clear all the recorded data.
+     */
+    public void reset() {
+
+        count = 0;
+        failed = 0;
+        rejected = 0;
+        totalTime = 0;
+        maxTime = 0;
+
+        java.util.Arrays.fill(buckets, 0);
+    }
+
+    /**
+     * Get the latency below which the given percentage of runs fall. The
+     * value returned is the upper bound of the matching bucket.
+     *
+     * @param percentile The percentile to look up, 0 - 100
+     * @return The latency, in nanoseconds
+     */
+    public long getPercentile(double percentile) {
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = (long)Math.ceil(count * percentile / 100.0);
+        if (target < 1) {
+            target = 1;
+        }
+
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+
+            seen += buckets[i];
+
+            if (seen >= target) {
+                return Math.min(getBucketLimit(i), maxTime);
+            }
+        }
+
+        return maxTime;
+    }
+
+    /**
+     * @return Simple class name of the rule
+     */
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    /**
+     * @return Simple class name of the command
+     */
+    public String getCommandName() {
+        return commandName;
+    }
+
+    /**
+     * @return Number of times the rule was run
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Number of times the rule returned a failed result
+     */
+    public long getFailedCount() {
+        return failed;
+    }
+
+    /**
+     * @return Number of times the rule left the command not approved
+     */
+    public long getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * @return Sum of all the latencies, in nanoseconds
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * @return The largest latency, in nanoseconds
+     */
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * Map a latency to its histogram bucket.
+     *
+     * @param time The latency, in nanoseconds
+     * @return The bucket index
+     */
+    static int getBucketIndex(long time) {
+
+        if (time < SUB_BUCKET_COUNT) {
+            return (int)time;
+        }
+
+        int shift =
+            63 - Long.numberOfLeadingZeros(time) - SUB_BUCKET_BITS;
+
+        int sub = (int)(time >>> shift) - SUB_BUCKET_COUNT;
+
+        return (shift + 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    /**
+     * Get the largest latency that maps to a histogram bucket.
+     *
+     * @param index The bucket index
+     * @return The latency, in nanoseconds
+     */
+    static long getBucketLimit(int index) {
+
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long sub = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -125,6 +125,25 @@ public class CommandInterpreterData {
 		return ruleEngine;
 	}
 	
+	/**
+	 * Checks if commands of the given class could match, ignoring the
+	 * propertyName and propertySheet checks made for property commands.
+	 * 
+	 * @param commandClass The command class to check for
+	 * @return True if found, false otherwise
+	 */
+	public boolean containsCommandClass(Class<? extends Command> commandClass){
+		
+		for(Class<? extends Command> existingCommand : commandList){
+
+			if(existingCommand.isAssignableFrom(commandClass)){
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
 	/**
 	 * Checks for Command in stored Command array. If the command is a 
 	 * ChangePropertyCommand a check against the propertyName and propertySheet
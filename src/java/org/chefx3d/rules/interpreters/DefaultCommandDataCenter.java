@@ -14,6 +14,7 @@ package org.chefx3d.rules.interpreters;
 
 //External Imports
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 
 //Internal Imports
@@ -53,6 +54,9 @@ public class DefaultCommandDataCenter implements CommandDataCenter {
     /** CommandInterpreterData ArrayList that keeps the mapped data */
     private ArrayList<CommandInterpreterData> commandDataList;
 
+    /** The CommandInterpreterData that can match each command class, in order */
+    private HashMap<Class<? extends Command>, CommandInterpreterData[]> dispatchMap;
+
     /** Manages the status level reporting */
     private CheckStatusReportElevation statusManager;
 
@@ -77,6 +81,8 @@ public class DefaultCommandDataCenter implements CommandDataCenter {
 		this.statusManager = statusManager;
 
         commandDataList = new ArrayList<CommandInterpreterData>();
+        dispatchMap = 
+            new HashMap<Class<? extends Command>, CommandInterpreterData[]>();
 
         // now define each engine required
         
@@ -134,12 +140,25 @@ public class DefaultCommandDataCenter implements CommandDataCenter {
      */
     public RuleEngine matchCommand(Command command) {
 
-        for(CommandInterpreterData data : commandDataList){
+        CommandInterpreterData[] candidates = getCandidates(command.getClass());
+
+        // property commands also have to match the property name and sheet
+        if (command instanceof ChangePropertyCommand || 
+                command instanceof ChangePropertyTransientCommand) {
+
+            for (int i = 0; i < candidates.length; i++) {
 
-            if(data.containsCommand(command)){
+                if (candidates[i].containsCommand(command)) {
 
-                return data.getRuleEngine();
+                    return candidates[i].getRuleEngine();
+                }
             }
+
+            return null;
+        }
+
+        if (candidates.length > 0) {
+            return candidates[0].getRuleEngine();
         }
 
         return null;
@@ -148,6 +167,41 @@ public class DefaultCommandDataCenter implements CommandDataCenter {
     // ---------------------------------------------------------------
     // Local Methods
     // ---------------------------------------------------------------
+
+    /**
+     * Get the CommandInterpreterData that can match commands of the given
+     * class, in the order they were defined. The list of engines is fixed
+     * once constructed so the result is cached per class.
+     *
+     * @param commandClass The command class to match
+     * @return The matching data, empty if there are none
+     */
+    private CommandInterpreterData[] getCandidates(
+            Class<? extends Command> commandClass) {
+
+        CommandInterpreterData[] candidates = dispatchMap.get(commandClass);
+
+        if (candidates == null) {
+
+            ArrayList<CommandInterpreterData> list = 
+                new ArrayList<CommandInterpreterData>();
+
+            for(CommandInterpreterData data : commandDataList){
+
+                if(data.containsCommandClass(commandClass)){
+
+                    list.add(data);
+                }
+            }
+
+            candidates = new CommandInterpreterData[list.size()];
+            list.toArray(candidates);
+
+            dispatchMap.put(commandClass, candidates);
+        }
+
+        return candidates;
+    }
     
      /**
      * Create the add entity engine
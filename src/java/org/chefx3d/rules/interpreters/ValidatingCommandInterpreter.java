@@ -40,8 +40,6 @@ import org.chefx3d.view.common.EditorView;
 import org.chefx3d.view.common.RuleCollisionChecker;
 import org.chefx3d.view.common.StatusReporter;
 
-import org.chefx3d.ui.PopUpConfirm;
-import org.chefx3d.ui.PopUpMessage;
 import org.chefx3d.ui.StatusBar;
 
 /**
@@ -81,14 +79,11 @@ public class ValidatingCommandInterpreter implements CommandValidator {
     /** The status bar ui widget used to display messages */
     protected StatusBar statusBar;
     
-    /** Displays a pop up message */
-    protected PopUpMessage popUpMessage;
-
-    /** Displays a pop up confirm message */
-    protected PopUpConfirm popUpConfirm;
-    
     protected Command validatedCmd;
     
+    /** The result object reused for each rules engine pass */
+    protected DefaultRuleEvaluationResult evaluationResult;
+    
     /**
      * Default constructor
      */
@@ -108,8 +103,7 @@ public class ValidatingCommandInterpreter implements CommandValidator {
         statusBar = StatusBar.getStatusBar();
         sequencer = CommandSequencer.getInstance();
         validationNewlyIssuedCommands = new ArrayList<Command>();
-        popUpMessage = PopUpMessage.getInstance();
-        popUpConfirm = PopUpConfirm.getInstance();
+        evaluationResult = new DefaultRuleEvaluationResult();
 
         // Do this so the auto add utility can do its own separate validations
         // before deciding to add a command onto the queue.
@@ -215,8 +209,9 @@ public class ValidatingCommandInterpreter implements CommandValidator {
             // true after all rules are processed
             if (ruleEngine != null) {
                 
-                // create the status result object used to track state
-                RuleEvaluationResult result = new DefaultRuleEvaluationResult();
+                // reset the status result object used to track state
+                evaluationResult.reset();
+                RuleEvaluationResult result = evaluationResult;
 
                 // process the list of commands sequentially
                 result = ruleEngine.processRules(cmd, result);
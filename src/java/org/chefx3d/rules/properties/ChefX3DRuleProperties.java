@@ -14,10 +14,13 @@ package org.chefx3d.rules.properties;
 
 //External Imports
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
 //Internal Imports
+import org.chefx3d.model.Entity;
+import org.chefx3d.model.PropertyKey;
 
 /**
  * Defines all ChefX3D rule properties. Project specific properties and their
@@ -41,6 +44,7 @@ public class ChefX3DRuleProperties {
     private ChefX3DRuleProperties() {
 
         initializeDefaultValues();
+        initializeOrdinals();
     }
 
     //---------------------------------------------------------------
@@ -51,6 +55,29 @@ public class ChefX3DRuleProperties {
     //---------------------------------------------------------------
     private static HashMap<String, Object> defaultValueMap;
 
+    //---------------------------------------------------------------
+    // Rule property ordinals
+    //
+    // Each rule property is given a small integer ordinal so resolved
+    // values can be held in arrays. The properties with a default value
+    // are numbered first, others as they are first asked for.
+    //---------------------------------------------------------------
+
+    /** Ordinals by rule property name */
+    private static HashMap<String, Integer> ordinalMap;
+
+    /** Rule property names by ordinal */
+    private static volatile String[] ordinalNames;
+
+    /** Default values by ordinal */
+    private static volatile Object[] ordinalDefaults;
+
+    /** Property keys in the default entity sheet by ordinal */
+    private static volatile PropertyKey[] ordinalKeys;
+
+    /** The number of ordinals given out */
+    private static int ordinalCount;
+
     //---------------------------------------------------------------
     // Fixed constants
     //---------------------------------------------------------------
@@ -1105,6 +1132,94 @@ public class ChefX3DRuleProperties {
         return defaultValueMap.get(property);
     }
 
+    /**
+     * Get the default value associated with the rule property.
+     *
+     * @param ordinal The rule property ordinal
+     * @return Object default value
+     */
+    public static Object getDefaultValue(int ordinal) {
+
+        return ordinalDefaults[ordinal];
+    }
+
+    /**
+     * Get the ordinal of a rule property, giving it one if it has none.
+     * Ordinals are only stable for the life of the JVM, so look them up
+     * by name rather than storing them.
+     *
+     * @param property Property name
+     * @return The rule property ordinal
+     */
+    public static synchronized int getOrdinal(String property) {
+
+        Integer ordinal = ordinalMap.get(property);
+
+        if (ordinal == null) {
+
+            String[] names = ordinalNames;
+            Object[] defaults = ordinalDefaults;
+            PropertyKey[] keys = ordinalKeys;
+
+            if (ordinalCount == names.length) {
+                names = new String[ordinalCount * 2];
+                defaults = new Object[ordinalCount * 2];
+                keys = new PropertyKey[ordinalCount * 2];
+
+                System.arraycopy(ordinalNames, 0, names, 0, ordinalCount);
+                System.arraycopy(ordinalDefaults, 0, defaults, 0, ordinalCount);
+                System.arraycopy(ordinalKeys, 0, keys, 0, ordinalCount);
+            }
+
+            names[ordinalCount] = property;
+            defaults[ordinalCount] = defaultValueMap.get(property);
+            keys[ordinalCount] =
+                PropertyKey.get(Entity.DEFAULT_ENTITY_PROPERTIES, property);
+
+            ordinalNames = names;
+            ordinalDefaults = defaults;
+            ordinalKeys = keys;
+
+            ordinal = ordinalCount++;
+            ordinalMap.put(property, ordinal);
+        }
+
+        return ordinal;
+    }
+
+    /**
+     * Get the number of ordinals given out. All ordinals are less than
+     * this.
+     *
+     * @return The number of rule property ordinals
+     */
+    public static synchronized int getOrdinalCount() {
+
+        return ordinalCount;
+    }
+
+    /**
+     * Get the name of the rule property with an ordinal.
+     *
+     * @param ordinal The rule property ordinal
+     * @return Property name
+     */
+    public static String getPropertyName(int ordinal) {
+
+        return ordinalNames[ordinal];
+    }
+
+    /**
+     * Get the key of the rule property in the default entity sheet.
+     *
+     * @param ordinal The rule property ordinal
+     * @return The property key
+     */
+    public static PropertyKey getPropertyKey(int ordinal) {
+
+        return ordinalKeys[ordinal];
+    }
+
     //---------------------------------------------------------------
     // private methods
     //---------------------------------------------------------------
@@ -1348,4 +1463,24 @@ public class ChefX3DRuleProperties {
         defaultValueMap.put(IS_SECTIONAL_PRODUCT, new Boolean(false));
 
     }
+
+    /**
+     * Number the rule properties that have a default value
+     */
+    private void initializeOrdinals() {
+
+        int size = Math.max(16, defaultValueMap.size());
+
+        ordinalMap = new HashMap<String, Integer>();
+        ordinalNames = new String[size];
+        ordinalDefaults = new Object[size];
+        ordinalKeys = new PropertyKey[size];
+
+        String[] names = defaultValueMap.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+
+        for (int i = 0; i < names.length; i++) {
+            getOrdinal(names[i]);
+        }
+    }
 }
@@ -21,6 +21,11 @@ import org.chefx3d.tool.Tool;
 
 /**
  * Utility class for accessing rule properties for entities.
+ * <p>
+ * Rule properties can also be read by ordinal, see
+ * ChefX3DRuleProperties.getOrdinal(). Tool values then come from the
+ * tool's RulePropertyTable and entity values from an array lookup of the
+ * entity's default sheet, with typed reads for booleans and numbers.
  *
  * @author Ben Yarger
  * @version $Revision: 1.3 $
@@ -72,19 +77,99 @@ public class RulePropertyAccessor {
      */
     public static Object getRulePropertyValue(Tool tool, String property) {
 
-    	Object value =
-    		tool.getProperty(
-    				Entity.DEFAULT_ENTITY_PROPERTIES,
-    				property);
+    	return getRulePropertyValue(
+    			tool, 
+    			ChefX3DRuleProperties.getOrdinal(property));
+    }
 
-    	if (value == null) {
+    /**
+     * Return the value of the specific rule property. If the property is null
+     * a default value will be assigned.
+     *
+     * @param entity Entity to look up rule property for
+     * @param ordinal The rule property ordinal
+     * @return Object found
+     */
+    public static Object getRulePropertyValue(Entity entity, int ordinal) {
 
-    		value = ChefX3DRuleProperties.getDefaultValue(property);
+    	Object value = null;
+    	if (entity != null) {
+    		value = entity.getProperty(
+    				ChefX3DRuleProperties.getPropertyKey(ordinal));
+    	}
+
+    	if (value == null) {
+    		value = ChefX3DRuleProperties.getDefaultValue(ordinal);
     	}
 
     	return value;
     }
 
+    /**
+     * Return the value of the specific rule property. If the property is null
+     * a default value will be assigned.
+     *
+     * @param tool Tool to look up rule property for
+     * @param ordinal The rule property ordinal
+     * @return Object found
+     */
+    public static Object getRulePropertyValue(Tool tool, int ordinal) {
+
+    	return RulePropertyTable.get(tool).getValue(ordinal);
+    }
+
+    /**
+     * Return the value of a boolean rule property.
+     *
+     * @param entity Entity to look up rule property for
+     * @param ordinal The rule property ordinal
+     * @return The value, false if it is not set or not a boolean
+     */
+    public static boolean getBooleanRuleProperty(Entity entity, int ordinal) {
+
+    	Object value = getRulePropertyValue(entity, ordinal);
+
+    	return (value instanceof Boolean) && ((Boolean)value).booleanValue();
+    }
+
+    /**
+     * Return the value of a boolean rule property.
+     *
+     * @param tool Tool to look up rule property for
+     * @param ordinal The rule property ordinal
+     * @return The value, false if it is not set or not a boolean
+     */
+    public static boolean getBooleanRuleProperty(Tool tool, int ordinal) {
+
+    	return RulePropertyTable.get(tool).getBoolean(ordinal);
+    }
+
+    /**
+     * Return the value of a numeric rule property.
+     *
+     * @param entity Entity to look up rule property for
+     * @param ordinal The rule property ordinal
+     * @return The value, 0 if it is not set or not a number
+     */
+    public static float getFloatRuleProperty(Entity entity, int ordinal) {
+
+    	Object value = getRulePropertyValue(entity, ordinal);
+
+    	return (value instanceof Number) ? ((Number)value).floatValue() : 0;
+    }
+
+    /**
+     * Return the value of a numeric rule property.
+     *
+     * @param tool Tool to look up rule property for
+     * @param ordinal The rule property ordinal
+     * @return The value, 0 if it is not set or not a number
+     */
+    public static float getFloatRuleProperty(Tool tool, int ordinal) {
+
+    	return RulePropertyTable.get(tool).getFloat(ordinal);
+    }
+
     /**
      * Given a tool or an entity, get a specific property.
      * If both the tool and the entity are null, then
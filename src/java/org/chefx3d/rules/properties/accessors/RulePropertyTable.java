@@ -0,0 +1,220 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2006 - 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.rules.properties.accessors;
+
+//External Imports
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+
+//Internal Imports
+import org.chefx3d.model.Entity;
+import org.chefx3d.rules.properties.ChefX3DRuleProperties;
+import org.chefx3d.tool.Tool;
+
+/**
+ * The rule property values of a tool, resolved once and held in arrays
+ * indexed by rule property ordinal. Each value is the one in the default
+ * entity sheet of the tool, or the default value of the rule property if
+ * the tool has none.
+ * <p>
+ * A table is built the first time the rule properties of a tool are read,
+ * and rebuilt if rule properties have been numbered since. SimpleTool
+ * calls invalidate() when its default entity properties are set, so the
+ * next read resolves them again. Anything changing the sheet directly,
+ * through getProperties(), must call invalidate() itself. Tables are kept
+ * by tool identity, as tools compare equal by ID alone.
+ *
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public final class RulePropertyTable {
+
+    /** The tables by tool */
+    private static HashMap<ToolKey, RulePropertyTable> tables =
+        new HashMap<ToolKey, RulePropertyTable>();
+
+    /** The tools that have been collected */
+    private static ReferenceQueue<Tool> collected = new ReferenceQueue<Tool>();
+
+    /** The tool last asked for */
+    private static Tool lastTool;
+
+    /** The table of the tool last asked for */
+    private static RulePropertyTable lastTable;
+
+    /** The resolved values */
+    private final Object[] values;
+
+    /** The resolved values that are booleans, false for others */
+    private final boolean[] booleans;
+
+    /** The resolved values that are numbers, 0 for others */
+    private final float[] floats;
+
+    /**
+     * Resolve the rule properties of a tool.
+     *
+     * @param tool The tool
+     */
+    private RulePropertyTable(Tool tool) {
+
+        int count = ChefX3DRuleProperties.getOrdinalCount();
+
+        values = new Object[count];
+        booleans = new boolean[count];
+        floats = new float[count];
+
+        for (int i = 0; i < count; i++) {
+
+            Object value = tool.getProperty(
+                    Entity.DEFAULT_ENTITY_PROPERTIES,
+                    ChefX3DRuleProperties.getPropertyName(i));
+
+            if (value == null) {
+                value = ChefX3DRuleProperties.getDefaultValue(i);
+            }
+
+            values[i] = value;
+
+            if (value instanceof Boolean) {
+                booleans[i] = ((Boolean)value).booleanValue();
+            } else if (value instanceof Number) {
+                floats[i] = ((Number)value).floatValue();
+            }
+        }
+    }
+
+    //---------------------------------------------------------------
+    // Public methods
+    //---------------------------------------------------------------
+
+    /**
+     * Get the table of a tool, building it if needed.
+     *
+     * @param tool The tool
+     * @return The resolved rule properties of the tool
+     */
+    public static RulePropertyTable get(Tool tool) {
+
+        int count = ChefX3DRuleProperties.getOrdinalCount();
+
+        synchronized (tables) {
+
+            if (tool == lastTool && lastTable.values.length >= count) {
+                return lastTable;
+            }
+
+            Object ref;
+            while ((ref = collected.poll()) != null) {
+                tables.remove(ref);
+            }
+
+            RulePropertyTable table = tables.get(new ToolKey(tool, null));
+
+            if (table == null || table.values.length < count) {
+                table = new RulePropertyTable(tool);
+                tables.put(new ToolKey(tool, collected), table);
+            }
+
+            lastTool = tool;
+            lastTable = table;
+
+            return table;
+        }
+    }
+
+    /**
+     * Discard the table of a tool, so it is built again from the tool's
+     * current properties when next needed.
+     *
+     * @param tool The tool
+     */
+    public static void invalidate(Tool tool) {
+
+        synchronized (tables) {
+            tables.remove(new ToolKey(tool, null));
+
+            if (tool == lastTool) {
+                lastTool = null;
+                lastTable = null;
+            }
+        }
+    }
+
+    /**
+     * Get the value of a rule property.
+     *
+     * @param ordinal The rule property ordinal
+     * @return The value, or null if neither the tool nor the defaults
+     * have one
+     */
+    public Object getValue(int ordinal) {
+
+        return values[ordinal];
+    }
+
+    /**
+     * Get the value of a boolean rule property.
+     *
+     * @param ordinal The rule property ordinal
+     * @return The value, or false if it is not a boolean
+     */
+    public boolean getBoolean(int ordinal) {
+
+        return booleans[ordinal];
+    }
+
+    /**
+     * Get the value of a numeric rule property.
+     *
+     * @param ordinal The rule property ordinal
+     * @return The value, or 0 if it is not a number
+     */
+    public float getFloat(int ordinal) {
+
+        return floats[ordinal];
+    }
+
+    /**
+     * A weak reference to a tool compared by identity.
+     */
+    private static class ToolKey extends WeakReference<Tool> {
+
+        /** The identity hash of the tool */
+        private int hash;
+
+        ToolKey(Tool tool, ReferenceQueue<Tool> queue) {
+
+            super(tool, queue);
+            hash = System.identityHashCode(tool);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+
+            if (!(o instanceof ToolKey)) {
+                return false;
+            }
+
+            Object tool = get();
+            return tool != null && tool == ((ToolKey)o).get();
+        }
+    }
+}
@@ -60,11 +60,29 @@ public class DefaultRuleEvaluationResult implements RuleEvaluationResult {
 	 * Constructor
 	 */
 	public DefaultRuleEvaluationResult(boolean state) {
+		failedRules = new ArrayList<Rule>();
+		reset(state);
+	}
+	
+	/**
+	 * Return the result to the state of a newly constructed one, so a
+	 * single instance can be used for every command evaluated.
+	 */
+	public void reset() {
+		reset(true);
+	}
+	
+	/**
+	 * Return the result to the state of a newly constructed one.
+	 * 
+	 * @param state true for pass, false for fail
+	 */
+	public void reset(boolean state) {
 		this.state = state;
 		approved = true;
 		status = ELEVATION_LEVEL.NONE;
 		message = null;
-		failedRules = new ArrayList<Rule>();
+		failedRules.clear();
 		notApprovedAction = NOT_APPROVED_ACTION.CLEAR_NEWLY_ISSUED_COMMANDS;
 	}
 	
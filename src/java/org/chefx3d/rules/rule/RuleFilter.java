@@ -0,0 +1,53 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2006 - 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.rules.rule;
+
+// External Imports
+// none
+
+// Internal Imports
+import org.chefx3d.model.Command;
+import org.chefx3d.model.Entity;
+
+/**
+ * Optional companion to Rule that declares when a rule can have any effect.
+ * Rule engines use the answers to prune their rule lists ahead of time, so
+ * a rule that reports it cannot apply is treated exactly as if it had been
+ * run and returned a passing result without changing anything.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public interface RuleFilter {
+
+    /**
+     * Check if the rule can act on commands of the given class. The answer
+     * must depend only on the arguments so engines are free to cache it.
+     *
+     * @param commandClass The class of the command being evaluated
+     * @param isTransient The transient state of the command
+     * @return True if the rule needs to be run, false otherwise
+     */
+    public boolean canApply(
+            Class<? extends Command> commandClass,
+            boolean isTransient);
+
+    /**
+     * Check if the rule can act on the entity of the command being
+     * evaluated. Called immediately before the rule would be run.
+     *
+     * @param entity The entity the command operates on
+     * @return True if the rule needs to be run, false otherwise
+     */
+    public boolean canApply(Entity entity);
+}
@@ -47,9 +47,6 @@ public abstract class AutoAddMiterWrapper {
     private static final String POP_UP_NO_MOVE =
         "org.chefx3d.rules.definitions.MoveAutoAddRule.moveCanceled";
     
-    /** Displays a pop up message */
-    private static PopUpMessage popUpMessage = PopUpMessage.getInstance();
-    
     /** Translation utility */
     private static I18nManager intl_mgr = I18nManager.getManager();
     
@@ -183,7 +180,7 @@ public abstract class AutoAddMiterWrapper {
         		entityBuilder)) {
         	
         	String msg = intl_mgr.getString(POP_UP_NO_ADD);
-            popUpMessage.showMessage(msg);
+            PopUpMessage.getInstance().showMessage(msg);
             
             SceneManagementUtility.removeSurrogate(
                		rch.getRuleCollisionChecker(), miterEntity);
@@ -201,7 +198,7 @@ public abstract class AutoAddMiterWrapper {
         		entityBuilder)) {
         	
         	String msg = intl_mgr.getString(POP_UP_NO_ADD);
-            popUpMessage.showMessage(msg);
+            PopUpMessage.getInstance().showMessage(msg);
             
             SceneManagementUtility.removeSurrogate(
                		rch.getRuleCollisionChecker(), miterEntity);
@@ -217,7 +214,7 @@ public abstract class AutoAddMiterWrapper {
         		entityBuilder)) {
         	
         	String msg = intl_mgr.getString(POP_UP_NO_ADD);
-            popUpMessage.showMessage(msg);
+            PopUpMessage.getInstance().showMessage(msg);
         	
             SceneManagementUtility.removeSurrogate(
                		rch.getRuleCollisionChecker(), miterEntity);
@@ -237,7 +234,7 @@ public abstract class AutoAddMiterWrapper {
                		rch.getRuleCollisionChecker(), miterEntity);
         	
         	String msg = intl_mgr.getString(POP_UP_NO_ADD);
-            popUpMessage.showMessage(msg);
+            PopUpMessage.getInstance().showMessage(msg);
         	
         	return false;
         }
@@ -305,7 +302,7 @@ public abstract class AutoAddMiterWrapper {
         		entityBuilder)) {
 
            	String msg = intl_mgr.getString(POP_UP_NO_MOVE);
-           	popUpMessage.showMessage(msg);
+           	PopUpMessage.getInstance().showMessage(msg);
            	
            	SceneManagementUtility.removeSurrogate(
                		rch.getRuleCollisionChecker(), miterEntity);
@@ -323,7 +320,7 @@ public abstract class AutoAddMiterWrapper {
         		entityBuilder)) {
 
            	String msg = intl_mgr.getString(POP_UP_NO_MOVE);
-           	popUpMessage.showMessage(msg);
+           	PopUpMessage.getInstance().showMessage(msg);
            	
            	SceneManagementUtility.removeSurrogate(
                		rch.getRuleCollisionChecker(), miterEntity);
@@ -340,7 +337,7 @@ public abstract class AutoAddMiterWrapper {
         		entityBuilder)) {
 
            	String msg = intl_mgr.getString(POP_UP_NO_MOVE);
-           	popUpMessage.showMessage(msg);
+           	PopUpMessage.getInstance().showMessage(msg);
            	
            	SceneManagementUtility.removeSurrogate(
                		rch.getRuleCollisionChecker(), miterEntity);
@@ -357,7 +354,7 @@ public abstract class AutoAddMiterWrapper {
         		entityBuilder)) {
 
            	String msg = intl_mgr.getString(POP_UP_NO_MOVE);
-           	popUpMessage.showMessage(msg);
+           	PopUpMessage.getInstance().showMessage(msg);
            	
            	// Remove the surrogate added by this method for testing
            	SceneManagementUtility.removeSurrogate(
@@ -810,9 +810,6 @@ public abstract class AutoAddUtility{
 
         if( autoAddByCol && relClass != null && relClass.length > 0){
 
-            List<String> allowableCollisionClasses =
-                java.util.Arrays.asList(relClass);
-
             //
             // Perform collision check to see if there are valid
             // collisions.  Requires doing collision analysis
@@ -846,12 +843,7 @@ public abstract class AutoAddUtility{
                 if (collisionClass == null)
                     continue;
 
-                boolean collisionAllowed = false;
-                for(String s : collisionClass){
-                    if( allowableCollisionClasses.contains(s))
-                        collisionAllowed = true;
-                }
-                if(collisionAllowed)
+                if(ClassRelationship.matchesAny(relClass, collisionClass))
                     validCollisions.add(e);
             }
 
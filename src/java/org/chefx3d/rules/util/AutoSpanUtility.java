@@ -317,18 +317,6 @@ public abstract class AutoSpanUtility {
         			entity,
         			ChefX3DRuleProperties.RELATIONSHIP_CLASSIFICATION_PROP);
 		
-		// flat the list to single entries
-		List<String> flattenedRelationships = new ArrayList<String>();
-		for (int i = 0; i < classRelationship.length; i++) {
-			String classRel = classRelationship[i];
-			String[] classRelList = classRel.split(":");
-			for (int j = 0; j < classRelList.length; j++) {
-				if (!flattenedRelationships.contains(classRelList[j])) {
-					flattenedRelationships.add(classRelList[j]);
-				}
-			}
-		}
-		
 		// make sure to look at the neighbors in order
 		for (int i = 0; i < neighborList.size(); i++) {
 			Entity neighbor = neighborList.get(i);
@@ -338,20 +326,11 @@ public abstract class AutoSpanUtility {
 						neighbor,
 						ChefX3DRuleProperties.CLASSIFICATION_PROP);
 
-			if (classifications != null) {
+			if (classifications != null &&
+				ClassRelationship.matchesAny(classRelationship, classifications)) {
 				
-				for (int j = 0; j < classRelationship.length; j++) {
-					String classRel = classRelationship[j];
-					
-					for (int k = 0; k < classifications.length; k++) {
-						
-						String classification = classifications[k];
-						if (classification.equals(classRel)) {
-							// matched
-							return neighbor;
-						}
-					}
-				}
+				// matched
+				return neighbor;
 			}
 		}		
 		return null;
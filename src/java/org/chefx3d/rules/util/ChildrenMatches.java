@@ -31,6 +31,24 @@ import org.chefx3d.view.common.CollisionResultHandler;
  */
 public class ChildrenMatches implements CollisionResultHandler{	
 	
+	/** Match type of model entities */
+	public static final int ENTITY_MATCHES = 0;
+	
+	/** Match type of floor zones */
+	public static final int FLOOR_MATCHES = 1;
+	
+	/** Match type of walls */
+	public static final int WALL_MATCHES = 2;
+	
+	/** Match type of product zones */
+	public static final int ENTITY_ZONE_MATCHES = 3;
+	
+	/** Match type of generic zones */
+	public static final int ZONE_MATCHES = 4;
+	
+	/** The number of match types */
+	private static final int NUM_MATCH_TYPES = 5;
+	
 	/** Break out of model entities matching relationship requirements */
 	private ArrayList<Entity> entityMatches;
 	
@@ -52,20 +70,17 @@ public class ChildrenMatches implements CollisionResultHandler{
 	/** Break out of illegal entities */
 	private ArrayList<Entity> illegalEntities;
 	
-	/** Map of classifications to number of occurrences */
-	private HashMap<String, Integer> entityMatchCountMap;
-	
-	/** Map of classifications to number of occurrences */
-	private HashMap<String, Integer> floorMatchCountMap;
-	
-	/** Map of classifications to number of occurrences */
-	private HashMap<String, Integer> wallMatchCountMap;
+	/** 
+	 * Number of occurrences by match type and classification ID. The 
+	 * count maps are built from these when asked for.
+	 */
+	private int[][] matchCounts;
 	
-	/** Map of classifications to number of occurrences */
-	private HashMap<String, Integer> entityZoneMatchCountMap;
+	/** The classification IDs counted, by match type */
+	private int[][] matchedClasses;
 	
-	/** Map of classifications to number of occurrences */
-	private HashMap<String, Integer> zoneMatchCountMap;
+	/** The number of classification IDs counted, by match type */
+	private int[] numMatchedClasses;
 	
 	/**
 	 * Constructor
@@ -80,11 +95,9 @@ public class ChildrenMatches implements CollisionResultHandler{
 		replaceEntityMatches = new ArrayList<Entity>();
 		illegalEntities = new ArrayList<Entity>();
 		
-		entityMatchCountMap = new HashMap<String, Integer>();
-		floorMatchCountMap = new HashMap<String, Integer>();
-		wallMatchCountMap = new HashMap<String, Integer>();
-		entityZoneMatchCountMap = new HashMap<String, Integer>();
-		zoneMatchCountMap = new HashMap<String, Integer>();
+		matchCounts = new int[NUM_MATCH_TYPES][16];
+		matchedClasses = new int[NUM_MATCH_TYPES][8];
+		numMatchedClasses = new int[NUM_MATCH_TYPES];
 	}
 
 	//-------------------------------------------------------------------------
@@ -102,26 +115,23 @@ public class ChildrenMatches implements CollisionResultHandler{
 		if(entity.getType() == Entity.TYPE_MODEL ||
 				entity.getType() == Entity.TYPE_MODEL_WITH_ZONES){
 			
-			addMatch(entity, colClass, entityMatches, entityMatchCountMap);
+			addMatch(entity, colClass, entityMatches, ENTITY_MATCHES);
 			
 		} else if (entity.getType() == Entity.TYPE_GROUNDPLANE_ZONE) {
 			
-			addMatch(entity, colClass, floorEntityMatches, floorMatchCountMap);
+			addMatch(entity, colClass, floorEntityMatches, FLOOR_MATCHES);
 			
 		} else if (entity.getType() == Entity.TYPE_SEGMENT) {
 			
-			addMatch(entity, colClass, wallEntityMatches, wallMatchCountMap);
+			addMatch(entity, colClass, wallEntityMatches, WALL_MATCHES);
 			
 		} else if (entity.getType() == Entity.TYPE_MODEL_ZONE) {
 			
-			addMatch(entity, 
-					colClass, 
-					entityZoneMatches, 
-					entityZoneMatchCountMap);
+			addMatch(entity, colClass, entityZoneMatches, ENTITY_ZONE_MATCHES);
 			
 		} else if (entity.getType() == Entity.TYPE_ZONE){
 			
-			addMatch(entity, colClass, zoneMatches, zoneMatchCountMap);
+			addMatch(entity, colClass, zoneMatches, ZONE_MATCHES);
 			
 		}
 		
@@ -177,12 +187,7 @@ public class ChildrenMatches implements CollisionResultHandler{
 		illegalEntities.clear();
 		replaceEntityMatches.clear();
 		
-		entityMatchCountMap.clear();
-		floorMatchCountMap.clear();
-		wallMatchCountMap.clear();
-		entityZoneMatchCountMap.clear();
-		zoneMatchCountMap.clear();
-		
+		clearMatchCounts();
 	}
 
 	/**
@@ -194,19 +199,19 @@ public class ChildrenMatches implements CollisionResultHandler{
 		System.out.println("--[Children Matches Result Sets]--");
 		System.out.println("1) entityMatches...");
 		printMatchArrayResults(entityMatches);
-		printMatchCountMapResults(entityMatchCountMap);
+		printMatchCountMapResults(buildMatchCountMap(ENTITY_MATCHES));
 		System.out.println("2) floorEntityMatches...");
 		printMatchArrayResults(floorEntityMatches);
-		printMatchCountMapResults(floorMatchCountMap);
+		printMatchCountMapResults(buildMatchCountMap(FLOOR_MATCHES));
 		System.out.println("3) wallEntityMatches...");
 		printMatchArrayResults(wallEntityMatches);
-		printMatchCountMapResults(wallMatchCountMap);
+		printMatchCountMapResults(buildMatchCountMap(WALL_MATCHES));
 		System.out.println("4) entityZoneMatches...");
 		printMatchArrayResults(entityZoneMatches);
-		printMatchCountMapResults(entityZoneMatchCountMap);
+		printMatchCountMapResults(buildMatchCountMap(ENTITY_ZONE_MATCHES));
 		System.out.println("5) zoneEntityMatches...");
 		printMatchArrayResults(zoneMatches);
-		printMatchCountMapResults(zoneMatchCountMap);
+		printMatchCountMapResults(buildMatchCountMap(ZONE_MATCHES));
 		System.out.println("6) replaceEntityMatches...");
 		printMatchArrayResults(replaceEntityMatches);
 		System.out.println("7) illegalEntities...");
@@ -232,38 +237,32 @@ public class ChildrenMatches implements CollisionResultHandler{
 		entityMatches.clear();
 		entityMatches.addAll(cm.getEntityMatches());
 		
-		entityMatchCountMap.clear();
-		entityMatchCountMap.putAll(cm.getEntityMatchCountMap());
-		
 		floorEntityMatches.clear();
 		floorEntityMatches.addAll(cm.getFloorEntityMatches());
 		
-		floorMatchCountMap.clear();
-		floorMatchCountMap.putAll(cm.getFloorMatchCountMap());
-		
 		wallEntityMatches.clear();
 		wallEntityMatches.addAll(cm.getWallEntityMatches());
 		
-		wallMatchCountMap.clear();
-		wallMatchCountMap.putAll(cm.getWallMatchCountMap());
-		
 		entityZoneMatches.clear();
 		entityZoneMatches.addAll(cm.getEntityZoneMatches());
 		
-		entityZoneMatchCountMap.clear();
-		entityZoneMatchCountMap.putAll(cm.getEntityZoneMatchCountMap());
-		
 		zoneMatches.clear();
 		zoneMatches.addAll(cm.getZoneMatches());
 		
-		zoneMatchCountMap.clear();
-		zoneMatchCountMap.putAll(cm.getZoneMatchCountMap());
-		
 		illegalEntities.clear();
 		illegalEntities.addAll(cm.getIllegalEntities());
 		
 		replaceEntityMatches.clear();
 		replaceEntityMatches.addAll(cm.getReplaceEntityMatches());
+		
+		clearMatchCounts();
+		
+		for (int type = 0; type < NUM_MATCH_TYPES; type++) {
+			for (int i = 0; i < cm.numMatchedClasses[type]; i++) {
+				int id = cm.matchedClasses[type][i];
+				addMatchCount(type, id, cm.matchCounts[type][id]);
+			}
+		}
 	}
 	
 	//-------------------------------------------------------------------------
@@ -282,15 +281,13 @@ public class ChildrenMatches implements CollisionResultHandler{
 	}
 	
 	/**
-	 * Get a copy of the entityMatchCountMap.
+	 * Get the classification counts of the entityMatches.
 	 * 
-	 * @return Copy of entityMatchCountMap
+	 * @return Map of classifications to number of occurrences
 	 */
 	public HashMap<String, Integer> getEntityMatchCountMap() {
 		
-		HashMap<String, Integer> copy = 
-			new HashMap<String, Integer>(entityMatchCountMap);
-		return copy;
+		return buildMatchCountMap(ENTITY_MATCHES);
 	}
 	
 	/**
@@ -305,15 +302,13 @@ public class ChildrenMatches implements CollisionResultHandler{
 	}
 	
 	/**
-	 * Get a copy of the floorMatchCountMap.
+	 * Get the classification counts of the floorEntityMatches.
 	 * 
-	 * @return Copy of floorMatchCountMap
+	 * @return Map of classifications to number of occurrences
 	 */
 	public HashMap<String, Integer> getFloorMatchCountMap() {
 		
-		HashMap<String, Integer> copy = 
-			new HashMap<String, Integer>(floorMatchCountMap);
-		return copy;
+		return buildMatchCountMap(FLOOR_MATCHES);
 	}
 	
 	/**
@@ -328,15 +323,13 @@ public class ChildrenMatches implements CollisionResultHandler{
 	}
 	
 	/**
-	 * Get a copy of the wallMatchCountMap.
+	 * Get the classification counts of the wallEntityMatches.
 	 * 
-	 * @return Copy of wallMatchCountMap
+	 * @return Map of classifications to number of occurrences
 	 */
 	public HashMap<String, Integer> getWallMatchCountMap() {
 		
-		HashMap<String, Integer> copy = 
-			new HashMap<String, Integer>(wallMatchCountMap);
-		return copy;
+		return buildMatchCountMap(WALL_MATCHES);
 	}
 	
 	/**
@@ -351,16 +344,14 @@ public class ChildrenMatches implements CollisionResultHandler{
 	}
 	
 	/**
-	 * Get a copy of the entityZoneMatchCountMap. These are the zones that
-	 * belong to products.
+	 * Get the classification counts of the entityZoneMatches. These are 
+	 * the zones that belong to products.
 	 * 
-	 * @return Copy of entityZoneMatchCountMap
+	 * @return Map of classifications to number of occurrences
 	 */
 	public HashMap<String, Integer> getEntityZoneMatchCountMap() {
 		
-		HashMap<String, Integer> copy = 
-			new HashMap<String, Integer>(entityZoneMatchCountMap);
-		return copy;
+		return buildMatchCountMap(ENTITY_ZONE_MATCHES);
 	}
 	
 	/**
@@ -375,16 +366,40 @@ public class ChildrenMatches implements CollisionResultHandler{
 	}
 	
 	/**
-	 * Get a copy of the zoneMatchCountMap. These are the generic
-	 * zone entities.
+	 * Get the classification counts of the zoneMatches. These are the 
+	 * generic zone entities.
 	 * 
-	 * @return Copy of zoneMatchCountMap
+	 * @return Map of classifications to number of occurrences
 	 */
 	public HashMap<String, Integer> getZoneMatchCountMap() {
 		
-		HashMap<String, Integer> copy = 
-			new HashMap<String, Integer>(zoneMatchCountMap);
-		return copy;
+		return buildMatchCountMap(ZONE_MATCHES);
+	}
+	
+	/**
+	 * Get the number of matches of a classification, the same count as
+	 * given by the count map of the match type.
+	 * 
+	 * @param type The match type, one of the _MATCHES constants
+	 * @param classID The classification ID from ClassRelationship
+	 * @return The number of matches, 0 if there are none
+	 */
+	public int getMatchCount(int type, int classID) {
+		
+		int[] counts = matchCounts[type];
+		
+		return (classID < counts.length) ? counts[classID] : 0;
+	}
+	
+	/**
+	 * Get the number of classifications matched, the same as the size of
+	 * the count map of the match type.
+	 * 
+	 * @param type The match type, one of the _MATCHES constants
+	 * @return The number of classifications matched
+	 */
+	public int getNumberOfMatchedClasses(int type) {
+		return numMatchedClasses[type];
 	}
 	
 	/**
@@ -454,29 +469,92 @@ public class ChildrenMatches implements CollisionResultHandler{
 	
 	/**
 	 * Add an entity to the correct match list and increment the 
-	 * classRelationship in the correct match count map.
+	 * classRelationship in the correct match counts.
 	 *
 	 * @param entity Entity to store
 	 * @param classRelationship Classification name to record
 	 * @param matchList Match list to add entity to
-	 * @param matchCountMap Match count map to add classification relationship
-	 * to
+	 * @param type Match type of the counts
 	 */
 	private void addMatch(
 			Entity entity,
 			String classRelationship, 
 			ArrayList<Entity> matchList, 
-			HashMap<String, Integer> matchCountMap){
+			int type){
 		
 		matchList.add(entity);
 		
-		Integer count = matchCountMap.get(classRelationship);
+		addMatchCount(
+				type, 
+				ClassRelationship.getClassID(classRelationship), 
+				1);
+	}
+	
+	/**
+	 * Add to the number of matches of a classification.
+	 * 
+	 * @param type Match type
+	 * @param classID Classification ID
+	 * @param amount Number of matches to add
+	 */
+	private void addMatchCount(int type, int classID, int amount) {
+		
+		int[] counts = matchCounts[type];
+		
+		if (classID >= counts.length) {
+			int[] tmp = new int[Math.max(classID + 1, counts.length * 2)];
+			System.arraycopy(counts, 0, tmp, 0, counts.length);
+			matchCounts[type] = counts = tmp;
+		}
+		
+		if (counts[classID] == 0) {
+			
+			int num = numMatchedClasses[type];
+			
+			if (num == matchedClasses[type].length) {
+				int[] tmp = new int[num * 2];
+				System.arraycopy(matchedClasses[type], 0, tmp, 0, num);
+				matchedClasses[type] = tmp;
+			}
+			
+			matchedClasses[type][num] = classID;
+			numMatchedClasses[type] = num + 1;
+		}
+		
+		counts[classID] += amount;
+	}
+	
+	/**
+	 * Build a map of classification names to number of occurrences from
+	 * the match counts of a match type.
+	 * 
+	 * @param type Match type
+	 * @return Map of classifications to number of occurrences
+	 */
+	private HashMap<String, Integer> buildMatchCountMap(int type) {
+		
+		HashMap<String, Integer> map = new HashMap<String, Integer>();
+		
+		for (int i = 0; i < numMatchedClasses[type]; i++) {
+			int id = matchedClasses[type][i];
+			map.put(ClassRelationship.getClassName(id), matchCounts[type][id]);
+		}
+		
+		return map;
+	}
+	
+	/**
+	 * Zero the match counts of every classification counted.
+	 */
+	private void clearMatchCounts() {
 		
-		if(count == null){
-			matchCountMap.put(classRelationship, 1);
-		} else {
-			count++;
-			matchCountMap.put(classRelationship, count);
+		for (int type = 0; type < NUM_MATCH_TYPES; type++) {
+			
+			for (int i = 0; i < numMatchedClasses[type]; i++) {
+				matchCounts[type][matchedClasses[type][i]] = 0;
+			}
+			
+			numMatchedClasses[type] = 0;
 		}
 	}
 
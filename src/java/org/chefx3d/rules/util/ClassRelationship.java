@@ -0,0 +1,310 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2006 - 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.rules.util;
+
+//External Imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Internal Imports
+// None
+
+/**
+ * A relClass entry compiled to classification IDs.
+ * <p>
+ * Classification names are interned to small integer IDs, so matching a
+ * collision against a relationship compares ints rather than strings, and
+ * match counts can be kept in arrays indexed by ID. A relClass entry may
+ * join several classifications with the : character, a classification
+ * appearing more than once in the entry giving the amount required of it.
+ * Entries are parsed once and shared by every tool and entity using the
+ * same string.
+ *
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public final class ClassRelationship {
+
+	/** The character joining classifications in a relClass entry */
+	private static final String JOINER = ":";
+
+	/** Classification IDs by name */
+	private static ConcurrentHashMap<String, Integer> classIDs =
+		new ConcurrentHashMap<String, Integer>();
+
+	/** Classification names by ID */
+	private static String[] classNames = new String[64];
+
+	/** The number of classification IDs given out */
+	private static int classCount;
+
+	/** Compiled relationships by relClass entry */
+	private static ConcurrentHashMap<String, ClassRelationship> relationships =
+		new ConcurrentHashMap<String, ClassRelationship>();
+
+	/** The relClass entry */
+	private final String relClass;
+
+	/** Is this a joined entry */
+	private final boolean joined;
+
+	/** The distinct classification IDs, in order of first appearance */
+	private final int[] ids;
+
+	/** The number of times each classification appears in the entry */
+	private final int[] amounts;
+
+	/** Bit set of the classification IDs */
+	private final long[] bits;
+
+	/**
+	 * Compile a relClass entry.
+	 *
+	 * @param relClass The relClass entry
+	 */
+	private ClassRelationship(String relClass) {
+
+		this.relClass = relClass;
+
+		joined = relClass.contains(JOINER);
+
+		if (joined) {
+
+			ArrayList<String> names = new ArrayList<String>();
+			HashMap<String, Integer> counts = new HashMap<String, Integer>();
+
+			StringTokenizer st = new StringTokenizer(relClass, JOINER);
+
+			while (st.hasMoreTokens()) {
+
+				String token = st.nextToken();
+				Integer count = counts.get(token);
+
+				if (count == null) {
+					names.add(token);
+					counts.put(token, 1);
+				} else {
+					counts.put(token, count + 1);
+				}
+			}
+
+			ids = new int[names.size()];
+			amounts = new int[names.size()];
+
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = getClassID(names.get(i));
+				amounts[i] = counts.get(names.get(i));
+			}
+
+		} else {
+
+			ids = new int[] {getClassID(relClass)};
+			amounts = new int[] {1};
+		}
+
+		int max = 0;
+		for (int i = 0; i < ids.length; i++) {
+			max = Math.max(max, ids[i]);
+		}
+
+		bits = new long[(max >> 6) + 1];
+		for (int i = 0; i < ids.length; i++) {
+			bits[ids[i] >> 6] |= 1L << ids[i];
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Methods defined by Object
+	//-------------------------------------------------------------------------
+
+	/**
+	 * Print a String representation of the relationship
+	 */
+	public String toString() {
+		return relClass;
+	}
+
+	//-------------------------------------------------------------------------
+	// Public Methods
+	//-------------------------------------------------------------------------
+
+	/**
+	 * Get the compiled form of a relClass entry.
+	 *
+	 * @param relClass The relClass entry
+	 * @return The compiled relationship
+	 */
+	public static ClassRelationship get(String relClass) {
+
+		ClassRelationship rel = relationships.get(relClass);
+
+		if (rel == null) {
+			rel = new ClassRelationship(relClass);
+
+			ClassRelationship existing = relationships.putIfAbsent(relClass, rel);
+			if (existing != null) {
+				rel = existing;
+			}
+		}
+
+		return rel;
+	}
+
+	/**
+	 * Get the ID of a classification, giving it one if it has none.
+	 *
+	 * @param classification The classification name
+	 * @return The classification ID
+	 */
+	public static int getClassID(String classification) {
+
+		Integer id = classIDs.get(classification);
+
+		if (id != null) {
+			return id;
+		}
+
+		synchronized (classIDs) {
+
+			id = classIDs.get(classification);
+
+			if (id == null) {
+
+				if (classCount == classNames.length) {
+					String[] tmp = new String[classCount * 2];
+					System.arraycopy(classNames, 0, tmp, 0, classCount);
+					classNames = tmp;
+				}
+
+				id = classCount;
+				classNames[classCount++] = classification;
+				classIDs.put(classification, id);
+			}
+		}
+
+		return id;
+	}
+
+	/**
+	 * Get the name of a classification ID.
+	 *
+	 * @param id The classification ID
+	 * @return The classification name, or null if the ID is unknown
+	 */
+	public static String getClassName(int id) {
+
+		synchronized (classIDs) {
+			return (id < 0 || id >= classCount) ? null : classNames[id];
+		}
+	}
+
+	/**
+	 * Get the number of classification IDs given out. All IDs are less
+	 * than this.
+	 *
+	 * @return The number of classification IDs
+	 */
+	public static int getClassCount() {
+
+		synchronized (classIDs) {
+			return classCount;
+		}
+	}
+
+	/**
+	 * Check if any of the classifications matches a whole relClass entry,
+	 * as comparing the names would. A joined entry is only matched by a
+	 * classification of the same name, not by the ones it joins.
+	 *
+	 * @param relClass The relClass entries
+	 * @param classification The classification names
+	 * @return True if a classification matches an entry
+	 */
+	public static boolean matchesAny(String[] relClass, String[] classification) {
+
+		for (int i = 0; i < classification.length; i++) {
+
+			int id = getClassID(classification[i]);
+
+			for (int j = 0; j < relClass.length; j++) {
+
+				ClassRelationship rel = get(relClass[j]);
+
+				if (rel.joined ? 
+					rel.relClass.equals(classification[i]) : 
+					rel.ids[0] == id) {
+					
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Check if this is a joined entry.
+	 *
+	 * @return True if the entry joins classifications with :
+	 */
+	public boolean isJoined() {
+		return joined;
+	}
+
+	/**
+	 * Get the number of distinct classifications in the entry.
+	 *
+	 * @return The number of classifications
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Get the ID of a classification in the entry.
+	 *
+	 * @param index The index of the classification in the entry
+	 * @return The classification ID
+	 */
+	public int getClassID(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * Get the amount required of a classification in the entry. A
+	 * classification named more than once requires that many, otherwise
+	 * the relationship amount applies.
+	 *
+	 * @param index The index of the classification in the entry
+	 * @param relAmount The relationship amount
+	 * @return The amount required
+	 */
+	public int getAmount(int index, int relAmount) {
+		return (amounts[index] == 1) ? relAmount : amounts[index];
+	}
+
+	/**
+	 * Check if the entry names a classification.
+	 *
+	 * @param id The classification ID
+	 * @return True if the entry names the classification
+	 */
+	public boolean contains(int id) {
+
+		int word = id >> 6;
+
+		return (word < bits.length) && ((bits[word] & (1L << id)) != 0);
+	}
+}
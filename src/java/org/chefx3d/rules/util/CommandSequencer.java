@@ -17,10 +17,24 @@ package org.chefx3d.rules.util;
 import java.util.*;
 
 //Internal Imports
+import org.chefx3d.model.AddEntityChildCommand;
+import org.chefx3d.model.AddEntityChildTransientCommand;
 import org.chefx3d.model.Command;
+import org.chefx3d.model.Entity;
+import org.chefx3d.model.MoveEntityCommand;
+import org.chefx3d.model.MoveEntityTransientCommand;
+import org.chefx3d.model.MoveVertexCommand;
+import org.chefx3d.model.MoveVertexTransientCommand;
 import org.chefx3d.model.MultiCommand;
 import org.chefx3d.model.MultiRevertCommand;
 import org.chefx3d.model.MultiTransientCommand;
+import org.chefx3d.model.RemoveEntityChildCommand;
+import org.chefx3d.model.RemoveEntityChildTransientCommand;
+import org.chefx3d.model.RotateEntityCommand;
+import org.chefx3d.model.RotateEntityTransientCommand;
+import org.chefx3d.model.RuleDataAccessor;
+import org.chefx3d.model.ScaleEntityCommand;
+import org.chefx3d.model.ScaleEntityTransientCommand;
 import org.chefx3d.model.TransitionEntityChildCommand;
 
 /**
@@ -66,28 +80,79 @@ import org.chefx3d.model.TransitionEntityChildCommand;
  * get pushed onto the end of the pending stack and wait for their turn to
  * be evaluated by their respective rule engines.
  * 
+ * The commands in all of the queues, including the command being evaluated,
+ * are indexed by the entity they act on. This allows the pending state of
+ * an entity to be determined from the few commands that affect it, rather 
+ * than from a copy of the full command list. The queues update the index 
+ * as commands are added, replaced and removed. For each entity the index
+ * also keeps the last command of each kind, parenting, position, rotation
+ * and scale, so the pending state is found without walking the commands.
+ * 
  * @author Ben Yarger
  * @version $Revision: 1.12 $
  */
 public class CommandSequencer {
 	
+	/** Commands that set the parent of an entity */
+	public static final int PARENT_COMMANDS = 0;
+	
+	/** Commands that set the starting parent of an entity */
+	public static final int START_PARENT_COMMANDS = 1;
+	
+	/** Commands that add an entity */
+	public static final int ADD_COMMANDS = 2;
+	
+	/** Commands that set the position of an entity */
+	public static final int POSITION_COMMANDS = 3;
+	
+	/** Commands that set the starting position of an entity */
+	public static final int START_POSITION_COMMANDS = 4;
+	
+	/** Commands that set the position of a vertex */
+	public static final int VERTEX_POSITION_COMMANDS = 5;
+	
+	/** Commands that set the rotation of an entity */
+	public static final int ROTATION_COMMANDS = 6;
+	
+	/** Commands that set the scale of an entity */
+	public static final int SCALE_COMMANDS = 7;
+	
+	/** The number of kinds of command tracked by the entity index */
+	private static final int NUM_COMMAND_KINDS = 8;
+	
+	/** 
+	 * Rank of each queue in the full command list. The order of a 
+	 * command is its queue rank followed by the count of commands queued 
+	 * before it.
+	 */
+	private static final int APPROVED_RANK = 0;
+	private static final int CURRENT_RANK = 1;
+	private static final int PENDING_RANK = 2;
+	private static final int NEWLY_ISSUED_RANK = 3;
+	
+	/** The span of orders given to each queue rank */
+	private static final long RANK_STRIDE = 1L << 48;
+	
 	/** Approved commands waiting to be bundled and executed */
-	private Queue<Command> approvedCommands;
+	private CommandQueue approvedCommands;
 	
 	/** Commands waiting to be evaluated */
-	private Queue<Command> pendingCommands;
+	private CommandQueue pendingCommands;
 	
 	/** Newly issued commands generated during the evaluation sequence */
-	private Queue<Command>  newlyIssuedCommands;
+	private CommandQueue newlyIssuedCommands;
 	
 	/** The command currently being evaluated */
 	private Command currentEvaluationCmd;
 	
+	/** The order of the command being evaluated */
+	private long currentEvaluationOrder;
+	
 	/** 
 	 * Tracks commands that should be cleared out if the newly issued command
 	 * queue gets pushed out onto the pending command queue.
 	 */
-	private HashMap<Command, LinkedList<Command>> cleansedMap;
+	private HashMap<Command, CommandQueue> cleansedMap;
 	
 	/** 
 	 * MultiCommands that were expanded but are still
@@ -95,6 +160,385 @@ public class CommandSequencer {
 	 */
 	private ArrayList<Command> sidePocketedMultiCommands;
 	
+	/** 
+	 * Map of entity ID to the commands that act on the entity, in the
+	 * order of the full command list
+	 */
+	private HashMap<Integer, EntityCommands> entityCommandMap;
+	
+	/** The count of commands queued, used to order them */
+	private long nextCommandCount;
+	
+	/**
+	 * A queue of commands held in a circular array. The queues are
+	 * filled and drained for every command evaluated, a linked list
+	 * would allocate a node for each command added. Each command keeps
+	 * the order it was given when queued, and the entity index is 
+	 * updated as commands are added, replaced and removed.
+	 */
+	private class CommandQueue extends AbstractQueue<Command> {
+		
+		/** Rank of the queue in the full command list */
+		private final int rank;
+		
+		/** The commands, from head, wrapping around the end */
+		private Command[] items;
+		
+		/** The order of each command, in the same slots as items */
+		private long[] orders;
+		
+		/** Index of the first command */
+		private int head;
+		
+		/** The number of commands */
+		private int count;
+		
+		CommandQueue(int rank) {
+			this.rank = rank;
+			items = new Command[16];
+			orders = new long[16];
+		}
+		
+		public boolean offer(Command command) {
+			
+			if (command == null) {
+				throw new NullPointerException();
+			}
+			if (count == items.length) {
+				Command[] tmp = new Command[count * 2];
+				long[] tmpOrders = new long[count * 2];
+				for (int i = 0; i < count; i++) {
+					tmp[i] = get(i);
+					tmpOrders[i] = orders[slot(i)];
+				}
+				items = tmp;
+				orders = tmpOrders;
+				head = 0;
+			}
+			int slot = slot(count);
+			items[slot] = command;
+			orders[slot] = nextCommandOrder(rank);
+			count++;
+			indexCommand(command, orders[slot]);
+			return true;
+		}
+		
+		public Command poll() {
+			
+			if (count == 0) {
+				return null;
+			}
+			Command command = items[head];
+			items[head] = null;
+			unindexCommand(command, orders[head]);
+			head = (head + 1) % items.length;
+			count--;
+			return command;
+		}
+		
+		public Command peek() {
+			return (count == 0) ? null : items[head];
+		}
+		
+		public int size() {
+			return count;
+		}
+		
+		public void clear() {
+			for (int i = 0; i < count; i++) {
+				int slot = slot(i);
+				unindexCommand(items[slot], orders[slot]);
+				items[slot] = null;
+			}
+			head = 0;
+			count = 0;
+		}
+		
+		public boolean contains(Object o) {
+			return indexOf(o) >= 0;
+		}
+		
+		public boolean remove(Object o) {
+			
+			int index = indexOf(o);
+			if (index < 0) {
+				return false;
+			}
+			removeAt(index);
+			return true;
+		}
+		
+		public Iterator<Command> iterator() {
+			
+			return new Iterator<Command>() {
+				
+				/** Index of the next command to return */
+				private int cursor;
+				
+				/** Index of the last command returned, -1 if none */
+				private int last = -1;
+				
+				public boolean hasNext() {
+					return cursor < count;
+				}
+				
+				public Command next() {
+					if (cursor >= count) {
+						throw new NoSuchElementException();
+					}
+					last = cursor++;
+					return get(last);
+				}
+				
+				public void remove() {
+					if (last < 0) {
+						throw new IllegalStateException();
+					}
+					removeAt(last);
+					cursor = last;
+					last = -1;
+				}
+			};
+		}
+		
+		/**
+		 * Get the command at a position in the queue
+		 * 
+		 * @param index Position from the head of the queue
+		 * @return The command
+		 */
+		Command get(int index) {
+			return items[slot(index)];
+		}
+		
+		/**
+		 * Replace the command at a position in the queue. The replacement
+		 * takes the order of the command it replaces.
+		 * 
+		 * @param index Position from the head of the queue
+		 * @param command The replacement command
+		 */
+		void set(int index, Command command) {
+			int slot = slot(index);
+			unindexCommand(items[slot], orders[slot]);
+			items[slot] = command;
+			indexCommand(command, orders[slot]);
+		}
+		
+		/**
+		 * Find the position of a command in the queue
+		 * 
+		 * @param o The command to find
+		 * @return Position from the head of the queue, or -1
+		 */
+		int indexOf(Object o) {
+			for (int i = 0; i < count; i++) {
+				Command command = get(i);
+				if ((o == null) ? (command == null) : o.equals(command)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		
+		/**
+		 * Remove the command at a position in the queue, closing the gap
+		 * 
+		 * @param index Position from the head of the queue
+		 */
+		void removeAt(int index) {
+			
+			int slot = slot(index);
+			unindexCommand(items[slot], orders[slot]);
+			
+			for (int i = index; i < count - 1; i++) {
+				int next = slot(i + 1);
+				items[slot] = items[next];
+				orders[slot] = orders[next];
+				slot = next;
+			}
+			items[slot] = null;
+			count--;
+		}
+		
+		/**
+		 * Get the array slot of a position in the queue
+		 * 
+		 * @param index Position from the head of the queue
+		 * @return Index into the arrays
+		 */
+		private int slot(int index) {
+			return (head + index) % items.length;
+		}
+	}
+	
+	/**
+	 * A command in the entity index
+	 */
+	private static class IndexEntry {
+		
+		/** The command */
+		final Command command;
+		
+		/** The entity the command acts on */
+		final Entity entity;
+		
+		/** The order of the command in the full command list */
+		final long order;
+		
+		/** Bit set of the kinds of command */
+		final int kinds;
+		
+		IndexEntry(Command command, Entity entity, long order, int kinds) {
+			this.command = command;
+			this.entity = entity;
+			this.order = order;
+			this.kinds = kinds;
+		}
+		
+		/**
+		 * Check if the command is of a kind
+		 * 
+		 * @param kind The kind of command, PARENT_COMMANDS etc.
+		 * @return True if the command is of the kind
+		 */
+		boolean isKind(int kind) {
+			return (kinds & (1 << kind)) != 0;
+		}
+	}
+	
+	/**
+	 * The commands that act on one entity, in the order of the full 
+	 * command list, and the last of each kind
+	 */
+	private static class EntityCommands {
+		
+		/** The commands, by order */
+		final ArrayList<IndexEntry> entries;
+		
+		/** The last command of each kind, null if none */
+		final IndexEntry[] last;
+		
+		EntityCommands() {
+			entries = new ArrayList<IndexEntry>(2);
+			last = new IndexEntry[NUM_COMMAND_KINDS];
+		}
+		
+		/**
+		 * Add a command in order
+		 * 
+		 * @param entry The command to add
+		 */
+		void add(IndexEntry entry) {
+			
+			int size = entries.size();
+			
+			// Commands are usually queued at the end
+			if (size == 0 || entries.get(size - 1).order < entry.order) {
+				entries.add(entry);
+			} else {
+				entries.add(-find(entry.order) - 1, entry);
+			}
+			
+			for (int i = 0; i < NUM_COMMAND_KINDS; i++) {
+				if (entry.isKind(i) && 
+						(last[i] == null || last[i].order < entry.order)) {
+					last[i] = entry;
+				}
+			}
+		}
+		
+		/**
+		 * Remove a command
+		 * 
+		 * @param command The command to remove
+		 * @param order The order of the command
+		 */
+		void remove(Command command, long order) {
+			
+			int index = find(order);
+			
+			if (index < 0 || entries.get(index).command != command) {
+				return;
+			}
+			
+			IndexEntry entry = entries.remove(index);
+			
+			for (int i = 0; i < NUM_COMMAND_KINDS; i++) {
+				
+				if (last[i] != entry) {
+					continue;
+				}
+				
+				last[i] = null;
+				
+				for (int j = index - 1; j >= 0; j--) {
+					if (entries.get(j).isKind(i)) {
+						last[i] = entries.get(j);
+						break;
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Get the last command of a kind that acts on the entity instance.
+		 * Commands may refer to other instances of an entity with the same
+		 * ID, those are passed over.
+		 * 
+		 * @param entity The entity instance
+		 * @param kind The kind of command
+		 * @return The command, or null if none
+		 */
+		IndexEntry getLast(Entity entity, int kind) {
+			
+			IndexEntry entry = last[kind];
+			
+			if (entry == null || entry.entity == entity) {
+				return entry;
+			}
+			
+			for (int i = entries.indexOf(entry) - 1; i >= 0; i--) {
+				
+				entry = entries.get(i);
+				
+				if (entry.entity == entity && entry.isKind(kind)) {
+					return entry;
+				}
+			}
+			
+			return null;
+		}
+		
+		/**
+		 * Find a command by order
+		 * 
+		 * @param order The order to find
+		 * @return Index of the command, or (-(insertion point) - 1)
+		 */
+		private int find(long order) {
+			
+			int low = 0;
+			int high = entries.size() - 1;
+			
+			while (low <= high) {
+				
+				int mid = (low + high) >>> 1;
+				long midOrder = entries.get(mid).order;
+				
+				if (midOrder < order) {
+					low = mid + 1;
+				} else if (midOrder > order) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			
+			return -(low + 1);
+		}
+	}
+	
 	//-------------------------------------------------------------------------
 	//-------------------------------------------------------------------------
 	// Static Class Creation & Access
@@ -108,10 +552,12 @@ public class CommandSequencer {
 	/** Private constructor */
 	private CommandSequencer() {
 		
-		approvedCommands = new LinkedList<Command>();
-		pendingCommands = new LinkedList<Command>();
-		newlyIssuedCommands = new LinkedList<Command>();
-		cleansedMap = new HashMap<Command, LinkedList<Command>>();
+		entityCommandMap = new HashMap<Integer, EntityCommands>();
+		
+		approvedCommands = new CommandQueue(APPROVED_RANK);
+		pendingCommands = new CommandQueue(PENDING_RANK);
+		newlyIssuedCommands = new CommandQueue(NEWLY_ISSUED_RANK);
+		cleansedMap = new HashMap<Command, CommandQueue>();
 		sidePocketedMultiCommands = new ArrayList<Command>();
 		currentEvaluationCmd = null;
 	}
@@ -328,7 +774,7 @@ public class CommandSequencer {
 	 * @return The next command to validate or null if queue is empty
 	 */
 	public synchronized Command getNextPendingCommand() {
-		currentEvaluationCmd = pendingCommands.poll();
+		setCurrentEvaluationCmd(pendingCommands.poll());
 		return currentEvaluationCmd;
 	}
 	
@@ -455,13 +901,13 @@ public class CommandSequencer {
 		}                   		
 		
 		if (approvedCommands.contains(command)) {
-			cleansedMap.put(command, (LinkedList<Command>)approvedCommands);
+			cleansedMap.put(command, approvedCommands);
 			approvedCommands.remove(command);
 		} else if (pendingCommands.contains(command)) {
-			cleansedMap.put(command, (LinkedList<Command>)pendingCommands);
+			cleansedMap.put(command, pendingCommands);
 			pendingCommands.remove(command);
 		} else if (newlyIssuedCommands.contains(command)) {
-			cleansedMap.put(command, (LinkedList<Command>)newlyIssuedCommands);
+			cleansedMap.put(command, newlyIssuedCommands);
 			newlyIssuedCommands.remove(command);
 		} else {
 			return false;
@@ -619,6 +1065,110 @@ public class CommandSequencer {
 		return null;
 	}
 	
+	//-----------------------------
+	// Entity command index methods
+	//-----------------------------
+	
+	/**
+	 * Get the commands from all of the queues, including the command being
+	 * evaluated, that act on the entity with the specified ID. The commands 
+	 * are in the same order as the list returned by 
+	 * getFullCommandList(true), so the last command in the list is the 
+	 * last one that will act on the entity.
+	 * 
+	 * @param entityID ID of the entity to get the commands for
+	 * @return List of commands, empty if there are none
+	 */
+	public synchronized List<Command> getEntityCommandList(int entityID) {
+		
+		EntityCommands commands = entityCommandMap.get(entityID);
+		
+		if (commands == null) {
+			return new ArrayList<Command>(0);
+		}
+		
+		ArrayList<Command> commandList = 
+			new ArrayList<Command>(commands.entries.size());
+		
+		for (int i = 0; i < commands.entries.size(); i++) {
+			commandList.add(commands.entries.get(i).command);
+		}
+		
+		return commandList;
+	}
+	
+	/**
+	 * Get the last command from all of the queues, including the command 
+	 * being evaluated, that acts on the entity with the specified ID.
+	 * 
+	 * @param entityID ID of the entity to get the command for
+	 * @return The command, or null if there is none
+	 */
+	public synchronized Command getLastEntityCommand(int entityID) {
+		
+		EntityCommands commands = entityCommandMap.get(entityID);
+		
+		if (commands == null) {
+			return null;
+		}
+		
+		return commands.entries.get(commands.entries.size() - 1).command;
+	}
+	
+	/**
+	 * Get the last command of a kind from all of the queues, including the
+	 * command being evaluated, that acts on the entity. Commands acting on
+	 * another instance of the entity are passed over.
+	 * 
+	 * @param entity The entity to get the command for
+	 * @param kind The kind of command, PARENT_COMMANDS, POSITION_COMMANDS 
+	 * etc.
+	 * @return The command, or null if there is none
+	 */
+	public synchronized Command getLastEntityCommand(Entity entity, int kind) {
+		
+		IndexEntry entry = getLastEntry(entity, kind);
+		
+		return (entry == null) ? null : entry.command;
+	}
+	
+	/**
+	 * Get the later of the last command of a kind that acts on the entity 
+	 * and the last command of a kind that acts on a related entity.
+	 * 
+	 * @param entity The entity to get the command for
+	 * @param kind The kind of command for the entity
+	 * @param relatedEntity The related entity to get the command for
+	 * @param relatedKind The kind of command for the related entity
+	 * @return The command, or null if there is none
+	 */
+	public synchronized Command getLastEntityCommand(
+			Entity entity, 
+			int kind,
+			Entity relatedEntity,
+			int relatedKind) {
+		
+		IndexEntry entry = getLastEntry(entity, kind);
+		IndexEntry relatedEntry = getLastEntry(relatedEntity, relatedKind);
+		
+		if (relatedEntry != null && 
+				(entry == null || entry.order < relatedEntry.order)) {
+			entry = relatedEntry;
+		}
+		
+		return (entry == null) ? null : entry.command;
+	}
+	
+	/**
+	 * Get the IDs of all entities acted on by commands in the queues,
+	 * including the command being evaluated.
+	 * 
+	 * @return Set of entity IDs
+	 */
+	public synchronized Set<Integer> getCommandEntityIDs() {
+		return new HashSet<Integer>(entityCommandMap.keySet());
+	}
+	
 	//--------------------
 	// Clear queue methods
 	//--------------------
@@ -628,7 +1178,7 @@ public class CommandSequencer {
 	 * command queues.
 	 */
 	public synchronized void clearCurrentEvalutionCmd() {
-		currentEvaluationCmd = null;
+		setCurrentEvaluationCmd(null);
 	}
 	
 	/**
@@ -808,21 +1358,21 @@ public class CommandSequencer {
 	public synchronized void printApprovedQueue() {
 		
 		System.out.println("**[Command Sequence Approved Queue]**");
-		printQueueCommands((LinkedList<Command>)approvedCommands);
+		printQueueCommands(approvedCommands);
 		System.out.println("** end approved queue **");
 	}
 	
 	public synchronized void printPendingQueue() {
 		
 		System.out.println("**[Command Sequence Pending Queue]**");
-		printQueueCommands((LinkedList<Command>)pendingCommands);
+		printQueueCommands(pendingCommands);
 		System.out.println("** end pending queue **");
 	}
 	
 	public synchronized void printNewlyIssuedQueue() {
 		
 		System.out.println("**[Command Sequence Newly Issued Queue]**");
-		printQueueCommands((LinkedList<Command>)newlyIssuedCommands);
+		printQueueCommands(newlyIssuedCommands);
 		System.out.println("** end newly issued queue **");
 	}
 	
@@ -841,13 +1391,187 @@ public class CommandSequencer {
 	//-------------------------------------------------------------------------
 	//-------------------------------------------------------------------------	
 	
+	/**
+	 * Set the command being evaluated, moving it into the entity index.
+	 * 
+	 * @param command The command, or null to clear it
+	 */
+	private void setCurrentEvaluationCmd(Command command) {
+		
+		if (currentEvaluationCmd != null) {
+			unindexCommand(currentEvaluationCmd, currentEvaluationOrder);
+		}
+		
+		currentEvaluationCmd = command;
+		
+		if (command != null) {
+			currentEvaluationOrder = nextCommandOrder(CURRENT_RANK);
+			indexCommand(command, currentEvaluationOrder);
+		}
+	}
+	
+	/**
+	 * Get the order for a command placed at the end of a queue.
+	 * 
+	 * @param rank Rank of the queue
+	 * @return The order
+	 */
+	private long nextCommandOrder(int rank) {
+		return rank * RANK_STRIDE + nextCommandCount++;
+	}
+	
+	/**
+	 * Add a command to the commands for the entity it acts on. Commands 
+	 * that don't implement RuleDataAccessor are not indexed.
+	 * 
+	 * @param command Command to add
+	 * @param order The order of the command in the full command list
+	 */
+	private void indexCommand(Command command, long order) {
+		
+		Entity entity = getCommandEntity(command);
+		
+		if (entity == null) {
+			return;
+		}
+		
+		Integer entityID = entity.getEntityID();
+		EntityCommands commands = entityCommandMap.get(entityID);
+		
+		if (commands == null) {
+			commands = new EntityCommands();
+			entityCommandMap.put(entityID, commands);
+		}
+		
+		commands.add(
+				new IndexEntry(command, entity, order, getCommandKinds(command)));
+	}
+	
+	/**
+	 * Remove a command from the commands for the entity it acts on.
+	 * 
+	 * @param command Command to remove
+	 * @param order The order of the command in the full command list
+	 */
+	private void unindexCommand(Command command, long order) {
+		
+		Entity entity = getCommandEntity(command);
+		
+		if (entity == null) {
+			return;
+		}
+		
+		Integer entityID = entity.getEntityID();
+		EntityCommands commands = entityCommandMap.get(entityID);
+		
+		if (commands == null) {
+			return;
+		}
+		
+		commands.remove(command, order);
+		
+		if (commands.entries.isEmpty()) {
+			entityCommandMap.remove(entityID);
+		}
+	}
+	
+	/**
+	 * Get the last command of a kind that acts on the entity.
+	 * 
+	 * @param entity The entity
+	 * @param kind The kind of command
+	 * @return The index entry of the command, or null if none
+	 */
+	private IndexEntry getLastEntry(Entity entity, int kind) {
+		
+		if (entity == null) {
+			return null;
+		}
+		
+		EntityCommands commands = entityCommandMap.get(entity.getEntityID());
+		
+		return (commands == null) ? null : commands.getLast(entity, kind);
+	}
+	
+	/**
+	 * Get the entity a command acts on.
+	 * 
+	 * @param command The command
+	 * @return The entity, or null if the command is not a RuleDataAccessor
+	 * or has no entity
+	 */
+	private static Entity getCommandEntity(Command command) {
+		
+		if (!(command instanceof RuleDataAccessor)) {
+			return null;
+		}
+		
+		return ((RuleDataAccessor)command).getEntity();
+	}
+	
+	/**
+	 * Get the kinds of a command as a bit set, with a bit for each of
+	 * PARENT_COMMANDS, POSITION_COMMANDS etc. that the command is.
+	 * 
+	 * @param command The command
+	 * @return Bit set of kinds
+	 */
+	private static int getCommandKinds(Command command) {
+		
+		int kinds = 0;
+		
+		if (command instanceof AddEntityChildCommand) {
+			kinds |= (1 << PARENT_COMMANDS) | 
+				(1 << START_PARENT_COMMANDS) | 
+				(1 << ADD_COMMANDS);
+		}
+		
+		if (command instanceof AddEntityChildTransientCommand) {
+			kinds |= (1 << PARENT_COMMANDS) | (1 << START_PARENT_COMMANDS);
+		}
+		
+		if (command instanceof TransitionEntityChildCommand) {
+			kinds |= (1 << PARENT_COMMANDS) | 
+				(1 << START_PARENT_COMMANDS) | 
+				(1 << POSITION_COMMANDS) | 
+				(1 << START_POSITION_COMMANDS);
+		}
+		
+		if (command instanceof RemoveEntityChildCommand ||
+				command instanceof RemoveEntityChildTransientCommand) {
+			kinds |= (1 << PARENT_COMMANDS);
+		}
+		
+		if (command instanceof MoveEntityCommand ||
+				command instanceof MoveEntityTransientCommand) {
+			kinds |= (1 << POSITION_COMMANDS);
+		}
+		
+		if (command instanceof ScaleEntityCommand ||
+				command instanceof ScaleEntityTransientCommand) {
+			kinds |= (1 << POSITION_COMMANDS) | (1 << SCALE_COMMANDS);
+		}
+		
+		if (command instanceof MoveVertexCommand ||
+				command instanceof MoveVertexTransientCommand) {
+			kinds |= (1 << VERTEX_POSITION_COMMANDS);
+		}
+		
+		if (command instanceof RotateEntityCommand ||
+				command instanceof RotateEntityTransientCommand) {
+			kinds |= (1 << ROTATION_COMMANDS);
+		}
+		
+		return kinds;
+	}
+	
 	/**
 	 * Print out the command contents of the queue. Formatted results by
 	 * #) Command description (transactionID: #)
 	 * 
 	 * @param queue Queue to print out
 	 */
-	private void printQueueCommands(LinkedList<Command> queue) {
+	private void printQueueCommands(CommandQueue queue) {
 		
 		Iterator<Command> commandIterator = queue.iterator();
 		int counter = 1;
@@ -873,17 +1597,17 @@ public class CommandSequencer {
 	 * @return True if successful, false otherwise
 	 */
 	private boolean replaceCommand(
-			Queue<Command> queue, 
+			CommandQueue queue, 
 			Command targetCommand, 
 			Command replacementCommand) {
 		
-		int index = ((LinkedList<Command>)queue).indexOf(targetCommand);
+		int index = queue.indexOf(targetCommand);
 		
 		if (index == -1) {
 			return false;
 		}
 		
-		((LinkedList<Command>)queue).set(index, replacementCommand);
+		queue.set(index, replacementCommand);
 		
 		return true;
 	}
@@ -896,18 +1620,13 @@ public class CommandSequencer {
 	 * @return True if successful, false otherwise
 	 */
 	private boolean removeCommandByTransactionID(
-			Queue<Command> queue, 
+			CommandQueue queue, 
 			int transactionID) {
 		
-		Iterator<Command> commandIterator = queue.iterator();
-		Command command;
-		
-		while (commandIterator.hasNext()) {
-			
-			command = commandIterator.next();
+		for (int i = 0; i < queue.size(); i++) {
 			
-			if (command.getTransactionID() == transactionID) {
-				queue.remove(command);
+			if (queue.get(i).getTransactionID() == transactionID) {
+				queue.removeAt(i);
 				return true;
 			}
 		}
@@ -922,20 +1641,15 @@ public class CommandSequencer {
 	 */
 	private void applyCleansedCommands() {
 		
-		Map.Entry entry;
-		Command command;
-		LinkedList<Command> list;
+		Map.Entry<Command, CommandQueue> entry;
 		
-		Iterator iterator = cleansedMap.entrySet().iterator();
+		Iterator<Map.Entry<Command, CommandQueue>> iterator = 
+			cleansedMap.entrySet().iterator();
 		
 		while (iterator.hasNext()) {
 		
-			entry = (Map.Entry<Command, LinkedList<Command>>) iterator.next();
-			
-			command = (Command) entry.getKey();
-			list = (LinkedList<Command>) entry.getValue();
-			
-			list.remove(command);
+			entry = iterator.next();
+			entry.getValue().remove(entry.getKey());
 		}
 		
 		clearCleansedCommands();		
@@ -196,7 +196,8 @@ public abstract class InstallPositionRequirementUtility {
             // Retrieve the legal classification index. If -1 stop execution
             int legalIndex =
                 rch.hasLegalCollisions(
-                		rch.getCollisionResults().getEntityMatchCountMap(),
+                		rch.getCollisionResults(),
+                		ChildrenMatches.ENTITY_MATCHES,
                         classRelationship,
                         relationshipAmount,
                         relModifier);
@@ -205,7 +206,8 @@ public abstract class InstallPositionRequirementUtility {
 
                 legalIndex =
                     rch.hasLegalCollisions(
-                    		rch.getCollisionResults().getWallMatchCountMap(),
+                    		rch.getCollisionResults(),
+                    		ChildrenMatches.WALL_MATCHES,
                             classRelationship,
                             relationshipAmount,
                             relModifier);
@@ -43,6 +43,22 @@ public class RuleCollisionHandler {
 	
 	/** Should we log failures reasons for rules */
 	private static boolean logFailures = false;
+	
+	/** Ordinals of the rule properties read for each collision */
+	private static final int NO_MODEL = 
+		ChefX3DRuleProperties.getOrdinal(ChefX3DRuleProperties.NO_MODEL_PROP);
+	
+	private static final int CLASSIFICATION = 
+		ChefX3DRuleProperties.getOrdinal(
+			ChefX3DRuleProperties.CLASSIFICATION_PROP);
+	
+	private static final int SPAN_OBJECT = 
+		ChefX3DRuleProperties.getOrdinal(
+			ChefX3DRuleProperties.SPAN_OBJECT_PROP);
+	
+	private static final int IS_AUTO_ADD_PRODUCT = 
+		ChefX3DRuleProperties.getOrdinal(
+			ChefX3DRuleProperties.IS_AUTO_ADD_PRODUCT);
 		
 	/** The current entity collisions shared between implementing rules */
 	public ArrayList<Entity> collisionEntities;
@@ -70,6 +86,12 @@ public class RuleCollisionHandler {
 	
 	/** Tracked match sets per evaluation */
 	private ChildrenMatches matchSets;
+	
+	/** The collision results list reused for transient commands */
+	private ArrayList<Entity> transientCollisionEntities;
+	
+	/** Classification IDs of the collisions, reused between analyses */
+	private int[] collisionClassIDs;
 
 	/**
 	 * Constructor
@@ -89,6 +111,8 @@ public class RuleCollisionHandler {
 	    sequencer = CommandSequencer.getInstance();
 	    
 		matchesMap = new HashMap<Entity, ChildrenMatches>();
+		transientCollisionEntities = new ArrayList<Entity>();
+		collisionClassIDs = new int[16];
 	}
 	
 	/**
@@ -164,11 +188,23 @@ public class RuleCollisionHandler {
 //		String url_string = entity.getModelURL();
 		
 //		if(url_string != null){
+		if (command.isTransient()) {
+			// transient commands arrive at mouse rate, fill the same 
+			// list each time rather than allocating a new one
+			collisionChecker.submitCommand(
+					command, 
+					useSurrogates,
+					useEntityExtendedBounds, 
+					useTargetsExtendedBounds,
+					transientCollisionEntities);
+			collisionEntities = transientCollisionEntities;
+		} else {
 			collisionEntities = collisionChecker.submitCommand(
 					command, 
 					useSurrogates,
 					useEntityExtendedBounds, 
 					useTargetsExtendedBounds);
+		}
 
 //		} else {
 //			collisionEntities = null;
@@ -389,10 +425,10 @@ public class RuleCollisionHandler {
 				
 				Entity currentEntity = (Entity)keyArray[i];
 				
-				Boolean noModel =
-					(Boolean) RulePropertyAccessor.getRulePropertyValue(
+				boolean noModel =
+					RulePropertyAccessor.getBooleanRuleProperty(
 					currentEntity,
-					ChefX3DRuleProperties.NO_MODEL_PROP);
+					NO_MODEL);
 				
 				if (noModel) {
 					collisionEntitiesMap.remove(currentEntity);
@@ -815,6 +851,7 @@ public class RuleCollisionHandler {
 		 */
 		ArrayList<String> collisionClassificationList = new ArrayList<String>();
 		ArrayList<Entity> collisionEntityList = new ArrayList<Entity>();
+		int numCollisionClasses = 0;
 		
 		for(int w = collisionEntities.size() - 1; w >= 0; w--){
 			
@@ -823,7 +860,7 @@ public class RuleCollisionHandler {
 			String[] colObjClass = (String[])
 				RulePropertyAccessor.getRulePropertyValue(
 				entityObj,
-				ChefX3DRuleProperties.CLASSIFICATION_PROP);
+				CLASSIFICATION);
 			
 			if(colObjClass != null){
 				
@@ -891,6 +928,15 @@ public class RuleCollisionHandler {
 				
 				for(int i = 0; i < colObjClass.length; i++){
 					
+					if(numCollisionClasses == collisionClassIDs.length){
+						int[] tmp = new int[numCollisionClasses * 2];
+						System.arraycopy(
+							collisionClassIDs, 0, tmp, 0, numCollisionClasses);
+						collisionClassIDs = tmp;
+					}
+					
+					collisionClassIDs[numCollisionClasses++] =
+						ClassRelationship.getClassID(colObjClass[i]);
 					collisionClassificationList.add(colObjClass[i]);
 					collisionEntityList.add(entityObj);
 				}
@@ -899,54 +945,24 @@ public class RuleCollisionHandler {
 		
 		/*
 		 * Make sure collision matches a relationship classification type.
-		 * If the classRelationship contains the : character, tokenize the
-		 * string and examine each part for a match. Either way, check
-		 * matches for the entity type and assign to the correct list.
+		 * If the classRelationship contains the : character, any of the
+		 * classifications it joins is a match. Either way, check matches
+		 * for the entity type and assign to the correct list.
 		 */
 		for(int i = 0; i < maxIndex; i++){
 			
-			// Check for : character
-			if(classRelationship[i].contains(":")){
-				
-				// For proper analysis we cannot have multiple entries with
-				// the same name in a relClass so clean it
-				HashMap<String, Integer> cleanedClassRelationship =
-					cleanClassRelationship(classRelationship[i]);
-				
-				Object[] keys =
-					cleanedClassRelationship.keySet().toArray();
-				
-				String token;
-				
-				for (int x = 0; x < keys.length; x++) {
-					
-					token = (String) keys[x];
-					
-					for(int w = 0; w < collisionClassificationList.size(); w++){
-						
-						String colClass = collisionClassificationList.get(w);
-						
-						if(colClass.equals(token)){
-							
-							Entity entityObj = collisionEntityList.get(w);
-							
-							matchSets.addEntity(entityObj, colClass);
-						}
-					}
-				}
-				
-			} else {
+			ClassRelationship rel =
+				ClassRelationship.get(classRelationship[i]);
+			
+			for(int w = 0; w < numCollisionClasses; w++){
 				
-				for(int w = 0; w < collisionClassificationList.size(); w++){
+				if(rel.contains(collisionClassIDs[w])){
 					
-					String colClass = collisionClassificationList.get(w);
+					Entity entityObj = collisionEntityList.get(w);
 					
-					if(colClass.equals(classRelationship[i])){
-						
-						Entity entityObj = collisionEntityList.get(w);
-						
-						matchSets.addEntity(entityObj, colClass);
-					}
+					matchSets.addEntity(
+						entityObj, 
+						collisionClassificationList.get(w));
 				}
 			}
 			
@@ -1218,31 +1234,36 @@ public class RuleCollisionHandler {
 		// in any matches and therefore should be handled appropriately.
 		
 		int legalModelRes= hasLegalCollisions(
-				matchSets.getEntityMatchCountMap(),
+				matchSets,
+				ChildrenMatches.ENTITY_MATCHES,
 				classRelationship,
 				relationshipAmount,
 				relModifier);
 		
 		int legalFloorRes = hasLegalCollisions(
-				matchSets.getFloorMatchCountMap(), 
+				matchSets,
+				ChildrenMatches.FLOOR_MATCHES, 
 				classRelationship, 
 				relationshipAmount, 
 				relModifier);
 		
 		int legalSegRes = hasLegalCollisions(
-				matchSets.getWallMatchCountMap(),
+				matchSets,
+				ChildrenMatches.WALL_MATCHES,
 				classRelationship,
 				relationshipAmount,
 				relModifier);
 		
 		int legalModelZoneRes = hasLegalCollisions(
-				matchSets.getEntityZoneMatchCountMap(), 
+				matchSets,
+				ChildrenMatches.ENTITY_ZONE_MATCHES, 
 				classRelationship, 
 				relationshipAmount, 
 				relModifier);
 		
 		int legalZoneRes = hasLegalCollisions(
-				matchSets.getZoneMatchCountMap(),
+				matchSets,
+				ChildrenMatches.ZONE_MATCHES,
 				classRelationship,
 				relationshipAmount,
 				relModifier);
@@ -1312,31 +1333,36 @@ public class RuleCollisionHandler {
 		// in any matches and therefore should be handled appropriately.
 		
 		int illegalModelRes= hasLegalCollisions(
-				matchSets.getEntityMatchCountMap(),
+				matchSets,
+				ChildrenMatches.ENTITY_MATCHES,
 				classRelationship,
 				relationshipAmount,
 				relModifier);
 		
 		int illegalFloorRes = hasLegalCollisions(
-				matchSets.getFloorMatchCountMap(), 
+				matchSets,
+				ChildrenMatches.FLOOR_MATCHES, 
 				classRelationship, 
 				relationshipAmount, 
 				relModifier);
 		
 		int illegalSegRes = hasLegalCollisions(
-				matchSets.getWallMatchCountMap(),
+				matchSets,
+				ChildrenMatches.WALL_MATCHES,
 				classRelationship,
 				relationshipAmount,
 				relModifier);
 		
 		int illegalModelZoneRes = hasLegalCollisions(
-				matchSets.getEntityZoneMatchCountMap(), 
+				matchSets,
+				ChildrenMatches.ENTITY_ZONE_MATCHES, 
 				classRelationship, 
 				relationshipAmount, 
 				relModifier);
 		
 		int illegalZoneRes = hasLegalCollisions(
-				matchSets.getZoneMatchCountMap(),
+				matchSets,
+				ChildrenMatches.ZONE_MATCHES,
 				classRelationship,
 				relationshipAmount,
 				relModifier);
@@ -1449,31 +1475,36 @@ public class RuleCollisionHandler {
 		if(match == null) {
 			
 			illegalModelRes= hasLegalCollisions(
-					matchSets.getEntityMatchCountMap(),
+					matchSets,
+					ChildrenMatches.ENTITY_MATCHES,
 					classRelationship,
 					relationshipAmount,
 					relModifier);
 			
 			illegalFloorRes = hasLegalCollisions(
-					matchSets.getFloorMatchCountMap(), 
+					matchSets,
+					ChildrenMatches.FLOOR_MATCHES, 
 					classRelationship, 
 					relationshipAmount, 
 					relModifier);
 			
 			illegalSegRes = hasLegalCollisions(
-					matchSets.getWallMatchCountMap(),
+					matchSets,
+					ChildrenMatches.WALL_MATCHES,
 					classRelationship,
 					relationshipAmount,
 					relModifier);
 			
 			illegalModelZoneRes = hasLegalCollisions(
-					matchSets.getEntityZoneMatchCountMap(), 
+					matchSets,
+					ChildrenMatches.ENTITY_ZONE_MATCHES, 
 					classRelationship, 
 					relationshipAmount, 
 					relModifier);
 			
 			illegalZoneRes = hasLegalCollisions(
-					matchSets.getZoneMatchCountMap(),
+					matchSets,
+					ChildrenMatches.ZONE_MATCHES,
 					classRelationship,
 					relationshipAmount,
 					relModifier);
@@ -1487,31 +1518,36 @@ public class RuleCollisionHandler {
 		}else {
 			
 			illegalModelRes= hasLegalCollisions(
-					match.getEntityMatchCountMap(),
+					match,
+					ChildrenMatches.ENTITY_MATCHES,
 					classRelationship,
 					relationshipAmount,
 					relModifier);
 			
 			illegalFloorRes = hasLegalCollisions(
-					match.getFloorMatchCountMap(), 
+					match,
+					ChildrenMatches.FLOOR_MATCHES, 
 					classRelationship, 
 					relationshipAmount, 
 					relModifier);
 			
 			illegalSegRes = hasLegalCollisions(
-					match.getWallMatchCountMap(),
+					match,
+					ChildrenMatches.WALL_MATCHES,
 					classRelationship,
 					relationshipAmount,
 					relModifier);
 			
 			illegalModelZoneRes = hasLegalCollisions(
-					match.getEntityZoneMatchCountMap(), 
+					match,
+					ChildrenMatches.ENTITY_ZONE_MATCHES, 
 					classRelationship, 
 					relationshipAmount, 
 					relModifier);
 			
 			illegalZoneRes = hasLegalCollisions(
-					match.getZoneMatchCountMap(),
+					match,
+					ChildrenMatches.ZONE_MATCHES,
 					classRelationship,
 					relationshipAmount,
 					relModifier);
@@ -1697,39 +1733,31 @@ public class RuleCollisionHandler {
 		HashMap<String,Integer> countMap,
 		String[] classRelationship,
 		int[] relationshipAmount,
-		Enum[] relModifier){
+		Enum<?>[] relModifier){
 		
 		for(int i = 0; i < classRelationship.length; i++){
 			
-			// Check for : character, otherwise standard check
-			if(classRelationship[i].contains(":")){
-				
-				// For proper analysis we cannot have multiple entries with
-				// the same name in a relClass so clean it
-				HashMap<String, Integer> cleanedClassRelationship =
-					cleanClassRelationship(classRelationship[i]);
-				
-				Object[] keys =
-					cleanedClassRelationship.keySet().toArray();
-				
-				String token;
+			ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES modifier =
+				(ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i];
+			
+			ClassRelationship rel =
+				ClassRelationship.get(classRelationship[i]);
+			
+			// Joined relationships need every classification matched,
+			// otherwise standard check
+			if(rel.isJoined()){
 				
 				boolean matchesFound = true;
 				
-				for (int x = 0; x < keys.length; x++) {
-					
-					token = (String) keys[x];
-					int amt = cleanedClassRelationship.get(token);
-					
-					if (amt == 1) {
-						amt = relationshipAmount[i];
-					}
+				for (int x = 0; x < rel.size(); x++) {
 					
+					String token = 
+						ClassRelationship.getClassName(rel.getClassID(x));
 					
 					if(!RuleUtils.legalAssociationNumber(
 						countMap.get(token),
-						amt,
-						(ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i])){
+						rel.getAmount(x, relationshipAmount[i]),
+						modifier)){
 						
 						matchesFound = false;
 						break;
@@ -1745,7 +1773,7 @@ public class RuleCollisionHandler {
 			} else if(RuleUtils.legalAssociationNumber(
 				countMap.get(classRelationship[i]),
 				relationshipAmount[i],
-				(ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i])){
+				modifier)){
 				
 				return i;
 			}
@@ -1775,6 +1803,96 @@ public class RuleCollisionHandler {
 		return -1;
 	}
 	
+	/**
+	 * Determines if the collisions of one match type are all legal. If any 
+	 * are not legal collisions, the check will return either -2 or -1 
+	 * depending on the issue. Works on the match counts by classification 
+	 * ID, so nothing is parsed or copied.
+	 *
+	 * @param matches The matches to check for legal collisions
+	 * @param type The match type, one of the ChildrenMatches _MATCHES values
+	 * @param classRelationship String[]
+	 * @param relationshipAmount int[]
+	 * @param relModifier Enum[]
+	 * @return index of matching classification, otherwise -1 if nothing to
+	 * check, -2 if illegal collision found
+	 */
+	public int hasLegalCollisions(
+		ChildrenMatches matches,
+		int type,
+		String[] classRelationship,
+		int[] relationshipAmount,
+		Enum<?>[] relModifier){
+		
+		for(int i = 0; i < classRelationship.length; i++){
+			
+			ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES modifier =
+				(ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i];
+			
+			ClassRelationship rel =
+				ClassRelationship.get(classRelationship[i]);
+			
+			// Joined relationships need every classification matched,
+			// otherwise standard check
+			if(rel.isJoined()){
+				
+				boolean matchesFound = true;
+				
+				for (int x = 0; x < rel.size(); x++) {
+					
+					if(!legalMatchCount(
+						matches,
+						type,
+						rel.getClassID(x),
+						rel.getAmount(x, relationshipAmount[i]),
+						modifier)){
+						
+						matchesFound = false;
+						break;
+					}
+				}
+				
+				if(!matchesFound){
+					continue;
+				}
+				
+				return i;
+				
+			} else if(legalMatchCount(
+				matches,
+				type,
+				rel.getClassID(0),
+				relationshipAmount[i],
+				modifier)){
+				
+				return i;
+			}
+		}
+		
+		if(matches.getNumberOfMatchedClasses(type) > 0){
+			
+			if (logFailures) {
+				
+				StringBuilder sb = new StringBuilder();
+				for(int i=0; i < classRelationship.length; i++) {
+					sb.append("   ");
+					sb.append(classRelationship[i]);
+					sb.append(" ");
+					sb.append(relModifier[i]);
+					sb.append(" ");
+					sb.append(relationshipAmount[i]);
+				}
+				logFailure("hasLegalCollisions1 - Expected a collision with: \n" + sb.toString());
+				printCollisionEntitiesMap(null, true);
+				printCollisionEntitiesList(null, true);
+			}
+			
+			return -2;
+		}
+		
+		return -1;
+	}
+	
 	/**
 	 * Determines if the multiple collisions are all legal. If any are not legal
 	 * collisions, the check will return either -2 or -1 depending on the
@@ -1799,67 +1917,42 @@ public class RuleCollisionHandler {
 		
 		for(int i = 0; i < iterateSize; i++){
 			
-			// Check for : character only
-			if(classRelationship[i].contains(":")){
+			ClassRelationship rel =
+				ClassRelationship.get(classRelationship[i]);
+			
+			// Check joined relationships only
+			if(rel.isJoined()){
 				
 				containsJoiner = true;
 				
-				// For proper analysis we cannot have multiple entries with
-				// the same name in a relClass so clean it
-				HashMap<String, Integer> cleanedClassRelationship =
-					cleanClassRelationship(classRelationship[i]);
-				
-				Object[] keys =
-					cleanedClassRelationship.keySet().toArray();
-				
-				String token;
+				ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES modifier =
+					(ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i];
 				
 				boolean matchesFound = true;
 				
-				for (int x = 0; x < keys.length; x++) {
-					
-					token = (String) keys[x];
-					int amt = cleanedClassRelationship.get(token);
+				for (int x = 0; x < rel.size(); x++) {
 					
-					if (amt == 1) {
-						amt = relationshipAmount[i];
-					}
+					int classID = rel.getClassID(x);
+					int amt = rel.getAmount(x, relationshipAmount[i]);
 					
-					if(RuleUtils.legalAssociationNumber(
-						matchSets.getEntityMatchCountMap().get(token),
-						amt,
-						(ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i])){
-						
-						continue;
-						
-					} else if(RuleUtils.legalAssociationNumber(
-						matchSets.getFloorMatchCountMap().get(token),
-						amt,
-						(ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i])){
+					if(legalMatchCount(
+							matchSets, ChildrenMatches.ENTITY_MATCHES, 
+							classID, amt, modifier) ||
+						legalMatchCount(
+							matchSets, ChildrenMatches.FLOOR_MATCHES, 
+							classID, amt, modifier) ||
+						legalMatchCount(
+							matchSets, ChildrenMatches.WALL_MATCHES, 
+							classID, amt, modifier) ||
+						legalMatchCount(
+							matchSets, ChildrenMatches.ENTITY_ZONE_MATCHES, 
+							classID, amt, modifier) ||
+						legalMatchCount(
+							matchSets, ChildrenMatches.ZONE_MATCHES, 
+							classID, amt, modifier)){
 						
 						continue;
 						
-					} else if(RuleUtils.legalAssociationNumber(
-						matchSets.getWallMatchCountMap().get(token),
-						amt,
-						(ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i])){
-						
-						continue;
-						
-					} else if(RuleUtils.legalAssociationNumber(
-						matchSets.getEntityZoneMatchCountMap().get(token),
-						amt,
-						(ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i])){
-							
-							continue;
-							
-					} else if(RuleUtils.legalAssociationNumber(
-						matchSets.getZoneMatchCountMap().get(token),
-						amt,
-						(ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i])){
-							
-							continue;
-							
 					} else {
 						matchesFound = false;
 						break;
@@ -1873,11 +1966,16 @@ public class RuleCollisionHandler {
 		}
 		
 		if(containsJoiner &&
-			(matchSets.getEntityMatchCountMap().size() > 0 ||
-					matchSets.getFloorMatchCountMap().size() > 0 ||
-					matchSets.getWallMatchCountMap().size() > 0 ||
-					matchSets.getEntityZoneMatchCountMap().size() > 0 ||
-					matchSets.getZoneMatchCountMap().size() > 0)){
+			(matchSets.getNumberOfMatchedClasses(
+					ChildrenMatches.ENTITY_MATCHES) > 0 ||
+				matchSets.getNumberOfMatchedClasses(
+					ChildrenMatches.FLOOR_MATCHES) > 0 ||
+				matchSets.getNumberOfMatchedClasses(
+					ChildrenMatches.WALL_MATCHES) > 0 ||
+				matchSets.getNumberOfMatchedClasses(
+					ChildrenMatches.ENTITY_ZONE_MATCHES) > 0 ||
+				matchSets.getNumberOfMatchedClasses(
+					ChildrenMatches.ZONE_MATCHES) > 0)){
 			
 			return -2;
 		}
@@ -1943,11 +2041,11 @@ public class RuleCollisionHandler {
 			}
 			
 			// skip over any auto-span item
-			Boolean autoSpan =
-				(Boolean) RulePropertyAccessor.getRulePropertyValue(
+			boolean autoSpan =
+				RulePropertyAccessor.getBooleanRuleProperty(
 				currentEntity,
-				ChefX3DRuleProperties.SPAN_OBJECT_PROP);
-			if(autoSpan != null && autoSpan) {
+				SPAN_OBJECT);
+			if(autoSpan) {
 				collisionEntities.remove(currentEntity);
 			}
 		}
@@ -2006,12 +2104,12 @@ public class RuleCollisionHandler {
 			// If flagged, ignore auto added products
 			if(ignoreAutoAdded){
 				
-				Boolean isAutoAddProduct = (Boolean)
-					RulePropertyAccessor.getRulePropertyValue(
+				boolean isAutoAddProduct =
+					RulePropertyAccessor.getBooleanRuleProperty(
 					tmpEntity,
-					ChefX3DRuleProperties.IS_AUTO_ADD_PRODUCT);
+					IS_AUTO_ADD_PRODUCT);
 				
-				if(isAutoAddProduct != null && isAutoAddProduct == true){
+				if(isAutoAddProduct){
 					continue;
 				}
 			}
@@ -2200,42 +2298,27 @@ public class RuleCollisionHandler {
 	//////////////////////////////////////////////////////////////////////////////
 	
 	/**
-	 * Clean up the relClass into a representative HashMap of the each
-	 * expressed relationship with duplicates accounted for in the Integer
-	 * value of the HashMap. When evaluating the relAmt, if the Integer
-	 * quantity stored in the HashMap is > 1, then it is used in place
-	 * of the relAmt specified.
+	 * Check the number of matches of a classification against a
+	 * relationship amount and modifier. No matches is never legal.
 	 *
-	 * @param relClass String to parse
-	 * @return HashMap<String, Integer> or null if relClass doesn't contain :
+	 * @param matches The matches to check
+	 * @param type The match type
+	 * @param classID The classification ID
+	 * @param amount The relationship amount
+	 * @param modifier The relationship modifier
+	 * @return True if legal, false otherwise
 	 */
-	private HashMap<String, Integer> cleanClassRelationship(String relClass) {
-		
-		if (!relClass.contains(":")) {
-			return null;
-		}
+	private boolean legalMatchCount(
+		ChildrenMatches matches,
+		int type,
+		int classID,
+		int amount,
+		ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES modifier) {
 		
-		HashMap<String, Integer> cleanedResults =
-			new HashMap<String, Integer>();
-		
-		StringTokenizer st = new StringTokenizer(relClass, ":");
-		String token;
-		
-		while(st.hasMoreTokens()){
-			
-			token = st.nextToken();
-			
-			Integer count = cleanedResults.get(token);
-			
-			if (count == null) {
-				cleanedResults.put(token, 1);
-			} else {
-				count++;
-				cleanedResults.put(token, count);
-			}
-		}
+		int count = matches.getMatchCount(type, classID);
 		
-		return cleanedResults;
+		return count > 0 && 
+			RuleUtils.legalAssociationNumber(count, amount, modifier);
 	}
 	
 	/**
@@ -147,6 +147,26 @@ public abstract class RuleUtils {
             return false;
         }
 
+        return legalAssociationNumber(
+                numCollisions.intValue(),
+                relNumber,
+                relModifier);
+    }
+
+    /**
+     * Check the requirements on the found relationship for the correct
+     * number and modifier value.
+     *
+     * @param numCollisions Number of collisions found
+     * @param relNumber Number of relationship collisions required
+     * @param relModifier Modifier on relationship collisions required
+     * @return boolean True if legal, false otherwise
+     */
+    public static boolean legalAssociationNumber(
+            int numCollisions,
+            int relNumber,
+            ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES relModifier){
+
         boolean legalAssociation = false;
 
         switch(relModifier){
@@ -277,30 +277,13 @@ public abstract class SceneHierarchyUtility {
     	 
     	 Entity entity = model.getEntity(entityID);
     	 
-    	 // Get all of the commands on the queues
-    	 ArrayList<Command> cmdList = (ArrayList<Command>) 
-    	 	CommandSequencer.getInstance().getFullCommandList(true);
+    	 // The last command issued affecting the entity has the entity 
+    	 // as it will be after the current frame
+    	 Command cmd = 
+    	 	CommandSequencer.getInstance().getLastEntityCommand(entityID);
       	
-      	 // By starting at the end of the list and working backwards
-      	 // we are guaranteed to get the last command
-      	 // issued affecting the entity.
-      	 for (int i = (cmdList.size() - 1); i >= 0; i--) {
-      		
-      		 Command cmd = cmdList.get(i);
-      		
-      		 if (cmd instanceof RuleDataAccessor) {
-      			
-      		     if (((RuleDataAccessor)cmd).getEntity() == null) {
-      		         continue;
-      		     }
-      		     
-      		 	 // If it isn't an entity match, skip to next command
-      		 	 if (((RuleDataAccessor)cmd).getEntity().getEntityID() == 
-      		 			entityID) {
-      				 entity = ((RuleDataAccessor)cmd).getEntity();
-      				 break;
-      			 }
-      		 }   
+      	 if (cmd != null) {
+      		 entity = ((RuleDataAccessor)cmd).getEntity();
       	 }
       	
       	 return entity;
@@ -338,62 +321,37 @@ public abstract class SceneHierarchyUtility {
 		 
 		Entity parentEntity = getEntity(model, parentEntityID);
 
-		// Get all of the commands on the queues
-     	ArrayList<Command> cmdList = (ArrayList<Command>) 
-     		CommandSequencer.getInstance().getFullCommandList(true);
-     	
-     	// By starting at the end of the list and working backwards
-     	// we are guaranteed to get the last command
-     	// issued affecting the entity.
+		// Get the last command issued that adjusts the parenting of the 
+		// entity.
+     	Command cmd = CommandSequencer.getInstance().getLastEntityCommand(
+     			entity, 
+     			CommandSequencer.PARENT_COMMANDS);
      	
-     	for (int i = (cmdList.size() - 1); i >= 0; i--) {
-     		
-     		Command cmd = cmdList.get(i);
-     		
-     		if (cmd instanceof RuleDataAccessor) {
-     			
-     			// If it isn't an entity match, skip to next command
-     			if (((RuleDataAccessor)cmd).getEntity() != entity) {
-     				continue;
-     			}
-     		
-     			// Try and match the command to something we care about.
-     			// Something that will adjust the parenting of the entity.
- 	    		if (cmd instanceof AddEntityChildCommand) {
- 	    			
- 	    			parentEntity = 
- 	    				((AddEntityChildCommand)cmd).getParentEntity();
- 	    			break;
- 	    			
- 	    		} else if (cmd instanceof AddEntityChildTransientCommand) {
- 	    			
- 	    			parentEntity =
- 	    				((AddEntityChildTransientCommand)
- 	    						cmd).getParentEntity();
- 	    			break;
- 	    			
- 	    		} else if (cmd instanceof TransitionEntityChildCommand) {
- 	    			
- 	    			parentEntity =
- 	    				((TransitionEntityChildCommand)
- 	    						cmd).getEndParentEntity();
- 	    			break;
- 	    			
- 	    		} else if (cmd instanceof RemoveEntityChildCommand) {
- 	    			
- 	    			parentEntity =
- 	    				((RemoveEntityChildCommand)cmd).getParentEntity();
- 	    			break;
- 	    			
- 	    		} else if (cmd instanceof RemoveEntityChildTransientCommand) {
- 	    			
- 	    			parentEntity = 
- 	    				((RemoveEntityChildTransientCommand)
- 	    						cmd).getParentEntity();
- 	    			break;
- 	    		}
-     		}   
-     	}
+ 		if (cmd instanceof AddEntityChildCommand) {
+ 			
+ 			parentEntity = 
+ 				((AddEntityChildCommand)cmd).getParentEntity();
+ 			
+ 		} else if (cmd instanceof AddEntityChildTransientCommand) {
+ 			
+ 			parentEntity =
+ 				((AddEntityChildTransientCommand)cmd).getParentEntity();
+ 			
+ 		} else if (cmd instanceof TransitionEntityChildCommand) {
+ 			
+ 			parentEntity =
+ 				((TransitionEntityChildCommand)cmd).getEndParentEntity();
+ 			
+ 		} else if (cmd instanceof RemoveEntityChildCommand) {
+ 			
+ 			parentEntity =
+ 				((RemoveEntityChildCommand)cmd).getParentEntity();
+ 			
+ 		} else if (cmd instanceof RemoveEntityChildTransientCommand) {
+ 			
+ 			parentEntity = 
+ 				((RemoveEntityChildTransientCommand)cmd).getParentEntity();
+ 		}
      	
      	return parentEntity;
      }
@@ -440,50 +398,27 @@ public abstract class SceneHierarchyUtility {
 		//}
 		/////////////////////////////////////////////////////////////
 			
-         // Get all of the commands on the queues
-     	ArrayList<Command> cmdList = (ArrayList<Command>) 
-     		CommandSequencer.getInstance().getFullCommandList(true);
+         // Get the last command issued that sets the starting parent of 
+         // the entity.
+     	Command cmd = CommandSequencer.getInstance().getLastEntityCommand(
+     			entity, 
+     			CommandSequencer.START_PARENT_COMMANDS);
      	
-     	// By starting at the end of the list and working backwards
-     	// we are guaranteed to get the last command
-     	// issued affecting the entity.
-     	
-     	for (int i = (cmdList.size() - 1); i >= 0; i--) {
-     		
-     		Command cmd = cmdList.get(i);
-     		
-     		if (cmd instanceof RuleDataAccessor) {
-     			
-     			// If it isn't a command match, skip to next command
-     			if (((RuleDataAccessor)cmd).getEntity() != entity) {
-     				continue;
-     			}
-     		
-     			// Try and match the command to something we care about.
-     			// Something that will adjust the parenting of the entity.
- 	    		if (cmd instanceof AddEntityChildCommand) {
- 	    			
- 	    			parentEntity = 
- 	    				((AddEntityChildCommand)cmd).getParentEntity();
- 	    			break;
- 	    			
- 	    		} else if (cmd instanceof AddEntityChildTransientCommand) {
- 	    			
- 	    			parentEntity =
- 	    				((AddEntityChildTransientCommand)
- 	    						cmd).getParentEntity();
- 	    			break;
- 	    			
- 	    		} else if (cmd instanceof TransitionEntityChildCommand) {
- 	    			
- 	    			parentEntity =
- 	    				((TransitionEntityChildCommand)
- 	    						cmd).getStartParentEntity();
- 	    			break;
- 	    			
- 	    		}
-     		}   
-     	}
+ 		if (cmd instanceof AddEntityChildCommand) {
+ 			
+ 			parentEntity = 
+ 				((AddEntityChildCommand)cmd).getParentEntity();
+ 			
+ 		} else if (cmd instanceof AddEntityChildTransientCommand) {
+ 			
+ 			parentEntity =
+ 				((AddEntityChildTransientCommand)cmd).getParentEntity();
+ 			
+ 		} else if (cmd instanceof TransitionEntityChildCommand) {
+ 			
+ 			parentEntity =
+ 				((TransitionEntityChildCommand)cmd).getStartParentEntity();
+ 		}
      	
      	return parentEntity;
      }
@@ -964,7 +899,7 @@ public abstract class SceneHierarchyUtility {
          Entity tmpParent = null;
          Object[] keys = parentMap.keySet().toArray();
          Entity[] testPath = null;
-         
+         
          // make sure we have some parents to work with
          if (parentMap.size() <= 0) {
         	 return null;
@@ -14,6 +14,7 @@ package org.chefx3d.rules.util;
 
 // External imports
 import java.util.ArrayList;
+import java.util.Set;
 
 import javax.vecmath.AxisAngle4f;
 import javax.vecmath.Matrix4f;
@@ -320,9 +321,6 @@ public abstract class TransformUtils {
      */
     public static double[] getPosition(PositionableEntity entity) {
     	
-    	ArrayList<Command> cmdList = (ArrayList<Command>) 
-		CommandSequencer.getInstance().getFullCommandList(true);
-    	
     	double[] position = new double[3];
     	entity.getPosition(position);
     	
@@ -330,23 +328,12 @@ public abstract class TransformUtils {
     	// position should be the start position which we know will be set to 
     	// the previous frame's ghost entity position.
     	
-    	for (int i = (cmdList.size() - 1); i >= 0; i--) {
-    		
-    		Command cmd = cmdList.get(i);
-    		
-    		if (cmd instanceof RuleDataAccessor) {
-    			
-    			if (((RuleDataAccessor)cmd).getEntity() == entity) {
-    				
-    				if (cmd instanceof AddEntityChildCommand) {
-    				
-    					entity.getStartingPosition(position);
-    					break;
-    					
-    				} 
-    				
-    			} 
-    		}
+    	Command cmd = CommandSequencer.getInstance().getLastEntityCommand(
+    			entity, 
+    			CommandSequencer.ADD_COMMANDS);
+    	
+    	if (cmd instanceof AddEntityChildCommand) {
+    		entity.getStartingPosition(position);
     	}
     	
     	return position;
@@ -363,86 +350,53 @@ public abstract class TransformUtils {
      */
     public static double[] getExactPosition(PositionableEntity entity) {
     	
-    	ArrayList<Command> cmdList = (ArrayList<Command>) 
-    		CommandSequencer.getInstance().getFullCommandList(true);
+    	// Segment positions are also affected by moves of their start vertex
+    	VertexEntity startVertex = null;
+    	
+    	if (entity instanceof SegmentEntity) {
+    		startVertex = ((SegmentEntity)entity).getStartVertexEntity();
+    	}
     	
     	double[] position = new double[3];
     	entity.getPosition(position);
     	
-    	// By starting at the end of the list and working backwards
-    	// we are guaranteed to get the last movement command
-    	// issued affecting the entity.
+    	// Get the last movement command issued affecting the entity.
     	
-    	for (int i = (cmdList.size() - 1); i >= 0; i--) {
+    	Command cmd = CommandSequencer.getInstance().getLastEntityCommand(
+    			entity, 
+    			CommandSequencer.POSITION_COMMANDS,
+    			startVertex,
+    			CommandSequencer.VERTEX_POSITION_COMMANDS);
+    	
+    	if (cmd instanceof MoveEntityCommand) {
     		
-    		Command cmd = cmdList.get(i);
+    		((MoveEntityCommand)cmd).getEndPosition(position);
     		
-    		if (cmd instanceof RuleDataAccessor) {
-    			
-    			if (((RuleDataAccessor)cmd).getEntity() == entity) {
-    				
-    				if (cmd instanceof MoveEntityCommand) {
-    				
-    					((MoveEntityCommand)cmd).getEndPosition(position);
-    					break;
-    					
-    				} else if (cmd instanceof MoveEntityTransientCommand) {
-    					
-    					((MoveEntityTransientCommand)cmd).getPosition(
-    							position);
-    					break;
-    					
-    				} else if (cmd instanceof TransitionEntityChildCommand) {
-    					
-    					((TransitionEntityChildCommand)cmd).getEndPosition(
-    							position);
-    					break;
-    					
-    				} else if (cmd instanceof ScaleEntityCommand) {
-    					
-    					((ScaleEntityCommand)cmd).getNewPosition(position);
-    					break;
-    					
-    				} else if (cmd instanceof ScaleEntityTransientCommand) {
-    					
-    					((ScaleEntityTransientCommand)cmd).getPosition(
-    							position);
-    					break;
-    				}
-    				
-    			} else if (entity instanceof SegmentEntity) {
-    				
-    				if (cmd instanceof MoveVertexCommand) {
-    				
-	    				MoveVertexCommand mvVCmd = (MoveVertexCommand) cmd;
-	    				VertexEntity vertex = (VertexEntity) mvVCmd.getEntity();
-    				
-    					if (((SegmentEntity)entity).getStartVertexEntity() == 
-    						vertex) {
-    						
-    						mvVCmd.getPosition(position);
-    						position[1] = 0.0;
-    						break;
-    					}
-    				
-	    			} else if (cmd instanceof MoveVertexTransientCommand) {
-	    				
-	    				MoveVertexTransientCommand mvVCmd = 
-	    					(MoveVertexTransientCommand) cmd;
-	    				VertexEntity vertex = 
-	    					(VertexEntity) mvVCmd.getEntity();
-    				
-    					if (((SegmentEntity)entity).getStartVertexEntity() == 
-    						vertex) {
-    						
-    						mvVCmd.getPosition(position);
-    						position[1] = 0.0;
-    						break;
-    					}
-    					
-	    			}
-    			}
-    		}
+    	} else if (cmd instanceof MoveEntityTransientCommand) {
+    		
+    		((MoveEntityTransientCommand)cmd).getPosition(position);
+    		
+    	} else if (cmd instanceof TransitionEntityChildCommand) {
+    		
+    		((TransitionEntityChildCommand)cmd).getEndPosition(position);
+    		
+    	} else if (cmd instanceof ScaleEntityCommand) {
+    		
+    		((ScaleEntityCommand)cmd).getNewPosition(position);
+    		
+    	} else if (cmd instanceof ScaleEntityTransientCommand) {
+    		
+    		((ScaleEntityTransientCommand)cmd).getPosition(position);
+    		
+    	} else if (cmd instanceof MoveVertexCommand) {
+    		
+    		((MoveVertexCommand)cmd).getPosition(position);
+    		position[1] = 0.0;
+    		
+    	} else if (cmd instanceof MoveVertexTransientCommand) {
+    		
+    		((MoveVertexTransientCommand)cmd).getPosition(position);
+    		position[1] = 0.0;
     	}
     	
     	return position;
@@ -475,33 +429,18 @@ public abstract class TransformUtils {
      */
     public static double[] getExactStartPosition(PositionableEntity pEntity) {
     	
-    	ArrayList<Command> cmdList = (ArrayList<Command>) 
-		CommandSequencer.getInstance().getFullCommandList(true);
-	
 		double[] position = new double[3];
 		pEntity.getStartingPosition(position);
 		
-		// By starting at the end of the list and working backwards
-		// we are guaranteed to get the last movement command
-		// issued affecting the entity.
+		// Get the last command issued setting the start position of the 
+		// entity.
 		
-		for (int i = (cmdList.size() - 1); i >= 0; i--) {
-			
-			Command cmd = cmdList.get(i);
-			
-			if (cmd instanceof RuleDataAccessor) {
-				
-				if (cmd instanceof TransitionEntityChildCommand) {
-					
-					if (((TransitionEntityChildCommand)cmd).getEntity() == 
-						pEntity) {
-					
-						((TransitionEntityChildCommand)cmd).getStartPosition(
-								position);
-						break;
-					}
-				}
-			}
+		Command cmd = CommandSequencer.getInstance().getLastEntityCommand(
+				pEntity, 
+				CommandSequencer.START_POSITION_COMMANDS);
+		
+		if (cmd instanceof TransitionEntityChildCommand) {
+			((TransitionEntityChildCommand)cmd).getStartPosition(position);
 		}
 		
 		return position;
@@ -575,12 +514,23 @@ public abstract class TransformUtils {
     		PositionableEntity entity,
     		boolean exact) {
     	
-    	ArrayList<Matrix4f> matList = new ArrayList<Matrix4f>();
+    	// Entities that are not the subject of any pending command have 
+    	// the committed transform, which is cached by the model
+    	WorldTransformCache transformCache = model.getWorldTransformCache();
+    	Set<Integer> pendingIDs = 
+    		CommandSequencer.getInstance().getCommandEntityIDs();
+    	
+    	// The cumulative transform is accumulated in place, each ancestor
+    	// premultiplying it, so that no list of matrices is required
+    	Matrix4f cumulativeMat = new Matrix4f();
+    	if (transformCache.getTransform(entity, cumulativeMat, pendingIDs)) {
+    		return cumulativeMat;
+    	}
     	
     	// Get the initial parent to begin working from
     	Entity parentEntity;
-    	double[] accumPos = new double[3];
-    	float[] accumRot = new float[4];
+    	double[] accumPos;
+    	float[] accumRot;
     	
     	if (!exact) {
     		parentEntity = SceneHierarchyUtility.getParent(model, entity);
@@ -596,20 +546,31 @@ public abstract class TransformUtils {
     		return null;
     	}
     	
-    	Matrix4f initialMat = new Matrix4f();
-    	initialMat.setIdentity();
-    	Vector3f initialTrans = new Vector3f(
+    	Vector3f trans = new Vector3f();
+    	AxisAngle4f rot = new AxisAngle4f();
+    	
+    	cumulativeMat.setIdentity();
+    	trans.set(
     			(float)accumPos[0],
     			(float)accumPos[1],
     			(float)accumPos[2]);
-    	initialMat.setTranslation(initialTrans);
-    	initialMat.setRotation(new AxisAngle4f(accumRot));
-    	matList.add(initialMat);
+    	cumulativeMat.setTranslation(trans);
+    	rot.set(accumRot);
+    	cumulativeMat.setRotation(rot);
+    	
+    	Matrix4f mat = new Matrix4f();
     	
     	// Begin data accumulation loop
     	while (parentEntity.getType() != Entity.TYPE_CONTENT_ROOT) {
     		
-    		Matrix4f mat = new Matrix4f();
+    		// Once an ancestor with a committed transform is reached,
+    		// its cached transform completes the chain
+    		if (transformCache.getTransform(parentEntity, mat, pendingIDs)) {
+    			
+    			cumulativeMat.mul(mat, cumulativeMat);
+    			break;
+    		}
+    		
     		mat.setIdentity();
     		
     		// If the parentEntity isn't a PositionableEntity then there won't
@@ -625,13 +586,14 @@ public abstract class TransformUtils {
 	        		accumRot = getExactRotation((PositionableEntity)parentEntity);
 	        	}
 	    		
-	    		Vector3f trans = new Vector3f(
+	    		trans.set(
 	        			(float)accumPos[0],
 	        			(float)accumPos[1],
 	        			(float)accumPos[2]);
 	        	mat.setTranslation(trans);
-	        	mat.setRotation(new AxisAngle4f(accumRot));
-	        	matList.add(mat);
+	        	rot.set(accumRot);
+	        	mat.setRotation(rot);
+	        	cumulativeMat.mul(mat, cumulativeMat);
 	    		
     		} else if (parentEntity instanceof SegmentableEntity) {
 
@@ -639,11 +601,11 @@ public abstract class TransformUtils {
     			// Taken from MultisegmentManager
 
     	        // rem: hard coded, relationship between the walls and the floor
-    	        AxisAngle4f rot2 = new AxisAngle4f(1, 0, 0, (float)Math.PI/2);
-    	        ////////////////////////////////////////////////////////////////
+    	        rot.set(1, 0, 0, (float)Math.PI/2);
+    			////////////////////////////////////////////////////////////////
     	        
-    	        mat.setRotation(rot2);
-    	        matList.add(mat);
+    	        mat.setRotation(rot);
+    	        cumulativeMat.mul(mat, cumulativeMat);
     		} 
     		
     		parentEntity = 
@@ -653,15 +615,6 @@ public abstract class TransformUtils {
         		return null;
         	}
     	}
-    	
-    	// Create the cumulative transform based on the transform lists
-    	Matrix4f cumulativeMat = new Matrix4f();
-    	cumulativeMat.setIdentity();
-    	
-    	for (int i = (matList.size() - 1); i >= 0; i--) {
-
-    		cumulativeMat.mul(matList.get(i));
-    	}
     	    	
     	return cumulativeMat;
     }
@@ -1080,35 +1033,19 @@ public abstract class TransformUtils {
      */
     public static float[] getExactRotation(PositionableEntity entity) {
     	
-    	ArrayList<Command> cmdList = (ArrayList<Command>) 
-		CommandSequencer.getInstance().getFullCommandList(true);
-	
 		float[] rotation = new float[4];
 		entity.getRotation(rotation);
 		
-		// By starting at the end of the list and working backwards
-		// we are guaranteed to get the last rotation command
-		// issued affecting the entity.
+		// Get the last rotation command issued affecting the entity.
 		
-		for (int i = (cmdList.size() - 1); i >= 0; i--) {
-			
-			Command cmd = cmdList.get(i);
-			
-			if (cmd instanceof RuleDataAccessor) {
-				
-				if (((RuleDataAccessor) cmd).getEntity() != entity) {
-					continue;
-				}
-				
-				if (cmd instanceof RotateEntityCommand) {
-					((RotateEntityCommand)cmd).getCurrentRotation(rotation);
-					break;
-				} else if (cmd instanceof RotateEntityTransientCommand) {
-					((RotateEntityTransientCommand)cmd).getCurrentRotation(
-							rotation);
-					break;
-				}
-			}
+		Command cmd = CommandSequencer.getInstance().getLastEntityCommand(
+				entity, 
+				CommandSequencer.ROTATION_COMMANDS);
+		
+		if (cmd instanceof RotateEntityCommand) {
+			((RotateEntityCommand)cmd).getCurrentRotation(rotation);
+		} else if (cmd instanceof RotateEntityTransientCommand) {
+			((RotateEntityTransientCommand)cmd).getCurrentRotation(rotation);
 		}
 		
 		return rotation;
@@ -1153,34 +1090,19 @@ public abstract class TransformUtils {
      */
     public static float[] getExactScale(PositionableEntity entity) {
     	
-    	ArrayList<Command> cmdList = (ArrayList<Command>) 
-		CommandSequencer.getInstance().getFullCommandList(true);
-	
 		float[] scale = new float[3];
 		entity.getScale(scale);
 		
-		// By starting at the end of the list and working backwards
-		// we are guaranteed to get the last scale command
-		// issued affecting the entity.
+		// Get the last scale command issued affecting the entity.
 		
-		for (int i = (cmdList.size() - 1); i >= 0; i--) {
-			
-			Command cmd = cmdList.get(i);
-			
-			if (cmd instanceof RuleDataAccessor) {
-				
-				if (((RuleDataAccessor) cmd).getEntity() != entity) {
-					continue;
-				}
-				
-				if (cmd instanceof ScaleEntityCommand) {
-					((ScaleEntityCommand)cmd).getNewScale(scale);
-					break;
-				} else if (cmd instanceof ScaleEntityTransientCommand) {
-					((ScaleEntityTransientCommand)cmd).getScale(scale);
-					break;
-				}
-			}
+		Command cmd = CommandSequencer.getInstance().getLastEntityCommand(
+				entity, 
+				CommandSequencer.SCALE_COMMANDS);
+		
+		if (cmd instanceof ScaleEntityCommand) {
+			((ScaleEntityCommand)cmd).getNewScale(scale);
+		} else if (cmd instanceof ScaleEntityTransientCommand) {
+			((ScaleEntityTransientCommand)cmd).getScale(scale);
 		}
 		
 		return scale;
@@ -21,6 +21,7 @@ import java.util.Map;
 import org.chefx3d.model.MultiplicityConstraint;
 import org.chefx3d.model.Entity;
 import org.chefx3d.model.PositionableEntity;
+import org.chefx3d.rules.properties.accessors.RulePropertyTable;
 
 /**
  * Describes a tool.
@@ -260,13 +261,13 @@ public class SimpleTool
             entityProperties = new HashMap<String, Object>();
         } else {
             entityProperties = 
-                (HashMap<String, Object>)defaultProperties.get(Entity.DEFAULT_ENTITY_PROPERTIES);
+                toHashMap(defaultProperties.get(Entity.DEFAULT_ENTITY_PROPERTIES));
         }
         if (defaultProperties.get(Entity.PROPERTY_VALIDATORS) == null) {
             propertyValidators = new HashMap<String, Object>();
         } else {
             propertyValidators = 
-                (HashMap<String, Object>)defaultProperties.get(Entity.PROPERTY_VALIDATORS);
+                toHashMap(defaultProperties.get(Entity.PROPERTY_VALIDATORS));
         }
        
         entityParams = new HashMap<String, Object>();
@@ -369,7 +370,7 @@ public class SimpleTool
          	userEditableProperties = new HashMap<String, Object>();            
          } else {
          	userEditableProperties = 
-                 (HashMap<String, Object>)defaultProperties.get(editablePropertySheetName);
+                 toHashMap(defaultProperties.get(editablePropertySheetName));
          }
     	 properties.put(Entity.EDITABLE_PROPERTIES, userEditableProperties);
     }
@@ -647,7 +648,8 @@ public class SimpleTool
      }
 
      /**
-      * Set a specific property.
+      * Set a specific property. Changing the default entity properties
+      * discards the resolved rule properties of the tool.
       *
       * @param propSheet The sheet name
       * @param propName The name of the property to set
@@ -662,6 +664,10 @@ public class SimpleTool
 
          if (sheetProperties != null) {
              sheetProperties.put(propName, propValue);
+             
+             if (propSheet.equals(Entity.DEFAULT_ENTITY_PROPERTIES)) {
+                 RulePropertyTable.invalidate(this);
+             }
          }
 
      }
@@ -675,6 +681,20 @@ public class SimpleTool
         return properties;
     }
    
+    /**
+     * Use a property sheet as a HashMap, copying it if it is some other
+     * kind of map, such as the copy-on-write sheet of an entity.
+     * 
+     * @param sheet The sheet
+     * @return The sheet as a HashMap
+     */
+    private static HashMap<String, Object> toHashMap(Map<String, Object> sheet) {
+        if (sheet instanceof HashMap) {
+            return (HashMap<String, Object>)sheet;
+        }
+        return new HashMap<String, Object>(sheet);
+    }
+    
     /**
      * A toString method to pretty print.
      * 
@@ -119,6 +119,9 @@ public class ToolGroup
     /** Tool groups mapped by their name */
     protected HashMap<String, ToolGroup> groupsByIDMap;
 
+    /** The first of the tool children with each name */
+    protected HashMap<String, ToolGroupChild> toolsByNameMap;
+
     /** The parent of this tool */
     protected ToolGroupChild toolParent;
 
@@ -143,6 +146,7 @@ public class ToolGroup
         children = new ArrayList<ToolGroupChild>();
         toolsByIDMap = new HashMap<String, ToolGroupChild>();
         groupsByIDMap = new HashMap<String, ToolGroup>();
+        toolsByNameMap = new HashMap<String, ToolGroupChild>();
         groupChildren = new ArrayList<ToolGroup>();
         toolChildren = new ArrayList<ToolGroupChild>();
      }
@@ -399,14 +403,7 @@ public class ToolGroup
      * @return The matching tool instance or null if not found
      */
     public ToolGroupChild getToolByName(String toolName) {
-        int len = toolChildren.size();
-        for (int i = 0; i < len; i++) {
-            ToolGroupChild tool = toolChildren.get(i);
-            if (tool.getName().equals(toolName)) {
-                return tool;
-            }
-        }
-        return null;
+        return toolsByNameMap.get(toolName);
     }
 
     /**
@@ -467,6 +464,10 @@ public class ToolGroup
             index = toolChildren.indexOf(tool);
             toolChildren.set(index, tool);
 
+            ToolGroupChild old = toolsByIDMap.put(toolID, tool);
+            updateNameMap(old.getName());
+            updateNameMap(tool.getName());
+
             fireToolUpdated(tool);
 
         } else {
@@ -474,12 +475,14 @@ public class ToolGroup
             // append
             children.add(tool);
             toolChildren.add(tool);
+            toolsByIDMap.put(toolID, tool);
+            if (!toolsByNameMap.containsKey(tool.getName()))
+                toolsByNameMap.put(tool.getName(), tool);
+
             fireToolAdded(tool);
 
         }
 
-        toolsByIDMap.put(toolID, tool);
-
     }
 
     /**
@@ -530,7 +533,8 @@ public class ToolGroup
         if(toolsByIDMap.containsKey(toolID)) {
             children.remove(tool);
             toolChildren.remove(tool);
-            toolsByIDMap.remove(toolID);
+            ToolGroupChild old = toolsByIDMap.remove(toolID);
+            updateNameMap(old.getName());
             fireToolRemoved(tool);
             tool.setParent(null);
         }
@@ -762,8 +766,29 @@ public class ToolGroup
                 ToolGroupChild t = kid;
                 toolsByIDMap.put(t.getToolID(), t);
                 toolChildren.add(t);
+                if (!toolsByNameMap.containsKey(t.getName()))
+                    toolsByNameMap.put(t.getName(), t);
+            }
+        }
+    }
+
+    /**
+     * Point a name at the first tool child that has it, after a tool with
+     * the name has been replaced or removed.
+     *
+     * @param toolName The name to update
+     */
+    private void updateNameMap(String toolName) {
+        int len = toolChildren.size();
+        for (int i = 0; i < len; i++) {
+            ToolGroupChild tool = toolChildren.get(i);
+            String name = tool.getName();
+            if (name == null ? toolName == null : name.equals(toolName)) {
+                toolsByNameMap.put(toolName, tool);
+                return;
             }
         }
+        toolsByNameMap.remove(toolName);
     }
 
     /**
@@ -82,6 +82,8 @@ public class ToolSwitch extends ToolGroup {
                 ToolGroupChild t = kid;
                 toolsByIDMap.put(t.getToolID(), t);
                 toolChildren.add(t);
+                if (!toolsByNameMap.containsKey(t.getName()))
+                    toolsByNameMap.put(t.getName(), t);
             }
         }
     }
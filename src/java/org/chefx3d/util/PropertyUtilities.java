@@ -72,114 +72,10 @@ public class PropertyUtilities {
 //System.out.println("    name: " + name);
 //System.out.println("    value: " + value);
        
-            if (value == null) {
-                
-                // TODO: what do we want to do with properties that are null?
-                
-            } else if (value instanceof Integer || 
-                    value instanceof Float ||
-                    value instanceof Double || 
-                    value instanceof Boolean || 
-                    value instanceof Character || 
-                    value instanceof Long || 
-                    value instanceof Short) {
-                
-                clone.put(name, value);
-                
-            } else if (value.getClass().isEnum()) {
-
-                clone.put(name, value);
-                
-            } else if (value instanceof Enum[]){
-            	
-            	Enum[] orig = (Enum[])value;
-            	Enum[] copy = new Enum[orig.length];
-            	for(int i = 0; i < orig.length; i++) {
-            		copy[i] = orig[i];
-            	}
-            	clone.put(name, copy);
-            	
-            } else if (value instanceof Color) {
-
-                Color inColor = (Color)value;               
-                Color newColor = 
-                    new Color(inColor.getRed(), inColor.getGreen(), inColor.getBlue());
-                
-                clone.put(name, newColor);
-
-            } else if (value instanceof float[]) { 
-
-                float[] orig = (float[])value;
-                float[] copy = new float[orig.length];
-                for (int i = 0; i < orig.length; i++) {
-                    copy[i] = orig[i];
-                }
-                clone.put(name, copy);
-
-            } else if (value instanceof double[]) {
-
-                double[] orig = (double[])value;
-                double[] copy = new double[orig.length];
-                for (int i = 0; i < orig.length; i++) {
-                    copy[i] = orig[i];
-                }
-                clone.put(name, copy);  
-                
-            } else if (value instanceof int[]) {
-                
-                int[] orig = (int[])value;
-                int[] copy = new int[orig.length];
-                for (int i = 0; i < orig.length; i++) {
-                    copy[i] = orig[i];
-                }
-                clone.put(name, copy); 
-                
-			} else if (value instanceof boolean[]) {
-                
-                boolean[] orig = (boolean[])value;
-                boolean[] copy = new boolean[orig.length];
-                for (int i = 0; i < orig.length; i++) {
-                    copy[i] = orig[i];
-                }
-                clone.put(name, copy); 
-                
-            } else if (value instanceof String[]) {
-                                
-                String[] orig = (String[])value;
-                String[] copy = new String[orig.length];
-                for (int i = 0; i < orig.length; i++) {
-                    copy[i] = orig[i];
-                }
-                clone.put(name, copy);  
-                                
-            } else if (value instanceof String) {
-                              
-                clone.put(name, new String(value.toString()));  
-                
-            } else if (value instanceof CloneableProperty) {
-                
-                clone.put(name, ((CloneableProperty)value).clone());  
-
-            } else if (value instanceof Document) {
-                
-                clone.put(name, ((Document)value).cloneNode(true));  
-
-            } else if (value instanceof Element) {
-                
-                clone.put(name, ((Element)value).cloneNode(true)); 
-                
-            } else if (value instanceof ArrayList) {
-                
-                clone.put(name, ((ArrayList)value).clone()); 
-                
-            } else if (value instanceof HashMap) {
-                
-                clone.put(name, ((HashMap)value).clone()); 
-
-            } else  {
-                
-                clone.put(name, new String(value.toString()));  
+            Object copy = cloneValue(value);
 
+            if (copy != null) {
+                clone.put(name, copy);
             }
             
         }
@@ -188,4 +84,126 @@ public class PropertyUtilities {
         
     }
     
+    /**
+     * Copy a single property value the way clone() copies the values of
+     * a map.
+     * 
+     * @param value - The value to copy
+     * @return - The copy, null if the value is null
+     */
+    public static Object cloneValue(Object value) {
+        
+        if (value == null) {
+            
+            // TODO: what do we want to do with properties that are null?
+            return null;
+            
+    } else if (value instanceof Integer || 
+                value instanceof Float ||
+                value instanceof Double || 
+                value instanceof Boolean || 
+                value instanceof Character || 
+                value instanceof Long || 
+                value instanceof Short) {
+            
+            return value;
+            
+        } else if (value.getClass().isEnum()) {
+
+            return value;
+            
+        } else if (value instanceof Enum[]){
+        	
+        	Enum[] orig = (Enum[])value;
+        	Enum[] copy = new Enum[orig.length];
+        	for(int i = 0; i < orig.length; i++) {
+        		copy[i] = orig[i];
+        	}
+        	return copy;
+        	
+        } else if (value instanceof Color) {
+
+            Color inColor = (Color)value;               
+            Color newColor = 
+                new Color(inColor.getRed(), inColor.getGreen(), inColor.getBlue());
+            
+            return newColor;
+
+        } else if (value instanceof float[]) { 
+
+            float[] orig = (float[])value;
+            float[] copy = new float[orig.length];
+            for (int i = 0; i < orig.length; i++) {
+                copy[i] = orig[i];
+            }
+            return copy;
+
+        } else if (value instanceof double[]) {
+
+            double[] orig = (double[])value;
+            double[] copy = new double[orig.length];
+            for (int i = 0; i < orig.length; i++) {
+                copy[i] = orig[i];
+            }
+            return copy;  
+            
+        } else if (value instanceof int[]) {
+            
+            int[] orig = (int[])value;
+            int[] copy = new int[orig.length];
+            for (int i = 0; i < orig.length; i++) {
+                copy[i] = orig[i];
+            }
+            return copy; 
+            
+			} else if (value instanceof boolean[]) {
+            
+            boolean[] orig = (boolean[])value;
+            boolean[] copy = new boolean[orig.length];
+            for (int i = 0; i < orig.length; i++) {
+                copy[i] = orig[i];
+            }
+            return copy; 
+            
+        } else if (value instanceof String[]) {
+                            
+            String[] orig = (String[])value;
+            String[] copy = new String[orig.length];
+            for (int i = 0; i < orig.length; i++) {
+                copy[i] = orig[i];
+            }
+            return copy;  
+                            
+        } else if (value instanceof String) {
+                          
+            return new String(value.toString());  
+            
+        } else if (value instanceof CloneableProperty) {
+            
+            return ((CloneableProperty)value).clone();  
+
+        } else if (value instanceof Document) {
+            
+            return ((Document)value).cloneNode(true);  
+
+        } else if (value instanceof Element) {
+            
+            return ((Element)value).cloneNode(true); 
+            
+        } else if (value instanceof ArrayList) {
+            
+            return ((ArrayList)value).clone(); 
+            
+        } else if (value instanceof HashMap) {
+            
+            return ((HashMap)value).clone(); 
+
+        } else  {
+            
+            return new String(value.toString());  
+
+        }
+        
+    }
+    
 }
@@ -107,6 +107,15 @@ class AV3DEntityManager
 	/** Flag indicating that entities have been added or removed */
 	private boolean hierarchyHasChanged;
 	
+	/** World space spatial index of the wrappers */
+	private EntityBoundsIndex boundsIndex;
+	
+	/** The lowest priority of the model loads of this manager */
+	private int loadPriority;
+	
+	/** The zone being edited, null if not known */
+	private Entity activeZone;
+	
     /**
      * Constructor
      *
@@ -137,6 +146,7 @@ class AV3DEntityManager
             reporter : DefaultErrorReporter.getDefaultReporter();
 
         shadowEntityEnabled = true;
+        loadPriority = AV3DLoader.PRIORITY_NORMAL;
 
         this.rootEntity.addEntityChildListener(this);
         
@@ -161,6 +171,8 @@ class AV3DEntityManager
         
         wrapperList = new ArrayList<AV3DEntityWrapper>();
         
+        boundsIndex = new EntityBoundsIndex();
+        
         // visible vertices in debug mode
         debug = (Boolean)ApplicationParams.get(ApplicationParams.DEBUG_MODE);
 
@@ -298,6 +310,7 @@ class AV3DEntityManager
 				
                 av3dWrapperMap.remove(wrapper.entity.getEntityID());
                 entityWrapperMap.remove(wrapper.entity.getEntityID());
+                boundsIndex.remove(wrapper);
                 wrapper.dispose();
             }
             wrapperList.clear();
@@ -373,6 +386,7 @@ class AV3DEntityManager
             
             entityToAddList.add(wrapper.sharedNode);
             av3dWrapperMap.put(entityID, wrapper);
+            boundsIndex.add(wrapper);
 			entityWrapperMap.put(entityID, wrapper);
 			
 			mgmtObserver.requestBoundsUpdate(rootGroup, this);
@@ -401,6 +415,7 @@ class AV3DEntityManager
             }
 
             av3dWrapperMap.put(entityID, wrapper);
+            boundsIndex.add(wrapper);
 			entityWrapperMap.put(entityID, wrapper);
             segmentWrapperMap.put(entityID, wrapper);
 
@@ -423,6 +438,7 @@ class AV3DEntityManager
                 entityToAddList.add(wrapper.sharedNode);
 
                 av3dWrapperMap.put(entityID, wrapper);
+                boundsIndex.add(wrapper);
 				entityWrapperMap.put(entityID, wrapper);
                     
                 mgmtObserver.requestBoundsUpdate(rootGroup, this);
@@ -440,6 +456,7 @@ class AV3DEntityManager
             	wrapper.transformGroup.setUserData(entity);
             	
             	av3dWrapperMap.put(entityID, wrapper);
+            	boundsIndex.add(wrapper);
 				entityWrapperMap.put(entityID, wrapper);
             	
             	AV3DEntityWrapper parentWrapper = (AV3DEntityWrapper)
@@ -461,6 +478,7 @@ class AV3DEntityManager
                 wrapper.transformGroup.setUserData(entity);
                 
                 av3dWrapperMap.put(entityID, wrapper);
+                boundsIndex.add(wrapper);
 				entityWrapperMap.put(entityID, wrapper);
 
                 entity.addEntityChildListener(this);
@@ -486,14 +504,7 @@ class AV3DEntityManager
 
             AV3DEntityWrapper wrapper = null;
 
-			boolean isShadow = false;
-			Object isShadowProp = entity.getProperty(
-				entity.getParamSheetName(),
-				Entity.SHADOW_ENTITY_FLAG);
-
-			if ((isShadowProp != null) && (isShadowProp instanceof Boolean)) {
-				isShadow = ((Boolean)isShadowProp).booleanValue();
-			}
+			boolean isShadow = isShadow(entity);
 			
 			boolean isExtrusion = false;
 			Object isExtrusionProp = entity.getProperty(
@@ -532,12 +543,15 @@ class AV3DEntityManager
             }
 
             if (wrapper != null) {
+				wrapper.setLoadPriority(getLoadPriority(entity));
+				
 				if (isShadow) {
 					wrapper.transformGroup.setUserData("Shadow");
 				} else {
 					wrapper.transformGroup.setUserData(entity);
 				}
                 av3dWrapperMap.put(entityID, wrapper);
+                boundsIndex.add(wrapper);
 				entityWrapperMap.put(entityID, wrapper);
 
                 entity.addEntityChildListener(this);
@@ -591,6 +605,7 @@ class AV3DEntityManager
         av3dWrapperMap.clear();
         entityWrapperMap.clear();
         segmentWrapperMap.clear();
+        boundsIndex.clear();
     }
 
     /**
@@ -611,6 +626,15 @@ class AV3DEntityManager
         return(av3dWrapperMap);
     }
 
+    /**
+     * Return the spatial index of the wrappers
+     *
+     * @return The spatial index of the wrappers
+     */
+    EntityBoundsIndex getEntityBoundsIndex() {
+        return(boundsIndex);
+    }
+
     /**
      * Return the segment entity wrapper map
      *
@@ -664,6 +688,31 @@ class AV3DEntityManager
     void setShadowEntityEnabled(boolean state) {
         shadowEntityEnabled = state;
     }
+
+    /**
+     * Set the priority of the model loads of this manager. Managers of
+     * views that only make previews and thumbnails use
+     * AV3DLoader.PRIORITY_LOW, so they don't hold up the editor.
+     *
+     * @param priority One of the AV3DLoader PRIORITY constants
+     */
+    void setLoadPriority(int priority) {
+        loadPriority = priority;
+        updateLoadPriorities(false);
+    }
+
+    /**
+     * Set the zone being edited. Pending model loads of entities in
+     * other zones are moved to the back of the queue, and those of
+     * shadow entities in other zones are cancelled, as they belong to
+     * an edit that has been left.
+     *
+     * @param zone The active zone, or null if not known
+     */
+    void setActiveZoneEntity(Entity zone) {
+        activeZone = zone;
+        updateLoadPriorities(true);
+    }
     
 	/**
 	 * Return whether the scene has changed as a result of entities 
@@ -680,6 +729,94 @@ class AV3DEntityManager
 		}
 	}
 	
+    /**
+     * Reassign the priority of the pending model loads.
+     *
+     * @param cancelShadows true to cancel the loads of shadow entities
+     * outside of the active zone
+     */
+    private void updateLoadPriorities(boolean cancelShadows) {
+
+        for (Iterator<AV3DEntityWrapper> i = av3dWrapperMap.values().iterator();
+            i.hasNext();) {
+
+            AV3DEntityWrapper wrapper = i.next();
+            if (wrapper.loadRequest == null) {
+                continue;
+            }
+
+            if (cancelShadows &&
+                isShadow(wrapper.entity) &&
+                !isInActiveZone(wrapper.entity)) {
+
+                wrapper.cancelLoad();
+            } else {
+                wrapper.setLoadPriority(getLoadPriority(wrapper.entity));
+            }
+        }
+    }
+
+    /**
+     * Get the priority to load the model of an entity with. Selected
+     * entities come first and entities outside of the active zone last.
+     *
+     * @param entity The entity
+     * @return One of the AV3DLoader PRIORITY constants
+     */
+    private int getLoadPriority(Entity entity) {
+
+        if (loadPriority == AV3DLoader.PRIORITY_LOW) {
+            return AV3DLoader.PRIORITY_LOW;
+        }
+        if (entity.isSelected()) {
+            return AV3DLoader.PRIORITY_HIGH;
+        }
+        if (!isInActiveZone(entity)) {
+            return AV3DLoader.PRIORITY_LOW;
+        }
+        return loadPriority;
+    }
+
+    /**
+     * Check whether an entity is in the active zone.
+     *
+     * @param entity The entity
+     * @return true if the entity is in the active zone, or the active
+     * zone is not known
+     */
+    private boolean isInActiveZone(Entity entity) {
+
+        if (activeZone == null) {
+            return true;
+        }
+
+        int zoneID = activeZone.getEntityID();
+        while (entity != null) {
+            if (entity.getEntityID() == zoneID) {
+                return true;
+            }
+            int parentID = entity.getParentEntityID();
+            entity = (parentID < 0) ? null : model.getEntity(parentID);
+        }
+        return false;
+    }
+
+    /**
+     * Check whether an entity is the shadow of an entity being edited.
+     *
+     * @param entity The entity
+     * @return true if the entity is a shadow
+     */
+    private boolean isShadow(Entity entity) {
+
+        Object isShadowProp = entity.getProperty(
+            entity.getParamSheetName(),
+            Entity.SHADOW_ENTITY_FLAG);
+
+        return (isShadowProp instanceof Boolean) &&
+            ((Boolean)isShadowProp).booleanValue();
+    }
+
     /**
      * Walk through the children of the argument entity,
      * adding scene graph elements as necessary.
@@ -30,8 +30,9 @@ import org.j3d.geom.GeometryData;
 // Local imports
 import org.chefx3d.model.Entity;
 import org.chefx3d.model.EntityProperty;
-import org.chefx3d.model.EntityPropertyListener;
+import org.chefx3d.model.KeyedEntityPropertyListener;
 import org.chefx3d.model.PositionableEntity;
+import org.chefx3d.model.PropertyKey;
 import org.chefx3d.model.VertexEntity;
 
 import org.chefx3d.rules.properties.ChefX3DRuleProperties;
@@ -56,7 +57,7 @@ import org.chefx3d.view.boundingbox.OrientedBoundingBox;
 class AV3DEntityWrapper implements
 	EntityWrapper,
 	NodeUpdateListener,
-	EntityPropertyListener {
+	KeyedEntityPropertyListener {
 	
 	/** Index in the switch for no content */
 	public static final int CONTENT_NONE = -1;
@@ -70,6 +71,10 @@ class AV3DEntityWrapper implements
 	/** Index in the switch for model facade */
 	public static final int CONTENT_FACADE = 2;
 	
+	/** The key of the vertex height property */
+	private static final PropertyKey HEIGHT_KEY = 
+		PropertyKey.get(Entity.EDITABLE_PROPERTIES, VertexEntity.HEIGHT_PROP);
+	
 	/** The default bounds geometry color */
 	protected static final float[] DEFAULT_BOUNDS_COLOR = new float[]{0, 0, 1};
 	
@@ -174,6 +179,9 @@ class AV3DEntityWrapper implements
 	/** The enable state of this wrapper. Used to enable intersection testing */
 	protected boolean enabled;
 	
+	/** The pending request for the model, when it is loaded in the background */
+	protected LoadRequest loadRequest;
+	
 	/**
 	 * Constructor
 	 *
@@ -328,6 +336,9 @@ class AV3DEntityWrapper implements
                     AV3DEntityWrapper wrapper = entityToAddList.get(i);
                     Node node = wrapper.sharedNode;
 					transformGroup.addChild(node);
+					
+					// the child is now placed by this transform
+					wrapper.fireTransformChanged();
 				}
 				entityToAddList.clear();
 			}
@@ -337,6 +348,9 @@ class AV3DEntityWrapper implements
 				configModelMatrix();
 				transformModel.setTransform(modelMatrix);
 				changeModelMatrix = false;
+				
+				// the bounds scale has been updated
+				fireTransformChanged();
 			}
 		} else if (src == switchGroup) {
 			if (index != switchGroup.getActiveChild()) {
@@ -388,18 +402,29 @@ class AV3DEntityWrapper implements
 		String propertyName,
 		boolean ongoing) {
 		
-		if (propertySheet.equals(PositionableEntity.DEFAULT_ENTITY_PROPERTIES)) {
-			if (propertyName.equals(PositionableEntity.POSITION_PROP) ||
-				propertyName.equals(PositionableEntity.ROTATION_PROP) ||
-				propertyName.equals(PositionableEntity.SCALE_PROP)) {
-				
+		propertyUpdated(
+			entityID, 
+			PropertyKey.get(propertySheet, propertyName), 
+			ongoing);
+	}
+	
+	//----------------------------------------------------------
+	// Methods for KeyedEntityPropertyListener
+	//----------------------------------------------------------
+	
+	public void propertyUpdated(int entityID, PropertyKey key, boolean ongoing) {
+		
+		switch (key.getID()) {
+		case PropertyKey.POSITION_ID:
+		case PropertyKey.ROTATION_ID:
+		case PropertyKey.SCALE_ID:
+			updateTransform();
+			break;
+			
+		default:
+			if (key == HEIGHT_KEY) {
 				updateTransform();
 			}
-		} else if (propertySheet.equals(Entity.EDITABLE_PROPERTIES)) {
-			if (propertyName.equals(VertexEntity.HEIGHT_PROP)) {
-				
-				updateTransform();
-			}		    
 		}
 	}
 	
@@ -459,6 +484,28 @@ class AV3DEntityWrapper implements
 		////////////////////////////////////////////////////
 	}
 	
+	/**
+	 * Change the priority of the background load of the model. Has no
+	 * effect once the load has started.
+	 *
+	 * @param priority One of the AV3DLoader PRIORITY constants
+	 */
+	void setLoadPriority(int priority) {
+		if ((loadRequest != null) && !loadRequest.isDone()) {
+			loadRequest.setPriority(priority);
+		}
+	}
+	
+	/**
+	 * Cancel the background load of the model, if it is still pending.
+	 */
+	void cancelLoad() {
+		if (loadRequest != null) {
+			loadRequest.cancel();
+			loadRequest = null;
+		}
+	}
+	
 	/**
 	 * Set the active SwitchGroup
 	 *
@@ -522,6 +569,20 @@ class AV3DEntityWrapper implements
 		
 		mgmtObserver.requestBoundsUpdate(transformGroup, this);
 		mgmtObserver.requestBoundsUpdate(transformModel, this);
+		
+		fireTransformChanged();
+	}
+	
+	/**
+	 * Notify the status listeners that the transform has changed
+	 */
+	protected void fireTransformChanged() {
+		if (statusListeners != null) {
+			for (int i = 0; i < statusListeners.size(); i++) {
+				WrapperListener wl = statusListeners.get(i);
+				wl.transformChanged(this);
+			}
+		}
 	}
 	
 	/**
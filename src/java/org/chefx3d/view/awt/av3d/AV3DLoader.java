@@ -17,12 +17,15 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 
-import java.lang.ref.SoftReference;
-	
 import java.net.MalformedURLException;
 
 import java.util.*;
 
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import org.ietf.uri.URL;
 
 import org.j3d.aviatrix3d.Node;
@@ -43,6 +46,23 @@ import org.chefx3d.util.ErrorReporter;
  */
 public class AV3DLoader {
 
+    /** Load priority of visible or selected entities in the active zone */
+    public static final int PRIORITY_HIGH = 0;
+
+    /** Load priority used when none is given */
+    public static final int PRIORITY_NORMAL = 1;
+
+    /** Load priority of thumbnails and entities in hidden zones */
+    public static final int PRIORITY_LOW = 2;
+
+    /** System property setting the number of loader threads */
+    public static final String THREAD_COUNT_PROPERTY =
+        "chefx3d.av3d.loaderThreads";
+
+    /** The number of loader threads when the property is not set */
+    private static final int DEFAULT_THREAD_COUNT =
+        Math.max(2, Runtime.getRuntime().availableProcessors());
+
     /** Warning message aviatrix node cannot be loaded */
     private static final String CANNOT_LOAD_NODE_MSG =
         "org.chefx3d.view.awt.av3d.AV3DLoader.cannotLoadNodeMsg";
@@ -71,13 +91,16 @@ public class AV3DLoader {
     protected URLFilter urlFilter;
 
     /** Cache for loaded urls */
-	private static HashMap<String, SoftReference<Node[]>> cache;
+    private static ModelCache modelCache;
+
+    /** The queued or running load of each url, also the lock for loads */
+    private static HashMap<String, LoadTask> urlLoads;
 
-    /** Which urls are being loaded */
-    private static Set<String> inProgress;
+    /** The threads that run the loads, highest priority first */
+    private static ThreadPoolExecutor loadExecutor;
 
-    /** Listeners to notify when url is loaded */
-    private static Map<String, List<LoadListener>> urlListeners;
+    /** Sequence number of the next load, keeps equal priorities in order */
+    private static long loadSequence;
 
 	/** The GLInfo instance */
 	private static GLInfo gl_info;
@@ -86,9 +109,202 @@ public class AV3DLoader {
     private LoadingProgressListener progressListener;
 
     static {
-		cache = new HashMap<String, SoftReference<Node[]>>();
-        inProgress = Collections.synchronizedSet(new HashSet<String>());
-        urlListeners = Collections.synchronizedMap(new HashMap<String, List<LoadListener>>());
+        modelCache = ModelCache.getInstance();
+        urlLoads = new HashMap<String, LoadTask>();
+
+        int threads = DEFAULT_THREAD_COUNT;
+        String prop = System.getProperty(THREAD_COUNT_PROPERTY);
+        if (prop != null) {
+            try {
+                threads = Math.max(1, Integer.parseInt(prop));
+            } catch (NumberFormatException nfe) {
+                // keep the default
+            }
+        }
+
+        loadExecutor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            30,
+            TimeUnit.SECONDS,
+            new PriorityBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                private int count;
+
+                public synchronized Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "AV3DLoader-" + (count++));
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+    }
+
+    /**
+     * A queued model load, shared by every request for the same url.
+     * Ordered by priority and then by the order the loads were queued.
+     * The load is made by the loader of the first request, with the url
+     * filter it had when the load was queued.
+     */
+    static class LoadTask implements Runnable, Comparable<LoadTask> {
+
+        /** The loader that makes the load */
+        private AV3DLoader loader;
+
+        /** The filter to use for url requests, may be null */
+        private URLFilter urlFilter;
+
+        /** The url to load, or null for a file */
+        private String urlString;
+
+        /** The file to load, or null for a url */
+        private File file;
+
+        /** Is a shared copy ok? */
+        private boolean shared;
+
+        /** The priority, only changed while not in the queue */
+        private int priority;
+
+        /** The order the load was queued in */
+        private long sequence;
+
+        /** The requests waiting on the load */
+        private ArrayList<LoadRequest> requests;
+
+        /** Has the load started running */
+        private boolean started;
+
+        /**
+         * Constructor
+         *
+         * @param loader The loader that makes the load
+         * @param urlFilter The filter to use for url requests, may be null
+         * @param urlString The url to load, or null for a file
+         * @param file The file to load, or null for a url
+         * @param shared Is a shared copy ok?
+         * @param priority The priority of the load
+         */
+        LoadTask(
+                AV3DLoader loader,
+                URLFilter urlFilter,
+                String urlString,
+                File file,
+                boolean shared,
+                int priority) {
+
+            this.loader = loader;
+            this.urlFilter = urlFilter;
+            this.urlString = urlString;
+            this.file = file;
+            this.shared = shared;
+            this.priority = priority;
+
+            sequence = loadSequence++;
+            requests = new ArrayList<LoadRequest>(1);
+        }
+
+        //----------------------------------------------------------
+        // Methods defined by Runnable
+        //----------------------------------------------------------
+
+        public void run() {
+
+            synchronized(urlLoads) {
+                if (!hasActiveRequest()) {
+                    // cancelled while being handed to a thread
+                    if (urlString != null) {
+                        urlLoads.remove(urlString);
+                    }
+                    return;
+                }
+                started = true;
+            }
+
+            Node[] nodes = null;
+            try {
+                if (file != null) {
+                    nodes = loader.load(file, shared, urlFilter);
+                } else {
+                    nodes = loader.load(urlString, shared, urlFilter);
+                }
+            } finally {
+
+                LoadRequest[] list;
+                synchronized(urlLoads) {
+                    if (urlString != null) {
+                        urlLoads.remove(urlString);
+                    }
+                    list = new LoadRequest[requests.size()];
+                    requests.toArray(list);
+                }
+
+                for (int i = 0; i < list.length; i++) {
+                    LoadRequest request = list[i];
+                    if (!request.cancelled) {
+                        request.done = true;
+                        request.listener.modelLoaded(nodes);
+                    }
+                }
+            }
+        }
+
+        //----------------------------------------------------------
+        // Methods defined by Comparable
+        //----------------------------------------------------------
+
+        public int compareTo(LoadTask task) {
+            if (priority != task.priority) {
+                return (priority < task.priority) ? -1 : 1;
+            }
+            if (sequence != task.sequence) {
+                return (sequence < task.sequence) ? -1 : 1;
+            }
+            return 0;
+        }
+
+        //----------------------------------------------------------
+        // Local Methods
+        //----------------------------------------------------------
+
+        /**
+         * Check if any request still wants the model. Must be called
+         * holding the urlLoads lock.
+         *
+         * @return true if a request has not been cancelled
+         */
+        private boolean hasActiveRequest() {
+            for (int i = 0; i < requests.size(); i++) {
+                if (!requests.get(i).cancelled) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Set the priority to the highest of the active requests, moving
+         * the load in the queue if it changes. Must be called holding the
+         * urlLoads lock.
+         */
+        private void updatePriority() {
+
+            if (started) {
+                return;
+            }
+
+            int best = Integer.MAX_VALUE;
+            for (int i = 0; i < requests.size(); i++) {
+                LoadRequest request = requests.get(i);
+                if (!request.cancelled && request.priority < best) {
+                    best = request.priority;
+                }
+            }
+
+            if (best != priority && loadExecutor.remove(this)) {
+                priority = best;
+                loadExecutor.execute(this);
+            }
+        }
     }
 
     /**
@@ -158,80 +374,147 @@ public class AV3DLoader {
 	}
 		
     /**
-     * Return the aviatrix representation of the specified
-     * X3D file. If the file could not be loaded, null is
-     * returned.  The content will be
+     * Set the number of threads used to load models in the background.
+     * The default is the number of processors, at least two, unless the
+     * chefx3d.av3d.loaderThreads system property is set.
+     *
+     * @param threads The number of loader threads
+     */
+    public static void setLoaderThreadCount(int threads) {
+
+        threads = Math.max(1, threads);
+
+        synchronized(urlLoads) {
+            if (threads > loadExecutor.getMaximumPoolSize()) {
+                loadExecutor.setMaximumPoolSize(threads);
+                loadExecutor.setCorePoolSize(threads);
+            } else {
+                loadExecutor.setCorePoolSize(threads);
+                loadExecutor.setMaximumPoolSize(threads);
+            }
+        }
+    }
+
+    /**
+     * Get the number of threads used to load models in the background.
+     *
+     * @return The number of loader threads
+     */
+    public static int getLoaderThreadCount() {
+        return loadExecutor.getMaximumPoolSize();
+    }
+
+    /**
+     * Queue the aviatrix representation of the specified X3D file to
+     * be loaded at normal priority. If the file could not be loaded, the
+     * listener is passed null.
      *
      * @param urlString The url of the file to load
      * @param shared Is a shared copy ok?
      * @param listener The listener to notify when done
+     * @return The handle on the request, or null if there is no url
      */
-    public void loadThreaded(
-            final String urlString,
-            final boolean shared,
-            final LoadListener listener) {
+    public LoadRequest loadThreaded(
+            String urlString,
+            boolean shared,
+            LoadListener listener) {
 
-        if (urlString == null)
-            return;
+        return loadThreaded(urlString, shared, listener, PRIORITY_NORMAL);
+    }
 
-        if(!inProgress.contains(urlString)) {
-            if (urlListeners.get(urlString) == null) {
-                ArrayList<LoadListener> list = new ArrayList<LoadListener>();
-                list.add(listener);
+    /**
+     * Queue the aviatrix representation of the specified X3D file to
+     * be loaded. If the file could not be loaded, the listener is passed
+     * null. Requests for a url that is already queued share its load,
+     * which is moved up the queue if the new request has a higher
+     * priority.
+     *
+     * @param urlString The url of the file to load
+     * @param shared Is a shared copy ok?
+     * @param listener The listener to notify when done
+     * @param priority One of the PRIORITY constants
+     * @return The handle on the request, or null if there is no url
+     */
+    public LoadRequest loadThreaded(
+            String urlString,
+            boolean shared,
+            LoadListener listener,
+            int priority) {
 
-                urlListeners.put(urlString, list);
-                inProgress.add(urlString);
-            }
-        } else {
-            List<LoadListener> list = urlListeners.get(urlString);
-            list.add(listener);
+        if (urlString == null)
+            return null;
 
-            return;
-        }
+        LoadRequest request = new LoadRequest(this, listener, priority);
 
-        Thread t = new Thread() {
-            public void run() {
-                                               
-                Node[] nodes = load(urlString, shared);
+        synchronized(urlLoads) {
+            LoadTask task = urlLoads.get(urlString);
+            if (task != null) {
+                request.task = task;
+                task.requests.add(request);
+                task.updatePriority();
 
-                inProgress.remove(urlString);
+                return request;
+            }
 
-                List<LoadListener> list = urlListeners.get(urlString);
-                urlListeners.remove(urlString);
+            task = new LoadTask(
+                this, urlFilter, urlString, null, shared, priority);
+            request.task = task;
+            task.requests.add(request);
 
-                Iterator<LoadListener> itr = list.iterator();
+            urlLoads.put(urlString, task);
+            loadExecutor.execute(task);
+        }
 
-                while(itr.hasNext()) {
-                    LoadListener listener = itr.next();
-                    listener.modelLoaded(nodes);
-                }
+        return request;
+    }
 
-            }            
-        };
+    /**
+     * Queue the aviatrix representation of the specified X3D file to
+     * be loaded at normal priority. If the file could not be loaded, the
+     * listener is passed null.
+     *
+     * @param file The file to load
+     * @param shared Is a shared copy ok?
+     * @param listener The listener to notify when done
+     * @return The handle on the request
+     */
+    public LoadRequest loadThreaded(
+            File file,
+            boolean shared,
+            LoadListener listener) {
 
-        t.start();
+        return loadThreaded(file, shared, listener, PRIORITY_NORMAL);
     }
 
     /**
-     * Return the aviatrix representation of the specified
-     * X3D file. If the file could not be loaded, null is
-     * returned.  The content will be
+     * Queue the aviatrix representation of the specified X3D file to
+     * be loaded. If the file could not be loaded, the listener is passed
+     * null.
      *
      * @param file The file to load
      * @param shared Is a shared copy ok?
      * @param listener The listener to notify when done
+     * @param priority One of the PRIORITY constants
+     * @return The handle on the request
      */
-    public void loadThreaded(final File file, final boolean shared,
-        final LoadListener listener) {
+    public LoadRequest loadThreaded(
+            File file,
+            boolean shared,
+            LoadListener listener,
+            int priority) {
 
-        Thread t = new Thread() {
-            public void run() {
-                Node[] nodes = load(file, shared);
-                listener.modelLoaded(nodes);
-            }
-        };
+        LoadRequest request = new LoadRequest(this, listener, priority);
+
+        synchronized(urlLoads) {
+            LoadTask task = new LoadTask(
+                this, urlFilter, null, file, shared, priority);
+            request.task = task;
+            task.requests.add(request);
+
+            loadExecutor.execute(task);
+        }
 
-        t.start();
+        return request;
     }
 
     /**
@@ -246,55 +529,57 @@ public class AV3DLoader {
     public Node[] load(
             String urlString,
             boolean shared) {
-//System.out.println("load: "+ urlString +": "+ shared);
-        Node[] av3d = null;
-        if (urlString != null) {
-            if (shared) {
-				SoftReference<Node[]> sr = cache.get(urlString);
-				if (sr != null) {
-					Node[] ret_val = sr.get();
-					if (ret_val != null) {
-//System.out.println("cache hit: "+ urlString);
-						return(ret_val);
-					} else {
-//System.out.println("cache hit: "+ urlString +": EMPTY");
-						cache.remove(urlString);
-					}
-				} else {
-//System.out.println("cache miss: "+ urlString);
-				}
-            }
 
-            XNodeLoader xl = new XNodeLoader(progressListener, errorReporter);
-            XNode scene = xl.load(urlString);
-            ///////////////////////////////////////////////////
-            if (DEBUG) {
-                XNode.print(scene);
-            }
-            ///////////////////////////////////////////////////
-            if (scene != null) {
-                String loadedURL = xl.getLoadedURL();
-                factory.setBaseURL(getBaseURL(loadedURL));
-                factory.setURLFilter(urlFilter, loadedURL);
-                av3d = marshal(scene);
-            }
-            // if (scene == null), presume that an error message has been
-            // generated already from the xnode loader or content handler
-        } else {
+        return(load(urlString, shared, urlFilter));
+    }
+
+    /**
+     * Return the aviatrix representation of the specified
+     * X3D file. If the file could not be loaded, null is
+     * returned.
+     *
+     * @param urlString The url of the file to load
+     * @param shared Is a shared copy ok?
+     * @param filter The filter to use for url requests, may be null
+     * @return The aviatrix representation
+     */
+    private Node[] load(
+            String urlString,
+            boolean shared,
+            URLFilter filter) {
+
+        if (urlString == null) {
             String msg = i18n_mgr.getString(CANNOT_LOAD_FILE_MSG) +
                 ": "+ urlString;
             errorReporter.warningReport(msg, null);
+            return(null);
         }
 
-        if ((av3d != null) && shared) {
-            SharedGroup snode = new SharedGroup();
+        if (!shared) {
+            return(loadScene(urlString, null, filter));
+        }
 
-            for (int i=0; i < av3d.length; i++) {
-                snode.addChild(av3d[i]);
-            }
+        Node[] av3d = modelCache.beginLoad(urlString);
+        if (av3d == ModelCache.LOAD_CANCELLED) {
+            return(null);
+        } else if (av3d != null) {
+            return(av3d);
+        }
+
+        try {
+            av3d = loadScene(urlString, null, filter);
+
+            if (av3d != null) {
+                SharedGroup snode = new SharedGroup();
+
+                for (int i=0; i < av3d.length; i++) {
+                    snode.addChild(av3d[i]);
+                }
 
-            av3d = new Node[] {snode};
-            cache.put(urlString, new SoftReference<Node[]>(av3d));
+                av3d = new Node[] {snode};
+            }
+        } finally {
+            modelCache.endLoad(urlString, av3d);
         }
 
         return(av3d);
@@ -310,48 +595,163 @@ public class AV3DLoader {
      * @return The aviatrix representation
      */
     public Node[] load(File file, boolean shared) {
+        return(load(file, shared, urlFilter));
+    }
 
-        Node[] av3d = null;
-        if (file != null) {
-			if (shared) {
-				String f_name = file.toString();
-				SoftReference<Node[]> sr = cache.get(f_name);
-				if (sr != null) {
-					Node[] ret_val = sr.get();
-					if (ret_val != null) {
-						return(ret_val);
-					} else {
-						cache.remove(f_name);
-					}
-				}
-			}
-
-            XNodeLoader xl = new XNodeLoader(progressListener, errorReporter);
-            XNode scene = xl.load(file);
-            ///////////////////////////////////////////////////
-            if (DEBUG) {
-                XNode.print(scene);
-            }
-            ///////////////////////////////////////////////////
-            if (scene != null) {
-                String loadedURL = xl.getLoadedURL();
-                factory.setBaseURL(getBaseURL(loadedURL));
-                factory.setURLFilter(urlFilter, loadedURL);
-                av3d = marshal(scene);
-            }
-            // if (scene == null), presume that an error message has been
-            // generated already from the xnode loader or content handler
-        } else {
+    /**
+     * Return the aviatrix representation of the specified
+     * X3D file. If the file could not be loaded, null is
+     * returned.
+     *
+     * @param file The file to load
+     * @param shared Is a shared copy ok?
+     * @param filter The filter to use for url requests, may be null
+     * @return The aviatrix representation
+     */
+    private Node[] load(File file, boolean shared, URLFilter filter) {
+
+        if (file == null) {
             String msg = i18n_mgr.getString(CANNOT_LOAD_FILE_MSG) +
                 ": "+ file;
             errorReporter.errorReport(msg, null);
+            return(null);
         }
 
-        if ((av3d != null) && shared) {
-            String f_name = file.toString();
-            cache.put(f_name, new SoftReference<Node[]>(av3d));
+        if (!shared) {
+            return(loadScene(null, file, filter));
+        }
+
+        String f_name = file.toString();
+
+        Node[] av3d = modelCache.beginLoad(f_name);
+        if (av3d == ModelCache.LOAD_CANCELLED) {
+            return(null);
+        } else if (av3d != null) {
+            return(av3d);
         }
 
+        try {
+            av3d = loadScene(null, file, filter);
+        } finally {
+            modelCache.endLoad(f_name, av3d);
+        }
+
+        return(av3d);
+    }
+
+    /**
+     * Set whether the face sets of a model are tessellated in parallel.
+     * On by default unless the chefx3d.av3d.parallelTessellation system
+     * property is false.
+     *
+     * @param enable true to tessellate in parallel
+     */
+    public static void setParallelTessellation(boolean enable) {
+        GeometryFactory.setParallelTessellation(enable);
+    }
+
+    /**
+     * Set the weight limit of the remembered tessellation results, so that
+     * geometry shared between models is only tessellated once. The weight
+     * is the estimated bytes of the input and output arrays held. 0 turns
+     * the memo off.
+     *
+     * @param bytes The weight limit in bytes
+     */
+    public static void setTessellationMemoWeight(long bytes) {
+        GeometryUtils.setMemoWeight(bytes);
+    }
+
+    /**
+     * Get the cache of shared models, which holds the hit, miss and
+     * eviction statistics.
+     *
+     * @return The model cache
+     */
+    public static ModelCache getModelCache() {
+        return(modelCache);
+    }
+
+    /**
+     * Cancel a request queued by loadThreaded().
+     *
+     * @param request The request to cancel
+     * @return true if the request was cancelled, false if it had already
+     * completed
+     */
+    boolean cancel(LoadRequest request) {
+
+        synchronized(urlLoads) {
+            if (request.done) {
+                return false;
+            }
+            request.cancelled = true;
+
+            LoadTask task = request.task;
+            if (!task.started) {
+                if (!task.hasActiveRequest()) {
+                    if (loadExecutor.remove(task) && (task.urlString != null)) {
+                        urlLoads.remove(task.urlString);
+                    }
+                } else {
+                    task.updatePriority();
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Change the priority of a request queued by loadThreaded().
+     *
+     * @param request The request to change
+     * @param priority One of the PRIORITY constants
+     */
+    void reprioritize(LoadRequest request, int priority) {
+
+        synchronized(urlLoads) {
+            request.priority = priority;
+            if (!request.cancelled) {
+                request.task.updatePriority();
+            }
+        }
+    }
+
+    /**
+     * Parse a file and return its aviatrix representation.
+     *
+     * @param urlString The url of the file to load, or null
+     * @param file The file to load if there is no url
+     * @param filter The filter to use for url requests, may be null
+     * @return The aviatrix representation, or null if it could not be
+     * loaded
+     */
+    private Node[] loadScene(String urlString, File file, URLFilter filter) {
+
+        XNodeLoader xl = new XNodeLoader(progressListener, errorReporter);
+        XNode scene = (urlString != null) ? xl.load(urlString) : xl.load(file);
+        ///////////////////////////////////////////////////
+        if (DEBUG) {
+            XNode.print(scene);
+        }
+        ///////////////////////////////////////////////////
+        if (scene == null) {
+            // presume that an error message has been generated
+            // already from the xnode loader or content handler
+            return(null);
+        }
+
+        String loadedURL = xl.getLoadedURL();
+        factory.setBaseURL(getBaseURL(loadedURL));
+        factory.setURLFilter(filter, loadedURL);
+
+        GeometryFactory.tessellate(scene);
+        Node[] av3d = marshal(scene);
+
+        // keep the parsed and tessellated scene for the next load
+        xl.storeBinary(scene);
+
         return(av3d);
     }
 
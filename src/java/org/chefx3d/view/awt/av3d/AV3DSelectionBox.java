@@ -350,6 +350,15 @@ public class AV3DSelectionBox implements
 		}
 	}
 	
+	/**
+	 * Ignored. The selection box is parented to the wrapper's
+	 * transform.
+	 *
+	 * @param src The wrapper object that has experienced a change
+	 */
+	public void transformChanged(Object src) {
+	}
+	
     //----------------------------------------------------------
     // Local Methods
     //----------------------------------------------------------
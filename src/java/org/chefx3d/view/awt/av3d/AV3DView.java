@@ -59,6 +59,7 @@ import org.chefx3d.toolbar.ToolBarManager;
 
 import org.chefx3d.ui.LoadingProgressListener;
 
+import org.chefx3d.util.ApplicationParams;
 import org.chefx3d.util.DefaultErrorReporter;
 import org.chefx3d.util.ErrorReporter;
 import org.chefx3d.util.FileLoader;
@@ -104,6 +105,15 @@ public class AV3DView extends JPanel implements
     /** Default framerate for the preview in milliseconds per frame */
     private static final int DEFAULT_FPS = 10;
 
+    /**
+     * Default time allowed for scene graph update callbacks per frame in
+     * milliseconds, 0 so every callback is made on the frame it is asked for
+     */
+    private static final int DEFAULT_UPDATE_BUDGET = 0;
+
+    /** Update budget param key, an Integer in milliseconds, 0 for none */
+    private static final String UPDATE_BUDGET = "sceneUpdateBudget";
+
     /** The default initial viewport dimensions for the location layer */
     private static final int[] LOCATION_VIEWPORT_DIMENSION =
         new int[]{0, 0, 600, 600};
@@ -876,6 +886,18 @@ public class AV3DView extends JPanel implements
         mgmtObserver =
             new SceneManagerObserver(deviceManager, controller);
 
+        int updateBudget = DEFAULT_UPDATE_BUDGET;
+        Object updateBudget_object = ApplicationParams.get(UPDATE_BUDGET);
+        if ((updateBudget_object != null) &&
+            (updateBudget_object instanceof Integer)) {
+
+            int tmp_value = ((Integer)updateBudget_object).intValue();
+            if (tmp_value >= 0) {
+                updateBudget = tmp_value;
+            }
+        }
+        mgmtObserver.setUpdateBudget(updateBudget);
+
         mgmtObserver.addObserver(this);
 
         sceneManager.setEnabled(true);
@@ -0,0 +1,246 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.av3d;
+
+// External imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+// Local imports
+import org.chefx3d.model.Entity;
+
+import org.chefx3d.view.boundingbox.DynamicAABBTree;
+
+/**
+ * World space spatial index of the entity wrappers managed by an
+ * AV3DEntityManager. Used as the broad phase of collision testing.
+ * <p>
+ * The index listens to the wrappers it contains for transform and
+ * geometry changes and records the affected entities as dirty. The
+ * world space bounds of dirty entities, and their descendants, are
+ * recalculated by the collision manager immediately prior to the
+ * index being queried.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+class EntityBoundsIndex implements WrapperListener {
+
+	/** The amount that the indexed bounds are grown by, so that small
+	 *  movements do not require restructuring the index */
+	private static final float BOUNDS_MARGIN = 0.05f;
+
+	/** The spatial index */
+	private DynamicAABBTree tree;
+
+	/** The ids of the entities whose bounds require recalculation */
+	private HashSet<Integer> dirtySet;
+
+	/** The ids of the entities whose bounds could not be placed in
+	 *  the index. These are always returned as candidates */
+	private HashSet<Integer> unresolvedSet;
+
+	/**
+	 * Constructor
+	 */
+	EntityBoundsIndex() {
+
+		tree = new DynamicAABBTree(BOUNDS_MARGIN);
+		dirtySet = new HashSet<Integer>();
+		unresolvedSet = new HashSet<Integer>();
+	}
+
+	//----------------------------------------------------------
+	// Methods defined by WrapperListener
+	//----------------------------------------------------------
+
+	/**
+	 * Ignored.
+	 *
+	 * @param src The wrapper object that has experienced a change
+	 */
+	public void switchGroupChanged(Object src) {
+	}
+
+	/**
+	 * Notification that the geometry (and bounds) have changed
+	 * on the argument.
+	 *
+	 * @param src The wrapper object that has experienced a change
+	 */
+	public void geometryChanged(Object src) {
+		invalidate(src);
+	}
+
+	/**
+	 * Notification that the transform has changed on the argument.
+	 *
+	 * @param src The wrapper object that has experienced a change
+	 */
+	public void transformChanged(Object src) {
+		invalidate(src);
+	}
+
+	//----------------------------------------------------------
+	// Local Methods
+	//----------------------------------------------------------
+
+	/**
+	 * Add a wrapper to the index
+	 *
+	 * @param wrapper The wrapper to add
+	 */
+	synchronized void add(AV3DEntityWrapper wrapper) {
+
+		wrapper.addWrapperListener(this);
+		dirtySet.add(wrapper.entity.getEntityID());
+
+		// a new wrapper may complete the path to root
+		// of entries that could not be resolved previously
+		if (!unresolvedSet.isEmpty()) {
+			dirtySet.addAll(unresolvedSet);
+		}
+	}
+
+	/**
+	 * Remove a wrapper from the index
+	 *
+	 * @param wrapper The wrapper to remove
+	 */
+	synchronized void remove(AV3DEntityWrapper wrapper) {
+
+		wrapper.removeWrapperListener(this);
+		Integer id = wrapper.entity.getEntityID();
+		dirtySet.remove(id);
+		unresolvedSet.remove(id);
+		tree.remove(id);
+	}
+
+	/**
+	 * Remove all entries from the index
+	 */
+	synchronized void clear() {
+		dirtySet.clear();
+		unresolvedSet.clear();
+		tree.clear();
+	}
+
+	/**
+	 * Return whether any entries require recalculation
+	 *
+	 * @return true if any entries require recalculation
+	 */
+	synchronized boolean isDirty() {
+		return(!dirtySet.isEmpty());
+	}
+
+	/**
+	 * Move the ids of the entries that require recalculation into
+	 * the argument set, including the ids of all the descendants
+	 * of those entries, and clear the dirty state.
+	 *
+	 * @param ids The set to place the ids in
+	 * @param wrapperMap The map of wrappers in the scene
+	 */
+	void getDirtyEntries(
+		HashSet<Integer> ids, 
+		HashMap<Integer, AV3DEntityWrapper> wrapperMap) {
+
+		Integer[] dirty;
+		synchronized(this) {
+			dirty = new Integer[dirtySet.size()];
+			dirtySet.toArray(dirty);
+			dirtySet.clear();
+		}
+		for (int i = 0; i < dirty.length; i++) {
+			AV3DEntityWrapper wrapper = wrapperMap.get(dirty[i]);
+			if ((wrapper != null) && ids.add(dirty[i])) {
+				addDescendants(wrapper.entity, ids);
+			}
+		}
+	}
+
+	/**
+	 * Set the world space bounds of an entry
+	 *
+	 * @param id The entity id
+	 * @param min The minimum extent of the world bounds
+	 * @param max The maximum extent of the world bounds
+	 */
+	synchronized void update(int id, float[] min, float[] max) {
+		unresolvedSet.remove(id);
+		tree.put(id, min, max);
+	}
+
+	/**
+	 * Flag an entry as having no determinable world space bounds.
+	 * Unresolved entries are always returned as candidates.
+	 *
+	 * @param id The entity id
+	 */
+	synchronized void setUnresolved(int id) {
+		tree.remove(id);
+		unresolvedSet.add(id);
+	}
+
+	/**
+	 * Find the ids of the entries whose bounds overlap the argument
+	 * region and add them to the argument set. Unresolved entries are
+	 * always added.
+	 *
+	 * @param min The minimum extent of the query region
+	 * @param max The maximum extent of the query region
+	 * @param results The set to add the ids to
+	 */
+	synchronized void query(float[] min, float[] max, HashSet<Integer> results) {
+
+		int num = tree.query(min, max);
+		int[] ids = tree.getResults();
+		for (int i = 0; i < num; i++) {
+			results.add(ids[i]);
+		}
+		results.addAll(unresolvedSet);
+	}
+
+	/**
+	 * Mark the entity of the argument wrapper as dirty
+	 *
+	 * @param src The wrapper object that has experienced a change
+	 */
+	private synchronized void invalidate(Object src) {
+		if (src instanceof AV3DEntityWrapper) {
+			AV3DEntityWrapper wrapper = (AV3DEntityWrapper)src;
+			dirtySet.add(wrapper.entity.getEntityID());
+		}
+	}
+
+	/**
+	 * Aggregate the ids of the descendants of the specified entity
+	 * into the argument set
+	 *
+	 * @param entity The Entity whose children to gather
+	 * @param ids The set to place them in
+	 */
+	private void addDescendants(Entity entity, HashSet<Integer> ids) {
+		if (entity.hasChildren()) {
+			ArrayList<Entity> children = entity.getChildren();
+			for (int i = 0; i < children.size(); i++) {
+				Entity child = children.get(i);
+				if (ids.add(child.getEntityID())) {
+					addDescendants(child, ids);
+				}
+			}
+		}
+	}
+}
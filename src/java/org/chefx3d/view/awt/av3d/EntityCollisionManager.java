@@ -17,6 +17,7 @@ package org.chefx3d.view.awt.av3d;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -55,6 +56,7 @@ import org.chefx3d.model.SegmentableEntity;
 import org.chefx3d.model.TransitionEntityChildCommand;
 import org.chefx3d.model.VertexEntity;
 import org.chefx3d.model.WorldModel;
+import org.chefx3d.model.WorldTransformCache;
 import org.chefx3d.util.ApplicationParams;
 import org.chefx3d.util.DefaultErrorReporter;
 import org.chefx3d.util.ErrorReporter;
@@ -62,6 +64,7 @@ import org.chefx3d.util.FileLoader;
 import org.chefx3d.view.awt.scenemanager.SceneManagerObserver;
 import org.chefx3d.view.common.DefaultSurrogateEntityWrapper;
 import org.chefx3d.view.common.EntityWrapper;
+import org.chefx3d.view.boundingbox.AxisAlignedBoundingBox;
 import org.chefx3d.view.boundingbox.OrientedBoundingBox;
 import org.chefx3d.view.common.RuleCollisionChecker;
 import org.chefx3d.view.boundingbox.SegmentBoundingBox;
@@ -138,6 +141,34 @@ class EntityCollisionManager implements RuleCollisionChecker {
     /** Map entity wrappers of various sorts */
 	private HashMap<Integer, EntityWrapper> activeWrapperMap;
 	
+	/** World space spatial index of the wrappers, the broad phase */
+	private EntityBoundsIndex boundsIndex;
+	
+	/** Scratch set of ids of the wrappers to place in the working set */
+	private HashSet<Integer> candidateSet;
+	
+	/** Scratch list of the source entity and its children */
+	private ArrayList<Entity> sourceList;
+	
+	/** Scratch set of ids of the wrappers to update in the index */
+	private HashSet<Integer> dirtySet;
+	
+	/** Scratch bounds and extents used for updating and querying the index */
+	private AxisAlignedBoundingBox idx_bounds;
+	private float[] idx_min;
+	private float[] idx_max;
+	private float[] ex_min;
+	private float[] ex_max;
+	private float[] query_min;
+	private float[] query_max;
+	
+	/** The id of the entity represented by the source surrogate, 
+	 *  or -1 if no source is configured */
+	private int sourceID;
+	
+	/** Cache of the committed local to root transforms of the entities */
+	private WorldTransformCache transformCache;
+	
 	/** Stack of matrix objects */
 	private ArrayList<Matrix4f> mtx_list;
 	
@@ -169,6 +200,7 @@ class EntityCollisionManager implements RuleCollisionChecker {
         ErrorReporter errorReporter) {
 
         model = worldModel;
+        transformCache = model.getWorldTransformCache();
         mgmtObserver = sceneMgmtObserver;
         reporter = (errorReporter != null) ? 
             errorReporter : DefaultErrorReporter.getDefaultReporter();
@@ -202,6 +234,20 @@ class EntityCollisionManager implements RuleCollisionChecker {
 		surrogateMap = new HashMap<Integer, SurrogateEntityWrapper>();
 		activeWrapperMap = new HashMap<Integer, EntityWrapper>();
 		
+		candidateSet = new HashSet<Integer>();
+		dirtySet = new HashSet<Integer>();
+		sourceList = new ArrayList<Entity>();
+		
+		idx_bounds = new AxisAlignedBoundingBox();
+		idx_min = new float[3];
+		idx_max = new float[3];
+		ex_min = new float[3];
+		ex_max = new float[3];
+		query_min = new float[3];
+		query_max = new float[3];
+		
+		sourceID = -1;
+		
 		mtx_list = new ArrayList<Matrix4f>();
 		
 		sourceSurrogate = new CollisionSurrogate();
@@ -265,6 +311,41 @@ class EntityCollisionManager implements RuleCollisionChecker {
     
         ArrayList<Entity> results = new ArrayList<Entity>();
 
+		submitCommand(
+			command, 
+			useSurrogates, 
+			useEntityExtendedBounds, 
+			useTargetsExtendedBounds, 
+			results);
+		
+        return(results);
+    }
+
+	/** 
+	 * Submit a command to the collision detection system for
+	 * processing and place the Entities that the Command's Entity
+	 * is in collision with in the argument list. The list is
+	 * cleared first.
+	 *
+	 * @param command The Command to test
+	 * @param useSurrogates Flag indicating that surrogate entities should
+	 * be used during collision testing.
+	 * @param useEntityExtendedBounds Flag indicating that the extended bounds
+	 * of the entity should be used, if set, when checking against the scene
+	 * @param useTargetsExtendedBounds Flag indicating that the extended bounds 
+	 * of the target entities in the scene, if set, should be used when checked
+	 * against
+	 * @param results The list to place the Entities in collision in
+	 */
+	public void submitCommand(
+			Command command, 
+			boolean useSurrogates,
+			boolean useEntityExtendedBounds,
+			boolean useTargetsExtendedBounds,
+			ArrayList<Entity> results) {
+    
+        results.clear();
+
 		enableSurrogates = useSurrogates;
 		
         if (command instanceof RuleDataAccessor) {
@@ -273,7 +354,7 @@ class EntityCollisionManager implements RuleCollisionChecker {
             Entity entity = rda.getEntity();
 
             if(!validate(command, entity)) {
-                return(results);
+                return;
             }
             
 			boolean sourceConfigured = configSourceSurrogate(
@@ -284,21 +365,19 @@ class EntityCollisionManager implements RuleCollisionChecker {
 			boolean sourceIsTransformable = false;
 			if (sourceConfigured) {
 				
-				initActiveWrapperMap();
-				sourceIsTransformable = getTransformToRoot(sourceSurrogate, mtx);
+				sourceID = entity.getEntityID();
+				sourceIsTransformable = getTransformToRoot(sourceSurrogate, mtx, true);
 				
 				if (sourceIsTransformable) {
 					activeBounds.transform(mtx);
 				}
 			}
 			if (!sourceConfigured || !sourceIsTransformable) {
-				return(results);
+				sourceID = -1;
+				return;
 			}
 			
-            int entityID = entity.getEntityID();
-			
-			activeWrapperMap.put(entityID, sourceSurrogate);
-			transformBounds();
+			initActiveWrapperMap(entity, false);
 			
 			boolean sourceIsZone = entity.isZone();
 			
@@ -312,13 +391,13 @@ class EntityCollisionManager implements RuleCollisionChecker {
 				System.out.println("******** Collision set *********");
 			}
            
-            for (Iterator<Integer> i = activeWrapperMap.keySet().iterator();
+            for (Iterator<EntityWrapper> i = activeWrapperMap.values().iterator();
                 i.hasNext();) {
                 
-                int id = i.next();
-                if (id != entityID) {
+				// the source is mapped to its surrogate
+				EntityWrapper targetWrapper = i.next();
+                if (targetWrapper != sourceSurrogate) {
 					
-					EntityWrapper targetWrapper = activeWrapperMap.get(id);
 					Entity targetEntity = targetWrapper.getEntity();
 					
 					boolean targetIsZone = targetEntity.isZone();
@@ -357,8 +436,8 @@ class EntityCollisionManager implements RuleCollisionChecker {
                     }
                 }
             }
+            sourceID = -1;
         }
-        return(results);
     }
 
 	/////////////////////////////////////////////////////////////////////////////////////
@@ -432,23 +511,21 @@ class EntityCollisionManager implements RuleCollisionChecker {
 			boolean sourceIsTransformable = false;
 			if (sourceConfigured) {
 				
-				initActiveWrapperMap();
-				sourceIsTransformable = getTransformToRoot(sourceSurrogate, mtx);
+				sourceID = entity.getEntityID();
+				sourceIsTransformable = getTransformToRoot(sourceSurrogate, mtx, true);
 				
 				if (sourceIsTransformable) {
 					activeBounds.transform(mtx);
 				}
 			}
 			if (!sourceConfigured || !sourceIsTransformable) {
+				sourceID = -1;
 				return(results);
 			}
 			
-            int entityID = entity.getEntityID();
-			
-			activeWrapperMap.put(entityID, sourceSurrogate);
-			transformBounds();
+			initActiveWrapperMap(entity, true);
 			
-			ArrayList<Entity> sourceList = new ArrayList<Entity>();
+			sourceList.clear();
 			sourceList.add(entity);
 			getChildren(entity, sourceList);
 			
@@ -530,6 +607,7 @@ class EntityCollisionManager implements RuleCollisionChecker {
 					}
 				}
 			}
+			sourceID = -1;
         }
         return(results);
     }
@@ -657,8 +735,10 @@ class EntityCollisionManager implements RuleCollisionChecker {
         this.entityManager = entityManager;
         if (entityManager != null) {
             wrapperMap = entityManager.getAV3DEntityWrapperMap();
+            boundsIndex = entityManager.getEntityBoundsIndex();
         } else {
             wrapperMap = null;
+            boundsIndex = null;
         }
     }
 	
@@ -1284,30 +1364,82 @@ class EntityCollisionManager implements RuleCollisionChecker {
 	}
 	
 	/**
-	 * Initialize the map of wrappers for collision testing
+	 * Initialize the map of wrappers for collision testing. Rather than
+	 * placing every wrapper in the scene in the working set, the bounds
+	 * index is queried for the wrappers whose world space bounds overlap
+	 * the source. The source surrogate must be configured, and its
+	 * bounds transformed, prior to calling this.
+	 *
+	 * @param entity The Entity that is the subject of the command
+	 * @param includeChildren Flag indicating that the bounds of the 
+	 * entity's children should contribute to the query region
 	 */
-	private void initActiveWrapperMap() {
+	private void initActiveWrapperMap(Entity entity, boolean includeChildren) {
+		
 		activeWrapperMap.clear();
-		activeWrapperMap.putAll(wrapperMap);
+		activeWrapperMap.put(entity.getEntityID(), sourceSurrogate);
+		
+		// the children of the source are transformed along with
+		// it, the index does not represent their positions
+		candidateSet.clear();
+		getChildrenIDs(entity, candidateSet);
+		addCandidates();
+		
+		activeBounds.getExtents(query_min, query_max);
+		if (includeChildren) {
+			for (Iterator<Integer> i = candidateSet.iterator(); i.hasNext();) {
+				EntityWrapper wrapper = activeWrapperMap.get(i.next());
+				if (wrapper != null) {
+					wrapper.getBounds().getExtents(idx_min, idx_max);
+					union(idx_min, idx_max);
+				}
+			}
+		}
+		float epsilon = AxisAlignedBoundingBox.getEpsilon();
+		for (int i = 0; i < 3; i++) {
+			query_min[i] -= epsilon;
+			query_max[i] += epsilon;
+		}
+		
+		// surrogates, and their children, are not represented
+		// in the index at their surrogate positions
+		candidateSet.clear();
 		if (enableSurrogates) {
-			activeWrapperMap.putAll(surrogateMap);
+			for (Iterator<SurrogateEntityWrapper> i = surrogateMap.values().iterator();
+				i.hasNext();) {
+				
+				Entity sur_entity = i.next().getEntity();
+				candidateSet.add(sur_entity.getEntityID());
+				getChildrenIDs(sur_entity, candidateSet);
+			}
+		}
+		
+		// the broad phase
+		if (boundsIndex != null) {
+			updateBoundsIndex();
+			boundsIndex.query(query_min, query_max, candidateSet);
+		} else {
+			candidateSet.addAll(wrapperMap.keySet());
 		}
+		addCandidates();
 	}
 	
 	/**
-	 * Transform the bounds of the active wrappers
+	 * Place the wrappers identified in the candidate set into the 
+	 * working set, transforming their bounds to world space. Wrappers 
+	 * that are already in the working set, or that have no path to 
+	 * root, are skipped.
 	 */
-	private void transformBounds() {
+	private void addCandidates() {
 		
-		int[] inactive = new int[activeWrapperMap.size()];
-		int num_inactive = 0;
-		
-		for (Iterator<Integer> i = activeWrapperMap.keySet().iterator();
-			i.hasNext();) {
+		for (Iterator<Integer> i = candidateSet.iterator(); i.hasNext();) {
 			
-			int id = i.next();
-			EntityWrapper wrapper = activeWrapperMap.get(id);
-			if (getTransformToRoot(wrapper, mtx)) {
+			Integer id = i.next();
+			if (activeWrapperMap.containsKey(id)) {
+				continue;
+			}
+			EntityWrapper wrapper = getActiveWrapper(id);
+			if ((wrapper != null) && getTransformToRoot(wrapper, mtx, true)) {
 				
 				OrientedBoundingBox bounds = wrapper.getBounds();
 				bounds.transform(mtx);
@@ -1316,12 +1448,113 @@ class EntityCollisionManager implements RuleCollisionChecker {
 				if (ex_bounds != bounds) {
 					ex_bounds.transform(mtx);
 				}
+				activeWrapperMap.put(id, wrapper);
+			}
+		}
+	}
+	
+	/**
+	 * Recalculate the world space bounds of the wrappers that have 
+	 * changed since the bounds index was last used. The bounds are 
+	 * calculated from the entity state, surrogates are not considered.
+	 */
+	private void updateBoundsIndex() {
+		
+		if (!boundsIndex.isDirty()) {
+			return;
+		}
+		dirtySet.clear();
+		boundsIndex.getDirtyEntries(dirtySet, wrapperMap);
+		
+		for (Iterator<Integer> i = dirtySet.iterator(); i.hasNext();) {
+			
+			Integer id = i.next();
+			AV3DEntityWrapper wrapper = wrapperMap.get(id);
+			if (wrapper == null) {
+				continue;
+			}
+			OrientedBoundingBox bounds = wrapper.getBounds();
+			if ((bounds != null) && getTransformToRoot(wrapper, mtx, false)) {
+				
+				idx_bounds.copy(bounds);
+				idx_bounds.transform(mtx);
+				idx_bounds.getExtents(idx_min, idx_max);
+				
+				OrientedBoundingBox ex_bounds = wrapper.getExtendedBounds();
+				if (ex_bounds != bounds) {
+					idx_bounds.copy(ex_bounds);
+					idx_bounds.transform(mtx);
+					idx_bounds.getExtents(ex_min, ex_max);
+					for (int j = 0; j < 3; j++) {
+						idx_min[j] = Math.min(idx_min[j], ex_min[j]);
+						idx_max[j] = Math.max(idx_max[j], ex_max[j]);
+					}
+				}
+				boundsIndex.update(id, idx_min, idx_max);
+				
 			} else {
-				inactive[num_inactive++] = id;
+				boundsIndex.setUnresolved(id);
+			}
+		}
+		dirtySet.clear();
+	}
+	
+	/**
+	 * Expand the query region to include the argument extents
+	 *
+	 * @param min The minimum extent
+	 * @param max The maximum extent
+	 */
+	private void union(float[] min, float[] max) {
+		for (int i = 0; i < 3; i++) {
+			if (min[i] < query_min[i]) {
+				query_min[i] = min[i];
+			}
+			if (max[i] > query_max[i]) {
+				query_max[i] = max[i];
 			}
 		}
-		for (int i = 0; i < num_inactive; i++) {
-			activeWrapperMap.remove(inactive[i]);
+	}
+	
+	/**
+	 * Return the wrapper that represents the entity in collision
+	 * testing. The source surrogate takes precedence, followed by 
+	 * any enabled surrogate, followed by the rendering wrapper.
+	 *
+	 * @param entityID The id of the entity
+	 * @return The wrapper, or null if none exists
+	 */
+	private EntityWrapper getActiveWrapper(int entityID) {
+		
+		if (entityID == sourceID) {
+			return(sourceSurrogate);
+		}
+		EntityWrapper wrapper = null;
+		if (enableSurrogates) {
+			wrapper = surrogateMap.get(entityID);
+		}
+		if (wrapper == null) {
+			wrapper = wrapperMap.get(entityID);
+		}
+		return(wrapper);
+	}
+	
+	/**
+	 * Aggregate the ids of the descendants of the specified entity 
+	 * into the argument set
+	 *
+	 * @param entity The Entity whose children to gather
+	 * @param ids The set to place them in
+	 */
+	private void getChildrenIDs(Entity entity, HashSet<Integer> ids) {
+		if (entity.hasChildren()) {
+			ArrayList<Entity> children = entity.getChildren();
+			for (int i = 0; i < children.size(); i++) {
+				Entity child = children.get(i);
+				if (ids.add(child.getEntityID())) {
+					getChildrenIDs(child, ids);
+				}
+			}
 		}
 	}
 	
@@ -1330,13 +1563,24 @@ class EntityCollisionManager implements RuleCollisionChecker {
 	 *
 	 * @param wrapper The entity wrapper
 	 * @param mtx The matrix object to configure
+	 * @param useActiveState true to use the working set of wrappers, 
+	 * including surrogates, and to respect their enabled state. false
+	 * to use the rendering wrappers, regardless of their enabled state.
 	 * @return true if the matrix has been configured, false otherwise
 	 */
-	private boolean getTransformToRoot(EntityWrapper wrapper, Matrix4f mtx) {
+	private boolean getTransformToRoot(
+		EntityWrapper wrapper, 
+		Matrix4f mtx, 
+		boolean useActiveState) {
+		
+		if (isCommitted(wrapper, useActiveState) && 
+			transformCache.getTransform(wrapper.getEntity(), mtx)) {
+			return(true);
+		}
 		
 		boolean config = false;
 		int idx = 0;
-		if (wrapper.isEnabled()) {
+		if (!useActiveState || wrapper.isEnabled()) {
 			
 			initMatrix(wrapper, idx);
 			idx++;
@@ -1347,10 +1591,11 @@ class EntityCollisionManager implements RuleCollisionChecker {
 			
 			while (parentID != rootID) {
 				
-				EntityWrapper parent_wrapper = activeWrapperMap.get(parentID);
+				EntityWrapper parent_wrapper = useActiveState ? 
+					getActiveWrapper(parentID) : wrapperMap.get(parentID);
 				if (parent_wrapper != null) {
 					
-					if (parent_wrapper.isEnabled()) {
+					if (!useActiveState || parent_wrapper.isEnabled()) {
 						
 						initMatrix(parent_wrapper, idx);
 						idx++;
@@ -1409,6 +1654,52 @@ class EntityCollisionManager implements RuleCollisionChecker {
 		return(config);
 	}
 	
+	/**
+	 * Return whether the transform to root of the wrapper is determined
+	 * only by the committed state of the entities in its path to root,
+	 * in which case the cached transform applies. The path must consist 
+	 * of rendering wrappers, or the segmentable entity. With the active
+	 * state, none of the wrappers may be disabled or represented by a
+	 * surrogate.
+	 *
+	 * @param wrapper The entity wrapper
+	 * @param useActiveState true to check the working set of wrappers,
+	 * false to check the rendering wrappers.
+	 * @return true if the cached transform applies, false otherwise
+	 */
+	private boolean isCommitted(EntityWrapper wrapper, boolean useActiveState) {
+		
+		if (!(wrapper instanceof AV3DEntityWrapper) || 
+			(useActiveState && !wrapper.isEnabled())) {
+			return(false);
+		}
+		int parentID = getParentID(wrapper);
+		int rootID = entityManager.getContentContainerEntity().getEntityID();
+		
+		while (parentID != rootID) {
+			
+			if (useActiveState && ((parentID == sourceID) || 
+				(enableSurrogates && surrogateMap.containsKey(parentID)))) {
+				return(false);
+			}
+			AV3DEntityWrapper parent_wrapper = wrapperMap.get(parentID);
+			if (parent_wrapper != null) {
+				if (useActiveState && !parent_wrapper.isEnabled()) {
+					return(false);
+				}
+				parentID = getParentID(parent_wrapper);
+			} else {
+				Entity e = model.getEntity(parentID);
+				if (e instanceof SegmentableEntity) {
+					parentID = e.getParentEntityID();
+				} else {
+					return(false);
+				}
+			}
+		}
+		return(true);
+	}
+	
 	/**
 	 * Return the ID of the parent of the wrapper
 	 *
@@ -234,12 +234,13 @@ public class EntityMoveTransientResponse implements TrackerEventResponse {
 					editorGrid.alignPositionToGrid(newEntityPosition);
 		
 					// TODO: Need to calc velo
-					cmd = new MoveEntityTransientCommand(
+					cmd = MoveEntityTransientCommand.obtain(
 						model,
 						model.issueTransactionID(),
 						entity.getEntityID(),
 						newEntityPosition,
-						velocity);
+						velocity,
+						null);
 				}
 				
 				if (cmd != null) {
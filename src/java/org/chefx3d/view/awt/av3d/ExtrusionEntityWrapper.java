@@ -30,6 +30,7 @@ import org.chefx3d.model.EntityProperty;
 import org.chefx3d.model.EntityPropertyListener;
 import org.chefx3d.model.ExtrusionEntity;
 import org.chefx3d.model.PositionableEntity;
+import org.chefx3d.model.PropertyKey;
 
 import org.chefx3d.ui.LoadingProgressListener;
 
@@ -168,7 +169,9 @@ class ExtrusionEntityWrapper extends AV3DEntityWrapper implements
 		String url_string = entity.getModelURL();
 		if (url_string != null) {
 			AV3DLoader loader = new AV3DLoader(progressListener, urlFilter);
-			loader.loadThreaded(url_string, true, this);
+			int priority = entity.isSelected() ?
+				AV3DLoader.PRIORITY_HIGH : AV3DLoader.PRIORITY_NORMAL;
+			loadRequest = loader.loadThreaded(url_string, true, this, priority);
 		}
 	}
 	
@@ -280,11 +283,14 @@ class ExtrusionEntityWrapper extends AV3DEntityWrapper implements
 		String propertyName) {
 	}
 	
-	public void propertyUpdated(
-		int entityID,
-		String propertySheet,
-		String propertyName,
-		boolean ongoing) {
+	//----------------------------------------------------------
+	// Methods for KeyedEntityPropertyListener
+	//----------------------------------------------------------
+	
+	public void propertyUpdated(int entityID, PropertyKey key, boolean ongoing) {
+		
+		String propertySheet = key.getSheet();
+		String propertyName = key.getName();
 		
 		if (propertySheet.equals(PositionableEntity.DEFAULT_ENTITY_PROPERTIES)) {
 			if (propertyName.equals(ExtrusionEntity.SPINE_VERTICES_PROP)) {
@@ -328,18 +334,10 @@ class ExtrusionEntityWrapper extends AV3DEntityWrapper implements
 				doUpdate = true;
 				
 			} else {
-				super.propertyUpdated(
-					entityID,
-					propertySheet,
-					propertyName,
-					ongoing);
+				super.propertyUpdated(entityID, key, ongoing);
 			}
 		} else {
-			super.propertyUpdated(
-				entityID,
-				propertySheet,
-				propertyName,
-				ongoing);
+			super.propertyUpdated(entityID, key, ongoing);
 		}
 	}
 	
@@ -354,6 +352,8 @@ class ExtrusionEntityWrapper extends AV3DEntityWrapper implements
 	protected void dispose() {
 		super.dispose();
 		mgmtObserver.removeObserver(this);
+		
+		cancelLoad();
 	}
 	
 	/**
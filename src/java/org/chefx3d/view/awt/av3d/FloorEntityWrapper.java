@@ -31,6 +31,7 @@ import org.chefx3d.model.EntityProperty;
 import org.chefx3d.model.EntityPropertyListener;
 import org.chefx3d.model.EnvironmentEntity;
 import org.chefx3d.model.PositionableEntity;
+import org.chefx3d.model.PropertyKey;
 
 import org.chefx3d.util.ApplicationParams;
 import org.chefx3d.util.ErrorReporter;
@@ -170,10 +171,13 @@ class FloorEntityWrapper extends AV3DEntityWrapper {
         String propertyName) {
     }
 
-    public void propertyUpdated(int entityID, String propertySheet,
-        String propertyName, boolean ongoing) {
+    //----------------------------------------------------------
+    // Methods for KeyedEntityPropertyListener
+    //----------------------------------------------------------
+
+    public void propertyUpdated(int entityID, PropertyKey key, boolean ongoing) {
 
-        if (propertyName.equals(EnvironmentEntity.GROUND_COLOR_PROP)) {
+        if (key.getName().equals(EnvironmentEntity.GROUND_COLOR_PROP)) {
 
             Color groundColor = environment.getGroundColor();
             configFloorColor(groundColor);
@@ -15,6 +15,13 @@ package org.chefx3d.view.awt.av3d;
 // External imports
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.vecmath.AxisAngle4f;
 import javax.vecmath.Matrix4f;
@@ -46,6 +53,15 @@ class GeometryFactory {
     /** The minimum number of vertices before using VBO's */
     public static final int VBO_MIN_VERTICES = 1000;
 
+    /** System property used to disable parallel tessellation */
+    static final String PARALLEL_PROPERTY = "chefx3d.av3d.parallelTessellation";
+
+    /**
+     * The number of face set indices in a model below which it is
+     * tessellated on the loading thread
+     */
+    private static final int PARALLEL_MIN_INDICES = 4096;
+
     /** Index of the tangent attribute */
     private static final int TANGENT_ATTRIB_IDX = 5;
 
@@ -56,6 +72,13 @@ class GeometryFactory {
     private static final String CANNOT_LOAD_NODE_MSG =
         "org.chefx3d.view.awt.av3d.AV3DLoader.cannotLoadNodeMsg";
 
+    /** Should models be tessellated in parallel */
+    private static volatile boolean parallelTessellation =
+        !"false".equals(System.getProperty(PARALLEL_PROPERTY));
+
+    /** The threads that tessellate face sets, created on first use */
+    private static ExecutorService tessellator;
+
     /** Identifiers */
     private static final int BOX = 0;
     private static final int CONE = 1;
@@ -199,6 +222,139 @@ class GeometryFactory {
         return(geom);
     }
 
+    /**
+     * Tessellate the face sets of a scene ahead of marshalling it. The
+     * face sets are independent, so on a model with enough geometry they
+     * are triangulated in parallel. Results are held by each XNode and
+     * picked up by getGeometry().
+     *
+     * @param scene The root of the XNode scene
+     */
+    static void tessellate(XNode scene) {
+
+        if (!parallelTessellation || scene == null) {
+            return;
+        }
+
+        ArrayList<XNode> faceSets = new ArrayList<XNode>();
+        findFaceSets(scene, new IdentityHashMap<XNode, XNode>(), faceSets);
+
+        int num_indices = 0;
+        for (int i = 0; i < faceSets.size(); i++) {
+            num_indices += ((int[])faceSets.get(i).getFieldData("coordIndex")).length;
+        }
+
+        if (faceSets.size() < 2 || num_indices < PARALLEL_MIN_INDICES) {
+            // not worth handing off, getGeometry() does it as it goes
+            return;
+        }
+
+        ArrayList<Callable<Object>> tasks =
+            new ArrayList<Callable<Object>>(faceSets.size());
+
+        for (int i = 0; i < faceSets.size(); i++) {
+            final XNode xnode = faceSets.get(i);
+            tasks.add(new Callable<Object>() {
+                public Object call() {
+                    try {
+                        xnode.setTessellation(tessellateIndexedFaceSet(xnode));
+                    } catch (RuntimeException re) {
+                        // left for getGeometry() to retry and report
+                    }
+                    return(null);
+                }
+            });
+        }
+
+        try {
+            getTessellator().invokeAll(tasks);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Set whether models are tessellated in parallel.
+     *
+     * @param enable true to tessellate in parallel
+     */
+    static void setParallelTessellation(boolean enable) {
+        parallelTessellation = enable;
+    }
+
+    /**
+     * Check whether models are tessellated in parallel.
+     *
+     * @return true if models are tessellated in parallel
+     */
+    static boolean isParallelTessellation() {
+        return(parallelTessellation);
+    }
+
+    /**
+     * Collect the face sets below a node that still need tessellating.
+     *
+     * @param xnode The node to search
+     * @param visited The nodes already searched
+     * @param faceSets The list to add face sets to
+     */
+    private static void findFaceSets(
+        XNode xnode,
+        IdentityHashMap<XNode, XNode> visited,
+        List<XNode> faceSets) {
+
+        if (visited.put(xnode, xnode) != null) {
+            return;
+        }
+
+        if (xnode.getNodeName().equals("IndexedFaceSet")) {
+            if ((xnode.getTessellation() == null) &&
+                (xnode.getFieldData("coordIndex") != null) &&
+                (getCoords((XNode)xnode.getFieldData("coord")) != null)) {
+
+                faceSets.add(xnode);
+            }
+            return;
+        }
+
+        String[] fields = xnode.getUsedFieldNames();
+        for (int i = 0; i < fields.length; i++) {
+            Object data = xnode.getFieldData(fields[i]);
+            if (data instanceof XNode) {
+                findFaceSets((XNode)data, visited, faceSets);
+            } else if (data instanceof ArrayList) {
+                ArrayList<?> list = (ArrayList<?>)data;
+                for (int j = 0; j < list.size(); j++) {
+                    findFaceSets((XNode)list.get(j), visited, faceSets);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the threads that tessellate face sets.
+     *
+     * @return The executor
+     */
+    private static synchronized ExecutorService getTessellator() {
+
+        if (tessellator == null) {
+            tessellator = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory() {
+                    private int count;
+
+                    public synchronized Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "Tessellator-" + (count++));
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        }
+
+        return(tessellator);
+    }
+
     /**
      * Create and return Geometry for a Box
      *
@@ -567,71 +723,21 @@ class GeometryFactory {
 
         if ((coord != null) && (coordIndex != null)) {
 
-            // more defaults
-            boolean ccw = true;
-            boolean colorPerVertex = true;
-            boolean convex = true;
-            boolean normalPerVertex = true;
-            boolean solid = true;
-            float creaseAngle = 0;
-            float[] color = null;
-            float[] normal = null;
-            float[] texCoord = null;
-            int[] colorIndex = null;
-            int[] normalIndex = null;
-            int[] texCoordIndex = null;
-
             boolean color_has_alpha = false;
 
-            String[] fields = xnode.getUsedFieldNames();
-            for (int i = 0; i < fields.length; i++) {
-                String field_name = fields[i];
-                if (field_name.equals("color")) {
-                    XNode color_xnode = (XNode)xnode.getFieldData(field_name);
-                    if (color_xnode != null) {
-                        if (color_xnode.getNodeName().equals("ColorRGBA")) {
-                            color_has_alpha = true;
-                        }
-                        color = (float[])color_xnode.getFieldData("color");
-                    }
-                } else if (field_name.equals("normal")) {
-                    XNode normal_xnode = (XNode)xnode.getFieldData(field_name);
-                    normal = getNormals(normal_xnode);
-                } else if (field_name.equals("texCoord")) {
-                    XNode texCoord_xnode = (XNode)xnode.getFieldData(field_name);
-                    texCoord = getTexCoords(texCoord_xnode);
-                } else if (field_name.equals("creaseAngle")) {
-                    creaseAngle = (Float)xnode.getFieldData(field_name);
-                } else if (field_name.equals("colorIndex")) {
-                    colorIndex = (int[])xnode.getFieldData(field_name);
-                } else if (field_name.equals("normalIndex")) {
-                    normalIndex = (int[])xnode.getFieldData(field_name);
-                } else if (field_name.equals("texCoordIndex")) {
-                    texCoordIndex = (int[])xnode.getFieldData(field_name);
-                } else if (field_name.equals("ccw")) {
-                    ccw = (Boolean)xnode.getFieldData(field_name);
-                } else if (field_name.equals("colorPerVertex")) {
-                    colorPerVertex = (Boolean)xnode.getFieldData(field_name);
-                } else if (field_name.equals("normalPerVertex")) {
-                    normalPerVertex = (Boolean)xnode.getFieldData(field_name);
-                } else if (field_name.equals("convex")) {
-                    convex = (Boolean)xnode.getFieldData(field_name);
-                } else if (field_name.equals("solid")) {
-                    solid = (Boolean)xnode.getFieldData(field_name);
-                }
+            XNode color_xnode = (XNode)xnode.getFieldData("color");
+            if ((color_xnode != null) &&
+                color_xnode.getNodeName().equals("ColorRGBA")) {
+                color_has_alpha = true;
             }
 
-            int numColorComponents = color_has_alpha ? 4 : 3;
-
-            GeometryUtils gutils = new GeometryUtils();
-            gutils.generateTriangleArrays(
-                true, true,
-                coord, color, numColorComponents, normal, texCoord,
-                coordIndex, coordIndex.length, colorIndex, normalIndex,
-                texCoordIndex, ccw, convex, colorPerVertex, normalPerVertex,
-                creaseAngle);
-
-            GeometryData geomData = gutils.geomData;
+            // reuse the triangles of a model read from the binary cache,
+            // or generated ahead of time by tessellate()
+            GeometryData geomData = xnode.getTessellation();
+            if (geomData == null) {
+                geomData = tessellateIndexedFaceSet(xnode);
+                xnode.setTessellation(geomData);
+            }
 
             ta.setVertices(
                 TriangleArray.COORDINATE_3,
@@ -678,6 +784,85 @@ class GeometryFactory {
         return(ta);
     }
 
+    /**
+     * Triangulate an IndexedFaceSet and generate its normals and texture
+     * coordinates. Does not use any tessellation already held by the node.
+     *
+     * @param xnode The IndexedFaceSet XNode, with coord and coordIndex
+     * @return The triangulated geometry
+     */
+    private static GeometryData tessellateIndexedFaceSet(XNode xnode) {
+
+        float[] coord = getCoords((XNode)xnode.getFieldData("coord"));
+        int[] coordIndex = (int[])xnode.getFieldData("coordIndex");
+
+        // more defaults
+        boolean ccw = true;
+        boolean colorPerVertex = true;
+        boolean convex = true;
+        boolean normalPerVertex = true;
+        boolean solid = true;
+        float creaseAngle = 0;
+        float[] color = null;
+        float[] normal = null;
+        float[] texCoord = null;
+        int[] colorIndex = null;
+        int[] normalIndex = null;
+        int[] texCoordIndex = null;
+
+        boolean color_has_alpha = false;
+
+        String[] fields = xnode.getUsedFieldNames();
+        for (int i = 0; i < fields.length; i++) {
+            String field_name = fields[i];
+            if (field_name.equals("color")) {
+                XNode color_xnode = (XNode)xnode.getFieldData(field_name);
+                if (color_xnode != null) {
+                    if (color_xnode.getNodeName().equals("ColorRGBA")) {
+                        color_has_alpha = true;
+                    }
+                    color = (float[])color_xnode.getFieldData("color");
+                }
+            } else if (field_name.equals("normal")) {
+                XNode normal_xnode = (XNode)xnode.getFieldData(field_name);
+                normal = getNormals(normal_xnode);
+            } else if (field_name.equals("texCoord")) {
+                XNode texCoord_xnode = (XNode)xnode.getFieldData(field_name);
+                texCoord = getTexCoords(texCoord_xnode);
+            } else if (field_name.equals("creaseAngle")) {
+                creaseAngle = (Float)xnode.getFieldData(field_name);
+            } else if (field_name.equals("colorIndex")) {
+                colorIndex = (int[])xnode.getFieldData(field_name);
+            } else if (field_name.equals("normalIndex")) {
+                normalIndex = (int[])xnode.getFieldData(field_name);
+            } else if (field_name.equals("texCoordIndex")) {
+                texCoordIndex = (int[])xnode.getFieldData(field_name);
+            } else if (field_name.equals("ccw")) {
+                ccw = (Boolean)xnode.getFieldData(field_name);
+            } else if (field_name.equals("colorPerVertex")) {
+                colorPerVertex = (Boolean)xnode.getFieldData(field_name);
+            } else if (field_name.equals("normalPerVertex")) {
+                normalPerVertex = (Boolean)xnode.getFieldData(field_name);
+            } else if (field_name.equals("convex")) {
+                convex = (Boolean)xnode.getFieldData(field_name);
+            } else if (field_name.equals("solid")) {
+                solid = (Boolean)xnode.getFieldData(field_name);
+            }
+        }
+
+        int numColorComponents = color_has_alpha ? 4 : 3;
+
+        GeometryUtils gutils = new GeometryUtils();
+        gutils.generateTriangleArrays(
+            true, true,
+            coord, color, numColorComponents, normal, texCoord,
+            coordIndex, coordIndex.length, colorIndex, normalIndex,
+            texCoordIndex, ccw, convex, colorPerVertex, normalPerVertex,
+            creaseAngle);
+
+        return(gutils.geomData);
+    }
+
     /**
      * Create and return Geometry for an IndexedLineSet
      *
@@ -1183,7 +1368,7 @@ class GeometryFactory {
      * @param coord_xnode The coordinate XNode
      * @return The array of coord values, or null if none exist
      */
-    private float[] getCoords(XNode coord_xnode) {
+    private static float[] getCoords(XNode coord_xnode) {
         float[] coords = null;
         if (coord_xnode != null) {
             coords = (float[])coord_xnode.getFieldData("point");
@@ -1197,7 +1382,7 @@ class GeometryFactory {
      * @param normal_xnode The normal XNode
      * @return The array of normal values, or null if none exist
      */
-    private float[] getNormals(XNode normal_xnode) {
+    private static float[] getNormals(XNode normal_xnode) {
         float[] normals = null;
         if (normal_xnode != null) {
             normals = (float[])normal_xnode.getFieldData("vector");
@@ -1211,7 +1396,7 @@ class GeometryFactory {
      * @param texCoord_xnode The texCoord XNode
      * @return The array of texCoord values, or null if none exist
      */
-    private float[] getTexCoords(XNode texCoord_xnode) {
+    private static float[] getTexCoords(XNode texCoord_xnode) {
         float[] texCoords = null;
         if (texCoord_xnode != null) {
             texCoords = (float[])texCoord_xnode.getFieldData("point");
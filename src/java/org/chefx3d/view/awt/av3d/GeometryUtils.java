@@ -13,6 +13,10 @@
 package org.chefx3d.view.awt.av3d;
 
 // External imports
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.j3d.geom.GeometryData;
 import org.j3d.geom.TriangulationUtils;
 
@@ -21,12 +25,39 @@ import org.j3d.geom.TriangulationUtils;
 
 /**
  * Utilities for handling generic geometry actions.
+ * <p>
+ * Results of generateTriangleArrays() are remembered, keyed by the
+ * content of the input arrays and flags, so that geometry that recurs
+ * across products is only tessellated once. A remembered GeometryData is
+ * shared by every caller that asks for the same input, so callers must not
+ * modify it. The memo keeps its own copy of the input arrays, and is
+ * bounded by the estimated bytes of the inputs and results it holds,
+ * set with setMemoWeight(). 0 turns the memo off.
  *
  * @author Alan Hudson, Rex Melton
  * @version $Revision: 1.2 $
  */
 class GeometryUtils {
 	
+	/** The default weight limit of the memo in bytes */
+	private static final long DEFAULT_MEMO_WEIGHT = 16 * 1024 * 1024;
+	
+	/** Tessellations by input, least recently used first */
+	private static LinkedHashMap<MemoKey, MemoEntry> memo =
+		new LinkedHashMap<MemoKey, MemoEntry>(64, 0.75f, true);
+	
+	/** The weight limit of the memo in bytes */
+	private static long maxMemoWeight = DEFAULT_MEMO_WEIGHT;
+	
+	/** The estimated bytes of the inputs and results in the memo */
+	private static long memoWeight;
+	
+	/** Number of tessellations found in the memo */
+	private static long memoHits;
+	
+	/** Number of tessellations generated */
+	private static long memoMisses;
+	
 	/** local switch constants */
 	private static final int FIELD_COLORINDEX = 0;
 	private static final int FIELD_NORMALINDEX = 1;
@@ -135,6 +166,151 @@ class GeometryUtils {
 		boolean normalPerVertex, 
 		float creaseAngle) {
 		
+		MemoKey key = null;
+		if (getMemoWeight() > 0) {
+			key = new MemoKey(
+				genTexCoords, genNormals, vfCoord, vfColor, numColorComponents,
+				vfNormal, vfTexCoord, vfCoordIndex, numCoordIndex, vfColorIndex,
+				vfNormalIndex, vfTexCoordIndex, ccw, convex, colorPerVertex,
+				normalPerVertex, creaseAngle);
+			
+			synchronized(memo) {
+				MemoEntry entry = memo.get(key);
+				if (entry != null) {
+					memoHits++;
+					geomData = entry.geomData;
+					return(entry.result);
+				}
+				memoMisses++;
+			}
+		}
+		
+		boolean result = tessellate(
+			genTexCoords, genNormals, vfCoord, vfColor, numColorComponents,
+			vfNormal, vfTexCoord, vfCoordIndex, numCoordIndex, vfColorIndex,
+			vfNormalIndex, vfTexCoordIndex, ccw, convex, colorPerVertex,
+			normalPerVertex, creaseAngle);
+		
+		if (key != null) {
+			// the caller's arrays may change, the memo keeps a copy
+			MemoEntry entry = new MemoEntry(key.copy(), geomData, result);
+			synchronized(memo) {
+				if (entry.weight <= maxMemoWeight) {
+					MemoEntry old = memo.put(entry.key, entry);
+					if (old != null) {
+						memoWeight -= old.weight;
+					}
+					memoWeight += entry.weight;
+					trimMemo();
+				}
+			}
+		}
+		
+		return(result);
+	}
+	
+	/**
+	 * Set the weight limit of the memo. 0 turns the memo off.
+	 *
+	 * @param bytes The weight limit in bytes
+	 */
+	static void setMemoWeight(long bytes) {
+		synchronized(memo) {
+			maxMemoWeight = Math.max(0, bytes);
+			trimMemo();
+		}
+	}
+	
+	/**
+	 * Get the weight limit of the memo.
+	 *
+	 * @return The weight limit in bytes
+	 */
+	static long getMemoWeight() {
+		synchronized(memo) {
+			return(maxMemoWeight);
+		}
+	}
+	
+	/**
+	 * Get the estimated bytes of the tessellations remembered.
+	 *
+	 * @return The weight in bytes
+	 */
+	static long getMemoUsedWeight() {
+		synchronized(memo) {
+			return(memoWeight);
+		}
+	}
+	
+	/**
+	 * Forget all remembered tessellations.
+	 */
+	static void clearMemo() {
+		synchronized(memo) {
+			memo.clear();
+			memoWeight = 0;
+		}
+	}
+	
+	/**
+	 * Get the number of tessellations found in the memo.
+	 *
+	 * @return The hit count
+	 */
+	static long getMemoHitCount() {
+		synchronized(memo) {
+			return(memoHits);
+		}
+	}
+	
+	/**
+	 * Get the number of tessellations generated because they were not in
+	 * the memo.
+	 *
+	 * @return The miss count
+	 */
+	static long getMemoMissCount() {
+		synchronized(memo) {
+			return(memoMisses);
+		}
+	}
+	
+	/**
+	 * Drop the least recently used tessellations until the memo is within
+	 * its weight limit. Must be called holding the memo lock.
+	 */
+	private static void trimMemo() {
+		java.util.Iterator<MemoEntry> itr = memo.values().iterator();
+		while ((memoWeight > maxMemoWeight) && itr.hasNext()) {
+			memoWeight -= itr.next().weight;
+			itr.remove();
+		}
+	}
+	
+	/**
+	 * Take an indexed geometry and flatten to a triangle array, without
+	 * using the memo. The parameters are those of generateTriangleArrays().
+	 */
+	private boolean tessellate(
+		boolean genTexCoords,
+		boolean genNormals, 
+		float[] vfCoord, 
+		float[] vfColor,
+		int numColorComponents,
+		float[] vfNormal, 
+		float[] vfTexCoord,
+		int[] vfCoordIndex,
+		int numCoordIndex, 
+		int[] vfColorIndex, 
+		int[] vfNormalIndex,
+		int[] vfTexCoordIndex, 
+		boolean ccw, 
+		boolean convex,
+		boolean colorPerVertex, 
+		boolean normalPerVertex, 
+		float creaseAngle) {
+		
 		this.vfCoordIndex = vfCoordIndex;
 		this.numCoordIndex = numCoordIndex;
 		this.vfNormalIndex = vfNormalIndex;
@@ -1382,4 +1558,248 @@ class GeometryUtils {
 			res[2] *= len;
 		}
 	}
+	
+	/**
+	 * The input of a tessellation. Arrays are compared by content, the
+	 * hash is computed once. A key made for a lookup refers to the
+	 * caller's arrays, the key kept in the memo is a copy().
+	 */
+	private static class MemoKey {
+		
+		private final boolean genTexCoords;
+		private final boolean genNormals;
+		private final float[] coord;
+		private final float[] color;
+		private final int numColorComponents;
+		private final float[] normal;
+		private final float[] texCoord;
+		private final int[] coordIndex;
+		private final int numCoordIndex;
+		private final int[] colorIndex;
+		private final int[] normalIndex;
+		private final int[] texCoordIndex;
+		private final boolean ccw;
+		private final boolean convex;
+		private final boolean colorPerVertex;
+		private final boolean normalPerVertex;
+		private final float creaseAngle;
+		
+		/** The hash of all the above */
+		private final int hash;
+		
+		MemoKey(
+			boolean genTexCoords,
+			boolean genNormals, 
+			float[] coord, 
+			float[] color,
+			int numColorComponents,
+			float[] normal, 
+			float[] texCoord,
+			int[] coordIndex,
+			int numCoordIndex, 
+			int[] colorIndex, 
+			int[] normalIndex,
+			int[] texCoordIndex, 
+			boolean ccw, 
+			boolean convex,
+			boolean colorPerVertex, 
+			boolean normalPerVertex, 
+			float creaseAngle) {
+			
+			this.genTexCoords = genTexCoords;
+			this.genNormals = genNormals;
+			this.coord = coord;
+			this.color = color;
+			this.numColorComponents = numColorComponents;
+			this.normal = normal;
+			this.texCoord = texCoord;
+			this.coordIndex = coordIndex;
+			this.numCoordIndex = numCoordIndex;
+			this.colorIndex = colorIndex;
+			this.normalIndex = normalIndex;
+			this.texCoordIndex = texCoordIndex;
+			this.ccw = ccw;
+			this.convex = convex;
+			this.colorPerVertex = colorPerVertex;
+			this.normalPerVertex = normalPerVertex;
+			this.creaseAngle = creaseAngle;
+			
+			int coordIndexHash = Arrays.hashCode(coordIndex);
+			
+			int h = Arrays.hashCode(coord);
+			h = 31 * h + coordIndexHash;
+			h = 31 * h + Arrays.hashCode(color);
+			h = 31 * h + Arrays.hashCode(normal);
+			h = 31 * h + Arrays.hashCode(texCoord);
+			// the other indices are usually the coordIndex again, which
+			// hashes the same as an equal copy of it
+			h = 31 * h + ((colorIndex == coordIndex) ? coordIndexHash : Arrays.hashCode(colorIndex));
+			h = 31 * h + ((normalIndex == coordIndex) ? coordIndexHash : Arrays.hashCode(normalIndex));
+			h = 31 * h + ((texCoordIndex == coordIndex) ? coordIndexHash : Arrays.hashCode(texCoordIndex));
+			h = 31 * h + numColorComponents;
+			h = 31 * h + numCoordIndex;
+			h = 31 * h + Float.floatToIntBits(creaseAngle);
+			h = 31 * h + (genTexCoords ? 1 : 0);
+			h = 31 * h + (genNormals ? 2 : 0);
+			h = 31 * h + (ccw ? 4 : 0);
+			h = 31 * h + (convex ? 8 : 0);
+			h = 31 * h + (colorPerVertex ? 16 : 0);
+			h = 31 * h + (normalPerVertex ? 32 : 0);
+			hash = h;
+		}
+		
+		/**
+		 * Private constructor for copy(), which keeps the hash.
+		 */
+		private MemoKey(MemoKey k) {
+			
+			genTexCoords = k.genTexCoords;
+			genNormals = k.genNormals;
+			coord = copy(k.coord);
+			color = copy(k.color);
+			numColorComponents = k.numColorComponents;
+			normal = copy(k.normal);
+			texCoord = copy(k.texCoord);
+			coordIndex = copy(k.coordIndex);
+			numCoordIndex = k.numCoordIndex;
+			colorIndex = (k.colorIndex == k.coordIndex) ? coordIndex : copy(k.colorIndex);
+			normalIndex = (k.normalIndex == k.coordIndex) ? coordIndex : copy(k.normalIndex);
+			texCoordIndex = (k.texCoordIndex == k.coordIndex) ? coordIndex : copy(k.texCoordIndex);
+			ccw = k.ccw;
+			convex = k.convex;
+			colorPerVertex = k.colorPerVertex;
+			normalPerVertex = k.normalPerVertex;
+			creaseAngle = k.creaseAngle;
+			hash = k.hash;
+		}
+		
+		/**
+		 * Get a key equal to this one that holds its own copy of the
+		 * arrays.
+		 */
+		MemoKey copy() {
+			return(new MemoKey(this));
+		}
+		
+		/**
+		 * Get the estimated bytes of the arrays of this key.
+		 */
+		long getWeight() {
+			long bytes = 4L * (length(coord) + length(color) + length(normal) +
+				length(texCoord) + length(coordIndex));
+			if (colorIndex != coordIndex) {
+				bytes += 4L * length(colorIndex);
+			}
+			if (normalIndex != coordIndex) {
+				bytes += 4L * length(normalIndex);
+			}
+			if (texCoordIndex != coordIndex) {
+				bytes += 4L * length(texCoordIndex);
+			}
+			return(bytes);
+		}
+		
+		public int hashCode() {
+			return(hash);
+		}
+		
+		public boolean equals(Object o) {
+			if (this == o) {
+				return(true);
+			}
+			if (!(o instanceof MemoKey)) {
+				return(false);
+			}
+			
+			MemoKey k = (MemoKey)o;
+			return((hash == k.hash) &&
+				(genTexCoords == k.genTexCoords) &&
+				(genNormals == k.genNormals) &&
+				(numColorComponents == k.numColorComponents) &&
+				(numCoordIndex == k.numCoordIndex) &&
+				(ccw == k.ccw) &&
+				(convex == k.convex) &&
+				(colorPerVertex == k.colorPerVertex) &&
+				(normalPerVertex == k.normalPerVertex) &&
+				(Float.floatToIntBits(creaseAngle) ==
+					Float.floatToIntBits(k.creaseAngle)) &&
+				Arrays.equals(coordIndex, k.coordIndex) &&
+				Arrays.equals(coord, k.coord) &&
+				Arrays.equals(color, k.color) &&
+				Arrays.equals(normal, k.normal) &&
+				Arrays.equals(texCoord, k.texCoord) &&
+				sameIndex(colorIndex, coordIndex, k.colorIndex, k.coordIndex) &&
+				sameIndex(normalIndex, coordIndex, k.normalIndex, k.coordIndex) &&
+				sameIndex(texCoordIndex, coordIndex, k.texCoordIndex, k.coordIndex));
+		}
+		
+		/**
+		 * Compare a secondary index of two keys, which may be the coordIndex
+		 * of its key.
+		 */
+		private static boolean sameIndex(
+			int[] a, int[] aCoord, int[] b, int[] bCoord) {
+			
+			if ((a == aCoord) && (b == bCoord)) {
+				return(true);
+			}
+			return(Arrays.equals(a, b));
+		}
+		
+		private static float[] copy(float[] array) {
+			return((array == null) ? null : array.clone());
+		}
+		
+		private static int[] copy(int[] array) {
+			return((array == null) ? null : array.clone());
+		}
+	}
+	
+	/**
+	 * Get the length of an array that may be null.
+	 */
+	private static int length(float[] array) {
+		return((array == null) ? 0 : array.length);
+	}
+	
+	/**
+	 * Get the length of an array that may be null.
+	 */
+	private static int length(int[] array) {
+		return((array == null) ? 0 : array.length);
+	}
+	
+	/**
+	 * A remembered tessellation.
+	 */
+	private static class MemoEntry {
+		
+		/** The input, holding its own copy of the arrays */
+		final MemoKey key;
+		
+		/** The tessellated geometry */
+		final GeometryData geomData;
+		
+		/** The value returned by generateTriangleArrays() */
+		final boolean result;
+		
+		/** The estimated bytes of the input and the geometry */
+		final long weight;
+		
+		MemoEntry(MemoKey key, GeometryData geomData, boolean result) {
+			this.key = key;
+			this.geomData = geomData;
+			this.result = result;
+			
+			long bytes = key.getWeight();
+			if (geomData != null) {
+				bytes += 4L * (length(geomData.coordinates) +
+					length(geomData.normals) +
+					length(geomData.colors) +
+					length(geomData.textureCoordinates) +
+					length(geomData.indexes));
+			}
+			weight = bytes;
+		}
+	}
 }
@@ -0,0 +1,117 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.av3d;
+
+// External imports
+// None
+
+// Internal imports
+// None
+
+/**
+ * Handle on a model load queued with AV3DLoader.loadThreaded().
+ * <p>
+ * Cancelling a request stops its listener from being notified. When every
+ * request waiting on a model has been cancelled before the load starts,
+ * the load is removed from the queue and the model is never parsed. A
+ * load that is already running is allowed to finish, so the result still
+ * ends up in the cache.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class LoadRequest {
+
+    /** The loader that queued the request */
+    private AV3DLoader loader;
+
+    /** The load the request is waiting on */
+    AV3DLoader.LoadTask task;
+
+    /** The listener to notify */
+    LoadListener listener;
+
+    /** The priority of the request */
+    int priority;
+
+    /** Has the request been cancelled */
+    volatile boolean cancelled;
+
+    /** Has the listener been notified */
+    volatile boolean done;
+
+    /**
+     * Constructor
+     *
+     * @param loader The loader queueing the request
+     * @param listener The listener to notify
+     * @param priority The priority of the request
+     */
+    LoadRequest(AV3DLoader loader, LoadListener listener, int priority) {
+        this.loader = loader;
+        this.listener = listener;
+        this.priority = priority;
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Cancel the request. The listener will not be notified unless it
+     * already has been.
+     *
+     * @return true if the request was cancelled, false if it had already
+     * completed
+     */
+    public boolean cancel() {
+        return loader.cancel(this);
+    }
+
+    /**
+     * Change the priority of the request. Has no effect once the load
+     * has started.
+     *
+     * @param priority One of the AV3DLoader PRIORITY constants
+     */
+    public void setPriority(int priority) {
+        loader.reprioritize(this, priority);
+    }
+
+    /**
+     * Get the priority of the request.
+     *
+     * @return One of the AV3DLoader PRIORITY constants
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Check if the request has been cancelled.
+     *
+     * @return true if the request has been cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Check if the listener has been notified.
+     *
+     * @return true if the load has completed
+     */
+    public boolean isDone() {
+        return done;
+    }
+}
@@ -78,7 +78,7 @@ class LocationLayerManager extends AbstractLayerManager
         NodeUpdateListener,
         UserInputHandler,
         PerFrameObserver,
-        EntityPropertyListener,
+        KeyedEntityPropertyListener,
         EntityChildListener,
         EntitySelectionListener,
         AV3DConstants,
@@ -1835,11 +1835,30 @@ class LocationLayerManager extends AbstractLayerManager
     public void propertyUpdated(int entityID, String propertySheet,
         String propertyName, boolean ongoing) {
 
+        propertyUpdated(
+            entityID, PropertyKey.get(propertySheet, propertyName), ongoing);
+    }
+
+    //----------------------------------------------------------
+    // Methods for KeyedEntityPropertyListener
+    //----------------------------------------------------------
+
+    public void propertyUpdated(int entityID, PropertyKey key, boolean ongoing) {
+
+        // most updates are transform changes of other entities, so check
+        // the ID before looking the entity up
+        if (activeLocationEntity == null ||
+            activeLocationEntity.getEntityID() != entityID) {
+            return;
+        }
+
         Entity entity = model.getEntity(entityID);
 
         if (entity instanceof LocationEntity) {
             if (entity == activeLocationEntity) {
 
+                String propertyName = key.getName();
+
                 if (propertyName.equals(LocationEntity.ACTIVE_ZONE_PROP)) {
                     // update the active zone
                     int zoneID = activeLocationEntity.getActiveZoneID();
@@ -2320,6 +2339,13 @@ class LocationLayerManager extends AbstractLayerManager
 				// inform those that need to know
 				zoneView.configView(activeZoneEntity);
 				
+				// load the models of the new zone first
+				for (Iterator<AV3DEntityManager> i = 
+					locationManagerMap.values().iterator(); i.hasNext();) {
+					
+					i.next().setActiveZoneEntity(activeZoneEntity);
+				}
+				
 				for (int i = 0; i < configListenerList.size(); i++) {
 					ConfigListener cl = configListenerList.get(i);
 					cl.setActiveZoneEntity(activeZoneEntity);
@@ -2423,6 +2449,7 @@ class LocationLayerManager extends AbstractLayerManager
             urlFilter,
             progressListener,
             errorReporter);
+        em.setActiveZoneEntity(activeZoneEntity);
 
         locationManagerMap.put(id, em);
     }
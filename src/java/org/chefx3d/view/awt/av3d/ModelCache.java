@@ -0,0 +1,519 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.av3d;
+
+// External imports
+import java.lang.ref.SoftReference;
+
+import java.util.*;
+
+import org.j3d.aviatrix3d.*;
+
+// Local imports
+// None
+
+/**
+ * Cache of loaded models, shared by all AV3DLoader instances.
+ * <p>
+ * Models are held strongly in least recently used order until the total
+ * weight passes the limit. The weight of a model is an estimate of the
+ * bytes used by its vertices, indices and texture images. Models evicted
+ * from the strong tier move to a soft tier, where the garbage collector
+ * may reclaim them, so a model that is still in use elsewhere can be found
+ * again without reloading it.
+ * <p>
+ * Only one thread loads a given key at a time. A thread asking for a key
+ * that is being loaded waits for that load rather than starting another.
+ * <p>
+ * The weight limit is read in megabytes from the chefx3d.av3d.modelCacheSize
+ * system property, and the soft tier is disabled by setting
+ * chefx3d.av3d.modelCacheSoft to false.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class ModelCache {
+
+    /** System property setting the weight limit in megabytes */
+    public static final String SIZE_PROPERTY = "chefx3d.av3d.modelCacheSize";
+
+    /** System property used to disable the soft tier */
+    public static final String SOFT_PROPERTY = "chefx3d.av3d.modelCacheSoft";
+
+    /** The default weight limit in megabytes */
+    private static final int DEFAULT_SIZE_MB = 256;
+
+    /** The weight added to every model for the scene graph objects */
+    private static final long NODE_OVERHEAD = 1024;
+
+    /** Estimated bytes per vertex, coordinate, normal and texture coordinate */
+    private static final int BYTES_PER_VERTEX = 32;
+
+    /**
+     * Returned by beginLoad() when the wait for another thread's load was
+     * interrupted. The caller does not own the load and should give up.
+     */
+    static final Node[] LOAD_CANCELLED = new Node[0];
+
+    /** The singleton instance */
+    private static ModelCache modelCache;
+
+    /** Models held strongly, in least recently used order */
+    private LinkedHashMap<String, Entry> strongEntries;
+
+    /** Models evicted from the strong tier */
+    private HashMap<String, SoftReference<Entry>> softEntries;
+
+    /** Keys being loaded */
+    private HashSet<String> loading;
+
+    /** Is the soft tier in use */
+    private boolean softEnabled;
+
+    /** The weight limit of the strong tier in bytes */
+    private long maxWeight;
+
+    /** The weight of the strong tier in bytes */
+    private long weight;
+
+    /** Number of requests found in the strong tier */
+    private long hitCount;
+
+    /** Number of requests found in the soft tier */
+    private long softHitCount;
+
+    /** Number of requests that had to be loaded */
+    private long missCount;
+
+    /** Number of models evicted from the strong tier */
+    private long evictionCount;
+
+    /**
+     * A cached model.
+     */
+    private static class Entry {
+
+        /** The model */
+        final Node[] nodes;
+
+        /** The estimated size of the model in bytes */
+        final long weight;
+
+        Entry(Node[] nodes, long weight) {
+            this.nodes = nodes;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param maxWeight The weight limit of the strong tier in bytes
+     * @param softEnabled Should evicted models be kept softly
+     */
+    ModelCache(long maxWeight, boolean softEnabled) {
+        this.maxWeight = maxWeight;
+        this.softEnabled = softEnabled;
+
+        strongEntries = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+        softEntries = new HashMap<String, SoftReference<Entry>>();
+        loading = new HashSet<String>();
+    }
+
+    /**
+     * Get the singleton ModelCache.
+     *
+     * @return ModelCache
+     */
+    public static synchronized ModelCache getInstance() {
+
+        if (modelCache == null) {
+
+            int size = DEFAULT_SIZE_MB;
+            String prop = System.getProperty(SIZE_PROPERTY);
+            if (prop != null) {
+                try {
+                    size = Math.max(0, Integer.parseInt(prop));
+                } catch (NumberFormatException nfe) {
+                    // keep the default
+                }
+            }
+
+            boolean soft = !"false".equals(System.getProperty(SOFT_PROPERTY));
+
+            modelCache = new ModelCache(size * 1024L * 1024L, soft);
+        }
+
+        return modelCache;
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Get a model, or claim the right to load it. If another thread is
+     * loading the model, wait for it to finish. When null is returned the
+     * caller must load the model and then call endLoad(), even if the
+     * load fails. If the wait is interrupted the interrupt flag is kept
+     * and LOAD_CANCELLED is returned, the load stays with the thread
+     * that claimed it.
+     *
+     * @param key The url or file name of the model
+     * @return The model, null if the caller should load it, or
+     * LOAD_CANCELLED if the wait was interrupted
+     */
+    synchronized Node[] beginLoad(String key) {
+
+        boolean waited = false;
+        while (true) {
+
+            Node[] nodes = lookup(key, !waited);
+            if (nodes != null) {
+                return nodes;
+            }
+
+            if (!loading.contains(key)) {
+                if (!waited) {
+                    missCount++;
+                }
+                loading.add(key);
+                return null;
+            }
+
+            waited = true;
+            try {
+                wait();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return LOAD_CANCELLED;
+            }
+        }
+    }
+
+    /**
+     * Finish a load claimed with beginLoad(), caching the model and waking
+     * any threads waiting for it.
+     *
+     * @param key The url or file name of the model
+     * @param nodes The model, or null if it could not be loaded
+     */
+    synchronized void endLoad(String key, Node[] nodes) {
+
+        loading.remove(key);
+
+        if (nodes != null) {
+            put(key, nodes);
+        }
+
+        notifyAll();
+    }
+
+    /**
+     * Get a model if it is cached.
+     *
+     * @param key The url or file name of the model
+     * @return The model, or null if it is not cached
+     */
+    public synchronized Node[] get(String key) {
+
+        Node[] nodes = lookup(key, true);
+        if (nodes == null) {
+            missCount++;
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Add a model to the cache, replacing any with the same key.
+     *
+     * @param key The url or file name of the model
+     * @param nodes The model
+     */
+    public synchronized void put(String key, Node[] nodes) {
+
+        remove(key);
+
+        Entry entry = new Entry(nodes, estimateWeight(nodes));
+        strongEntries.put(key, entry);
+        weight += entry.weight;
+
+        trim();
+    }
+
+    /**
+     * Remove a model from the cache.
+     *
+     * @param key The url or file name of the model
+     */
+    public synchronized void remove(String key) {
+
+        Entry entry = strongEntries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+        softEntries.remove(key);
+    }
+
+    /**
+     * Remove all models from the cache. The statistics are kept.
+     */
+    public synchronized void clear() {
+        strongEntries.clear();
+        softEntries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Set the weight limit of the strong tier, evicting models if the
+     * cache is now over it.
+     *
+     * @param bytes The weight limit in bytes
+     */
+    public synchronized void setMaxWeight(long bytes) {
+        maxWeight = Math.max(0, bytes);
+        trim();
+    }
+
+    /**
+     * Get the weight limit of the strong tier.
+     *
+     * @return The weight limit in bytes
+     */
+    public synchronized long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Get the estimated weight of the models held strongly.
+     *
+     * @return The weight in bytes
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Get the number of models held strongly.
+     *
+     * @return The number of models
+     */
+    public synchronized int getSize() {
+        return strongEntries.size();
+    }
+
+    /**
+     * Get the number of requests found in the strong tier.
+     *
+     * @return The hit count
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of requests found in the soft tier.
+     *
+     * @return The soft hit count
+     */
+    public synchronized long getSoftHitCount() {
+        return softHitCount;
+    }
+
+    /**
+     * Get the number of requests that were not cached.
+     *
+     * @return The miss count
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Get the number of models evicted from the strong tier.
+     *
+     * @return The eviction count
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Find a model in either tier, moving a soft hit back to the strong
+     * tier.
+     *
+     * @param key The url or file name of the model
+     * @param count Should a hit be counted
+     * @return The model, or null if it is not cached
+     */
+    private Node[] lookup(String key, boolean count) {
+
+        Entry entry = strongEntries.get(key);
+        if (entry != null) {
+            if (count) {
+                hitCount++;
+            }
+            return entry.nodes;
+        }
+
+        SoftReference<Entry> ref = softEntries.remove(key);
+        if (ref != null) {
+            entry = ref.get();
+            if (entry != null) {
+                if (count) {
+                    softHitCount++;
+                }
+                strongEntries.put(key, entry);
+                weight += entry.weight;
+                trim();
+
+                return entry.nodes;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Evict the least recently used models until the strong tier is
+     * within its weight limit. The most recently used model is always
+     * kept.
+     */
+    private void trim() {
+
+        if (weight <= maxWeight) {
+            return;
+        }
+
+        Iterator<Map.Entry<String, Entry>> itr =
+            strongEntries.entrySet().iterator();
+
+        while (weight > maxWeight && strongEntries.size() > 1) {
+
+            Map.Entry<String, Entry> eldest = itr.next();
+            Entry entry = eldest.getValue();
+            itr.remove();
+
+            weight -= entry.weight;
+            evictionCount++;
+
+            if (softEnabled) {
+                softEntries.put(
+                    eldest.getKey(),
+                    new SoftReference<Entry>(entry));
+            }
+        }
+
+        // drop soft entries that have been collected
+        if (softEnabled) {
+            Iterator<SoftReference<Entry>> softItr =
+                softEntries.values().iterator();
+            while (softItr.hasNext()) {
+                if (softItr.next().get() == null) {
+                    softItr.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimate the bytes used by a model. Geometry and textures shared
+     * within the model are only counted once.
+     *
+     * @param nodes The model
+     * @return The estimated size in bytes
+     */
+    static long estimateWeight(Node[] nodes) {
+
+        IdentityHashMap<Object, Object> visited =
+            new IdentityHashMap<Object, Object>();
+
+        long total = NODE_OVERHEAD;
+        for (int i = 0; i < nodes.length; i++) {
+            total += estimateWeight(nodes[i], visited);
+        }
+
+        return total;
+    }
+
+    /**
+     * Estimate the bytes used by a node and everything below it.
+     *
+     * @param node The node
+     * @param visited The objects already counted
+     * @return The estimated size in bytes
+     */
+    private static long estimateWeight(
+        Node node,
+        IdentityHashMap<Object, Object> visited) {
+
+        if (node == null || visited.put(node, node) != null) {
+            return 0;
+        }
+
+        long total = 0;
+
+        if (node instanceof Group) {
+
+            Group group = (Group)node;
+            int num = group.numChildren();
+            for (int i = 0; i < num; i++) {
+                total += estimateWeight(group.getChild(i), visited);
+            }
+
+        } else if (node instanceof SharedNode) {
+
+            total += estimateWeight(((SharedNode)node).getChild(), visited);
+
+        } else if (node instanceof Shape3D) {
+
+            Shape3D shape = (Shape3D)node;
+
+            Geometry geom = shape.getGeometry();
+            if (geom instanceof VertexGeometry &&
+                visited.put(geom, geom) == null) {
+
+                VertexGeometry vgeom = (VertexGeometry)geom;
+                total += (long)vgeom.getValidVertexCount() * BYTES_PER_VERTEX;
+
+                if (geom instanceof IndexedVertexGeometry) {
+                    total += (long)((IndexedVertexGeometry)geom).
+                        getValidIndexCount() * 4;
+                }
+            }
+
+            Appearance app = shape.getAppearance();
+            if (app != null && app.numTextureUnits() > 0) {
+
+                TextureUnit[] units = new TextureUnit[app.numTextureUnits()];
+                app.getTextureUnits(units);
+
+                for (int i = 0; i < units.length; i++) {
+                    Texture tex = (units[i] != null) ?
+                        units[i].getTexture() : null;
+
+                    if (tex != null && visited.put(tex, tex) == null) {
+                        long pixels = tex.getWidth();
+                        if (tex instanceof Texture2D) {
+                            pixels *= ((Texture2D)tex).getHeight();
+                        }
+                        total += pixels * 4;
+                    }
+                }
+            }
+        }
+
+        return total;
+    }
+}
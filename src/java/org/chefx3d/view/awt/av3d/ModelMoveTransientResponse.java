@@ -296,7 +296,7 @@ class ModelMoveTransientResponse implements TrackerEventResponse {
 
 				editorGrid.alignPositionToGrid(newEntityPosition);
 		
-				Command cmd = new MoveEntityTransientCommand(
+				Command cmd = MoveEntityTransientCommand.obtain(
 					model,
 					model.issueTransactionID(),
 					entity.getEntityID(),
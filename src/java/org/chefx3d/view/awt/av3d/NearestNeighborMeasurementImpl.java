@@ -52,6 +52,9 @@ class NearestNeighborMeasurementImpl implements NearestNeighborMeasurement {
     /** The zone collision manager */
     private ZoneCollisionManager zcm;
 
+    /** The bounds indexes of the zones checked, by zone entity ID */
+    private HashMap<Integer, ZoneAxisIndex> zoneIndexMap;
+
     /** Entity hierarchy utils */
     private EntityUtils entityUtils;
 
@@ -109,6 +112,7 @@ class NearestNeighborMeasurementImpl implements NearestNeighborMeasurement {
         bounds = new OrientedBoundingBox();
 
         zcm = new ZoneCollisionManager();
+        zoneIndexMap = new HashMap<Integer, ZoneAxisIndex>();
     }
 
     // ---------------------------------------------------------------
@@ -269,14 +273,11 @@ class NearestNeighborMeasurementImpl implements NearestNeighborMeasurement {
         /////////////////////////////////////////////////////
 
         // check against the current zone's children
-        zcm.setWrapperMap(wrapperMap);
-        zcm.setActiveZoneEntity((ZoneEntity)activeZone);
-        zcm.check(activeZone, currentEntity, bounds, returnList);
+        checkZone(activeZone, currentEntity, returnList);
 
         if (adjacentZone != null) {
             // if an adjacent zone exists, check it's entities as well
-            zcm.setActiveZoneEntity(adjacentZone);
-            zcm.check(adjacentZone, currentEntity, bounds, returnList);
+            checkZone(adjacentZone, currentEntity, returnList);
 
             // check the zone separately
             int id = adjacentZone.getEntityID();
@@ -397,12 +398,49 @@ class NearestNeighborMeasurementImpl implements NearestNeighborMeasurement {
      */
     void setWrapperMap(HashMap<Integer, AV3DEntityWrapper> map) {
         wrapperMap = map;
+
+        // the indexes belong to the previous map's zones
+        for (ZoneAxisIndex index : zoneIndexMap.values()) {
+            index.dispose();
+        }
+        zoneIndexMap.clear();
     }
 
     // ---------------------------------------------------------------
     // Local Private Methods
     // ---------------------------------------------------------------
 
+    /**
+     * Find the entities below a zone that intersect the working bounds,
+     * using the zone's bounds index.
+     *
+     * @param zone The zone to check
+     * @param currentEntity The entity being checked, which is skipped
+     * along with its children
+     * @param results The list to add the entities found to
+     */
+    private void checkZone(
+        Entity zone,
+        Entity currentEntity,
+        ArrayList<Entity> results) {
+
+        int zoneID = zone.getEntityID();
+        ZoneAxisIndex index = zoneIndexMap.get(zoneID);
+        if ((index == null) || (index.getZoneEntity() != zone)) {
+            if (index != null) {
+                index.dispose();
+            }
+            index = new ZoneAxisIndex(zone, wrapperMap);
+            zoneIndexMap.put(zoneID, index);
+        }
+
+        if (!index.check(currentEntity, bounds, results)) {
+            // the zone is not in the scene, check its children directly
+            zcm.setWrapperMap(wrapperMap);
+            zcm.check(zone, currentEntity, bounds, results);
+        }
+    }
+
     /**
      * Returns the extents of an entity
      */
@@ -1265,6 +1265,9 @@ class PreviewLayerManager
 			errorReporter);
 		//em.setShadowEntityEnabled(false);
 		
+		// previews and thumbnails wait for the editor's models
+		em.setLoadPriority(AV3DLoader.PRIORITY_LOW);
+		
 		locationManagerMap.put(id, em);
 		
 		le.addEntityChildListener(this);
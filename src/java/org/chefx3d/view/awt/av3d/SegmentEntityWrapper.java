@@ -42,6 +42,7 @@ import org.chefx3d.model.EntityProperty;
 import org.chefx3d.model.EnvironmentEntity;
 import org.chefx3d.model.ListProperty;
 import org.chefx3d.model.PositionableEntity;
+import org.chefx3d.model.PropertyKey;
 import org.chefx3d.model.SegmentableEntity;
 import org.chefx3d.model.SegmentEntity;
 import org.chefx3d.model.VertexEntity;
@@ -450,11 +451,11 @@ class SegmentEntityWrapper extends AV3DEntityWrapper implements EntityChildListe
         String propertyName) {
     }
 
-    public void propertyUpdated(
-        int entityID,
-        String propertySheet,
-        String propertyName,
-        boolean ongoing) {
+    //----------------------------------------------------------
+    // Methods for KeyedEntityPropertyListener
+    //----------------------------------------------------------
+
+    public void propertyUpdated(int entityID, PropertyKey key, boolean ongoing) {
 
         if (embeddedEntityMap.containsKey(entityID)) {
             PositionableEntity pe = embeddedEntityMap.get(entityID);
@@ -479,12 +480,12 @@ class SegmentEntityWrapper extends AV3DEntityWrapper implements EntityChildListe
                 }
                 updateSegment();
             }
-        } else if (propertyName.equals(EnvironmentEntity.SHARED_COLOR1_PROP)) {
+        } else if (key.getName().equals(EnvironmentEntity.SHARED_COLOR1_PROP)) {
 
             Color color = environment.getSharedColor1();
             configColor(color);
 
-        } else if (propertyName.equals(SegmentEntity.STANDARD_FACING_PROP)) {
+        } else if (key.getName().equals(SegmentEntity.STANDARD_FACING_PROP)) {
 
             updateSegment();
         }
@@ -660,6 +661,7 @@ class SegmentEntityWrapper extends AV3DEntityWrapper implements EntityChildListe
             changeSegmentMatrix = true;
             mgmtObserver.requestBoundsUpdate(transformGroup, this);
         }
+        fireTransformChanged();
     }
 
     /**
@@ -226,6 +226,8 @@ class ShadowEntityWrapper extends AV3DEntityWrapper implements
     protected void dispose() {
         super.dispose();
         mgmtObserver.removeObserver(this);
+
+        cancelLoad();
     }
 
     /**
@@ -312,7 +314,9 @@ class ShadowEntityWrapper extends AV3DEntityWrapper implements
             String url_string = entity.getModelURL();
             AV3DLoader loader = new AV3DLoader(progressListener, urlFilter);
     
-            loader.loadThreaded(url_string, true, this);
+            int priority = entity.isSelected() ?
+                AV3DLoader.PRIORITY_HIGH : AV3DLoader.PRIORITY_NORMAL;
+            loadRequest = loader.loadThreaded(url_string, true, this, priority);
         }
         
     }
@@ -128,8 +128,10 @@ public class TransformUtils {
      * @param start The Node to work from
      * @param end The Node to work to
      * @param mat The matrix to put the final result into
+     * @return true if the end Node was reached, false if the walk ended
+     * at a root first and the matrix is to that root instead
      */
-    void getLocalToVworld(Node start, Node end, Matrix4f mat) {
+    boolean getLocalToVworld(Node start, Node end, Matrix4f mat) {
         
         //if ((start instanceof TransformGroup) && (start != end)) {
         if (start instanceof TransformGroup) {
@@ -187,6 +189,8 @@ public class TransformUtils {
         }
         pathList.clear();
         clear();
+        
+        return(parent == end);
     }
     
     /**
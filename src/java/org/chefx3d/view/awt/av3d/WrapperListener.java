@@ -42,4 +42,12 @@ interface WrapperListener {
 	 * @param src The wrapper object that has experienced a change
 	 */
 	public void geometryChanged(Object src);
+	
+	/**
+	 * Notification that the transform (position, rotation or scale)
+	 * has changed on the argument.
+	 *
+	 * @param src The wrapper object that has experienced a change
+	 */
+	public void transformChanged(Object src);
 }
@@ -16,6 +16,8 @@ package org.chefx3d.view.awt.av3d;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import org.j3d.geom.GeometryData;
+
 import org.web3d.vrml.lang.FieldConstants;
 
 // Local imports
@@ -44,6 +46,9 @@ public class XNode {
     /** The field data map, keyed by field name */
     private HashMap <String, Object>fieldData;
 
+    /** The triangulated form of a geometry node, null until generated */
+    private GeometryData tessellation;
+
     /** Indentation for the print method */
     private static String indent = "";
 
@@ -162,6 +167,25 @@ public class XNode {
         return(data);
     }
 
+    /**
+     * Return the triangulated form of this geometry node, if it has been
+     * generated or read from the binary model cache.
+     *
+     * @return The triangulated geometry, or null
+     */
+    GeometryData getTessellation() {
+        return(tessellation);
+    }
+
+    /**
+     * Set the triangulated form of this geometry node.
+     *
+     * @param tessellation The triangulated geometry
+     */
+    void setTessellation(GeometryData tessellation) {
+        this.tessellation = tessellation;
+    }
+
     /**
      * Create a shallow copy, which includes only the nodeName
      * and fieldInfo, but no fieldData.
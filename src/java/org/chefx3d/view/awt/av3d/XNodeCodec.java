@@ -0,0 +1,506 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/gpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.av3d;
+
+// External imports
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import org.j3d.geom.GeometryData;
+
+import org.web3d.vrml.lang.FieldConstants;
+
+// Local imports
+// None
+
+/**
+ * Compact binary form of an XNode scene.
+ * <p>
+ * The scene is written with its field values as typed arrays, so reading
+ * it back needs no XML parsing or string to number conversion. Nodes that
+ * are USEd more than once are written once and referenced after that.
+ * Geometry that has been tessellated by the GeometryFactory is written
+ * along with its node, so a scene read back also skips triangulation and
+ * normal generation.
+ * <p>
+ * All values are big endian, as written by DataOutputStream, so that the
+ * reader can take the arrays straight out of a ByteBuffer.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+class XNodeCodec {
+
+    /** Identifies the file, "CX3B" */
+    private static final int MAGIC = 0x43583342;
+
+    /**
+     * The version of the format and of the loader that produced the
+     * tessellation. Change this whenever either changes, so that stale
+     * files are ignored.
+     */
+    static final int VERSION = 1;
+
+    /** Value tags */
+    private static final byte NULL = 0;
+    private static final byte NODE = 1;
+    private static final byte NODE_REF = 2;
+    private static final byte NODE_LIST = 3;
+    private static final byte INT = 4;
+    private static final byte FLOAT = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte BOOLEAN = 7;
+    private static final byte LONG = 8;
+    private static final byte STRING = 9;
+    private static final byte INT_ARRAY = 10;
+    private static final byte FLOAT_ARRAY = 11;
+    private static final byte DOUBLE_ARRAY = 12;
+    private static final byte BOOLEAN_ARRAY = 13;
+    private static final byte LONG_ARRAY = 14;
+    private static final byte STRING_ARRAY = 15;
+
+    /** The name of the root node, which the XNodeFactory does not know */
+    private static final String SCENE_NAME = "Scene";
+
+    /** Nodes written so far, with the index they are referenced by */
+    private IdentityHashMap<XNode, Integer> writtenNodes;
+
+    /** Nodes read so far, in the order they were read */
+    private ArrayList<XNode> readNodes;
+
+    /** Source of nodes when reading */
+    private XNodeFactory factory;
+
+    /**
+     * Constructor
+     */
+    XNodeCodec() {
+        writtenNodes = new IdentityHashMap<XNode, Integer>();
+        readNodes = new ArrayList<XNode>();
+        factory = XNodeFactory.getInstance();
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Write a scene.
+     *
+     * @param scene The root of the scene
+     * @param out The stream to write to
+     * @throws IOException if the stream could not be written or the scene
+     * holds a value that cannot be encoded
+     */
+    void write(XNode scene, DataOutputStream out) throws IOException {
+
+        writtenNodes.clear();
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeNode(scene, out);
+        out.flush();
+    }
+
+    /**
+     * Read a scene.
+     *
+     * @param buffer The buffer holding the scene, from its current position
+     * @return The root of the scene, or null if the buffer does not hold a
+     * scene of this version
+     */
+    XNode read(ByteBuffer buffer) {
+
+        readNodes.clear();
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return(null);
+            }
+
+            return(readNode(buffer));
+
+        } catch (BufferUnderflowException bue) {
+            // truncated
+        } catch (RuntimeException re) {
+            // corrupt
+        }
+
+        return(null);
+    }
+
+    /**
+     * Write a node and everything below it.
+     *
+     * @param node The node
+     * @param out The stream to write to
+     */
+    private void writeNode(XNode node, DataOutputStream out)
+        throws IOException {
+
+        writtenNodes.put(node, writtenNodes.size());
+
+        writeString(node.getNodeName(), out);
+
+        String[] fields = node.getUsedFieldNames();
+        out.writeInt(fields.length);
+        for (int i = 0; i < fields.length; i++) {
+            writeString(fields[i], out);
+            writeValue(node.getFieldData(fields[i]), out);
+        }
+
+        GeometryData data = node.getTessellation();
+        if (data == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeInt(data.vertexCount);
+            writeFloats(data.coordinates, out);
+            writeFloats(data.normals, out);
+            writeFloats(data.colors, out);
+            writeFloats(data.textureCoordinates, out);
+        }
+    }
+
+    /**
+     * Read a node and everything below it.
+     *
+     * @param buffer The buffer to read from
+     * @return The node
+     */
+    private XNode readNode(ByteBuffer buffer) {
+
+        String name = readString(buffer);
+
+        XNode node;
+        if (SCENE_NAME.equals(name)) {
+            HashMap<String, Integer> fieldInfo =
+                new HashMap<String, Integer>(1);
+            fieldInfo.put("children", Integer.valueOf(FieldConstants.MFNODE));
+            node = new XNode(SCENE_NAME, fieldInfo);
+        } else {
+            node = factory.get(name);
+            if (node == null) {
+                throw new IllegalStateException(name);
+            }
+        }
+        readNodes.add(node);
+
+        int num_fields = buffer.getInt();
+        for (int i = 0; i < num_fields; i++) {
+            String field = readString(buffer);
+            Object value = readValue(buffer);
+
+            if (value instanceof ArrayList) {
+                ArrayList<?> list = (ArrayList<?>)value;
+                for (int j = 0; j < list.size(); j++) {
+                    node.addFieldData(field, list.get(j));
+                }
+            } else {
+                node.addFieldData(field, value);
+            }
+        }
+
+        if (buffer.get() != 0) {
+            GeometryData data = new GeometryData();
+            data.vertexCount = buffer.getInt();
+            data.coordinates = readFloats(buffer);
+            data.normals = readFloats(buffer);
+            data.colors = readFloats(buffer);
+            data.textureCoordinates = readFloats(buffer);
+            node.setTessellation(data);
+        }
+
+        return(node);
+    }
+
+    /**
+     * Write a field value.
+     *
+     * @param value The value
+     * @param out The stream to write to
+     */
+    private void writeValue(Object value, DataOutputStream out)
+        throws IOException {
+
+        if (value == null) {
+            out.writeByte(NULL);
+
+        } else if (value instanceof XNode) {
+
+            Integer index = writtenNodes.get(value);
+            if (index != null) {
+                out.writeByte(NODE_REF);
+                out.writeInt(index);
+            } else {
+                out.writeByte(NODE);
+                writeNode((XNode)value, out);
+            }
+
+        } else if (value instanceof ArrayList) {
+
+            ArrayList<?> list = (ArrayList<?>)value;
+            out.writeByte(NODE_LIST);
+            out.writeInt(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                writeValue(list.get(i), out);
+            }
+
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer)value);
+
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float)value);
+
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double)value);
+
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean)value);
+
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long)value);
+
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String)value, out);
+
+        } else if (value instanceof int[]) {
+            int[] array = (int[])value;
+            out.writeByte(INT_ARRAY);
+            out.writeInt(array.length);
+            for (int i = 0; i < array.length; i++) {
+                out.writeInt(array[i]);
+            }
+
+        } else if (value instanceof float[]) {
+            out.writeByte(FLOAT_ARRAY);
+            writeFloats((float[])value, out);
+
+        } else if (value instanceof double[]) {
+            double[] array = (double[])value;
+            out.writeByte(DOUBLE_ARRAY);
+            out.writeInt(array.length);
+            for (int i = 0; i < array.length; i++) {
+                out.writeDouble(array[i]);
+            }
+
+        } else if (value instanceof boolean[]) {
+            boolean[] array = (boolean[])value;
+            out.writeByte(BOOLEAN_ARRAY);
+            out.writeInt(array.length);
+            for (int i = 0; i < array.length; i++) {
+                out.writeBoolean(array[i]);
+            }
+
+        } else if (value instanceof long[]) {
+            long[] array = (long[])value;
+            out.writeByte(LONG_ARRAY);
+            out.writeInt(array.length);
+            for (int i = 0; i < array.length; i++) {
+                out.writeLong(array[i]);
+            }
+
+        } else if (value instanceof String[]) {
+            String[] array = (String[])value;
+            out.writeByte(STRING_ARRAY);
+            out.writeInt(array.length);
+            for (int i = 0; i < array.length; i++) {
+                writeString(array[i], out);
+            }
+
+        } else {
+            throw new IOException(
+                "Cannot encode " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Read a field value.
+     *
+     * @param buffer The buffer to read from
+     * @return The value
+     */
+    private Object readValue(ByteBuffer buffer) {
+
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return(null);
+
+            case NODE:
+                return(readNode(buffer));
+
+            case NODE_REF:
+                return(readNodes.get(buffer.getInt()));
+
+            case NODE_LIST:
+                int num_nodes = buffer.getInt();
+                ArrayList<XNode> list = new ArrayList<XNode>(num_nodes);
+                for (int i = 0; i < num_nodes; i++) {
+                    list.add((XNode)readValue(buffer));
+                }
+                return(list);
+
+            case INT:
+                return(Integer.valueOf(buffer.getInt()));
+
+            case FLOAT:
+                return(Float.valueOf(buffer.getFloat()));
+
+            case DOUBLE:
+                return(Double.valueOf(buffer.getDouble()));
+
+            case BOOLEAN:
+                return(Boolean.valueOf(buffer.get() != 0));
+
+            case LONG:
+                return(Long.valueOf(buffer.getLong()));
+
+            case STRING:
+                return(readString(buffer));
+
+            case INT_ARRAY:
+                int[] ints = new int[buffer.getInt()];
+                buffer.asIntBuffer().get(ints);
+                buffer.position(buffer.position() + ints.length * 4);
+                return(ints);
+
+            case FLOAT_ARRAY:
+                return(readFloats(buffer));
+
+            case DOUBLE_ARRAY:
+                double[] doubles = new double[buffer.getInt()];
+                buffer.asDoubleBuffer().get(doubles);
+                buffer.position(buffer.position() + doubles.length * 8);
+                return(doubles);
+
+            case BOOLEAN_ARRAY:
+                boolean[] bools = new boolean[buffer.getInt()];
+                for (int i = 0; i < bools.length; i++) {
+                    bools[i] = (buffer.get() != 0);
+                }
+                return(bools);
+
+            case LONG_ARRAY:
+                long[] longs = new long[buffer.getInt()];
+                buffer.asLongBuffer().get(longs);
+                buffer.position(buffer.position() + longs.length * 8);
+                return(longs);
+
+            case STRING_ARRAY:
+                String[] strings = new String[buffer.getInt()];
+                for (int i = 0; i < strings.length; i++) {
+                    strings[i] = readString(buffer);
+                }
+                return(strings);
+
+            default:
+                throw new IllegalStateException("Unknown tag " + tag);
+        }
+    }
+
+    /**
+     * Write a float array, which may be null.
+     *
+     * @param array The array
+     * @param out The stream to write to
+     */
+    private void writeFloats(float[] array, DataOutputStream out)
+        throws IOException {
+
+        if (array == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(array.length);
+            for (int i = 0; i < array.length; i++) {
+                out.writeFloat(array[i]);
+            }
+        }
+    }
+
+    /**
+     * Read a float array, which may be null.
+     *
+     * @param buffer The buffer to read from
+     * @return The array
+     */
+    private float[] readFloats(ByteBuffer buffer) {
+
+        int len = buffer.getInt();
+        if (len < 0) {
+            return(null);
+        }
+
+        float[] array = new float[len];
+        buffer.asFloatBuffer().get(array);
+        buffer.position(buffer.position() + len * 4);
+
+        return(array);
+    }
+
+    /**
+     * Write a string as UTF-8, which may be null.
+     *
+     * @param str The string
+     * @param out The stream to write to
+     */
+    private void writeString(String str, DataOutputStream out)
+        throws IOException {
+
+        if (str == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = str.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Read a string, which may be null.
+     *
+     * @param buffer The buffer to read from
+     * @return The string
+     */
+    private String readString(ByteBuffer buffer) {
+
+        int len = buffer.getInt();
+        if (len < 0) {
+            return(null);
+        }
+
+        byte[] bytes = new byte[len];
+        buffer.get(bytes);
+
+        try {
+            return(new String(bytes, "UTF-8"));
+        } catch (UnsupportedEncodingException uee) {
+            // UTF-8 is always supported
+            return(new String(bytes));
+        }
+    }
+}
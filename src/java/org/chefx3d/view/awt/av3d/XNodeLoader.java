@@ -13,9 +13,19 @@
 package org.chefx3d.view.awt.av3d;
 
 // External imports
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.ByteBuffer;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import java.util.ArrayList;
 
@@ -31,6 +41,7 @@ import org.web3d.vrml.sav.InputSource;
 import org.web3d.vrml.sav.VRMLReader;
 
 // Local imports
+import org.chefx3d.cache.ClientCache;
 import org.chefx3d.ui.LoadingProgressListener;
 import org.chefx3d.util.DefaultErrorReporter;
 import org.chefx3d.util.ErrorReporter;
@@ -41,6 +52,12 @@ import org.chefx3d.util.FileLoader;
  * Intermediate loader that produces an XNode representation from
  * an X3D file. This representation can then be traversed to produce
  * an alternative representation.
+ * <p>
+ * Scenes are also kept in the ClientCache in the binary form written by
+ * XNodeCodec, keyed by a hash of the file content and the codec version.
+ * When the same content is loaded again the binary form is read from the
+ * cache instead of parsing the X3D. The binary cache is disabled by
+ * setting the chefx3d.av3d.binaryModelCache system property to false.
  *
  * @author Rex Melton
  * @version $Revision: 1.9 $
@@ -60,9 +77,25 @@ class XNodeLoader {
     /** The root URL of the last loaded model */
     private String loadedURL;
 
+    /** System property used to disable the binary model cache */
+    static final String BINARY_CACHE_PROPERTY = "chefx3d.av3d.binaryModelCache";
+
+    /** Prefix of the keys of binary scenes in the ClientCache */
+    private static final String BINARY_KEY_PREFIX = "chefx3d-av3d-model:";
+
+    /** Is the binary model cache in use */
+    private static final boolean binaryCacheEnabled =
+        !"false".equals(System.getProperty(BINARY_CACHE_PROPERTY));
+
     /** A progress bar notification */
     private LoadingProgressListener progressListener;
 
+    /**
+     * The binary cache key of the last scene, if it was parsed from X3D
+     * and has not been stored yet
+     */
+    private String binaryKey;
+
     /**
      * Constructor
      */
@@ -128,6 +161,21 @@ class XNodeLoader {
             int index = loadedURL.lastIndexOf("/");
             baseURL = loadedURL.substring(0, index + 1);
    
+            binaryKey = null;
+            if (binaryCacheEnabled) {
+                byte[] content = readContent(modelStream, len);
+                modelStream.close();
+
+                String key = getBinaryKey(content);
+                scene = readBinary(key);
+                if (scene != null) {
+                    return scene;
+                }
+
+                binaryKey = key;
+                modelStream = new ByteArrayInputStream(content);
+            }
+
             // set the progress listener size
             if (progressListener != null)
                 progressListener.setMaxSize(len);
@@ -166,6 +214,30 @@ class XNodeLoader {
     XNode load(File file) {
         XNode scene = null;
 
+        binaryKey = null;
+        if (binaryCacheEnabled) {
+            try {
+                FileInputStream fis = new FileInputStream(file);
+                byte[] content;
+                try {
+                    content = readContent(fis, (int)file.length());
+                } finally {
+                    fis.close();
+                }
+
+                String key = getBinaryKey(content);
+                scene = readBinary(key);
+                if (scene != null) {
+                    loadedURL = file.toURI().toURL().toExternalForm();
+                    return scene;
+                }
+
+                binaryKey = key;
+            } catch (IOException ioe) {
+                // let the parser report the problem
+            }
+        }
+
         InputSource is = new InputSource(file);
         X3DContentHandler ch = new X3DContentHandler(errorReporter);
         VRMLParserFactory fac = VRMLParserFactory.newVRMLParserFactory();
@@ -186,4 +258,121 @@ class XNodeLoader {
 		}
         return scene;
     }
+
+    /**
+     * Store the binary form of the last scene in the ClientCache, if it was
+     * parsed from X3D. Called once the scene has been marshalled, so that
+     * the tessellated geometry is stored along with it.
+     *
+     * @param scene The scene returned by the last load
+     */
+    void storeBinary(XNode scene) {
+
+        String key = binaryKey;
+        binaryKey = null;
+
+        if ((key == null) || (scene == null)) {
+            return;
+        }
+
+        try {
+            // encode completely before storing, the cache commits on close
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            XNodeCodec codec = new XNodeCodec();
+            codec.write(scene, new DataOutputStream(bytes));
+
+            OutputStream out = ClientCache.getInstance().storeAsset(key);
+            try {
+                bytes.writeTo(out);
+            } finally {
+                out.close();
+            }
+        } catch (IOException ioe) {
+            // the scene is parsed from X3D again next time
+        }
+    }
+
+    /**
+     * Read the binary form of a scene from the ClientCache.
+     *
+     * @param key The binary cache key, or null
+     * @return The scene, or null if it is not cached
+     */
+    private XNode readBinary(String key) {
+
+        if (key == null) {
+            return null;
+        }
+
+        try {
+            ClientCache cache = ClientCache.getInstance();
+            if (!cache.doesAssetExist(key)) {
+                return null;
+            }
+
+            // read through the cache so the asset is locked and its use
+            // is recorded for eviction
+            byte[] content;
+            InputStream is = cache.retrieveAsset(key);
+            try {
+                content = readContent(is, (int)cache.getAssetSize(key));
+            } finally {
+                is.close();
+            }
+
+            XNodeCodec codec = new XNodeCodec();
+            return codec.read(ByteBuffer.wrap(content));
+        } catch (IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the binary cache key of some X3D content.
+     *
+     * @param content The content
+     * @return The key, or null if it could not be computed
+     */
+    private static String getBinaryKey(byte[] content) {
+
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            byte[] hash = md.digest(content);
+
+            StringBuilder key = new StringBuilder(BINARY_KEY_PREFIX);
+            key.append(XNodeCodec.VERSION);
+            key.append(':');
+            for (int i = 0; i < hash.length; i++) {
+                key.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+                key.append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+
+            return key.toString();
+
+        } catch (NoSuchAlgorithmException nsae) {
+            return null;
+        }
+    }
+
+    /**
+     * Read a stream to its end.
+     *
+     * @param is The stream
+     * @param len The expected length, or 0 if not known
+     * @return The content
+     */
+    private static byte[] readContent(InputStream is, int len)
+        throws IOException {
+
+        ByteArrayOutputStream bytes =
+            new ByteArrayOutputStream((len > 0) ? len : 8192);
+
+        byte[] buf = new byte[8192];
+        int read;
+        while ((read = is.read(buf)) != -1) {
+            bytes.write(buf, 0, read);
+        }
+
+        return bytes.toByteArray();
+    }
 }
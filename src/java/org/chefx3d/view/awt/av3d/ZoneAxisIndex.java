@@ -0,0 +1,763 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.av3d;
+
+// External imports
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Point3f;
+
+// Local imports
+import org.chefx3d.model.Entity;
+import org.chefx3d.model.EntityChildListener;
+
+import org.chefx3d.view.boundingbox.AxisAlignedBoundingBox;
+import org.chefx3d.view.boundingbox.OrientedBoundingBox;
+
+/**
+ * Sweep and prune index of the bounds of the Entities within a zone.
+ * <p>
+ * The bounds of each Entity below the zone are kept as zone relative
+ * extents, in three lists sorted by their minimum along the zone's x, y
+ * and z axes. A query uses a binary search to find the part of a list
+ * that can overlap the query extents, so only the Entities near the query
+ * have their bounds tested. Since the extents are zone relative, moving
+ * the zone itself does not change them.
+ * <p>
+ * The index listens to the wrappers for transform and geometry changes,
+ * which mark the Entity and those below it for update, and to the
+ * Entities for children added and removed, which cause a rebuild. Both
+ * are applied at the next query, an Entity whose extents have changed
+ * being moved along each list to its new place.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+class ZoneAxisIndex implements WrapperListener, EntityChildListener {
+	
+	/** Orders entries as the zone hierarchy is traversed */
+	private static final Comparator<Entry> HIERARCHY_ORDER = 
+		new Comparator<Entry>() {
+			public int compare(Entry e0, Entry e1) {
+				return(e0.order - e1.order);
+			}
+		};
+	
+	/** Orders entries by their minimum along an axis */
+	private static final AxisOrder[] AXIS_ORDER = {
+		new AxisOrder(0), new AxisOrder(1), new AxisOrder(2)};
+	
+	/** The zone entity */
+	private Entity zoneEntity;
+	
+	/** The map of entity wrappers */
+	private HashMap<Integer, AV3DEntityWrapper> wrapperMap;
+	
+	/** The zone entity wrapper the index was built with */
+	private AV3DEntityWrapper zoneWrapper;
+	
+	/** The entries of the Entities below the zone, by entity ID */
+	private HashMap<Integer, Entry> entryMap;
+	
+	/** The sorted entries along each axis */
+	private Entry[][] axisList;
+	
+	/** The number of entries in the sorted lists */
+	private int numSorted;
+	
+	/** The largest extent of an entry along each axis */
+	private float[] maxSize;
+	
+	/** The entries whose extents could not be determined */
+	private ArrayList<Entry> pendingList;
+	
+	/** The entries whose transform or geometry has changed */
+	private ArrayList<Entry> dirtyList;
+	
+	/** The Entities listened to for hierarchy changes */
+	private ArrayList<Entity> entityList;
+	
+	/** The wrappers listened to for transform changes */
+	private ArrayList<AV3DEntityWrapper> listenerWrapperList;
+	
+	/** Flag indicating that the hierarchy has changed */
+	private boolean rebuild;
+	
+	/** The query results, reused between queries */
+	private Entry[] candidates;
+	
+    /** Local transformation utils */
+    private TransformUtils tu;
+    private Matrix4f mtx;
+	private OrientedBoundingBox scratchBounds;
+	private Point3f pnt;
+	private float[] min;
+	private float[] max;
+	
+	/**
+	 * Constructor
+	 *
+	 * @param zoneEntity The zone entity to index
+	 * @param wrapperMap The map of entity wrappers
+	 */
+	ZoneAxisIndex(
+		Entity zoneEntity, 
+		HashMap<Integer, AV3DEntityWrapper> wrapperMap) {
+		
+		this.zoneEntity = zoneEntity;
+		this.wrapperMap = wrapperMap;
+		
+		entryMap = new HashMap<Integer, Entry>();
+		axisList = new Entry[3][0];
+		maxSize = new float[3];
+		pendingList = new ArrayList<Entry>();
+		dirtyList = new ArrayList<Entry>();
+		entityList = new ArrayList<Entity>();
+		listenerWrapperList = new ArrayList<AV3DEntityWrapper>();
+		candidates = new Entry[16];
+		
+        tu = new TransformUtils();
+        mtx = new Matrix4f();
+		scratchBounds = new OrientedBoundingBox();
+		pnt = new Point3f();
+		min = new float[3];
+		max = new float[3];
+		
+		rebuild = true;
+	}
+	
+	//----------------------------------------------------------
+	// Methods defined by WrapperListener
+	//----------------------------------------------------------
+	
+	/**
+	 * Notification that the active switch group has changed
+	 * on the argument.
+	 *
+	 * @param src The wrapper object that has experienced a change
+	 */
+	public void switchGroupChanged(Object src) {
+	}
+	
+	/**
+	 * Notification that the geometry (and bounds) have changed
+	 * on the argument.
+	 *
+	 * @param src The wrapper object that has experienced a change
+	 */
+	public void geometryChanged(Object src) {
+		transformChanged(src);
+	}
+	
+	/**
+	 * Notification that the transform (position, rotation or scale)
+	 * has changed on the argument.
+	 *
+	 * @param src The wrapper object that has experienced a change
+	 */
+	public synchronized void transformChanged(Object src) {
+		
+		AV3DEntityWrapper wrapper = (AV3DEntityWrapper)src;
+		Entry entry = entryMap.get(wrapper.entity.getEntityID());
+		if ((entry != null) && !entry.dirty) {
+			entry.dirty = true;
+			dirtyList.add(entry);
+		}
+	}
+	
+	//----------------------------------------------------------
+	// Methods defined by EntityChildListener
+	//----------------------------------------------------------
+	
+	/**
+	 * A child was added.
+	 *
+	 * @param parent The entity which changed
+	 * @param child The child which was added
+	 */
+	public synchronized void childAdded(int parent, int child) {
+		rebuild = true;
+	}
+	
+	/**
+	 * A child was removed.
+	 *
+	 * @param parent The entity which changed
+	 * @param child The child which was removed
+	 */
+	public synchronized void childRemoved(int parent, int child) {
+		rebuild = true;
+	}
+	
+	/**
+	 * A child was inserted.
+	 *
+	 * @param parent The entity which changed
+	 * @param child The child which was added
+	 * @param index The index the child was placed at
+	 */
+	public synchronized void childInsertedAt(int parent, int child, int index) {
+		rebuild = true;
+	}
+	
+	//----------------------------------------------------------
+	// Local Methods
+	//----------------------------------------------------------
+	
+	/**
+	 * Return the zone entity
+	 *
+	 * @return The zone entity
+	 */
+	Entity getZoneEntity() {
+		return(zoneEntity);
+	}
+	
+	/**
+	 * Find the Entities below the zone whose bounds intersect the 
+	 * source bounds, in the order of a traversal of the zone hierarchy. 
+	 * The source Entity and those below it are skipped. The bounds of 
+	 * the Entities found are left transformed into world space.
+	 *
+	 * @param srcEntity The Entity whose bounds are to be checked
+	 * @param srcBounds The world space bounds of the source Entity
+	 * @param results The list of entities in collision with the source
+	 * @return true if the check was performed, false if the zone is 
+	 * not in the scene and could not be indexed
+	 */
+	synchronized boolean check(
+		Entity srcEntity, 
+		OrientedBoundingBox srcBounds, 
+		ArrayList<Entity> results) {
+		
+		if (!refresh()) {
+			return(false);
+		}
+		
+		// the query extents, relative to the zone
+		tu.getLocalToVworld(zoneWrapper.transformGroup, mtx);
+		mtx.invert();
+		srcBounds.getExtents(min, max);
+		toZoneExtents(min, max);
+		
+		// the narrow phase accepts bounds within epsilon
+		// along each world axis, allow for that along the
+		// zone's axes
+		float margin = AxisAlignedBoundingBox.getEpsilon() * 2;
+		for (int i = 0; i < 3; i++) {
+			min[i] -= margin;
+			max[i] += margin;
+		}
+		
+		int num_candidate = query(min, max);
+		for (int i = 0; i < num_candidate; i++) {
+			Entity entity = candidates[i].entity;
+			candidates[i] = null;
+			
+			if (isBelow(entity, srcEntity)) {
+				continue;
+			}
+			AV3DEntityWrapper wrapper = wrapperMap.get(entity.getEntityID());
+			if (wrapper != null) {
+				OrientedBoundingBox bounds = wrapper.getBounds();
+				tu.getLocalToVworld(wrapper.transformGroup, mtx);
+				bounds.transform(mtx);
+				if (srcBounds.intersect(bounds, true)) {
+					results.add(entity);
+				}
+			}
+		}
+		return(true);
+	}
+	
+	/**
+	 * Stop listening to the Entities and wrappers of the zone
+	 */
+	synchronized void dispose() {
+		
+		for (int i = 0; i < entityList.size(); i++) {
+			entityList.get(i).removeEntityChildListener(this);
+		}
+		entityList.clear();
+		
+		for (int i = 0; i < listenerWrapperList.size(); i++) {
+			listenerWrapperList.get(i).removeWrapperListener(this);
+		}
+		listenerWrapperList.clear();
+		
+		entryMap.clear();
+		pendingList.clear();
+		dirtyList.clear();
+		
+		for (int i = 0; i < 3; i++) {
+			Arrays.fill(axisList[i], 0, numSorted, null);
+		}
+		numSorted = 0;
+		Arrays.fill(maxSize, 0);
+		
+		rebuild = true;
+	}
+	
+	//----------------------------------------------------------
+	// Local Private Methods
+	//----------------------------------------------------------
+	
+	/**
+	 * Bring the index up to date with the scene
+	 *
+	 * @return true if the index is usable, false if the zone
+	 * is not in the scene
+	 */
+	private boolean refresh() {
+		
+		AV3DEntityWrapper wrapper = wrapperMap.get(zoneEntity.getEntityID());
+		if (wrapper == null) {
+			return(false);
+		}
+		if (rebuild || (wrapper != zoneWrapper)) {
+			build(wrapper);
+		}
+		
+		int num_dirty = dirtyList.size();
+		for (int i = 0; i < num_dirty; i++) {
+			Entry entry = dirtyList.get(i);
+			if (entry.dirty) {
+				updateBelow(entry.entity);
+			}
+		}
+		dirtyList.clear();
+		
+		for (int i = pendingList.size() - 1; i >= 0; i--) {
+			Entry entry = pendingList.get(i);
+			if (computeExtents(entry)) {
+				pendingList.remove(i);
+				insert(entry);
+			}
+		}
+		return(true);
+	}
+	
+	/**
+	 * Index the Entities below the zone
+	 *
+	 * @param wrapper The zone entity wrapper
+	 */
+	private void build(AV3DEntityWrapper wrapper) {
+		
+		dispose();
+		
+		zoneWrapper = wrapper;
+		zoneEntity.addEntityChildListener(this);
+		entityList.add(zoneEntity);
+		
+		addChildren(zoneEntity);
+		
+		int num = entryMap.size();
+		if (axisList[0].length < num) {
+			for (int i = 0; i < 3; i++) {
+				axisList[i] = new Entry[num + num / 2];
+			}
+		}
+		
+		for (Entry entry : entryMap.values()) {
+			if (computeExtents(entry)) {
+				for (int i = 0; i < 3; i++) {
+					axisList[i][numSorted] = entry;
+				}
+				numSorted++;
+				entry.sorted = true;
+			} else {
+				pendingList.add(entry);
+			}
+		}
+		
+		for (int i = 0; i < 3; i++) {
+			Entry[] list = axisList[i];
+			Arrays.sort(list, 0, numSorted, AXIS_ORDER[i]);
+			for (int j = 0; j < numSorted; j++) {
+				list[j].index[i] = j;
+			}
+		}
+		
+		rebuild = false;
+	}
+	
+	/**
+	 * Recurse through the parent Entity's hierarchy, adding an
+	 * entry for each child
+	 *
+	 * @param parent The Entity to start from
+	 */
+	private void addChildren(Entity parent) {
+		
+		if (parent.hasChildren()) {
+			ArrayList<Entity> children = parent.getChildren();
+			for (int i = 0; i < children.size(); i++) {
+				Entity child = children.get(i);
+				
+				Entry entry = new Entry(child, entryMap.size());
+				entryMap.put(child.getEntityID(), entry);
+				
+				child.addEntityChildListener(this);
+				entityList.add(child);
+				
+				addChildren(child);
+			}
+		}
+	}
+	
+	/**
+	 * Update the extents of an Entity and those below it
+	 *
+	 * @param entity The Entity to start from
+	 */
+	private void updateBelow(Entity entity) {
+		
+		Entry entry = entryMap.get(entity.getEntityID());
+		if (entry != null) {
+			entry.dirty = false;
+			if (entry.sorted) {
+				if (computeExtents(entry)) {
+					reposition(entry);
+				} else {
+					remove(entry);
+					pendingList.add(entry);
+				}
+			}
+		}
+		
+		if (entity.hasChildren()) {
+			ArrayList<Entity> children = entity.getChildren();
+			for (int i = 0; i < children.size(); i++) {
+				updateBelow(children.get(i));
+			}
+		}
+	}
+	
+	/**
+	 * Determine the zone relative extents of an entry's bounds
+	 *
+	 * @param entry The entry to update
+	 * @return true if the extents were determined, false if the
+	 * Entity is not yet in the scene below the zone
+	 */
+	private boolean computeExtents(Entry entry) {
+		
+		AV3DEntityWrapper wrapper = wrapperMap.get(entry.entity.getEntityID());
+		if (wrapper == null) {
+			return(false);
+		}
+		if (wrapper != entry.wrapper) {
+			if (entry.wrapper != null) {
+				entry.wrapper.removeWrapperListener(this);
+				listenerWrapperList.remove(entry.wrapper);
+			}
+			entry.wrapper = wrapper;
+			wrapper.addWrapperListener(this);
+			listenerWrapperList.add(wrapper);
+		}
+		
+		OrientedBoundingBox bounds = wrapper.getBounds();
+		if ((bounds == null) || 
+			!tu.getLocalToVworld(
+				wrapper.transformGroup, 
+				zoneWrapper.transformGroup, 
+				mtx)) {
+			return(false);
+		}
+		
+		scratchBounds.copy(bounds);
+		scratchBounds.transform(mtx);
+		scratchBounds.getExtents(entry.min, entry.max);
+		
+		for (int i = 0; i < 3; i++) {
+			float size = entry.max[i] - entry.min[i];
+			if (size > maxSize[i]) {
+				maxSize[i] = size;
+			}
+		}
+		return(true);
+	}
+	
+	/**
+	 * Transform world space extents with the inverted zone matrix,
+	 * replacing them with the zone relative extents that enclose them
+	 *
+	 * @param min The minimum extent
+	 * @param max The maximum extent
+	 */
+	private void toZoneExtents(float[] min, float[] max) {
+		
+		float min_x = Float.MAX_VALUE;
+		float min_y = Float.MAX_VALUE;
+		float min_z = Float.MAX_VALUE;
+		float max_x = -Float.MAX_VALUE;
+		float max_y = -Float.MAX_VALUE;
+		float max_z = -Float.MAX_VALUE;
+		
+		for (int i = 0; i < 8; i++) {
+			pnt.x = ((i & 1) == 0) ? min[0] : max[0];
+			pnt.y = ((i & 2) == 0) ? min[1] : max[1];
+			pnt.z = ((i & 4) == 0) ? min[2] : max[2];
+			mtx.transform(pnt);
+			
+			min_x = Math.min(min_x, pnt.x);
+			min_y = Math.min(min_y, pnt.y);
+			min_z = Math.min(min_z, pnt.z);
+			max_x = Math.max(max_x, pnt.x);
+			max_y = Math.max(max_y, pnt.y);
+			max_z = Math.max(max_z, pnt.z);
+		}
+		
+		min[0] = min_x;
+		min[1] = min_y;
+		min[2] = min_z;
+		max[0] = max_x;
+		max[1] = max_y;
+		max[2] = max_z;
+	}
+	
+	/**
+	 * Find the entries whose extents overlap the argument extents,
+	 * placing them in the candidates array in hierarchy order.
+	 *
+	 * @param min The minimum extent
+	 * @param max The maximum extent
+	 * @return The number of candidates
+	 */
+	private int query(float[] min, float[] max) {
+		
+		// search the axis with the fewest entries in range
+		int axis = 0;
+		int start = 0;
+		int end = 0;
+		for (int i = 0; i < 3; i++) {
+			int lo = search(i, min[i] - maxSize[i]);
+			int hi = search(i, max[i]);
+			if ((i == 0) || ((hi - lo) < (end - start))) {
+				axis = i;
+				start = lo;
+				end = hi;
+			}
+		}
+		
+		int num = 0;
+		Entry[] list = axisList[axis];
+		for (int i = start; i < end; i++) {
+			Entry entry = list[i];
+			if ((entry.max[axis] >= min[axis]) &&
+				(entry.min[0] <= max[0]) && (entry.max[0] >= min[0]) &&
+				(entry.min[1] <= max[1]) && (entry.max[1] >= min[1]) &&
+				(entry.min[2] <= max[2]) && (entry.max[2] >= min[2])) {
+				
+				if (num == candidates.length) {
+					Entry[] tmp = new Entry[num * 2];
+					System.arraycopy(candidates, 0, tmp, 0, num);
+					candidates = tmp;
+				}
+				candidates[num++] = entry;
+			}
+		}
+		
+		Arrays.sort(candidates, 0, num, HIERARCHY_ORDER);
+		return(num);
+	}
+	
+	/**
+	 * Find the index of the first entry along an axis whose
+	 * minimum is greater than the argument value.
+	 *
+	 * @param axis The axis list to search
+	 * @param value The value to search for
+	 * @return The index
+	 */
+	private int search(int axis, float value) {
+		
+		Entry[] list = axisList[axis];
+		int lo = 0;
+		int hi = numSorted;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (list[mid].min[axis] <= value) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return(lo);
+	}
+	
+	/**
+	 * Move an entry whose extents have changed to its new place
+	 * along each axis
+	 *
+	 * @param entry The entry to move
+	 */
+	private void reposition(Entry entry) {
+		
+		for (int i = 0; i < 3; i++) {
+			Entry[] list = axisList[i];
+			float value = entry.min[i];
+			int idx = entry.index[i];
+			
+			while ((idx > 0) && (list[idx - 1].min[i] > value)) {
+				list[idx] = list[idx - 1];
+				list[idx].index[i] = idx;
+				idx--;
+			}
+			while ((idx < numSorted - 1) && (list[idx + 1].min[i] < value)) {
+				list[idx] = list[idx + 1];
+				list[idx].index[i] = idx;
+				idx++;
+			}
+			list[idx] = entry;
+			entry.index[i] = idx;
+		}
+	}
+	
+	/**
+	 * Add an entry to the sorted lists
+	 *
+	 * @param entry The entry to add
+	 */
+	private void insert(Entry entry) {
+		
+		if (numSorted == axisList[0].length) {
+			for (int i = 0; i < 3; i++) {
+				Entry[] tmp = new Entry[numSorted * 2 + 1];
+				System.arraycopy(axisList[i], 0, tmp, 0, numSorted);
+				axisList[i] = tmp;
+			}
+		}
+		
+		for (int i = 0; i < 3; i++) {
+			Entry[] list = axisList[i];
+			int idx = search(i, entry.min[i]);
+			System.arraycopy(list, idx, list, idx + 1, numSorted - idx);
+			list[idx] = entry;
+			for (int j = idx; j <= numSorted; j++) {
+				list[j].index[i] = j;
+			}
+		}
+		numSorted++;
+		entry.sorted = true;
+	}
+	
+	/**
+	 * Remove an entry from the sorted lists
+	 *
+	 * @param entry The entry to remove
+	 */
+	private void remove(Entry entry) {
+		
+		numSorted--;
+		for (int i = 0; i < 3; i++) {
+			Entry[] list = axisList[i];
+			int idx = entry.index[i];
+			System.arraycopy(list, idx + 1, list, idx, numSorted - idx);
+			list[numSorted] = null;
+			for (int j = idx; j < numSorted; j++) {
+				list[j].index[i] = j;
+			}
+		}
+		entry.sorted = false;
+	}
+	
+	/**
+	 * Check whether an Entity is, or is below, another in the 
+	 * zone hierarchy
+	 *
+	 * @param entity The Entity to check
+	 * @param ancestor The possible ancestor
+	 * @return true if the entity is the ancestor or below it
+	 */
+	private boolean isBelow(Entity entity, Entity ancestor) {
+		
+		Entry entry = entryMap.get(entity.getEntityID());
+		while (entry != null) {
+			if (entry.entity == ancestor) {
+				return(true);
+			}
+			entry = entryMap.get(entry.entity.getParentEntityID());
+		}
+		return(false);
+	}
+	
+	/**
+	 * Orders entries by their minimum along an axis
+	 */
+	private static class AxisOrder implements Comparator<Entry> {
+		
+		/** The axis */
+		private final int axis;
+		
+		/**
+		 * Constructor
+		 *
+		 * @param axis The axis, 0, 1 or 2 for x, y or z
+		 */
+		AxisOrder(int axis) {
+			this.axis = axis;
+		}
+		
+		public int compare(Entry e0, Entry e1) {
+			return(Float.compare(e0.min[axis], e1.min[axis]));
+		}
+	}
+	
+	/**
+	 * The zone relative extents of an Entity
+	 */
+	private static class Entry {
+		
+		/** The Entity */
+		final Entity entity;
+		
+		/** The place of the Entity in a traversal of the zone */
+		final int order;
+		
+		/** The wrapper listened to */
+		AV3DEntityWrapper wrapper;
+		
+		/** The zone relative extents */
+		final float[] min;
+		final float[] max;
+		
+		/** The index of the entry in each sorted list */
+		final int[] index;
+		
+		/** Is the entry in the sorted lists */
+		boolean sorted;
+		
+		/** Has the transform changed since the extents were determined */
+		boolean dirty;
+		
+		/**
+		 * Constructor
+		 *
+		 * @param entity The Entity
+		 * @param order The place of the Entity in a traversal of the zone
+		 */
+		Entry(Entity entity, int order) {
+			this.entity = entity;
+			this.order = order;
+			min = new float[3];
+			max = new float[3];
+			index = new int[3];
+		}
+	}
+}
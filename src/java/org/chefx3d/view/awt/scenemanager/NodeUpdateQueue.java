@@ -0,0 +1,358 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.scenemanager;
+
+// External imports
+import org.j3d.aviatrix3d.Geometry;
+import org.j3d.aviatrix3d.Node;
+import org.j3d.aviatrix3d.NodeUpdateListener;
+import org.j3d.aviatrix3d.SceneGraphObject;
+
+// Local imports
+// None
+
+/**
+ * Double buffered queue of scene graph update requests.
+ * <p>
+ * Requests are added to the front buffer from any thread. Each frame the
+ * scene manager swaps the buffers and processes the back one. A request
+ * of the same kind for an object and listener that is already in the
+ * front buffer is ignored, so an object changed by several wrappers is
+ * only updated once per frame. The buffers, their entries and the lookup
+ * table are reused, so a steady state frame allocates nothing.
+ * <p>
+ * Processing may be given a deadline. Requests left over when it passes
+ * stay in the back buffer and are processed first on the next frame,
+ * before the buffers are swapped again.
+ *
+ * @author Jonathon Hubbard
+ * @version $Revision: 1.1 $
+ */
+class NodeUpdateQueue {
+
+    /** The initial number of entries in each buffer */
+    private static final int INITIAL_SIZE = 64;
+
+    /** The buffer requests are added to */
+    private Buffer front;
+
+    /** The buffer being processed */
+    private Buffer back;
+
+    /** Index of the next request in the back buffer to process */
+    private int processed;
+
+    /**
+     * A list of requests, along with an identity table of the objects in
+     * it.
+     */
+    private static class Buffer {
+
+        /** The requests, entries past size are spare */
+        NodeData[] entries;
+
+        /** The number of requests */
+        int size;
+
+        /** Open addressed table of the requested objects */
+        Object[] keys;
+
+        /** The index of the first request for each key in the table */
+        int[] firstEntry;
+
+        /** The index of the next request for the same object, or -1 */
+        int[] nextEntry;
+
+        /** The table slot of each request */
+        int[] slot;
+
+        Buffer() {
+            entries = new NodeData[INITIAL_SIZE];
+            nextEntry = new int[INITIAL_SIZE];
+            slot = new int[INITIAL_SIZE];
+            keys = new Object[INITIAL_SIZE * 2];
+            firstEntry = new int[INITIAL_SIZE * 2];
+        }
+
+        /**
+         * Remove all requests.
+         */
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                keys[slot[i]] = null;
+
+                NodeData data = entries[i];
+                data.data = null;
+                data.node = null;
+                data.geom = null;
+                data.listener = null;
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Constructor
+     */
+    NodeUpdateQueue() {
+        front = new Buffer();
+        back = new Buffer();
+        processed = 0;
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Add a request for a data changed callback.
+     *
+     * @param d The scene graph object to be updated
+     * @param l The listener to be called when this object is to be updated
+     */
+    void addDataRequest(SceneGraphObject d, NodeUpdateListener l) {
+        add(d, d, null, null, l);
+    }
+
+    /**
+     * Add a request for a bounds changed callback.
+     *
+     * @param n The node to be updated
+     * @param l The listener to be called when this object is to be updated
+     */
+    void addBoundsRequest(Node n, NodeUpdateListener l) {
+        add(n, null, n, null, l);
+    }
+
+    /**
+     * Add a request for a bounds changed callback.
+     *
+     * @param g The geometry to be updated
+     * @param l The listener to be called when this object is to be updated
+     */
+    void addBoundsRequest(Geometry g, NodeUpdateListener l) {
+        add(g, null, null, g, l);
+    }
+
+    /**
+     * Process the queued requests. Requests left over from a previous
+     * frame are processed first. The buffers are then swapped and the
+     * requests made since the last swap are processed.
+     *
+     * @param deadline The System.nanoTime() after which no more requests
+     * are processed, or 0 for no limit
+     * @return true if all requests were processed, false if some are left
+     */
+    boolean process(long deadline) {
+
+        if (!processBack(deadline)) {
+            return false;
+        }
+
+        synchronized(this) {
+            if (front.size == 0) {
+                return true;
+            }
+
+            Buffer tmp = back;
+            back = front;
+            front = tmp;
+        }
+
+        return processBack(deadline);
+    }
+
+    /**
+     * Process the requests in the back buffer, clearing it once they
+     * have all been processed.
+     *
+     * @param deadline The System.nanoTime() after which no more requests
+     * are processed, or 0 for no limit
+     * @return true if all requests were processed, false if some are left
+     */
+    private boolean processBack(long deadline) {
+
+        Buffer buffer = back;
+
+        while (processed < buffer.size) {
+
+            if ((deadline != 0) && (System.nanoTime() - deadline > 0)) {
+                return false;
+            }
+
+            NodeData data = buffer.entries[processed++];
+
+            if (data.data != null) {
+                if (data.data.isLive()) {
+                    data.data.dataChanged(data.listener);
+                }
+            } else if (data.node != null) {
+                if (data.node.isLive()) {
+                    data.node.boundsChanged(data.listener);
+                }
+            } else if (data.geom != null) {
+                if (data.geom.isLive()) {
+                    data.geom.boundsChanged(data.listener);
+                }
+            }
+        }
+
+        // the back buffer is only touched by the processing thread
+        buffer.clear();
+        processed = 0;
+
+        return true;
+    }
+
+    /**
+     * Add a request to the front buffer, unless the same object and
+     * listener are already there.
+     *
+     * @param key The object being updated
+     * @param d The object for a data update, or null
+     * @param n The node for a bounds update, or null
+     * @param g The geometry for a bounds update, or null
+     * @param l The listener to be called
+     */
+    private synchronized void add(
+            Object key,
+            SceneGraphObject d,
+            Node n,
+            Geometry g,
+            NodeUpdateListener l) {
+
+        Buffer buffer = front;
+
+        Object[] keys = buffer.keys;
+        int mask = keys.length - 1;
+        int index = System.identityHashCode(key) & mask;
+
+        while (keys[index] != null) {
+            if (keys[index] == key) {
+
+                int entry = buffer.firstEntry[index];
+                int last = entry;
+                while (entry >= 0) {
+                    NodeData data = buffer.entries[entry];
+                    if ((data.listener == l) && (data.data == d)) {
+                        // already requested this frame
+                        return;
+                    }
+                    last = entry;
+                    entry = buffer.nextEntry[entry];
+                }
+
+                // same object, another listener
+                buffer.nextEntry[last] = append(buffer, index, d, n, g, l);
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        buffer.firstEntry[index] = append(buffer, index, d, n, g, l);
+
+        // keep the table at most half full
+        if (buffer.size * 2 > keys.length) {
+            rehash(buffer);
+        }
+    }
+
+    /**
+     * Append a request to the list of a buffer.
+     *
+     * @param buffer The buffer to add to
+     * @param tableSlot The slot of the object in the table
+     * @param d The object for a data update, or null
+     * @param n The node for a bounds update, or null
+     * @param g The geometry for a bounds update, or null
+     * @param l The listener to be called
+     * @return The index of the new request
+     */
+    private int append(
+            Buffer buffer,
+            int tableSlot,
+            SceneGraphObject d,
+            Node n,
+            Geometry g,
+            NodeUpdateListener l) {
+
+        int size = buffer.size;
+        if (size == buffer.entries.length) {
+
+            int newSize = size * 2;
+
+            NodeData[] entries = new NodeData[newSize];
+            System.arraycopy(buffer.entries, 0, entries, 0, size);
+            buffer.entries = entries;
+
+            int[] next = new int[newSize];
+            System.arraycopy(buffer.nextEntry, 0, next, 0, size);
+            buffer.nextEntry = next;
+
+            int[] slots = new int[newSize];
+            System.arraycopy(buffer.slot, 0, slots, 0, size);
+            buffer.slot = slots;
+        }
+
+        NodeData data = buffer.entries[size];
+        if (data == null) {
+            data = new NodeData();
+            buffer.entries[size] = data;
+        }
+
+        data.data = d;
+        data.node = n;
+        data.geom = g;
+        data.listener = l;
+
+        buffer.nextEntry[size] = -1;
+        buffer.slot[size] = tableSlot;
+        buffer.size++;
+
+        return size;
+    }
+
+    /**
+     * Double the size of the identity table of a buffer.
+     *
+     * @param buffer The buffer to grow
+     */
+    private void rehash(Buffer buffer) {
+
+        Object[] keys = new Object[buffer.keys.length * 2];
+        int[] firstEntry = new int[keys.length];
+        int mask = keys.length - 1;
+
+        for (int i = 0; i < buffer.size; i++) {
+
+            NodeData data = buffer.entries[i];
+            Object key = (data.data != null) ? data.data :
+                ((data.node != null) ? (Object)data.node : data.geom);
+
+            int index = System.identityHashCode(key) & mask;
+            while ((keys[index] != null) && (keys[index] != key)) {
+                index = (index + 1) & mask;
+            }
+
+            if (keys[index] == null) {
+                keys[index] = key;
+                firstEntry[index] = i;
+            }
+            buffer.slot[i] = index;
+        }
+
+        buffer.keys = keys;
+        buffer.firstEntry = firstEntry;
+    }
+}
@@ -46,16 +46,22 @@ public class SceneManagerObserver implements ApplicationUpdateObserver {
     private CommandController bufferedCommands;
 
     /**
-     * List of objects that need to be scheduled for bounds changed callbacks
+     * Objects that need to be scheduled for bounds changed callbacks
      * during the next frame.
      */
-    private ArrayList<NodeData> boundsUpdateRequests;
+    private NodeUpdateQueue boundsUpdateRequests;
 
     /**
-     * List of objects that need to be scheduled for data changed callbacks
+     * Objects that need to be scheduled for data changed callbacks
      * during the next frame.
      */
-    private ArrayList<NodeData> dataUpdateRequests;
+    private NodeUpdateQueue dataUpdateRequests;
+
+    /**
+     * The time allowed for bounds and data changed callbacks each frame,
+     * in nanoseconds. 0 for no limit.
+     */
+    private long updateBudget;
 
     /** Things that need to be called every frame */
     private ArrayList<PerFrameUIObserver> frameUIObservers;
@@ -97,6 +103,10 @@ public class SceneManagerObserver implements ApplicationUpdateObserver {
         frameObservers = new ArrayList<PerFrameObserver>();
         frameUIObservers = new ArrayList<PerFrameUIObserver>();
 
+        boundsUpdateRequests = new NodeUpdateQueue();
+        dataUpdateRequests = new NodeUpdateQueue();
+        updateBudget = 0;
+
         addRenderEffects = false;
         removeRenderEffects = false;
 
@@ -154,49 +164,18 @@ public class SceneManagerObserver implements ApplicationUpdateObserver {
             addRenderEffects = false;
         }
 
-        // Take a local reference and then delete the global reference. Done to
-        // avoid multithreading issues of having a load request come in
-        // asynchronously as we're doing this and having the clear method delete
-        // it before it is processed here.
-        if(boundsUpdateRequests != null) {
-            ArrayList<NodeData> l = boundsUpdateRequests;
-            boundsUpdateRequests = null;
-
-            for(int i = 0; i < l.size(); i++) {
-                NodeData data = l.get(i);
-                if (data.node != null) {
-                    Node node = data.node;
-                    NodeUpdateListener nul = data.listener;
-                    if (node.isLive()) {
-                        node.boundsChanged(nul);
-                    }
-                } else if (data.geom != null) {
-                    Geometry geom = data.geom;
-                    NodeUpdateListener nul = data.listener;
-                    if (geom.isLive()) {
-                        geom.boundsChanged(nul);
-                    }
-                }
-            }
+        // The queues swap their buffers as they are processed, so requests
+        // that come in asynchronously while we're doing this are held for
+        // the next frame. The bounds changes always go before the data
+        // changes. Anything left when the budget runs out stays at the
+        // head of its queue for the next frame, so the order is kept.
+        long deadline = 0;
+        if (updateBudget > 0) {
+            deadline = nonZero(System.nanoTime() + updateBudget);
         }
 
-        // Take a local reference and then delete the global reference. Done to
-        // avoid multithreading issues of having a load request come in
-        // asynchronously as we're doing this and having the clear method delete
-        // it before it is processed here.
-        if(dataUpdateRequests != null) {
-            ArrayList<NodeData> l = dataUpdateRequests;
-            dataUpdateRequests = null;
-
-            for(int i = 0; i < l.size(); i++) {
-                NodeData data = l.get(i);
-                SceneGraphObject sgo = data.data;
-                NodeUpdateListener nul = data.listener;
-                if (sgo.isLive()) {
-                    sgo.dataChanged(nul);
-                }
-            }
-        }
+        boundsUpdateRequests.process(deadline);
+        dataUpdateRequests.process(deadline);
     }
 
     /**
@@ -232,14 +211,7 @@ public class SceneManagerObserver implements ApplicationUpdateObserver {
         if (!d.isLive()) {
             l.updateNodeDataChanges(d);
         } else {
-
-            NodeData data = new NodeData();
-            data.data = d;
-            data.listener = l;
-
-            if(dataUpdateRequests == null)
-                dataUpdateRequests = new ArrayList<NodeData>();
-            dataUpdateRequests.add(data);
+            dataUpdateRequests.addDataRequest(d, l);
         }
     }
 
@@ -253,14 +225,7 @@ public class SceneManagerObserver implements ApplicationUpdateObserver {
         if(!n.isLive()) {
             l.updateNodeBoundsChanges(n);
         } else {
-
-            NodeData data = new NodeData();
-            data.node = n;
-            data.listener = l;
-
-            if(boundsUpdateRequests == null)
-                boundsUpdateRequests = new ArrayList<NodeData>();
-            boundsUpdateRequests.add(data);
+            boundsUpdateRequests.addBoundsRequest(n, l);
         }
     }
 
@@ -274,16 +239,41 @@ public class SceneManagerObserver implements ApplicationUpdateObserver {
         if (!g.isLive()) {
             l.updateNodeBoundsChanges(g);
         } else {
+            boundsUpdateRequests.addBoundsRequest(g, l);
+        }
+    }
 
-            if(boundsUpdateRequests == null)
-                boundsUpdateRequests = new ArrayList<NodeData>();
+    /**
+     * Limit the time spent on bounds and data changed callbacks each
+     * frame. Requests that don't fit are carried over to the next frame,
+     * which spreads the cost of large changes such as pasting many
+     * entities over several frames.
+     *
+     * @param millis The time allowed per frame in milliseconds, 0 for no
+     * limit
+     */
+    public void setUpdateBudget(int millis) {
+        updateBudget = millis * 1000000L;
+    }
 
-            NodeData data = new NodeData();
-            data.geom = g;
-            data.listener = l;
+    /**
+     * Get the time allowed for bounds and data changed callbacks each
+     * frame.
+     *
+     * @return The time allowed per frame in milliseconds, 0 for no limit
+     */
+    public int getUpdateBudget() {
+        return (int)(updateBudget / 1000000L);
+    }
 
-            boundsUpdateRequests.add(data);
-        }
+    /**
+     * Make sure a deadline isn't mistaken for no limit.
+     *
+     * @param deadline A System.nanoTime() value
+     * @return The deadline, or 1 if it was 0
+     */
+    private static long nonZero(long deadline) {
+        return (deadline == 0) ? 1 : deadline;
     }
 
     /**
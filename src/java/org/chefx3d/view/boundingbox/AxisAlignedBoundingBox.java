@@ -496,6 +496,15 @@ public class AxisAlignedBoundingBox {
 		epsilon = epsilon_value;
 	}
 	
+	/**
+	 * Return the tolerance value used for intersection checks
+	 *
+	 * @return The tolerance value
+	 */
+	public static float getEpsilon() {
+		return(epsilon);
+	}
+	
     /**
      * Update the extents, center and vertices of the box based on the
      * current min and max positions.
@@ -0,0 +1,610 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.boundingbox;
+
+// External imports
+// none
+
+// Local imports
+import org.chefx3d.util.IntHashMap;
+
+/**
+ * An incrementally maintained bounding volume hierarchy of axis-aligned
+ * boxes, keyed by an integer id.
+ * <p>
+ * Each leaf stores a 'fattened' copy of the box it was given, grown by
+ * a fixed margin. Updates that remain within the fattened box are
+ * absorbed without restructuring the tree, so small per-frame movements
+ * are cheap. Internal nodes are kept balanced with tree rotations on
+ * insertion and removal.
+ * <p>
+ * Node storage is array backed and recycled through a free list. Queries
+ * do not allocate, results are placed in an internal buffer available
+ * from {@link #getResults()}.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class DynamicAABBTree {
+
+	/** Null node index */
+	private static final int NULL_NODE = -1;
+
+	/** Initial number of nodes to allocate */
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/** The margin that leaf boxes are grown by */
+	private float margin;
+
+	/** Node extents, six values per node: min x,y,z then max x,y,z */
+	private float[] box;
+
+	/** Node hierarchy */
+	private int[] parent;
+	private int[] child1;
+	private int[] child2;
+
+	/** Height of the node in the tree, leaves are 0, free nodes -1 */
+	private int[] height;
+
+	/** The id associated with each leaf */
+	private int[] leafID;
+
+	/** The number of nodes allocated */
+	private int capacity;
+
+	/** Index of the root node */
+	private int root;
+
+	/** Head of the free node list, chained through the parent array */
+	private int freeList;
+
+	/** Map of id to leaf node index */
+	private IntHashMap leafMap;
+
+	/** Traversal stack */
+	private int[] stack;
+
+	/** Query result buffer */
+	private int[] results;
+
+	/**
+	 * Constructor
+	 *
+	 * @param margin The amount that each leaf box is grown by
+	 */
+	public DynamicAABBTree(float margin) {
+
+		this.margin = margin;
+
+		leafMap = new IntHashMap();
+		stack = new int[DEFAULT_CAPACITY];
+		results = new int[DEFAULT_CAPACITY];
+
+		allocate(DEFAULT_CAPACITY);
+		clear();
+	}
+
+	//---------------------------------------------------------------
+	// Local Methods
+	//---------------------------------------------------------------
+
+	/**
+	 * Remove all entries from the tree
+	 */
+	public void clear() {
+
+		root = NULL_NODE;
+		leafMap.clear();
+
+		for (int i = 0; i < capacity - 1; i++) {
+			parent[i] = i + 1;
+			height[i] = -1;
+		}
+		parent[capacity - 1] = NULL_NODE;
+		height[capacity - 1] = -1;
+		freeList = 0;
+	}
+
+	/**
+	 * Return the number of entries in the tree
+	 *
+	 * @return The number of entries in the tree
+	 */
+	public int size() {
+		return(leafMap.size());
+	}
+
+	/**
+	 * Return whether an entry exists for the id
+	 *
+	 * @param id The id to check
+	 * @return true if the id is in the tree, false otherwise
+	 */
+	public boolean contains(int id) {
+		return(leafMap.containsKey(id));
+	}
+
+	/**
+	 * Add or update the entry for the id.
+	 *
+	 * @param id The id of the entry
+	 * @param min The minimum extent of the box
+	 * @param max The maximum extent of the box
+	 * @return true if the tree structure was modified, false if the
+	 * box was contained within the existing entry
+	 */
+	public boolean put(int id, float[] min, float[] max) {
+
+		Integer leaf = (Integer)leafMap.get(id);
+		if (leaf != null) {
+			int node = leaf.intValue();
+			int b = node * 6;
+			if ((box[b] <= min[0]) && (box[b + 1] <= min[1]) &&
+				(box[b + 2] <= min[2]) && (box[b + 3] >= max[0]) &&
+				(box[b + 4] >= max[1]) && (box[b + 5] >= max[2])) {
+
+				// the fattened box still contains the entry
+				return(false);
+			}
+			removeLeaf(node);
+			setFatBox(node, min, max);
+			insertLeaf(node);
+
+		} else {
+			int node = allocateNode();
+			leafID[node] = id;
+			height[node] = 0;
+			setFatBox(node, min, max);
+			insertLeaf(node);
+			leafMap.put(id, Integer.valueOf(node));
+		}
+		return(true);
+	}
+
+	/**
+	 * Remove the entry for the id
+	 *
+	 * @param id The id of the entry to remove
+	 */
+	public void remove(int id) {
+
+		Integer leaf = (Integer)leafMap.remove(id);
+		if (leaf != null) {
+			int node = leaf.intValue();
+			removeLeaf(node);
+			freeNode(node);
+		}
+	}
+
+	/**
+	 * Find the entries whose boxes overlap the argument box. The
+	 * ids of the entries found are available from {@link #getResults()}.
+	 *
+	 * @param min The minimum extent of the query box
+	 * @param max The maximum extent of the query box
+	 * @return The number of entries found
+	 */
+	public int query(float[] min, float[] max) {
+
+		int count = 0;
+		if (root == NULL_NODE) {
+			return(count);
+		}
+		int top = 0;
+		stack[top++] = root;
+		while (top > 0) {
+			int node = stack[--top];
+			int b = node * 6;
+			if ((box[b] > max[0]) || (box[b + 1] > max[1]) ||
+				(box[b + 2] > max[2]) || (box[b + 3] < min[0]) ||
+				(box[b + 4] < min[1]) || (box[b + 5] < min[2])) {
+				continue;
+			}
+			if (height[node] == 0) {
+				if (count == results.length) {
+					int[] tmp = new int[count * 2];
+					System.arraycopy(results, 0, tmp, 0, count);
+					results = tmp;
+				}
+				results[count++] = leafID[node];
+			} else {
+				if (top + 2 > stack.length) {
+					int[] tmp = new int[stack.length * 2];
+					System.arraycopy(stack, 0, tmp, 0, top);
+					stack = tmp;
+				}
+				stack[top++] = child1[node];
+				stack[top++] = child2[node];
+			}
+		}
+		return(count);
+	}
+
+	/**
+	 * Return the buffer containing the ids found by the last query.
+	 * The buffer is reused between queries, only the number of
+	 * entries returned by the query are valid.
+	 *
+	 * @return The query result buffer
+	 */
+	public int[] getResults() {
+		return(results);
+	}
+
+	/**
+	 * Initialize the node's box from the argument extents, grown
+	 * by the margin.
+	 *
+	 * @param node The node index
+	 * @param min The minimum extent
+	 * @param max The maximum extent
+	 */
+	private void setFatBox(int node, float[] min, float[] max) {
+		int b = node * 6;
+		box[b] = min[0] - margin;
+		box[b + 1] = min[1] - margin;
+		box[b + 2] = min[2] - margin;
+		box[b + 3] = max[0] + margin;
+		box[b + 4] = max[1] + margin;
+		box[b + 5] = max[2] + margin;
+	}
+
+	/**
+	 * Insert a leaf node into the hierarchy
+	 *
+	 * @param leaf The leaf node index
+	 */
+	private void insertLeaf(int leaf) {
+
+		if (root == NULL_NODE) {
+			root = leaf;
+			parent[root] = NULL_NODE;
+			return;
+		}
+
+		// find the best sibling, descending on least cost
+		int lb = leaf * 6;
+		int index = root;
+		while (height[index] > 0) {
+
+			int c1 = child1[index];
+			int c2 = child2[index];
+
+			float area = area(index * 6);
+			float combinedArea = combinedArea(index * 6, lb);
+
+			// cost of creating a new parent for this node and the leaf
+			float cost = 2 * combinedArea;
+
+			// minimum cost of pushing the leaf further down the tree
+			float inheritanceCost = 2 * (combinedArea - area);
+
+			float cost1 = descendCost(c1, lb) + inheritanceCost;
+			float cost2 = descendCost(c2, lb) + inheritanceCost;
+
+			if ((cost < cost1) && (cost < cost2)) {
+				break;
+			}
+			index = (cost1 < cost2) ? c1 : c2;
+		}
+		int sibling = index;
+
+		// create a new parent
+		int oldParent = parent[sibling];
+		int newParent = allocateNode();
+		parent[newParent] = oldParent;
+		leafID[newParent] = -1;
+		union(newParent, leaf, sibling);
+		height[newParent] = height[sibling] + 1;
+
+		if (oldParent != NULL_NODE) {
+			if (child1[oldParent] == sibling) {
+				child1[oldParent] = newParent;
+			} else {
+				child2[oldParent] = newParent;
+			}
+		} else {
+			root = newParent;
+		}
+		child1[newParent] = sibling;
+		child2[newParent] = leaf;
+		parent[sibling] = newParent;
+		parent[leaf] = newParent;
+
+		// walk back up the tree fixing heights and boxes
+		refit(parent[leaf]);
+	}
+
+	/**
+	 * Remove a leaf node from the hierarchy. The node itself is
+	 * not released.
+	 *
+	 * @param leaf The leaf node index
+	 */
+	private void removeLeaf(int leaf) {
+
+		if (leaf == root) {
+			root = NULL_NODE;
+			return;
+		}
+
+		int p = parent[leaf];
+		int grandParent = parent[p];
+		int sibling = (child1[p] == leaf) ? child2[p] : child1[p];
+
+		if (grandParent != NULL_NODE) {
+			// connect the sibling to the grand parent
+			if (child1[grandParent] == p) {
+				child1[grandParent] = sibling;
+			} else {
+				child2[grandParent] = sibling;
+			}
+			parent[sibling] = grandParent;
+			freeNode(p);
+
+			refit(grandParent);
+		} else {
+			root = sibling;
+			parent[sibling] = NULL_NODE;
+			freeNode(p);
+		}
+	}
+
+	/**
+	 * Walk from the node to the root, rebalancing and recalculating
+	 * the heights and boxes of the internal nodes.
+	 *
+	 * @param index The node to start from
+	 */
+	private void refit(int index) {
+		while (index != NULL_NODE) {
+			index = balance(index);
+
+			int c1 = child1[index];
+			int c2 = child2[index];
+
+			height[index] = 1 + Math.max(height[c1], height[c2]);
+			union(index, c1, c2);
+
+			index = parent[index];
+		}
+	}
+
+	/**
+	 * Perform a left or right rotation if the node is imbalanced.
+	 *
+	 * @param a The node to balance
+	 * @return The index of the node that has taken the place of a
+	 */
+	private int balance(int a) {
+
+		if (height[a] < 2) {
+			return(a);
+		}
+
+		int b = child1[a];
+		int c = child2[a];
+		int bal = height[c] - height[b];
+
+		if (bal > 1) {
+			// rotate c up
+			int f = child1[c];
+			int g = child2[c];
+
+			child1[c] = a;
+			parent[c] = parent[a];
+			parent[a] = c;
+			replaceChild(parent[c], a, c);
+
+			if (height[f] > height[g]) {
+				child2[c] = f;
+				child2[a] = g;
+				parent[g] = a;
+				union(a, b, g);
+				union(c, a, f);
+				height[a] = 1 + Math.max(height[b], height[g]);
+				height[c] = 1 + Math.max(height[a], height[f]);
+			} else {
+				child2[c] = g;
+				child2[a] = f;
+				parent[f] = a;
+				union(a, b, f);
+				union(c, a, g);
+				height[a] = 1 + Math.max(height[b], height[f]);
+				height[c] = 1 + Math.max(height[a], height[g]);
+			}
+			return(c);
+
+		} else if (bal < -1) {
+			// rotate b up
+			int d = child1[b];
+			int e = child2[b];
+
+			child1[b] = a;
+			parent[b] = parent[a];
+			parent[a] = b;
+			replaceChild(parent[b], a, b);
+
+			if (height[d] > height[e]) {
+				child2[b] = d;
+				child1[a] = e;
+				parent[e] = a;
+				union(a, c, e);
+				union(b, a, d);
+				height[a] = 1 + Math.max(height[c], height[e]);
+				height[b] = 1 + Math.max(height[a], height[d]);
+			} else {
+				child2[b] = e;
+				child1[a] = d;
+				parent[d] = a;
+				union(a, c, d);
+				union(b, a, e);
+				height[a] = 1 + Math.max(height[c], height[d]);
+				height[b] = 1 + Math.max(height[a], height[e]);
+			}
+			return(b);
+		}
+		return(a);
+	}
+
+	/**
+	 * Replace the child reference of a node after a rotation
+	 *
+	 * @param p The parent node, or NULL_NODE if the child is the root
+	 * @param oldChild The previous child index
+	 * @param newChild The new child index
+	 */
+	private void replaceChild(int p, int oldChild, int newChild) {
+		if (p != NULL_NODE) {
+			if (child1[p] == oldChild) {
+				child1[p] = newChild;
+			} else {
+				child2[p] = newChild;
+			}
+		} else {
+			root = newChild;
+		}
+	}
+
+	/**
+	 * Return the cost of descending into the node with the leaf
+	 *
+	 * @param node The node index
+	 * @param lb The box offset of the leaf
+	 * @return The cost
+	 */
+	private float descendCost(int node, int lb) {
+		float cost = combinedArea(node * 6, lb);
+		if (height[node] > 0) {
+			cost -= area(node * 6);
+		}
+		return(cost);
+	}
+
+	/**
+	 * Set the box of the target node to the union of the boxes of
+	 * two other nodes.
+	 *
+	 * @param target The node to configure
+	 * @param n0 The first node
+	 * @param n1 The second node
+	 */
+	private void union(int target, int n0, int n1) {
+		int t = target * 6;
+		int b0 = n0 * 6;
+		int b1 = n1 * 6;
+		box[t] = Math.min(box[b0], box[b1]);
+		box[t + 1] = Math.min(box[b0 + 1], box[b1 + 1]);
+		box[t + 2] = Math.min(box[b0 + 2], box[b1 + 2]);
+		box[t + 3] = Math.max(box[b0 + 3], box[b1 + 3]);
+		box[t + 4] = Math.max(box[b0 + 4], box[b1 + 4]);
+		box[t + 5] = Math.max(box[b0 + 5], box[b1 + 5]);
+	}
+
+	/**
+	 * Return the surface area heuristic (half perimeter) of a box
+	 *
+	 * @param b The box offset
+	 * @return The area
+	 */
+	private float area(int b) {
+		float dx = box[b + 3] - box[b];
+		float dy = box[b + 4] - box[b + 1];
+		float dz = box[b + 5] - box[b + 2];
+		return(dx * dy + dy * dz + dz * dx);
+	}
+
+	/**
+	 * Return the surface area heuristic of the union of two boxes
+	 *
+	 * @param b0 The first box offset
+	 * @param b1 The second box offset
+	 * @return The area
+	 */
+	private float combinedArea(int b0, int b1) {
+		float dx = Math.max(box[b0 + 3], box[b1 + 3]) - Math.min(box[b0], box[b1]);
+		float dy = Math.max(box[b0 + 4], box[b1 + 4]) - Math.min(box[b0 + 1], box[b1 + 1]);
+		float dz = Math.max(box[b0 + 5], box[b1 + 5]) - Math.min(box[b0 + 2], box[b1 + 2]);
+		return(dx * dy + dy * dz + dz * dx);
+	}
+
+	/**
+	 * Return a node from the free list, growing the storage if necessary
+	 *
+	 * @return The node index
+	 */
+	private int allocateNode() {
+
+		if (freeList == NULL_NODE) {
+			int old = capacity;
+			allocate(capacity * 2);
+			for (int i = old; i < capacity - 1; i++) {
+				parent[i] = i + 1;
+				height[i] = -1;
+			}
+			parent[capacity - 1] = NULL_NODE;
+			height[capacity - 1] = -1;
+			freeList = old;
+		}
+		int node = freeList;
+		freeList = parent[node];
+		parent[node] = NULL_NODE;
+		child1[node] = NULL_NODE;
+		child2[node] = NULL_NODE;
+		height[node] = 0;
+		return(node);
+	}
+
+	/**
+	 * Return a node to the free list
+	 *
+	 * @param node The node index
+	 */
+	private void freeNode(int node) {
+		parent[node] = freeList;
+		height[node] = -1;
+		freeList = node;
+	}
+
+	/**
+	 * Size the node storage, retaining existing content
+	 *
+	 * @param size The number of nodes
+	 */
+	private void allocate(int size) {
+
+		float[] new_box = new float[size * 6];
+		int[] new_parent = new int[size];
+		int[] new_child1 = new int[size];
+		int[] new_child2 = new int[size];
+		int[] new_height = new int[size];
+		int[] new_leafID = new int[size];
+
+		if (capacity > 0) {
+			System.arraycopy(box, 0, new_box, 0, capacity * 6);
+			System.arraycopy(parent, 0, new_parent, 0, capacity);
+			System.arraycopy(child1, 0, new_child1, 0, capacity);
+			System.arraycopy(child2, 0, new_child2, 0, capacity);
+			System.arraycopy(height, 0, new_height, 0, capacity);
+			System.arraycopy(leafID, 0, new_leafID, 0, capacity);
+		}
+		box = new_box;
+		parent = new_parent;
+		child1 = new_child1;
+		child2 = new_child2;
+		height = new_height;
+		leafID = new_leafID;
+		capacity = size;
+	}
+}
@@ -70,6 +70,29 @@ public interface RuleCollisionChecker {
 			boolean useEntityExtendedBounds,
 			boolean useTargetsExtendedBounds);
     
+	/** 
+	 * Submit a command to the collision detection system for
+	 * processing and place the Entities that the Command's Entity
+	 * is in collision with in the argument list. The list is cleared
+	 * first, so callers checking at a high rate can reuse one list.
+	 *
+	 * @param command The Command to test
+	 * @param useSurrogates Flag indicating that surrogate entities should
+	 * be used during collision testing.
+	 * @param useEntityExtendedBounds Flag indicating that the extended bounds
+	 * of the entity should be used, if set, when checking against the scene
+	 * @param useTargetsExtendedBounds Flag indicating that the extended bounds 
+	 * of the target entities in the scene, if set, should be used when checked
+	 * against
+	 * @param results The list to place the Entities in collision in
+	 */
+	public void submitCommand(
+			Command command, 
+			boolean useSurrogates, 
+			boolean useEntityExtendedBounds,
+			boolean useTargetsExtendedBounds,
+			ArrayList<Entity> results);
+    
     /**
      * Submit a command to the collision detection system for
      * processing. A Map will be returned that contains a list of
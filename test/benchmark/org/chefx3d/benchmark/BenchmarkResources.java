@@ -0,0 +1,62 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2006 - 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.benchmark;
+
+// External Imports
+import java.util.Enumeration;
+import java.util.ResourceBundle;
+
+// Internal Imports
+// None
+
+/**
+ * Resource bundle for the benchmarks. Strings come from the standard
+ * ChefX3D bundle, and any key the applications would normally provide is
+ * answered with the key itself so the rules never fail on a missing
+ * message.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class BenchmarkResources extends ResourceBundle {
+
+    /** The standard ChefX3D strings */
+    private static final String BASE_BUNDLE = "config.i18n.chefx3dResources";
+
+    /** The bundle holding the standard strings */
+    private ResourceBundle base;
+
+    /**
+     * Constructor
+     */
+    public BenchmarkResources() {
+        base = ResourceBundle.getBundle(BASE_BUNDLE);
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by ResourceBundle
+    //---------------------------------------------------------------
+
+    protected Object handleGetObject(String key) {
+
+        if (base.containsKey(key)) {
+            return base.getObject(key);
+        }
+
+        return key;
+    }
+
+    public Enumeration<String> getKeys() {
+        return base.getKeys();
+    }
+}
@@ -0,0 +1,285 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2006 - 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.benchmark;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Internal Imports
+import org.chefx3d.model.*;
+
+import org.chefx3d.rules.util.SceneHierarchyUtility;
+import org.chefx3d.rules.util.TransformUtils;
+
+import org.chefx3d.view.common.EntityWrapper;
+import org.chefx3d.view.common.RuleCollisionChecker;
+import org.chefx3d.view.common.SurrogateEntityWrapper;
+
+/**
+ * RuleCollisionChecker that works straight off the world model, without a
+ * scene graph. The entity of a command is tested against every other
+ * product in its zone using axis aligned bounds in zone coordinates, and
+ * the zone itself is always reported as a collision.
+ *
+ * Surrogates are tracked but not used for collision testing.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class HeadlessCollisionChecker implements RuleCollisionChecker {
+
+    /** The model to check against */
+    private WorldModel model;
+
+    /** Surrogates added by the rules */
+    private ArrayList<SurrogateEntityWrapper> surrogates;
+
+    /** Side pocketed surrogate states */
+    private HashMap<Entity, SurrogateEntityWrapper> sidePocketed;
+
+    /**
+     * Constructor
+     *
+     * @param model The model to check against
+     */
+    public HeadlessCollisionChecker(WorldModel model) {
+
+        this.model = model;
+
+        surrogates = new ArrayList<SurrogateEntityWrapper>();
+        sidePocketed = new HashMap<Entity, SurrogateEntityWrapper>();
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by RuleCollisionChecker
+    //---------------------------------------------------------------
+
+    public ArrayList<Entity> submitCommand(
+            Command command,
+            boolean useEntityExtendedBounds,
+            boolean useTargetsExtendedBounds) {
+
+        return submitCommand(
+                command,
+                true,
+                useEntityExtendedBounds,
+                useTargetsExtendedBounds);
+    }
+
+    public ArrayList<Entity> submitCommand(
+            Command command,
+            boolean useSurrogates,
+            boolean useEntityExtendedBounds,
+            boolean useTargetsExtendedBounds) {
+
+        ArrayList<Entity> results = new ArrayList<Entity>();
+
+        submitCommand(
+                command,
+                useSurrogates,
+                useEntityExtendedBounds,
+                useTargetsExtendedBounds,
+                results);
+
+        return results;
+    }
+
+    public void submitCommand(
+            Command command,
+            boolean useSurrogates,
+            boolean useEntityExtendedBounds,
+            boolean useTargetsExtendedBounds,
+            ArrayList<Entity> results) {
+
+        results.clear();
+
+        if (!(command instanceof RuleDataAccessor)) {
+            return;
+        }
+
+        Entity entity = ((RuleDataAccessor)command).getEntity();
+
+        if (!(entity instanceof PositionableEntity) || !entity.isModel()) {
+            return;
+        }
+
+        ZoneEntity zone = SceneHierarchyUtility.findExactZoneEntity(model, entity);
+
+        if (zone == null) {
+            return;
+        }
+
+        results.add(zone);
+
+        float[] bounds = getZoneBounds((PositionableEntity)entity);
+
+        ArrayList<Entity> candidates = new ArrayList<Entity>();
+        collectProducts(zone, candidates);
+
+        float[] otherBounds;
+        int len = candidates.size();
+        for (int i = 0; i < len; i++) {
+
+            Entity other = candidates.get(i);
+
+            if (other == entity) {
+                continue;
+            }
+
+            otherBounds = getZoneBounds((PositionableEntity)other);
+
+            if (bounds[0] < otherBounds[1] && otherBounds[0] < bounds[1] &&
+                    bounds[2] < otherBounds[3] && otherBounds[2] < bounds[3] &&
+                    bounds[4] < otherBounds[5] && otherBounds[4] < bounds[5]) {
+
+                results.add(other);
+            }
+        }
+    }
+
+    public Map<Entity, ArrayList<Entity>> submitCommandExtended(
+            Command command,
+            boolean useSurrogates,
+            boolean useEntityExtendedBounds,
+            boolean useTargetsExtendedBounds) {
+
+        HashMap<Entity, ArrayList<Entity>> results =
+            new HashMap<Entity, ArrayList<Entity>>();
+
+        if (command instanceof RuleDataAccessor) {
+
+            results.put(
+                    ((RuleDataAccessor)command).getEntity(),
+                    submitCommand(
+                            command,
+                            useSurrogates,
+                            useEntityExtendedBounds,
+                            useTargetsExtendedBounds));
+        }
+
+        return results;
+    }
+
+    public void printState() {
+        // there is no scene state to print
+    }
+
+    public void addSurrogate(SurrogateEntityWrapper surrogate) {
+        surrogates.add(surrogate);
+    }
+
+    public void removeSurrogate(SurrogateEntityWrapper surrogate) {
+        surrogates.remove(surrogate);
+    }
+
+    public void clearSurrogates() {
+        surrogates.clear();
+    }
+
+    public void printSurrogates() {
+        // debugging output only, kept off the benchmark console
+    }
+
+    public EntityWrapper getEntityWrapper(int entityID) {
+        return null;
+    }
+
+    public SurrogateEntityWrapper[] getSurrogates() {
+
+        SurrogateEntityWrapper[] list =
+            new SurrogateEntityWrapper[surrogates.size()];
+        surrogates.toArray(list);
+
+        return list;
+    }
+
+    public Map<Entity, SurrogateEntityWrapper>
+        getSidePocketedOriginalSurrogateStates() {
+
+        return sidePocketed;
+    }
+
+    public SurrogateEntityWrapper getSidePocketedOriginalSurrogateState(
+            PositionableEntity entity) {
+
+        return sidePocketed.get(entity);
+    }
+
+    public void setSidePocketedOriginalSurrogateState(
+            PositionableEntity entity) {
+
+        // nothing to record without a scene graph
+    }
+
+    public void removeSidePocketedOriginalSurrogateState(
+            PositionableEntity entity) {
+
+        sidePocketed.remove(entity);
+    }
+
+    public void clearSidePocketedOriginalSurrogateStates() {
+        sidePocketed.clear();
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Get the current bounds of an entity relative to its zone.
+     *
+     * @param entity The entity to get bounds for
+     * @return The bounds as minX, maxX, minY, maxY, minZ, maxZ
+     */
+    private float[] getZoneBounds(PositionableEntity entity) {
+
+        float[] bounds = new float[6];
+        entity.getBounds(bounds);
+
+        double[] pos =
+            TransformUtils.getExactPositionRelativeToZone(model, entity);
+
+        if (pos != null) {
+            for (int i = 0; i < 3; i++) {
+                bounds[i * 2] += pos[i];
+                bounds[i * 2 + 1] += pos[i];
+            }
+        }
+
+        return bounds;
+    }
+
+    /**
+     * Collect all the model entities below an entity.
+     *
+     * @param entity The entity to search from
+     * @param list The list to add to
+     */
+    private void collectProducts(Entity entity, List<Entity> list) {
+
+        int len = entity.getChildCount();
+        for (int i = 0; i < len; i++) {
+
+            Entity child = entity.getChildAt(i);
+
+            if (child.isModel() && child instanceof PositionableEntity) {
+                list.add(child);
+            }
+
+            collectProducts(child, list);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2006 - 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.benchmark;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// Internal Imports
+import org.chefx3d.catalog.CatalogManager;
+import org.chefx3d.catalog.DefaultCatalogManager;
+
+import org.chefx3d.model.*;
+
+import org.chefx3d.tool.DefaultEntityBuilder;
+import org.chefx3d.tool.EntityBuilder;
+import org.chefx3d.tool.Tool;
+
+import org.chefx3d.util.ErrorReporter;
+
+import org.chefx3d.view.common.EditorConstants;
+import org.chefx3d.view.common.EditorView;
+import org.chefx3d.view.common.EntityWrapper;
+import org.chefx3d.view.common.NearestNeighborMeasurement;
+import org.chefx3d.view.common.RuleCollisionChecker;
+import org.chefx3d.view.common.StatusReporter;
+
+/**
+ * EditorView with no user interface or scene graph, enough for driving the
+ * rules pipeline from a benchmark or test. Collision checks go through a
+ * HeadlessCollisionChecker and nearest neighbor queries find nothing.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class HeadlessEditorView
+    implements EditorView, StatusReporter, NearestNeighborMeasurement {
+
+    /** The scene being edited */
+    private SyntheticScene scene;
+
+    /** The collision checker handed to the rules */
+    private HeadlessCollisionChecker collisionChecker;
+
+    /** Always empty, there is no scene graph */
+    private HashMap<Integer, EntityWrapper> wrapperMap;
+
+    /** The entity builder */
+    private EntityBuilder entityBuilder;
+
+    /**
+     * Constructor
+     *
+     * @param scene The scene being edited
+     */
+    public HeadlessEditorView(SyntheticScene scene) {
+
+        this.scene = scene;
+
+        collisionChecker = new HeadlessCollisionChecker(scene.getModel());
+        wrapperMap = new HashMap<Integer, EntityWrapper>();
+        entityBuilder = DefaultEntityBuilder.getEntityBuilder();
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by EditorView
+    //---------------------------------------------------------------
+
+    public LocationEntity getActiveLocationEntity() {
+        return scene.getLocation();
+    }
+
+    public RuleCollisionChecker getRuleCollisionChecker() {
+        return collisionChecker;
+    }
+
+    public CatalogManager getCatalogManager() {
+        return DefaultCatalogManager.getCatalogManager();
+    }
+
+    public StatusReporter getStatusReporter() {
+        return this;
+    }
+
+    public HashMap<Integer, EntityWrapper> getEntityWrapperMap() {
+        return wrapperMap;
+    }
+
+    public double getZoneViewZoomAmount() {
+        return 1;
+    }
+
+    public float[] getZoneRelativeMousePosition(float[] position) {
+        return position;
+    }
+
+    public void setSelectionAnchors(Entity entity, boolean[] anchorFlags) {
+    }
+
+    public EditorConstants.AnchorData getSelectedAnchorData() {
+        return EditorConstants.AnchorData.NONE;
+    }
+
+    public NearestNeighborMeasurement getNearestNeighborMeasurement() {
+        return this;
+    }
+
+    public void reset() {
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by View
+    //---------------------------------------------------------------
+
+    public void setTool(Tool tool) {
+    }
+
+    public void enableAssociateMode(
+            String[] validTools,
+            String propertyGroup,
+            String propertyName) {
+    }
+
+    public void shutdown() {
+    }
+
+    public void disableAssociateMode() {
+    }
+
+    public void setHelperDisplayMode(int mode) {
+    }
+
+    public long getViewID() {
+        return 0;
+    }
+
+    public void controlChanged(int newMode) {
+    }
+
+    public EntityBuilder getEntityBuilder() {
+        return entityBuilder;
+    }
+
+    public void setEntityBuilder(EntityBuilder entityBuilder) {
+        this.entityBuilder = entityBuilder;
+    }
+
+    public void setErrorReporter(ErrorReporter reporter) {
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by AuthoringComponent
+    //---------------------------------------------------------------
+
+    public Object getComponent() {
+        return null;
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by StatusReporter
+    //---------------------------------------------------------------
+
+    public void setSelectionStatus(float[] status) {
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by NearestNeighborMeasurement
+    //---------------------------------------------------------------
+
+    public ArrayList<Entity> nearestNeighbors(
+            WorldModel model,
+            Entity activeZone,
+            PositionableEntity currentEntity,
+            int direction,
+            float[] boundsAdj) {
+
+        return new ArrayList<Entity>();
+    }
+
+    public ArrayList<Entity> nearestNeighbors(
+            WorldModel model,
+            Entity activeZone,
+            PositionableEntity currentEntity,
+            int direction) {
+
+        return new ArrayList<Entity>();
+    }
+}
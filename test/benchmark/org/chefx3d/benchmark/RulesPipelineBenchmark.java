@@ -0,0 +1,293 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2006 - 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.benchmark;
+
+// External Imports
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.j3d.util.I18nManager;
+
+// Internal Imports
+import org.chefx3d.model.*;
+
+import org.chefx3d.rules.definitions.BaseRule;
+import org.chefx3d.rules.interpreters.DefaultCommandDataCenter;
+import org.chefx3d.rules.interpreters.ValidatingCommandInterpreter;
+import org.chefx3d.rules.util.RuleCollisionHandler;
+
+import org.chefx3d.util.ApplicationParams;
+import org.chefx3d.util.CheckStatusReportElevation;
+import org.chefx3d.util.ConfigManager;
+import org.chefx3d.util.DefaultErrorReporter;
+import org.chefx3d.util.ErrorReporter;
+
+/**
+ * Measures how many commands per second the rules pipeline can validate
+ * against a synthetic scene. Each benchmark builds a single command and
+ * runs it through ValidatingCommandInterpreter.validate(), the same path
+ * the editor uses, without executing the result so the scene is unchanged
+ * between invocations.
+ *
+ * Run with "ant benchmark" once the JMH jars are in the lib directory.
+ * No display is needed, the rules create their pop up dialogs only when
+ * one is shown, and report the message instead when running headless.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesPipelineBenchmark {
+
+    /** Seed used to build the scene and pick positions */
+    private static final long SEED = 20100101L;
+
+    /** The fonts and colors used by the status bar and pop ups */
+    private static final String CONFIG_FILE = "config/benchmark.properties";
+
+    /** The number of products in the scene */
+    @Param({"100", "1000", "5000"})
+    public int productCount;
+
+    /** The number of walls in the scene */
+    @Param({"4"})
+    public int wallCount;
+
+    /** The scene under test */
+    private SyntheticScene scene;
+
+    /** The model holding the scene */
+    private WorldModel model;
+
+    /** The pipeline under test */
+    private ValidatingCommandInterpreter interpreter;
+
+    /** The products in the scene */
+    private PositionableEntity[] products;
+
+    /** Index of the next product to operate on */
+    private int next;
+
+    /** The velocity of transient moves */
+    private float[] velocity;
+
+    /**
+     * Build the scene and the rules pipeline.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+
+        ApplicationParams.put(ApplicationParams.APP_NAME, "ChefX3DBenchmark");
+        ApplicationParams.put(ApplicationParams.ENABLE_RULES, Boolean.TRUE);
+
+        ConfigManager.getManager().loadConfig(CONFIG_FILE);
+
+        I18nManager intl_mgr = I18nManager.getManager();
+        intl_mgr.setApplication(
+                "ChefX3DBenchmark",
+                BenchmarkResources.class.getName());
+
+        // keep the per rule messages off the console
+        ErrorReporter errorReporter = DefaultErrorReporter.getDefaultReporter();
+        errorReporter.showLevel(ErrorReporter.WARNING);
+
+        scene = new SyntheticScene(wallCount, productCount, SEED);
+        model = scene.getModel();
+        products = scene.getProducts();
+
+        HeadlessEditorView view = new HeadlessEditorView(scene);
+
+        BaseRule.initialize(
+                new RuleCollisionHandler(errorReporter, model, view));
+
+        CheckStatusReportElevation statusManager =
+            new CheckStatusReportElevation();
+
+        DefaultCommandDataCenter dataCenter =
+            new DefaultCommandDataCenter(
+                    errorReporter,
+                    model,
+                    view,
+                    statusManager);
+
+        interpreter =
+            new ValidatingCommandInterpreter(
+                    dataCenter,
+                    errorReporter,
+                    view,
+                    statusManager);
+
+        next = 0;
+        velocity = new float[3];
+    }
+
+    //---------------------------------------------------------------
+    // Benchmarks
+    //---------------------------------------------------------------
+
+    /**
+     * Add a new product to the floor.
+     */
+    @Benchmark
+    public boolean add() {
+
+        ZoneEntity floor = scene.getFloor();
+        PositionableEntity product = scene.createProduct(floor);
+
+        Command command =
+            new AddEntityChildCommand(
+                    model,
+                    model.issueTransactionID(),
+                    floor,
+                    product,
+                    true);
+
+        return interpreter.validate(command);
+    }
+
+    /**
+     * Drag a product, as fired at mouse rate. The command comes from the
+     * pool and is handed back afterwards, as the controller does.
+     */
+    @Benchmark
+    public boolean moveTransient() {
+
+        PositionableEntity product = nextProduct();
+
+        MoveEntityTransientCommand command =
+            MoveEntityTransientCommand.obtain(
+                    model,
+                    model.issueTransactionID(),
+                    product.getEntityID(),
+                    getNewPosition(product),
+                    velocity,
+                    null);
+
+        boolean valid = interpreter.validate(command);
+        command.recycle();
+
+        return valid;
+    }
+
+    /**
+     * Drop a product at a new position.
+     */
+    @Benchmark
+    public boolean move() {
+
+        PositionableEntity product = nextProduct();
+
+        double[] startPos = new double[3];
+        product.getPosition(startPos);
+
+        Command command =
+            new MoveEntityCommand(
+                    model,
+                    model.issueTransactionID(),
+                    product,
+                    getNewPosition(product),
+                    startPos);
+
+        return interpreter.validate(command);
+    }
+
+    /**
+     * Rotate a product a quarter turn.
+     */
+    @Benchmark
+    public boolean rotate() {
+
+        PositionableEntity product = nextProduct();
+
+        float[] startRot = new float[4];
+        product.getRotation(startRot);
+
+        Command command =
+            new RotateEntityCommand(
+                    model,
+                    model.issueTransactionID(),
+                    product,
+                    new float[] {0, 1, 0, (float)(Math.PI * 0.5)},
+                    startRot);
+
+        return interpreter.validate(command);
+    }
+
+    /**
+     * Stretch a product along its width.
+     */
+    @Benchmark
+    public boolean scale() {
+
+        PositionableEntity product = nextProduct();
+
+        double[] pos = new double[3];
+        product.getPosition(pos);
+
+        float[] startScale = new float[3];
+        product.getScale(startScale);
+
+        float[] newScale = new float[] {
+                startScale[0] * 1.25f,
+                startScale[1],
+                startScale[2]};
+
+        Command command =
+            new ScaleEntityCommand(
+                    model,
+                    model.issueTransactionID(),
+                    product,
+                    pos,
+                    pos,
+                    newScale,
+                    startScale);
+
+        return interpreter.validate(command);
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Cycle through the products in the scene.
+     *
+     * @return The product to operate on
+     */
+    private PositionableEntity nextProduct() {
+
+        PositionableEntity product = products[next];
+        next = (next + 1) % products.length;
+
+        return product;
+    }
+
+    /**
+     * Get a new position for a product within its current zone.
+     *
+     * @param product The product being moved
+     * @return The new position
+     */
+    private double[] getNewPosition(PositionableEntity product) {
+
+        Entity parent = model.getEntity(product.getParentEntityID());
+
+        return scene.getRandomPosition((ZoneEntity)parent);
+    }
+}
@@ -0,0 +1,334 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2006 - 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.benchmark;
+
+// External Imports
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Internal Imports
+import org.chefx3d.model.*;
+
+import org.chefx3d.rules.properties.ChefX3DRuleProperties;
+import org.chefx3d.rules.properties.ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES;
+
+/**
+ * Builds a DefaultWorldModel holding a single location with a floor zone,
+ * a closed loop of walls and a configurable number of products spread
+ * across them. Products carry the classification and relationship rule
+ * properties so the collision rules have real work to do.
+ *
+ * The scene is deterministic for a given seed so runs can be compared.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class SyntheticScene {
+
+    /** Length of each side of the square room, in meters */
+    private static final float ROOM_SIZE = 10f;
+
+    /** Height of the walls, in meters */
+    private static final float WALL_HEIGHT = 2.5f;
+
+    /** Thickness of the walls, in meters */
+    private static final float WALL_DEPTH = 0.1f;
+
+    /** Size of each product, in meters */
+    private static final float[] PRODUCT_SIZE = new float[] {0.5f, 0.3f, 0.4f};
+
+    /** The model holding the scene */
+    private WorldModel model;
+
+    /** The active location */
+    private LocationEntity location;
+
+    /** The floor zone */
+    private ZoneEntity floor;
+
+    /** The wall zones */
+    private SegmentEntity[] walls;
+
+    /** The products, in creation order */
+    private PositionableEntity[] products;
+
+    /** Source of product placements */
+    private Random random;
+
+    /**
+     * Create a new scene.
+     *
+     * @param wallCount The number of walls, at least 3
+     * @param productCount The number of products to place
+     * @param seed The random seed used to place products
+     */
+    public SyntheticScene(int wallCount, int productCount, long seed) {
+
+        CommandController controller = new DefaultCommandController();
+        model = new DefaultWorldModel(controller);
+
+        random = new Random(seed);
+
+        SceneEntity scene =
+            new SceneEntity(model.issueEntityID(), createProperties(null));
+
+        location =
+            new LocationEntity(model.issueEntityID(), createProperties(null));
+
+        ContentContainerEntity content =
+            new ContentContainerEntity(
+                    model.issueEntityID(),
+                    createProperties(null));
+
+        scene.addChild(location);
+        location.addChild(content);
+
+        // the floor
+        floor = new ZoneEntity(
+                model.issueEntityID(),
+                Entity.TYPE_GROUNDPLANE_ZONE,
+                createProperties(new float[] {ROOM_SIZE, 0.01f, ROOM_SIZE}));
+        floor.setPosition(new double[] {0, 0, 0}, false);
+        setClassification(floor, "floor");
+        content.addChild(floor);
+
+        // the walls, a regular polygon around the origin
+        DefaultSegmentableEntity wallSet =
+            new DefaultSegmentableEntity(
+                    model.issueEntityID(),
+                    createProperties(null),
+                    null,
+                    null);
+        content.addChild(wallSet);
+
+        double radius = ROOM_SIZE * 0.5;
+
+        VertexEntity[] vertices = new VertexEntity[wallCount];
+        for (int i = 0; i < wallCount; i++) {
+
+            double angle = 2 * Math.PI * i / wallCount;
+
+            vertices[i] = new VertexEntity(
+                    model.issueEntityID(),
+                    createProperties(null));
+            vertices[i].setPosition(
+                    new double[] {
+                            radius * Math.cos(angle),
+                            0,
+                            radius * Math.sin(angle)},
+                    false);
+            vertices[i].setHeight(WALL_HEIGHT);
+
+            wallSet.addVertex(vertices[i], -1);
+        }
+
+        walls = new SegmentEntity[wallCount];
+        for (int i = 0; i < wallCount; i++) {
+
+            VertexEntity start = vertices[i];
+            VertexEntity end = vertices[(i + 1) % wallCount];
+
+            double[] startPos = new double[3];
+            double[] endPos = new double[3];
+            start.getPosition(startPos);
+            end.getPosition(endPos);
+
+            float length = (float)Math.hypot(
+                    endPos[0] - startPos[0],
+                    endPos[2] - startPos[2]);
+
+            walls[i] = new SegmentEntity(
+                    model.issueEntityID(),
+                    Entity.DEFAULT_ENTITY_PROPERTIES,
+                    createProperties(
+                            new float[] {length, WALL_HEIGHT, WALL_DEPTH}));
+            walls[i].setStartVertex(start);
+            walls[i].setEndVertex(end);
+            setClassification(walls[i], "wall");
+
+            wallSet.addSegment(walls[i]);
+        }
+
+        // the products, half on the floor and half on the walls
+        products = new PositionableEntity[productCount];
+        for (int i = 0; i < productCount; i++) {
+
+            ZoneEntity parent;
+            if (i % 2 == 0) {
+                parent = floor;
+            } else {
+                parent = walls[(i / 2) % wallCount];
+            }
+
+            products[i] = createProduct(parent);
+            parent.addChild(products[i]);
+        }
+
+        // register the whole tree and make the location active
+        new AddEntityCommand(model, scene).execute();
+
+        location.setSelected(true);
+        location.setActiveZoneID(floor.getEntityID());
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Create a product positioned randomly within a zone. The product is
+     * not added to the zone or the model.
+     *
+     * @param parent The zone the product will be placed in
+     * @return The new product
+     */
+    public PositionableEntity createProduct(ZoneEntity parent) {
+
+        DefaultEntity product =
+            new DefaultEntity(
+                    model.issueEntityID(),
+                    Entity.DEFAULT_ENTITY_PROPERTIES,
+                    createProperties(PRODUCT_SIZE));
+
+        product.setPosition(getRandomPosition(parent), false);
+        product.setRotation(new float[] {0, 1, 0, 0}, false);
+        product.setParentEntityID(parent.getEntityID());
+
+        setClassification(product, "product");
+
+        product.setProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                ChefX3DRuleProperties.RELATIONSHIP_CLASSIFICATION_PROP,
+                new String[] {"floor", "wall"},
+                false);
+
+        product.setProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                ChefX3DRuleProperties.RELATIONSHIP_AMOUNT_PROP,
+                new int[] {1, 1},
+                false);
+
+        product.setProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_PROP,
+                new RELATIONSHIP_MODIFIER_VALUES[] {
+                        RELATIONSHIP_MODIFIER_VALUES.LESS_THAN_OR_EQUAL_TO,
+                        RELATIONSHIP_MODIFIER_VALUES.LESS_THAN_OR_EQUAL_TO},
+                false);
+
+        return product;
+    }
+
+    /**
+     * Get a random position, relative to the zone, within its bounds.
+     *
+     * @param zone The zone to place within
+     * @return The position
+     */
+    public double[] getRandomPosition(ZoneEntity zone) {
+
+        float[] bounds = new float[6];
+        zone.getBounds(bounds);
+
+        double[] pos = new double[3];
+
+        if (zone == floor) {
+            pos[0] = bounds[0] + random.nextDouble() * (bounds[1] - bounds[0]);
+            pos[1] = PRODUCT_SIZE[1] * 0.5;
+            pos[2] = bounds[4] + random.nextDouble() * (bounds[5] - bounds[4]);
+        } else {
+            pos[0] = bounds[0] + random.nextDouble() * (bounds[1] - bounds[0]);
+            pos[1] = random.nextDouble() * WALL_HEIGHT;
+            pos[2] = WALL_DEPTH * 0.5 + PRODUCT_SIZE[2] * 0.5;
+        }
+
+        return pos;
+    }
+
+    /**
+     * @return The model holding the scene
+     */
+    public WorldModel getModel() {
+        return model;
+    }
+
+    /**
+     * @return The active location
+     */
+    public LocationEntity getLocation() {
+        return location;
+    }
+
+    /**
+     * @return The floor zone
+     */
+    public ZoneEntity getFloor() {
+        return floor;
+    }
+
+    /**
+     * @return The wall zones
+     */
+    public SegmentEntity[] getWalls() {
+        return walls;
+    }
+
+    /**
+     * @return The products, in creation order
+     */
+    public PositionableEntity[] getProducts() {
+        return products;
+    }
+
+    /**
+     * Create the property sheets for a new entity.
+     *
+     * @param size The size of the entity, or null for none
+     * @return The property sheets
+     */
+    private Map<String, Map<String, Object>> createProperties(float[] size) {
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        if (size != null) {
+            params.put(PositionableEntity.SIZE_PARAM, size.clone());
+        }
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, params);
+        sheets.put(
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                new HashMap<String, Object>());
+        sheets.put(
+                Entity.EDITABLE_PROPERTIES,
+                new HashMap<String, Object>());
+
+        return sheets;
+    }
+
+    /**
+     * Set the classification rule property of an entity.
+     *
+     * @param entity The entity to classify
+     * @param classification The classification to give it
+     */
+    private void setClassification(Entity entity, String classification) {
+
+        entity.setProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                ChefX3DRuleProperties.CLASSIFICATION_PROP,
+                new String[] {classification},
+                false);
+    }
+}
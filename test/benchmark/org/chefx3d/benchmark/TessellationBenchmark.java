@@ -0,0 +1,242 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2006 - 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.benchmark;
+
+// External Imports
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.j3d.aviatrix3d.Node;
+
+// Internal Imports
+import org.chefx3d.util.DefaultErrorReporter;
+import org.chefx3d.util.ErrorReporter;
+
+import org.chefx3d.view.awt.av3d.AV3DLoader;
+
+/**
+ * Measures how long AV3DLoader takes to turn an X3D product model into
+ * aviatrix geometry with the tessellation done serially, in parallel,
+ * through the tessellation memo, or both.
+ * <p>
+ * The model is generated to look like a catalog shelving unit: a few
+ * large gridded panels plus many copies of the same concave bracket,
+ * the way hardware recurs across products. The binary model cache is
+ * turned off so every load parses and tessellates the X3D.
+ *
+ * Run with "ant benchmark -Dbenchmark.args=TessellationBenchmark" once
+ * the JMH jars are in the lib directory.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Dchefx3d.av3d.binaryModelCache=false"})
+public class TessellationBenchmark {
+
+    /** How the model is tessellated */
+    @Param({"serial", "parallel", "memoized", "parallelMemoized"})
+    public String mode;
+
+    /** The number of panels in the model */
+    @Param({"8"})
+    public int panelCount;
+
+    /** The number of quads along each side of a panel */
+    @Param({"32"})
+    public int panelDivisions;
+
+    /** The number of brackets in the model */
+    @Param({"48"})
+    public int bracketCount;
+
+    /** The number of points of a bracket outline */
+    private static final int BRACKET_POINTS = 24;
+
+    /** The generated model */
+    private File modelFile;
+
+    /** The loader under test */
+    private AV3DLoader loader;
+
+    /**
+     * Write the model and configure the loader.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+
+        ErrorReporter errorReporter = DefaultErrorReporter.getDefaultReporter();
+        errorReporter.showLevel(ErrorReporter.WARNING);
+
+        modelFile = File.createTempFile("shelving", ".x3d");
+        writeModel(modelFile);
+
+        boolean parallel = mode.startsWith("parallel");
+        boolean memoized = mode.endsWith("emoized");
+
+        AV3DLoader.setParallelTessellation(parallel);
+        AV3DLoader.setTessellationMemoWeight(memoized ? 16 * 1024 * 1024 : 0);
+
+        loader = new AV3DLoader(errorReporter);
+    }
+
+    /**
+     * Delete the model.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        modelFile.delete();
+    }
+
+    //---------------------------------------------------------------
+    // Benchmarks
+    //---------------------------------------------------------------
+
+    /**
+     * Load the model, without the shared model cache.
+     */
+    @Benchmark
+    public Node[] load() {
+        return loader.load(modelFile, false);
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Write the shelving unit.
+     *
+     * @param file The file to write to
+     */
+    private void writeModel(File file) throws IOException {
+
+        PrintWriter out = new PrintWriter(new FileWriter(file));
+
+        out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        out.println("<X3D profile=\"Immersive\" version=\"3.0\">");
+        out.println("<Scene>");
+
+        for (int i = 0; i < panelCount; i++) {
+            out.println("<Transform translation=\"0 " + (i * 0.3f) + " 0\">");
+            writePanel(out, panelDivisions);
+            out.println("</Transform>");
+        }
+
+        for (int i = 0; i < bracketCount; i++) {
+            out.println("<Transform translation=\"" + (i * 0.05f) + " 0 0\">");
+            writeBracket(out);
+            out.println("</Transform>");
+        }
+
+        out.println("</Scene>");
+        out.println("</X3D>");
+        out.close();
+    }
+
+    /**
+     * Write a flat panel split into a grid of quads.
+     *
+     * @param out The stream to write to
+     * @param div The number of quads along each side
+     */
+    private void writePanel(PrintWriter out, int div) {
+
+        out.println("<Shape>");
+        writeAppearance(out);
+        out.print("<IndexedFaceSet creaseAngle=\"0.5\" coordIndex=\"");
+        for (int z = 0; z < div; z++) {
+            for (int x = 0; x < div; x++) {
+                int i = z * (div + 1) + x;
+                out.print(i + " " + (i + div + 1) + " " + (i + div + 2) +
+                    " " + (i + 1) + " -1 ");
+            }
+        }
+        out.println("\">");
+
+        out.print("<Coordinate point=\"");
+        for (int z = 0; z <= div; z++) {
+            for (int x = 0; x <= div; x++) {
+                out.print(((float)x / div) + " 0 " + ((float)z / div) + " ");
+            }
+        }
+        out.println("\"/>");
+        out.println("</IndexedFaceSet>");
+        out.println("</Shape>");
+    }
+
+    /**
+     * Write a bracket, a star shaped outline extruded into a prism. The
+     * caps are concave so they go through the polygon triangulation.
+     *
+     * @param out The stream to write to
+     */
+    private void writeBracket(PrintWriter out) {
+
+        int n = BRACKET_POINTS;
+
+        out.println("<Shape>");
+        writeAppearance(out);
+        out.print("<IndexedFaceSet convex=\"false\" creaseAngle=\"0.5\" coordIndex=\"");
+
+        // caps
+        for (int i = 0; i < n; i++) {
+            out.print(i + " ");
+        }
+        out.print("-1 ");
+        for (int i = n - 1; i >= 0; i--) {
+            out.print((i + n) + " ");
+        }
+        out.print("-1 ");
+
+        // sides
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            out.print(i + " " + (i + n) + " " + (j + n) + " " + j + " -1 ");
+        }
+        out.println("\">");
+
+        out.print("<Coordinate point=\"");
+        for (int cap = 0; cap < 2; cap++) {
+            for (int i = 0; i < n; i++) {
+                double angle = 2 * Math.PI * i / n;
+                double radius = (i % 2 == 0) ? 0.02 : 0.01;
+                out.print((float)(radius * Math.cos(angle)) + " " +
+                    (float)(radius * Math.sin(angle)) + " " +
+                    (cap * 0.01f) + " ");
+            }
+        }
+        out.println("\"/>");
+        out.println("</IndexedFaceSet>");
+        out.println("</Shape>");
+    }
+
+    /**
+     * Write a plain appearance.
+     *
+     * @param out The stream to write to
+     */
+    private void writeAppearance(PrintWriter out) {
+        out.println("<Appearance><Material diffuseColor=\"0.8 0.8 0.8\"/></Appearance>");
+    }
+}
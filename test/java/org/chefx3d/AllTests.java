@@ -21,7 +21,24 @@ import junit.framework.TestFailure;
 import java.util.Enumeration;
 
 // Internal Imports
+import org.chefx3d.cache.TestCacheDiskStore;
+import org.chefx3d.cache.TestCacheIndex;
+import org.chefx3d.cache.TestProxiedItemDownloadService;
+import org.chefx3d.cache.TestProxiedItemDownloaderRunnable;
+import org.chefx3d.catalog.TestCatalogIndex;
 import org.chefx3d.model.*;
+import org.chefx3d.rules.properties.accessors.TestRulePropertyTable;
+import org.chefx3d.rules.util.TestChildrenMatches;
+import org.chefx3d.rules.util.TestCommandSequencer;
+import org.chefx3d.rules.engines.TestRuleChainPruning;
+import org.chefx3d.rules.engines.TestRuleStatistics;
+import org.chefx3d.view.awt.av3d.TestEntityBoundsIndex;
+import org.chefx3d.view.awt.av3d.TestGeometryMemo;
+import org.chefx3d.view.awt.av3d.TestModelCache;
+import org.chefx3d.view.awt.av3d.TestXNodeCodec;
+import org.chefx3d.view.awt.av3d.TestZoneAxisIndex;
+import org.chefx3d.view.awt.scenemanager.TestNodeUpdateQueue;
+import org.chefx3d.view.boundingbox.TestDynamicAABBTree;
 
 /**
  * Create a TestSuite to run all tests
@@ -90,6 +107,25 @@ public class AllTests {
         // add the Model TestCases
         Test modelTests = AllModelTests.suite();
         suite.addTest(modelTests);        
+
+        // add the view TestCases
+        suite.addTestSuite(TestDynamicAABBTree.class);
+        suite.addTestSuite(TestEntityBoundsIndex.class);
+        suite.addTestSuite(TestCacheDiskStore.class);
+        suite.addTestSuite(TestCacheIndex.class);
+        suite.addTestSuite(TestProxiedItemDownloadService.class);
+        suite.addTestSuite(TestProxiedItemDownloaderRunnable.class);
+        suite.addTestSuite(TestNodeUpdateQueue.class);
+        suite.addTestSuite(TestModelCache.class);
+        suite.addTestSuite(TestXNodeCodec.class);
+        suite.addTestSuite(TestGeometryMemo.class);
+        suite.addTestSuite(TestChildrenMatches.class);
+        suite.addTestSuite(TestRulePropertyTable.class);
+        suite.addTestSuite(TestZoneAxisIndex.class);
+        suite.addTestSuite(TestCommandSequencer.class);
+        suite.addTestSuite(TestRuleChainPruning.class);
+        suite.addTestSuite(TestRuleStatistics.class);
+        suite.addTestSuite(TestCatalogIndex.class);
           
         return suite;
         
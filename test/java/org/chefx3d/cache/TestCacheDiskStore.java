@@ -0,0 +1,182 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.cache;
+
+// External Imports
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import junit.framework.TestCase;
+
+// Internal Imports
+// None
+
+/**
+ * Checks that assets written through the CacheDiskStore are only replaced
+ * by completely written content.
+ *
+ * @author Daniel Joyce
+ * @version $Revision: 1.1 $
+ */
+public class TestCacheDiskStore extends TestCase {
+
+    private static final String KEY = "http://example.com/models/box.x3d";
+
+    private File root;
+
+    private CacheDiskStore store;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestCacheDiskStore(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() throws IOException {
+
+        root = File.createTempFile("cache", "test");
+        root.delete();
+        root.mkdirs();
+
+        store = new CacheDiskStore(root.getPath(), "test");
+        store.setMaxSize(0);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        store.clearCache();
+        root.delete();
+    }
+
+    /**
+     * A closed stream replaces the asset
+     */
+    public void testStreamCommits() throws IOException {
+
+        store.storeAsset(KEY, new ByteArrayInputStream("old".getBytes()));
+
+        OutputStream os = store.storeAsset(KEY);
+        os.write("new".getBytes());
+        os.close();
+
+        assertEquals("new", read(KEY));
+        assertEquals(3, store.getAssetSize(KEY));
+        assertEquals(3, store.getCacheSize());
+        assertNoTempFiles();
+    }
+
+    /**
+     * An aborted stream leaves the previous asset in place
+     */
+    public void testAbortKeepsAsset() throws IOException {
+
+        store.storeAsset(KEY, new ByteArrayInputStream("old".getBytes()));
+
+        OutputStream os = store.storeAsset(KEY);
+        os.write("partial".getBytes());
+        ((CacheDiskStore.CommitOutputStream)os).abort();
+        os.close();
+
+        assertEquals("old", read(KEY));
+        assertEquals(3, store.getAssetSize(KEY));
+        assertNoTempFiles();
+    }
+
+    /**
+     * An aborted stream for a new asset stores nothing
+     */
+    public void testAbortStoresNothing() throws IOException {
+
+        OutputStream os = store.storeAsset(KEY);
+        os.write("partial".getBytes());
+        ((CacheDiskStore.CommitOutputStream)os).abort();
+        os.close();
+
+        assertFalse(store.doesAssetExist(KEY));
+        assertFalse(store.getStorageFileForKey(KEY).exists());
+        assertNoTempFiles();
+    }
+
+    /**
+     * A failed input stream leaves the previous asset in place
+     */
+    public void testFailedInputKeepsAsset() throws IOException {
+
+        store.storeAsset(KEY, new ByteArrayInputStream("old".getBytes()));
+
+        InputStream failing = new InputStream() {
+            private int count;
+            public int read() throws IOException {
+                if (count++ > 2) {
+                    throw new IOException("Connection reset");
+                }
+                return 'x';
+            }
+        };
+
+        try {
+            store.storeAsset(KEY, failing);
+            fail("The failure should be reported");
+        } catch (IOException ioe) {
+            // expected
+        }
+
+        assertEquals("old", read(KEY));
+        assertNoTempFiles();
+    }
+
+    /**
+     * Read an asset as a string
+     */
+    private String read(String key) throws IOException {
+
+        InputStream is = store.retrieveAsset(key);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int b;
+        while ((b = is.read()) != -1) {
+            bytes.write(b);
+        }
+        is.close();
+        return bytes.toString();
+    }
+
+    /**
+     * Check that no temporary files were left next to the asset
+     */
+    private void assertNoTempFiles() throws IOException {
+
+        File dir = store.getStorageFileForKey(KEY).getParentFile();
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (int i = 0; i < files.length; i++) {
+            assertFalse(
+                "Temporary file left: " + files[i],
+                files[i].getName().endsWith(".tmp"));
+        }
+    }
+}
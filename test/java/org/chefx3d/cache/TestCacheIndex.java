@@ -0,0 +1,244 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.cache;
+
+// External Imports
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import junit.framework.TestCase;
+
+// Internal Imports
+// None
+
+/**
+ * Checks that the CacheIndex log replays to the same index, survives a
+ * record cut short, is compacted, and gives the least recently used
+ * assets first.
+ *
+ * @author Daniel Joyce
+ * @version $Revision: 1.1 $
+ */
+public class TestCacheIndex extends TestCase {
+
+    private File root;
+
+    private File indexFile;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestCacheIndex(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() throws IOException {
+
+        root = File.createTempFile("index", "test");
+        root.delete();
+        root.mkdirs();
+
+        indexFile = new File(root, CacheIndex.INDEX_FILE_NAME);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        File[] files = root.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            files[i].delete();
+        }
+        root.delete();
+    }
+
+    /**
+     * A reopened index holds what was recorded
+     */
+    public void testReplay() {
+
+        CacheIndex index = new CacheIndex(root);
+        index.put("a", "00/01", 10);
+        index.put("b", "00/02", 20);
+        index.put("c", "00/03", 30);
+        index.setValidators("b", "\"v1\"", 1234L);
+        index.touch("c");
+        index.remove("a");
+        index.put("c", "00/03", 35);
+        long accessB = index.get("b").lastAccess;
+        index.close();
+
+        CacheIndex replayed = new CacheIndex(root);
+        assertNull(replayed.get("a"));
+        assertEquals(55, replayed.getTotalSize());
+
+        CacheIndex.Entry b = replayed.get("b");
+        assertEquals("00/02", b.dir);
+        assertEquals(20, b.size);
+        assertEquals("\"v1\"", b.etag);
+        assertEquals(1234L, b.lastModified);
+        assertEquals(accessB, b.lastAccess);
+
+        CacheIndex.Entry c = replayed.get("c");
+        assertEquals(35, c.size);
+        assertNull(c.etag);
+        replayed.close();
+    }
+
+    /**
+     * A record cut short ends the replay, the records before it are kept
+     * and the log is rewritten
+     */
+    public void testTornTail() throws IOException {
+
+        CacheIndex index = new CacheIndex(root);
+        index.put("a", "00/01", 10);
+        index.put("b", "00/02", 20);
+        index.close();
+
+        long length = indexFile.length();
+        index = new CacheIndex(root);
+        index.put("c", "00/03", 30);
+        index.close();
+
+        // cut the last record short
+        RandomAccessFile raf = new RandomAccessFile(indexFile, "rw");
+        raf.setLength(length + 5);
+        raf.close();
+
+        CacheIndex recovered = new CacheIndex(root);
+        assertNotNull(recovered.get("a"));
+        assertNotNull(recovered.get("b"));
+        assertNull(recovered.get("c"));
+        assertEquals(30, recovered.getTotalSize());
+
+        // the log was rewritten and takes new records
+        recovered.put("d", "00/04", 40);
+        recovered.close();
+
+        CacheIndex reopened = new CacheIndex(root);
+        assertNotNull(reopened.get("d"));
+        assertEquals(70, reopened.getTotalSize());
+        reopened.close();
+    }
+
+    /**
+     * A log that is not an index is ignored
+     */
+    public void testDamagedHeader() throws IOException {
+
+        FileOutputStream fos = new FileOutputStream(indexFile);
+        fos.write("not an index".getBytes());
+        fos.close();
+
+        CacheIndex index = new CacheIndex(root);
+        assertEquals(0, index.getTotalSize());
+        index.put("a", "00/01", 10);
+        index.close();
+
+        CacheIndex reopened = new CacheIndex(root);
+        assertEquals(10, reopened.getTotalSize());
+        reopened.close();
+    }
+
+    /**
+     * Rewriting an asset many times doesn't grow the log without bound
+     */
+    public void testCompaction() {
+
+        CacheIndex index = new CacheIndex(root);
+        index.put("a", "00/01", 10);
+        index.close();
+        long length = indexFile.length();
+
+        index = new CacheIndex(root);
+        for (int i = 0; i < 5000; i++) {
+            index.put("a", "00/01", i);
+        }
+        index.close();
+
+        // compacted, so no more than the compaction slack of records
+        assertTrue(indexFile.length() < length * 1100);
+
+        CacheIndex reopened = new CacheIndex(root);
+        assertEquals(4999, reopened.get("a").size);
+        assertEquals(4999, reopened.getTotalSize());
+        reopened.close();
+    }
+
+    /**
+     * Reads within the flush interval write one record per asset
+     */
+    public void testTouchesAreBatched() {
+
+        CacheIndex index = new CacheIndex(root);
+        index.put("a", "00/01", 10);
+        index.close();
+        long length = indexFile.length();
+
+        index = new CacheIndex(root);
+        index.touch("a");
+        long first = indexFile.length();
+        for (int i = 0; i < 1000; i++) {
+            index.touch("a");
+        }
+        long accessed = index.get("a").lastAccess;
+        index.close();
+
+        // type, name, time
+        long touchRecord = 1 + 2 + 1 + 8;
+        assertTrue(indexFile.length() <= first + touchRecord);
+        assertTrue(indexFile.length() <= length + 2 * touchRecord);
+
+        CacheIndex reopened = new CacheIndex(root);
+        assertEquals(accessed, reopened.get("a").lastAccess);
+        reopened.close();
+    }
+
+    /**
+     * The least recently used assets are evicted first, and an asset used
+     * after it was chosen is kept
+     */
+    public void testEvictionOrder() throws InterruptedException {
+
+        CacheIndex index = new CacheIndex(root);
+        index.put("a", "00/01", 10);
+        Thread.sleep(5);
+        index.put("b", "00/02", 10);
+        Thread.sleep(5);
+        index.put("c", "00/03", 10);
+        Thread.sleep(5);
+        index.touch("a");
+
+        CacheIndex.Entry[] order = index.getEvictionOrder();
+        assertEquals(3, order.length);
+        assertEquals("b", order[0].name);
+        assertEquals("c", order[1].name);
+        assertEquals("a", order[2].name);
+
+        assertTrue(index.isUnused("b", order[0].lastAccess));
+        Thread.sleep(5);
+        index.touch("b");
+        assertFalse(index.isUnused("b", order[0].lastAccess));
+        assertFalse(index.isUnused("x", 0));
+        index.close();
+    }
+}
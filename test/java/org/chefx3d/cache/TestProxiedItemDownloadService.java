@@ -0,0 +1,210 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.cache;
+
+// External Imports
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import junit.framework.TestCase;
+
+// Internal Imports
+// None
+
+/**
+ * Checks that the ProxiedItemDownloadService ignores assets that are
+ * already scheduled and keeps to its per host limit without holding up
+ * other hosts.
+ *
+ * @author Daniel Joyce
+ * @version $Revision: 1.1 $
+ */
+public class TestProxiedItemDownloadService extends TestCase {
+
+    private RecordingService service;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestProxiedItemDownloadService(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+        service = new RecordingService();
+        service.setDownloadThreadCount(4);
+        service.setMaxDownloadsPerHost(2);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        service.release();
+        service.proxiedItemDownloader.shutdownNow();
+    }
+
+    /**
+     * An asset scheduled while queued or downloading is only downloaded
+     * once, and can be scheduled again when done
+     */
+    public void testDuplicatesIgnored() throws Exception {
+
+        URL url = new URL("http://a.example.com/models/box.x3d");
+        service.scheduleProxiedItemForDownload(url);
+        service.waitForRunning(1);
+
+        service.scheduleProxiedItemForDownload(url);
+        service.scheduleProxiedItemForDownload(url);
+
+        service.release();
+        service.waitForFinished(1);
+        Thread.sleep(50);
+        assertEquals(1, service.getStarted().size());
+
+        service.scheduleProxiedItemForDownload(url);
+        service.waitForFinished(2);
+        assertEquals(2, service.getStarted().size());
+    }
+
+    /**
+     * No more than the limit run against one host, and other hosts are
+     * not held up by a busy one
+     */
+    public void testPerHostLimit() throws Exception {
+
+        for (int i = 0; i < 5; i++) {
+            service.scheduleProxiedItemForDownload(
+                new URL("http://a.example.com/models/" + i + ".x3d"));
+        }
+        service.waitForRunning(2);
+
+        service.scheduleProxiedItemForDownload(
+            new URL("http://b.example.com/models/0.x3d"));
+        service.waitForRunning(3);
+
+        Thread.sleep(50);
+        assertEquals(3, service.getRunning());
+        assertEquals(2, service.getMaxRunning("a.example.com"));
+        assertEquals(1, service.getMaxRunning("b.example.com"));
+
+        service.release();
+        service.waitForFinished(6);
+
+        assertEquals(6, service.getStarted().size());
+        assertEquals(2, service.getMaxRunning("a.example.com"));
+    }
+
+    /**
+     * Records the downloads started, which block until released
+     */
+    private static class RecordingService extends ProxiedItemDownloadService {
+
+        /** The assets downloaded, in the order they were started */
+        private List<String> started = new ArrayList<String>();
+
+        /** The downloads running for each host */
+        private HashMap<String, Integer> running = new HashMap<String, Integer>();
+
+        /** The most downloads seen running for each host */
+        private HashMap<String, Integer> maxRunning = new HashMap<String, Integer>();
+
+        /** The number of downloads running */
+        private int numRunning;
+
+        /** The number of downloads finished */
+        private int finished;
+
+        /** Have the downloads been let go */
+        private boolean released;
+
+        Runnable createDownloader(final String uriString) {
+            return new Runnable() {
+                public void run() {
+                    download(uriString);
+                }
+            };
+        }
+
+        private synchronized void download(String uriString) {
+
+            String host = uriString.substring(7, uriString.indexOf('/', 7));
+            started.add(uriString);
+            numRunning++;
+            int count = get(running, host) + 1;
+            running.put(host, count);
+            maxRunning.put(host, Math.max(count, get(maxRunning, host)));
+            notifyAll();
+
+            try {
+                long end = System.currentTimeMillis() + 5000;
+                while (!released && System.currentTimeMillis() < end) {
+                    wait(100);
+                }
+            } catch (InterruptedException ie) {
+                // let the download finish
+            }
+
+            running.put(host, get(running, host) - 1);
+            numRunning--;
+            finished++;
+            notifyAll();
+        }
+
+        synchronized void release() {
+            released = true;
+            notifyAll();
+        }
+
+        synchronized List<String> getStarted() {
+            return new ArrayList<String>(started);
+        }
+
+        synchronized int getRunning() {
+            return numRunning;
+        }
+
+        synchronized int getMaxRunning(String host) {
+            return get(maxRunning, host);
+        }
+
+        synchronized void waitForRunning(int count) throws InterruptedException {
+            long end = System.currentTimeMillis() + 5000;
+            while (numRunning < count && System.currentTimeMillis() < end) {
+                wait(100);
+            }
+            assertTrue("Downloads did not start", numRunning >= count);
+        }
+
+        synchronized void waitForFinished(int count) throws InterruptedException {
+            long end = System.currentTimeMillis() + 5000;
+            while (finished < count && System.currentTimeMillis() < end) {
+                wait(100);
+            }
+            assertTrue("Downloads did not finish", finished >= count);
+        }
+
+        private static int get(HashMap<String, Integer> map, String host) {
+            Integer count = map.get(host);
+            return (count == null) ? 0 : count;
+        }
+    }
+}
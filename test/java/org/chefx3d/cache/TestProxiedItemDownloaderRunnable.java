@@ -0,0 +1,190 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.cache;
+
+// External Imports
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import junit.framework.TestCase;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+// Internal Imports
+// None
+
+/**
+ * Checks that the ProxiedItemDownloaderRunnable revalidates a cached
+ * asset with its ETag, keeps it on a 304 and replaces it on a 200.
+ *
+ * @author Daniel Joyce
+ * @version $Revision: 1.1 $
+ */
+public class TestProxiedItemDownloaderRunnable extends TestCase {
+
+    private HttpServer server;
+
+    private String uriString;
+
+    private File root;
+
+    private CacheStoreInterface savedStore;
+
+    private boolean savedFreshness;
+
+    /** What the server sends */
+    private volatile String body;
+    private volatile String etag;
+
+    /** What the server was sent */
+    private volatile int requests;
+    private volatile String ifNoneMatch;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestProxiedItemDownloaderRunnable(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                requests++;
+                ifNoneMatch =
+                    exchange.getRequestHeaders().getFirst("If-None-Match");
+
+                if (etag.equals(ifNoneMatch)) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    byte[] bytes = body.getBytes();
+                    exchange.getResponseHeaders().set("ETag", etag);
+                    exchange.sendResponseHeaders(200, bytes.length);
+                    OutputStream os = exchange.getResponseBody();
+                    os.write(bytes);
+                    os.close();
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+
+        uriString = "http://127.0.0.1:" + server.getAddress().getPort() +
+            "/models/box.x3d";
+
+        root = File.createTempFile("cache", "test");
+        root.delete();
+        root.mkdirs();
+
+        ClientCache cache = ClientCache.getInstance();
+        savedStore = cache.cacheStore;
+        savedFreshness = cache.isCheckFreshness();
+        CacheDiskStore store = new CacheDiskStore(root.getPath(), "test");
+        store.setMaxSize(0);
+        cache.cacheStore = store;
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        server.stop(0);
+
+        ClientCache cache = ClientCache.getInstance();
+        cache.clearCache();
+        cache.cacheStore = savedStore;
+        cache.setCheckFreshness(savedFreshness);
+        root.delete();
+    }
+
+    /**
+     * A cached asset is revalidated, kept while the server has the same
+     * version and replaced when it has a new one
+     */
+    public void testRevalidation() throws IOException {
+
+        ClientCache cache = ClientCache.getInstance();
+        cache.setCheckFreshness(true);
+
+        body = "first";
+        etag = "\"v1\"";
+        new ProxiedItemDownloaderRunnable(uriString).run();
+        assertEquals(1, requests);
+        assertNull(ifNoneMatch);
+        assertEquals("first", read());
+        assertEquals("\"v1\"", cache.getETag(uriString));
+
+        // not modified, the cached copy is kept
+        body = "second";
+        new ProxiedItemDownloaderRunnable(uriString).run();
+        assertEquals(2, requests);
+        assertEquals("\"v1\"", ifNoneMatch);
+        assertEquals("first", read());
+
+        // modified, the new copy and validator are stored
+        etag = "\"v2\"";
+        new ProxiedItemDownloaderRunnable(uriString).run();
+        assertEquals(3, requests);
+        assertEquals("\"v1\"", ifNoneMatch);
+        assertEquals("second", read());
+        assertEquals("\"v2\"", cache.getETag(uriString));
+    }
+
+    /**
+     * A cached asset is not requested when freshness is not checked
+     */
+    public void testNoRevalidation() throws IOException {
+
+        ClientCache cache = ClientCache.getInstance();
+        cache.setCheckFreshness(false);
+
+        body = "first";
+        etag = "\"v1\"";
+        new ProxiedItemDownloaderRunnable(uriString).run();
+        assertEquals(1, requests);
+
+        etag = "\"v2\"";
+        new ProxiedItemDownloaderRunnable(uriString).run();
+        assertEquals(1, requests);
+        assertEquals("first", read());
+    }
+
+    /**
+     * Read the cached asset as a string
+     */
+    private String read() throws IOException {
+
+        InputStream is = ClientCache.getInstance().retrieveAsset(uriString);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int b;
+        while ((b = is.read()) != -1) {
+            bytes.write(b);
+        }
+        is.close();
+        return bytes.toString();
+    }
+}
@@ -0,0 +1,402 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.catalog;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import junit.framework.TestCase;
+
+// Internal Imports
+import org.chefx3d.model.Entity;
+import org.chefx3d.tool.SimpleTool;
+import org.chefx3d.tool.ToolGroup;
+
+/**
+ * Checks that the CatalogIndex behind the find methods of Catalog and
+ * DefaultCatalogManager follows tools and nested groups as they are
+ * added, replaced and removed, falls back to the next tool with a name
+ * when the first is removed, and keeps listening to a group until every
+ * place it is indexed from is gone.
+ *
+ * @author Alan Hudson
+ * @version $Revision: 1.1 $
+ */
+public class TestCatalogIndex extends TestCase {
+
+    private Catalog catalog;
+
+    /** A top level group of the catalog */
+    private ToolGroup top;
+
+    /** A group nested in the top level one */
+    private ToolGroup nested;
+
+    /** A tool of each group */
+    private SimpleTool topTool;
+    private SimpleTool nestedTool;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestCatalogIndex(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        catalog = new Catalog("Catalog", 1, 0);
+
+        top = new ToolGroup("Top");
+        topTool = createTool("table", "Table");
+        top.addTool(topTool);
+
+        nested = new ToolGroup("Nested");
+        nestedTool = createTool("chair", "Chair");
+        nested.addTool(nestedTool);
+        top.addToolGroup(nested);
+
+        catalog.addToolGroup(top);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        catalog = null;
+        top = null;
+        nested = null;
+    }
+
+    /**
+     * Tools and groups added to a catalog, before and after the groups
+     * holding them are, are found, and removed ones are not
+     */
+    public void testCatalogAddRemove() {
+
+        assertSame(topTool, catalog.findTool("table"));
+        assertSame(nestedTool, catalog.findTool("chair"));
+        assertSame(nestedTool, catalog.findToolByName("Chair"));
+        assertSame(top, catalog.findToolGroup("Top"));
+        assertSame(nested, catalog.findToolGroupByName("Nested"));
+
+        // added through the catalog and to a nested group directly
+        SimpleTool lamp = createTool("lamp", "Lamp");
+        catalog.addTool("Top", lamp);
+        SimpleTool stool = createTool("stool", "Stool");
+        nested.addTool(stool);
+
+        assertSame(lamp, catalog.findTool("lamp"));
+        assertSame(stool, catalog.findToolByName("Stool"));
+
+        // a group added below a nested one brings its own tools
+        ToolGroup deep = new ToolGroup("Deep");
+        SimpleTool shelf = createTool("shelf", "Shelf");
+        deep.addTool(shelf);
+        nested.addToolGroup(deep);
+
+        assertSame(deep, catalog.findToolGroup("Deep"));
+        assertSame(shelf, catalog.findTool("shelf"));
+
+        catalog.removeTool("Top", lamp);
+        nested.removeTool(stool);
+
+        assertNull(catalog.findTool("lamp"));
+        assertNull(catalog.findToolByName("Stool"));
+
+        // removing a nested group removes everything below it
+        top.removeToolGroup(nested);
+
+        assertNull(catalog.findToolGroup("Nested"));
+        assertNull(catalog.findToolGroup("Deep"));
+        assertNull(catalog.findTool("chair"));
+        assertNull(catalog.findTool("shelf"));
+        assertSame(topTool, catalog.findTool("table"));
+
+        // and it is no longer listened to
+        nested.addTool(createTool("bench", "Bench"));
+        assertNull(catalog.findTool("bench"));
+
+        catalog.removeToolGroup(top);
+
+        assertNull(catalog.findToolGroup("Top"));
+        assertNull(catalog.findTool("table"));
+
+        top.addTool(createTool("desk", "Desk"));
+        assertNull(catalog.findTool("desk"));
+    }
+
+    /**
+     * A catalog group added with the ID of one already there is merged
+     * into it, and a list of groups removed together leaves nothing behind
+     */
+    public void testCatalogMergeAndRemoveTools() {
+
+        ToolGroup other = new ToolGroup("Top");
+        SimpleTool sofa = createTool("sofa", "Sofa");
+        other.addTool(sofa);
+
+        catalog.addToolGroup(other);
+
+        assertSame(top, catalog.findToolGroup("Top"));
+        assertSame(sofa, catalog.findTool("sofa"));
+        assertSame(sofa, catalog.findToolByName("Sofa"));
+
+        ToolGroup second = new ToolGroup("Second");
+        second.addTool(createTool("rug", "Rug"));
+
+        ArrayList<ToolGroup> groups = new ArrayList<ToolGroup>();
+        groups.add(second);
+        catalog.addTools(groups);
+
+        assertSame(second, catalog.findToolGroup("Second"));
+        assertNotNull(catalog.findTool("rug"));
+
+        groups.add(top);
+        catalog.removeTools(groups);
+
+        assertNull(catalog.findToolGroup("Second"));
+        assertNull(catalog.findToolGroup("Top"));
+        assertNull(catalog.findTool("rug"));
+        assertNull(catalog.findTool("sofa"));
+        assertNull(catalog.findTool("chair"));
+    }
+
+    /**
+     * A tool or group replaced by another with the same ID is only found
+     * as the new one, under its new name
+     */
+    public void testReplace() {
+
+        SimpleTool armchair = createTool("chair", "Armchair");
+        nested.addTool(armchair);
+
+        assertSame(armchair, catalog.findTool("chair"));
+        assertSame(armchair, catalog.findToolByName("Armchair"));
+        assertNull(catalog.findToolByName("Chair"));
+        assertSame(armchair, nested.getToolByName("Armchair"));
+        assertNull(nested.getToolByName("Chair"));
+
+        // a nested group replaced under the same ID takes its tools along
+        ToolGroup replacement = new ToolGroup("Seating", -1, "Nested", "");
+        SimpleTool couch = createTool("couch", "Couch");
+        replacement.addTool(couch);
+        top.addToolGroup(replacement);
+
+        assertSame(replacement, catalog.findToolGroup("Nested"));
+        assertSame(replacement, catalog.findToolGroupByName("Seating"));
+        assertNull(catalog.findToolGroupByName("Nested"));
+        assertSame(couch, catalog.findTool("couch"));
+        assertNull(catalog.findTool("chair"));
+
+        // the replaced group is no longer listened to, the new one is
+        nested.addTool(createTool("bench", "Bench"));
+        replacement.addTool(createTool("stool", "Stool"));
+
+        assertNull(catalog.findTool("bench"));
+        assertNotNull(catalog.findTool("stool"));
+
+        // adding the same group again changes nothing
+        top.addToolGroup(replacement);
+        replacement.addTool(createTool("ottoman", "Ottoman"));
+
+        assertSame(replacement, catalog.findToolGroup("Nested"));
+        assertNotNull(catalog.findTool("ottoman"));
+
+        top.removeToolGroup(replacement);
+
+        assertNull(catalog.findToolGroup("Nested"));
+        assertNull(catalog.findTool("couch"));
+    }
+
+    /**
+     * Once the first tool with a name is removed the next one is found,
+     * in the same group and across groups
+     */
+    public void testNameFallback() {
+
+        SimpleTool second = createTool("chair2", "Chair");
+        SimpleTool third = createTool("chair3", "Chair");
+        nested.addTool(second);
+        nested.addTool(third);
+
+        assertSame(nestedTool, catalog.findToolByName("Chair"));
+        assertSame(nestedTool, nested.getToolByName("Chair"));
+
+        nested.removeTool(nestedTool);
+
+        assertSame(second, catalog.findToolByName("Chair"));
+        assertSame(second, nested.getToolByName("Chair"));
+
+        // renamed by a replacement, the name falls to the next one
+        SimpleTool renamed = createTool("chair2", "Recliner");
+        nested.addTool(renamed);
+
+        assertSame(third, catalog.findToolByName("Chair"));
+        assertSame(third, nested.getToolByName("Chair"));
+        assertSame(renamed, nested.getToolByName("Recliner"));
+
+        // a tool of the same name in another group
+        SimpleTool other = createTool("chair4", "Chair");
+        top.addTool(other);
+
+        nested.removeTool(third);
+
+        assertNull(nested.getToolByName("Chair"));
+        assertSame(other, catalog.findToolByName("Chair"));
+
+        top.removeTool(other);
+
+        assertNull(catalog.findToolByName("Chair"));
+    }
+
+    /**
+     * A group held in more than one place is found, and listened to,
+     * until it is removed from all of them
+     */
+    public void testDuplicateIDs() {
+
+        ToolGroup shared = new ToolGroup("Shared");
+        shared.addTool(createTool("vase", "Vase"));
+
+        ToolGroup second = new ToolGroup("Second");
+        second.addToolGroup(shared);
+        nested.addToolGroup(shared);
+        catalog.addToolGroup(second);
+
+        assertSame(shared, catalog.findToolGroup("Shared"));
+
+        nested.removeToolGroup(shared);
+
+        assertSame(shared, catalog.findToolGroup("Shared"));
+        assertNotNull(catalog.findTool("vase"));
+
+        // still listened to through the second group
+        SimpleTool bowl = createTool("bowl", "Bowl");
+        shared.addTool(bowl);
+        assertSame(bowl, catalog.findTool("bowl"));
+
+        // a tool with the ID of one elsewhere is found after it
+        SimpleTool copy = createTool("table", "Table");
+        shared.addTool(copy);
+        assertSame(topTool, catalog.findTool("table"));
+
+        top.removeTool(topTool);
+        assertSame(copy, catalog.findTool("table"));
+
+        second.removeToolGroup(shared);
+
+        assertNull(catalog.findToolGroup("Shared"));
+        assertNull(catalog.findTool("bowl"));
+        assertNull(catalog.findTool("table"));
+
+        shared.addTool(createTool("jug", "Jug"));
+        assertNull(catalog.findTool("jug"));
+    }
+
+    /**
+     * The manager finds the tools of every catalog added to it, follows
+     * their changes, and forgets a catalog once it is removed
+     */
+    public void testManager() {
+
+        DefaultCatalogManager manager = new DefaultCatalogManager();
+        manager.addCatalog(catalog);
+
+        assertSame(nestedTool, manager.findTool("chair"));
+        assertSame(nested, manager.findToolGroupByName("Nested"));
+
+        // changes made through the catalog and to its groups
+        ToolGroup kitchen = new ToolGroup("Kitchen");
+        SimpleTool oven = createTool("oven", "Oven");
+        kitchen.addTool(oven);
+        catalog.addToolGroup(kitchen);
+
+        assertSame(kitchen, manager.findToolGroup("Kitchen"));
+        assertSame(oven, manager.findToolByName("Oven"));
+
+        SimpleTool sink = createTool("sink", "Sink");
+        kitchen.addTool(sink);
+        assertSame(sink, manager.findTool("sink"));
+
+        catalog.removeToolGroup(kitchen);
+        assertNull(manager.findToolGroup("Kitchen"));
+        assertNull(manager.findTool("sink"));
+
+        // a second catalog sharing a group and a tool name
+        Catalog other = new Catalog("Other", 1, 0);
+        ToolGroup extra = new ToolGroup("Extra");
+        SimpleTool otherChair = createTool("chair5", "Chair");
+        extra.addTool(otherChair);
+        extra.addToolGroup(nested);
+        other.addToolGroup(extra);
+
+        manager.addCatalog(other);
+
+        assertSame(nestedTool, manager.findToolByName("Chair"));
+        assertSame(extra, manager.findToolGroup("Extra"));
+
+        // adding a catalog again changes nothing
+        manager.addCatalog(other);
+
+        nested.removeTool(nestedTool);
+        assertSame(otherChair, manager.findToolByName("Chair"));
+
+        manager.removeCatalog("Catalog");
+
+        assertNull(manager.findTool("table"));
+        assertNull(manager.findToolGroup("Top"));
+        assertSame(nested, manager.findToolGroup("Nested"));
+
+        // the shared group is still followed through the other catalog
+        SimpleTool stool = createTool("stool", "Stool");
+        nested.addTool(stool);
+        assertSame(stool, manager.findTool("stool"));
+
+        // the removed catalog is not
+        top.addTool(createTool("desk", "Desk"));
+        catalog.addToolGroup(new ToolGroup("Garden"));
+
+        assertNull(manager.findTool("desk"));
+        assertNull(manager.findToolGroup("Garden"));
+        assertNotNull(catalog.findTool("desk"));
+
+        manager.removeCatalog("Other");
+
+        assertNull(manager.findToolGroup("Nested"));
+        assertNull(manager.findTool("stool"));
+
+        nested.addTool(createTool("bench", "Bench"));
+        assertNull(manager.findTool("bench"));
+        assertNotNull(catalog.findTool("bench"));
+    }
+
+    /**
+     * Create a tool with an ID and name
+     */
+    private SimpleTool createTool(String id, String name) {
+
+        HashMap<String, Object> props = new HashMap<String, Object>();
+        props.put(Entity.TOOL_ID_PROP, id);
+        props.put(Entity.NAME_PROP, name);
+
+        return new SimpleTool(props);
+    }
+}
@@ -36,6 +36,14 @@ public class AllModelTests {
         suite.addTestSuite(TestLocationWorldModel.class);
         suite.addTestSuite(TestEntityWorldModel.class);
         suite.addTestSuite(TestImportExport.class);
+        suite.addTestSuite(TestTransientMoveAllocation.class);
+        suite.addTestSuite(TestSMALStreaming.class);
+        suite.addTestSuite(TestOverlayPropertySheet.class);
+        suite.addTestSuite(TestPropertyKey.class);
+        suite.addTestSuite(TestWorldTransformCache.class);
+        suite.addTestSuite(TestTransformStore.class);
+        suite.addTestSuite(TestCommandCoalescing.class);
+        suite.addTestSuite(TestEntityIndex.class);
         //suite.addTestSuite(TestFenceEntityWorldModel.class);
 
         return suite;
@@ -0,0 +1,254 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import junit.framework.TestCase;
+
+// Internal Imports
+// None
+
+/**
+ * Checks that the BufferedCommandController drops superseded transient
+ * commands, keeps ordering across other commands and releases what it
+ * drops.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class TestCommandCoalescing extends TestCase {
+
+    private RecordingController controller;
+    private DefaultWorldModel model;
+
+    private DefaultEntity box;
+    private DefaultEntity other;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestCommandCoalescing(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        controller = new RecordingController();
+        controller.setCoalesceTransientCommands(true);
+        model = new DefaultWorldModel(controller);
+
+        box = createEntity();
+        other = createEntity();
+    }
+
+    /**
+     * Only the latest transient move of each entity is kept
+     */
+    public void testSupersession() {
+
+        ArrayList<CommandWrapper> commands = new ArrayList<CommandWrapper>();
+        Command first = add(commands, move(box, 1));
+        Command second = add(commands, move(box, 2));
+        Command moveOther = add(commands, move(other, 1));
+        Command last = add(commands, move(box, 3));
+
+        controller.coalesceTransientCommands(commands);
+
+        assertCommands(commands, new Command[] {moveOther, last});
+        assertEquals(2, controller.released.size());
+        assertTrue(controller.released.contains(first));
+        assertTrue(controller.released.contains(second));
+    }
+
+    /**
+     * Moves, rotations and scales of the same entity don't supersede
+     * each other
+     */
+    public void testKindsAreSeparate() {
+
+        ArrayList<CommandWrapper> commands = new ArrayList<CommandWrapper>();
+        Command moved = add(commands, move(box, 1));
+        Command rotated = add(commands, new RotateEntityTransientCommand(
+                model, 1, box.getEntityID(), new float[] {0, 1, 0, 1}));
+        Command scaled = add(commands, new ScaleEntityTransientCommand(
+                model, 1, box, new double[3], new float[] {2, 2, 2}));
+
+        controller.coalesceTransientCommands(commands);
+
+        assertCommands(commands, new Command[] {moved, rotated, scaled});
+        assertTrue(controller.released.isEmpty());
+    }
+
+    /**
+     * Nothing is dropped across a command that can't be coalesced
+     */
+    public void testBarrier() {
+
+        ArrayList<CommandWrapper> commands = new ArrayList<CommandWrapper>();
+        Command first = add(commands, move(box, 1));
+        Command second = add(commands, move(box, 2));
+        Command barrier = add(commands, new MoveEntityCommand(
+                model, 1, box, new double[] {5, 0, 0}, new double[3]));
+        Command third = add(commands, move(box, 3));
+        Command fourth = add(commands, move(box, 4));
+
+        controller.coalesceTransientCommands(commands);
+
+        assertCommands(commands, new Command[] {second, barrier, fourth});
+        assertEquals(2, controller.released.size());
+        assertTrue(controller.released.contains(first));
+        assertTrue(controller.released.contains(third));
+    }
+
+    /**
+     * Dropped commands and their wrappers are returned to their pools
+     */
+    public void testRecycling() {
+
+        ArrayList<CommandWrapper> commands = new ArrayList<CommandWrapper>();
+        add(commands, move(box, 1));
+        CommandWrapper dropped = commands.get(0);
+        MoveEntityTransientCommand droppedMove =
+            (MoveEntityTransientCommand)((ExecuteCommand)dropped).command;
+        add(commands, move(box, 2));
+
+        controller.coalesceTransientCommands(commands);
+        assertEquals(1, commands.size());
+
+        assertSame("Command should be back in its pool",
+                droppedMove, move(box, 3));
+        assertSame("Wrapper should be back in its pool",
+                dropped, controller.obtainExecuteCommand(droppedMove));
+    }
+
+    /**
+     * Processing applies the latest move of a drag
+     */
+    public void testProcessCommands() {
+
+        for (int i = 1; i <= 10; i++) {
+            controller.execute(move(box, i));
+        }
+        controller.processCommands();
+
+        double[] pos = new double[3];
+        box.getPosition(pos);
+        assertEquals(10.0, pos[0], 0.0);
+
+        // nine dropped and one processed
+        assertEquals(10, controller.released.size());
+        assertEquals(0, controller.bufferedCommands.size());
+    }
+
+    /**
+     * Nothing is dropped when coalescing is off
+     */
+    public void testDisabled() {
+
+        controller.setCoalesceTransientCommands(false);
+
+        for (int i = 1; i <= 3; i++) {
+            controller.execute(move(box, i));
+        }
+        controller.processCommands();
+
+        double[] pos = new double[3];
+        box.getPosition(pos);
+        assertEquals(3.0, pos[0], 0.0);
+        assertEquals(3, controller.released.size());
+    }
+
+    /**
+     * Wrap the command and add it to the list
+     */
+    private Command add(ArrayList<CommandWrapper> commands, Command command) {
+        commands.add(controller.obtainExecuteCommand(command));
+        return command;
+    }
+
+    /**
+     * Get a transient move of the entity along x
+     */
+    private Command move(Entity entity, double x) {
+        return MoveEntityTransientCommand.obtain(
+                model,
+                1,
+                entity.getEntityID(),
+                new double[] {x, 0, 0},
+                new float[3],
+                null);
+    }
+
+    /**
+     * Check the commands wrapped by the list
+     */
+    private void assertCommands(
+            ArrayList<CommandWrapper> commands,
+            Command[] expected) {
+
+        assertEquals(expected.length, commands.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertSame(expected[i], ((ExecuteCommand)commands.get(i)).command);
+        }
+    }
+
+    /**
+     * Create a sized entity and add it to the model
+     */
+    private DefaultEntity createEntity() {
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(PositionableEntity.SIZE_PARAM, new float[] {1, 1, 1});
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, params);
+        sheets.put(
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                new HashMap<String, Object>());
+
+        DefaultEntity entity = new DefaultEntity(
+                model.issueEntityID(),
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                sheets);
+
+        model.addEntity(true, entity, null);
+        return entity;
+    }
+
+    /**
+     * Records the commands that are released
+     */
+    private static class RecordingController
+        extends BufferedCommandController {
+
+        /** The wrapped commands released, in order */
+        ArrayList<Command> released = new ArrayList<Command>();
+
+        protected void releaseCommand(CommandWrapper wrapper) {
+            if (wrapper instanceof ExecuteCommand) {
+                released.add(((ExecuteCommand)wrapper).command);
+            }
+            super.releaseCommand(wrapper);
+        }
+    }
+}
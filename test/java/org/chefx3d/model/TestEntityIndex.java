@@ -0,0 +1,374 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+// Internal Imports
+// None
+
+/**
+ * Checks that the EntityIndex of the world model finds every entity in
+ * the registered hierarchies, and nothing else, as nested entities are
+ * added, removed and moved to new parents.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class TestEntityIndex extends TestCase {
+
+    private WorldModel model;
+
+    private Random random;
+
+    /** The entity registered with the model */
+    private DefaultEntity root;
+
+    /** Every entity created, in or out of the hierarchy */
+    private ArrayList<DefaultEntity> created;
+
+    /** The ID of the next entity, kept here as clearing the model reissues them */
+    private int nextEntityID;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestEntityIndex(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        model = new DefaultWorldModel(new DefaultCommandController());
+        random = new Random(3);
+        created = new ArrayList<DefaultEntity>();
+        nextEntityID = 1;
+
+        root = createEntity();
+
+        // a nested hierarchy built before it is registered
+        DefaultEntity zone = createEntity();
+        root.addChild(zone);
+
+        for (int i = 0; i < 3; i++) {
+            DefaultEntity product = createEntity();
+            zone.addChild(product);
+            product.addChild(createEntity());
+        }
+
+        new AddEntityCommand(model, root).execute();
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        model = null;
+        root = null;
+        created = null;
+    }
+
+    /**
+     * The entities of a hierarchy are found once it is registered
+     */
+    public void testRegistered() {
+
+        assertEquals(8, created.size());
+        checkIndex();
+
+        // entities below the top level are only found through the index
+        DefaultEntity grandChild =
+            (DefaultEntity)root.getChildAt(0).getChildAt(1).getChildAt(0);
+        assertSame(grandChild, model.getEntity(grandChild.getEntityID()));
+    }
+
+    /**
+     * Entities added below registered ones are found, along with their
+     * own children, and removed ones are not
+     */
+    public void testNestedAddRemove() {
+
+        Entity zone = root.getChildAt(0);
+
+        DefaultEntity product = createEntity();
+        DefaultEntity child = createEntity();
+        product.addChild(child);
+        child.addChild(createEntity());
+
+        new AddEntityChildCommand(
+            model, model.issueTransactionID(), zone, product, true).execute();
+        checkIndex();
+
+        DefaultEntity inserted = createEntity();
+        inserted.addChild(createEntity());
+        zone.insertChildAt(0, inserted);
+        checkIndex();
+
+        // a child added below an entity added after registration
+        child.addChild(createEntity());
+        checkIndex();
+
+        RemoveEntityChildCommand remove =
+            new RemoveEntityChildCommand(model, zone, product, true);
+        remove.execute();
+        checkIndex();
+        assertNull(model.getEntity(child.getEntityID()));
+
+        // changes to a removed entity are not picked up
+        child.addChild(createEntity());
+        checkIndex();
+
+        remove.undo();
+        checkIndex();
+        assertSame(child, model.getEntity(child.getEntityID()));
+    }
+
+    /**
+     * Entities moved to a new parent stay found, whether they are removed
+     * from the old parent first or added to the new parent first
+     */
+    public void testReparent() {
+
+        Entity zone = root.getChildAt(0);
+        DefaultEntity first = (DefaultEntity)zone.getChildAt(0);
+        DefaultEntity second = (DefaultEntity)zone.getChildAt(1);
+        DefaultEntity third = (DefaultEntity)zone.getChildAt(2);
+
+        // removed first, as TransitionEntityChildCommand does
+        zone.removeChild(first);
+        second.addChild(first);
+        checkIndex();
+        assertSame(
+            first.getChildAt(0),
+            model.getEntity(first.getChildAt(0).getEntityID()));
+
+        // added first, the removal from the old parent is ignored
+        third.addChild(second);
+        zone.removeChild(second);
+        checkIndex();
+        assertSame(first, model.getEntity(first.getEntityID()));
+
+        // as the command does it, from deep in the hierarchy to the zone
+        DefaultEntity leaf = (DefaultEntity)first.getChildAt(0);
+
+        new TransitionEntityChildCommand(
+            model,
+            leaf,
+            first,
+            new double[3],
+            new float[] {0, 1, 0, 0},
+            zone,
+            new double[3],
+            new float[] {0, 1, 0, 0},
+            false).execute();
+
+        checkIndex();
+        assertEquals(zone.getEntityID(), leaf.getParentEntityID());
+        assertSame(leaf, model.getEntity(leaf.getEntityID()));
+    }
+
+    /**
+     * Removing or clearing the registered hierarchy removes every entity
+     * in it, and an entity given a reissued ID replaces the old one
+     */
+    public void testRemoveAndClear() {
+
+        new RemoveEntityCommand(model, root).execute();
+        checkIndex();
+
+        new AddEntityCommand(model, root).execute();
+        checkIndex();
+
+        model.clear(true, null);
+
+        for (int i = 0; i < created.size(); i++) {
+            assertNull(model.getEntity(created.get(i).getEntityID()));
+        }
+
+        // the old entities are no longer listened to
+        DefaultEntity zone = (DefaultEntity)root.getChildAt(0);
+        DefaultEntity added = createEntity();
+        zone.addChild(added);
+        assertNull(model.getEntity(added.getEntityID()));
+
+        new AddEntityCommand(model, root).execute();
+        checkIndex();
+
+        // another entity registered with the ID of the zone replaces it
+        DefaultEntity other = new DefaultEntity(
+            zone.getEntityID(),
+            Entity.DEFAULT_ENTITY_PROPERTIES,
+            createProperties());
+        DefaultEntity top = createEntity();
+        top.addChild(other);
+        new AddEntityCommand(model, top).execute();
+
+        assertSame(other, model.getEntity(zone.getEntityID()));
+
+        added = createEntity();
+        zone.addChild(added);
+        assertNull(model.getEntity(added.getEntityID()));
+    }
+
+    /**
+     * Random adds, removals and moves between the entities in and out
+     * of the hierarchy
+     */
+    public void testRandomChanges() {
+
+        // the parents are tracked here, a child added to its new parent
+        // first has its parent ID cleared by the old one
+        HashMap<Entity, Entity> parents = new HashMap<Entity, Entity>();
+        for (int i = 0; i < created.size(); i++) {
+            Entity entity = created.get(i);
+            for (int j = 0; j < entity.getChildCount(); j++) {
+                parents.put(entity.getChildAt(j), entity);
+            }
+        }
+
+        for (int i = 0; i < 300; i++) {
+
+            DefaultEntity entity = pick();
+            Entity parent = parents.get(entity);
+
+            switch (random.nextInt(4)) {
+            case 0:
+                DefaultEntity child = createEntity();
+                entity.addChild(child);
+                parents.put(child, entity);
+                break;
+
+            case 1:
+                if (parent != null) {
+                    parent.removeChild(entity);
+                    parents.remove(entity);
+                }
+                break;
+
+            default:
+                DefaultEntity target = pick();
+                if (target == entity || isAncestor(entity, target)) {
+                    break;
+                }
+                if (parent != null && random.nextBoolean()) {
+                    parent.removeChild(entity);
+                    target.addChild(entity);
+                } else {
+                    target.addChild(entity);
+                    if (parent != null) {
+                        parent.removeChild(entity);
+                    }
+                }
+                parents.put(entity, target);
+                break;
+            }
+
+            checkIndex();
+        }
+    }
+
+    /**
+     * Check the model finds every entity reachable from the registered
+     * root, and none of the others
+     */
+    private void checkIndex() {
+
+        HashMap<Integer, Entity> expected = new HashMap<Integer, Entity>();
+        if (model.getEntity(root.getEntityID()) == root) {
+            collect(root, expected);
+        }
+
+        for (int i = 0; i < created.size(); i++) {
+
+            int id = created.get(i).getEntityID();
+
+            assertSame("Entity " + id, expected.get(id), model.getEntity(id));
+        }
+    }
+
+    /**
+     * Collect an entity and those below it
+     */
+    private void collect(Entity entity, HashMap<Integer, Entity> found) {
+
+        found.put(entity.getEntityID(), entity);
+
+        int len = entity.getChildCount();
+        for (int i = 0; i < len; i++) {
+            collect(entity.getChildAt(i), found);
+        }
+    }
+
+    /**
+     * Check if an entity is above another
+     */
+    private boolean isAncestor(Entity entity, Entity other) {
+
+        int len = entity.getChildCount();
+        for (int i = 0; i < len; i++) {
+
+            Entity child = entity.getChildAt(i);
+            if (child == other || isAncestor(child, other)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Get a random entity below the root, or out of the hierarchy
+     */
+    private DefaultEntity pick() {
+        return created.get(1 + random.nextInt(created.size() - 1));
+    }
+
+    /**
+     * Create an entity with a new ID
+     */
+    private DefaultEntity createEntity() {
+
+        DefaultEntity entity = new DefaultEntity(
+            nextEntityID++,
+            Entity.DEFAULT_ENTITY_PROPERTIES,
+            createProperties());
+        created.add(entity);
+
+        return entity;
+    }
+
+    /**
+     * Create the property sheets for a new entity
+     */
+    private Map<String, Map<String, Object>> createProperties() {
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, new HashMap<String, Object>());
+        sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, new HashMap<String, Object>());
+
+        return sheets;
+    }
+}
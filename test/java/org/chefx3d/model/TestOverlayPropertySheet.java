@@ -0,0 +1,358 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+// Internal Imports
+import org.chefx3d.rules.properties.ChefX3DRuleProperties;
+import org.chefx3d.rules.properties.accessors.RulePropertyAccessor;
+import org.chefx3d.util.PropertyUtilities;
+
+/**
+ * Checks that the copy-on-write entity property sheets behave like the
+ * cloned sheets they replace.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class TestOverlayPropertySheet extends TestCase {
+
+    private Map<String, Object> toolSheet;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestOverlayPropertySheet(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        toolSheet = new HashMap<String, Object>();
+        toolSheet.put("CX.string", "value");
+        toolSheet.put("CX.boolean", Boolean.TRUE);
+        toolSheet.put("CX.float", 1.5f);
+        toolSheet.put("CX.floats", new float[] {1, 2, 3});
+        toolSheet.put("CX.strings", new String[] {"a", "b"});
+        toolSheet.put("CX.constraint", MultiplicityConstraint.SINGLETON);
+
+        for (int i = 0; i < 100; i++)
+            toolSheet.put("CX.rule" + i, "rule " + i);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        toolSheet = null;
+    }
+
+    public void testSameValuesAsClone() {
+
+        Map<String, Object> sheet = OverlayPropertySheet.copySheet(toolSheet);
+        Map<String, Object> clone = PropertyUtilities.clone(toolSheet);
+
+        assertEquals("Size", clone.size(), sheet.size());
+        assertEquals("Keys", clone.keySet(), sheet.keySet());
+
+        Iterator<String> index = clone.keySet().iterator();
+        while (index.hasNext()) {
+            String key = index.next();
+            assertSameValue(key, clone.get(key), sheet.get(key));
+        }
+    }
+
+    public void testOnlyChangesAreHeld() {
+
+        Map<String, Object> sheet = OverlayPropertySheet.copySheet(toolSheet);
+        OverlayPropertySheet overlay = (OverlayPropertySheet)sheet;
+
+        assertEquals("Nothing held before use", 0, overlay.getOverrideCount());
+
+        sheet.get("CX.string");
+        sheet.get("CX.rule5");
+        sheet.get("CX.floats");
+        assertEquals("Read values are shared", 0, overlay.getOverrideCount());
+
+        sheet.put("CX.rule7", "changed");
+        overlay.getForUpdate("CX.string");
+        assertEquals("Changed values are held", 1, overlay.getOverrideCount());
+
+        overlay.getForUpdate("CX.floats");
+        assertEquals("Mutable values to update are held", 2,
+                overlay.getOverrideCount());
+    }
+
+    public void testArraysAreNotShared() {
+
+        Map<String, Object> first = OverlayPropertySheet.copySheet(toolSheet);
+        Map<String, Object> second = OverlayPropertySheet.copySheet(toolSheet);
+
+        assertSame("Read arrays are shared",
+                first.get("CX.floats"), second.get("CX.floats"));
+
+        float[] floats =
+            (float[])((OverlayPropertySheet)first).getForUpdate("CX.floats");
+        floats[0] = 10;
+
+        assertSame("Same copy for a second update", floats,
+                ((OverlayPropertySheet)first).getForUpdate("CX.floats"));
+        assertEquals("Change kept", 10f, ((float[])first.get("CX.floats"))[0], 0f);
+        assertEquals("Other entity unchanged", 1f,
+                ((float[])second.get("CX.floats"))[0], 0f);
+        assertEquals("Tool unchanged", 1f,
+                ((float[])toolSheet.get("CX.floats"))[0], 0f);
+    }
+
+    public void testConcurrentReads() throws Exception {
+
+        for (int i = 0; i < 200; i++)
+            toolSheet.put("CX.array" + i, new float[] {i});
+
+        final Map<String, Object> sheet =
+            OverlayPropertySheet.copySheet(toolSheet);
+        final Object[][] seen = new Object[4][200];
+        final Throwable[] failure = new Throwable[1];
+
+        Thread[] readers = new Thread[seen.length];
+        for (int t = 0; t < readers.length; t++) {
+            final int reader = t;
+            readers[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < 200; i++)
+                            seen[reader][i] = sheet.get("CX.array" + i);
+                    } catch (Throwable th) {
+                        failure[0] = th;
+                    }
+                }
+            };
+        }
+
+        for (int t = 0; t < readers.length; t++)
+            readers[t].start();
+        for (int t = 0; t < readers.length; t++)
+            readers[t].join();
+
+        assertNull("Read failed", failure[0]);
+        assertEquals("Nothing copied", 0,
+                ((OverlayPropertySheet)sheet).getOverrideCount());
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals("Value", (float)i, ((float[])seen[0][i])[0], 0f);
+            for (int t = 1; t < seen.length; t++)
+                assertSame("Readers see the same value", seen[0][i], seen[t][i]);
+        }
+    }
+
+    public void testRulePropertyReadsHoldNothing() {
+
+        toolSheet.put(ChefX3DRuleProperties.SNAP_TO_CLASS_PROP,
+                new String[] {"Shelf"});
+        toolSheet.put(ChefX3DRuleProperties.PRODUCT_ZONE_POINT_X,
+                new float[] {0.5f});
+        toolSheet.put(ChefX3DRuleProperties.CAN_DELETE_PROP, Boolean.FALSE);
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, new HashMap<String, Object>());
+        sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, toolSheet);
+
+        DefaultEntity first = new DefaultEntity(
+                1, Entity.DEFAULT_ENTITY_PROPERTIES, sheets);
+        DefaultEntity second = new DefaultEntity(
+                2, Entity.DEFAULT_ENTITY_PROPERTIES, sheets);
+
+        String[] names = {
+            ChefX3DRuleProperties.SNAP_TO_CLASS_PROP,
+            ChefX3DRuleProperties.PRODUCT_ZONE_POINT_X,
+            ChefX3DRuleProperties.CAN_DELETE_PROP,
+            ChefX3DRuleProperties.EMBED_DEPTH_PROP
+        };
+
+        for (int i = 0; i < names.length; i++) {
+            Object value =
+                RulePropertyAccessor.getRulePropertyValue(first, names[i]);
+            Object byOrdinal = RulePropertyAccessor.getRulePropertyValue(
+                    first, ChefX3DRuleProperties.getOrdinal(names[i]));
+
+            assertSame(names[i], value, byOrdinal);
+            assertSame(names[i], value,
+                    RulePropertyAccessor.getRulePropertyValue(second, names[i]));
+        }
+
+        assertEquals("Snap classes", "Shelf", ((String[])
+                RulePropertyAccessor.getRulePropertyValue(
+                        first, ChefX3DRuleProperties.SNAP_TO_CLASS_PROP))[0]);
+
+        TransformPropertySheet transformSheet = (TransformPropertySheet)
+            first.getPropertySheet(Entity.DEFAULT_ENTITY_PROPERTIES);
+        OverlayPropertySheet sheet =
+            (OverlayPropertySheet)transformSheet.getBacking();
+
+        assertEquals("Nothing held after reads", 0, sheet.getOverrideCount());
+    }
+
+    public void testToolChangesSeenByNewSheets() {
+
+        Map<String, Object> before = OverlayPropertySheet.copySheet(toolSheet);
+
+        toolSheet.put("CX.string", "replaced");
+        ((float[])toolSheet.get("CX.floats"))[1] = 20;
+
+        Map<String, Object> after = OverlayPropertySheet.copySheet(toolSheet);
+
+        assertEquals("Old sheet keeps old value", "value", before.get("CX.string"));
+        assertEquals("Old sheet keeps old array", 2f,
+                ((float[])before.get("CX.floats"))[1], 0f);
+        assertEquals("New sheet sees new value", "replaced", after.get("CX.string"));
+        assertEquals("New sheet sees new array", 20f,
+                ((float[])after.get("CX.floats"))[1], 0f);
+    }
+
+    public void testCopyOfCopy() {
+
+        Map<String, Object> original = OverlayPropertySheet.copySheet(toolSheet);
+        original.put("CX.string", "changed");
+        original.remove("CX.rule3");
+
+        Map<String, Object> copy = OverlayPropertySheet.copySheet(original);
+        copy.put("CX.boolean", Boolean.FALSE);
+
+        assertEquals("Change copied", "changed", copy.get("CX.string"));
+        assertFalse("Removal copied", copy.containsKey("CX.rule3"));
+        assertEquals("Copy change not in original", Boolean.TRUE,
+                original.get("CX.boolean"));
+    }
+
+    public void testBehavesLikeMap() {
+
+        Map<String, Object> sheet = OverlayPropertySheet.copySheet(toolSheet);
+        Map<String, Object> expected = PropertyUtilities.clone(toolSheet);
+
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5000; i++) {
+            String key = "CX.rule" + random.nextInt(120);
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    String value = "v" + i;
+                    assertEquals("put " + key,
+                            expected.put(key, value), sheet.put(key, value));
+                    break;
+
+                case 1:
+                    assertEquals("remove " + key,
+                            expected.remove(key), sheet.remove(key));
+                    break;
+
+                case 2:
+                    assertEquals("containsKey " + key,
+                            expected.containsKey(key), sheet.containsKey(key));
+                    break;
+
+                default:
+                    assertEquals("get " + key, expected.get(key), sheet.get(key));
+            }
+
+            assertEquals("size", expected.size(), sheet.size());
+        }
+
+        Map<String, Object> iterated = new LinkedHashMap<String, Object>();
+        Iterator<Map.Entry<String, Object>> index = sheet.entrySet().iterator();
+        while (index.hasNext()) {
+            Map.Entry<String, Object> entry = index.next();
+            assertNull("Duplicate key", iterated.put(entry.getKey(), entry.getValue()));
+        }
+
+        assertEquals("Iterated keys", expected.keySet(), iterated.keySet());
+
+        // removing through the iterator
+        index = sheet.entrySet().iterator();
+        while (index.hasNext()) {
+            if (index.next().getKey().endsWith("1"))
+                index.remove();
+        }
+
+        Iterator<String> keys = expected.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().endsWith("1"))
+                keys.remove();
+        }
+
+        assertEquals("Keys after iterator removal", expected.keySet(), sheet.keySet());
+    }
+
+    public void testEntityCloneSharesDefaults() {
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, new HashMap<String, Object>());
+        sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, toolSheet);
+
+        DefaultEntity entity = new DefaultEntity(
+                1, Entity.DEFAULT_ENTITY_PROPERTIES, sheets);
+        entity.setPosition(new double[] {1, 2, 3}, false);
+        entity.setProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES, "CX.string", "entity", false);
+
+        IdIssuer issuer = new IdIssuer() {
+            public int issueEntityID() { return 2; }
+            public int issueTransactionID() { return 1; }
+        };
+
+        DefaultEntity clone = entity.clone(issuer);
+        clone.setProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES, "CX.string", "clone", false);
+
+        double[] pos = new double[3];
+        clone.getPosition(pos);
+
+        assertTrue("Position copied", Arrays.equals(new double[] {1, 2, 3}, pos));
+        assertEquals("Original keeps value", "entity", entity.getProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES, "CX.string"));
+        assertEquals("Clone keeps value", "clone", clone.getProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES, "CX.string"));
+        assertEquals("Shared value", "rule 9", clone.getProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES, "CX.rule9"));
+    }
+
+    /**
+     * Check that two property values are equal, comparing array contents.
+     */
+    private void assertSameValue(String name, Object expected, Object actual) {
+
+        if (expected instanceof float[])
+            assertTrue(name, Arrays.equals((float[])expected, (float[])actual));
+        else if (expected instanceof Object[])
+            assertTrue(name, Arrays.equals((Object[])expected, (Object[])actual));
+        else
+            assertEquals(name, expected, actual);
+    }
+}
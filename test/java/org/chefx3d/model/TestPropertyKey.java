@@ -0,0 +1,232 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import junit.framework.TestCase;
+
+// Internal Imports
+// None
+
+/**
+ * Checks the interned property keys and the keyed property access and
+ * listener calls of entities.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class TestPropertyKey extends TestCase {
+
+    private DefaultEntity entity;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestPropertyKey(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(Entity.NAME_PROP, "Keyed");
+        props.put(PositionableEntity.POSITION_PROP, new double[] {1, 2, 3});
+        props.put(PositionableEntity.ROTATION_PROP, new float[] {0, 1, 0, 0});
+        props.put(PositionableEntity.SCALE_PROP, new float[] {1, 1, 1});
+
+        Map<String, Object> extra = new HashMap<String, Object>();
+        extra.put("Test.value", "extra");
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, new HashMap<String, Object>());
+        sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, props);
+        sheets.put("Test.sheet", extra);
+
+        entity = new DefaultEntity(1, Entity.DEFAULT_ENTITY_PROPERTIES, sheets);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        entity = null;
+    }
+
+    public void testKeysAreInterned() {
+
+        PropertyKey key = PropertyKey.get("Test.sheet", "Test.value");
+
+        assertSame("Same key", key,
+                PropertyKey.get("Test.sheet", new String("Test.value")));
+        assertSame("Key by ID", key, PropertyKey.get(key.getID()));
+        assertNotSame("Other sheet", key,
+                PropertyKey.get("Test.other", "Test.value"));
+        assertEquals("Sheet ID shared", key.getSheetID(),
+                PropertyKey.get("Test.sheet", "Test.second").getSheetID());
+        assertNull("Unknown ID", PropertyKey.get(PropertyKey.getKeyCount()));
+    }
+
+    public void testConcurrentInterning() throws Exception {
+
+        final PropertyKey[][] seen = new PropertyKey[4][300];
+        Thread[] threads = new Thread[seen.length];
+
+        for (int t = 0; t < threads.length; t++) {
+            final int thread = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < 300; i++)
+                        seen[thread][i] = PropertyKey.get(
+                                "Test.concurrent" + (i % 7), "Test.key" + i);
+                }
+            };
+        }
+
+        for (int t = 0; t < threads.length; t++)
+            threads[t].start();
+        for (int t = 0; t < threads.length; t++)
+            threads[t].join();
+
+        for (int i = 0; i < 300; i++) {
+            PropertyKey key = seen[0][i];
+            assertNotNull("Key registered", key);
+            for (int t = 1; t < seen.length; t++)
+                assertSame("One key per name", key, seen[t][i]);
+
+            assertSame("Key by ID", key, PropertyKey.get(key.getID()));
+            assertTrue("ID counted", key.getID() < PropertyKey.getKeyCount());
+            assertTrue("Sheet counted",
+                    key.getSheetID() < PropertyKey.getSheetCount());
+        }
+    }
+
+    public void testTransformKeyIDs() {
+
+        assertEquals(PropertyKey.POSITION_ID, PropertyKey.POSITION.getID());
+        assertEquals(PropertyKey.ROTATION_ID, PropertyKey.ROTATION.getID());
+        assertEquals(PropertyKey.SCALE_ID, PropertyKey.SCALE.getID());
+        assertSame(PropertyKey.POSITION, PropertyKey.get(
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                PositionableEntity.POSITION_PROP));
+    }
+
+    public void testKeyedAccess() {
+
+        PropertyKey name = PropertyKey.get(
+                Entity.DEFAULT_ENTITY_PROPERTIES, Entity.NAME_PROP);
+        PropertyKey extra = PropertyKey.get("Test.sheet", "Test.value");
+        PropertyKey missing = PropertyKey.get("Test.missing", "Test.value");
+
+        assertEquals("Keyed get", "Keyed", entity.getProperty(name));
+        assertEquals("Other sheet", "extra", entity.getProperty(extra));
+        assertNull("Missing sheet", entity.getProperty(missing));
+
+        entity.setProperty(extra, "changed", false);
+        assertEquals("String get sees keyed set", "changed",
+                entity.getProperty("Test.sheet", "Test.value"));
+
+        entity.setProperty("Test.sheet", "Test.value", "again", false);
+        assertEquals("Keyed get sees string set", "again",
+                entity.getProperty(extra));
+
+        entity.setProperty(missing, "ignored", false);
+        assertNull("No sheet is created", entity.getProperty(missing));
+
+        double[] pos = (double[])entity.getProperty(PropertyKey.POSITION);
+        assertTrue("Transform value", Arrays.equals(new double[] {1, 2, 3}, pos));
+    }
+
+    public void testSheetChangesSeen() {
+
+        PropertyKey added = PropertyKey.get("Test.added", "Test.value");
+
+        Map<String, Object> sheet = new HashMap<String, Object>();
+        sheet.put("Test.value", "added");
+        entity.addPropertySheet("Test.added", sheet);
+        assertEquals("Added sheet", "added", entity.getProperty(added));
+
+        entity.removePropertySheet("Test.added");
+        assertNull("Removed sheet", entity.getProperty(added));
+
+        // changes made through the live map
+        entity.getPropertiesMap().put("Test.added", sheet);
+        assertEquals("Sheet put in map", "added", entity.getProperty(added));
+
+        Iterator<String> itr = entity.getPropertiesMap().keySet().iterator();
+        while (itr.hasNext()) {
+            if (itr.next().equals("Test.added"))
+                itr.remove();
+        }
+        assertNull("Sheet removed through view", entity.getProperty(added));
+    }
+
+    public void testListenerDispatch() {
+
+        final List<String> plain = new ArrayList<String>();
+        final List<PropertyKey> keyed = new ArrayList<PropertyKey>();
+
+        entity.addEntityPropertyListener(new EntityPropertyListener() {
+            public void propertyAdded(int entityID, String sheet, String name) {}
+            public void propertyRemoved(int entityID, String sheet, String name) {}
+            public void propertyUpdated(
+                    int entityID, String sheet, String name, boolean ongoing) {
+                plain.add(name);
+            }
+            public void propertiesUpdated(List<EntityProperty> properties) {}
+        });
+
+        entity.addEntityPropertyListener(new KeyedEntityPropertyListener() {
+            public void propertyAdded(int entityID, String sheet, String name) {}
+            public void propertyRemoved(int entityID, String sheet, String name) {}
+            public void propertyUpdated(
+                    int entityID, String sheet, String name, boolean ongoing) {
+                fail("Keyed listener should get the keyed call");
+            }
+            public void propertyUpdated(
+                    int entityID, PropertyKey key, boolean ongoing) {
+                keyed.add(key);
+            }
+            public void propertiesUpdated(List<EntityProperty> properties) {}
+        });
+
+        entity.setPosition(new double[] {4, 5, 6}, true);
+        entity.setProperty("Test.sheet", "Test.value", "string", false);
+        entity.setProperty(
+                PropertyKey.get("Test.sheet", "Test.value"), "keyed", false);
+
+        assertEquals("Plain listener calls", Arrays.asList(
+                PositionableEntity.POSITION_PROP, "Test.value", "Test.value"),
+                plain);
+
+        assertEquals("Keyed listener calls", 3, keyed.size());
+        assertEquals("Position switch", PropertyKey.POSITION_ID,
+                keyed.get(0).getID());
+        assertSame("String update keyed",
+                PropertyKey.get("Test.sheet", "Test.value"), keyed.get(1));
+        assertSame("Keyed update", keyed.get(1), keyed.get(2));
+    }
+}
@@ -0,0 +1,325 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import junit.framework.TestCase;
+
+// Internal Imports
+
+/**
+ * Checks that the streaming SMAL importer and exporter read and write the
+ * same models as the DOM based SMALImporter and SMALExporter.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class TestSMALStreaming extends TestCase {
+
+    /** The number of top level entities in the model */
+    private static final int NUM_ENTITIES = 250;
+
+    /** The batch size used when importing */
+    private static final int BATCH_SIZE = 100;
+
+    private BaseWorldModel model;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestSMALStreaming(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        model = new DefaultWorldModel(new DefaultCommandController());
+
+        for (int i = 0; i < NUM_ENTITIES; i++) {
+            Entity entity = createEntity(model.issueEntityID(), i);
+
+            if (i == 0) {
+                Entity child = createEntity(NUM_ENTITIES + 10, 1000);
+                entity.addChild(child);
+            }
+
+            model.addEntity(true, entity, null);
+        }
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        model = null;
+    }
+
+    public void testStreamRoundTrip() throws Exception {
+
+        String smal = streamExport(model);
+
+        BaseWorldModel imported = newModel();
+        SMALStreamImporter importer = new SMALStreamImporter();
+        importer.setBatchSize(BATCH_SIZE);
+        importer.importModel(imported, new StringReader(smal));
+
+        assertSameModel(model, imported);
+    }
+
+    public void testStreamExportMatchesDOMImport() throws Exception {
+
+        String smal = streamExport(model);
+
+        BaseWorldModel imported = newModel();
+        new SMALImporter().importModel(imported, new StringReader(smal));
+
+        assertSameModel(model, imported);
+    }
+
+    public void testDOMExportMatchesStreamImport() throws Exception {
+
+        StringWriter writer = new StringWriter();
+        new SMALExporter().export(model, writer);
+
+        BaseWorldModel streamed = newModel();
+        new SMALStreamImporter().importModel(
+                streamed, new StringReader(writer.toString()));
+
+        BaseWorldModel parsed = newModel();
+        new SMALImporter().importModel(
+                parsed, new StringReader(writer.toString()));
+
+        assertSameModel(model, streamed);
+        assertSameModel(parsed, streamed);
+    }
+
+    public void testEntitiesAddedInBatches() throws Exception {
+
+        String smal = streamExport(model);
+
+        final BaseWorldModel imported = newModel();
+        final int[] counts = new int[2];
+
+        imported.addModelListener(new ModelListener() {
+            public void entityAdded(boolean local, Entity entity) {
+                // record how many entities were stored when told of the first
+                if (counts[0]++ == 0)
+                    counts[1] = countEntities(imported);
+            }
+            public void entityRemoved(boolean local, Entity entity) {}
+            public void viewChanged(boolean local, double[] pos, float[] rot, float fov) {}
+            public void masterChanged(boolean local, long viewID) {}
+            public void modelReset(boolean local) {}
+        });
+
+        SMALStreamImporter importer = new SMALStreamImporter();
+        importer.setBatchSize(BATCH_SIZE);
+        importer.importModel(imported, new StringReader(smal));
+
+        assertEquals("All entities should be announced", NUM_ENTITIES, counts[0]);
+        assertEquals("First batch should be stored before announcing",
+                BATCH_SIZE, counts[1]);
+    }
+
+    public void testUnsupportedPropertySkipped() throws Exception {
+
+        Entity entity = model.getEntity(1);
+        entity.setProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES, "Test.object", new Object(), false);
+
+        String smal = streamExport(model);
+
+        BaseWorldModel imported = newModel();
+        new SMALStreamImporter().importModel(imported, new StringReader(smal));
+
+        assertNull("Unsupported property should be skipped",
+                imported.getEntity(1).getProperty(
+                        Entity.DEFAULT_ENTITY_PROPERTIES, "Test.object"));
+        assertEquals("Other properties should be kept", "Entity 1",
+                imported.getEntity(1).getName());
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Create an entity with a mix of property types.
+     */
+    private Entity createEntity(int entityID, int index) {
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(PositionableEntity.SIZE_PARAM, new float[] {1, 2, 3});
+        params.put(Entity.CONSTRAINT_PARAM, MultiplicityConstraint.NO_REQUIREMENT);
+
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(Entity.NAME_PROP, "Entity " + index);
+        props.put(Entity.DESCRIPTION_PROP, "<\"quoted\" & escaped>");
+        props.put(PositionableEntity.POSITION_PROP,
+                new double[] {index * 0.1, 1.5, -index});
+        props.put(PositionableEntity.ROTATION_PROP,
+                new float[] {0, 1, 0, index * 0.01f});
+        props.put(PositionableEntity.SCALE_PROP, new float[] {1, 1, 1});
+
+        Map<String, Object> extra = new HashMap<String, Object>();
+        extra.put("Test.int", index);
+        extra.put("Test.long", (long)index << 33);
+        extra.put("Test.double", index / 3.0);
+        extra.put("Test.boolean", (index & 1) == 0);
+        extra.put("Test.ints", new int[] {index, -index});
+        extra.put("Test.null", null);
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, params);
+        sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, props);
+        sheets.put("Test.sheet", extra);
+
+        return new DefaultEntity(
+                entityID,
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                sheets);
+    }
+
+    /**
+     * Create an empty model.
+     */
+    private BaseWorldModel newModel() {
+        return new DefaultWorldModel(new DefaultCommandController());
+    }
+
+    /**
+     * Export a model with the streaming exporter.
+     */
+    private String streamExport(WorldModel model) {
+        StringWriter writer = new StringWriter();
+        new SMALStreamExporter().export(model, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Count the entities stored in a model.
+     */
+    private int countEntities(BaseWorldModel model) {
+        Entity[] data = model.getModelData();
+        int count = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != null)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Check that two models hold the same entities.
+     */
+    private void assertSameModel(BaseWorldModel expected, BaseWorldModel actual) {
+
+        assertEquals("Entity count", countEntities(expected), countEntities(actual));
+
+        Entity[] data = expected.getModelData();
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != null)
+                assertSameEntity(data[i], actual.getEntity(i));
+        }
+    }
+
+    /**
+     * Check that two entities and their children hold the same values.
+     */
+    private void assertSameEntity(Entity expected, Entity actual) {
+
+        assertNotNull("Missing entity " + expected.getEntityID(), actual);
+        assertEquals("Entity ID", expected.getEntityID(), actual.getEntityID());
+        assertEquals("Name", expected.getName(), actual.getName());
+
+        double[] expectedPos = new double[3];
+        double[] actualPos = new double[3];
+        ((PositionableEntity)expected).getPosition(expectedPos);
+        ((PositionableEntity)actual).getPosition(actualPos);
+        assertTrue("Position", Arrays.equals(expectedPos, actualPos));
+
+        float[] expectedRot = new float[4];
+        float[] actualRot = new float[4];
+        ((PositionableEntity)expected).getRotation(expectedRot);
+        ((PositionableEntity)actual).getRotation(actualRot);
+        assertTrue("Rotation", Arrays.equals(expectedRot, actualRot));
+
+        Map<String, Map<String, Object>> expectedSheets =
+            SMALFormat.getSheets(expected);
+        Map<String, Map<String, Object>> actualSheets =
+            SMALFormat.getSheets(actual);
+
+        Iterator<Map.Entry<String, Map<String, Object>>> itr =
+            expectedSheets.entrySet().iterator();
+
+        while (itr.hasNext()) {
+            Map.Entry<String, Map<String, Object>> sheet = itr.next();
+            Map<String, Object> actualSheet = actualSheets.get(sheet.getKey());
+            assertNotNull("Missing sheet " + sheet.getKey(), actualSheet);
+
+            Iterator<Map.Entry<String, Object>> propItr =
+                sheet.getValue().entrySet().iterator();
+
+            while (propItr.hasNext()) {
+                Map.Entry<String, Object> prop = propItr.next();
+                Object value = prop.getValue();
+
+                if (SMALFormat.getValueType(value) == null)
+                    continue;
+
+                String name = sheet.getKey() + "/" + prop.getKey();
+                assertTrue("Missing property " + name,
+                        actualSheet.containsKey(prop.getKey()));
+                assertSameValue(name, value, actualSheet.get(prop.getKey()));
+            }
+        }
+
+        List<Entity> expectedChildren = expected.getChildren();
+        List<Entity> actualChildren = actual.getChildren();
+        assertEquals("Child count " + expected.getEntityID(),
+                expectedChildren.size(), actualChildren.size());
+
+        for (int i = 0; i < expectedChildren.size(); i++)
+            assertSameEntity(expectedChildren.get(i), actualChildren.get(i));
+    }
+
+    /**
+     * Check that two property values are equal, comparing array contents.
+     */
+    private void assertSameValue(String name, Object expected, Object actual) {
+
+        if (expected instanceof int[])
+            assertTrue(name, Arrays.equals((int[])expected, (int[])actual));
+        else if (expected instanceof float[])
+            assertTrue(name, Arrays.equals((float[])expected, (float[])actual));
+        else if (expected instanceof double[])
+            assertTrue(name, Arrays.equals((double[])expected, (double[])actual));
+        else
+            assertEquals(name, expected, actual);
+    }
+}
@@ -0,0 +1,239 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import junit.framework.TestCase;
+
+// Internal Imports
+// None
+
+/**
+ * Checks slot reuse in the TransformStore, the consistency of values read
+ * while they are being written, and the Map views of the transform
+ * properties of a positionable entity.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class TestTransformStore extends TestCase {
+
+    private TransformStore store;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestTransformStore(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+        store = TransformStore.getInstance();
+    }
+
+    /**
+     * Values are kept per slot and can be cleared
+     */
+    public void testSlotValues() {
+
+        Object owner = new Object();
+        int slot = store.allocate(owner);
+
+        double[] pos = new double[3];
+        assertFalse(store.isSet(slot, TransformStore.POSITION));
+        assertFalse(store.getPosition(slot, pos));
+
+        store.setPosition(slot, new double[] {1, 2, 3});
+        store.setRotation(slot, new float[] {0, 1, 0, 2});
+        assertTrue(store.getPosition(slot, pos));
+        assertTrue(Arrays.equals(new double[] {1, 2, 3}, pos));
+        assertFalse(store.isSet(slot, TransformStore.SCALE));
+
+        float[] rot = new float[4];
+        assertTrue(store.getRotation(slot, rot));
+        assertTrue(Arrays.equals(new float[] {0, 1, 0, 2}, rot));
+
+        store.clear(slot, TransformStore.POSITION);
+        assertFalse(store.getPosition(slot, pos));
+        assertTrue(store.isSet(slot, TransformStore.ROTATION));
+
+        // keep the owner reachable until the slot is no longer used
+        assertNotNull(owner);
+    }
+
+    /**
+     * The slot of a collected owner is reused, and starts out empty
+     */
+    public void testSlotReuseAfterCollection() throws Exception {
+
+        Object owner = new Object();
+        int slot = store.allocate(owner);
+        store.setPosition(slot, new double[] {4, 5, 6});
+        owner = null;
+
+        // the reference queue is only processed on allocation, keep
+        // allocating with short lived owners until the slot comes back
+        Object[] keep = new Object[64];
+        boolean reused = false;
+        for (int i = 0; i < 50 && !reused; i++) {
+            System.gc();
+            Thread.sleep(10);
+            for (int j = 0; j < keep.length && !reused; j++) {
+                keep[j] = new Object();
+                int s = store.allocate(keep[j]);
+                if (s == slot) {
+                    reused = true;
+                    assertFalse(store.isSet(slot, TransformStore.POSITION));
+                    assertFalse(store.isSet(slot, TransformStore.ROTATION));
+                    assertFalse(store.isSet(slot, TransformStore.SCALE));
+                }
+            }
+        }
+        assertTrue("Slot of collected owner was not reused", reused);
+    }
+
+    /**
+     * A reader never sees a partially written position
+     */
+    public void testConcurrentReadsAreConsistent() throws Exception {
+
+        final Object owner = new Object();
+        final int slot = store.allocate(owner);
+        store.setPosition(slot, new double[] {0, 0, 0});
+
+        final boolean[] done = new boolean[1];
+        Thread writer = new Thread() {
+            public void run() {
+                double[] pos = new double[3];
+                for (int i = 1; i < 2000000; i++) {
+                    pos[0] = i;
+                    pos[1] = i;
+                    pos[2] = i;
+                    store.setPosition(slot, pos);
+                }
+                synchronized (done) {
+                    done[0] = true;
+                }
+            }
+        };
+        writer.start();
+
+        double[] pos = new double[3];
+        int torn = 0;
+        while (true) {
+            synchronized (done) {
+                if (done[0]) {
+                    break;
+                }
+            }
+            store.getPosition(slot, pos);
+            if (pos[0] != pos[1] || pos[1] != pos[2]) {
+                torn++;
+            }
+        }
+        writer.join();
+
+        assertEquals("Torn reads", 0, torn);
+        assertNotNull(owner);
+    }
+
+    /**
+     * The property and Map views of an entity's transform match the
+     * direct accessors, and return copies
+     */
+    public void testPropertyViews() {
+
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(Entity.NAME_PROP, "Viewed");
+        props.put(PositionableEntity.POSITION_PROP, new double[] {1, 2, 3});
+        props.put(PositionableEntity.ROTATION_PROP, new float[] {0, 1, 0, 0});
+        props.put(PositionableEntity.SCALE_PROP, new float[] {1, 1, 1});
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, props);
+        sheets.put(Entity.ENTITY_PARAMS, new HashMap<String, Object>());
+
+        DefaultEntity entity = new DefaultEntity(
+                1,
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                sheets);
+
+        Map<String, Object> sheet =
+            entity.getPropertiesMap().get(Entity.DEFAULT_ENTITY_PROPERTIES);
+        if (store.isEnabled()) {
+            assertTrue(sheet instanceof TransformPropertySheet);
+        }
+
+        // getProperty returns a copy
+        double[] viewed = (double[])entity.getProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                PositionableEntity.POSITION_PROP);
+        assertTrue(Arrays.equals(new double[] {1, 2, 3}, viewed));
+        viewed[0] = 99;
+
+        double[] pos = new double[3];
+        entity.getPosition(pos);
+        assertEquals(1.0, pos[0], 0.0);
+
+        // setProperty is seen by the direct accessors and the Map view
+        entity.setProperty(
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                PositionableEntity.POSITION_PROP,
+                new double[] {4, 5, 6},
+                false);
+        entity.getPosition(pos);
+        assertTrue(Arrays.equals(new double[] {4, 5, 6}, pos));
+        assertTrue(Arrays.equals(
+                new double[] {4, 5, 6},
+                (double[])sheet.get(PositionableEntity.POSITION_PROP)));
+
+        // the direct accessors are seen by the Map view
+        entity.setRotation(new float[] {1, 0, 0, 1}, false);
+        assertTrue(Arrays.equals(
+                new float[] {1, 0, 0, 1},
+                (float[])sheet.get(PositionableEntity.ROTATION_PROP)));
+
+        // the Map view is complete
+        assertEquals("Viewed", sheet.get(Entity.NAME_PROP));
+        assertTrue(sheet.containsKey(PositionableEntity.POSITION_PROP));
+        assertEquals(props.size(), sheet.size());
+
+        int count = 0;
+        Iterator<Map.Entry<String, Object>> i = sheet.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry<String, Object> entry = i.next();
+            assertTrue(sheet.containsKey(entry.getKey()));
+            if (PositionableEntity.POSITION_PROP.equals(entry.getKey())) {
+                assertTrue(Arrays.equals(pos, (double[])entry.getValue()));
+            }
+            count++;
+        }
+        assertEquals(sheet.size(), count);
+
+        // writes through the Map view reach the entity
+        sheet.put(PositionableEntity.POSITION_PROP, new double[] {7, 8, 9});
+        entity.getPosition(pos);
+        assertTrue(Arrays.equals(new double[] {7, 8, 9}, pos));
+    }
+}
@@ -0,0 +1,309 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import junit.framework.TestCase;
+
+// Internal Imports
+import org.chefx3d.util.ApplicationParams;
+
+/**
+ * Checks that dragging an entity through the transient move path does not
+ * create garbage per event, with the immediate controller and with the
+ * validating buffered controller the editor uses. Allocation is measured
+ * with the per thread counter of the HotSpot ThreadMXBean; the test passes
+ * without checking when the JVM does not provide it.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class TestTransientMoveAllocation extends TestCase {
+
+    /** The number of events used to warm up the JIT */
+    private static final int WARMUP_EVENTS = 20000;
+
+    /** The number of events measured */
+    private static final int MEASURED_EVENTS = 10000;
+
+    /** The allowed number of bytes allocated per event */
+    private static final long MAX_BYTES_PER_EVENT = 16;
+
+    private BaseWorldModel model;
+    private CommandController controller;
+    private Entity box;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestTransientMoveAllocation(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+        createModel(new DefaultCommandController());
+    }
+
+    /**
+     * Create the model and the box that is dragged.
+     *
+     * @param commandController The controller the commands are issued to
+     */
+    private void createModel(CommandController commandController) {
+
+        controller = commandController;
+        model = new DefaultWorldModel(controller);
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(PositionableEntity.SIZE_PARAM, new float[] {1, 1, 1});
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, params);
+        sheets.put(
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                new HashMap<String, Object>());
+
+        box = new DefaultEntity(
+                model.issueEntityID(),
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                sheets);
+
+        model.addEntity(true, box, null);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        model = null;
+        controller = null;
+        box = null;
+    }
+
+    public void testPooledCommandIsReused() {
+
+        double[] pos = new double[] {1, 2, 3};
+        float[] velocity = new float[3];
+
+        MoveEntityTransientCommand first =
+            MoveEntityTransientCommand.obtain(
+                    model, 1, box.getEntityID(), pos, velocity, null);
+        controller.execute(first);
+
+        MoveEntityTransientCommand second =
+            MoveEntityTransientCommand.obtain(
+                    model, 2, box.getEntityID(), pos, velocity, null);
+
+        assertSame("Command should come from the pool", first, second);
+        assertEquals("Transaction should be updated", 2, second.getTransactionID());
+        assertSame("Entity should be updated", box, second.getEntity());
+
+        double[] result = new double[3];
+        ((PositionableEntity)box).getPosition(result);
+        assertEquals("Box should be moved", 2.0, result[1], 0.0);
+
+        second.recycle();
+    }
+
+    public void testConstructedCommandIsNotPooled() {
+
+        double[] pos = new double[] {1, 2, 3};
+        float[] velocity = new float[3];
+
+        MoveEntityTransientCommand constructed =
+            new MoveEntityTransientCommand(
+                    model, 1, box.getEntityID(), pos, velocity);
+        controller.execute(constructed);
+
+        MoveEntityTransientCommand pooled =
+            MoveEntityTransientCommand.obtain(
+                    model, 2, box.getEntityID(), pos, velocity, null);
+
+        assertNotSame("Constructed command should not be pooled", constructed, pooled);
+
+        pooled.recycle();
+    }
+
+    public void testDescriptionIsReset() {
+
+        double[] pos = new double[] {1, 2, 3};
+        float[] velocity = new float[3];
+
+        MoveEntityTransientCommand first =
+            MoveEntityTransientCommand.obtain(
+                    model, 1, box.getEntityID(), pos, velocity, null);
+        String description = first.getDescription();
+        first.setDescription("Custom");
+        first.recycle();
+
+        MoveEntityTransientCommand second =
+            MoveEntityTransientCommand.obtain(
+                    model, 2, box.getEntityID(), pos, velocity, null);
+
+        assertSame("Command should come from the pool", first, second);
+        assertEquals("Description should be reset",
+                description, second.getDescription());
+
+        second.recycle();
+    }
+
+    public void testBytesAllocatedPerEvent() {
+
+        long perEvent = measureBytesPerEvent(null);
+
+        assertTrue(
+                "Allocated " + perEvent + " bytes per transient move",
+                perEvent <= MAX_BYTES_PER_EVENT);
+    }
+
+    public void testBytesAllocatedPerEventValidating() {
+
+        Object enableRules = ApplicationParams.get(ApplicationParams.ENABLE_RULES);
+        ApplicationParams.put(ApplicationParams.ENABLE_RULES, Boolean.TRUE);
+
+        try {
+            ValidatingBufferedCommandController validating =
+                new ValidatingBufferedCommandController();
+            CountingValidator validator = new CountingValidator();
+            validating.setCommandValidator(validator);
+
+            createModel(validating);
+
+            long perEvent = measureBytesPerEvent(validating);
+
+            assertEquals("Every command should be validated",
+                    WARMUP_EVENTS + MEASURED_EVENTS, validator.count);
+            assertTrue(
+                    "Allocated " + perEvent + " bytes per validated transient move",
+                    perEvent <= MAX_BYTES_PER_EVENT);
+
+            double[] result = new double[3];
+            ((PositionableEntity)box).getPosition(result);
+            assertEquals("Box should be moved",
+                    (MEASURED_EVENTS - 1) * 0.001, result[0], 0.0000001);
+
+        } finally {
+            ApplicationParams.put(ApplicationParams.ENABLE_RULES, enableRules);
+        }
+    }
+
+    /**
+     * Drag the box and measure the bytes allocated per event.
+     *
+     * @param buffered The controller to process after each event, as the
+     *  view does each frame, or null if commands execute immediately
+     * @return The bytes allocated per event, or 0 if the JVM cannot
+     *  measure allocation
+     */
+    private long measureBytesPerEvent(BufferedCommandController buffered) {
+
+        java.lang.management.ThreadMXBean bean =
+            ManagementFactory.getThreadMXBean();
+
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean)bean;
+
+        if (!threadBean.isThreadAllocatedMemorySupported()) {
+            return 0;
+        }
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        double[] pos = new double[3];
+        float[] velocity = new float[3];
+
+        drag(WARMUP_EVENTS, pos, velocity, buffered);
+
+        long threadID = Thread.currentThread().getId();
+        long start = threadBean.getThreadAllocatedBytes(threadID);
+
+        drag(MEASURED_EVENTS, pos, velocity, buffered);
+
+        long allocated = threadBean.getThreadAllocatedBytes(threadID) - start;
+        return allocated / MEASURED_EVENTS;
+    }
+
+    /**
+     * Move the box the way a view does for each mouse event.
+     *
+     * @param events The number of events
+     * @param pos Scratch position
+     * @param velocity The velocity
+     * @param buffered The controller to process after each event, or null
+     */
+    private void drag(
+            int events,
+            double[] pos,
+            float[] velocity,
+            BufferedCommandController buffered) {
+
+        int entityID = box.getEntityID();
+
+        for (int i = 0; i < events; i++) {
+
+            pos[0] = i * 0.001;
+
+            Command cmd = MoveEntityTransientCommand.obtain(
+                    model,
+                    model.issueTransactionID(),
+                    entityID,
+                    pos,
+                    velocity,
+                    null);
+
+            controller.execute(cmd);
+
+            if (buffered != null) {
+                buffered.processCommands();
+            }
+        }
+    }
+
+    /**
+     * Stands in for the rules interpreter, which needs a display for its
+     * pop ups. Accepts every command unchanged, as the interpreter does
+     * for commands that pass the rules.
+     */
+    private static class CountingValidator implements CommandValidator {
+
+        /** The number of commands validated */
+        int count;
+
+        /** The last command validated */
+        private Command command;
+
+        public boolean validate(Command command) {
+            this.command = command;
+            count++;
+            return true;
+        }
+
+        public Command getValidatedCommand() {
+            return command;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.model;
+
+// External Imports
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Vector3f;
+
+import junit.framework.TestCase;
+
+// Internal Imports
+// None
+
+/**
+ * Checks that the cached local to scene transforms follow position
+ * changes, reparenting and vertex changes, and that transforms which
+ * depend on entities with pending commands are not returned.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class TestWorldTransformCache extends TestCase {
+
+    private DefaultWorldModel model;
+    private WorldTransformCache cache;
+
+    private ContentContainerEntity root;
+    private DefaultEntity zoneA;
+    private DefaultEntity zoneB;
+    private DefaultEntity box;
+
+    private DefaultSegmentableEntity walls;
+    private VertexEntity startVertex;
+    private VertexEntity endVertex;
+    private SegmentEntity segment;
+
+    private Matrix4f mtx;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestWorldTransformCache(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        model = new DefaultWorldModel(new DefaultCommandController());
+        cache = model.getWorldTransformCache();
+        mtx = new Matrix4f();
+
+        root = new ContentContainerEntity(model.issueEntityID(), createSheets());
+        model.addEntity(true, root, null);
+
+        zoneA = createEntity(new double[] {1, 0, 0});
+        zoneB = createEntity(new double[] {0, 5, 0});
+        box = createEntity(new double[] {0, 0, 2});
+
+        root.addChild(zoneA);
+        root.addChild(zoneB);
+        zoneA.addChild(box);
+
+        walls = new DefaultSegmentableEntity(
+                model.issueEntityID(), createSheets(), null, null);
+        startVertex = new VertexEntity(model.issueEntityID(), createSheets());
+        endVertex = new VertexEntity(model.issueEntityID(), createSheets());
+        segment = new SegmentEntity(model.issueEntityID(), createSheets());
+        segment.setStartVertex(startVertex);
+        segment.setEndVertex(endVertex);
+        startVertex.setPosition(new double[] {3, 0, 0}, false);
+        endVertex.setPosition(new double[] {5, 0, 0}, false);
+
+        root.addChild(walls);
+        walls.addChild(startVertex);
+        walls.addChild(endVertex);
+        walls.addChild(segment);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        cache.clear();
+    }
+
+    /**
+     * The cached transform is the product of the ancestor transforms,
+     * and follows changes to an ancestor's position
+     */
+    public void testPositionChange() {
+
+        assertTranslation(box, 1, 0, 2);
+
+        zoneA.setPosition(new double[] {4, 0, 0}, false);
+        assertTranslation(box, 4, 0, 2);
+
+        box.setPosition(new double[] {0, 1, 2}, false);
+        assertTranslation(box, 4, 1, 2);
+        assertTranslation(zoneA, 4, 0, 0);
+    }
+
+    /**
+     * A reparented entity takes the transform of its new parent
+     */
+    public void testReparent() {
+
+        assertTranslation(box, 1, 0, 2);
+
+        zoneA.removeChild(box);
+        zoneB.addChild(box);
+        assertTranslation(box, 0, 5, 2);
+
+        // the old parent no longer affects the entity
+        zoneA.setPosition(new double[] {9, 9, 9}, false);
+        assertTranslation(box, 0, 5, 2);
+
+        zoneB.setPosition(new double[] {0, 6, 0}, false);
+        assertTranslation(box, 0, 6, 2);
+
+        // a removed entity has no path to the root
+        zoneB.removeChild(box);
+        assertFalse(cache.getTransform(box, mtx));
+    }
+
+    /**
+     * A change to a vertex recalculates the segments that use it
+     */
+    public void testVertexChange() {
+
+        Matrix4f before = new Matrix4f();
+        assertTrue(cache.getTransform(segment, before));
+        assertCurrent(segment);
+
+        startVertex.setPosition(new double[] {1, 2, 0}, false);
+        assertCurrent(segment);
+        assertFalse(before.epsilonEquals(mtx, 0.0001f));
+
+        endVertex.setPosition(new double[] {1, 6, 0}, false);
+        assertCurrent(segment);
+    }
+
+    /**
+     * Transforms that depend on an entity with pending commands are
+     * not returned from the cache
+     */
+    public void testPendingCommandBypass() {
+
+        Set<Integer> pending = new HashSet<Integer>();
+        assertTrue(cache.getTransform(box, mtx, pending));
+
+        pending.add(zoneB.getEntityID());
+        assertTrue(cache.getTransform(box, mtx, pending));
+
+        pending.add(zoneA.getEntityID());
+        assertFalse(cache.getTransform(box, mtx, pending));
+        assertTrue(cache.getTransform(walls, mtx, pending));
+
+        pending.clear();
+        pending.add(startVertex.getEntityID());
+        assertFalse(cache.getTransform(segment, mtx, pending));
+        assertTrue(cache.getTransform(box, mtx, pending));
+
+        // entities that are not in the model are not cached
+        DefaultEntity loose = createEntity(new double[] {0, 0, 0});
+        assertFalse(cache.getTransform(loose, mtx));
+    }
+
+    /**
+     * Check the translation of the cached transform of the entity
+     */
+    private void assertTranslation(Entity entity, float x, float y, float z) {
+
+        assertTrue("No transform for " + entity.getEntityID(),
+                cache.getTransform(entity, mtx));
+
+        Vector3f trans = new Vector3f();
+        mtx.get(trans);
+        assertEquals(x, trans.x, 0.0001f);
+        assertEquals(y, trans.y, 0.0001f);
+        assertEquals(z, trans.z, 0.0001f);
+    }
+
+    /**
+     * Check that the cached transform of the entity matches the
+     * transform calculated by a new cache
+     */
+    private void assertCurrent(Entity entity) {
+
+        Matrix4f expected = new Matrix4f();
+        WorldTransformCache fresh = new WorldTransformCache(model);
+        assertTrue(fresh.getTransform(entity, expected));
+        fresh.clear();
+
+        assertTrue(cache.getTransform(entity, mtx));
+        assertTrue(expected.epsilonEquals(mtx, 0.0001f));
+    }
+
+    /**
+     * Create a positioned entity
+     */
+    private DefaultEntity createEntity(double[] pos) {
+
+        DefaultEntity entity =
+            new DefaultEntity(model.issueEntityID(),
+                    Entity.DEFAULT_ENTITY_PROPERTIES,
+                    createSheets());
+        entity.setPosition(pos, false);
+        return entity;
+    }
+
+    /**
+     * Create a minimal set of property sheets
+     */
+    private Map<String, Map<String, Object>> createSheets() {
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(PositionableEntity.SIZE_PARAM, new float[] {1, 1, 1});
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, params);
+        sheets.put(
+                Entity.DEFAULT_ENTITY_PROPERTIES,
+                new HashMap<String, Object>());
+        return sheets;
+    }
+}
@@ -0,0 +1,581 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.rules.engines;
+
+// External Imports
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import junit.framework.TestCase;
+
+import org.j3d.util.I18nManager;
+
+// Internal Imports
+import org.chefx3d.catalog.DefaultCatalogManager;
+import org.chefx3d.model.*;
+import org.chefx3d.rules.definitions.BaseRule;
+import org.chefx3d.rules.interpreters.DefaultCommandDataCenter;
+import org.chefx3d.rules.properties.ChefX3DRuleProperties;
+import org.chefx3d.rules.rule.DefaultRuleEvaluationResult;
+import org.chefx3d.rules.rule.Rule;
+import org.chefx3d.rules.rule.RuleEngine;
+import org.chefx3d.rules.rule.RuleEvaluationResult;
+import org.chefx3d.rules.util.CommandSequencer;
+import org.chefx3d.rules.util.RuleCollisionHandler;
+import org.chefx3d.tool.DefaultEntityBuilder;
+import org.chefx3d.util.ApplicationParams;
+import org.chefx3d.util.CheckStatusReportElevation;
+import org.chefx3d.util.ConfigManager;
+import org.chefx3d.util.DefaultErrorReporter;
+import org.chefx3d.util.ErrorReporter;
+import org.chefx3d.view.common.EditorView;
+import org.chefx3d.view.common.NearestNeighborMeasurement;
+import org.chefx3d.view.common.RuleCollisionChecker;
+import org.chefx3d.view.common.StatusReporter;
+
+/**
+ * Checks that the rule chains pruned by the RuleFilter of each rule give
+ * the same results as running every rule. A set of commands is matched
+ * to the engines of a DefaultCommandDataCenter, then each is run through
+ * the pruned engine and an engine of the same rules with the filters
+ * hidden, and the approval, failed rules and newly issued commands are
+ * compared.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class TestRuleChainPruning extends TestCase {
+
+    /** The fonts used by the status bar, shared with the benchmarks */
+    private static final String CONFIG_FILE =
+        "test/benchmark/config/benchmark.properties";
+
+    /** Size of each product */
+    private static final float[] PRODUCT_SIZE = {0.5f, 0.3f, 0.4f};
+
+    /**
+     * The strings of the rules and status bar. Strings come from the
+     * standard ChefX3D bundle, and any key the applications would normally
+     * provide is answered with the key itself.
+     */
+    public static class TestResources extends ResourceBundle {
+
+        /** The bundle holding the standard strings */
+        private ResourceBundle base;
+
+        public TestResources() {
+            base = ResourceBundle.getBundle("config.i18n.chefx3dResources");
+        }
+
+        protected Object handleGetObject(String key) {
+            return base.containsKey(key) ? base.getObject(key) : key;
+        }
+
+        public Enumeration<String> getKeys() {
+            return base.getKeys();
+        }
+    }
+
+    /** Builds a new instance of a command, so each run gets its own */
+    private interface CommandFactory {
+        Command create();
+    }
+
+    /**
+     * Runs a rule without exposing its RuleFilter, so the engine can not
+     * prune it
+     */
+    private static class UnfilteredRule implements Rule {
+
+        /** The rule to run */
+        Rule rule;
+
+        UnfilteredRule(Rule rule) {
+            this.rule = rule;
+        }
+
+        public RuleEvaluationResult processRule(
+                Command command,
+                RuleEvaluationResult result) {
+
+            return rule.processRule(command, result);
+        }
+    }
+
+    private ErrorReporter errorReporter;
+
+    private EntitySelectionHelper selectionHelper;
+
+    private WorldModel model;
+
+    private LocationEntity location;
+
+    private ZoneEntity floor;
+
+    private DefaultCommandDataCenter dataCenter;
+
+    private CheckStatusReportElevation statusManager;
+
+    private EditorView view;
+
+    /** The products on the floor */
+    private ArrayList<DefaultEntity> products;
+
+    /** The unpruned engine made for each pruned engine */
+    private HashMap<RuleEngine, DefaultRuleEngine> unprunedMap;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestRuleChainPruning(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() throws Exception {
+
+        ApplicationParams.put(ApplicationParams.APP_NAME, "ChefX3DTest");
+        ApplicationParams.put(ApplicationParams.ENABLE_RULES, Boolean.TRUE);
+
+        ConfigManager.getManager().loadConfig(
+            new File(CONFIG_FILE).toURI().toString());
+
+        I18nManager.getManager().setApplication(
+            "ChefX3DTest", TestResources.class.getName());
+
+        errorReporter = DefaultErrorReporter.getDefaultReporter();
+        errorReporter.showLevel(ErrorReporter.WARNING);
+
+        CommandController controller = new DefaultCommandController();
+        model = new DefaultWorldModel(controller);
+
+        selectionHelper = EntitySelectionHelper.getEntitySelectionHelper();
+        selectionHelper.initialize(model, controller);
+
+        buildScene();
+
+        view = (EditorView)createProxy(EditorView.class);
+
+        BaseRule.initialize(
+            new RuleCollisionHandler(errorReporter, model, view));
+
+        statusManager = new CheckStatusReportElevation();
+
+        dataCenter = new DefaultCommandDataCenter(
+            errorReporter, model, view, statusManager);
+
+        unprunedMap = new HashMap<RuleEngine, DefaultRuleEngine>();
+
+        CommandSequencer.getInstance().clearAll();
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        selectionHelper.clearSelectedList();
+        model.removeModelListener(selectionHelper);
+        CommandSequencer.getInstance().clearAll();
+        dataCenter = null;
+        model = null;
+        products = null;
+    }
+
+    /**
+     * Moves, rotations and scales of products with and without the rule
+     * properties some of the filters depend on
+     */
+    public void testTransforms() {
+
+        for (int i = 0; i < products.size(); i++) {
+
+            final DefaultEntity product = products.get(i);
+
+            final double[] start = new double[3];
+            product.getPosition(start);
+
+            final double[] end = {start[0] + 0.25, start[1], start[2] - 0.1};
+
+            checkCommand(new CommandFactory() {
+                public Command create() {
+                    return new MoveEntityCommand(
+                        model, model.issueTransactionID(), product, end, start);
+                }
+            });
+
+            checkCommand(new CommandFactory() {
+                public Command create() {
+                    return new MoveEntityTransientCommand(
+                        model,
+                        model.issueTransactionID(),
+                        product.getEntityID(),
+                        end,
+                        new float[3]);
+                }
+            });
+
+            checkCommand(new CommandFactory() {
+                public Command create() {
+                    return new RotateEntityCommand(
+                        model,
+                        model.issueTransactionID(),
+                        product,
+                        new float[] {0, 1, 0, 0.5f},
+                        new float[] {0, 1, 0, 0});
+                }
+            });
+
+            checkCommand(new CommandFactory() {
+                public Command create() {
+                    return new ScaleEntityCommand(
+                        model,
+                        model.issueTransactionID(),
+                        product,
+                        end,
+                        start,
+                        new float[] {1.5f, 1, 1},
+                        new float[] {1, 1, 1});
+                }
+            });
+        }
+    }
+
+    /**
+     * Adds, removals and selections
+     */
+    public void testChanges() {
+
+        checkCommand(new CommandFactory() {
+            public Command create() {
+                return new AddEntityChildCommand(
+                    model,
+                    model.issueTransactionID(),
+                    floor,
+                    createProduct(new double[] {1, 0.15, 1}),
+                    true);
+            }
+        });
+
+        for (int i = 0; i < products.size(); i++) {
+
+            final DefaultEntity product = products.get(i);
+
+            checkCommand(new CommandFactory() {
+                public Command create() {
+                    return new RemoveEntityChildCommand(
+                        model, floor, product, true);
+                }
+            });
+
+            checkCommand(new CommandFactory() {
+                public Command create() {
+                    return new SelectEntityCommand(model, product, true);
+                }
+            });
+        }
+    }
+
+    /**
+     * Run a command through the engine it is matched to, and through the
+     * same rules unpruned, and check the results agree
+     */
+    private void checkCommand(CommandFactory factory) {
+
+        Command command = factory.create();
+
+        RuleEngine engine = dataCenter.matchCommand(command);
+        if (engine == null) {
+            return;
+        }
+
+        String name = command.getClass().getName() + " " +
+            getEntityID(command);
+
+        CommandSequencer.getInstance().clearAll();
+        RuleEvaluationResult pruned = engine.processRules(
+            command, new DefaultRuleEvaluationResult());
+        List<String> prunedIssued = getIssuedCommands();
+
+        command = factory.create();
+
+        CommandSequencer.getInstance().clearAll();
+        RuleEvaluationResult unpruned = getUnprunedEngine(engine).processRules(
+            command, new DefaultRuleEvaluationResult());
+        List<String> unprunedIssued = getIssuedCommands();
+
+        assertEquals(name + " result",
+            unpruned.getResult(), pruned.getResult());
+        assertEquals(name + " approval",
+            unpruned.isApproved(), pruned.isApproved());
+        assertEquals(name + " status",
+            unpruned.getStatusValue(), pruned.getStatusValue());
+
+        List<Rule> failed = new ArrayList<Rule>();
+        for (Rule rule : unpruned.getFailedRules()) {
+            failed.add(((UnfilteredRule)rule).rule);
+        }
+        assertEquals(name + " failed rules", failed, pruned.getFailedRules());
+
+        assertEquals(name + " issued commands", unprunedIssued, prunedIssued);
+    }
+
+    /**
+     * Get an engine running the rules of a pruned engine with their
+     * filters hidden
+     */
+    private DefaultRuleEngine getUnprunedEngine(RuleEngine engine) {
+
+        DefaultRuleEngine unpruned = unprunedMap.get(engine);
+
+        if (unpruned == null) {
+
+            LinkedHashMap<String, Rule> ruleList =
+                ((BaseRuleEngine)engine).ruleList;
+            LinkedHashMap<String, Rule> unfiltered =
+                new LinkedHashMap<String, Rule>();
+
+            for (Map.Entry<String, Rule> entry : ruleList.entrySet()) {
+                unfiltered.put(
+                    entry.getKey(), new UnfilteredRule(entry.getValue()));
+            }
+
+            unpruned = new DefaultRuleEngine(
+                errorReporter, view, statusManager, unfiltered);
+            unprunedMap.put(engine, unpruned);
+        }
+
+        return unpruned;
+    }
+
+    /**
+     * Describe the newly issued commands, without their transaction IDs
+     */
+    private List<String> getIssuedCommands() {
+
+        List<String> issued = new ArrayList<String>();
+
+        for (Command command :
+                CommandSequencer.getInstance().getNewlyIssuedCommandList()) {
+
+            issued.add(command.getClass().getName() + " " +
+                getEntityID(command));
+        }
+
+        return issued;
+    }
+
+    /**
+     * Get the ID of the entity a command acts on, -1 if there is none
+     */
+    private int getEntityID(Command command) {
+
+        if (command instanceof RuleDataAccessor) {
+            Entity entity = ((RuleDataAccessor)command).getEntity();
+            if (entity != null) {
+                return entity.getEntityID();
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Build a location with a floor holding products, some of them with
+     * the rule properties the filters check for
+     */
+    private void buildScene() {
+
+        SceneEntity scene =
+            new SceneEntity(model.issueEntityID(), createProperties(null));
+
+        location =
+            new LocationEntity(model.issueEntityID(), createProperties(null));
+
+        ContentContainerEntity content = new ContentContainerEntity(
+            model.issueEntityID(), createProperties(null));
+
+        scene.addChild(location);
+        location.addChild(content);
+
+        floor = new ZoneEntity(
+            model.issueEntityID(),
+            Entity.TYPE_GROUNDPLANE_ZONE,
+            createProperties(new float[] {10, 0.01f, 10}));
+        floor.setPosition(new double[] {0, 0, 0}, false);
+        setRuleProperty(
+            floor,
+            ChefX3DRuleProperties.CLASSIFICATION_PROP,
+            new String[] {"floor"});
+        content.addChild(floor);
+
+        products = new ArrayList<DefaultEntity>();
+
+        products.add(createProduct(new double[] {-2, 0.15, -2}));
+
+        products.add(createProduct(new double[] {2, 0.15, -2}));
+        setRuleProperty(
+            products.get(1),
+            ChefX3DRuleProperties.GLOBAL_DEPTH_OFFSET,
+            Float.valueOf(0.05f));
+
+        products.add(createProduct(new double[] {-2, 0.15, 2}));
+        setRuleProperty(
+            products.get(2),
+            ChefX3DRuleProperties.SNAP_TO_CLASS_PROP,
+            "floor");
+
+        // can not be rotated or deleted, and selecting it deselects the
+        // next product
+        products.add(createProduct(new double[] {2, 0.15, 2}));
+        setRuleProperty(
+            products.get(3),
+            ChefX3DRuleProperties.CAN_ROTATE_PROP,
+            Boolean.FALSE);
+        setRuleProperty(
+            products.get(3),
+            ChefX3DRuleProperties.CAN_DELETE_PROP,
+            Boolean.FALSE);
+        setRuleProperty(
+            products.get(3),
+            ChefX3DRuleProperties.SINGLE_SELECTION_ONLY,
+            Boolean.TRUE);
+
+        products.add(createProduct(new double[] {0, 0.15, 0}));
+        setRuleProperty(
+            products.get(4),
+            ChefX3DRuleProperties.SINGLE_SELECTION_ONLY,
+            Boolean.TRUE);
+
+        for (int i = 0; i < products.size(); i++) {
+            floor.addChild(products.get(i));
+        }
+
+        new AddEntityCommand(model, scene).execute();
+
+        location.setSelected(true);
+        location.setActiveZoneID(floor.getEntityID());
+
+        new SelectEntityCommand(model, products.get(4), true).execute();
+    }
+
+    /**
+     * Create a product placed in the floor. The product is not added to
+     * the floor.
+     */
+    private DefaultEntity createProduct(double[] pos) {
+
+        DefaultEntity product = new DefaultEntity(
+            model.issueEntityID(),
+            Entity.DEFAULT_ENTITY_PROPERTIES,
+            createProperties(PRODUCT_SIZE));
+
+        product.setPosition(pos, false);
+        product.setRotation(new float[] {0, 1, 0, 0}, false);
+        product.setParentEntityID(floor.getEntityID());
+
+        setRuleProperty(
+            product,
+            ChefX3DRuleProperties.CLASSIFICATION_PROP,
+            new String[] {"product"});
+
+        return product;
+    }
+
+    /**
+     * Create the property sheets for a new entity
+     */
+    private Map<String, Map<String, Object>> createProperties(float[] size) {
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        if (size != null) {
+            params.put(PositionableEntity.SIZE_PARAM, size.clone());
+        }
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, params);
+        sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, new HashMap<String, Object>());
+        sheets.put(Entity.EDITABLE_PROPERTIES, new HashMap<String, Object>());
+
+        return sheets;
+    }
+
+    /**
+     * Set a rule property of an entity
+     */
+    private void setRuleProperty(Entity entity, String name, Object value) {
+        entity.setProperty(
+            Entity.DEFAULT_ENTITY_PROPERTIES, name, value, false);
+    }
+
+    /**
+     * Create an implementation of a view interface with no scene graph.
+     * Queries find nothing, and the view hands out the location, the
+     * catalog manager and more of the same.
+     */
+    private Object createProxy(Class<?> type) {
+
+        return Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] {type},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    String name = method.getName();
+                    Class<?> ret = method.getReturnType();
+
+                    if (name.equals("getActiveLocationEntity")) {
+                        return location;
+                    } else if (name.equals("getCatalogManager")) {
+                        return DefaultCatalogManager.getCatalogManager();
+                    } else if (name.equals("getEntityBuilder")) {
+                        return DefaultEntityBuilder.getEntityBuilder();
+                    } else if (ret == RuleCollisionChecker.class ||
+                            ret == StatusReporter.class ||
+                            ret == NearestNeighborMeasurement.class) {
+                        return createProxy(ret);
+                    } else if (ret == ArrayList.class || ret == List.class) {
+                        return new ArrayList<Object>();
+                    } else if (ret == HashMap.class || ret == Map.class) {
+                        return new HashMap<Object, Object>();
+                    } else if (ret == boolean.class) {
+                        return Boolean.FALSE;
+                    } else if (ret == long.class) {
+                        return Long.valueOf(0);
+                    } else if (ret == double.class) {
+                        return Double.valueOf(0);
+                    } else if (ret == float.class) {
+                        return Float.valueOf(0);
+                    } else if (ret.isPrimitive() && ret != void.class) {
+                        return Integer.valueOf(0);
+                    }
+
+                    return null;
+                }
+            });
+    }
+}
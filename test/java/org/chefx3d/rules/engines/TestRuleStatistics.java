@@ -0,0 +1,253 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.rules.engines;
+
+// External Imports
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+
+// Internal Imports
+import org.chefx3d.model.Command;
+import org.chefx3d.model.MoveEntityTransientCommand;
+import org.chefx3d.model.RotateEntityCommand;
+import org.chefx3d.rules.rule.Rule;
+import org.chefx3d.rules.rule.RuleEvaluationResult;
+
+/**
+ * Checks the histogram buckets of RuleStatistics at the boundaries of
+ * each range, that percentiles are within the 6.25% the buckets promise,
+ * and that the snapshots of RuleProfiler are not changed by later runs
+ * or a reset.
+ *
+ * @author Russell Dodds
+ * @version $Revision: 1.1 $
+ */
+public class TestRuleStatistics extends TestCase {
+
+    /** The most a recorded value may be overstated by, 1 / 16 */
+    private static final double ACCURACY = 0.0625;
+
+    /** The percentiles to check */
+    private static final double[] PERCENTILES = {0, 1, 10, 50, 90, 99, 99.9, 100};
+
+    /** A rule to record runs against */
+    private static class TestRule implements Rule {
+        public RuleEvaluationResult processRule(
+                Command command,
+                RuleEvaluationResult result) {
+            return result;
+        }
+    }
+
+    private RuleProfiler profiler;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestRuleStatistics(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+        profiler = RuleProfiler.getInstance();
+        profiler.reset();
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        profiler.reset();
+    }
+
+    /**
+     * Values below 16 have a bucket each, and the linear buckets of each
+     * power of two range start at that power
+     */
+    public void testBucketBoundaries() {
+
+        for (int i = 0; i < 16; i++) {
+            assertEquals(i, RuleStatistics.getBucketIndex(i));
+            assertEquals(i, RuleStatistics.getBucketLimit(i));
+        }
+
+        assertEquals(16, RuleStatistics.getBucketIndex(16));
+        assertEquals(16, RuleStatistics.getBucketLimit(16));
+        assertEquals(31, RuleStatistics.getBucketIndex(31));
+        assertEquals(32, RuleStatistics.getBucketIndex(32));
+        assertEquals(32, RuleStatistics.getBucketIndex(33));
+        assertEquals(33, RuleStatistics.getBucketLimit(32));
+
+        for (int bit = 4; bit < 63; bit++) {
+
+            long power = 1L << bit;
+            int index = RuleStatistics.getBucketIndex(power);
+
+            assertEquals("2^" + bit, (bit - 3) * 16, index);
+            assertEquals("2^" + bit + " - 1",
+                index - 1, RuleStatistics.getBucketIndex(power - 1));
+            assertEquals("2^" + bit + " - 1",
+                power - 1, RuleStatistics.getBucketLimit(index - 1));
+
+            checkBucket(power);
+            checkBucket(power - 1);
+            checkBucket(power + 1);
+        }
+
+        int last = RuleStatistics.getBucketIndex(Long.MAX_VALUE);
+
+        assertEquals(60 * 16 - 1, last);
+        assertEquals(Long.MAX_VALUE, RuleStatistics.getBucketLimit(last));
+        checkBucket(Long.MAX_VALUE);
+    }
+
+    /**
+     * Random values of every magnitude fall in a bucket that overstates
+     * them by no more than 6.25%
+     */
+    public void testBucketAccuracy() {
+
+        Random random = new Random(11);
+
+        for (int i = 0; i < 10000; i++) {
+            checkBucket((random.nextLong() >>> 1) >>> random.nextInt(63));
+        }
+    }
+
+    /**
+     * The percentiles agree with the exact ones to within 6.25%, never
+     * understate them and never go past the largest value
+     */
+    public void testPercentiles() {
+
+        Random random = new Random(5);
+
+        RuleStatistics stats = new RuleStatistics("Rule", "Command");
+        long[] times = new long[5000];
+
+        for (int i = 0; i < times.length; i++) {
+
+            // spread over several orders of magnitude
+            times[i] = (long)Math.exp(random.nextDouble() * 16);
+            stats.record(i % 3 != 0, i % 7 != 0, times[i]);
+        }
+
+        Arrays.sort(times);
+
+        for (int i = 0; i < PERCENTILES.length; i++) {
+
+            int rank = (int)Math.ceil(times.length * PERCENTILES[i] / 100);
+            long exact = times[Math.max(rank, 1) - 1];
+            long value = stats.getPercentile(PERCENTILES[i]);
+
+            String message = "p" + PERCENTILES[i];
+            assertTrue(message + " " + value + " < " + exact, value >= exact);
+            assertTrue(message + " " + value + " > " + exact,
+                value <= exact + exact * ACCURACY);
+        }
+
+        assertEquals(times[times.length - 1], stats.getPercentile(100));
+        assertEquals(times[times.length - 1], stats.getMaxTime());
+        assertEquals(times.length, stats.getCount());
+        assertEquals(1667, stats.getFailedCount());
+        assertEquals(715, stats.getRejectedCount());
+
+        // negative times are recorded as 0
+        RuleStatistics empty = new RuleStatistics("Rule", "Command");
+        assertEquals(0, empty.getPercentile(50));
+        empty.record(true, true, -5);
+        assertEquals(0, empty.getPercentile(50));
+        assertEquals(0, empty.getTotalTime());
+    }
+
+    /**
+     * Snapshots are copies, unchanged by later runs and resets
+     */
+    public void testSnapshot() {
+
+        Rule rule = new TestRule();
+        Command move = new MoveEntityTransientCommand(null);
+        Command rotate = new RotateEntityCommand(null);
+
+        profiler.record(rule, move, true, true, 100);
+        profiler.record(rule, move, false, true, 300);
+        profiler.record(rule, rotate, true, false, 50);
+
+        List<RuleStatistics> first = profiler.snapshot();
+
+        assertEquals(2, first.size());
+        assertEquals("MoveEntityTransientCommand", first.get(0).getCommandName());
+        assertEquals("RotateEntityCommand", first.get(1).getCommandName());
+        assertEquals("TestRule", first.get(0).getRuleName());
+
+        RuleStatistics moveStats = first.get(0);
+        assertEquals(2, moveStats.getCount());
+        assertEquals(1, moveStats.getFailedCount());
+        assertEquals(400, moveStats.getTotalTime());
+        assertEquals(300, moveStats.getMaxTime());
+        assertEquals(1, first.get(1).getRejectedCount());
+
+        // later runs leave the snapshot alone
+        profiler.record(rule, move, true, true, 1000);
+
+        List<RuleStatistics> second = profiler.snapshot();
+        assertEquals(3, second.get(0).getCount());
+        assertEquals(1000, second.get(0).getPercentile(100));
+        assertEquals(2, moveStats.getCount());
+        assertEquals(300, moveStats.getPercentile(100));
+
+        // as does a reset
+        profiler.reset();
+
+        assertEquals(2, moveStats.getCount());
+        assertEquals(3, second.get(0).getCount());
+        assertEquals(400, moveStats.getTotalTime());
+
+        List<RuleStatistics> third = profiler.snapshot();
+        assertEquals(2, third.size());
+        assertEquals(0, third.get(0).getCount());
+        assertEquals(0, third.get(0).getPercentile(50));
+
+        // and changing a snapshot leaves the profiler alone
+        third.get(1).record(true, true, 10);
+        assertEquals(0, profiler.snapshot().get(1).getCount());
+    }
+
+    /**
+     * Check a value lies in its bucket, and the bucket limit overstates it
+     * by no more than 6.25%
+     */
+    private void checkBucket(long time) {
+
+        int index = RuleStatistics.getBucketIndex(time);
+        long limit = RuleStatistics.getBucketLimit(index);
+
+        String message = time + " in bucket " + index + " to " + limit;
+
+        assertTrue(message, limit >= time);
+        assertTrue(message, limit - time <= time * ACCURACY);
+
+        if (index > 0) {
+            assertTrue(message, RuleStatistics.getBucketLimit(index - 1) < time);
+        }
+    }
+}
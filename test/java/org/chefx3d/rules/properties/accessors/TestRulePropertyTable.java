@@ -0,0 +1,210 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.rules.properties.accessors;
+
+// External Imports
+import java.util.HashMap;
+import java.util.Map;
+import junit.framework.TestCase;
+
+// Internal Imports
+import org.chefx3d.model.DefaultEntity;
+import org.chefx3d.model.Entity;
+import org.chefx3d.rules.properties.ChefX3DRuleProperties;
+import org.chefx3d.tool.SimpleTool;
+
+/**
+ * Checks that a RulePropertyTable resolves the values of a tool over the
+ * rule property defaults, is rebuilt when the tool changes, and that the
+ * typed accessors read the same values as the untyped ones.
+ *
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TestRulePropertyTable extends TestCase {
+
+    /** A boolean rule property defaulting to true */
+    private static final int CAN_DELETE =
+        ChefX3DRuleProperties.getOrdinal(ChefX3DRuleProperties.CAN_DELETE_PROP);
+
+    /** A float rule property defaulting to 0 */
+    private static final int TOP_BUFFER =
+        ChefX3DRuleProperties.getOrdinal(ChefX3DRuleProperties.TOP_POS_BUFFER_PROP);
+
+    /** A rule property with no default */
+    private static final int EMBED_DEPTH =
+        ChefX3DRuleProperties.getOrdinal(ChefX3DRuleProperties.EMBED_DEPTH_PROP);
+
+    private SimpleTool tool;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestRulePropertyTable(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        HashMap<String, Object> props = new HashMap<String, Object>();
+        props.put(ChefX3DRuleProperties.CAN_DELETE_PROP, Boolean.FALSE);
+        props.put(ChefX3DRuleProperties.EMBED_DEPTH_PROP, Float.valueOf(0.25f));
+
+        tool = new SimpleTool(props);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        RulePropertyTable.invalidate(tool);
+        tool = null;
+    }
+
+    /**
+     * The tool's own values are used over the defaults
+     */
+    public void testResolution() {
+
+        RulePropertyTable table = RulePropertyTable.get(tool);
+
+        assertEquals(Boolean.FALSE, table.getValue(CAN_DELETE));
+        assertEquals(Float.valueOf(0.25f), table.getValue(EMBED_DEPTH));
+        assertEquals(
+            ChefX3DRuleProperties.getDefaultValue(TOP_BUFFER),
+            table.getValue(TOP_BUFFER));
+
+        // another tool has the defaults
+        SimpleTool other = new SimpleTool(new HashMap<String, Object>());
+        RulePropertyTable otherTable = RulePropertyTable.get(other);
+
+        assertNotSame(table, otherTable);
+        assertEquals(Boolean.TRUE, otherTable.getValue(CAN_DELETE));
+        assertNull(otherTable.getValue(EMBED_DEPTH));
+        assertSame(table, RulePropertyTable.get(tool));
+
+        RulePropertyTable.invalidate(other);
+    }
+
+    /**
+     * Setting a default entity property of the tool is seen by the next
+     * read, and other sheets leave the table alone
+     */
+    public void testInvalidation() {
+
+        RulePropertyTable table = RulePropertyTable.get(tool);
+
+        tool.setProperty(
+            Entity.ENTITY_PARAMS,
+            ChefX3DRuleProperties.CAN_DELETE_PROP,
+            Boolean.TRUE);
+        assertSame(table, RulePropertyTable.get(tool));
+
+        tool.setProperty(
+            Entity.DEFAULT_ENTITY_PROPERTIES,
+            ChefX3DRuleProperties.CAN_DELETE_PROP,
+            Boolean.TRUE);
+        assertTrue(RulePropertyAccessor.getBooleanRuleProperty(tool, CAN_DELETE));
+
+        // a change made to the sheet directly needs invalidating
+        tool.getProperties().get(Entity.DEFAULT_ENTITY_PROPERTIES).put(
+            ChefX3DRuleProperties.CAN_DELETE_PROP, Boolean.FALSE);
+        assertTrue(RulePropertyAccessor.getBooleanRuleProperty(tool, CAN_DELETE));
+
+        RulePropertyTable.invalidate(tool);
+        assertFalse(RulePropertyAccessor.getBooleanRuleProperty(tool, CAN_DELETE));
+    }
+
+    /**
+     * A rule property numbered after the table was built is resolved
+     */
+    public void testNewOrdinal() {
+
+        RulePropertyTable.get(tool);
+
+        String name = "Test.ruleTable" + System.nanoTime();
+        tool.getProperties().get(Entity.DEFAULT_ENTITY_PROPERTIES).put(
+            name, "value");
+        int ordinal = ChefX3DRuleProperties.getOrdinal(name);
+
+        assertEquals("value", RulePropertyTable.get(tool).getValue(ordinal));
+        assertEquals(
+            "value", RulePropertyAccessor.getRulePropertyValue(tool, name));
+    }
+
+    /**
+     * The typed accessors give the values of the untyped ones, for tools
+     * and entities, and nothing for values of other types
+     */
+    public void testTypedAccessors() {
+
+        tool.setProperty(
+            Entity.DEFAULT_ENTITY_PROPERTIES,
+            ChefX3DRuleProperties.TOP_POS_BUFFER_PROP,
+            Float.valueOf(1.5f));
+
+        assertEquals(
+            Boolean.FALSE,
+            RulePropertyAccessor.getRulePropertyValue(tool, CAN_DELETE));
+        assertFalse(RulePropertyAccessor.getBooleanRuleProperty(tool, CAN_DELETE));
+        assertEquals(
+            1.5f, RulePropertyAccessor.getFloatRuleProperty(tool, TOP_BUFFER), 0);
+        assertEquals(
+            0.25f, RulePropertyAccessor.getFloatRuleProperty(tool, EMBED_DEPTH), 0);
+
+        // wrong types read as nothing
+        assertEquals(
+            0, RulePropertyAccessor.getFloatRuleProperty(tool, CAN_DELETE), 0);
+        assertFalse(RulePropertyAccessor.getBooleanRuleProperty(tool, TOP_BUFFER));
+
+        Entity entity = createEntity(tool);
+
+        assertFalse(RulePropertyAccessor.getBooleanRuleProperty(entity, CAN_DELETE));
+        assertEquals(
+            1.5f, RulePropertyAccessor.getFloatRuleProperty(entity, TOP_BUFFER), 0);
+        assertEquals(
+            0, RulePropertyAccessor.getFloatRuleProperty(entity, CAN_DELETE), 0);
+
+        // an entity without the property has the default
+        Entity plain = createEntity(new SimpleTool(new HashMap<String, Object>()));
+
+        assertTrue(RulePropertyAccessor.getBooleanRuleProperty(plain, CAN_DELETE));
+        assertEquals(
+            0, RulePropertyAccessor.getFloatRuleProperty(plain, TOP_BUFFER), 0);
+        assertNull(RulePropertyAccessor.getRulePropertyValue(plain, EMBED_DEPTH));
+    }
+
+    /**
+     * Create an entity with a copy of the default entity properties of a
+     * tool
+     */
+    private Entity createEntity(SimpleTool source) {
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, new HashMap<String, Object>());
+        sheets.put(
+            Entity.DEFAULT_ENTITY_PROPERTIES,
+            new HashMap<String, Object>(
+                source.getProperties().get(Entity.DEFAULT_ENTITY_PROPERTIES)));
+
+        return new DefaultEntity(1, Entity.DEFAULT_ENTITY_PROPERTIES, sheets);
+    }
+}
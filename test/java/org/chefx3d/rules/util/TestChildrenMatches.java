@@ -0,0 +1,319 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.rules.util;
+
+// External Imports
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringTokenizer;
+import junit.framework.TestCase;
+
+// Internal Imports
+import org.chefx3d.model.DefaultEntity;
+import org.chefx3d.model.Entity;
+import org.chefx3d.rules.properties.ChefX3DRuleProperties;
+import org.chefx3d.view.common.EditorView;
+
+/**
+ * Checks that the match counts of ChildrenMatches give the same count
+ * maps as before, and that the legality checks on them agree with the
+ * string based checks they replaced for single, joined and repeated
+ * relClass entries under every modifier.
+ *
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TestChildrenMatches extends TestCase {
+
+    /** The modifiers to check */
+    private static final ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES[]
+        MODIFIERS = ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES.values();
+
+    /** The relClass entries to check, alone and together */
+    private static final String[][] REL_CLASSES = {
+        {"chair"},
+        {"lamp"},
+        {"table:chair"},
+        {"chair:chair:table"},
+        {"chair:table:chair:chair"},
+        {"lamp:chair"},
+        {"lamp", "table:chair"},
+        {"chair:chair", "table", "lamp"},
+    };
+
+    private RuleCollisionHandler handler;
+
+    private ChildrenMatches matches;
+
+    private int nextEntityID;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestChildrenMatches(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        EditorView view = (EditorView)Proxy.newProxyInstance(
+            EditorView.class.getClassLoader(),
+            new Class<?>[] {EditorView.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    return null;
+                }
+            });
+
+        handler = new RuleCollisionHandler(null, null, view);
+        matches = new ChildrenMatches();
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        handler = null;
+        matches = null;
+    }
+
+    /**
+     * The count maps are built from the match counts
+     */
+    public void testCountMaps() {
+
+        addMatches(2, 1, 0);
+
+        HashMap<String, Integer> expected = new HashMap<String, Integer>();
+        expected.put("chair", 2);
+        expected.put("table", 1);
+
+        assertEquals(expected, matches.getEntityMatchCountMap());
+        assertEquals(2, matches.getNumberOfMatchedClasses(
+            ChildrenMatches.ENTITY_MATCHES));
+        assertTrue(matches.getFloorMatchCountMap().isEmpty());
+
+        ChildrenMatches copy = new ChildrenMatches();
+        copy.set(matches);
+        assertEquals(expected, copy.getEntityMatchCountMap());
+
+        matches.clearAll();
+        assertTrue(matches.getEntityMatchCountMap().isEmpty());
+        assertEquals(0, matches.getMatchCount(
+            ChildrenMatches.ENTITY_MATCHES,
+            ClassRelationship.getClassID("chair")));
+        assertEquals(expected, copy.getEntityMatchCountMap());
+    }
+
+    /**
+     * The legality checks agree with the string based check for every
+     * combination of counts, entries, amounts and modifiers
+     */
+    public void testLegalityMatchesStringCheck() {
+
+        for (int chairs = 0; chairs <= 3; chairs++) {
+            for (int tables = 0; tables <= 3; tables++) {
+                for (int lamps = 0; lamps <= 1; lamps++) {
+
+                    matches.clearAll();
+                    addMatches(chairs, tables, lamps);
+
+                    HashMap<String, Integer> countMap =
+                        matches.getEntityMatchCountMap();
+
+                    for (int r = 0; r < REL_CLASSES.length; r++) {
+                        for (int amount = 0; amount <= 3; amount++) {
+                            for (int m = 0; m < MODIFIERS.length; m++) {
+                                checkLegality(
+                                    countMap, REL_CLASSES[r], amount, MODIFIERS[m]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A repeated classification needs that many matches regardless of
+     * the relationship amount
+     */
+    public void testRepeatedClassification() {
+
+        String[] relClass = {"chair:chair:table"};
+        int[] amount = {1};
+        Enum<?>[] modifier = {
+            ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES.EQUAL_TO};
+
+        addMatches(1, 1, 0);
+        assertEquals(-2, handler.hasLegalCollisions(
+            matches, ChildrenMatches.ENTITY_MATCHES, relClass, amount, modifier));
+
+        matches.clearAll();
+        addMatches(2, 1, 0);
+        assertEquals(0, handler.hasLegalCollisions(
+            matches, ChildrenMatches.ENTITY_MATCHES, relClass, amount, modifier));
+
+        // nothing of the type to check
+        assertEquals(-1, handler.hasLegalCollisions(
+            matches, ChildrenMatches.FLOOR_MATCHES, relClass, amount, modifier));
+    }
+
+    /**
+     * Check one set of relClass entries against the string based check
+     */
+    private void checkLegality(
+        HashMap<String, Integer> countMap,
+        String[] relClass,
+        int relAmount,
+        ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES relModifier) {
+
+        int[] amount = new int[relClass.length];
+        Enum<?>[] modifier = new Enum<?>[relClass.length];
+
+        for (int i = 0; i < relClass.length; i++) {
+            amount[i] = relAmount;
+            modifier[i] = relModifier;
+        }
+
+        int expected = stringLegalCollisions(countMap, relClass, amount, modifier);
+        String message = countMap + " " + toString(relClass) + " " +
+            relModifier + " " + relAmount;
+
+        assertEquals(message, expected, handler.hasLegalCollisions(
+            matches,
+            ChildrenMatches.ENTITY_MATCHES,
+            relClass,
+            amount,
+            modifier));
+
+        assertEquals(message, expected, handler.hasLegalCollisions(
+            countMap, relClass, amount, modifier));
+    }
+
+    /**
+     * The legality check as it was done on the count maps, parsing each
+     * joined entry into a map of classifications to amounts
+     */
+    private int stringLegalCollisions(
+        HashMap<String, Integer> countMap,
+        String[] classRelationship,
+        int[] relationshipAmount,
+        Enum<?>[] relModifier) {
+
+        for (int i = 0; i < classRelationship.length; i++) {
+
+            if (classRelationship[i].contains(":")) {
+
+                HashMap<String, Integer> cleaned = new HashMap<String, Integer>();
+                StringTokenizer st = new StringTokenizer(classRelationship[i], ":");
+
+                while (st.hasMoreTokens()) {
+                    String token = st.nextToken();
+                    Integer count = cleaned.get(token);
+                    cleaned.put(token, (count == null) ? 1 : count + 1);
+                }
+
+                boolean matchesFound = true;
+
+                for (Map.Entry<String, Integer> entry : cleaned.entrySet()) {
+
+                    int amt = entry.getValue();
+
+                    if (amt == 1) {
+                        amt = relationshipAmount[i];
+                    }
+
+                    if (!RuleUtils.legalAssociationNumber(
+                        countMap.get(entry.getKey()),
+                        amt,
+                        (ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i])) {
+
+                        matchesFound = false;
+                        break;
+                    }
+                }
+
+                if (matchesFound) {
+                    return i;
+                }
+
+            } else if (RuleUtils.legalAssociationNumber(
+                countMap.get(classRelationship[i]),
+                relationshipAmount[i],
+                (ChefX3DRuleProperties.RELATIONSHIP_MODIFIER_VALUES)relModifier[i])) {
+
+                return i;
+            }
+        }
+
+        return countMap.isEmpty() ? -1 : -2;
+    }
+
+    /**
+     * Add model matches of each classification
+     */
+    private void addMatches(int chairs, int tables, int lamps) {
+
+        for (int i = 0; i < chairs; i++) {
+            matches.addEntity(createEntity(), "chair");
+        }
+
+        for (int i = 0; i < tables; i++) {
+            matches.addEntity(createEntity(), "table");
+        }
+
+        for (int i = 0; i < lamps; i++) {
+            matches.addEntity(createEntity(), "lamp");
+        }
+    }
+
+    /**
+     * Create a model entity
+     */
+    private Entity createEntity() {
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, new HashMap<String, Object>());
+        sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, new HashMap<String, Object>());
+
+        return new DefaultEntity(
+            nextEntityID++, Entity.DEFAULT_ENTITY_PROPERTIES, sheets);
+    }
+
+    /**
+     * Join the relClass entries for a message
+     */
+    private String toString(String[] relClass) {
+
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < relClass.length; i++) {
+            sb.append(relClass[i]);
+            sb.append(' ');
+        }
+
+        return sb.toString();
+    }
+}
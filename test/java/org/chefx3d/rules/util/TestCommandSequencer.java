@@ -0,0 +1,451 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.rules.util;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+// Internal Imports
+import org.chefx3d.model.Command;
+import org.chefx3d.model.DefaultEntity;
+import org.chefx3d.model.Entity;
+import org.chefx3d.model.MoveEntityCommand;
+import org.chefx3d.model.RotateEntityCommand;
+import org.chefx3d.model.RuleDataAccessor;
+import org.chefx3d.model.ScaleEntityCommand;
+
+/**
+ * Checks that the entity index of the CommandSequencer keeps the commands
+ * for each entity in the order of the full command list, and the last
+ * command of each kind, as commands are added, replaced, removed, moved
+ * between the queues and cleared.
+ *
+ * @author Ben Yarger
+ * @version $Revision: 1.1 $
+ */
+public class TestCommandSequencer extends TestCase {
+
+    private CommandSequencer sequencer;
+
+    private DefaultEntity[] entities;
+
+    private int nextTransactionID;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestCommandSequencer(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        sequencer = CommandSequencer.getInstance();
+        sequencer.clearAll();
+
+        entities = new DefaultEntity[4];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = createEntity(i + 1);
+        }
+
+        nextTransactionID = 1;
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        sequencer.clearAll();
+        sequencer = null;
+    }
+
+    /**
+     * Commands added to any queue are in full command list order
+     */
+    public void testAdd() {
+
+        Command newly = move(0);
+        sequencer.addNewlyIssuedCommand(newly);
+        Command pending = rotate(0);
+        sequencer.addPendingCommand(pending);
+        Command approved = move(0);
+        sequencer.addApprovedCommand(approved);
+        sequencer.addPendingCommand(scale(1));
+        checkIndex();
+
+        List<Command> commands = sequencer.getEntityCommandList(1);
+        assertEquals(3, commands.size());
+        assertSame(approved, commands.get(0));
+        assertSame(pending, commands.get(1));
+        assertSame(newly, commands.get(2));
+
+        // the current command sits between approved and pending
+        Command current = sequencer.getNextPendingCommand();
+        assertSame(pending, current);
+        sequencer.addApprovedCommand(move(0));
+        checkIndex();
+
+        assertSame(newly, sequencer.getLastEntityCommand(
+            entities[0], CommandSequencer.POSITION_COMMANDS));
+        assertSame(current, sequencer.getLastEntityCommand(
+            entities[0], CommandSequencer.ROTATION_COMMANDS));
+        assertNull(sequencer.getLastEntityCommand(
+            entities[0], CommandSequencer.SCALE_COMMANDS));
+    }
+
+    /**
+     * A replacement takes the place of the command it replaces, for the
+     * same or another entity
+     */
+    public void testReplace() {
+
+        Command first = move(0);
+        Command second = move(0);
+        Command third = rotate(0);
+        sequencer.addPendingCommand(first);
+        sequencer.addPendingCommand(second);
+        sequencer.addPendingCommand(third);
+
+        Command replacement = scale(0);
+        assertTrue(sequencer.replaceCommand(first, replacement));
+        checkIndex();
+        assertSame(replacement, sequencer.getEntityCommandList(1).get(0));
+        assertSame(second, sequencer.getLastEntityCommand(
+            entities[0], CommandSequencer.POSITION_COMMANDS));
+
+        Command other = move(1);
+        assertTrue(sequencer.replacePendingCommand(second, other));
+        checkIndex();
+        assertSame(replacement, sequencer.getLastEntityCommand(
+            entities[0], CommandSequencer.POSITION_COMMANDS));
+        assertSame(other, sequencer.getLastEntityCommand(2));
+
+        assertFalse(sequencer.replaceApprovedCommand(third, move(2)));
+        checkIndex();
+    }
+
+    /**
+     * Removing the last command of a kind falls back to the one before
+     */
+    public void testRemove() {
+
+        Command first = move(0);
+        Command second = scale(0);
+        Command third = move(0);
+        sequencer.addApprovedCommand(first);
+        sequencer.addPendingCommand(second);
+        sequencer.addNewlyIssuedCommand(third);
+
+        assertTrue(sequencer.removeCommand(third));
+        checkIndex();
+        assertSame(second, sequencer.getLastEntityCommand(
+            entities[0], CommandSequencer.POSITION_COMMANDS));
+
+        assertTrue(sequencer.removePendingCommand(second.getTransactionID()));
+        checkIndex();
+        assertSame(first, sequencer.getLastEntityCommand(
+            entities[0], CommandSequencer.POSITION_COMMANDS));
+        assertNull(sequencer.getLastEntityCommand(
+            entities[0], CommandSequencer.SCALE_COMMANDS));
+
+        assertTrue(sequencer.removeApprovedCommand(first));
+        checkIndex();
+        assertTrue(sequencer.getEntityCommandList(1).isEmpty());
+        assertFalse(sequencer.getCommandEntityIDs().contains(1));
+        assertNull(sequencer.getLastEntityCommand(1));
+    }
+
+    /**
+     * Commands keep their order as they move from newly issued to
+     * pending, to current, to approved
+     */
+    public void testEvaluationSequence() {
+
+        sequencer.addPendingCommand(move(0));
+        sequencer.addPendingCommand(move(1));
+        checkIndex();
+
+        while (sequencer.commandsToEvaluate()) {
+
+            Command command = sequencer.getNextPendingCommand();
+            checkIndex();
+
+            int index = ((RuleDataAccessor)command).getEntity().getEntityID();
+            if (index < entities.length) {
+                sequencer.addNewlyIssuedCommand(rotate(index));
+                sequencer.addNewlyIssuedCommand(move(index));
+                checkIndex();
+            }
+
+            sequencer.moveNewlyIssuedCommandsToPending();
+            checkIndex();
+
+            sequencer.addApprovedCommand(command);
+            sequencer.clearCurrentEvalutionCmd();
+            checkIndex();
+
+            if (sequencer.getApprovedCommandList().size() > 12) {
+                sequencer.clearPendingCommands();
+            }
+        }
+
+        checkIndex();
+    }
+
+    /**
+     * Clearing the queues clears the index
+     */
+    public void testClear() {
+
+        sequencer.addApprovedCommand(move(0));
+        sequencer.addPendingCommand(rotate(1));
+        sequencer.addPendingCommand(scale(2));
+        sequencer.getNextPendingCommand();
+        sequencer.addNewlyIssuedCommand(move(3));
+
+        sequencer.clearForNextCommandCheck();
+        checkIndex();
+        assertEquals(2, sequencer.getCommandEntityIDs().size());
+
+        sequencer.clearAll();
+        checkIndex();
+        assertTrue(sequencer.getCommandEntityIDs().isEmpty());
+    }
+
+    /**
+     * Commands acting on another instance of an entity are passed over
+     */
+    public void testOtherInstance() {
+
+        Command command = move(0);
+        sequencer.addPendingCommand(command);
+
+        DefaultEntity copy = createEntity(entities[0].getEntityID());
+        sequencer.addPendingCommand(new MoveEntityCommand(
+            null, nextTransactionID++, copy, new double[3], new double[3]));
+
+        assertSame(command, sequencer.getLastEntityCommand(
+            entities[0], CommandSequencer.POSITION_COMMANDS));
+        assertSame(copy, ((RuleDataAccessor)sequencer.getLastEntityCommand(
+            entities[0].getEntityID())).getEntity());
+    }
+
+    /**
+     * The index agrees with the queues through random changes
+     */
+    public void testRandomChanges() {
+
+        Random random = new Random(11);
+
+        for (int i = 0; i < 400; i++) {
+
+            int index = random.nextInt(entities.length);
+            List<Command> full = sequencer.getFullCommandList(true);
+
+            switch (random.nextInt(9)) {
+                case 0:
+                    sequencer.addApprovedCommand(create(random, index));
+                    break;
+                case 1:
+                case 2:
+                    sequencer.addPendingCommand(create(random, index));
+                    break;
+                case 3:
+                    sequencer.addNewlyIssuedCommand(create(random, index));
+                    break;
+                case 4:
+                    if (!full.isEmpty()) {
+                        sequencer.replaceCommand(
+                            full.get(random.nextInt(full.size())),
+                            create(random, index));
+                    }
+                    break;
+                case 5:
+                    if (!full.isEmpty()) {
+                        sequencer.removeCommand(
+                            full.get(random.nextInt(full.size())));
+                    }
+                    break;
+                case 6:
+                    sequencer.getNextPendingCommand();
+                    break;
+                case 7:
+                    sequencer.moveNewlyIssuedCommandsToPending();
+                    break;
+                case 8:
+                    if (random.nextInt(10) == 0) {
+                        sequencer.clearNewlyIssuedCommands();
+                    }
+                    break;
+            }
+
+            checkIndex();
+        }
+    }
+
+    /**
+     * Check the index against the full command list
+     */
+    private void checkIndex() {
+
+        List<Command> full = sequencer.getFullCommandList(true);
+
+        HashMap<Integer, List<Command>> expected =
+            new HashMap<Integer, List<Command>>();
+
+        for (int i = 0; i < full.size(); i++) {
+
+            Command command = full.get(i);
+            int entityID = ((RuleDataAccessor)command).getEntity().getEntityID();
+
+            List<Command> commands = expected.get(entityID);
+            if (commands == null) {
+                commands = new ArrayList<Command>();
+                expected.put(entityID, commands);
+            }
+            commands.add(command);
+        }
+
+        assertEquals(expected.keySet(), sequencer.getCommandEntityIDs());
+
+        for (int i = 0; i < entities.length; i++) {
+
+            Entity entity = entities[i];
+            List<Command> commands = expected.get(entity.getEntityID());
+            if (commands == null) {
+                commands = new ArrayList<Command>();
+            }
+
+            assertEquals(commands,
+                sequencer.getEntityCommandList(entity.getEntityID()));
+            assertSame(
+                commands.isEmpty() ? null : commands.get(commands.size() - 1),
+                sequencer.getLastEntityCommand(entity.getEntityID()));
+
+            assertSame(
+                findLast(commands, MoveEntityCommand.class, ScaleEntityCommand.class),
+                sequencer.getLastEntityCommand(
+                    entity, CommandSequencer.POSITION_COMMANDS));
+            assertSame(
+                findLast(commands, RotateEntityCommand.class, null),
+                sequencer.getLastEntityCommand(
+                    entity, CommandSequencer.ROTATION_COMMANDS));
+            assertSame(
+                findLast(commands, ScaleEntityCommand.class, null),
+                sequencer.getLastEntityCommand(
+                    entity, CommandSequencer.SCALE_COMMANDS));
+        }
+    }
+
+    /**
+     * Find the last command of either class
+     */
+    private Command findLast(
+        List<Command> commands,
+        Class<?> type,
+        Class<?> otherType) {
+
+        for (int i = commands.size() - 1; i >= 0; i--) {
+
+            Command command = commands.get(i);
+
+            if (type.isInstance(command) ||
+                (otherType != null && otherType.isInstance(command))) {
+
+                return command;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Create a random command for an entity
+     */
+    private Command create(Random random, int index) {
+
+        switch (random.nextInt(3)) {
+            case 0:
+                return move(index);
+            case 1:
+                return rotate(index);
+            default:
+                return scale(index);
+        }
+    }
+
+    /**
+     * Create a move command, to a position of its own as moves to the
+     * same position are equal
+     */
+    private Command move(int index) {
+        return new MoveEntityCommand(
+            null,
+            nextTransactionID,
+            entities[index],
+            new double[] {nextTransactionID++, 0, 0},
+            new double[3]);
+    }
+
+    /**
+     * Create a rotate command
+     */
+    private Command rotate(int index) {
+        return new RotateEntityCommand(
+            null,
+            nextTransactionID++,
+            entities[index],
+            new float[] {0, 1, 0, 0},
+            new float[] {0, 1, 0, 0});
+    }
+
+    /**
+     * Create a scale command
+     */
+    private Command scale(int index) {
+        return new ScaleEntityCommand(
+            null,
+            nextTransactionID++,
+            entities[index],
+            new double[3],
+            new double[3],
+            new float[] {1, 1, 1},
+            new float[] {1, 1, 1});
+    }
+
+    /**
+     * Create an entity
+     */
+    private DefaultEntity createEntity(int entityID) {
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, new HashMap<String, Object>());
+        sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, new HashMap<String, Object>());
+
+        return new DefaultEntity(
+            entityID, Entity.DEFAULT_ENTITY_PROPERTIES, sheets);
+    }
+}
@@ -0,0 +1,215 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.av3d;
+
+// External Imports
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import junit.framework.TestCase;
+
+// Internal Imports
+import org.chefx3d.model.DefaultEntity;
+import org.chefx3d.model.Entity;
+import org.chefx3d.model.PositionableEntity;
+import org.chefx3d.rules.properties.ChefX3DRuleProperties;
+import org.chefx3d.view.awt.scenemanager.SceneManagerObserver;
+
+/**
+ * Checks the dirty tracking, insertion, removal and querying of the
+ * EntityBoundsIndex with wrappers that have no scene graph attached.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class TestEntityBoundsIndex extends TestCase {
+
+    private SceneManagerObserver mgmtObserver;
+
+    private HashMap<Integer, AV3DEntityWrapper> wrapperMap;
+
+    private EntityBoundsIndex index;
+
+    private DefaultEntity parent;
+    private DefaultEntity child;
+    private DefaultEntity grandChild;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestEntityBoundsIndex(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        mgmtObserver = new SceneManagerObserver(null, null);
+        wrapperMap = new HashMap<Integer, AV3DEntityWrapper>();
+        index = new EntityBoundsIndex();
+
+        parent = createEntity(1);
+        child = createEntity(2);
+        grandChild = createEntity(3);
+
+        parent.addChild(child);
+        child.addChild(grandChild);
+
+        AV3DEntityWrapper pw = createWrapper(parent);
+        AV3DEntityWrapper cw = createWrapper(child);
+        AV3DEntityWrapper gw = createWrapper(grandChild);
+        pw.addChild(cw);
+        cw.addChild(gw);
+    }
+
+    /**
+     * Added wrappers are dirty until collected, and collecting a
+     * dirty entry gathers its descendants
+     */
+    public void testDirtyEntries() {
+
+        assertFalse(index.isDirty());
+        index.add(wrapperMap.get(1));
+        assertTrue(index.isDirty());
+
+        HashSet<Integer> ids = new HashSet<Integer>();
+        index.getDirtyEntries(ids, wrapperMap);
+        assertFalse(index.isDirty());
+        assertEquals(3, ids.size());
+        assertTrue(ids.contains(1));
+        assertTrue(ids.contains(2));
+        assertTrue(ids.contains(3));
+    }
+
+    /**
+     * Wrapper change notifications mark the entry dirty again
+     */
+    public void testListenerInvalidates() {
+
+        AV3DEntityWrapper cw = wrapperMap.get(2);
+        index.add(cw);
+        index.getDirtyEntries(new HashSet<Integer>(), wrapperMap);
+        assertFalse(index.isDirty());
+
+        cw.fireTransformChanged();
+        assertTrue(index.isDirty());
+
+        HashSet<Integer> ids = new HashSet<Integer>();
+        index.getDirtyEntries(ids, wrapperMap);
+        assertTrue(ids.contains(2));
+        assertTrue(ids.contains(3));
+        assertFalse(ids.contains(1));
+
+        // no longer listening once removed
+        index.remove(cw);
+        cw.fireTransformChanged();
+        assertFalse(index.isDirty());
+    }
+
+    /**
+     * Updated bounds are queryable, refitted on move, and removed
+     * along with the wrapper
+     */
+    public void testUpdateQueryRemove() {
+
+        index.add(wrapperMap.get(2));
+        index.add(wrapperMap.get(3));
+        index.update(2, new float[] {0, 0, 0}, new float[] {1, 1, 1});
+        index.update(3, new float[] {10, 10, 10}, new float[] {11, 11, 11});
+
+        HashSet<Integer> results = new HashSet<Integer>();
+        index.query(new float[] {0.5f, 0.5f, 0.5f}, new float[] {2, 2, 2}, results);
+        assertEquals(1, results.size());
+        assertTrue(results.contains(2));
+
+        // refit to the far corner
+        index.update(2, new float[] {10, 10, 10}, new float[] {11, 11, 11});
+        results.clear();
+        index.query(new float[] {0.5f, 0.5f, 0.5f}, new float[] {2, 2, 2}, results);
+        assertTrue(results.isEmpty());
+        index.query(new float[] {10, 10, 10}, new float[] {10.5f, 10.5f, 10.5f}, results);
+        assertEquals(2, results.size());
+
+        index.remove(wrapperMap.get(3));
+        results.clear();
+        index.query(new float[] {10, 10, 10}, new float[] {10.5f, 10.5f, 10.5f}, results);
+        assertEquals(1, results.size());
+        assertTrue(results.contains(2));
+
+        index.clear();
+        results.clear();
+        index.query(new float[] {10, 10, 10}, new float[] {10.5f, 10.5f, 10.5f}, results);
+        assertTrue(results.isEmpty());
+    }
+
+    /**
+     * Unresolved entries are returned by every query until their
+     * bounds are set
+     */
+    public void testUnresolved() {
+
+        index.add(wrapperMap.get(2));
+        index.update(2, new float[] {0, 0, 0}, new float[] {1, 1, 1});
+        index.setUnresolved(2);
+
+        HashSet<Integer> results = new HashSet<Integer>();
+        index.query(new float[] {50, 50, 50}, new float[] {51, 51, 51}, results);
+        assertTrue(results.contains(2));
+
+        // a new wrapper re-dirties the unresolved entries
+        index.getDirtyEntries(new HashSet<Integer>(), wrapperMap);
+        index.add(wrapperMap.get(3));
+        HashSet<Integer> ids = new HashSet<Integer>();
+        index.getDirtyEntries(ids, wrapperMap);
+        assertTrue(ids.contains(2));
+
+        index.update(2, new float[] {0, 0, 0}, new float[] {1, 1, 1});
+        results.clear();
+        index.query(new float[] {50, 50, 50}, new float[] {51, 51, 51}, results);
+        assertTrue(results.isEmpty());
+    }
+
+    /**
+     * Create a sized entity that requires no model
+     */
+    private DefaultEntity createEntity(int id) {
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(PositionableEntity.SIZE_PARAM, new float[] {1, 1, 1});
+
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(ChefX3DRuleProperties.NO_MODEL_PROP, Boolean.TRUE);
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, params);
+        sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, props);
+
+        return new DefaultEntity(id, Entity.DEFAULT_ENTITY_PROPERTIES, sheets);
+    }
+
+    /**
+     * Create a wrapper for the entity and record it in the map
+     */
+    private AV3DEntityWrapper createWrapper(DefaultEntity entity) {
+        AV3DEntityWrapper wrapper =
+            new AV3DEntityWrapper(mgmtObserver, entity, null, null, null);
+        wrapperMap.put(entity.getEntityID(), wrapper);
+        return wrapper;
+    }
+}
@@ -0,0 +1,185 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.av3d;
+
+// External Imports
+import junit.framework.TestCase;
+
+// Internal Imports
+// None
+
+/**
+ * Checks that the tessellation memo of GeometryUtils is keyed on the
+ * content of the input, keeps its own copy of it, and stays within its
+ * weight limit.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class TestGeometryMemo extends TestCase {
+
+    /** A unit square */
+    private static final float[] COORD = {0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0};
+
+    private long savedWeight;
+
+    /** The memo statistics before the test */
+    private long baseHits;
+    private long baseMisses;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestGeometryMemo(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+        savedWeight = GeometryUtils.getMemoWeight();
+        GeometryUtils.setMemoWeight(1024 * 1024);
+        GeometryUtils.clearMemo();
+        baseHits = GeometryUtils.getMemoHitCount();
+        baseMisses = GeometryUtils.getMemoMissCount();
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        GeometryUtils.clearMemo();
+        GeometryUtils.setMemoWeight(savedWeight);
+    }
+
+    /**
+     * Changing the caller's arrays after a tessellation does not change
+     * what the memo holds
+     */
+    public void testInputIsCopied() {
+
+        float[] coord = (float[])COORD.clone();
+        int[] index = {0, 1, 2, 3, -1};
+
+        tessellate(coord, index, null);
+        assertEquals(1, misses());
+
+        // the same content again is found
+        tessellate((float[])COORD.clone(), new int[] {0, 1, 2, 3, -1}, null);
+        assertEquals(1, hits());
+
+        // the changed array is a different input
+        coord[0] = 5;
+        tessellate(coord, index, null);
+        assertEquals(2, misses());
+
+        // and the original content is still found
+        tessellate((float[])COORD.clone(), new int[] {0, 1, 2, 3, -1}, null);
+        assertEquals(2, hits());
+    }
+
+    /**
+     * A secondary index that is the coordIndex matches one that is an
+     * equal copy of it
+     */
+    public void testSharedIndexMatchesCopy() {
+
+        int[] index = {0, 1, 2, 3, -1};
+        tessellate(COORD, index, index);
+        assertEquals(1, misses());
+
+        tessellate(COORD, index, (int[])index.clone());
+        assertEquals(1, hits());
+
+        int[] other = {0, 1, 2, 3, -1};
+        tessellate(COORD, other, other);
+        assertEquals(2, hits());
+        assertEquals(1, misses());
+    }
+
+    /**
+     * The least recently used tessellations are dropped to stay within
+     * the weight limit
+     */
+    public void testWeightLimit() {
+
+        tessellate(COORD, new int[] {0, 1, 2, 3, -1}, null);
+        long weight = GeometryUtils.getMemoUsedWeight();
+        assertTrue(weight > 0);
+
+        // room for two tessellations of this size
+        GeometryUtils.setMemoWeight(weight * 2 + weight / 2);
+
+        tessellate(COORD, new int[] {1, 2, 3, 0, -1}, null);
+        tessellate(COORD, new int[] {2, 3, 0, 1, -1}, null);
+        assertTrue(
+            GeometryUtils.getMemoUsedWeight() <= GeometryUtils.getMemoWeight());
+        assertEquals(3, misses());
+
+        // the first was dropped, the last is kept
+        tessellate(COORD, new int[] {2, 3, 0, 1, -1}, null);
+        assertEquals(1, hits());
+        tessellate(COORD, new int[] {0, 1, 2, 3, -1}, null);
+        assertEquals(4, misses());
+
+        // nothing is kept with the memo off
+        GeometryUtils.setMemoWeight(0);
+        assertEquals(0, GeometryUtils.getMemoUsedWeight());
+    }
+
+    /**
+     * Get the memo hits made by the test
+     */
+    private long hits() {
+        return GeometryUtils.getMemoHitCount() - baseHits;
+    }
+
+    /**
+     * Get the memo misses made by the test
+     */
+    private long misses() {
+        return GeometryUtils.getMemoMissCount() - baseMisses;
+    }
+
+    /**
+     * Tessellate a face set with generated normals
+     */
+    private void tessellate(float[] coord, int[] coordIndex, int[] normalIndex) {
+
+        GeometryUtils utils = new GeometryUtils();
+        assertTrue(utils.generateTriangleArrays(
+            false,
+            true,
+            coord,
+            null,
+            3,
+            null,
+            null,
+            coordIndex,
+            coordIndex.length,
+            null,
+            normalIndex,
+            null,
+            true,
+            true,
+            true,
+            true,
+            0.5f));
+        assertNotNull(utils.geomData);
+    }
+}
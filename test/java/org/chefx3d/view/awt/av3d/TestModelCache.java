@@ -0,0 +1,151 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.av3d;
+
+// External Imports
+import junit.framework.TestCase;
+
+import org.j3d.aviatrix3d.Group;
+import org.j3d.aviatrix3d.Node;
+
+// Internal Imports
+// None
+
+/**
+ * Checks that a model load claimed in the ModelCache is shared with the
+ * threads waiting on it, and that an interrupted waiter gives up without
+ * taking the load over.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class TestModelCache extends TestCase {
+
+    private static final String KEY = "http://example.com/box.x3d";
+
+    private ModelCache cache;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestModelCache(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+        cache = new ModelCache(1024 * 1024, false);
+    }
+
+    /**
+     * A waiter is given the model loaded by the thread that claimed it
+     */
+    public void testWaiterSharesLoad() throws Exception {
+
+        assertNull(cache.beginLoad(KEY));
+
+        Waiter waiter = new Waiter();
+        waiter.start();
+        waitUntilBlocked(waiter);
+
+        Node[] nodes = new Node[] {new Group()};
+        cache.endLoad(KEY, nodes);
+        waiter.join(5000);
+
+        assertSame(nodes, waiter.result);
+        assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * An interrupted waiter keeps its interrupt flag and gets the
+     * cancelled result, and the load stays with the thread that claimed
+     * it
+     */
+    public void testInterruptedWaiterDoesNotClaim() throws Exception {
+
+        assertNull(cache.beginLoad(KEY));
+
+        Waiter interrupted = new Waiter();
+        interrupted.start();
+        waitUntilBlocked(interrupted);
+        interrupted.interrupt();
+        interrupted.join(5000);
+
+        assertSame(ModelCache.LOAD_CANCELLED, interrupted.result);
+        assertTrue(interrupted.wasInterrupted);
+
+        // the key is still being loaded, a new request waits for it
+        Waiter later = new Waiter();
+        later.start();
+        waitUntilBlocked(later);
+
+        Node[] nodes = new Node[] {new Group()};
+        cache.endLoad(KEY, nodes);
+        later.join(5000);
+
+        assertSame(nodes, later.result);
+        assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * A failed load releases the claim, the next request loads again
+     */
+    public void testFailedLoadReleasesClaim() {
+
+        assertNull(cache.beginLoad(KEY));
+        cache.endLoad(KEY, null);
+
+        assertNull(cache.beginLoad(KEY));
+        Node[] nodes = new Node[] {new Group()};
+        cache.endLoad(KEY, nodes);
+
+        assertSame(nodes, cache.beginLoad(KEY));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * Wait until the thread is blocked in beginLoad()
+     */
+    private void waitUntilBlocked(Thread thread) throws InterruptedException {
+
+        for (int i = 0; i < 500; i++) {
+            if (thread.getState() == Thread.State.WAITING) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Thread did not wait for the load");
+    }
+
+    /**
+     * Requests the model from another thread
+     */
+    private class Waiter extends Thread {
+
+        /** The result of beginLoad() */
+        volatile Node[] result;
+
+        /** Was the interrupt flag set after beginLoad() */
+        volatile boolean wasInterrupted;
+
+        public void run() {
+            result = cache.beginLoad(KEY);
+            wasInterrupted = Thread.currentThread().isInterrupted();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.av3d;
+
+// External Imports
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import junit.framework.TestCase;
+
+import org.j3d.geom.GeometryData;
+
+import org.web3d.vrml.lang.FieldConstants;
+
+// Internal Imports
+// None
+
+/**
+ * Checks that a scene written by the XNodeCodec reads back with the same
+ * nodes, field values, shared nodes and tessellations, and that damaged
+ * data is rejected.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class TestXNodeCodec extends TestCase {
+
+    private XNodeFactory factory;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestXNodeCodec(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+        factory = XNodeFactory.getInstance();
+    }
+
+    /**
+     * The scene reads back as written
+     */
+    public void testRoundTrip() throws IOException {
+
+        XNode scene = createScene();
+        XNode copy = new XNodeCodec().read(ByteBuffer.wrap(encode(scene)));
+
+        assertNotNull(copy);
+        assertEquals("Scene", copy.getNodeName());
+
+        ArrayList<?> children = (ArrayList<?>)copy.getFieldData("children");
+        assertEquals(3, children.size());
+
+        XNode transform = (XNode)children.get(0);
+        assertEquals("Transform", transform.getNodeName());
+        assertTrue(Arrays.equals(
+            new float[] {1, 2, 3},
+            (float[])transform.getFieldData("translation")));
+
+        // the shared shape is read once and referenced from both parents
+        XNode shape = (XNode)((ArrayList<?>)transform.getFieldData(
+            "children")).get(0);
+        assertSame(shape, children.get(1));
+
+        XNode ifs = (XNode)shape.getFieldData("geometry");
+        assertEquals("IndexedFaceSet", ifs.getNodeName());
+        assertTrue(Arrays.equals(
+            new int[] {0, 1, 2, -1},
+            (int[])ifs.getFieldData("coordIndex")));
+        assertEquals(Boolean.FALSE, ifs.getFieldData("solid"));
+        assertEquals(Float.valueOf(0.5f), ifs.getFieldData("creaseAngle"));
+
+        XNode coord = (XNode)ifs.getFieldData("coord");
+        assertTrue(Arrays.equals(
+            new float[] {0, 0, 0, 1, 0, 0, 0, 1, 0},
+            (float[])coord.getFieldData("point")));
+
+        GeometryData data = ifs.getTessellation();
+        assertNotNull(data);
+        assertEquals(3, data.vertexCount);
+        assertTrue(Arrays.equals(
+            new float[] {0, 0, 0, 1, 0, 0, 0, 1, 0}, data.coordinates));
+        assertTrue(Arrays.equals(
+            new float[] {0, 0, 1, 0, 0, 1, 0, 0, 1}, data.normals));
+        assertNull(data.colors);
+
+        XNode timer = (XNode)children.get(2);
+        assertEquals(Double.valueOf(2.5), timer.getFieldData("cycleInterval"));
+        assertEquals(Boolean.TRUE, timer.getFieldData("enabled"));
+    }
+
+    /**
+     * A truncated scene is not read
+     */
+    public void testTruncated() throws IOException {
+
+        byte[] bytes = encode(createScene());
+        for (int len = 0; len < bytes.length; len += 7) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, len);
+            assertNull(new XNodeCodec().read(buffer));
+        }
+    }
+
+    /**
+     * A scene of another version is not read
+     */
+    public void testVersionMismatch() throws IOException {
+
+        byte[] bytes = encode(createScene());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(4, XNodeCodec.VERSION + 1);
+
+        assertNull(new XNodeCodec().read(buffer));
+    }
+
+    /**
+     * Encode a scene
+     */
+    private byte[] encode(XNode scene) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new XNodeCodec().write(scene, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Create a scene with a shape shared between the root and a
+     * transform, a tessellated geometry and values of several types
+     */
+    private XNode createScene() {
+
+        HashMap<String, Integer> fieldInfo = new HashMap<String, Integer>();
+        fieldInfo.put("children", Integer.valueOf(FieldConstants.MFNODE));
+        XNode scene = new XNode("Scene", fieldInfo);
+
+        XNode coord = factory.get("Coordinate");
+        coord.addFieldData("point", new float[] {0, 0, 0, 1, 0, 0, 0, 1, 0});
+
+        XNode ifs = factory.get("IndexedFaceSet");
+        ifs.addFieldData("coordIndex", new int[] {0, 1, 2, -1});
+        ifs.addFieldData("solid", Boolean.FALSE);
+        ifs.addFieldData("creaseAngle", Float.valueOf(0.5f));
+        ifs.addFieldData("coord", coord);
+
+        GeometryData data = new GeometryData();
+        data.vertexCount = 3;
+        data.coordinates = new float[] {0, 0, 0, 1, 0, 0, 0, 1, 0};
+        data.normals = new float[] {0, 0, 1, 0, 0, 1, 0, 0, 1};
+        ifs.setTessellation(data);
+
+        XNode shape = factory.get("Shape");
+        shape.addFieldData("geometry", ifs);
+
+        XNode transform = factory.get("Transform");
+        transform.addFieldData("translation", new float[] {1, 2, 3});
+        transform.addFieldData("children", shape);
+
+        XNode timer = factory.get("TimeSensor");
+        timer.addFieldData("cycleInterval", Double.valueOf(2.5));
+        timer.addFieldData("enabled", Boolean.TRUE);
+
+        scene.addFieldData("children", transform);
+        scene.addFieldData("children", shape);
+        scene.addFieldData("children", timer);
+
+        return scene;
+    }
+}
@@ -0,0 +1,327 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.av3d;
+
+// External Imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import javax.vecmath.Matrix4f;
+import junit.framework.TestCase;
+
+// Internal Imports
+import org.chefx3d.model.DefaultEntity;
+import org.chefx3d.model.Entity;
+import org.chefx3d.model.PositionableEntity;
+import org.chefx3d.rules.properties.ChefX3DRuleProperties;
+import org.chefx3d.view.awt.scenemanager.SceneManagerObserver;
+import org.chefx3d.view.boundingbox.AxisAlignedBoundingBox;
+import org.chefx3d.view.boundingbox.OrientedBoundingBox;
+
+/**
+ * Checks that the ZoneAxisIndex finds the same collisions, in the same
+ * order, as the traversal of ZoneCollisionManager, as the Entities of
+ * the zone are moved, scaled, added and removed.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class TestZoneAxisIndex extends TestCase {
+
+    /** The number of queries made between changes */
+    private static final int NUM_QUERIES = 40;
+
+    private SceneManagerObserver mgmtObserver;
+
+    private HashMap<Integer, AV3DEntityWrapper> wrapperMap;
+
+    private Random random;
+
+    private int nextEntityID;
+
+    private float savedEpsilon;
+
+    /** The zone and the Entities below it */
+    private DefaultEntity zone;
+    private ArrayList<DefaultEntity> entities;
+
+    private ZoneAxisIndex index;
+
+    private ZoneCollisionManager manager;
+
+    private TransformUtils tu;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestZoneAxisIndex(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+
+        savedEpsilon = AxisAlignedBoundingBox.getEpsilon();
+        AxisAlignedBoundingBox.setEpsilon(0.001f);
+
+        mgmtObserver = new SceneManagerObserver(null, null);
+        wrapperMap = new HashMap<Integer, AV3DEntityWrapper>();
+        random = new Random(7);
+        nextEntityID = 1;
+        tu = new TransformUtils();
+
+        DefaultEntity root = createEntity(1, 1, 1);
+        createWrapper(root);
+
+        zone = addChild(root);
+        zone.setPosition(new double[] {3, 1, 0}, false);
+        zone.setRotation(new float[] {0, 0, 1, 0.5f}, false);
+
+        entities = new ArrayList<DefaultEntity>();
+        for (int i = 0; i < 80; i++) {
+            entities.add(addChild(zone));
+        }
+        for (int i = 0; i < 30; i++) {
+            entities.add(addChild(pick()));
+        }
+
+        index = new ZoneAxisIndex(zone, wrapperMap);
+
+        manager = new ZoneCollisionManager();
+        manager.setWrapperMap(wrapperMap);
+    }
+
+    /**
+     * Tears down the test fixture.
+     * (Called after every test case method.)
+     */
+    public void tearDown() {
+        index.dispose();
+        AxisAlignedBoundingBox.setEpsilon(savedEpsilon);
+    }
+
+    /**
+     * The index agrees with the traversal as Entities are moved, rotated
+     * and scaled
+     */
+    public void testMovedChildren() {
+
+        checkQueries();
+
+        for (int round = 0; round < 10; round++) {
+
+            for (int i = 0; i < 10; i++) {
+                place(pick());
+            }
+
+            pick().setScale(new float[] {1 + random.nextFloat(), 1, 1});
+
+            checkQueries();
+        }
+
+        // the index is zone relative, so moving the zone changes nothing
+        zone.setPosition(new double[] {-2, 0.5, 0}, false);
+        zone.setRotation(new float[] {0, 0, 1, -1}, false);
+        checkQueries();
+    }
+
+    /**
+     * The index agrees with the traversal as Entities are added, below
+     * the zone and below other Entities
+     */
+    public void testAddedChildren() {
+
+        checkQueries();
+
+        for (int round = 0; round < 10; round++) {
+
+            entities.add(addChild(zone));
+            entities.add(addChild(pick()));
+
+            checkQueries();
+        }
+    }
+
+    /**
+     * The index agrees with the traversal as Entities, and those below
+     * them, are removed
+     */
+    public void testRemovedChildren() {
+
+        checkQueries();
+
+        for (int round = 0; round < 10; round++) {
+
+            removeEntity(pick());
+            removeEntity(pick());
+
+            checkQueries();
+        }
+    }
+
+    /**
+     * Query the index and the traversal with random bounds around random
+     * Entities, and check they find the same Entities
+     */
+    private void checkQueries() {
+
+        Matrix4f mtx = new Matrix4f();
+
+        for (int q = 0; q < NUM_QUERIES; q++) {
+
+            DefaultEntity src = pick();
+
+            float[] min = {
+                -random.nextFloat(),
+                -random.nextFloat(),
+                -random.nextFloat() * 0.2f};
+            float[] max = {
+                random.nextFloat() * 2,
+                random.nextFloat(),
+                random.nextFloat() * 0.2f};
+
+            OrientedBoundingBox bounds =
+                new OrientedBoundingBox(min, max, new float[] {1, 1, 1});
+            tu.getLocalToVworld(
+                wrapperMap.get(src.getEntityID()).transformGroup, mtx);
+            bounds.transform(mtx);
+
+            ArrayList<Entity> indexed = new ArrayList<Entity>();
+            ArrayList<Entity> traversed = new ArrayList<Entity>();
+
+            assertTrue("Zone indexed", index.check(src, bounds, indexed));
+            manager.check(zone, src, bounds, traversed);
+
+            assertEquals("Query " + q + " from " + src.getEntityID(),
+                ids(traversed), ids(indexed));
+        }
+    }
+
+    /**
+     * Get a random Entity below the zone
+     */
+    private DefaultEntity pick() {
+        return entities.get(random.nextInt(entities.size()));
+    }
+
+    /**
+     * Give an Entity a random position, sometimes rotated
+     */
+    private void place(DefaultEntity entity) {
+
+        entity.setPosition(new double[] {
+            random.nextDouble() * 10,
+            random.nextDouble() * 3,
+            random.nextDouble() * 0.5}, false);
+
+        float angle = (random.nextInt(4) == 0) ? random.nextFloat() * 3 : 0;
+        entity.setRotation(new float[] {0, 0, 1, angle}, false);
+    }
+
+    /**
+     * Add a randomly sized and placed Entity below a parent
+     */
+    private DefaultEntity addChild(DefaultEntity parent) {
+
+        DefaultEntity child = createEntity(
+            0.1f + random.nextFloat(),
+            0.1f + random.nextFloat(),
+            0.1f + random.nextFloat() * 0.3f);
+        place(child);
+
+        AV3DEntityWrapper wrapper = createWrapper(child);
+        parent.addChild(child);
+        wrapperMap.get(parent.getEntityID()).addChild(wrapper);
+
+        return child;
+    }
+
+    /**
+     * Remove an Entity, and those below it, from its parent and the
+     * wrapper map
+     */
+    private void removeEntity(DefaultEntity entity) {
+
+        AV3DEntityWrapper parent = wrapperMap.get(entity.getParentEntityID());
+        parent.entity.removeChild(entity);
+        parent.removeChild(wrapperMap.get(entity.getEntityID()));
+
+        forget(entity);
+    }
+
+    /**
+     * Drop an Entity, and those below it, from the wrapper map and the
+     * Entities to pick from
+     */
+    private void forget(Entity entity) {
+
+        wrapperMap.remove(entity.getEntityID());
+        entities.remove(entity);
+
+        ArrayList<Entity> children = entity.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            forget(children.get(i));
+        }
+    }
+
+    /**
+     * Create an Entity with no model
+     */
+    private DefaultEntity createEntity(float x, float y, float z) {
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(PositionableEntity.SIZE_PARAM, new float[] {x, y, z});
+
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(ChefX3DRuleProperties.NO_MODEL_PROP, Boolean.TRUE);
+
+        Map<String, Map<String, Object>> sheets =
+            new HashMap<String, Map<String, Object>>();
+        sheets.put(Entity.ENTITY_PARAMS, params);
+        sheets.put(Entity.DEFAULT_ENTITY_PROPERTIES, props);
+
+        return new DefaultEntity(
+            nextEntityID++, Entity.DEFAULT_ENTITY_PROPERTIES, sheets);
+    }
+
+    /**
+     * Create a wrapper for the entity and record it in the map
+     */
+    private AV3DEntityWrapper createWrapper(DefaultEntity entity) {
+        AV3DEntityWrapper wrapper =
+            new AV3DEntityWrapper(mgmtObserver, entity, null, null, null);
+        wrapperMap.put(entity.getEntityID(), wrapper);
+        return wrapper;
+    }
+
+    /**
+     * List the IDs of the Entities found
+     */
+    private String ids(ArrayList<Entity> found) {
+
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < found.size(); i++) {
+            sb.append(found.get(i).getEntityID());
+            sb.append(' ');
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,298 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.awt.scenemanager;
+
+// External Imports
+import java.util.ArrayList;
+import junit.framework.TestCase;
+
+import org.j3d.aviatrix3d.Group;
+import org.j3d.aviatrix3d.NodeUpdateListener;
+import org.j3d.aviatrix3d.pipeline.graphics.GraphicsOutputDevice;
+
+// Internal Imports
+import org.chefx3d.util.ErrorReporter;
+
+/**
+ * Checks the duplicate suppression, double buffering and deadline carry
+ * over of the NodeUpdateQueue, and the sharing of the update budget
+ * between the queues of the SceneManagerObserver.
+ *
+ * @author Jonathon Hubbard
+ * @version $Revision: 1.1 $
+ */
+public class TestNodeUpdateQueue extends TestCase {
+
+    private NodeUpdateQueue queue;
+
+    /** The callbacks made, in order */
+    private ArrayList<String> calls;
+
+    private NodeUpdateListener listenerA;
+    private NodeUpdateListener listenerB;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestNodeUpdateQueue(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+        queue = new NodeUpdateQueue();
+        calls = new ArrayList<String>();
+        listenerA = new Listener();
+        listenerB = new Listener();
+    }
+
+    /**
+     * A repeated request for the same object and listener is only made
+     * once per frame
+     */
+    public void testDuplicatesIgnored() {
+
+        TestNode node = new TestNode("n", 0);
+        queue.addBoundsRequest(node, listenerA);
+        queue.addBoundsRequest(node, listenerA);
+        queue.addBoundsRequest(node, listenerB);
+        queue.addDataRequest(node, listenerA);
+
+        assertTrue(queue.process(0));
+        assertEquals(3, calls.size());
+        assertEquals(2, count("bounds n"));
+        assertEquals(1, count("data n"));
+
+        // the next frame accepts the same request again
+        queue.addBoundsRequest(node, listenerA);
+        assertTrue(queue.process(0));
+        assertEquals(4, calls.size());
+    }
+
+    /**
+     * Many objects grow the buffers and the lookup table without
+     * losing or repeating requests
+     */
+    public void testGrowth() {
+
+        TestNode[] nodes = new TestNode[500];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new TestNode(Integer.toString(i), 0);
+            queue.addBoundsRequest(nodes[i], listenerA);
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            queue.addBoundsRequest(nodes[i], listenerA);
+        }
+
+        assertTrue(queue.process(0));
+        assertEquals(nodes.length, calls.size());
+        for (int i = 0; i < nodes.length; i++) {
+            assertEquals("bounds " + i, calls.get(i));
+        }
+    }
+
+    /**
+     * Requests made while the queue is processed are held for the next
+     * frame
+     */
+    public void testBufferSwap() {
+
+        final TestNode later = new TestNode("later", 0);
+        TestNode first = new TestNode("first", 0) {
+            public void boundsChanged(NodeUpdateListener l) {
+                super.boundsChanged(l);
+                queue.addBoundsRequest(later, listenerA);
+            }
+        };
+
+        queue.addBoundsRequest(first, listenerA);
+        assertTrue(queue.process(0));
+        assertEquals(1, calls.size());
+        assertEquals("bounds first", calls.get(0));
+
+        assertTrue(queue.process(0));
+        assertEquals(2, calls.size());
+        assertEquals("bounds later", calls.get(1));
+    }
+
+    /**
+     * Requests left when the deadline passes are processed first on the
+     * next frame
+     */
+    public void testDeadlineCarryOver() {
+
+        for (int i = 0; i < 4; i++) {
+            queue.addBoundsRequest(new TestNode("old" + i, 20), listenerA);
+        }
+
+        long deadline = System.nanoTime() + 30000000L;
+        assertFalse(queue.process(deadline));
+        int done = calls.size();
+        assertTrue(done > 0);
+        assertTrue(done < 4);
+
+        queue.addBoundsRequest(new TestNode("new", 0), listenerA);
+        assertTrue(queue.process(0));
+
+        assertEquals(5, calls.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals("bounds old" + i, calls.get(i));
+        }
+        assertEquals("bounds new", calls.get(4));
+    }
+
+    /**
+     * Without a budget every update is made on the first frame, the
+     * bounds updates before the data updates
+     */
+    public void testNoBudget() {
+
+        SceneManagerObserver observer =
+            new SceneManagerObserver(new NullDeviceManager(), null);
+        assertEquals(0, observer.getUpdateBudget());
+
+        observer.requestDataUpdate(new TestNode("d", 0), listenerA);
+        for (int i = 0; i < 3; i++) {
+            observer.requestBoundsUpdate(new TestNode("b" + i, 0), listenerA);
+        }
+
+        observer.updateSceneGraph();
+
+        assertEquals(4, calls.size());
+        assertEquals("data d", calls.get(3));
+    }
+
+    /**
+     * Bounds updates that use more than the whole budget are carried over
+     * and still made before the data updates
+     */
+    public void testBudgetOrder() {
+
+        SceneManagerObserver observer =
+            new SceneManagerObserver(new NullDeviceManager(), null);
+        observer.setUpdateBudget(10);
+
+        for (int i = 0; i < 20; i++) {
+            observer.requestBoundsUpdate(new TestNode("b" + i, 5), listenerA);
+        }
+        observer.requestDataUpdate(new TestNode("d", 0), listenerA);
+
+        observer.updateSceneGraph();
+        assertTrue(calls.size() < 20);
+        assertEquals(0, count("data d"));
+
+        // the rest of the bounds follow over the next frames, in order
+        for (int i = 0; i < 20 && calls.size() < 21; i++) {
+            observer.updateSceneGraph();
+        }
+        assertEquals(21, calls.size());
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("bounds b" + i, calls.get(i));
+        }
+        assertEquals("data d", calls.get(20));
+    }
+
+    /**
+     * Count the callbacks that were made
+     */
+    private int count(String call) {
+        int num = 0;
+        for (int i = 0; i < calls.size(); i++) {
+            if (call.equals(calls.get(i))) {
+                num++;
+            }
+        }
+        return num;
+    }
+
+    /**
+     * A live node that records its callbacks and takes the given time
+     * for each
+     */
+    private class TestNode extends Group {
+
+        private String name;
+
+        private long millis;
+
+        TestNode(String name, long millis) {
+            this.name = name;
+            this.millis = millis;
+        }
+
+        public boolean isLive() {
+            return true;
+        }
+
+        public void boundsChanged(NodeUpdateListener l) {
+            calls.add("bounds " + name);
+            pause();
+        }
+
+        public void dataChanged(NodeUpdateListener l) {
+            calls.add("data " + name);
+            pause();
+        }
+
+        private void pause() {
+            if (millis > 0) {
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException ie) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Listener that does nothing, the nodes record the calls
+     */
+    private static class Listener implements NodeUpdateListener {
+
+        public void updateNodeBoundsChanges(Object src) {
+        }
+
+        public void updateNodeDataChanges(Object src) {
+        }
+    }
+
+    /**
+     * Device manager without devices
+     */
+    private static class NullDeviceManager implements DeviceManager {
+
+        public void addTrackedSurface(
+                GraphicsOutputDevice surface,
+                UserInputHandler uih) {
+        }
+
+        public void setErrorReporter(ErrorReporter reporter) {
+        }
+
+        public void beginTrackerProcessing() {
+        }
+
+        public void endTrackerProcessing() {
+        }
+
+        public void processTrackers(int layerId, UserInputHandler uiHandler) {
+        }
+    }
+}
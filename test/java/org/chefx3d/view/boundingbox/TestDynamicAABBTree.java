@@ -0,0 +1,223 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2010
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.chefx3d.view.boundingbox;
+
+// External Imports
+import java.util.HashSet;
+import java.util.Random;
+import junit.framework.TestCase;
+
+// Internal Imports
+// None
+
+/**
+ * Checks insertion, removal, refitting and querying of the
+ * DynamicAABBTree against a brute force overlap test.
+ *
+ * @author Rex Melton
+ * @version $Revision: 1.1 $
+ */
+public class TestDynamicAABBTree extends TestCase {
+
+    /** The leaf margin used by the tree under test */
+    private static final float MARGIN = 0.05f;
+
+    private DynamicAABBTree tree;
+
+    /** Reference boxes, indexed by id */
+    private float[][] mins;
+    private float[][] maxs;
+
+    /**
+     * Basic constructor
+     *
+     * @param name
+     */
+    public TestDynamicAABBTree(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets up the test fixture.
+     * (Called before every test case method.)
+     */
+    public void setUp() {
+        tree = new DynamicAABBTree(MARGIN);
+        mins = new float[500][];
+        maxs = new float[500][];
+    }
+
+    /**
+     * Entries that are put can be found, and size tracks them
+     */
+    public void testInsert() {
+
+        assertEquals(0, tree.size());
+        assertEquals(0, tree.query(new float[] {-1, -1, -1}, new float[] {1, 1, 1}));
+
+        assertTrue(tree.put(7, new float[] {0, 0, 0}, new float[] {1, 1, 1}));
+        assertTrue(tree.contains(7));
+        assertEquals(1, tree.size());
+
+        int num = tree.query(new float[] {0.5f, 0.5f, 0.5f}, new float[] {2, 2, 2});
+        assertEquals(1, num);
+        assertEquals(7, tree.getResults()[0]);
+
+        // disjoint beyond the margin
+        num = tree.query(new float[] {2, 2, 2}, new float[] {3, 3, 3});
+        assertEquals(0, num);
+    }
+
+    /**
+     * Removed entries are no longer returned, and removing an
+     * unknown id is harmless
+     */
+    public void testRemove() {
+
+        tree.put(1, new float[] {0, 0, 0}, new float[] {1, 1, 1});
+        tree.put(2, new float[] {0, 0, 0}, new float[] {1, 1, 1});
+        tree.remove(1);
+        tree.remove(42);
+
+        assertFalse(tree.contains(1));
+        assertTrue(tree.contains(2));
+        assertEquals(1, tree.size());
+
+        int num = tree.query(new float[] {0, 0, 0}, new float[] {1, 1, 1});
+        assertEquals(1, num);
+        assertEquals(2, tree.getResults()[0]);
+
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertEquals(0, tree.query(new float[] {0, 0, 0}, new float[] {1, 1, 1}));
+    }
+
+    /**
+     * Updates within the margin are absorbed, larger moves refit
+     * the leaf so that it is found at its new location only
+     */
+    public void testRefit() {
+
+        tree.put(3, new float[] {0, 0, 0}, new float[] {1, 1, 1});
+
+        // within the fattened box
+        assertFalse(tree.put(3, new float[] {0.01f, 0, 0}, new float[] {1.01f, 1, 1}));
+
+        // outside the fattened box
+        assertTrue(tree.put(3, new float[] {5, 5, 5}, new float[] {6, 6, 6}));
+        assertEquals(1, tree.size());
+
+        assertEquals(0, tree.query(new float[] {0, 0, 0}, new float[] {1, 1, 1}));
+        assertEquals(1, tree.query(new float[] {5.5f, 5.5f, 5.5f}, new float[] {5.6f, 5.6f, 5.6f}));
+        assertEquals(3, tree.getResults()[0]);
+    }
+
+    /**
+     * A randomized sequence of puts, moves and removes answers every
+     * query with a superset of the exact overlaps, and nothing that
+     * is further away than the margin.
+     */
+    public void testQueryMatchesBruteForce() {
+
+        Random rand = new Random(11);
+
+        for (int step = 0; step < 3000; step++) {
+            int id = rand.nextInt(mins.length);
+            int op = rand.nextInt(10);
+            if (op < 7) {
+                float[] min = new float[3];
+                float[] max = new float[3];
+                randomBox(rand, min, max);
+                tree.put(id, min, max);
+                mins[id] = min;
+                maxs[id] = max;
+            } else {
+                tree.remove(id);
+                mins[id] = null;
+                maxs[id] = null;
+            }
+
+            if (step % 10 == 0) {
+                float[] qmin = new float[3];
+                float[] qmax = new float[3];
+                randomBox(rand, qmin, qmax);
+                checkQuery(qmin, qmax);
+            }
+        }
+
+        int expected = 0;
+        for (int i = 0; i < mins.length; i++) {
+            if (mins[i] != null) {
+                expected++;
+                assertTrue(tree.contains(i));
+            } else {
+                assertFalse(tree.contains(i));
+            }
+        }
+        assertEquals(expected, tree.size());
+    }
+
+    /**
+     * Query the tree and compare against the reference boxes
+     */
+    private void checkQuery(float[] qmin, float[] qmax) {
+
+        int num = tree.query(qmin, qmax);
+        int[] ids = tree.getResults();
+        HashSet<Integer> found = new HashSet<Integer>();
+        for (int i = 0; i < num; i++) {
+            assertTrue("duplicate result", found.add(ids[i]));
+        }
+
+        for (int i = 0; i < mins.length; i++) {
+            if (mins[i] == null) {
+                assertFalse("removed entry returned", found.contains(i));
+                continue;
+            }
+            if (overlaps(mins[i], maxs[i], qmin, qmax, 0)) {
+                assertTrue("overlap missed", found.contains(i));
+            } else if (!overlaps(mins[i], maxs[i], qmin, qmax, 2 * MARGIN)) {
+                assertFalse("distant entry returned", found.contains(i));
+            }
+        }
+    }
+
+    /**
+     * Return whether the boxes overlap when the first is grown
+     * by the argument amount
+     */
+    private boolean overlaps(
+        float[] amin,
+        float[] amax,
+        float[] bmin,
+        float[] bmax,
+        float grow) {
+
+        for (int i = 0; i < 3; i++) {
+            if ((amin[i] - grow > bmax[i]) || (amax[i] + grow < bmin[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fill in a random box within a 20 unit cube
+     */
+    private void randomBox(Random rand, float[] min, float[] max) {
+        for (int i = 0; i < 3; i++) {
+            min[i] = rand.nextFloat() * 20;
+            max[i] = min[i] + 0.1f + rand.nextFloat() * 2;
+        }
+    }
+}